@@ -0,0 +1,114 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.common.cache;
+
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of {@link Cache} under concurrent access, with a skewed key distribution so that most reads hit a
+ * small set of hot entries, like the query and request caches do.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CacheContentionBenchmark {
+
+    private static final int NUM_OPERATIONS_MASK = (1 << 16) - 1;
+
+    /**
+     * The number of entries that the cache can hold
+     */
+    @Param({ "10000" })
+    int maximumWeight;
+
+    /**
+     * The percentage of operations that are writes, the other operations are reads
+     */
+    @Param({ "0", "10" })
+    int writePercentage;
+
+    private Cache<Integer, Integer> cache;
+
+    @Setup
+    public void setup() {
+        cache = CacheBuilder.<Integer, Integer>builder().setMaximumWeight(maximumWeight).build();
+        for (int i = 0; i < maximumWeight; i++) {
+            cache.put(i, i);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private int[] keys;
+        private boolean[] writes;
+        private int index;
+
+        @Setup
+        public void setup(CacheContentionBenchmark benchmark) {
+            final Random random = new Random(ThreadLocalRandom.current().nextLong());
+            keys = new int[NUM_OPERATIONS_MASK + 1];
+            writes = new boolean[NUM_OPERATIONS_MASK + 1];
+            for (int i = 0; i < keys.length; i++) {
+                // squaring a uniform value skews the keys towards the first entries, 2x the capacity so that writes evict
+                final double uniform = random.nextDouble();
+                keys[i] = (int) (uniform * uniform * 2 * benchmark.maximumWeight);
+                writes[i] = random.nextInt(100) < benchmark.writePercentage;
+            }
+        }
+
+        int next(Cache<Integer, Integer> cache) {
+            final int i = index++ & NUM_OPERATIONS_MASK;
+            final Integer key = keys[i];
+            if (writes[i]) {
+                cache.put(key, key);
+                return key;
+            }
+            final Integer value = cache.get(key);
+            return value == null ? -1 : value;
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public int threads8(ThreadState state) {
+        return state.next(cache);
+    }
+
+    @Benchmark
+    @Threads(32)
+    public int threads32(ThreadState state) {
+        return state.next(cache);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public int threads64(ThreadState state) {
+        return state.next(cache);
+    }
+}
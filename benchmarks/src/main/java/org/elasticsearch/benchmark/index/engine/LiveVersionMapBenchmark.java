@@ -0,0 +1,117 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.benchmark.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.index.engine.TestLiveVersionMap;
+import org.elasticsearch.index.translog.Translog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the on-heap and the paged {@code LiveVersionMap} on update heavy workloads: every operation looks up the current
+ * version of a random _id and then indexes or deletes it, and the map is refreshed and its tombstones pruned once every
+ * {@link #opsPerRefresh} operations.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") // invoked by benchmarking framework
+public class LiveVersionMapBenchmark {
+
+    private static final int OPS_PER_INVOCATION = 1 << 16;
+
+    @Param({ "false", "true" })
+    private boolean paged;
+
+    @Param({ "100000", "10000000" })
+    private int numIds;
+
+    @Param({ "10000", "1000000" })
+    private int opsPerRefresh;
+
+    @Param({ "0.0", "0.1" })
+    private double deleteRatio;
+
+    private TestLiveVersionMap map;
+    private final AtomicLong seqNo = new AtomicLong();
+    private final AtomicLong ops = new AtomicLong();
+
+    @Setup(Level.Iteration)
+    public void setup() throws IOException {
+        map = new TestLiveVersionMap(paged);
+        // updates are only tracked once the map is in safe access mode
+        map.enforceSafeAccess();
+        seqNo.set(0);
+        ops.set(0);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        final Random random = new Random();
+    }
+
+    @Benchmark
+    @Threads(1)
+    @OperationsPerInvocation(OPS_PER_INVOCATION)
+    public void updateSingleThread(ThreadState state, Blackhole bh) throws IOException {
+        run(state, bh);
+    }
+
+    @Benchmark
+    @Threads(8)
+    @OperationsPerInvocation(OPS_PER_INVOCATION)
+    public void updateEightThreads(ThreadState state, Blackhole bh) throws IOException {
+        run(state, bh);
+    }
+
+    private void run(ThreadState state, Blackhole bh) throws IOException {
+        for (int i = 0; i < OPS_PER_INVOCATION; i++) {
+            final BytesRef uid = new BytesRef(Integer.toString(state.random.nextInt(numIds)).getBytes(StandardCharsets.UTF_8));
+            final long seqNo = this.seqNo.incrementAndGet();
+            try (Releasable ignored = map.acquireLock(uid)) {
+                bh.consume(map.getSeqNoUnderLock(uid));
+                if (state.random.nextDouble() < deleteRatio) {
+                    map.putDeleteUnderLock(uid, seqNo, seqNo);
+                } else {
+                    map.putIndexUnderLock(uid, seqNo, new Translog.Location(1, seqNo * 100, 100));
+                }
+            }
+            if (ops.incrementAndGet() % opsPerRefresh == 0) {
+                synchronized (this) {
+                    map.refresh();
+                    map.pruneTombstones(seqNo, seqNo);
+                }
+            }
+        }
+        bh.consume(map.ramBytesUsed());
+    }
+}
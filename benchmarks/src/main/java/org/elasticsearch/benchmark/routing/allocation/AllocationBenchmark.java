@@ -9,6 +9,7 @@ package org.elasticsearch.benchmark.routing.allocation;
 
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
@@ -17,10 +18,20 @@ import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.allocation.AllocationService;
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
+import org.elasticsearch.cluster.routing.allocation.allocator.DesiredBalance;
+import org.elasticsearch.cluster.routing.allocation.allocator.DesiredBalanceComputer;
+import org.elasticsearch.cluster.routing.allocation.allocator.DesiredBalanceInput;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
+import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.snapshots.SnapshotShardSizeInfo;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
@@ -28,9 +39,11 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 
 import java.util.Collections;
+import java.util.LinkedList;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -99,7 +112,12 @@ public class AllocationBenchmark {
             "       10|     10|        2|    50",
             "      100|      1|        2|    50",
             "      100|      3|        2|    50",
-            "      100|     10|        2|    50" }
+            "      100|     10|        2|    50",
+
+            "     1000|      1|        1|   100",
+            "     1000|      3|        1|   100",
+            "     5000|      1|        1|   200",
+            "     5000|      3|        1|   200" }
     )
     public String indicesShardsReplicasNodes = "10|1|0|1";
 
@@ -108,6 +126,15 @@ public class AllocationBenchmark {
     private AllocationService strategy;
     private ClusterState initialClusterState;
 
+    private ThreadPool threadPool;
+    private Settings settings;
+    private ClusterSettings clusterSettings;
+    private AllocationDeciders deciders;
+    private ClusterState allocatedClusterState;
+    private DesiredBalance allocatedDesiredBalance;
+    private ClusterState nodeJoinedClusterState;
+    private ClusterState indexCreatedClusterState;
+
     @Setup
     public void setUp() throws Exception {
         final String[] params = indicesShardsReplicasNodes.split("\\|");
@@ -117,9 +144,11 @@ public class AllocationBenchmark {
         int numReplicas = toInt(params[2]);
         int numNodes = toInt(params[3]);
 
-        strategy = Allocators.createAllocationService(
-            Settings.builder().put("cluster.routing.allocation.awareness.attributes", "tag").build()
-        );
+        settings = Settings.builder().put("cluster.routing.allocation.awareness.attributes", "tag").build();
+        clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        strategy = Allocators.createAllocationService(settings, clusterSettings);
+        deciders = Allocators.defaultAllocationDeciders(settings, clusterSettings);
+        threadPool = new ThreadPool(Settings.builder().put("node.name", AllocationBenchmark.class.getSimpleName()).build());
 
         Metadata.Builder mb = Metadata.builder();
         for (int i = 1; i <= numIndices; i++) {
@@ -145,6 +174,39 @@ public class AllocationBenchmark {
             .routingTable(routingTable)
             .nodes(nb)
             .build();
+
+        allocatedClusterState = measureAllocation();
+        allocatedDesiredBalance = newDesiredBalanceComputer().compute(
+            DesiredBalance.INITIAL,
+            desiredBalanceInput(allocatedClusterState),
+            new LinkedList<>(),
+            input -> true
+        );
+        nodeJoinedClusterState = ClusterState.builder(allocatedClusterState)
+            .nodes(
+                DiscoveryNodes.builder(allocatedClusterState.nodes())
+                    .add(Allocators.newNode("node" + (numNodes + 1), Collections.singletonMap("tag", "tag_" + ((numNodes + 1) % numTags))))
+            )
+            .build();
+        Metadata indexCreatedMetadata = Metadata.builder(allocatedClusterState.metadata())
+            .put(
+                IndexMetadata.builder("test_" + (numIndices + 1))
+                    .settings(Settings.builder().put("index.version.created", Version.CURRENT))
+                    .numberOfShards(numShards)
+                    .numberOfReplicas(numReplicas)
+            )
+            .build();
+        indexCreatedClusterState = ClusterState.builder(allocatedClusterState)
+            .metadata(indexCreatedMetadata)
+            .routingTable(
+                RoutingTable.builder(allocatedClusterState.routingTable()).addAsNew(indexCreatedMetadata.index("test_" + (numIndices + 1)))
+            )
+            .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
     }
 
     private int toInt(String v) {
@@ -170,4 +232,76 @@ public class AllocationBenchmark {
         }
         return clusterState;
     }
+
+    /**
+     * Measures the computation of the desired balance of a new cluster, from scratch
+     */
+    @Benchmark
+    public DesiredBalance measureDesiredBalanceComputation() {
+        return newDesiredBalanceComputer().compute(
+            DesiredBalance.INITIAL,
+            desiredBalanceInput(initialClusterState),
+            new LinkedList<>(),
+            input -> true
+        );
+    }
+
+    /**
+     * Measures the computation of the desired balance of a balanced cluster after a node joined, by a computer that computed the
+     * previous desired balance
+     */
+    @Benchmark
+    public DesiredBalance measureDesiredBalanceComputationAfterNodeJoin(PreviousDesiredBalanceComputer computer) {
+        return computer.desiredBalanceComputer.compute(
+            allocatedDesiredBalance,
+            desiredBalanceInput(nodeJoinedClusterState),
+            new LinkedList<>(),
+            input -> true
+        );
+    }
+
+    /**
+     * Measures the computation of the desired balance of a balanced cluster after an index was created, by a computer that computed
+     * the previous desired balance
+     */
+    @Benchmark
+    public DesiredBalance measureDesiredBalanceComputationAfterIndexCreation(PreviousDesiredBalanceComputer computer) {
+        return computer.desiredBalanceComputer.compute(
+            allocatedDesiredBalance,
+            desiredBalanceInput(indexCreatedClusterState),
+            new LinkedList<>(),
+            input -> true
+        );
+    }
+
+    private DesiredBalanceComputer newDesiredBalanceComputer() {
+        return new DesiredBalanceComputer(settings, clusterSettings, threadPool, new BalancedShardsAllocator(settings));
+    }
+
+    private DesiredBalanceInput desiredBalanceInput(ClusterState clusterState) {
+        return DesiredBalanceInput.create(
+            clusterState.version(),
+            new RoutingAllocation(deciders, clusterState, ClusterInfo.EMPTY, SnapshotShardSizeInfo.EMPTY, System.nanoTime())
+        );
+    }
+
+    /**
+     * A desired balance computer that already computed the desired balance of the balanced cluster, so that it only needs to catch up
+     * with the changes of the cluster as it would in production.
+     */
+    @State(Scope.Thread)
+    public static class PreviousDesiredBalanceComputer {
+        private DesiredBalanceComputer desiredBalanceComputer;
+
+        @Setup(Level.Invocation)
+        public void setUp(AllocationBenchmark benchmark) {
+            desiredBalanceComputer = benchmark.newDesiredBalanceComputer();
+            desiredBalanceComputer.compute(
+                benchmark.allocatedDesiredBalance,
+                benchmark.desiredBalanceInput(benchmark.allocatedClusterState),
+                new LinkedList<>(),
+                input -> true
+            );
+        }
+    }
 }
@@ -22,12 +22,15 @@ import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.MMapDirectory;
 import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.NumericUtils;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.lucene.search.function.ScriptScoreQuery;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.fielddata.FieldDataContext;
 import org.elasticsearch.index.fielddata.IndexFieldDataCache;
 import org.elasticsearch.index.fielddata.IndexNumericFieldData;
+import org.elasticsearch.index.fielddata.LeafNumericFieldData;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.NumberFieldMapper.NumberFieldType;
 import org.elasticsearch.index.mapper.NumberFieldMapper.NumberType;
@@ -63,7 +66,9 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * A race between Lucene Expressions, Painless, and a hand optimized script
- * implementing a {@link ScriptScoreQuery}.
+ * implementing a {@link ScriptScoreQuery}. {@code painless_def} reads the
+ * field through the typed doc values path Painless compiles
+ * {@code doc['field'].value} to when the value is used as a number.
  */
 @Fork(2)
 @Warmup(iterations = 10)
@@ -82,10 +87,11 @@ public class ScriptScoreBenchmark {
     private final ScriptModule scriptModule = new ScriptModule(Settings.EMPTY, pluginsService.filterPlugins(ScriptPlugin.class));
 
     private final Map<String, MappedFieldType> fieldTypes = Map.ofEntries(
-        Map.entry("n", new NumberFieldType("n", NumberType.LONG, false, false, true, true, null, Map.of(), null, false, null))
+        Map.entry("n", new NumberFieldType("n", NumberType.LONG, false, false, true, true, null, Map.of(), null, false, null)),
+        Map.entry("d", new NumberFieldType("d", NumberType.DOUBLE, false, false, true, true, null, Map.of(), null, false, null))
     );
     private final IndexFieldDataCache fieldDataCache = new IndexFieldDataCache.None();
-    private final Map<String, Set<String>> sourcePaths = Map.of("n", Set.of("n"));
+    private final Map<String, Set<String>> sourcePaths = Map.of("n", Set.of("n"), "d", Set.of("d"));
     private final CircuitBreakerService breakerService = new NoneCircuitBreakerService();
     private final SearchLookup lookup = new SearchLookup(
         fieldTypes::get,
@@ -96,6 +102,12 @@ public class ScriptScoreBenchmark {
     @Param({ "expression", "metal", "painless_cast", "painless_def" })
     private String script;
 
+    /**
+     * The field the script reads, {@code n} is a {@code long} and {@code d} a {@code double}.
+     */
+    @Param({ "n", "d" })
+    private String field;
+
     @Param({ "16" })
     private double indexingBufferMb;
 
@@ -105,17 +117,19 @@ public class ScriptScoreBenchmark {
 
     @Setup
     public void setupScript() {
+        String docValues = field.equals("n") ? "Longs" : "Doubles";
+        String value = "doc['" + field + "'].value";
         factory = switch (script) {
-            case "expression" -> scriptModule.engines.get("expression").compile("test", "doc['n'].value", ScoreScript.CONTEXT, Map.of());
+            case "expression" -> scriptModule.engines.get("expression").compile("test", value, ScoreScript.CONTEXT, Map.of());
             case "metal" -> bareMetalScript();
             case "painless_cast" -> scriptModule.engines.get("painless")
                 .compile(
                     "test",
-                    "((org.elasticsearch.index.fielddata.ScriptDocValues.Longs)doc['n']).value",
+                    "((org.elasticsearch.index.fielddata.ScriptDocValues." + docValues + ")doc['" + field + "']).value",
                     ScoreScript.CONTEXT,
                     Map.of()
                 );
-            case "painless_def" -> scriptModule.engines.get("painless").compile("test", "doc['n'].value", ScoreScript.CONTEXT, Map.of());
+            case "painless_def" -> scriptModule.engines.get("painless").compile("test", value, ScoreScript.CONTEXT, Map.of());
             default -> throw new IllegalArgumentException("Don't know how to implement script [" + script + "]");
         };
     }
@@ -132,7 +146,12 @@ public class ScriptScoreBenchmark {
             )
         ) {
             for (int i = 1; i <= 1_000_000; i++) {
-                w.addDocument(List.of(new SortedNumericDocValuesField("n", i)));
+                w.addDocument(
+                    List.of(
+                        new SortedNumericDocValuesField("n", i),
+                        new SortedNumericDocValuesField("d", NumericUtils.doubleToSortableLong(i))
+                    )
+                );
             }
             w.commit();
         }
@@ -155,12 +174,37 @@ public class ScriptScoreBenchmark {
 
     private ScoreScript.Factory bareMetalScript() {
         return (params, lookup) -> {
-            MappedFieldType type = fieldTypes.get("n");
+            MappedFieldType type = fieldTypes.get(field);
             IndexNumericFieldData ifd = (IndexNumericFieldData) lookup.getForField(type, MappedFieldType.FielddataOperation.SEARCH);
             return new ScoreScript.LeafFactory() {
                 @Override
                 public ScoreScript newInstance(DocReader docReader) throws IOException {
-                    SortedNumericDocValues values = ifd.load(((DocValuesDocReader) docReader).getLeafReaderContext()).getLongValues();
+                    LeafNumericFieldData leafData = ifd.load(((DocValuesDocReader) docReader).getLeafReaderContext());
+                    if (ifd.getNumericType().isFloatingPoint()) {
+                        SortedNumericDoubleValues values = leafData.getDoubleValues();
+                        return new ScoreScript(params, null, docReader) {
+                            private int docId;
+
+                            @Override
+                            public double execute(ExplanationHolder explanation) {
+                                try {
+                                    values.advanceExact(docId);
+                                    if (values.docValueCount() != 1) {
+                                        throw new IllegalArgumentException("script only works when there is exactly one value");
+                                    }
+                                    return values.nextValue();
+                                } catch (IOException e) {
+                                    throw new RuntimeException(e);
+                                }
+                            }
+
+                            @Override
+                            public void setDocument(int docid) {
+                                this.docId = docid;
+                            }
+                        };
+                    }
+                    SortedNumericDocValues values = leafData.getLongValues();
                     return new ScoreScript(params, null, docReader) {
                         private int docId;
 
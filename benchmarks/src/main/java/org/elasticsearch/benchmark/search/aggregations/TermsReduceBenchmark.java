@@ -25,12 +25,13 @@ import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.AggregationReduceContext;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
-import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.search.query.QuerySearchResult;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -43,6 +44,7 @@ import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 
 import java.util.AbstractList;
@@ -66,23 +68,43 @@ import java.util.concurrent.atomic.AtomicBoolean;
 @Fork(value = 1)
 public class TermsReduceBenchmark {
 
-    private final TermsAggregationBuilder builder = new TermsAggregationBuilder("terms");
+    @Param({ "false", "true" })
+    private boolean parallelReduce;
 
-    private final SearchPhaseController controller = new SearchPhaseController((task, req) -> new AggregationReduceContext.Builder() {
-        @Override
-        public AggregationReduceContext forPartialReduction() {
-            return new AggregationReduceContext.ForPartial(null, null, task, builder);
+    private ExecutorService reduceExecutor;
+
+    private SearchPhaseController controller;
+
+    @Setup
+    public void setup(TermsList candidateList) {
+        AggregatorFactories.Builder builders = new AggregatorFactories.Builder();
+        for (int i = 0; i < candidateList.numAggs; i++) {
+            builders.addAggregator(new TermsAggregationBuilder(TermsList.aggName(i)).subAggregation(new TermsAggregationBuilder("terms")));
         }
+        reduceExecutor = parallelReduce ? Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()) : null;
+        controller = new SearchPhaseController((task, req) -> new AggregationReduceContext.Builder() {
+            @Override
+            public AggregationReduceContext forPartialReduction() {
+                return new AggregationReduceContext.ForPartial(null, null, task, builders, reduceExecutor);
+            }
 
-        @Override
-        public AggregationReduceContext forFinalReduction() {
-            final MultiBucketConsumerService.MultiBucketConsumer bucketConsumer = new MultiBucketConsumerService.MultiBucketConsumer(
-                Integer.MAX_VALUE,
-                new NoneCircuitBreakerService().getBreaker(CircuitBreaker.REQUEST)
-            );
-            return new AggregationReduceContext.ForFinal(null, null, task, builder, bucketConsumer, PipelineAggregator.PipelineTree.EMPTY);
+            @Override
+            public AggregationReduceContext forFinalReduction() {
+                final MultiBucketConsumerService.MultiBucketConsumer bucketConsumer = new MultiBucketConsumerService.MultiBucketConsumer(
+                    Integer.MAX_VALUE,
+                    new NoneCircuitBreakerService().getBreaker(CircuitBreaker.REQUEST)
+                );
+                return new AggregationReduceContext.ForFinal(null, null, task, builders, bucketConsumer, reduceExecutor);
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (reduceExecutor != null) {
+            reduceExecutor.shutdownNow();
         }
-    });
+    }
 
     @State(Scope.Benchmark)
     public static class TermsList extends AbstractList<InternalAggregations> {
@@ -98,6 +120,9 @@ public class TermsReduceBenchmark {
         @Param({ "1", "10", "100" })
         int cardinalityFactor;
 
+        @Param({ "1", "16" })
+        int numAggs;
+
         List<InternalAggregations> aggsList;
 
         @Setup
@@ -110,11 +135,19 @@ public class TermsReduceBenchmark {
                 dict[i] = new BytesRef(Long.toString(rand.nextLong()));
             }
             for (int i = 0; i < numShards; i++) {
-                aggsList.add(InternalAggregations.from(Collections.singletonList(newTerms(rand, dict, true))));
+                List<InternalAggregation> aggs = new ArrayList<>(numAggs);
+                for (int j = 0; j < numAggs; j++) {
+                    aggs.add(newTerms(aggName(j), rand, dict, true));
+                }
+                aggsList.add(InternalAggregations.from(aggs));
             }
         }
 
-        private StringTerms newTerms(Random rand, BytesRef[] dict, boolean withNested) {
+        static String aggName(int index) {
+            return index == 0 ? "terms" : "terms_" + index;
+        }
+
+        private StringTerms newTerms(String name, Random rand, BytesRef[] dict, boolean withNested) {
             Set<BytesRef> randomTerms = new HashSet<>();
             for (int i = 0; i < topNSize; i++) {
                 randomTerms.add(dict[rand.nextInt(dict.length)]);
@@ -123,7 +156,7 @@ public class TermsReduceBenchmark {
             for (BytesRef term : randomTerms) {
                 InternalAggregations subAggs;
                 if (withNested) {
-                    subAggs = InternalAggregations.from(Collections.singletonList(newTerms(rand, dict, false)));
+                    subAggs = InternalAggregations.from(Collections.singletonList(newTerms("terms", rand, dict, false)));
                 } else {
                     subAggs = InternalAggregations.EMPTY;
                 }
@@ -132,7 +165,7 @@ public class TermsReduceBenchmark {
 
             Collections.sort(buckets, (a, b) -> a.compareKey(b));
             return new StringTerms(
-                "terms",
+                name,
                 BucketOrder.key(true),
                 BucketOrder.count(false),
                 topNSize,
@@ -0,0 +1,210 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations.bucket.terms;
+
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexWriterConfig.OpenMode;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.OrdinalMap;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.IOUtils;
+import org.apache.lucene.util.LongHeap;
+import org.apache.lucene.util.LongValues;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.common.util.PageCacheRecycler;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.search.aggregations.CardinalityUpperBound;
+import org.elasticsearch.search.aggregations.bucket.terms.BytesKeyedBucketOrds;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency of a top level {@code terms} aggregation on a keyword
+ * field right after a refresh, when the global ordinals of the field aren't
+ * loaded yet. {@code global_ordinals} has to build them first, like the
+ * {@code GlobalOrdinalsStringTermsAggregator}, and then counts by global
+ * ordinal. {@code segment_ordinals} counts by segment ordinal and merges the
+ * counts of each segment by value, like the
+ * {@code MapStringTermsAggregator.SegmentOrdinals} aggregator.
+ */
+@Fork(2)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class SegmentOrdinalsTermsBenchmark {
+    private static final int DOCS = 2_000_000;
+    private static final int SIZE = 10;
+
+    private final PageCacheRecycler recycler = new PageCacheRecycler(Settings.EMPTY);
+    private final BigArrays bigArrays = new BigArrays(recycler, null, "REQUEST");
+
+    /**
+     * The number of distinct values of the field.
+     */
+    @Param({ "10000", "1000000" })
+    private int cardinality;
+
+    /**
+     * The number of segments of the index.
+     */
+    @Param({ "5", "30" })
+    private int segments;
+
+    /**
+     * Collect one in this many documents, emulating a query that
+     * only matches some of the documents.
+     */
+    @Param({ "1", "100" })
+    private int docsPerMatch;
+
+    @Param({ "global_ordinals", "segment_ordinals" })
+    private String mode;
+
+    private Directory directory;
+    private DirectoryReader reader;
+
+    @Setup
+    public void setupIndex() throws IOException {
+        Path path = Path.of(System.getProperty("tests.index"));
+        IOUtils.rm(path);
+        directory = new MMapDirectory(path);
+        Random random = new Random(0);
+        try (
+            IndexWriter w = new IndexWriter(
+                directory,
+                new IndexWriterConfig().setOpenMode(OpenMode.CREATE).setMergePolicy(NoMergePolicy.INSTANCE)
+            )
+        ) {
+            int docsPerSegment = DOCS / segments;
+            for (int i = 1; i <= DOCS; i++) {
+                String value = String.format(Locale.ROOT, "value-%010d", random.nextInt(cardinality));
+                w.addDocument(List.of(new SortedDocValuesField("k", new BytesRef(value))));
+                if (i % docsPerSegment == 0) {
+                    w.flush();
+                }
+            }
+            w.commit();
+        }
+        reader = DirectoryReader.open(directory);
+    }
+
+    @TearDown
+    public void tearDownIndex() throws IOException {
+        IOUtils.close(reader, directory);
+    }
+
+    /**
+     * The sum of the counts of the top {@value #SIZE} values.
+     */
+    @Benchmark
+    public long terms() throws IOException {
+        return switch (mode) {
+            case "global_ordinals" -> globalOrdinals();
+            case "segment_ordinals" -> segmentOrdinals();
+            default -> throw new IllegalArgumentException("Unknown mode [" + mode + "]");
+        };
+    }
+
+    private long globalOrdinals() throws IOException {
+        List<LeafReaderContext> leaves = reader.leaves();
+        SortedDocValues[] values = new SortedDocValues[leaves.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = DocValues.getSorted(leaves.get(i).reader(), "k");
+        }
+        OrdinalMap ordinalMap = OrdinalMap.build(null, values, PackedInts.DEFAULT);
+        try (LongArray counts = bigArrays.newLongArray(ordinalMap.getValueCount(), true)) {
+            for (int i = 0; i < leaves.size(); i++) {
+                SortedDocValues segmentOrds = DocValues.getSorted(leaves.get(i).reader(), "k");
+                LongValues globalOrds = ordinalMap.getGlobalOrds(i);
+                int maxDoc = leaves.get(i).reader().maxDoc();
+                for (int doc = 0; doc < maxDoc; doc += docsPerMatch) {
+                    if (segmentOrds.advanceExact(doc)) {
+                        counts.increment(globalOrds.get(segmentOrds.ordValue()), 1);
+                    }
+                }
+            }
+            return topCounts(counts, ordinalMap.getValueCount());
+        }
+    }
+
+    private long segmentOrdinals() throws IOException {
+        BytesKeyedBucketOrds bucketOrds = BytesKeyedBucketOrds.build(bigArrays, CardinalityUpperBound.ONE);
+        LongArray counts = bigArrays.newLongArray(1, true);
+        LongArray segmentCounts = bigArrays.newLongArray(1, true);
+        try {
+            for (LeafReaderContext ctx : reader.leaves()) {
+                SortedDocValues segmentOrds = DocValues.getSorted(ctx.reader(), "k");
+                segmentCounts = bigArrays.grow(segmentCounts, segmentOrds.getValueCount());
+                int maxDoc = ctx.reader().maxDoc();
+                for (int doc = 0; doc < maxDoc; doc += docsPerMatch) {
+                    if (segmentOrds.advanceExact(doc)) {
+                        segmentCounts.increment(segmentOrds.ordValue(), 1);
+                    }
+                }
+                for (int ord = 0; ord < segmentOrds.getValueCount(); ord++) {
+                    long count = segmentCounts.set(ord, 0);
+                    if (count == 0) {
+                        continue;
+                    }
+                    long bucketOrd = bucketOrds.add(0, segmentOrds.lookupOrd(ord));
+                    if (bucketOrd < 0) {
+                        bucketOrd = -1 - bucketOrd;
+                    }
+                    counts = bigArrays.grow(counts, bucketOrd + 1);
+                    counts.increment(bucketOrd, count);
+                }
+            }
+            return topCounts(counts, bucketOrds.size());
+        } finally {
+            Releasables.close(bucketOrds, counts, segmentCounts);
+        }
+    }
+
+    private static long topCounts(LongArray counts, long size) {
+        LongHeap top = new LongHeap(SIZE);
+        for (long i = 0; i < size; i++) {
+            top.insertWithOverflow(counts.get(i));
+        }
+        long sum = 0;
+        for (int i = 1; i <= top.size(); i++) {
+            sum += top.get(i);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.benchmark.transport;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.core.Streams;
+import org.elasticsearch.transport.BytesRefRecycler;
+import org.elasticsearch.transport.Compression;
+import org.elasticsearch.transport.TransportDecompressor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of compressing and decompressing transport messages with the different compression schemes.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 7)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(value = 1)
+public class TransportCompressionBenchmark {
+
+    @Param({ "DEFLATE", "LZ4", "ZSTD" })
+    private Compression.Scheme scheme;
+
+    /**
+     * {@code bulk} is a batch of log-like documents, {@code cluster_state} resembles the mappings and settings of many similar indices.
+     */
+    @Param({ "bulk", "cluster_state" })
+    private String payload;
+
+    @Param({ "1024", "262144" })
+    private int size;
+
+    private BytesReference uncompressed;
+
+    private BytesReference compressed;
+
+    @Setup
+    public void setup() throws IOException {
+        uncompressed = new BytesArray(payload(payload, size));
+        compressed = compress();
+    }
+
+    private static byte[] payload(String payload, int size) {
+        final Random random = new Random(42);
+        final StringBuilder builder = new StringBuilder(size + 1024);
+        int i = 0;
+        while (builder.length() < size) {
+            switch (payload) {
+                case "bulk" -> builder.append("{\"index\":{\"_index\":\"logs-nginx.access-default\"}}\n")
+                    .append(
+                        String.format(
+                            Locale.ROOT,
+                            "{\"@timestamp\":\"2023-01-01T00:%02d:%02d.%03dZ\",\"host\":{\"name\":\"host-%d\"},\"http\":{\"request\":"
+                                + "{\"method\":\"%s\"},\"response\":{\"status_code\":%d,\"bytes\":%d}},"
+                                + "\"url\":{\"path\":\"/api/%s/%d\"}}\n",
+                            (i / 60) % 60,
+                            i % 60,
+                            random.nextInt(1000),
+                            random.nextInt(16),
+                            random.nextBoolean() ? "GET" : "POST",
+                            random.nextInt(10) == 0 ? 404 : 200,
+                            random.nextInt(100_000),
+                            random.nextBoolean() ? "products" : "orders",
+                            random.nextInt(1_000_000)
+                        )
+                    );
+                case "cluster_state" -> builder.append(
+                    String.format(
+                        Locale.ROOT,
+                        "{\"index-%05d\":{\"settings\":{\"index\":{\"number_of_shards\":\"%d\",\"number_of_replicas\":\"1\","
+                            + "\"uuid\":\"%016x\",\"creation_date\":\"%d\"}},\"mappings\":{\"properties\":{\"@timestamp\":"
+                            + "{\"type\":\"date\"},\"message\":{\"type\":\"text\"},\"host\":{\"properties\":{\"name\":"
+                            + "{\"type\":\"keyword\"}}},\"field-%d\":{\"type\":\"long\"}}}}}",
+                        i,
+                        1 + random.nextInt(5),
+                        random.nextLong(),
+                        1672531200000L + random.nextInt(1_000_000_000),
+                        random.nextInt(100)
+                    )
+                );
+                default -> throw new IllegalArgumentException("unknown payload [" + payload + "]");
+            }
+            i++;
+        }
+        builder.setLength(size);
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public BytesReference compress() throws IOException {
+        final BytesStreamOutput bytesStream = new BytesStreamOutput();
+        try (OutputStream out = compressedStream(Streams.noCloseStream(bytesStream))) {
+            uncompressed.writeTo(out);
+        }
+        return bytesStream.bytes();
+    }
+
+    private OutputStream compressedStream(OutputStream out) throws IOException {
+        return switch (scheme) {
+            case DEFLATE -> CompressorFactory.COMPRESSOR.threadLocalOutputStream(out);
+            case LZ4 -> Compression.Scheme.lz4OutputStream(out);
+            case ZSTD -> CompressorFactory.ZSTD_COMPRESSOR.threadLocalOutputStream(out);
+        };
+    }
+
+    @Benchmark
+    public long decompress() throws IOException {
+        long length = 0;
+        final BytesRefRecycler recycler = BytesRefRecycler.NON_RECYCLING_INSTANCE;
+        try (TransportDecompressor decompressor = TransportDecompressor.getDecompressor(recycler, compressed)) {
+            BytesReference remaining = compressed;
+            while (remaining.length() > 0) {
+                final int consumed = decompressor.decompress(remaining);
+                remaining = remaining.slice(consumed, remaining.length() - consumed);
+                ReleasableBytesReference page;
+                while ((page = decompressor.pollDecompressedPage(remaining.length() == 0)) != null) {
+                    length += page.length();
+                    page.close();
+                }
+            }
+        }
+        return length;
+    }
+}
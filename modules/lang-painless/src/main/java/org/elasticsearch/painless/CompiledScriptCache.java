@@ -0,0 +1,514 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.painless;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.Build;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.hash.MessageDigests;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.painless.lookup.PainlessClass;
+import org.elasticsearch.painless.lookup.PainlessConstructor;
+import org.elasticsearch.painless.lookup.PainlessField;
+import org.elasticsearch.painless.lookup.PainlessLookup;
+import org.elasticsearch.painless.lookup.PainlessMethod;
+import org.elasticsearch.painless.symbol.FunctionTable;
+import org.elasticsearch.painless.symbol.ScriptScope;
+import org.elasticsearch.script.ScriptContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+import static org.elasticsearch.painless.lookup.PainlessLookupUtility.typeToCanonicalTypeName;
+
+/**
+ * Keeps the byte code of compiled scripts on disk so a node doesn't have to compile the same scripts again after
+ * a restart. Entries are addressed by a hash of everything the generated byte code depends on: the source and name
+ * of the script, the script context and its whitelists, the compiler settings and the version of Elasticsearch.
+ * Entries are only read when a script is requested. Scripts with static constants that can't be restored from
+ * disk, such as the targets of instance bindings, are never cached.
+ *
+ * Entries are kept in a directory per version and build of Elasticsearch, and the directories of other versions
+ * are removed when the cache is opened since their entries can't be used anymore. The total size of the entries is
+ * bounded by {@link #MAX_SIZE}: once a new entry exceeds it, the least recently used entries, as told by their
+ * modification time which is refreshed whenever an entry is read, are removed.
+ */
+final class CompiledScriptCache {
+
+    /**
+     * Whether compiled scripts are kept in the data path of the node.
+     */
+    static final Setting<Boolean> ENABLED = Setting.boolSetting("painless.compiled_script_cache.enabled", false, Property.NodeScope);
+
+    /**
+     * The maximum total size of the compiled scripts that are kept on disk.
+     */
+    static final Setting<ByteSizeValue> MAX_SIZE = Setting.byteSizeSetting(
+        "painless.compiled_script_cache.max_size",
+        ByteSizeValue.ofMb(100),
+        Property.NodeScope
+    );
+
+    private static final Logger logger = LogManager.getLogger(CompiledScriptCache.class);
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String SUFFIX = ".bin";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final byte STRING = 0;
+    private static final byte BIT_SET = 1;
+    private static final byte PATTERN = 2;
+    private static final byte DEFINITION = 3;
+    private static final byte FUNCTIONS = 4;
+    private static final byte COMPILER_SETTINGS = 5;
+
+    /**
+     * A script as it was compiled before.
+     * @param scriptBytes The byte code of the script class.
+     * @param staticConstants The values of the static fields of the script class.
+     * @param usedVariables The variables the script uses, for the {@code needs} methods of the factories.
+     * @param deterministic Whether the results of the script are deterministic.
+     */
+    record Entry(byte[] scriptBytes, Map<String, Object> staticConstants, Set<String> usedVariables, boolean deterministic) {}
+
+    private final Path directory;
+    private final long maxSizeInBytes;
+    private final Map<ScriptContext<?>, byte[]> contextsToFingerprints = new ConcurrentHashMap<>();
+    // the total size of the entries, which may drift from the actual size until the next eviction as entries that fail to be read are
+    // removed without accounting for them
+    private final AtomicLong sizeInBytes = new AtomicLong();
+
+    /**
+     * Opens the cache in the given directory, removing the entries of other versions of Elasticsearch.
+     */
+    CompiledScriptCache(Path root, long maxSizeInBytes) {
+        this.directory = root.resolve(versionDirectoryName());
+        this.maxSizeInBytes = maxSizeInBytes;
+
+        if (Files.isDirectory(root)) {
+            try (DirectoryStream<Path> children = Files.newDirectoryStream(root)) {
+                for (Path child : children) {
+                    if (child.equals(directory) == false) {
+                        IOUtils.rm(child);
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn(() -> "failed to remove the compiled scripts of other versions from [" + root + "]", e);
+            }
+        }
+        evict();
+    }
+
+    /**
+     * The name of the directory that holds the entries of this version and build of Elasticsearch.
+     */
+    static String versionDirectoryName() {
+        return Version.CURRENT + "-" + Build.CURRENT.hash();
+    }
+
+    /**
+     * Reads a compiled script. Returns {@code null} if the script isn't cached or the entry can't be read.
+     */
+    Entry load(ScriptContext<?> context, PainlessLookup lookup, String scriptName, String source, CompilerSettings settings) {
+        Path file = directory.resolve(key(context, lookup, scriptName, source, settings) + SUFFIX);
+
+        try {
+            Entry entry = readEntry(Files.readAllBytes(file), lookup, settings);
+            touch(file);
+            return entry;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            logger.debug(() -> "failed to read compiled script [" + file + "]", e);
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a compiled script unless its static constants can't be restored from disk.
+     */
+    void store(
+        ScriptContext<?> context,
+        PainlessLookup lookup,
+        String scriptName,
+        String source,
+        CompilerSettings settings,
+        byte[] scriptBytes,
+        ScriptScope scriptScope
+    ) {
+        byte[] entry;
+
+        try {
+            entry = writeEntry(scriptBytes, scriptScope, lookup);
+        } catch (IOException e) {
+            throw new AssertionError("cannot happen", e);
+        }
+
+        if (entry == null || entry.length > maxSizeInBytes) {
+            return;
+        }
+
+        Path file = directory.resolve(key(context, lookup, scriptName, source, settings) + SUFFIX);
+        Path tmp = null;
+
+        try {
+            Files.createDirectories(directory);
+            // write to a temporary file first so concurrent readers never see a partial entry
+            tmp = Files.createTempFile(directory, file.getFileName().toString(), TEMP_SUFFIX);
+            Files.write(tmp, entry);
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn(() -> "failed to write compiled script [" + file + "]", e);
+            if (tmp != null) {
+                deleteQuietly(tmp);
+            }
+            return;
+        }
+
+        if (sizeInBytes.addAndGet(entry.length) > maxSizeInBytes) {
+            evict();
+        }
+    }
+
+    /**
+     * Refreshes the modification time of an entry that was read, so the least recently used entries are evicted first.
+     */
+    private static void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            logger.debug(() -> "failed to update the modification time of [" + file + "]", e);
+        }
+    }
+
+    /**
+     * Removes the least recently used entries until their total size is within {@link #MAX_SIZE}, as well as the temporary files that
+     * were left behind by failed writes, and recomputes the total size of the remaining entries.
+     */
+    private synchronized void evict() {
+        if (Files.isDirectory(directory) == false) {
+            sizeInBytes.set(0);
+            return;
+        }
+
+        record CachedFile(Path path, long size, long lastModified) {}
+        List<CachedFile> files = new ArrayList<>();
+        long totalSize = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path file : entries) {
+                String fileName = file.getFileName().toString();
+                if (fileName.endsWith(TEMP_SUFFIX)) {
+                    // concurrent writes may still be in progress, so only remove temporary files that were abandoned a while ago
+                    if (Files.getLastModifiedTime(file).toMillis() < System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1)) {
+                        deleteQuietly(file);
+                    }
+                } else if (fileName.endsWith(SUFFIX)) {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    files.add(new CachedFile(file, attributes.size(), attributes.lastModifiedTime().toMillis()));
+                    totalSize += attributes.size();
+                }
+            }
+        } catch (IOException e) {
+            logger.warn(() -> "failed to list the compiled scripts in [" + directory + "]", e);
+            return;
+        }
+
+        files.sort(Comparator.comparingLong(CachedFile::lastModified));
+        for (int i = 0; i < files.size() && totalSize > maxSizeInBytes; i++) {
+            CachedFile file = files.get(i);
+            deleteQuietly(file.path());
+            totalSize -= file.size();
+        }
+        sizeInBytes.set(totalSize);
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.debug(() -> "failed to delete [" + file + "]", e);
+        }
+    }
+
+    private String key(ScriptContext<?> context, PainlessLookup lookup, String scriptName, String source, CompilerSettings settings) {
+        byte[] fingerprint = contextsToFingerprints.computeIfAbsent(context, c -> fingerprint(lookup));
+        MessageDigest digest = MessageDigests.sha256();
+        update(digest, Integer.toString(FORMAT_VERSION));
+        update(digest, Version.CURRENT.toString());
+        update(digest, Build.CURRENT.hash());
+        digest.update(fingerprint);
+        update(digest, context.name);
+        update(digest, scriptName == null ? "" : "name:" + scriptName);
+        update(digest, source);
+        update(digest, Integer.toString(settings.getMaxLoopCounter()));
+        update(digest, Boolean.toString(settings.isPicky()));
+        update(digest, Integer.toString(settings.getInitialCallSiteDepth()));
+        update(digest, settings.areRegexesEnabled().toString());
+        update(digest, Integer.toString(settings.getRegexLimitFactor()));
+        update(digest, settings.asMap().toString());
+        return MessageDigests.toHexString(digest.digest());
+    }
+
+    /**
+     * Hashes the whitelisted classes and members of a lookup, so entries compiled against other whitelists aren't used.
+     */
+    private static byte[] fingerprint(PainlessLookup lookup) {
+        List<String> members = new ArrayList<>();
+
+        for (Class<?> clazz : lookup.getClasses()) {
+            PainlessClass painlessClass = lookup.lookupPainlessClass(clazz);
+            String prefix = clazz.getName() + "/";
+            members.add(prefix);
+            for (Map.Entry<String, PainlessConstructor> constructor : painlessClass.constructors.entrySet()) {
+                members.add(prefix + constructor.getKey() + "=" + constructor.getValue().javaConstructor());
+            }
+            for (Map.Entry<String, PainlessMethod> method : painlessClass.staticMethods.entrySet()) {
+                members.add(prefix + "static " + method.getKey() + "=" + method.getValue().javaMethod());
+            }
+            for (Map.Entry<String, PainlessMethod> method : painlessClass.methods.entrySet()) {
+                members.add(prefix + method.getKey() + "=" + method.getValue().javaMethod());
+            }
+            for (Map.Entry<String, PainlessField> field : painlessClass.staticFields.entrySet()) {
+                members.add(prefix + "static " + field.getKey() + "=" + field.getValue().javaField());
+            }
+            for (Map.Entry<String, PainlessField> field : painlessClass.fields.entrySet()) {
+                members.add(prefix + field.getKey() + "=" + field.getValue().javaField());
+            }
+        }
+        for (String key : lookup.getImportedPainlessMethodsKeys()) {
+            members.add("imported/" + key);
+        }
+        for (String key : lookup.getPainlessClassBindingsKeys()) {
+            members.add("class binding/" + key);
+        }
+        for (String key : lookup.getPainlessInstanceBindingsKeys()) {
+            members.add("instance binding/" + key);
+        }
+        members.sort(Comparator.naturalOrder());
+
+        MessageDigest digest = MessageDigests.sha256();
+        for (String member : members) {
+            update(digest, member);
+        }
+        return digest.digest();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update((byte) (bytes.length >>> 24));
+        digest.update((byte) (bytes.length >>> 16));
+        digest.update((byte) (bytes.length >>> 8));
+        digest.update((byte) bytes.length);
+        digest.update(bytes);
+    }
+
+    /**
+     * Serializes a compiled script, or returns {@code null} if one of its static constants can't be serialized.
+     */
+    private static byte[] writeEntry(byte[] scriptBytes, ScriptScope scriptScope, PainlessLookup lookup) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(scriptBytes.length * 2);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(FORMAT_VERSION);
+        out.writeBoolean(scriptScope.isDeterministic());
+        out.writeInt(scriptScope.getUsedVariables().size());
+        for (String usedVariable : scriptScope.getUsedVariables()) {
+            writeString(out, usedVariable);
+        }
+        out.writeInt(scriptBytes.length);
+        out.write(scriptBytes);
+
+        Map<String, Object> staticConstants = scriptScope.getStaticConstants();
+        out.writeInt(staticConstants.size());
+        for (Map.Entry<String, Object> staticConstant : staticConstants.entrySet()) {
+            Object value = staticConstant.getValue();
+            writeString(out, staticConstant.getKey());
+
+            if ("$COMPILERSETTINGS".equals(staticConstant.getKey())) {
+                // restored from the compiler settings which are part of the key
+                out.writeByte(COMPILER_SETTINGS);
+            } else if (value == lookup) {
+                out.writeByte(DEFINITION);
+            } else if (value instanceof String string) {
+                out.writeByte(STRING);
+                writeString(out, string);
+            } else if (value instanceof BitSet bitSet) {
+                out.writeByte(BIT_SET);
+                long[] words = bitSet.toLongArray();
+                out.writeInt(words.length);
+                for (long word : words) {
+                    out.writeLong(word);
+                }
+            } else if (value instanceof Pattern pattern) {
+                out.writeByte(PATTERN);
+                writeString(out, pattern.pattern());
+                out.writeInt(pattern.flags());
+            } else if (value instanceof FunctionTable functionTable) {
+                out.writeByte(FUNCTIONS);
+                if (writeFunctions(out, functionTable, lookup) == false) {
+                    return null;
+                }
+            } else {
+                return null;
+            }
+        }
+
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static boolean writeFunctions(DataOutputStream out, FunctionTable functionTable, PainlessLookup lookup) throws IOException {
+        out.writeInt(functionTable.getFunctions().size());
+        for (FunctionTable.LocalFunction function : functionTable.getFunctions()) {
+            writeString(out, function.getFunctionName());
+            out.writeBoolean(function.getMangledName().equals(function.getFunctionName()) == false);
+            if (writeType(out, function.getReturnType(), lookup) == false) {
+                return false;
+            }
+            out.writeInt(function.getTypeParameters().size());
+            for (Class<?> typeParameter : function.getTypeParameters()) {
+                if (writeType(out, typeParameter, lookup) == false) {
+                    return false;
+                }
+            }
+            out.writeBoolean(function.isInternal());
+            out.writeBoolean(function.isStatic());
+        }
+        return true;
+    }
+
+    private static boolean writeType(DataOutputStream out, Class<?> type, PainlessLookup lookup) throws IOException {
+        String canonicalTypeName = typeToCanonicalTypeName(type);
+        if (readType(canonicalTypeName, lookup) != type) {
+            return false;
+        }
+        writeString(out, canonicalTypeName);
+        return true;
+    }
+
+    private static Class<?> readType(String canonicalTypeName, PainlessLookup lookup) {
+        return "void".equals(canonicalTypeName) ? void.class : lookup.canonicalTypeNameToType(canonicalTypeName);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static Entry readEntry(byte[] entry, PainlessLookup lookup, CompilerSettings settings) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry));
+        int formatVersion = in.readInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("unknown format version [" + formatVersion + "]");
+        }
+        boolean deterministic = in.readBoolean();
+        int usedVariablesSize = in.readInt();
+        Set<String> usedVariables = new HashSet<>();
+        for (int i = 0; i < usedVariablesSize; i++) {
+            usedVariables.add(readString(in));
+        }
+        byte[] scriptBytes = new byte[in.readInt()];
+        in.readFully(scriptBytes);
+
+        int staticConstantsSize = in.readInt();
+        Map<String, Object> staticConstants = new HashMap<>();
+        for (int i = 0; i < staticConstantsSize; i++) {
+            String name = readString(in);
+            byte tag = in.readByte();
+            Object value = switch (tag) {
+                case STRING -> readString(in);
+                case BIT_SET -> {
+                    long[] words = new long[in.readInt()];
+                    for (int word = 0; word < words.length; word++) {
+                        words[word] = in.readLong();
+                    }
+                    yield BitSet.valueOf(words);
+                }
+                case PATTERN -> Pattern.compile(readString(in), in.readInt());
+                case DEFINITION -> lookup;
+                case FUNCTIONS -> readFunctions(in, lookup);
+                case COMPILER_SETTINGS -> settings.asMap();
+                default -> throw new IOException("unknown static constant type [" + tag + "]");
+            };
+            staticConstants.put(name, value);
+        }
+        if (in.read() != -1) {
+            throw new IOException("unexpected trailing bytes");
+        }
+
+        return new Entry(scriptBytes, staticConstants, usedVariables, deterministic);
+    }
+
+    private static FunctionTable readFunctions(DataInputStream in, PainlessLookup lookup) throws IOException {
+        FunctionTable functionTable = new FunctionTable();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            String functionName = readString(in);
+            boolean mangled = in.readBoolean();
+            Class<?> returnType = readRequiredType(in, lookup);
+            int typeParametersSize = in.readInt();
+            List<Class<?>> typeParameters = new ArrayList<>(typeParametersSize);
+            for (int typeParameter = 0; typeParameter < typeParametersSize; typeParameter++) {
+                typeParameters.add(readRequiredType(in, lookup));
+            }
+            boolean isInternal = in.readBoolean();
+            boolean isStatic = in.readBoolean();
+            if (mangled) {
+                functionTable.addMangledFunction(functionName, returnType, typeParameters, isInternal, isStatic);
+            } else {
+                functionTable.addFunction(functionName, returnType, typeParameters, isInternal, isStatic);
+            }
+        }
+        return functionTable;
+    }
+
+    private static Class<?> readRequiredType(DataInputStream in, PainlessLookup lookup) throws IOException {
+        String canonicalTypeName = readString(in);
+        Class<?> type = readType(canonicalTypeName, lookup);
+        if (type == null) {
+            throw new IOException("unknown type [" + canonicalTypeName + "]");
+        }
+        return type;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -14,6 +14,7 @@ import org.elasticsearch.painless.ir.ClassNode;
 import org.elasticsearch.painless.lookup.PainlessLookup;
 import org.elasticsearch.painless.node.SClass;
 import org.elasticsearch.painless.phase.DefaultConstantFoldingOptimizationPhase;
+import org.elasticsearch.painless.phase.DefaultDocValuesOptimizationPhase;
 import org.elasticsearch.painless.phase.DefaultEqualityMethodOptimizationPhase;
 import org.elasticsearch.painless.phase.DefaultIRTreeToASMBytesPhase;
 import org.elasticsearch.painless.phase.DefaultStaticConstantExtractionPhase;
@@ -71,6 +72,7 @@ final class Compiler {
      */
     final class Loader extends SecureClassLoader {
         private final AtomicInteger lambdaCounter = new AtomicInteger(0);
+        private byte[] scriptBytes;
 
         /**
          * @param parent The parent ClassLoader.
@@ -113,7 +115,16 @@ final class Compiler {
          * @return A Class object extending {@link PainlessScript}.
          */
         Class<? extends PainlessScript> defineScript(String name, byte[] bytes) {
-            return defineClass(name, bytes, 0, bytes.length, CODESOURCE).asSubclass(PainlessScript.class);
+            Class<? extends PainlessScript> clazz = defineClass(name, bytes, 0, bytes.length, CODESOURCE).asSubclass(PainlessScript.class);
+            scriptBytes = bytes;
+            return clazz;
+        }
+
+        /**
+         * @return The byte code of the script class defined by this loader or {@code null} if none was defined yet.
+         */
+        byte[] getScriptBytes() {
+            return scriptBytes;
         }
 
         /**
@@ -219,18 +230,30 @@ final class Compiler {
         new DefaultStringConcatenationOptimizationPhase().visitClass(classNode, null);
         new DefaultConstantFoldingOptimizationPhase().visitClass(classNode, null);
         new DefaultEqualityMethodOptimizationPhase(scriptScope).visitClass(classNode, null);
+        new DefaultDocValuesOptimizationPhase(scriptScope).visitClass(classNode, null);
         new DefaultStaticConstantExtractionPhase().visitClass(classNode, scriptScope);
         new DefaultIRTreeToASMBytesPhase().visitScript(classNode);
         byte[] bytes = classNode.getBytes();
 
+        define(loader, name, bytes, scriptScope.getStaticConstants());
+
+        return scriptScope;
+    }
+
+    /**
+     * Defines the script class from its generated byte code and initializes its static constants.
+     * @param loader The ClassLoader used to define the script.
+     * @param name The name of the script.
+     * @param bytes The byte code of the script class.
+     * @param staticConstants The values of the static fields of the script class.
+     */
+    void define(Loader loader, String name, byte[] bytes, Map<String, Object> staticConstants) {
         try {
             Class<? extends PainlessScript> clazz = loader.defineScript(CLASS_NAME, bytes);
 
-            for (Map.Entry<String, Object> staticConstant : scriptScope.getStaticConstants().entrySet()) {
+            for (Map.Entry<String, Object> staticConstant : staticConstants.entrySet()) {
                 clazz.getField(staticConstant.getKey()).set(null, staticConstant.getValue());
             }
-
-            return scriptScope;
         } catch (Exception exception) {
             // Catch everything to let the user know this is something caused internally.
             throw new IllegalStateException("An internal error occurred attempting to define the script [" + name + "].", exception);
@@ -255,6 +278,7 @@ final class Compiler {
         new DefaultStringConcatenationOptimizationPhase().visitClass(classNode, null);
         new DefaultConstantFoldingOptimizationPhase().visitClass(classNode, null);
         new DefaultEqualityMethodOptimizationPhase(scriptScope).visitClass(classNode, null);
+        new DefaultDocValuesOptimizationPhase(scriptScope).visitClass(classNode, null);
         new DefaultStaticConstantExtractionPhase().visitClass(classNode, scriptScope);
         classNode.setDebugStream(debugStream);
         new DefaultIRTreeToASMBytesPhase().visitScript(classNode);
@@ -294,6 +318,7 @@ final class Compiler {
         new DefaultStringConcatenationOptimizationPhase().visitClass(classNode, null);
         new DefaultConstantFoldingOptimizationPhase().visitClass(classNode, null);
         new DefaultEqualityMethodOptimizationPhase(scriptScope).visitClass(classNode, null);
+        new DefaultDocValuesOptimizationPhase(scriptScope).visitClass(classNode, null);
         new DefaultStaticConstantExtractionPhase().visitClass(classNode, scriptScope);
         classNode.setDebugStream(debugStream);
 
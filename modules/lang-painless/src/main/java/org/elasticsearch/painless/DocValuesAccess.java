@@ -0,0 +1,64 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.painless;
+
+import org.elasticsearch.index.fielddata.ScriptDocValues;
+
+import java.util.Map;
+
+import static org.elasticsearch.painless.lookup.PainlessLookupUtility.typeToCanonicalTypeName;
+
+/**
+ * Typed reads of {@code doc['field'].value} that compiled scripts call in place of a dynamic
+ * lookup when the value is consumed as a primitive number. The mapped type of a field is only
+ * known once the script runs against a segment, so numeric doc values are read as primitives
+ * directly from their {@link ScriptDocValues.Supplier} and everything else falls back to the
+ * same conversion a {@code def} value would go through.
+ */
+public final class DocValuesAccess {
+
+    private DocValuesAccess() {}
+
+    public static long longValue(Map<?, ?> doc, String field) {
+        Object docValues = doc.get(field);
+
+        if (docValues instanceof ScriptDocValues.Longs longs) {
+            return longs.getValue();
+        }
+
+        return Def.defTolongImplicit(value(docValues));
+    }
+
+    public static double doubleValue(Map<?, ?> doc, String field) {
+        Object docValues = doc.get(field);
+
+        if (docValues instanceof ScriptDocValues.Doubles doubles) {
+            return doubles.getValue();
+        } else if (docValues instanceof ScriptDocValues.Longs longs) {
+            return longs.getValue();
+        }
+
+        return Def.defTodoubleImplicit(value(docValues));
+    }
+
+    /**
+     * Resolves {@code .value} for receivers without a primitive fast path.
+     */
+    private static Object value(Object docValues) {
+        if (docValues instanceof ScriptDocValues<?> values) {
+            return values.get(0);
+        } else if (docValues instanceof Map<?, ?> map) {
+            return map.get("value");
+        } else if (docValues == null) {
+            throw new NullPointerException("cannot access field [value] of a null value");
+        }
+
+        throw new IllegalArgumentException("dynamic getter [" + typeToCanonicalTypeName(docValues.getClass()) + ", value] not found");
+    }
+}
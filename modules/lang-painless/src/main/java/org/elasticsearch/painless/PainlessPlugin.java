@@ -156,7 +156,12 @@ public final class PainlessPlugin extends Plugin implements ScriptPlugin, Extens
 
     @Override
     public List<Setting<?>> getSettings() {
-        return Arrays.asList(CompilerSettings.REGEX_ENABLED, CompilerSettings.REGEX_LIMIT_FACTOR);
+        return Arrays.asList(
+            CompilerSettings.REGEX_ENABLED,
+            CompilerSettings.REGEX_LIMIT_FACTOR,
+            CompiledScriptCache.ENABLED,
+            CompiledScriptCache.MAX_SIZE
+        );
     }
 
     @Override
@@ -10,6 +10,7 @@ package org.elasticsearch.painless;
 
 import org.elasticsearch.SpecialPermission;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.Environment;
 import org.elasticsearch.painless.Compiler.Loader;
 import org.elasticsearch.painless.lookup.PainlessLookup;
 import org.elasticsearch.painless.lookup.PainlessLookupBuilder;
@@ -25,6 +26,7 @@ import org.objectweb.asm.commons.GeneratorAdapter;
 
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.nio.file.Path;
 import java.security.AccessControlContext;
 import java.security.AccessController;
 import java.security.Permissions;
@@ -73,6 +75,11 @@ public final class PainlessScriptEngine implements ScriptEngine {
     private final Map<ScriptContext<?>, Compiler> contextsToCompilers;
     private final Map<ScriptContext<?>, PainlessLookup> contextsToLookups;
 
+    /**
+     * Cache of compiled scripts on disk, or {@code null} if the cache is disabled.
+     */
+    private final CompiledScriptCache compiledScriptCache;
+
     /**
      * Constructor.
      * @param settings The settings to initialize the engine with.
@@ -96,6 +103,19 @@ public final class PainlessScriptEngine implements ScriptEngine {
 
         this.contextsToCompilers = Collections.unmodifiableMap(mutableContextsToCompilers);
         this.contextsToLookups = Collections.unmodifiableMap(mutableContextsToLookups);
+
+        if (CompiledScriptCache.ENABLED.get(settings)) {
+            Path directory = new Environment(settings, null).dataFiles()[0].resolve(NAME).resolve("compiled");
+            long maxSizeInBytes = CompiledScriptCache.MAX_SIZE.get(settings).getBytes();
+            this.compiledScriptCache = AccessController.doPrivileged(new PrivilegedAction<CompiledScriptCache>() {
+                @Override
+                public CompiledScriptCache run() {
+                    return new CompiledScriptCache(directory, maxSizeInBytes);
+                }
+            });
+        } else {
+            this.compiledScriptCache = null;
+        }
     }
 
     public Map<ScriptContext<?>, PainlessLookup> getContextsToLookups() {
@@ -118,20 +138,103 @@ public final class PainlessScriptEngine implements ScriptEngine {
         // Check we ourselves are not being called by unprivileged code.
         SpecialPermission.check();
 
-        // Create our loader (which loads compiled code with no permissions).
-        final Loader loader = AccessController.doPrivileged(new PrivilegedAction<Loader>() {
+        final Loader loader = createLoader(compiler);
+
+        ScriptScope scriptScope = compile(contextsToCompilers.get(context), loader, scriptName, scriptSource, params);
+
+        if (compiledScriptCache != null) {
+            final CompilerSettings compilerSettings = buildCompilerSettings(params);
+            AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                @Override
+                public Void run() {
+                    compiledScriptCache.store(
+                        context,
+                        contextsToLookups.get(context),
+                        scriptName,
+                        scriptSource,
+                        compilerSettings,
+                        loader.getScriptBytes(),
+                        scriptScope
+                    );
+                    return null;
+                }
+            });
+        }
+
+        return generateFactory(loader, context, scriptScope.getUsedVariables(), scriptScope.isDeterministic());
+    }
+
+    @Override
+    public boolean isCompiledCacheEnabled() {
+        return compiledScriptCache != null;
+    }
+
+    @Override
+    public <T> T loadCompiled(String scriptName, String scriptSource, ScriptContext<T> context, Map<String, String> params) {
+        Compiler compiler = contextsToCompilers.get(context);
+
+        if (compiledScriptCache == null || compiler == null) {
+            return null;
+        }
+
+        final CompilerSettings compilerSettings;
+        try {
+            compilerSettings = buildCompilerSettings(params);
+        } catch (IllegalArgumentException e) {
+            // invalid parameters are reported when compiling the script
+            return null;
+        }
+
+        // Check we ourselves are not being called by unprivileged code.
+        SpecialPermission.check();
+
+        final CompiledScriptCache.Entry entry = AccessController.doPrivileged(new PrivilegedAction<CompiledScriptCache.Entry>() {
+            @Override
+            public CompiledScriptCache.Entry run() {
+                return compiledScriptCache.load(context, contextsToLookups.get(context), scriptName, scriptSource, compilerSettings);
+            }
+        });
+
+        if (entry == null) {
+            return null;
+        }
+
+        final Loader loader = createLoader(compiler);
+
+        try {
+            // Drop all permissions to define the script class just like when compiling it.
+            AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                @Override
+                public Void run() {
+                    compiler.define(loader, scriptName == null ? scriptSource : scriptName, entry.scriptBytes(), entry.staticConstants());
+                    return null;
+                }
+            }, COMPILATION_CONTEXT);
+        } catch (IllegalStateException | LinkageError e) {
+            // the script is compiled again instead
+            return null;
+        }
+
+        return generateFactory(loader, context, entry.usedVariables(), entry.deterministic());
+    }
+
+    /**
+     * Creates the loader (which loads compiled code with no permissions) for a script.
+     */
+    private static Loader createLoader(Compiler compiler) {
+        return AccessController.doPrivileged(new PrivilegedAction<Loader>() {
             @Override
             public Loader run() {
                 return compiler.createLoader(getClass().getClassLoader());
             }
         });
+    }
 
-        ScriptScope scriptScope = compile(contextsToCompilers.get(context), loader, scriptName, scriptSource, params);
-
+    private <T> T generateFactory(Loader loader, ScriptContext<T> context, Set<String> usedVariables, boolean deterministic) {
         if (context.statefulFactoryClazz != null) {
-            return generateFactory(loader, context, generateStatefulFactory(loader, context, scriptScope), scriptScope);
+            return generateFactory(loader, context, generateStatefulFactory(loader, context, usedVariables), usedVariables, deterministic);
         } else {
-            return generateFactory(loader, context, WriterConstants.CLASS_TYPE, scriptScope);
+            return generateFactory(loader, context, WriterConstants.CLASS_TYPE, usedVariables, deterministic);
         }
     }
 
@@ -148,10 +251,11 @@ public final class PainlessScriptEngine implements ScriptEngine {
      * define the factory method to create new instances of the {@link ScriptContext#instanceClazz}.
      * @param loader The {@link ClassLoader} that is used to define the factory class and script class.
      * @param context The {@link ScriptContext}'s semantics are used to define the factory class.
+     * @param usedVariables The variables used by the script, for the needs methods.
      * @param <T> The factory class.
      * @return A factory class that will return script instances.
      */
-    private <T> Type generateStatefulFactory(Loader loader, ScriptContext<T> context, ScriptScope scriptScope) {
+    private <T> Type generateStatefulFactory(Loader loader, ScriptContext<T> context, Set<String> usedVariables) {
         int classFrames = ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS;
         int classAccess = Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER | Opcodes.ACC_FINAL;
         String interfaceBase = Type.getType(context.statefulFactoryClazz).getInternalName();
@@ -250,7 +354,7 @@ public final class PainlessScriptEngine implements ScriptEngine {
         adapter.returnValue();
         adapter.endMethod();
 
-        writeNeedsMethods(context.statefulFactoryClazz, writer, scriptScope.getUsedVariables());
+        writeNeedsMethods(context.statefulFactoryClazz, writer, usedVariables);
         writer.visitEnd();
 
         loader.defineFactory(className.replace('/', '.'), writer.toByteArray());
@@ -267,11 +371,18 @@ public final class PainlessScriptEngine implements ScriptEngine {
      * @param context The {@link ScriptContext}'s semantics are used to define the factory class.
      * @param classType The type to be instaniated in the newFactory or newInstance method.  Depends
      *                  on whether a {@link ScriptContext#statefulFactoryClazz} is specified.
-     * @param scriptScope the {@link ScriptScope} used to do the compilation
+     * @param usedVariables The variables used by the script, for the needs methods.
+     * @param deterministic Whether the results of the script are deterministic.
      * @param <T> The factory class.
      * @return A factory class that will return script instances.
      */
-    private <T> T generateFactory(Loader loader, ScriptContext<T> context, Type classType, ScriptScope scriptScope) {
+    private <T> T generateFactory(
+        Loader loader,
+        ScriptContext<T> context,
+        Type classType,
+        Set<String> usedVariables,
+        boolean deterministic
+    ) {
         int classFrames = ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS;
         int classAccess = Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER | Opcodes.ACC_FINAL;
         String interfaceBase = Type.getType(context.factoryClazz).getInternalName();
@@ -330,7 +441,7 @@ public final class PainlessScriptEngine implements ScriptEngine {
         adapter.returnValue();
         adapter.endMethod();
 
-        writeNeedsMethods(context.factoryClazz, writer, scriptScope.getUsedVariables());
+        writeNeedsMethods(context.factoryClazz, writer, usedVariables);
 
         String methodName = "isResultDeterministic";
         org.objectweb.asm.commons.Method isResultDeterministic = new org.objectweb.asm.commons.Method(
@@ -344,7 +455,7 @@ public final class PainlessScriptEngine implements ScriptEngine {
             writer.visitMethod(Opcodes.ACC_PUBLIC, methodName, isResultDeterministic.getDescriptor(), null, null)
         );
         deterAdapter.visitCode();
-        deterAdapter.push(scriptScope.isDeterministic());
+        deterAdapter.push(deterministic);
         deterAdapter.returnValue();
         deterAdapter.endMethod();
 
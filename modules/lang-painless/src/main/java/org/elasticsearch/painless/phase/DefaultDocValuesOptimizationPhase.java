@@ -0,0 +1,148 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.painless.phase;
+
+import org.elasticsearch.painless.DocValuesAccess;
+import org.elasticsearch.painless.ScriptClassInfo;
+import org.elasticsearch.painless.ir.BinaryImplNode;
+import org.elasticsearch.painless.ir.CastNode;
+import org.elasticsearch.painless.ir.ExpressionNode;
+import org.elasticsearch.painless.ir.FunctionNode;
+import org.elasticsearch.painless.ir.InvokeCallNode;
+import org.elasticsearch.painless.ir.LoadDotDefNode;
+import org.elasticsearch.painless.ir.LoadMapShortcutNode;
+import org.elasticsearch.painless.ir.LoadVariableNode;
+import org.elasticsearch.painless.lookup.PainlessMethod;
+import org.elasticsearch.painless.symbol.IRDecorations.IRDConstant;
+import org.elasticsearch.painless.symbol.IRDecorations.IRDExpressionType;
+import org.elasticsearch.painless.symbol.IRDecorations.IRDName;
+import org.elasticsearch.painless.symbol.IRDecorations.IRDValue;
+import org.elasticsearch.painless.symbol.ScriptScope;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Phase that changes {@code doc['field'].value} to a typed read through {@link DocValuesAccess} when the
+ * value is used as a {@code long} or a {@code double}, so numeric doc values are read without a dynamic
+ * call site and without boxing a value per document.
+ */
+public class DefaultDocValuesOptimizationPhase extends IRExpressionModifyingVisitor {
+
+    private static final String DOC = "doc";
+
+    private static final PainlessMethod LONG_VALUE = docValuesAccessMethod("longValue", long.class);
+    private static final PainlessMethod DOUBLE_VALUE = docValuesAccessMethod("doubleValue", double.class);
+
+    private static PainlessMethod docValuesAccessMethod(String name, Class<?> returnType) {
+        try {
+            Method javaMethod = DocValuesAccess.class.getMethod(name, Map.class, String.class);
+            MethodHandle methodHandle = MethodHandles.publicLookup().unreflect(javaMethod);
+            return new PainlessMethod(
+                javaMethod,
+                DocValuesAccess.class,
+                returnType,
+                List.of(Map.class, String.class),
+                methodHandle,
+                methodHandle.type(),
+                Map.of()
+            );
+        } catch (ReflectiveOperationException roe) {
+            throw new IllegalStateException("unable to find method [" + name + "] for doc values access", roe);
+        }
+    }
+
+    private final Class<?> docType;
+    private boolean execute;
+
+    public DefaultDocValuesOptimizationPhase(ScriptScope scriptScope) {
+        this.docType = docType(scriptScope.getScriptClassInfo());
+    }
+
+    /**
+     * Returns the type of the {@code doc} variable injected into the execute method, or {@code null}
+     * if the script class has no {@code getDoc} method returning a {@link Map}.
+     */
+    private static Class<?> docType(ScriptClassInfo scriptClassInfo) {
+        for (int i = 0; i < scriptClassInfo.getGetMethods().size(); ++i) {
+            if ("getDoc".equals(scriptClassInfo.getGetMethods().get(i).getName())) {
+                Class<?> returnType = scriptClassInfo.getGetReturns().get(i);
+                return Map.class.isAssignableFrom(returnType) ? returnType : null;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the constant string used as the key of a map shortcut, which is cast to the key type of the map.
+     */
+    private static ExpressionNode fieldNode(ExpressionNode irIndexNode) {
+        if (irIndexNode instanceof CastNode irCastNode) {
+            irIndexNode = irCastNode.getChildNode();
+        }
+
+        return irIndexNode.getDecorationValue(IRDConstant.class) instanceof String ? irIndexNode : null;
+    }
+
+    @Override
+    public void visitFunction(FunctionNode irFunctionNode, Consumer<ExpressionNode> scope) {
+        // only the execute method sees the doc variable injected from the script class
+        execute = docType != null && "execute".equals(irFunctionNode.getDecorationValue(IRDName.class));
+        super.visitFunction(irFunctionNode, scope);
+        execute = false;
+    }
+
+    @Override
+    public void visitBinaryImpl(BinaryImplNode irBinaryImplNode, Consumer<ExpressionNode> scope) {
+        super.visitBinaryImpl(irBinaryImplNode, scope);
+
+        if (execute == false) {
+            return;
+        }
+
+        // matches doc[<constant string>].value read as a long or double, which is built as
+        // ((doc, <constant string>) -> map shortcut load) -> dynamic dot load of value
+        Class<?> valueType = irBinaryImplNode.getDecorationValue(IRDExpressionType.class);
+        PainlessMethod method;
+
+        if (valueType == long.class) {
+            method = LONG_VALUE;
+        } else if (valueType == double.class) {
+            method = DOUBLE_VALUE;
+        } else {
+            return;
+        }
+
+        if (irBinaryImplNode.getRightNode() instanceof LoadDotDefNode irLoadDotDefNode
+            && "value".equals(irLoadDotDefNode.getDecorationValue(IRDValue.class))
+            && irBinaryImplNode.getLeftNode() instanceof BinaryImplNode irMapNode
+            && irMapNode.getRightNode() instanceof LoadMapShortcutNode
+            && irMapNode.getLeftNode() instanceof BinaryImplNode irIndexNode
+            && irIndexNode.getLeftNode() instanceof LoadVariableNode irLoadVariableNode
+            && DOC.equals(irLoadVariableNode.getDecorationValue(IRDName.class))
+            && irLoadVariableNode.getDecorationValue(IRDExpressionType.class) == docType
+            && fieldNode(irIndexNode.getRightNode()) != null) {
+
+            InvokeCallNode irInvokeCallNode = new InvokeCallNode(irBinaryImplNode.getLocation());
+            irInvokeCallNode.setMethod(method);
+            irInvokeCallNode.setBox(DocValuesAccess.class);
+            irInvokeCallNode.addArgumentNode(irLoadVariableNode);
+            irInvokeCallNode.addArgumentNode(fieldNode(irIndexNode.getRightNode()));
+            irInvokeCallNode.attachDecoration(new IRDExpressionType(valueType));
+
+            // replace the dynamic load with the typed read
+            scope.accept(irInvokeCallNode);
+        }
+    }
+}
@@ -12,6 +12,8 @@ import org.elasticsearch.painless.lookup.PainlessLookupUtility;
 import org.objectweb.asm.commons.Method;
 
 import java.lang.invoke.MethodType;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -74,6 +76,10 @@ public class FunctionTable {
             );
         }
 
+        public String getFunctionName() {
+            return functionName;
+        }
+
         public String getMangledName() {
             return mangledName;
         }
@@ -157,4 +163,8 @@ public class FunctionTable {
     public LocalFunction getFunction(String functionKey) {
         return localFunctions.get(functionKey);
     }
+
+    public Collection<LocalFunction> getFunctions() {
+        return Collections.unmodifiableCollection(localFunctions.values());
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.painless;
+
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.env.Environment;
+import org.elasticsearch.painless.spi.PainlessTestScript;
+import org.elasticsearch.script.ScriptException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasSize;
+
+public class CompiledScriptCacheTests extends ScriptTestCase {
+
+    private static final String SCRIPT = """
+        int twice(int x) { return 2 * x; }
+        def list = [1, 2, 3];
+        return twice(list.stream().mapToInt(x -> x * params.a).sum()) + ('abc' ==~ /a.c/ ? 1 : 0);
+        """;
+
+    private Path home;
+    private ByteSizeValue maxSize = CompiledScriptCache.MAX_SIZE.getDefault(Settings.EMPTY);
+
+    @Override
+    protected Settings scriptEngineSettings() {
+        if (home == null) {
+            home = createTempDir();
+        }
+        return Settings.builder()
+            .put(Environment.PATH_HOME_SETTING.getKey(), home)
+            .put(CompiledScriptCache.ENABLED.getKey(), true)
+            .put(CompiledScriptCache.MAX_SIZE.getKey(), maxSize)
+            .build();
+    }
+
+    private Path rootDirectory() {
+        return home.resolve("data").resolve("painless").resolve("compiled");
+    }
+
+    private Path cacheDirectory() {
+        return rootDirectory().resolve(CompiledScriptCache.versionDirectoryName());
+    }
+
+    private List<Path> entries() throws IOException {
+        try (Stream<Path> files = Files.list(cacheDirectory())) {
+            // the test file system may add extra files
+            return files.filter(file -> file.getFileName().toString().endsWith(".bin")).toList();
+        }
+    }
+
+    /**
+     * Returns a new engine using the same cache, as if the node was restarted.
+     */
+    private PainlessScriptEngine restart() {
+        return new PainlessScriptEngine(scriptEngineSettings(), scriptContexts());
+    }
+
+    public void testLoadsCompiledScript() throws IOException {
+        assertNull(scriptEngine.loadCompiled(null, SCRIPT, PainlessTestScript.CONTEXT, Map.of()));
+        PainlessTestScript.Factory compiled = scriptEngine.compile(null, SCRIPT, PainlessTestScript.CONTEXT, Map.of());
+        assertEquals(25, compiled.newInstance(Map.of("a", 2)).execute());
+        assertThat(entries(), hasSize(1));
+
+        PainlessTestScript.Factory loaded = restart().loadCompiled(null, SCRIPT, PainlessTestScript.CONTEXT, Map.of());
+        assertNotNull(loaded);
+        assertEquals(25, loaded.newInstance(Map.of("a", 2)).execute());
+        assertEquals(37, loaded.newInstance(Map.of("a", 3)).execute());
+    }
+
+    public void testCompilerSettingsArePartOfTheKey() {
+        Map<String, String> params = Map.of(CompilerSettings.INITIAL_CALL_SITE_DEPTH, "10");
+        scriptEngine.compile(null, SCRIPT, PainlessTestScript.CONTEXT, params);
+
+        PainlessScriptEngine restarted = restart();
+        assertNull(restarted.loadCompiled(null, SCRIPT, PainlessTestScript.CONTEXT, Map.of()));
+        assertNull(restarted.loadCompiled("named", SCRIPT, PainlessTestScript.CONTEXT, params));
+        assertNull(restarted.loadCompiled(null, SCRIPT + " ", PainlessTestScript.CONTEXT, params));
+        assertNotNull(restarted.loadCompiled(null, SCRIPT, PainlessTestScript.CONTEXT, params));
+        assertNull(restarted.loadCompiled(null, SCRIPT, PainlessTestScript.CONTEXT, Map.of("unknown", "true")));
+    }
+
+    public void testLoadedScriptKeepsScriptStack() {
+        String script = "int x = 1;\nreturn params.missing.length();";
+        PainlessTestScript.Factory compiled = scriptEngine.compile(null, script, PainlessTestScript.CONTEXT, Map.of());
+        ScriptException expected = expectThrows(ScriptException.class, () -> compiled.newInstance(Map.of()).execute());
+
+        PainlessTestScript.Factory loaded = restart().loadCompiled(null, script, PainlessTestScript.CONTEXT, Map.of());
+        assertNotNull(loaded);
+        ScriptException e = expectThrows(ScriptException.class, () -> loaded.newInstance(Map.of()).execute());
+        assertEquals(expected.getScript(), e.getScript());
+        assertEquals(expected.getScriptStack(), e.getScriptStack());
+        assertEquals(expected.getPos(), e.getPos());
+        assertThat(e.getScriptStack(), hasItem(containsString("params.missing.length()")));
+    }
+
+    public void testCorruptEntryIsRemoved() throws IOException {
+        scriptEngine.compile(null, SCRIPT, PainlessTestScript.CONTEXT, Map.of());
+        Path entry = entries().get(0);
+        byte[] bytes = Files.readAllBytes(entry);
+        Files.write(entry, randomBoolean() ? new byte[] { 0, 0, 0, 1, 0 } : Arrays.copyOf(bytes, bytes.length - 1));
+
+        assertNull(restart().loadCompiled(null, SCRIPT, PainlessTestScript.CONTEXT, Map.of()));
+        assertThat(entries(), empty());
+    }
+
+    public void testRemovesEntriesOfOtherVersions() throws IOException {
+        scriptEngine.compile(null, SCRIPT, PainlessTestScript.CONTEXT, Map.of());
+        Path otherVersion = rootDirectory().resolve("7.17.0-" + randomAlphaOfLength(10));
+        Files.createDirectories(otherVersion);
+        Files.write(otherVersion.resolve(randomAlphaOfLength(10) + ".bin"), randomByteArrayOfLength(10));
+
+        PainlessScriptEngine restarted = restart();
+        assertFalse(Files.exists(otherVersion));
+        assertThat(entries(), hasSize(1));
+        assertNotNull(restarted.loadCompiled(null, SCRIPT, PainlessTestScript.CONTEXT, Map.of()));
+    }
+
+    public void testEvictsLeastRecentlyUsedEntries() throws IOException {
+        String first = "return params.a + 1;";
+        String second = "return params.a + 2;";
+        String third = "return params.a + 3;";
+        scriptEngine.compile(null, first, PainlessTestScript.CONTEXT, Map.of());
+        Path firstEntry = entries().get(0);
+        scriptEngine.compile(null, second, PainlessTestScript.CONTEXT, Map.of());
+        Path secondEntry = entries().stream().filter(entry -> entry.equals(firstEntry) == false).findFirst().orElseThrow();
+        long now = System.currentTimeMillis();
+        Files.setLastModifiedTime(firstEntry, FileTime.fromMillis(now - TimeUnit.HOURS.toMillis(2)));
+        Files.setLastModifiedTime(secondEntry, FileTime.fromMillis(now - TimeUnit.HOURS.toMillis(1)));
+
+        // room for two and a half entries of the same size
+        maxSize = ByteSizeValue.ofBytes(Files.size(firstEntry) * 5 / 2);
+        PainlessScriptEngine restarted = restart();
+        // reading the first entry makes it the most recently used one
+        assertNotNull(restarted.loadCompiled(null, first, PainlessTestScript.CONTEXT, Map.of()));
+        restarted.compile(null, third, PainlessTestScript.CONTEXT, Map.of());
+
+        assertThat(entries(), hasSize(2));
+        assertTrue(Files.exists(firstEntry));
+        assertFalse(Files.exists(secondEntry));
+        assertNotNull(restarted.loadCompiled(null, third, PainlessTestScript.CONTEXT, Map.of()));
+    }
+
+    public void testDisabled() {
+        PainlessScriptEngine engine = new PainlessScriptEngine(Settings.EMPTY, scriptContexts());
+        engine.compile(null, SCRIPT, PainlessTestScript.CONTEXT, Map.of());
+        assertNull(engine.loadCompiled(null, SCRIPT, PainlessTestScript.CONTEXT, Map.of()));
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.painless;
+
+import org.elasticsearch.index.fielddata.ScriptDocValues;
+import org.elasticsearch.painless.spi.Whitelist;
+import org.elasticsearch.script.ScriptContext;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class DocValuesOptimizationTests extends ScriptTestCase {
+
+    @Override
+    protected Map<ScriptContext<?>, List<Whitelist>> scriptContexts() {
+        Map<ScriptContext<?>, List<Whitelist>> contexts = super.scriptContexts();
+        contexts.put(DocTestScript.CONTEXT, PainlessPlugin.BASE_WHITELISTS);
+        return contexts;
+    }
+
+    public abstract static class DocTestScript {
+        private final Map<String, ScriptDocValues<?>> doc;
+
+        public DocTestScript(Map<String, ScriptDocValues<?>> doc) {
+            this.doc = doc;
+        }
+
+        public Map<String, ScriptDocValues<?>> getDoc() {
+            return doc;
+        }
+
+        public static final String[] PARAMETERS = new String[0];
+
+        public abstract double execute();
+
+        public interface Factory {
+            DocTestScript newInstance(Map<String, ScriptDocValues<?>> doc);
+        }
+
+        public static final ScriptContext<Factory> CONTEXT = new ScriptContext<>("doc_test", Factory.class);
+    }
+
+    /**
+     * A supplier for a single numeric value that counts how often the value is read boxed.
+     */
+    private static class CountingSupplier<T extends Number> implements ScriptDocValues.Supplier<T> {
+        private final T value;
+        private int boxedReads;
+
+        CountingSupplier(T value) {
+            this.value = value;
+        }
+
+        @Override
+        public void setNextDocId(int docId) {}
+
+        @Override
+        public T getInternal(int index) {
+            boxedReads++;
+            return value;
+        }
+
+        @Override
+        public long getLongInternal(int index) {
+            return value.longValue();
+        }
+
+        @Override
+        public double getDoubleInternal(int index) {
+            return value.doubleValue();
+        }
+
+        @Override
+        public int size() {
+            return value == null ? 0 : 1;
+        }
+    }
+
+    private final CountingSupplier<Long> longs = new CountingSupplier<>(1234567L);
+    private final CountingSupplier<Double> doubles = new CountingSupplier<>(2.5);
+
+    private double execDoc(String script) {
+        Map<String, ScriptDocValues<?>> doc = new HashMap<>();
+        doc.put("l", new ScriptDocValues.Longs(longs));
+        doc.put("d", new ScriptDocValues.Doubles(doubles));
+        doc.put("empty", new ScriptDocValues.Longs(new CountingSupplier<>(null)));
+        doc.put("s", new ScriptDocValues.Strings(new ScriptDocValues.Supplier<>() {
+            @Override
+            public void setNextDocId(int docId) {}
+
+            @Override
+            public String getInternal(int index) {
+                return "a";
+            }
+
+            @Override
+            public int size() {
+                return 1;
+            }
+        }));
+        return scriptEngine.compile(null, script, DocTestScript.CONTEXT, Collections.emptyMap()).newInstance(doc).execute();
+    }
+
+    public void testDoubleValue() {
+        assertEquals(1234567.0, execDoc("doc['l'].value"), 0);
+        assertEquals(2.5, execDoc("doc['d'].value"), 0);
+        assertEquals(1234569.5, execDoc("double x = doc['l'].value; double y = doc['d'].value; return x + y;"), 0);
+        assertEquals(Math.log(2.5), execDoc("Math.log(doc['d'].value)"), 0);
+        assertEquals(0, longs.boxedReads);
+        assertEquals(0, doubles.boxedReads);
+    }
+
+    public void testLongValue() {
+        assertEquals(1234568.0, execDoc("long x = doc['l'].value; return x + 1;"), 0);
+        assertEquals(0, longs.boxedReads);
+        expectScriptThrows(ClassCastException.class, () -> execDoc("long x = doc['d'].value; return x;"));
+    }
+
+    public void testMissingValue() {
+        IllegalStateException e = expectScriptThrows(IllegalStateException.class, () -> execDoc("doc['empty'].value"));
+        assertTrue(e.getMessage(), e.getMessage().startsWith("A document doesn't have a value for a field!"));
+    }
+
+    public void testNonNumericValue() {
+        expectScriptThrows(ClassCastException.class, () -> execDoc("doc['s'].value"));
+        expectScriptThrows(NullPointerException.class, () -> execDoc("doc['missing'].value"));
+    }
+
+    public void testDynamicValueIsUnchanged() {
+        assertEquals(1234568.0, execDoc("def x = doc['l'].value; return x + 1;"), 0);
+        assertEquals(1234568.0, execDoc("doc['l'].get(0) + 1"), 0);
+        assertEquals(1, longs.boxedReads);
+        assertEquals(1.0, execDoc("doc['s'].value.length()"), 0);
+        assertEquals(1.0, execDoc("doc['s'].size()"), 0);
+    }
+}
@@ -88,8 +88,24 @@ public class Netty4Transport extends TcpTransport {
 
     public static final Setting<Integer> NETTY_BOSS_COUNT = intSetting("transport.netty.boss_count", 1, 1, Property.NodeScope);
 
+    /**
+     * Whether inbound messages are decoded straight from the pooled buffers that they were received into, without shrinking these buffers
+     * to their content first. This avoids copying most of the received bytes, at the cost of retaining the unused capacity of the buffers
+     * until the messages that they hold are handled and released.
+     *
+     * Note that the in-flight requests circuit breaker only accounts for the length of the inbound messages, not for the capacity of the
+     * buffers that they retain. With this setting enabled, every partially filled receive buffer that an inbound message refers to may
+     * therefore hold on to up to {@link #NETTY_RECEIVE_PREDICTOR_MAX} bytes of heap that the breaker does not know about.
+     */
+    public static final Setting<Boolean> NETTY_ZERO_COPY_RECEIVE = Setting.boolSetting(
+        "transport.netty.zero_copy_receive",
+        false,
+        Property.NodeScope
+    );
+
     private final SharedGroupFactory sharedGroupFactory;
     private final RecvByteBufAllocator recvByteBufAllocator;
+    private final NettyByteBufSizer byteBufSizer;
     private final ByteSizeValue receivePredictorMin;
     private final ByteSizeValue receivePredictorMax;
     private final Map<String, ServerBootstrap> serverBootstraps = newConcurrentMap();
@@ -123,6 +139,7 @@ public class Netty4Transport extends TcpTransport {
                 (int) receivePredictorMax.getBytes()
             );
         }
+        this.byteBufSizer = new NettyByteBufSizer(NETTY_ZERO_COPY_RECEIVE.get(settings) == false, getStatsTracker());
     }
 
     @Override
@@ -357,7 +374,7 @@ public class Netty4Transport extends TcpTransport {
 
     private void setupPipeline(Channel ch) {
         ch.pipeline()
-            .addLast("byte_buf_sizer", NettyByteBufSizer.INSTANCE)
+            .addLast("byte_buf_sizer", byteBufSizer)
             .addLast("logging", ESLoggingHandler.INSTANCE)
             .addLast("chunked_writer", new Netty4WriteThrottlingHandler(getThreadPool().getThreadContext()))
             .addLast("dispatcher", new Netty4MessageInboundHandler(this, recycler));
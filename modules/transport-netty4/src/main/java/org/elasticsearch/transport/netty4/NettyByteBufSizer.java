@@ -13,26 +13,57 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToMessageDecoder;
 
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.transport.StatsTracker;
+
 import java.util.List;
 
 @ChannelHandler.Sharable
 public class NettyByteBufSizer extends MessageToMessageDecoder<ByteBuf> {
 
-    public static final NettyByteBufSizer INSTANCE = new NettyByteBufSizer();
+    public static final NettyByteBufSizer INSTANCE = new NettyByteBufSizer(true, null);
+
+    private final boolean trimBuffers;
+    @Nullable
+    private final StatsTracker statsTracker;
 
-    private NettyByteBufSizer() {
-        // sharable singleton
+    /**
+     * @param trimBuffers  whether to shrink the received buffers to their content, which copies the content of buffers that are partially
+     *                     filled but releases the unused capacity
+     * @param statsTracker tracks whether the received bytes were copied or passed on in the buffer they were read into
+     */
+    NettyByteBufSizer(boolean trimBuffers, @Nullable StatsTracker statsTracker) {
+        this.trimBuffers = trimBuffers;
+        this.statsTracker = statsTracker;
     }
 
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf buf, List<Object> out) {
         int readableBytes = buf.readableBytes();
-        if (buf.capacity() >= 1024) {
+        if (trimBuffers && buf.capacity() >= 1024) {
+            final boolean resizing = buf.capacity() != readableBytes;
+            final byte[] array = buf.hasArray() ? buf.array() : null;
+            final int arrayOffset = array != null ? buf.arrayOffset() : 0;
             ByteBuf resized = buf.discardReadBytes().capacity(readableBytes);
             assert resized.readableBytes() == readableBytes;
+            // allocators may shrink a buffer in place, in which case the content was not copied. Pooled buffers share the array of their
+            // chunk, so the content was only left in place if it still starts at the same offset of the same array.
+            final boolean copied = array != null ? resized.array() != array || resized.arrayOffset() != arrayOffset : resizing;
+            markBytes(readableBytes, copied);
             out.add(resized.retain());
         } else {
+            markBytes(readableBytes, false);
             out.add(buf.retain());
         }
     }
+
+    private void markBytes(int bytes, boolean copied) {
+        if (statsTracker != null) {
+            if (copied) {
+                statsTracker.markBytesCopied(bytes);
+            } else {
+                statsTracker.markBytesReferenced(bytes);
+            }
+        }
+    }
 }
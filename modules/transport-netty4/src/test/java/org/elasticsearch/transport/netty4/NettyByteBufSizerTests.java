@@ -0,0 +1,101 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport.netty4;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.transport.StatsTracker;
+
+public class NettyByteBufSizerTests extends ESTestCase {
+
+    public void testTrimsPartiallyFilledBuffers() {
+        final StatsTracker statsTracker = new StatsTracker();
+        final EmbeddedChannel channel = new EmbeddedChannel(new NettyByteBufSizer(true, statsTracker));
+        final int capacity = between(1024, 65536);
+        final int length = between(1, capacity - 1);
+        final ByteBuf buffer = Unpooled.buffer(capacity).writeBytes(randomByteArrayOfLength(length));
+
+        channel.writeInbound(buffer);
+        final ByteBuf received = channel.readInbound();
+        try {
+            assertEquals(length, received.capacity());
+            assertEquals(length, received.readableBytes());
+            assertEquals(length, statsTracker.getBytesCopied());
+            assertEquals(0, statsTracker.getBytesReferenced());
+        } finally {
+            received.release();
+        }
+    }
+
+    public void testTrimsPartiallyFilledPooledBuffers() {
+        final StatsTracker statsTracker = new StatsTracker();
+        final EmbeddedChannel channel = new EmbeddedChannel(new NettyByteBufSizer(true, statsTracker));
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(false);
+        final int capacity = between(1024, 65536);
+        final int length = between(1, capacity / 2);
+        // pooled heap buffers share the array of their chunk, so a copy can only be told apart by its offset in the array
+        final ByteBuf buffer = allocator.heapBuffer(capacity).writeBytes(randomByteArrayOfLength(length));
+
+        channel.writeInbound(buffer);
+        final ByteBuf received = channel.readInbound();
+        try {
+            assertEquals(length, received.capacity());
+            assertEquals(length, received.readableBytes());
+            assertEquals(length, statsTracker.getBytesCopied());
+            assertEquals(0, statsTracker.getBytesReferenced());
+        } finally {
+            received.release();
+        }
+    }
+
+    public void testDoesNotCopyFullOrSmallBuffers() {
+        final StatsTracker statsTracker = new StatsTracker();
+        final EmbeddedChannel channel = new EmbeddedChannel(new NettyByteBufSizer(true, statsTracker));
+        final int fullLength = between(1024, 65536);
+        final ByteBuf fullBuffer = Unpooled.buffer(fullLength).writeBytes(randomByteArrayOfLength(fullLength));
+        final int smallLength = between(1, 1023);
+        final ByteBuf smallBuffer = Unpooled.buffer(1023).writeBytes(randomByteArrayOfLength(smallLength));
+
+        channel.writeInbound(fullBuffer, smallBuffer);
+        final ByteBuf receivedFull = channel.readInbound();
+        final ByteBuf receivedSmall = channel.readInbound();
+        try {
+            assertSame(fullBuffer.array(), receivedFull.array());
+            assertSame(smallBuffer.array(), receivedSmall.array());
+            assertEquals(0, statsTracker.getBytesCopied());
+            assertEquals(fullLength + smallLength, statsTracker.getBytesReferenced());
+        } finally {
+            receivedFull.release();
+            receivedSmall.release();
+        }
+    }
+
+    public void testZeroCopyReceiveKeepsBuffers() {
+        final StatsTracker statsTracker = new StatsTracker();
+        final EmbeddedChannel channel = new EmbeddedChannel(new NettyByteBufSizer(false, statsTracker));
+        final int capacity = between(1024, 65536);
+        final int length = between(1, capacity - 1);
+        final ByteBuf buffer = Unpooled.buffer(capacity).writeBytes(randomByteArrayOfLength(length));
+
+        channel.writeInbound(buffer);
+        final ByteBuf received = channel.readInbound();
+        try {
+            assertSame(buffer, received);
+            assertEquals(capacity, received.capacity());
+            assertEquals(0, statsTracker.getBytesCopied());
+            assertEquals(length, statsTracker.getBytesReferenced());
+        } finally {
+            received.release();
+        }
+    }
+}
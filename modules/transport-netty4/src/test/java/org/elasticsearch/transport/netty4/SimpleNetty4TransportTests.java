@@ -48,7 +48,7 @@ public class SimpleNetty4TransportTests extends AbstractSimpleTransportTestCase
     protected Transport build(Settings settings, final Version version, ClusterSettings clusterSettings, boolean doHandshake) {
         NamedWriteableRegistry namedWriteableRegistry = new NamedWriteableRegistry(Collections.emptyList());
         return new Netty4Transport(
-            settings,
+            Settings.builder().put(settings).put(Netty4Transport.NETTY_ZERO_COPY_RECEIVE.getKey(), randomBoolean()).build(),
             version,
             threadPool,
             new NetworkService(Collections.emptyList()),
@@ -63,12 +63,12 @@ public class SimpleNetty4TransportTests extends AbstractSimpleTransportTestCase
                 DiscoveryNode node,
                 TcpChannel channel,
                 ConnectionProfile profile,
-                ActionListener<Version> listener
+                ActionListener<TcpTransport.HandshakeResult> listener
             ) {
                 if (doHandshake) {
                     super.executeHandshake(node, channel, profile, listener);
                 } else {
-                    listener.onResponse(version.minimumCompatibilityVersion());
+                    listener.onResponse(new TcpTransport.HandshakeResult(version.minimumCompatibilityVersion(), false));
                 }
             }
         };
@@ -663,7 +663,8 @@ public class IndexShardIT extends ESSingleNodeTestCase {
             IndexModule.DEFAULT_SNAPSHOT_COMMIT_SUPPLIER,
             System::nanoTime,
             null,
-            ReplicationTracker.DEFAULT_FACTORY
+            ReplicationTracker.DEFAULT_FACTORY,
+            null
         );
     }
 
@@ -9,6 +9,7 @@
 package org.elasticsearch.action.admin.cluster.snapshots.status;
 
 import org.elasticsearch.ElasticsearchParseException;
+import org.elasticsearch.Version;
 import org.elasticsearch.action.support.broadcast.BroadcastShardResponse;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -17,6 +18,7 @@ import org.elasticsearch.common.xcontent.XContentParserUtils;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.snapshots.IndexShardSnapshotStatus;
+import org.elasticsearch.index.snapshots.IndexShardSnapshotStatus.FileUploadStats;
 import org.elasticsearch.xcontent.ConstructingObjectParser;
 import org.elasticsearch.xcontent.ObjectParser;
 import org.elasticsearch.xcontent.ParseField;
@@ -25,6 +27,7 @@ import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xcontent.XContentParser;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.Objects;
 
 import static org.elasticsearch.xcontent.ConstructingObjectParser.constructorArg;
@@ -32,6 +35,8 @@ import static org.elasticsearch.xcontent.ConstructingObjectParser.optionalConstr
 
 public class SnapshotIndexShardStatus extends BroadcastShardResponse implements ToXContentFragment {
 
+    static final Version PARALLEL_FILE_UPLOADS_VERSION = Version.V_8_7_0;
+
     private SnapshotIndexShardStage stage = SnapshotIndexShardStage.INIT;
 
     private SnapshotStats stats;
@@ -40,12 +45,17 @@ public class SnapshotIndexShardStatus extends BroadcastShardResponse implements
 
     private String failure;
 
+    private List<FileUploadStats> parallelFileUploads = List.of();
+
     public SnapshotIndexShardStatus(StreamInput in) throws IOException {
         super(in);
         stage = SnapshotIndexShardStage.fromValue(in.readByte());
         stats = new SnapshotStats(in);
         nodeId = in.readOptionalString();
         failure = in.readOptionalString();
+        if (in.getVersion().onOrAfter(PARALLEL_FILE_UPLOADS_VERSION)) {
+            parallelFileUploads = in.readImmutableList(FileUploadStats::new);
+        }
     }
 
     SnapshotIndexShardStatus(ShardId shardId, SnapshotIndexShardStage stage) {
@@ -80,14 +90,27 @@ public class SnapshotIndexShardStatus extends BroadcastShardResponse implements
         );
         this.failure = indexShardStatus.getFailure();
         this.nodeId = nodeId;
+        this.parallelFileUploads = indexShardStatus.getParallelFileUploads();
     }
 
     SnapshotIndexShardStatus(ShardId shardId, SnapshotIndexShardStage stage, SnapshotStats stats, String nodeId, String failure) {
+        this(shardId, stage, stats, nodeId, failure, List.of());
+    }
+
+    SnapshotIndexShardStatus(
+        ShardId shardId,
+        SnapshotIndexShardStage stage,
+        SnapshotStats stats,
+        String nodeId,
+        String failure,
+        List<FileUploadStats> parallelFileUploads
+    ) {
         super(shardId);
         this.stage = stage;
         this.stats = stats;
         this.nodeId = nodeId;
         this.failure = failure;
+        this.parallelFileUploads = parallelFileUploads;
     }
 
     /**
@@ -118,6 +141,13 @@ public class SnapshotIndexShardStatus extends BroadcastShardResponse implements
         return failure;
     }
 
+    /**
+     * Returns the files whose parts were uploaded concurrently, with their upload parallelism and throughput
+     */
+    public List<FileUploadStats> getParallelFileUploads() {
+        return parallelFileUploads;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
@@ -125,12 +155,16 @@ public class SnapshotIndexShardStatus extends BroadcastShardResponse implements
         stats.writeTo(out);
         out.writeOptionalString(nodeId);
         out.writeOptionalString(failure);
+        if (out.getVersion().onOrAfter(PARALLEL_FILE_UPLOADS_VERSION)) {
+            out.writeList(parallelFileUploads);
+        }
     }
 
     static final class Fields {
         static final String STAGE = "stage";
         static final String REASON = "reason";
         static final String NODE = "node";
+        static final String PARALLEL_UPLOADS = "parallel_uploads";
     }
 
     @Override
@@ -144,6 +178,9 @@ public class SnapshotIndexShardStatus extends BroadcastShardResponse implements
         if (getFailure() != null) {
             builder.field(Fields.REASON, getFailure());
         }
+        if (parallelFileUploads.isEmpty() == false) {
+            builder.xContentList(Fields.PARALLEL_UPLOADS, parallelFileUploads, params);
+        }
         builder.endObject();
         return builder;
     }
@@ -158,7 +195,9 @@ public class SnapshotIndexShardStatus extends BroadcastShardResponse implements
                 String rawStage = (String) parsedObjects[i++];
                 String nodeId = (String) parsedObjects[i++];
                 String failure = (String) parsedObjects[i++];
-                SnapshotStats stats = (SnapshotStats) parsedObjects[i];
+                SnapshotStats stats = (SnapshotStats) parsedObjects[i++];
+                @SuppressWarnings("unchecked")
+                List<FileUploadStats> parallelFileUploads = (List<FileUploadStats>) parsedObjects[i];
 
                 SnapshotIndexShardStage stage;
                 try {
@@ -171,13 +210,25 @@ public class SnapshotIndexShardStatus extends BroadcastShardResponse implements
                         rawStage
                     );
                 }
-                return new SnapshotIndexShardStatus(shard, stage, stats, nodeId, failure);
+                return new SnapshotIndexShardStatus(
+                    shard,
+                    stage,
+                    stats,
+                    nodeId,
+                    failure,
+                    parallelFileUploads == null ? List.of() : parallelFileUploads
+                );
             }
         );
         innerParser.declareString(constructorArg(), new ParseField(Fields.STAGE));
         innerParser.declareString(optionalConstructorArg(), new ParseField(Fields.NODE));
         innerParser.declareString(optionalConstructorArg(), new ParseField(Fields.REASON));
         innerParser.declareObject(constructorArg(), (p, c) -> SnapshotStats.fromXContent(p), new ParseField(SnapshotStats.Fields.STATS));
+        innerParser.declareObjectArray(
+            optionalConstructorArg(),
+            (p, c) -> FileUploadStats.fromXContent(p),
+            new ParseField(Fields.PARALLEL_UPLOADS)
+        );
         PARSER = (p, indexId, shardName) -> {
             // Combine the index name in the context with the shard name passed in for the named object parser
             // into a ShardId to pass as context for the inner parser.
@@ -213,7 +264,8 @@ public class SnapshotIndexShardStatus extends BroadcastShardResponse implements
         return stage == that.stage
             && Objects.equals(stats, that.stats)
             && Objects.equals(nodeId, that.nodeId)
-            && Objects.equals(failure, that.failure);
+            && Objects.equals(failure, that.failure)
+            && Objects.equals(parallelFileUploads, that.parallelFileUploads);
     }
 
     @Override
@@ -222,6 +274,7 @@ public class SnapshotIndexShardStatus extends BroadcastShardResponse implements
         result = 31 * result + (stats != null ? stats.hashCode() : 0);
         result = 31 * result + (nodeId != null ? nodeId.hashCode() : 0);
         result = 31 * result + (failure != null ? failure.hashCode() : 0);
+        result = 31 * result + parallelFileUploads.hashCode();
         return result;
     }
 }
@@ -49,6 +49,11 @@ import static org.elasticsearch.action.search.SearchPhaseController.setShardInde
  * in the {@link CircuitBreaker#REQUEST} circuit breaker. Before any partial or final reduce, the memory
  * needed to reduce the aggregations is estimated and a {@link CircuitBreakingException} is thrown if it
  * exceeds the maximum memory allowed in this breaker.
+ * <p>
+ * In streaming mode, shard results are not held back until {@link SearchRequest#getBatchedReduceSize()} of them are buffered:
+ * whenever no partial reduce is running, all the buffered results are merged into the partially reduced result right away and
+ * their serialized aggregations are released. The memory needed for the aggregations is then bounded by the size of the partially
+ * reduced result plus the shard results that arrive while a single partial reduce is running, regardless of the number of shards.
  */
 public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhaseResult> implements Releasable {
     private static final Logger logger = LogManager.getLogger(QueryPhaseResultConsumer.class);
@@ -62,6 +67,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
     private final boolean hasTopDocs;
     private final boolean hasAggs;
     private final boolean performFinalReduce;
+    private final boolean streamingReduce;
 
     private final PendingMerges pendingMerges;
     private final Consumer<Exception> onPartialMergeFailure;
@@ -79,6 +85,34 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         SearchProgressListener progressListener,
         int expectedResultSize,
         Consumer<Exception> onPartialMergeFailure
+    ) {
+        this(
+            request,
+            executor,
+            circuitBreaker,
+            controller,
+            isCanceled,
+            progressListener,
+            expectedResultSize,
+            false,
+            onPartialMergeFailure
+        );
+    }
+
+    /**
+     * Creates a {@link QueryPhaseResultConsumer} that incrementally reduces aggregation results
+     * as shard results are consumed, either in batches or, if {@code streamingReduce} is set, as soon as they arrive.
+     */
+    public QueryPhaseResultConsumer(
+        SearchRequest request,
+        Executor executor,
+        CircuitBreaker circuitBreaker,
+        SearchPhaseController controller,
+        Supplier<Boolean> isCanceled,
+        SearchProgressListener progressListener,
+        int expectedResultSize,
+        boolean streamingReduce,
+        Consumer<Exception> onPartialMergeFailure
     ) {
         super(expectedResultSize);
         this.executor = executor;
@@ -92,6 +126,7 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         SearchSourceBuilder source = request.source();
         this.hasTopDocs = source == null || source.size() != 0;
         this.hasAggs = source != null && source.aggregations() != null;
+        this.streamingReduce = streamingReduce && (hasAggs || hasTopDocs);
         int batchReduceSize = (hasAggs || hasTopDocs) ? Math.min(request.getBatchedReduceSize(), expectedResultSize) : expectedResultSize;
         this.pendingMerges = new PendingMerges(batchReduceSize, request.resolveTrackTotalHitsUpTo());
     }
@@ -232,6 +267,8 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         private final int batchReduceSize;
         private final List<QuerySearchResult> buffer = new ArrayList<>();
         private final List<SearchShard> emptyResults = new ArrayList<>();
+        // in streaming mode, the listeners of the buffered results, which are notified once the results are merged
+        private final List<Runnable> bufferedNexts = new ArrayList<>();
         // the memory that is accounted in the circuit breaker for this consumer
         private volatile long circuitBreakerBytes;
         // the memory that is currently used in the buffer
@@ -349,20 +386,28 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                         }
                         aggsCurrentBufferSize += aggsSize;
                     }
-                    // add one if a partial merge is pending
-                    int size = buffer.size() + (hasPartialReduce ? 1 : 0);
-                    if (size >= batchReduceSize) {
-                        hasPartialReduce = true;
+                    if (streamingReduce) {
+                        // hold the listener back until the result is merged so that the final reduce never races a partial one
                         executeNextImmediately = false;
-                        QuerySearchResult[] clone = buffer.toArray(QuerySearchResult[]::new);
-                        MergeTask task = new MergeTask(clone, aggsCurrentBufferSize, new ArrayList<>(emptyResults), next);
-                        aggsCurrentBufferSize = 0;
-                        buffer.clear();
-                        emptyResults.clear();
-                        queue.add(task);
+                        bufferedNexts.add(next);
+                        buffer.add(result);
                         tryExecuteNext();
+                    } else {
+                        // add one if a partial merge is pending
+                        int size = buffer.size() + (hasPartialReduce ? 1 : 0);
+                        if (size >= batchReduceSize) {
+                            hasPartialReduce = true;
+                            executeNextImmediately = false;
+                            QuerySearchResult[] clone = buffer.toArray(QuerySearchResult[]::new);
+                            MergeTask task = new MergeTask(clone, aggsCurrentBufferSize, new ArrayList<>(emptyResults), next);
+                            aggsCurrentBufferSize = 0;
+                            buffer.clear();
+                            emptyResults.clear();
+                            queue.add(task);
+                            tryExecuteNext();
+                        }
+                        buffer.add(result);
                     }
-                    buffer.add(result);
                 }
             }
             if (executeNextImmediately) {
@@ -393,6 +438,10 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
                 toCancels.add(mergeTask::cancel);
             }
             mergeResult = null;
+            for (Runnable bufferedNext : bufferedNexts) {
+                toCancels.add(bufferedNext::run);
+            }
+            bufferedNexts.clear();
             Releasables.close(toCancels);
         }
 
@@ -422,7 +471,14 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
         private void tryExecuteNext() {
             final MergeTask task;
             synchronized (this) {
-                if (queue.isEmpty() || hasFailure() || runningTask.get() != null) {
+                if (hasFailure() || runningTask.get() != null) {
+                    return;
+                }
+                if (queue.isEmpty() && streamingReduce && buffer.isEmpty() == false) {
+                    // nothing else to merge, fold the results that were buffered in the meantime into the partially reduced result
+                    queue.add(drainBuffer());
+                }
+                if (queue.isEmpty()) {
                     return;
                 }
                 task = queue.poll();
@@ -463,6 +519,23 @@ public class QueryPhaseResultConsumer extends ArraySearchPhaseResults<SearchPhas
             });
         }
 
+        private MergeTask drainBuffer() {
+            assert Thread.holdsLock(this);
+            hasPartialReduce = true;
+            final List<Runnable> nexts = new ArrayList<>(bufferedNexts);
+            final MergeTask task = new MergeTask(
+                buffer.toArray(QuerySearchResult[]::new),
+                aggsCurrentBufferSize,
+                new ArrayList<>(emptyResults),
+                nexts.isEmpty() ? null : () -> nexts.forEach(Runnable::run)
+            );
+            aggsCurrentBufferSize = 0;
+            buffer.clear();
+            emptyResults.clear();
+            bufferedNexts.clear();
+            return task;
+        }
+
         public synchronized TopDocsStats consumeTopDocsStats() {
             for (QuerySearchResult result : buffer) {
                 topDocsStats.add(result.topDocs(), result.searchTimedOut(), result.terminatedEarly());
@@ -730,6 +730,23 @@ public final class SearchPhaseController {
         SearchRequest request,
         int numShards,
         Consumer<Exception> onPartialMergeFailure
+    ) {
+        return newSearchPhaseResults(executor, circuitBreaker, isCanceled, listener, request, numShards, false, onPartialMergeFailure);
+    }
+
+    /**
+     * Returns a new {@link QueryPhaseResultConsumer} instance that reduces search responses incrementally.
+     * If {@code streamingReduce} is set, shard results are merged as soon as they arrive instead of in batches.
+     */
+    QueryPhaseResultConsumer newSearchPhaseResults(
+        Executor executor,
+        CircuitBreaker circuitBreaker,
+        Supplier<Boolean> isCanceled,
+        SearchProgressListener listener,
+        SearchRequest request,
+        int numShards,
+        boolean streamingReduce,
+        Consumer<Exception> onPartialMergeFailure
     ) {
         return new QueryPhaseResultConsumer(
             request,
@@ -739,6 +756,7 @@ public final class SearchPhaseController {
             isCanceled,
             listener,
             numShards,
+            streamingReduce,
             onPartialMergeFailure
         );
     }
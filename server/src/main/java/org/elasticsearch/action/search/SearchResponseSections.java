@@ -8,17 +8,20 @@
 
 package org.elasticsearch.action.search;
 
+import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.aggregations.Aggregations;
 import org.elasticsearch.search.profile.SearchProfileResults;
 import org.elasticsearch.search.profile.SearchProfileShardResult;
 import org.elasticsearch.search.suggest.Suggest;
+import org.elasticsearch.xcontent.ToXContent;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -112,6 +115,19 @@ public class SearchResponseSections implements ToXContentFragment {
         return builder;
     }
 
+    /**
+     * Serializes the sections as a sequence of chunks that produce the same output as {@link #toXContent}, emitting each hit and
+     * the buckets of the aggregations that support it as individual chunks.
+     */
+    public final Iterator<? extends ToXContent> toXContentChunked(Params params) {
+        return Iterators.concat(
+            hits.toXContentChunked(params),
+            aggregations == null ? Collections.emptyIterator() : aggregations.toXContentChunked(params),
+            suggest == null ? Collections.emptyIterator() : Iterators.single(suggest),
+            profileResults == null ? Collections.emptyIterator() : Iterators.single(profileResults)
+        );
+    }
+
     protected void writeTo(StreamOutput out) throws IOException {
         throw new UnsupportedOperationException();
     }
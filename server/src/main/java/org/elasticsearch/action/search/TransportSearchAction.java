@@ -115,6 +115,17 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         Property.NodeScope
     );
 
+    /**
+     * Whether the coordinating node merges each shard result into the partially reduced result as soon as it arrives, rather than
+     * buffering up to {@link SearchRequest#getBatchedReduceSize()} shard results before each partial reduce.
+     */
+    public static final Setting<Boolean> STREAMING_REDUCE_SETTING = Setting.boolSetting(
+        "action.search.streaming_reduce",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     public static final Setting<Integer> DEFAULT_PRE_FILTER_SHARD_SIZE = Setting.intSetting(
         "action.search.pre_filter_shard_size.default",
         SearchRequest.DEFAULT_PRE_FILTER_SHARD_SIZE,
@@ -134,6 +145,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
     private final ExecutorSelector executorSelector;
     private final int defaultPreFilterShardSize;
     private final boolean ccsCheckCompatibility;
+    private volatile boolean streamingReduce;
 
     @Inject
     public TransportSearchAction(
@@ -163,6 +175,12 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
         this.executorSelector = executorSelector;
         this.defaultPreFilterShardSize = DEFAULT_PRE_FILTER_SHARD_SIZE.get(clusterService.getSettings());
         this.ccsCheckCompatibility = SearchService.CCS_VERSION_CHECK_SETTING.get(clusterService.getSettings());
+        this.streamingReduce = STREAMING_REDUCE_SETTING.get(clusterService.getSettings());
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(STREAMING_REDUCE_SETTING, this::setStreamingReduce);
+    }
+
+    private void setStreamingReduce(boolean streamingReduce) {
+        this.streamingReduce = streamingReduce;
     }
 
     private Map<String, OriginalIndices> buildPerIndexOriginalIndices(
@@ -1192,6 +1210,7 @@ public class TransportSearchAction extends HandledTransportAction<SearchRequest,
                 task.getProgressListener(),
                 searchRequest,
                 shardIterators.size(),
+                streamingReduce,
                 exc -> searchTransportService.cancelSearchTask(task, "failed to merge result [" + exc.getMessage() + "]")
             );
             AbstractSearchAsyncAction<? extends SearchPhaseResult> searchAsyncAction = switch (searchRequest.searchType()) {
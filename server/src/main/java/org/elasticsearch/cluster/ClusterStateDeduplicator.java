@@ -0,0 +1,133 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster;
+
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.cluster.metadata.AliasMetadata;
+import org.elasticsearch.cluster.metadata.DiffableStringMap;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.Index;
+
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Shares a single instance between the equal objects that are read from the wire as part of the cluster state, like the values of the
+ * {@link DiffableStringMap custom index metadata} or the {@link AliasMetadata aliases} that many indices have in common, or the
+ * {@link Index} that both the metadata and the routing table of an index hold. Clusters with many similar indices, for instance the
+ * backing indices of data streams, otherwise hold as many copies of these objects as they have indices on every node.
+ *
+ * Instances are only referenced weakly so that they can be garbage collected once the cluster state does not use them anymore.
+ */
+public final class ClusterStateDeduplicator {
+
+    private static final long INDEX_SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(Index.class);
+    private static final long ALIAS_METADATA_SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(AliasMetadata.class);
+
+    private static final LongAdder lookups = new LongAdder();
+    private static final LongAdder deduplicated = new LongAdder();
+    private static final LongAdder savedBytes = new LongAdder();
+
+    private static final Interner<String> strings = new Interner<>(RamUsageEstimator::sizeOf);
+    private static final Interner<Index> indices = new Interner<>(
+        index -> INDEX_SHALLOW_SIZE + RamUsageEstimator.sizeOf(index.getName()) + RamUsageEstimator.sizeOf(index.getUUID())
+    );
+    private static final Interner<AliasMetadata> aliases = new Interner<>(ClusterStateDeduplicator::sizeInBytes);
+
+    private ClusterStateDeduplicator() {}
+
+    /**
+     * Returns the instance of a string that is equal to the given one, like a key or a value of a custom index metadata.
+     */
+    public static String deduplicate(@Nullable String string) {
+        return string == null ? null : strings.intern(string);
+    }
+
+    /**
+     * Returns the instance of an index that is equal to the given one.
+     */
+    public static Index deduplicate(Index index) {
+        return indices.intern(index);
+    }
+
+    /**
+     * Makes the given index the instance that equal indices are replaced with, unless there is one already. This is not a lookup,
+     * so it doesn't count in the statistics of the deduplicator.
+     */
+    public static void register(Index index) {
+        indices.register(index);
+    }
+
+    /**
+     * Returns the instance of an alias that is equal to the given one.
+     */
+    public static AliasMetadata deduplicate(AliasMetadata alias) {
+        return aliases.intern(alias);
+    }
+
+    private static long sizeInBytes(AliasMetadata alias) {
+        final long filterSize = alias.filter() == null ? 0L : alias.filter().compressed().length;
+        return ALIAS_METADATA_SHALLOW_SIZE + RamUsageEstimator.sizeOf(alias.alias()) + filterSize + RamUsageEstimator.sizeOf(
+            alias.indexRouting()
+        ) + RamUsageEstimator.sizeOf(alias.searchRouting());
+    }
+
+    /**
+     * @return the number of objects that were looked up for deduplication
+     */
+    public static long getLookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * @return the number of objects that were replaced by an equal instance
+     */
+    public static long getDeduplicated() {
+        return deduplicated.sum();
+    }
+
+    /**
+     * @return an estimation of the heap that the replaced objects would use
+     */
+    public static long getSavedBytes() {
+        return savedBytes.sum();
+    }
+
+    private static final class Interner<T> {
+        private final Map<T, WeakReference<T>> instances = Collections.synchronizedMap(new WeakHashMap<>());
+        private final ToLongFunction<T> sizeInBytes;
+
+        Interner(ToLongFunction<T> sizeInBytes) {
+            this.sizeInBytes = sizeInBytes;
+        }
+
+        T intern(T value) {
+            lookups.increment();
+            // the reference of an entry points to its key, so it is not cleared as long as the entry is found
+            final WeakReference<T> existingReference = instances.putIfAbsent(value, new WeakReference<>(value));
+            final T existing = existingReference == null ? null : existingReference.get();
+            if (existing == null) {
+                return value;
+            }
+            if (existing != value) {
+                deduplicated.increment();
+                savedBytes.add(sizeInBytes.applyAsLong(value));
+            }
+            return existing;
+        }
+
+        void register(T value) {
+            instances.putIfAbsent(value, new WeakReference<>(value));
+        }
+    }
+}
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.cluster.coordination;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -19,7 +20,7 @@ import java.io.IOException;
 
 public class ClusterStateSerializationStats implements Writeable, ToXContentObject {
 
-    public static final ClusterStateSerializationStats EMPTY = new ClusterStateSerializationStats(0L, 0L, 0L, 0L, 0L, 0L);
+    public static final ClusterStateSerializationStats EMPTY = new ClusterStateSerializationStats(0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
 
     private final long fullStateCount;
     private final long totalUncompressedFullStateBytes;
@@ -27,6 +28,9 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
     private final long diffCount;
     private final long totalUncompressedDiffBytes;
     private final long totalCompressedDiffBytes;
+    private final long deduplicationLookups;
+    private final long deduplicatedObjects;
+    private final long deduplicatedBytes;
 
     public ClusterStateSerializationStats(
         long fullStateCount,
@@ -35,6 +39,30 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         long diffCount,
         long totalUncompressedDiffBytes,
         long totalCompressedDiffBytes
+    ) {
+        this(
+            fullStateCount,
+            totalUncompressedFullStateBytes,
+            totalCompressedFullStateBytes,
+            diffCount,
+            totalUncompressedDiffBytes,
+            totalCompressedDiffBytes,
+            0L,
+            0L,
+            0L
+        );
+    }
+
+    public ClusterStateSerializationStats(
+        long fullStateCount,
+        long totalUncompressedFullStateBytes,
+        long totalCompressedFullStateBytes,
+        long diffCount,
+        long totalUncompressedDiffBytes,
+        long totalCompressedDiffBytes,
+        long deduplicationLookups,
+        long deduplicatedObjects,
+        long deduplicatedBytes
     ) {
         this.fullStateCount = fullStateCount;
         this.totalUncompressedFullStateBytes = totalUncompressedFullStateBytes;
@@ -42,6 +70,9 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         this.diffCount = diffCount;
         this.totalUncompressedDiffBytes = totalUncompressedDiffBytes;
         this.totalCompressedDiffBytes = totalCompressedDiffBytes;
+        this.deduplicationLookups = deduplicationLookups;
+        this.deduplicatedObjects = deduplicatedObjects;
+        this.deduplicatedBytes = deduplicatedBytes;
     }
 
     public ClusterStateSerializationStats(StreamInput in) throws IOException {
@@ -51,6 +82,15 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         this.diffCount = in.readVLong();
         this.totalUncompressedDiffBytes = in.readVLong();
         this.totalCompressedDiffBytes = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_7_0)) {
+            this.deduplicationLookups = in.readVLong();
+            this.deduplicatedObjects = in.readVLong();
+            this.deduplicatedBytes = in.readVLong();
+        } else {
+            this.deduplicationLookups = 0L;
+            this.deduplicatedObjects = 0L;
+            this.deduplicatedBytes = 0L;
+        }
     }
 
     public long getFullStateCount() {
@@ -77,6 +117,27 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         return totalCompressedDiffBytes;
     }
 
+    /**
+     * @return the number of objects of received cluster states that were looked up for deduplication
+     */
+    public long getDeduplicationLookups() {
+        return deduplicationLookups;
+    }
+
+    /**
+     * @return the number of objects of received cluster states that were replaced by an equal instance
+     */
+    public long getDeduplicatedObjects() {
+        return deduplicatedObjects;
+    }
+
+    /**
+     * @return an estimation of the heap that deduplication saved
+     */
+    public long getDeduplicatedBytes() {
+        return deduplicatedBytes;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject();
@@ -94,6 +155,12 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         builder.humanReadableField("uncompressed_size_in_bytes", "uncompressed_size", ByteSizeValue.ofBytes(totalUncompressedDiffBytes));
         builder.humanReadableField("compressed_size_in_bytes", "compressed_size", ByteSizeValue.ofBytes(totalCompressedDiffBytes));
         builder.endObject();
+        builder.startObject("deduplication");
+        builder.field("lookups", deduplicationLookups);
+        builder.field("deduplicated", deduplicatedObjects);
+        builder.field("ratio", deduplicationLookups == 0L ? 0.0 : (double) deduplicatedObjects / deduplicationLookups);
+        builder.humanReadableField("saved_size_in_bytes", "saved_size", ByteSizeValue.ofBytes(deduplicatedBytes));
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -106,6 +173,11 @@ public class ClusterStateSerializationStats implements Writeable, ToXContentObje
         out.writeVLong(diffCount);
         out.writeVLong(totalUncompressedDiffBytes);
         out.writeVLong(totalCompressedDiffBytes);
+        if (out.getVersion().onOrAfter(Version.V_8_7_0)) {
+            out.writeVLong(deduplicationLookups);
+            out.writeVLong(deduplicatedObjects);
+            out.writeVLong(deduplicatedBytes);
+        }
     }
 
 }
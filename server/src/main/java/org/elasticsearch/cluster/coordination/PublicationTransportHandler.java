@@ -14,6 +14,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.ActionRunnable;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ClusterStateDeduplicator;
 import org.elasticsearch.cluster.ClusterStatePublicationEvent;
 import org.elasticsearch.cluster.Diff;
 import org.elasticsearch.cluster.IncompatibleClusterStateVersionException;
@@ -32,6 +33,8 @@ import org.elasticsearch.common.io.stream.PositionTrackingOutputStreamStreamOutp
 import org.elasticsearch.common.io.stream.RecyclerBytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.LazyInitializable;
 import org.elasticsearch.core.AbstractRefCounted;
 import org.elasticsearch.core.IOUtils;
@@ -39,6 +42,8 @@ import org.elasticsearch.core.Releasables;
 import org.elasticsearch.tasks.Task;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.BytesTransportRequest;
+import org.elasticsearch.transport.Compression;
+import org.elasticsearch.transport.NodeNotConnectedException;
 import org.elasticsearch.transport.TransportException;
 import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportService;
@@ -87,9 +92,28 @@ public class PublicationTransportHandler {
 
     public static final Version INCLUDES_LAST_COMMITTED_DATA_VERSION = Version.V_8_6_0;
 
+    /**
+     * The compression scheme of the published cluster states and diffs. Nodes whose transport handshake did not negotiate
+     * {@link Compression.Scheme#ZSTD} receive them compressed with {@link Compression.Scheme#DEFLATE}.
+     */
+    public static final Setting<Compression.Scheme> PUBLISH_COMPRESSION_SCHEME_SETTING = Setting.enumSetting(
+        Compression.Scheme.class,
+        "cluster.publish.compression_scheme",
+        Compression.Scheme.DEFLATE,
+        scheme -> {
+            if (scheme == Compression.Scheme.LZ4) {
+                throw new IllegalArgumentException("cluster states can only be published with [deflate] or [zstd] compression");
+            }
+        },
+        Setting.Property.NodeScope
+    );
+
     private final SerializationStatsTracker serializationStatsTracker = new SerializationStatsTracker();
 
+    private final boolean publishWithZstd;
+
     public PublicationTransportHandler(
+        Settings settings,
         TransportService transportService,
         NamedWriteableRegistry namedWriteableRegistry,
         Function<PublishRequest, PublishWithJoinResponse> handlePublishRequest
@@ -97,6 +121,7 @@ public class PublicationTransportHandler {
         this.transportService = transportService;
         this.namedWriteableRegistry = namedWriteableRegistry;
         this.handlePublishRequest = handlePublishRequest;
+        this.publishWithZstd = PUBLISH_COMPRESSION_SCHEME_SETTING.get(settings) == Compression.Scheme.ZSTD;
 
         transportService.registerRequestHandler(
             PUBLISH_STATE_ACTION_NAME,
@@ -225,15 +250,39 @@ public class PublicationTransportHandler {
         }
     }
 
-    private ReleasableBytesReference serializeFullClusterState(ClusterState clusterState, DiscoveryNode node) {
-        final Version nodeVersion = node.getVersion();
+    /**
+     * Identifies the serialized form of a cluster state or diff, which depends on the version of the node that receives it and on whether
+     * it can read {@link Compression.Scheme#ZSTD} compressed bytes.
+     */
+    private record SerializationKey(Version version, boolean zstd) {
+        Compressor compressor() {
+            return zstd ? CompressorFactory.ZSTD_COMPRESSOR : CompressorFactory.COMPRESSOR;
+        }
+    }
+
+    private SerializationKey serializationKey(DiscoveryNode node) {
+        return new SerializationKey(node.getVersion(), publishWithZstd && isZstdSupported(node));
+    }
+
+    private boolean isZstdSupported(DiscoveryNode node) {
+        try {
+            // nodes of the same version may still lack zstd support, so rely on the transport handshake rather than on the version
+            return transportService.getConnection(node).isZstdSupported();
+        } catch (NodeNotConnectedException e) {
+            // sending the publish request fails anyway
+            return false;
+        }
+    }
+
+    private ReleasableBytesReference serializeFullClusterState(ClusterState clusterState, DiscoveryNode node, SerializationKey key) {
+        final Version nodeVersion = key.version();
         final RecyclerBytesStreamOutput bytesStream = transportService.newNetworkBytesStream();
         boolean success = false;
         try {
             final long uncompressedBytes;
             try (
                 StreamOutput stream = new PositionTrackingOutputStreamStreamOutput(
-                    CompressorFactory.COMPRESSOR.threadLocalOutputStream(Streams.flushOnCloseStream(bytesStream))
+                    key.compressor().threadLocalOutputStream(Streams.flushOnCloseStream(bytesStream))
                 )
             ) {
                 stream.setVersion(nodeVersion);
@@ -260,16 +309,21 @@ public class PublicationTransportHandler {
         }
     }
 
-    private ReleasableBytesReference serializeDiffClusterState(ClusterState newState, Diff<ClusterState> diff, DiscoveryNode node) {
+    private ReleasableBytesReference serializeDiffClusterState(
+        ClusterState newState,
+        Diff<ClusterState> diff,
+        DiscoveryNode node,
+        SerializationKey key
+    ) {
         final long clusterStateVersion = newState.version();
-        final Version nodeVersion = node.getVersion();
+        final Version nodeVersion = key.version();
         final RecyclerBytesStreamOutput bytesStream = transportService.newNetworkBytesStream();
         boolean success = false;
         try {
             final long uncompressedBytes;
             try (
                 StreamOutput stream = new PositionTrackingOutputStreamStreamOutput(
-                    CompressorFactory.COMPRESSOR.threadLocalOutputStream(Streams.flushOnCloseStream(bytesStream))
+                    key.compressor().threadLocalOutputStream(Streams.flushOnCloseStream(bytesStream))
                 )
             ) {
                 stream.setVersion(nodeVersion);
@@ -316,8 +370,8 @@ public class PublicationTransportHandler {
         private final boolean sendFullVersion;
 
         // All the values of these maps have one ref for the context (while it's open) and one for each in-flight message.
-        private final Map<Version, ReleasableBytesReference> serializedStates = new ConcurrentHashMap<>();
-        private final Map<Version, ReleasableBytesReference> serializedDiffs = new HashMap<>();
+        private final Map<SerializationKey, ReleasableBytesReference> serializedStates = new ConcurrentHashMap<>();
+        private final Map<SerializationKey, ReleasableBytesReference> serializedDiffs = new HashMap<>();
 
         PublicationContext(ClusterStatePublicationEvent clusterStatePublicationEvent) {
             discoveryNodes = clusterStatePublicationEvent.getNewState().nodes();
@@ -337,13 +391,11 @@ public class PublicationTransportHandler {
                     // publication to local node bypasses any serialization
                     continue;
                 }
+                final SerializationKey key = serializationKey(node);
                 if (sendFullVersion || previousState.nodes().nodeExists(node) == false) {
-                    serializedStates.computeIfAbsent(node.getVersion(), v -> serializeFullClusterState(newState, node));
+                    serializedStates.computeIfAbsent(key, k -> serializeFullClusterState(newState, node, k));
                 } else {
-                    serializedDiffs.computeIfAbsent(
-                        node.getVersion(),
-                        v -> serializeDiffClusterState(newState, diffSupplier.getOrCompute(), node)
-                    );
+                    serializedDiffs.computeIfAbsent(key, k -> serializeDiffClusterState(newState, diffSupplier.getOrCompute(), node, k));
                 }
             }
         }
@@ -405,13 +457,11 @@ public class PublicationTransportHandler {
 
         private void sendFullClusterState(DiscoveryNode destination, ActionListener<PublishWithJoinResponse> listener) {
             assert refCount() > 0;
-            ReleasableBytesReference bytes = serializedStates.get(destination.getVersion());
+            final SerializationKey key = serializationKey(destination);
+            ReleasableBytesReference bytes = serializedStates.get(key);
             if (bytes == null) {
                 try {
-                    bytes = serializedStates.computeIfAbsent(
-                        destination.getVersion(),
-                        v -> serializeFullClusterState(newState, destination)
-                    );
+                    bytes = serializedStates.computeIfAbsent(key, k -> serializeFullClusterState(newState, destination, k));
                 } catch (Exception e) {
                     logger.warn(() -> format("failed to serialize cluster state before publishing it to node %s", destination), e);
                     listener.onFailure(e);
@@ -422,9 +472,13 @@ public class PublicationTransportHandler {
         }
 
         private void sendClusterStateDiff(DiscoveryNode destination, ActionListener<PublishWithJoinResponse> listener) {
-            final ReleasableBytesReference bytes = serializedDiffs.get(destination.getVersion());
-            assert bytes != null
-                : "failed to find serialized diff for node " + destination + " of version [" + destination.getVersion() + "]";
+            final ReleasableBytesReference bytes = serializedDiffs.get(serializationKey(destination));
+            if (bytes == null) {
+                // the node reconnected since the diffs were serialized and negotiated another compression scheme
+                logger.debug("no serialized cluster state diff for node {}, sending the full cluster state", destination);
+                sendFullClusterState(destination, listener);
+                return;
+            }
 
             // acquire a ref to the context just in case we need to try again with the full cluster state
             if (tryIncRef() == false) {
@@ -509,7 +563,10 @@ public class PublicationTransportHandler {
                 totalCompressedFullStateBytes,
                 diffCount,
                 totalUncompressedDiffBytes,
-                totalCompressedDiffBytes
+                totalCompressedDiffBytes,
+                ClusterStateDeduplicator.getLookups(),
+                ClusterStateDeduplicator.getDeduplicated(),
+                ClusterStateDeduplicator.getSavedBytes()
             );
         }
     }
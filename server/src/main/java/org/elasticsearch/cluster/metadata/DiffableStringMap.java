@@ -8,10 +8,12 @@
 
 package org.elasticsearch.cluster.metadata;
 
+import org.elasticsearch.cluster.ClusterStateDeduplicator;
 import org.elasticsearch.cluster.Diff;
 import org.elasticsearch.cluster.Diffable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.util.Maps;
 
 import java.io.IOException;
 import java.util.AbstractMap;
@@ -35,7 +37,19 @@ public class DiffableStringMap extends AbstractMap<String, String> implements Di
     @SuppressWarnings("unchecked")
     public static DiffableStringMap readFrom(StreamInput in) throws IOException {
         final Map<String, String> map = (Map) in.readMap();
-        return map.isEmpty() ? EMPTY : new DiffableStringMap(map);
+        if (map.isEmpty()) {
+            return EMPTY;
+        }
+        // many indices hold the same custom metadata, for instance the definition of the phase of their lifecycle policy
+        final Map<String, String> deduplicated = Maps.newLinkedHashMapWithExpectedSize(map.size());
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            deduplicated.put(ClusterStateDeduplicator.deduplicate(entry.getKey()), ClusterStateDeduplicator.deduplicate(entry.getValue()));
+        }
+        return new DiffableStringMap(deduplicated);
+    }
+
+    private static String readDeduplicatedString(StreamInput in) throws IOException {
+        return ClusterStateDeduplicator.deduplicate(in.readString());
     }
 
     DiffableStringMap(final Map<String, String> map) {
@@ -89,7 +103,10 @@ public class DiffableStringMap extends AbstractMap<String, String> implements Di
 
     public static Diff<DiffableStringMap> readDiffFrom(StreamInput in) throws IOException {
         final List<String> deletes = in.readStringList();
-        final Map<String, String> upserts = in.readMap(StreamInput::readString, StreamInput::readString);
+        final Map<String, String> upserts = in.readMap(
+            DiffableStringMap::readDeduplicatedString,
+            DiffableStringMap::readDeduplicatedString
+        );
         return getDiff(deletes, upserts);
     }
 
@@ -13,9 +13,11 @@ import org.apache.logging.log4j.Logger;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.indices.rollover.RolloverInfo;
 import org.elasticsearch.action.support.ActiveShardCount;
+import org.elasticsearch.cluster.ClusterStateDeduplicator;
 import org.elasticsearch.cluster.Diff;
 import org.elasticsearch.cluster.Diffable;
 import org.elasticsearch.cluster.DiffableUtils;
+import org.elasticsearch.cluster.SimpleDiffable;
 import org.elasticsearch.cluster.block.ClusterBlock;
 import org.elasticsearch.cluster.block.ClusterBlockLevel;
 import org.elasticsearch.cluster.node.DiscoveryNodeFilters;
@@ -1473,7 +1475,10 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         }
 
         private static final DiffableUtils.DiffableValueReader<String, AliasMetadata> ALIAS_METADATA_DIFF_VALUE_READER =
-            new DiffableUtils.DiffableValueReader<>(AliasMetadata::new, AliasMetadata::readDiffFrom);
+            new DiffableUtils.DiffableValueReader<>(
+                IndexMetadata::readAliasMetadata,
+                in -> SimpleDiffable.readDiffFrom(IndexMetadata::readAliasMetadata, in)
+            );
         private static final DiffableUtils.DiffableValueReader<String, MappingMetadata> MAPPING_DIFF_VALUE_READER =
             new DiffableUtils.DiffableValueReader<>(MappingMetadata::new, MappingMetadata::readDiffFrom);
         private static final DiffableUtils.DiffableValueReader<String, DiffableStringMap> CUSTOM_DIFF_VALUE_READER =
@@ -1593,7 +1598,7 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
             builder.stats(stats);
             builder.indexWriteLoadForecast(indexWriteLoadForecast);
             builder.shardSizeInBytesForecast(shardSizeInBytesForecast);
-            return builder.build(true);
+            return deduplicateIndex(builder.build(true));
         }
     }
 
@@ -1631,7 +1636,7 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         }
         int aliasesSize = in.readVInt();
         for (int i = 0; i < aliasesSize; i++) {
-            AliasMetadata aliasMd = new AliasMetadata(in);
+            AliasMetadata aliasMd = readAliasMetadata(in);
             builder.putAlias(aliasMd);
         }
         int customSize = in.readVInt();
@@ -1660,7 +1665,20 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
             builder.indexWriteLoadForecast(in.readOptionalDouble());
             builder.shardSizeInBytesForecast(in.readOptionalLong());
         }
-        return builder.build(true);
+        return deduplicateIndex(builder.build(true));
+    }
+
+    private static AliasMetadata readAliasMetadata(StreamInput in) throws IOException {
+        return ClusterStateDeduplicator.deduplicate(new AliasMetadata(in));
+    }
+
+    /**
+     * Registers the index of the given index metadata for deduplication, so that the routing table of the index shares it when it is
+     * read from the wire next.
+     */
+    private static IndexMetadata deduplicateIndex(IndexMetadata indexMetadata) {
+        ClusterStateDeduplicator.register(indexMetadata.getIndex());
+        return indexMetadata;
     }
 
     /**
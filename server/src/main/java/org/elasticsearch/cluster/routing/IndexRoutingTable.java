@@ -8,6 +8,7 @@
 
 package org.elasticsearch.cluster.routing;
 
+import org.elasticsearch.cluster.ClusterStateDeduplicator;
 import org.elasticsearch.cluster.Diff;
 import org.elasticsearch.cluster.SimpleDiffable;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
@@ -301,7 +302,8 @@ public class IndexRoutingTable implements SimpleDiffable<IndexRoutingTable> {
     }
 
     public static IndexRoutingTable readFrom(StreamInput in) throws IOException {
-        Index index = new Index(in);
+        // shares the index instance with the index metadata
+        Index index = ClusterStateDeduplicator.deduplicate(new Index(in));
         Builder builder = new Builder(index);
 
         int size = in.readVInt();
@@ -0,0 +1,199 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.routing.allocation;
+
+import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.cluster.metadata.DesiredNodes;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
+import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.Maps;
+import org.elasticsearch.core.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Caches whether the index-level allocation deciders, see {@link AllocationDeciders#canAllocate(IndexMetadata, RoutingNode,
+ * RoutingAllocation)}, allow the shards of an index on a node. Only the deciders that declare that their decisions depend on nothing
+ * but the metadata of the index, the nodes, the desired nodes and the cluster settings, see
+ * {@link AllocationDecider#canCacheIndexDecisions()}, are cached. Their decisions are reused across the iterations of a desired
+ * balance computation and across computations as long as the nodes, the desired nodes and the cluster settings do not change: only
+ * the decisions of new or updated indices are computed then. The missing decisions are computed in parallel when the cache is
+ * {@link #refresh refreshed}, which these deciders allow. The other deciders, for instance the ones that depend on the license or on
+ * the state of the nodes, are asked on every lookup.
+ *
+ * Note: the cache only tells whether a node is worth considering when balancing an index. Every shard movement is still checked by
+ * the shard-level deciders, so a decision that became outdated since it was cached, for instance a {@link Decision.Type#THROTTLE}
+ * that would now be a {@link Decision.Type#NO}, never causes an invalid allocation.
+ */
+public final class IndexAllocationDecisionCache {
+
+    /**
+     * The minimum number of indices that are worth a task of their own when refreshing the cache.
+     */
+    static final int MIN_INDICES_PER_TASK = 64;
+
+    private record Row(IndexMetadata indexMetadata, FixedBitSet canAllocate) {}
+
+    private Settings clusterSettings;
+    private DesiredNodes desiredNodes;
+    private Map<String, Integer> nodeOrdinals = Map.of();
+    private Map<String, Row> rows = Map.of();
+    private long computedDecisions;
+
+    /**
+     * Brings the cache up to date with the indices, the nodes, the desired nodes and the cluster settings of the given allocation.
+     * Decisions that are not cached yet are computed by tasks that run on the executor, or sequentially if it is {@code null}. Must
+     * not be called concurrently.
+     */
+    public void refresh(RoutingAllocation allocation, @Nullable Executor executor, int parallelism) {
+        final Settings settings = allocation.metadata().settings();
+        final RoutingNode[] nodes = allocation.routingNodes().stream().toArray(RoutingNode[]::new);
+        final Map<String, Row> previousRows;
+        final Map<String, Integer> newNodeOrdinals;
+        if (settings.equals(clusterSettings)
+            && Objects.equals(allocation.desiredNodes(), desiredNodes)
+            && nodes.length == nodeOrdinals.size()
+            && Arrays.stream(nodes).allMatch(node -> nodeOrdinals.containsKey(node.node().getEphemeralId()))) {
+            previousRows = rows;
+            newNodeOrdinals = nodeOrdinals;
+        } else {
+            previousRows = Map.of();
+            newNodeOrdinals = Maps.newMapWithExpectedSize(nodes.length);
+            for (int i = 0; i < nodes.length; i++) {
+                newNodeOrdinals.put(nodes[i].node().getEphemeralId(), i);
+            }
+        }
+
+        final IndexMetadata[] indices = allocation.routingTable()
+            .indicesRouting()
+            .keySet()
+            .stream()
+            .map(allocation.metadata()::index)
+            .toArray(IndexMetadata[]::new);
+        final Row[] newRows = new Row[indices.length];
+        final long[] decisionsPerTask = new long[Math.max(1, Math.min(parallelism, indices.length / MIN_INDICES_PER_TASK))];
+        final int numTasks = decisionsPerTask.length;
+
+        final List<FutureTask<Void>> tasks = new ArrayList<>(numTasks);
+        for (int t = 0; t < numTasks; t++) {
+            final int task = t;
+            tasks.add(new FutureTask<>(() -> {
+                for (int i = task; i < indices.length; i += numTasks) {
+                    final Row previous = previousRows.get(indices[i].getIndex().getName());
+                    if (previous != null && previous.indexMetadata() == indices[i]) {
+                        newRows[i] = previous;
+                    } else {
+                        newRows[i] = computeRow(allocation, indices[i], nodes, newNodeOrdinals);
+                        decisionsPerTask[task] += nodes.length;
+                    }
+                }
+                return null;
+            }));
+        }
+        runAll(tasks, executor);
+
+        final Map<String, Row> rowsByIndex = Maps.newMapWithExpectedSize(indices.length);
+        for (Row row : newRows) {
+            rowsByIndex.put(row.indexMetadata().getIndex().getName(), row);
+        }
+        for (long decisions : decisionsPerTask) {
+            computedDecisions += decisions;
+        }
+        clusterSettings = settings;
+        desiredNodes = allocation.desiredNodes();
+        nodeOrdinals = newNodeOrdinals;
+        rows = rowsByIndex;
+    }
+
+    private static Row computeRow(
+        RoutingAllocation allocation,
+        IndexMetadata indexMetadata,
+        RoutingNode[] nodes,
+        Map<String, Integer> nodeOrdinals
+    ) {
+        final FixedBitSet canAllocate = new FixedBitSet(nodes.length);
+        for (RoutingNode node : nodes) {
+            if (allocation.deciders().canAllocate(indexMetadata, node, allocation, true).type() != Decision.Type.NO) {
+                canAllocate.set(nodeOrdinals.get(node.node().getEphemeralId()));
+            }
+        }
+        return new Row(indexMetadata, canAllocate);
+    }
+
+    /**
+     * Runs the tasks on the executor, except for the first task which runs on the calling thread, and waits for all of them to
+     * complete. Tasks that the executor rejects run on the calling thread too.
+     */
+    private static void runAll(List<FutureTask<Void>> tasks, @Nullable Executor executor) {
+        for (int i = 1; i < tasks.size(); i++) {
+            if (executor == null) {
+                tasks.get(i).run();
+                continue;
+            }
+            try {
+                executor.execute(tasks.get(i));
+            } catch (RejectedExecutionException e) {
+                tasks.get(i).run();
+            }
+        }
+        tasks.get(0).run();
+        Throwable failure = null;
+        for (FutureTask<Void> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                failure = ExceptionsHelper.useOrSuppress(failure, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ThreadInterruptedException(e);
+            }
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        ExceptionsHelper.reThrowIfNotNull(failure);
+    }
+
+    /**
+     * Returns whether the index-level allocation deciders allow the shards of the given index on the given node, from the cache if
+     * the decision is known for the same index metadata and node, otherwise from the deciders.
+     */
+    public boolean canAllocate(IndexMetadata indexMetadata, RoutingNode node, RoutingAllocation allocation) {
+        final Row row = rows.get(indexMetadata.getIndex().getName());
+        if (row != null && row.indexMetadata() == indexMetadata) {
+            final Integer ordinal = nodeOrdinals.get(node.node().getEphemeralId());
+            if (ordinal != null) {
+                return row.canAllocate().get(ordinal)
+                    && allocation.deciders().canAllocate(indexMetadata, node, allocation, false).type() != Decision.Type.NO;
+            }
+        }
+        return allocation.deciders().canAllocate(indexMetadata, node, allocation).type() != Decision.Type.NO;
+    }
+
+    /**
+     * Returns the number of decisions that were computed by the deciders when the cache was refreshed, as opposed to reused.
+     */
+    public long getComputedDecisions() {
+        return computedDecisions;
+    }
+}
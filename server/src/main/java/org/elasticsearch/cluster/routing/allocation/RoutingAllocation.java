@@ -62,6 +62,9 @@ public class RoutingAllocation {
 
     private boolean hasPendingAsyncFetch = false;
 
+    @Nullable
+    private IndexAllocationDecisionCache indexAllocationDecisionCache;
+
     private final long currentNanoTime;
     private final boolean isSimulating;
 
@@ -406,6 +409,20 @@ public class RoutingAllocation {
         this.clusterInfo = clusterInfo;
     }
 
+    /**
+     * Sets the cache of index-level allocation decisions that allocators may use instead of the deciders, only while simulating since
+     * the cache must be {@link IndexAllocationDecisionCache#refresh refreshed} against this allocation beforehand.
+     */
+    public void setIndexAllocationDecisionCache(IndexAllocationDecisionCache indexAllocationDecisionCache) {
+        assert isSimulating : "Should be called only while simulating";
+        this.indexAllocationDecisionCache = indexAllocationDecisionCache;
+    }
+
+    @Nullable
+    public IndexAllocationDecisionCache indexAllocationDecisionCache() {
+        return indexAllocationDecisionCache;
+    }
+
     public RoutingAllocation immutableClone() {
         return new RoutingAllocation(
             deciders,
@@ -24,6 +24,7 @@ import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.cluster.routing.UnassignedInfo.AllocationStatus;
 import org.elasticsearch.cluster.routing.allocation.AllocateUnassignedDecision;
 import org.elasticsearch.cluster.routing.allocation.AllocationDecision;
+import org.elasticsearch.cluster.routing.allocation.IndexAllocationDecisionCache;
 import org.elasticsearch.cluster.routing.allocation.MoveDecision;
 import org.elasticsearch.cluster.routing.allocation.NodeAllocationResult;
 import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
@@ -641,6 +642,10 @@ public class BalancedShardsAllocator implements ShardsAllocator {
          */
         private void balanceByWeights() {
             final AllocationDeciders deciders = allocation.deciders();
+            // the cached decisions are reused as long as we do not need to explain them
+            final IndexAllocationDecisionCache decisionCache = allocation.debugDecision()
+                ? null
+                : allocation.indexAllocationDecisionCache();
             final ModelNode[] modelNodes = sorter.modelNodes;
             final float[] weights = sorter.weights;
             for (String index : buildWeightOrderedIndices()) {
@@ -652,7 +657,9 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                 for (int i = 0; i < modelNodes.length; i++) {
                     ModelNode modelNode = modelNodes[i];
                     if (modelNode.getIndex(index) != null
-                        || deciders.canAllocate(indexMetadata, modelNode.getRoutingNode(), allocation).type() != Type.NO) {
+                        || (decisionCache != null
+                            ? decisionCache.canAllocate(indexMetadata, modelNode.getRoutingNode(), allocation)
+                            : deciders.canAllocate(indexMetadata, modelNode.getRoutingNode(), allocation).type() != Type.NO)) {
                         // swap nodes at position i and relevantNodes
                         modelNodes[i] = modelNodes[relevantNodes];
                         modelNodes[relevantNodes] = modelNode;
@@ -16,12 +16,14 @@ import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.RoutingNodes;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
+import org.elasticsearch.cluster.routing.allocation.IndexAllocationDecisionCache;
 import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
 import org.elasticsearch.cluster.routing.allocation.command.MoveAllocationCommand;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.core.Strings;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.shard.ShardId;
@@ -52,6 +54,8 @@ public class DesiredBalanceComputer {
 
     private final ThreadPool threadPool;
     private final ShardsAllocator delegateAllocator;
+    private final int decisionCacheParallelism;
+    private final IndexAllocationDecisionCache indexAllocationDecisionCache = new IndexAllocationDecisionCache();
 
     protected final MeanMetric iterations = new MeanMetric();
 
@@ -73,6 +77,7 @@ public class DesiredBalanceComputer {
     ) {
         this.threadPool = threadPool;
         this.delegateAllocator = delegateAllocator;
+        this.decisionCacheParallelism = EsExecutors.allocatedProcessors(settings);
         watchSetting(settings, clusterSettings, PROGRESS_LOG_INTERVAL_SETTING, value -> this.progressLogInterval = value);
     }
 
@@ -101,6 +106,10 @@ public class DesiredBalanceComputer {
             return new DesiredBalance(desiredBalanceInput.index(), Map.of());
         }
 
+        // the index-level decisions are kept across computations, so only the ones for new or updated indices are computed
+        indexAllocationDecisionCache.refresh(routingAllocation, threadPool.generic(), decisionCacheParallelism);
+        routingAllocation.setIndexAllocationDecisionCache(indexAllocationDecisionCache);
+
         // we assume that all ongoing recoveries will complete
         for (final var routingNode : routingNodes) {
             for (final var shardRouting : routingNode) {
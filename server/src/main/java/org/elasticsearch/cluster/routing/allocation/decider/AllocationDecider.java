@@ -65,6 +65,16 @@ public abstract class AllocationDecider {
         return Decision.ALWAYS;
     }
 
+    /**
+     * Returns whether the decisions of {@link #canAllocate(IndexMetadata, RoutingNode, RoutingAllocation)} only depend on the index
+     * metadata, the node, the desired nodes and the cluster settings, so that the
+     * {@link org.elasticsearch.cluster.routing.allocation.IndexAllocationDecisionCache} may cache them. Such decisions may also be
+     * computed concurrently from several threads. The default is {@code false}.
+     */
+    public boolean canCacheIndexDecisions() {
+        return false;
+    }
+
     /**
      * Returns a {@link Decision} whether shards of the given index should be auto-expanded to this node at this state of the
      * {@link RoutingAllocation}. The default is {@link Decision#ALWAYS}.
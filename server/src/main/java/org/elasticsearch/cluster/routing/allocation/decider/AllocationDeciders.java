@@ -35,9 +35,17 @@ public class AllocationDeciders {
     );
 
     private final AllocationDecider[] allocations;
+    private final AllocationDecider[] cacheableIndexDeciders;
+    private final AllocationDecider[] uncacheableIndexDeciders;
 
     public AllocationDeciders(Collection<AllocationDecider> allocations) {
         this.allocations = allocations.toArray(AllocationDecider[]::new);
+        this.cacheableIndexDeciders = allocations.stream()
+            .filter(AllocationDecider::canCacheIndexDecisions)
+            .toArray(AllocationDecider[]::new);
+        this.uncacheableIndexDeciders = allocations.stream()
+            .filter(decider -> decider.canCacheIndexDecisions() == false)
+            .toArray(AllocationDecider[]::new);
     }
 
     public Decision canRebalance(ShardRouting shardRouting, RoutingAllocation allocation) {
@@ -137,8 +145,26 @@ public class AllocationDeciders {
     }
 
     public Decision canAllocate(IndexMetadata indexMetadata, RoutingNode node, RoutingAllocation allocation) {
+        return canAllocate(allocations, indexMetadata, node, allocation);
+    }
+
+    /**
+     * Same as {@link #canAllocate(IndexMetadata, RoutingNode, RoutingAllocation)}, but only asks the deciders whose decisions
+     * {@link AllocationDecider#canCacheIndexDecisions() can be cached} if {@code cacheable} is {@code true}, or the other deciders
+     * otherwise.
+     */
+    public Decision canAllocate(IndexMetadata indexMetadata, RoutingNode node, RoutingAllocation allocation, boolean cacheable) {
+        return canAllocate(cacheable ? cacheableIndexDeciders : uncacheableIndexDeciders, indexMetadata, node, allocation);
+    }
+
+    private static Decision canAllocate(
+        AllocationDecider[] deciders,
+        IndexMetadata indexMetadata,
+        RoutingNode node,
+        RoutingAllocation allocation
+    ) {
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
+        for (AllocationDecider allocationDecider : deciders) {
             Decision decision = allocationDecider.canAllocate(indexMetadata, node, allocation);
             // short track if a NO is returned.
             if (decision.type() == Decision.Type.NO) {
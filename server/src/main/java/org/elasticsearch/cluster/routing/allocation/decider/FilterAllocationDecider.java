@@ -108,6 +108,11 @@ public class FilterAllocationDecider extends AllocationDecider {
         return shouldFilter(indexMetadata, node.node(), allocation);
     }
 
+    @Override
+    public boolean canCacheIndexDecisions() {
+        return true;
+    }
+
     @Override
     public Decision canAllocate(IndexMetadata indexMetadata, RoutingNode node, RoutingAllocation allocation) {
         return shouldFilter(indexMetadata, node.node(), allocation);
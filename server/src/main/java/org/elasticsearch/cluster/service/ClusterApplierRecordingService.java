@@ -79,6 +79,20 @@ public final class ClusterApplierRecordingService {
             return this::stop;
         }
 
+        /**
+         * Records the time that a phase of the action that is being recorded takes, as an action of its own named after both. Records
+         * nothing if no action is being recorded.
+         */
+        Releasable recordPhase(String phase) {
+            if (recording == false) {
+                return () -> {};
+            }
+
+            final String action = currentAction + '#' + phase;
+            final long phaseStartTimeMS = currentTimeSupplier.getAsLong();
+            return () -> recordings.add(new Tuple<>(action, currentTimeSupplier.getAsLong() - phaseStartTimeMS));
+        }
+
         void stop() {
             recording = false;
             long timeSpentMS = currentTimeSupplier.getAsLong() - this.startTimeMS;
@@ -88,6 +88,9 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
 
     private final ClusterApplierRecordingService recordingService;
 
+    // the recorder of the task that is running, if any
+    private volatile Recorder currentRecorder;
+
     private NodeConnectionsService nodeConnectionsService;
 
     public ClusterApplierService(String nodeName, Settings settings, ClusterSettings clusterSettings, ThreadPool threadPool) {
@@ -391,6 +394,22 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
 
         final long startTimeMillis = threadPool.relativeTimeInMillis();
         final Recorder stopWatch = new Recorder(threadPool::rawRelativeTimeInMillis);
+        currentRecorder = stopWatch;
+        try {
+            runTask(source, updateFunction, clusterApplyListener, previousClusterState, startTimeMillis, stopWatch);
+        } finally {
+            currentRecorder = null;
+        }
+    }
+
+    private void runTask(
+        String source,
+        Function<ClusterState, ClusterState> updateFunction,
+        ActionListener<Void> clusterApplyListener,
+        ClusterState previousClusterState,
+        long startTimeMillis,
+        Recorder stopWatch
+    ) {
         final ClusterState newClusterState;
         try {
             try (Releasable ignored = stopWatch.record("running task [" + source + ']')) {
@@ -464,6 +483,15 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         }
     }
 
+    /**
+     * Records how long the given phase of the cluster state applier that is running takes, so that the cluster applier stats report it
+     * next to the total time of the applier. Records nothing if no applier or listener is running.
+     */
+    public Releasable recordApplierPhase(String phase) {
+        final Recorder recorder = currentRecorder;
+        return recorder == null ? () -> {} : recorder.recordPhase(phase);
+    }
+
     private TimeValue getTimeSince(long startTimeMillis) {
         return TimeValue.timeValueMillis(Math.max(0, threadPool.relativeTimeInMillis() - startTimeMillis));
     }
@@ -18,6 +18,8 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -41,17 +43,14 @@ import java.util.function.ToLongBiFunction;
  * if they are reading a segment that a writer is writing to).
  * <p>
  * The LRU functionality is backed by a single doubly-linked list chaining the entries in order of insertion. This
- * LRU list is protected by a lock that serializes all writes to it. There are opportunities for improvements
- * here if write throughput is a concern.
- * <ol>
- * <li>LRU list mutations could be inserted into a blocking queue that a single thread is reading from
- * and applying to the LRU list.</li>
- * <li>Promotions could be deferred for entries that were "recently" promoted.</li>
- * <li>Locks on the list could be taken per node being modified instead of globally.</li>
- * </ol>
+ * LRU list is protected by a lock that serializes all writes to it. Cache hits don't take that lock: the promotions
+ * of the entries that were read are recorded in a striped, bounded {@link ReadBuffer} and replayed against the LRU list
+ * in batches, either by the next write to the list or by a reader that finds its stripe half full and can acquire the
+ * lock without waiting. Under heavy contention a stripe may fill up faster than it is drained, in which case further
+ * promotions are dropped until it is drained, which makes the LRU order approximate for the hottest entries only.
  * <p>
- * Evictions only occur after a mutation to the cache (meaning an entry promotion, a cache insertion, or a manual
- * invalidation) or an explicit call to {@link #refresh()}.
+ * Evictions only occur after a mutation to the cache (meaning a batch of entry promotions, a cache insertion, or a
+ * manual invalidation) or an explicit call to {@link #refresh()}.
  *
  * @param <K> The type of the keys
  * @param <V> The type of the values
@@ -160,6 +159,8 @@ public class Cache<K, V> {
         final V value;
         final long writeTime;
         volatile long accessTime;
+        // the access time of the entry when it was last moved to the head of the LRU list, protected by the LRU lock
+        long linkedAccessTime;
         Entry<K, V> before;
         Entry<K, V> after;
         State state = State.NEW;
@@ -335,6 +336,18 @@ public class Cache<K, V> {
     // lock protecting mutations to the LRU list
     private final ReleasableLock lruLock = new ReleasableLock(new ReentrantLock());
 
+    // the number of stripes of the read buffer, a power of two
+    static final int NUMBER_OF_READ_BUFFERS = Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) * 2);
+
+    @SuppressWarnings("unchecked")
+    private final ReadBuffer<Entry<K, V>>[] readBuffers = (ReadBuffer<Entry<K, V>>[]) new ReadBuffer<?>[NUMBER_OF_READ_BUFFERS];
+
+    {
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
     /**
      * Returns the value to which the specified key is mapped, or null if this map contains no mapping for the key.
      *
@@ -351,11 +364,51 @@ public class Cache<K, V> {
         if (entry == null) {
             return null;
         } else {
-            promote(entry, now);
+            afterRead(entry, now);
             return entry.value;
         }
     }
 
+    /**
+     * Records the promotion of an entry that was read in the read buffer of the current thread, and drains the read buffer if it
+     * is getting full and nobody else is currently holding the LRU lock.
+     */
+    private void afterRead(Entry<K, V> entry, long now) {
+        final ReadBuffer<Entry<K, V>> readBuffer = readBuffers[readBufferIndex()];
+        if (readBuffer.offer(entry) >= ReadBuffer.DRAIN_THRESHOLD) {
+            try (ReleasableLock locked = lruLock.tryAcquire()) {
+                if (locked != null) {
+                    drainReadBuffers();
+                    evict(now);
+                }
+            }
+        }
+    }
+
+    private static int readBufferIndex() {
+        // spread the thread ids, which are usually sequential, over the stripes
+        return (int) ((Thread.currentThread().getId() * 0x9E3779B97F4A7C15L) >>> 32) & (NUMBER_OF_READ_BUFFERS - 1);
+    }
+
+    /**
+     * Replays the promotions that are recorded in the read buffers against the LRU list.
+     */
+    private void drainReadBuffers() {
+        assert lruLock.isHeldByCurrentThread();
+        for (ReadBuffer<Entry<K, V>> readBuffer : readBuffers) {
+            readBuffer.drain(this::relink);
+        }
+    }
+
+    private void relink(Entry<K, V> entry) {
+        assert lruLock.isHeldByCurrentThread();
+        switch (entry.state) {
+            case DELETED -> {}
+            case EXISTING -> relinkAtHead(entry);
+            case NEW -> linkAtHead(entry);
+        }
+    }
+
     /**
      * If the specified key is not already associated with a value (or is mapped to null), attempts to compute its
      * value using the given mapping function and enters it into this map unless null. The load method for a given key
@@ -539,6 +592,10 @@ public class Cache<K, V> {
                 head = tail = null;
                 count = 0;
                 weight = 0;
+                // drop the pending promotions so that the read buffers don't keep the invalidated entries reachable
+                for (ReadBuffer<Entry<K, V>> readBuffer : readBuffers) {
+                    readBuffer.drain(entry -> {});
+                }
             }
         } finally {
             for (int i = NUMBER_OF_SEGMENTS - 1; i >= 0; i--) {
@@ -559,6 +616,7 @@ public class Cache<K, V> {
     public void refresh() {
         long now = now();
         try (ReleasableLock ignored = lruLock.acquire()) {
+            drainReadBuffers();
             evict(now);
         }
     }
@@ -590,7 +648,7 @@ public class Cache<K, V> {
      */
     public Iterable<K> keys() {
         return () -> new Iterator<K>() {
-            private final CacheIterator iterator = new CacheIterator(head);
+            private final CacheIterator iterator = new CacheIterator(lruHead());
 
             @Override
             public boolean hasNext() {
@@ -618,7 +676,7 @@ public class Cache<K, V> {
      */
     public Iterable<V> values() {
         return () -> new Iterator<V>() {
-            private final CacheIterator iterator = new CacheIterator(head);
+            private final CacheIterator iterator = new CacheIterator(lruHead());
 
             @Override
             public boolean hasNext() {
@@ -665,6 +723,16 @@ public class Cache<K, V> {
         }
     }
 
+    /**
+     * Returns the head of the LRU list after applying the pending promotions.
+     */
+    private Entry<K, V> lruHead() {
+        try (ReleasableLock ignored = lruLock.acquire()) {
+            drainReadBuffers();
+            return head;
+        }
+    }
+
     private class CacheIterator implements Iterator<Entry<K, V>> {
         private Entry<K, V> current;
         private Entry<K, V> next;
@@ -737,6 +805,7 @@ public class Cache<K, V> {
     private void promote(Entry<K, V> entry, long now) {
         boolean promoted = true;
         try (ReleasableLock ignored = lruLock.acquire()) {
+            drainReadBuffers();
             switch (entry.state) {
                 case DELETED -> promoted = false;
                 case EXISTING -> relinkAtHead(entry);
@@ -751,8 +820,17 @@ public class Cache<K, V> {
     private void evict(long now) {
         assert lruLock.isHeldByCurrentThread();
 
-        while (tail != null && shouldPrune(tail, now)) {
-            evictEntry(tail);
+        // the tail may have been read since it was linked without its promotion being recorded, since promotions are dropped
+        // when the read buffers are full; such entries are promoted now so that they don't shield older expired entries
+        int relinks = count;
+        while (tail != null) {
+            if (shouldPrune(tail, now)) {
+                evictEntry(tail);
+            } else if (tail.accessTime != tail.linkedAccessTime && relinks-- > 0) {
+                relinkAtHead(tail);
+            } else {
+                break;
+            }
         }
     }
 
@@ -844,12 +922,14 @@ public class Cache<K, V> {
 
         count++;
         weight += weigher.applyAsLong(entry.key, entry.value);
+        entry.linkedAccessTime = entry.accessTime;
         entry.state = State.EXISTING;
     }
 
     private void relinkAtHead(Entry<K, V> entry) {
         assert lruLock.isHeldByCurrentThread();
 
+        entry.linkedAccessTime = entry.accessTime;
         if (head != entry) {
             unlink(entry);
             linkAtHead(entry);
@@ -859,4 +939,56 @@ public class Cache<K, V> {
     private CacheSegment getCacheSegment(K key) {
         return segments[key.hashCode() & 0xff];
     }
+
+    /**
+     * A bounded, lossy buffer that any number of threads can add elements to without locking, and that is drained by a single
+     * thread at a time, the one that holds the LRU lock. Elements are dropped when the buffer is full or when adding them races
+     * with another thread.
+     */
+    static final class ReadBuffer<E> {
+        static final int SIZE = 32;
+        static final int DRAIN_THRESHOLD = SIZE / 2;
+        private static final int MASK = SIZE - 1;
+
+        private final AtomicReferenceArray<E> elements = new AtomicReferenceArray<>(SIZE);
+        private final AtomicLong writeCounter = new AtomicLong();
+        // only written by the thread that drains the buffer
+        private volatile long readCounter;
+
+        /**
+         * Adds an element to the buffer, unless it is full or another thread is adding an element concurrently.
+         *
+         * @return the number of elements that are pending in the buffer, including the added one if it was added
+         */
+        int offer(E element) {
+            final long read = readCounter;
+            final long write = writeCounter.get();
+            final int size = (int) (write - read);
+            if (size >= SIZE || writeCounter.compareAndSet(write, write + 1) == false) {
+                return size;
+            }
+            elements.lazySet((int) (write & MASK), element);
+            return size + 1;
+        }
+
+        /**
+         * Removes the elements of the buffer in the order they were added and passes them to the given consumer. Elements that
+         * are being added concurrently may be left over for the next drain.
+         */
+        void drain(Consumer<E> consumer) {
+            long read = readCounter;
+            final long write = writeCounter.get();
+            for (; read < write; read++) {
+                final int index = (int) (read & MASK);
+                final E element = elements.get(index);
+                if (element == null) {
+                    // the writer that claimed this slot did not publish its element yet
+                    break;
+                }
+                elements.lazySet(index, null);
+                consumer.accept(element);
+            }
+            readCounter = read;
+        }
+    }
 }
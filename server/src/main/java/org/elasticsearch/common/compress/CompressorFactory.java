@@ -20,6 +20,8 @@ public class CompressorFactory {
 
     public static final Compressor COMPRESSOR = new DeflateCompressor();
 
+    public static final Compressor ZSTD_COMPRESSOR = new ZstdCompressor();
+
     public static boolean isCompressed(BytesReference bytes) {
         return compressor(bytes) != null;
     }
@@ -33,6 +35,10 @@ public class CompressorFactory {
             assert XContentHelper.xContentType(bytes) == null;
             return COMPRESSOR;
         }
+        if (ZSTD_COMPRESSOR.isCompressed(bytes)) {
+            assert XContentHelper.xContentType(bytes) == null;
+            return ZSTD_COMPRESSOR;
+        }
 
         XContentType contentType = XContentHelper.xContentType(bytes);
         if (contentType == null) {
@@ -0,0 +1,268 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.core.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * {@link Compressor} implementation based on the Zstandard compression algorithm, which compresses better than DEFLATE at a lower cost.
+ * The streams are regular Zstandard frames behind a header, which are encoded by a pure Java implementation of the format.
+ *
+ * A compressor may be given a raw content dictionary, i.e. bytes that are similar to the data to compress, which both sides must share.
+ * Dictionaries mostly help with small payloads, that do not have much history to refer to on their own.
+ */
+public class ZstdCompressor implements Compressor {
+
+    // An arbitrary header that we use to identify compressed streams, see DeflateCompressor
+    static final byte[] HEADER = new byte[] { 'Z', 'S', 'T', '\0' };
+
+    public static final int HEADER_SIZE = HEADER.length;
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+
+    private static final ThreadLocal<PooledEncoder> encoderRef = ThreadLocal.withInitial(PooledEncoder::new);
+
+    private final int dictionaryId;
+    @Nullable
+    private final byte[] dictionary;
+
+    public ZstdCompressor() {
+        this.dictionaryId = 0;
+        this.dictionary = null;
+    }
+
+    /**
+     * @param dictionaryId a strictly positive id that identifies the dictionary in the compressed frames
+     * @param dictionary   the content of the dictionary, which must be the same on the compressing and decompressing sides
+     */
+    public ZstdCompressor(int dictionaryId, byte[] dictionary) {
+        if (dictionaryId <= 0) {
+            throw new IllegalArgumentException("dictionary id must be strictly positive but was [" + dictionaryId + "]");
+        }
+        this.dictionaryId = dictionaryId;
+        this.dictionary = Objects.requireNonNull(dictionary);
+    }
+
+    @Override
+    public boolean isCompressed(BytesReference bytes) {
+        if (bytes.length() < HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; ++i) {
+            if (bytes.get(i) != HEADER[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public InputStream threadLocalInputStream(InputStream in) throws IOException {
+        final byte[] headerBytes = new byte[HEADER.length];
+        final int len = Streams.readFully(in, headerBytes);
+        if (len != HEADER.length || Arrays.equals(headerBytes, HEADER) == false) {
+            throw new IllegalArgumentException("Input stream is not compressed with ZSTD!");
+        }
+        return new ZstdInputStream(in, newDecoder());
+    }
+
+    @Override
+    public OutputStream threadLocalOutputStream(OutputStream out) throws IOException {
+        out.write(HEADER);
+        final PooledEncoder pooled = encoderRef.get();
+        final ZstdFrameEncoder encoder;
+        final PooledEncoder releasable;
+        if (pooled.inUse) {
+            // Nested compression streams should not happen but we still handle them safely by using a fresh encoder
+            encoder = new ZstdFrameEncoder();
+            releasable = null;
+        } else {
+            pooled.inUse = true;
+            encoder = pooled.encoder;
+            releasable = pooled;
+        }
+        encoder.reset(dictionary);
+        ZstdFrameEncoder.writeFrameHeader(out, dictionaryId);
+        return new ZstdOutputStream(out, encoder, releasable);
+    }
+
+    /**
+     * @return a decoder for frames that were compressed by this compressor
+     */
+    public ZstdFrameDecoder newDecoder() {
+        final int dictionaryId = this.dictionaryId;
+        final byte[] dictionary = this.dictionary;
+        return new ZstdFrameDecoder(id -> id == dictionaryId ? dictionary : null);
+    }
+
+    @Override
+    public BytesReference uncompress(BytesReference bytesReference) throws IOException {
+        if (isCompressed(bytesReference) == false) {
+            throw new IOException("Input bytes are not compressed with ZSTD");
+        }
+        final BytesStreamOutput buffer = new BytesStreamOutput();
+        try (InputStream in = threadLocalInputStream(bytesReference.streamInput())) {
+            in.transferTo(buffer);
+        }
+        return buffer.bytes();
+    }
+
+    @Override
+    public BytesReference compress(BytesReference bytesReference) throws IOException {
+        final BytesStreamOutput buffer = new BytesStreamOutput();
+        try (OutputStream out = threadLocalOutputStream(buffer)) {
+            bytesReference.writeTo(out);
+        }
+        return buffer.bytes();
+    }
+
+    private static final class PooledEncoder {
+        final ZstdFrameEncoder encoder = new ZstdFrameEncoder();
+        // true if the encoder is currently in use by a stream of this thread
+        boolean inUse;
+    }
+
+    /**
+     * Compresses the bytes written to it as blocks of a frame, each flush ending the current block.
+     */
+    private static final class ZstdOutputStream extends OutputStream {
+        private final OutputStream out;
+        private final ZstdFrameEncoder encoder;
+        @Nullable
+        private final PooledEncoder pooled;
+        private final byte[] singleByte = new byte[1];
+        private boolean closed;
+
+        ZstdOutputStream(OutputStream out, ZstdFrameEncoder encoder, @Nullable PooledEncoder pooled) {
+            this.out = out;
+            this.encoder = encoder;
+            this.pooled = pooled;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            singleByte[0] = (byte) b;
+            write(singleByte, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            ensureOpen();
+            Objects.checkFromIndexSize(off, len, b.length);
+            encoder.write(b, off, len, out);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            ensureOpen();
+            if (encoder.pendingBytes() > 0) {
+                encoder.writeBlock(false, out);
+            }
+            out.flush();
+        }
+
+        private void ensureOpen() throws IOException {
+            if (closed) {
+                throw new IOException("stream closed");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                encoder.writeBlock(true, out);
+                out.close();
+            } finally {
+                if (pooled != null) {
+                    pooled.inUse = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Decompresses the frame that is read from the given stream, and stops at the end of the frame.
+     */
+    private static final class ZstdInputStream extends InputStream {
+        private final InputStream in;
+        private final ZstdFrameDecoder decoder;
+        private final byte[] singleByte = new byte[1];
+        private byte[] input = new byte[BUFFER_SIZE];
+        private int inputStart;
+        private int inputEnd;
+
+        ZstdInputStream(InputStream in, ZstdFrameDecoder decoder) {
+            this.in = in;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return read(singleByte, 0, 1) == -1 ? -1 : singleByte[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            Objects.checkFromIndexSize(off, len, b.length);
+            if (len == 0) {
+                return 0;
+            }
+            while (decoder.available() == 0) {
+                if (decoder.isFinished()) {
+                    return -1;
+                }
+                final int consumed = decoder.decode(input, inputStart, inputEnd - inputStart);
+                if (consumed > 0) {
+                    inputStart += consumed;
+                } else {
+                    fill();
+                }
+            }
+            return decoder.read(b, off, len);
+        }
+
+        /**
+         * Reads more compressed bytes, since the buffered ones do not contain the next unit of the frame.
+         */
+        private void fill() throws IOException {
+            if (inputStart > 0) {
+                System.arraycopy(input, inputStart, input, 0, inputEnd - inputStart);
+                inputEnd -= inputStart;
+                inputStart = 0;
+            }
+            if (inputEnd == input.length) {
+                input = Arrays.copyOf(input, input.length * 2);
+            }
+            final int read = in.read(input, inputEnd, input.length - inputEnd);
+            if (read == -1) {
+                throw new EOFException("unexpected end of ZSTD stream");
+            }
+            inputEnd += read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.compress;
+
+/**
+ * Constants of the Zstandard frame format, see <a href="https://www.rfc-editor.org/rfc/rfc8878">RFC 8878</a>, which are shared by the
+ * {@link ZstdFrameEncoder encoder} and the {@link ZstdFrameDecoder decoder}.
+ */
+final class ZstdFormat {
+
+    static final int MAGIC_NUMBER = 0xFD2FB528;
+    static final int SKIPPABLE_MAGIC_NUMBER_MASK = 0xFFFFFFF0;
+    static final int SKIPPABLE_MAGIC_NUMBER = 0x184D2A50;
+    static final int MAX_BLOCK_SIZE = 128 * 1024;
+    static final int MIN_WINDOW_LOG = 10;
+    static final int MIN_MATCH = 3;
+
+    static final int BLOCK_HEADER_SIZE = 3;
+    static final int BLOCK_TYPE_RAW = 0;
+    static final int BLOCK_TYPE_RLE = 1;
+    static final int BLOCK_TYPE_COMPRESSED = 2;
+
+    static final int LITERALS_TYPE_RAW = 0;
+    static final int LITERALS_TYPE_RLE = 1;
+    static final int LITERALS_TYPE_COMPRESSED = 2;
+    static final int LITERALS_TYPE_TREELESS = 3;
+
+    static final int SEQUENCE_MODE_PREDEFINED = 0;
+    static final int SEQUENCE_MODE_RLE = 1;
+    static final int SEQUENCE_MODE_COMPRESSED = 2;
+    static final int SEQUENCE_MODE_REPEAT = 3;
+
+    static final int MAX_HUFFMAN_BITS = 11;
+    static final int MAX_HUFFMAN_WEIGHTS_LOG = 6;
+
+    static final int MAX_LITERALS_LENGTH_CODE = 35;
+    static final int MAX_MATCH_LENGTH_CODE = 52;
+    static final int MAX_OFFSET_CODE = 31;
+    static final int LITERALS_LENGTH_MAX_LOG = 9;
+    static final int MATCH_LENGTH_MAX_LOG = 9;
+    static final int OFFSET_MAX_LOG = 8;
+
+    static final int[] LITERALS_LENGTH_BITS = {
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        1,
+        1,
+        1,
+        1,
+        2,
+        2,
+        3,
+        3,
+        4,
+        6,
+        7,
+        8,
+        9,
+        10,
+        11,
+        12,
+        13,
+        14,
+        15,
+        16 };
+
+    static final int[] MATCH_LENGTH_BITS = {
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        0,
+        1,
+        1,
+        1,
+        1,
+        2,
+        2,
+        3,
+        3,
+        4,
+        4,
+        5,
+        7,
+        8,
+        9,
+        10,
+        11,
+        12,
+        13,
+        14,
+        15,
+        16 };
+
+    // the baseline of a code is the smallest length it stands for, the number of additional bits that follow it gives the largest one
+    static final int[] LITERALS_LENGTH_BASE = baselines(0, LITERALS_LENGTH_BITS);
+    static final int[] MATCH_LENGTH_BASE = baselines(MIN_MATCH, MATCH_LENGTH_BITS);
+
+    // the distributions of the predefined mode, in which the symbols that have a probability of -1 are "less than 1"
+    static final short[] LITERALS_LENGTH_DEFAULT_DISTRIBUTION = {
+        4,
+        3,
+        2,
+        2,
+        2,
+        2,
+        2,
+        2,
+        2,
+        2,
+        2,
+        2,
+        2,
+        1,
+        1,
+        1,
+        2,
+        2,
+        2,
+        2,
+        2,
+        2,
+        2,
+        2,
+        2,
+        3,
+        2,
+        1,
+        1,
+        1,
+        1,
+        1,
+        -1,
+        -1,
+        -1,
+        -1 };
+    static final int LITERALS_LENGTH_DEFAULT_LOG = 6;
+    static final short[] MATCH_LENGTH_DEFAULT_DISTRIBUTION = {
+        1,
+        4,
+        3,
+        2,
+        2,
+        2,
+        2,
+        2,
+        2,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        -1,
+        -1,
+        -1,
+        -1,
+        -1,
+        -1,
+        -1 };
+    static final int MATCH_LENGTH_DEFAULT_LOG = 6;
+    static final short[] OFFSET_DEFAULT_DISTRIBUTION = {
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        2,
+        2,
+        2,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        1,
+        -1,
+        -1,
+        -1,
+        -1,
+        -1 };
+    static final int OFFSET_DEFAULT_LOG = 5;
+
+    private ZstdFormat() {}
+
+    private static int[] baselines(int firstBaseline, int[] bits) {
+        final int[] baselines = new int[bits.length];
+        baselines[0] = firstBaseline;
+        for (int code = 1; code < bits.length; code++) {
+            baselines[code] = baselines[code - 1] + (1 << bits[code - 1]);
+        }
+        return baselines;
+    }
+
+    /**
+     * @return the position of the highest bit that is set in the given strictly positive value
+     */
+    static int highBit(int value) {
+        assert value > 0 : value;
+        return 31 - Integer.numberOfLeadingZeros(value);
+    }
+}
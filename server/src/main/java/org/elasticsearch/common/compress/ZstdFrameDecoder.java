@@ -0,0 +1,1041 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.common.util.ByteUtils;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+import static org.elasticsearch.common.compress.ZstdFormat.BLOCK_HEADER_SIZE;
+import static org.elasticsearch.common.compress.ZstdFormat.BLOCK_TYPE_COMPRESSED;
+import static org.elasticsearch.common.compress.ZstdFormat.BLOCK_TYPE_RAW;
+import static org.elasticsearch.common.compress.ZstdFormat.BLOCK_TYPE_RLE;
+import static org.elasticsearch.common.compress.ZstdFormat.LITERALS_LENGTH_BASE;
+import static org.elasticsearch.common.compress.ZstdFormat.LITERALS_LENGTH_BITS;
+import static org.elasticsearch.common.compress.ZstdFormat.LITERALS_LENGTH_DEFAULT_DISTRIBUTION;
+import static org.elasticsearch.common.compress.ZstdFormat.LITERALS_LENGTH_DEFAULT_LOG;
+import static org.elasticsearch.common.compress.ZstdFormat.LITERALS_LENGTH_MAX_LOG;
+import static org.elasticsearch.common.compress.ZstdFormat.LITERALS_TYPE_COMPRESSED;
+import static org.elasticsearch.common.compress.ZstdFormat.LITERALS_TYPE_RAW;
+import static org.elasticsearch.common.compress.ZstdFormat.LITERALS_TYPE_RLE;
+import static org.elasticsearch.common.compress.ZstdFormat.MAGIC_NUMBER;
+import static org.elasticsearch.common.compress.ZstdFormat.MATCH_LENGTH_BASE;
+import static org.elasticsearch.common.compress.ZstdFormat.MATCH_LENGTH_BITS;
+import static org.elasticsearch.common.compress.ZstdFormat.MATCH_LENGTH_DEFAULT_DISTRIBUTION;
+import static org.elasticsearch.common.compress.ZstdFormat.MATCH_LENGTH_DEFAULT_LOG;
+import static org.elasticsearch.common.compress.ZstdFormat.MATCH_LENGTH_MAX_LOG;
+import static org.elasticsearch.common.compress.ZstdFormat.MAX_BLOCK_SIZE;
+import static org.elasticsearch.common.compress.ZstdFormat.MAX_HUFFMAN_BITS;
+import static org.elasticsearch.common.compress.ZstdFormat.MAX_HUFFMAN_WEIGHTS_LOG;
+import static org.elasticsearch.common.compress.ZstdFormat.MAX_LITERALS_LENGTH_CODE;
+import static org.elasticsearch.common.compress.ZstdFormat.MAX_MATCH_LENGTH_CODE;
+import static org.elasticsearch.common.compress.ZstdFormat.MAX_OFFSET_CODE;
+import static org.elasticsearch.common.compress.ZstdFormat.MIN_WINDOW_LOG;
+import static org.elasticsearch.common.compress.ZstdFormat.OFFSET_DEFAULT_DISTRIBUTION;
+import static org.elasticsearch.common.compress.ZstdFormat.OFFSET_DEFAULT_LOG;
+import static org.elasticsearch.common.compress.ZstdFormat.OFFSET_MAX_LOG;
+import static org.elasticsearch.common.compress.ZstdFormat.SEQUENCE_MODE_COMPRESSED;
+import static org.elasticsearch.common.compress.ZstdFormat.SEQUENCE_MODE_PREDEFINED;
+import static org.elasticsearch.common.compress.ZstdFormat.SEQUENCE_MODE_REPEAT;
+import static org.elasticsearch.common.compress.ZstdFormat.SEQUENCE_MODE_RLE;
+import static org.elasticsearch.common.compress.ZstdFormat.SKIPPABLE_MAGIC_NUMBER;
+import static org.elasticsearch.common.compress.ZstdFormat.SKIPPABLE_MAGIC_NUMBER_MASK;
+import static org.elasticsearch.common.compress.ZstdFormat.highBit;
+
+/**
+ * An incremental decoder of a Zstandard frame, see <a href="https://www.rfc-editor.org/rfc/rfc8878">RFC 8878</a>. The compressed bytes
+ * are pushed to the decoder with {@link #decode}, which consumes at most one unit of the frame, i.e. the frame header, a block or the
+ * checksum, at a time and only once all of its bytes are available. The bytes that a block decompresses to must then be drained with
+ * {@link #read} before decoding the next unit. Skippable frames that precede the frame are skipped.
+ *
+ * Dictionaries are supported as long as they are raw content dictionaries, which only provide history that the frame may refer to. The
+ * content checksum is not verified.
+ */
+public final class ZstdFrameDecoder {
+
+    /**
+     * The largest window that a frame may require, in line with the default of the reference implementation.
+     */
+    public static final int MAX_WINDOW_SIZE = 1 << 27;
+
+    /**
+     * The largest number of bytes that {@link #decode} may need at once to make progress, i.e. the size of the largest block.
+     */
+    public static final int MAX_UNIT_SIZE = BLOCK_HEADER_SIZE + MAX_BLOCK_SIZE;
+
+    private static final int MAX_FRAME_HEADER_SIZE = 18;
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+
+    private static final FseTable DEFAULT_LITERALS_LENGTH_TABLE = FseTable.build(
+        LITERALS_LENGTH_DEFAULT_DISTRIBUTION,
+        LITERALS_LENGTH_DEFAULT_DISTRIBUTION.length - 1,
+        LITERALS_LENGTH_DEFAULT_LOG
+    );
+    private static final FseTable DEFAULT_MATCH_LENGTH_TABLE = FseTable.build(
+        MATCH_LENGTH_DEFAULT_DISTRIBUTION,
+        MATCH_LENGTH_DEFAULT_DISTRIBUTION.length - 1,
+        MATCH_LENGTH_DEFAULT_LOG
+    );
+    private static final FseTable DEFAULT_OFFSET_TABLE = FseTable.build(
+        OFFSET_DEFAULT_DISTRIBUTION,
+        OFFSET_DEFAULT_DISTRIBUTION.length - 1,
+        OFFSET_DEFAULT_LOG
+    );
+
+    private enum State {
+        FRAME_HEADER,
+        SKIP,
+        BLOCK,
+        CHECKSUM,
+        FINISHED,
+        CORRUPTED
+    }
+
+    private final IntFunction<byte[]> dictionaries;
+    private final BackwardBitReader bitReader = new BackwardBitReader();
+
+    private State state = State.FRAME_HEADER;
+    private long bytesToSkip;
+    private boolean hasChecksum;
+    private int windowSize;
+
+    // the decompressed bytes, starting with the history that blocks may refer to
+    private byte[] buffer = new byte[0];
+    private int bufferLimit;
+    private int readPosition;
+    private int writePosition;
+
+    private byte[] literals = new byte[0];
+    private final int[] repeatedOffsets = new int[3];
+    private HuffmanTable huffmanTable;
+    private FseTable literalsLengthTable;
+    private FseTable offsetTable;
+    private FseTable matchLengthTable;
+
+    /**
+     * @param dictionaries returns the content of the dictionary with the given id, or {@code null} if it is not known
+     */
+    public ZstdFrameDecoder(IntFunction<byte[]> dictionaries) {
+        this.dictionaries = dictionaries;
+    }
+
+    public ZstdFrameDecoder() {
+        this(id -> null);
+    }
+
+    /**
+     * Decodes the next unit of the frame from the given bytes if they contain it entirely.
+     *
+     * @return the number of bytes consumed, which is {@code 0} if more bytes are needed or the frame is {@link #isFinished() finished}
+     */
+    public int decode(byte[] source, int offset, int length) throws IOException {
+        assert available() == 0 : "the decompressed bytes must be read before decoding more";
+        try {
+            return switch (state) {
+                case FRAME_HEADER -> decodeFrameHeader(source, offset, length);
+                case SKIP -> {
+                    final int skipped = (int) Math.min(bytesToSkip, length);
+                    bytesToSkip -= skipped;
+                    if (bytesToSkip == 0) {
+                        state = State.FRAME_HEADER;
+                    }
+                    yield skipped;
+                }
+                case BLOCK -> decodeBlock(source, offset, length);
+                case CHECKSUM -> {
+                    if (length < Integer.BYTES) {
+                        yield 0;
+                    }
+                    state = State.FINISHED;
+                    yield Integer.BYTES;
+                }
+                case FINISHED -> 0;
+                case CORRUPTED -> throw new IOException("zstd stream corrupted");
+            };
+        } catch (IOException | RuntimeException e) {
+            state = State.CORRUPTED;
+            throw e;
+        }
+    }
+
+    /**
+     * @return whether the whole frame was decoded
+     */
+    public boolean isFinished() {
+        return state == State.FINISHED;
+    }
+
+    /**
+     * @return the number of decompressed bytes that are waiting to be {@link #read}
+     */
+    public int available() {
+        return writePosition - readPosition;
+    }
+
+    /**
+     * Copies decompressed bytes to the given array.
+     *
+     * @return the number of bytes copied
+     */
+    public int read(byte[] destination, int offset, int length) {
+        final int toRead = Math.min(length, available());
+        System.arraycopy(buffer, readPosition, destination, offset, toRead);
+        readPosition += toRead;
+        return toRead;
+    }
+
+    private int decodeFrameHeader(byte[] source, int offset, int length) throws IOException {
+        if (length < Integer.BYTES + 1) {
+            return 0;
+        }
+        final int magic = ByteUtils.readIntLE(source, offset);
+        if ((magic & SKIPPABLE_MAGIC_NUMBER_MASK) == SKIPPABLE_MAGIC_NUMBER) {
+            if (length < 2 * Integer.BYTES) {
+                return 0;
+            }
+            bytesToSkip = Integer.toUnsignedLong(ByteUtils.readIntLE(source, offset + Integer.BYTES));
+            state = bytesToSkip == 0 ? State.FRAME_HEADER : State.SKIP;
+            return 2 * Integer.BYTES;
+        }
+        if (magic != MAGIC_NUMBER) {
+            throw new IOException("invalid zstd frame magic number [" + Integer.toHexString(magic) + "]");
+        }
+
+        final int descriptor = source[offset + Integer.BYTES] & 0xFF;
+        final int contentSizeFlag = descriptor >>> 6;
+        final boolean singleSegment = (descriptor & 0x20) != 0;
+        if ((descriptor & 0x08) != 0) {
+            throw new IOException("reserved bit of the zstd frame header descriptor is set");
+        }
+        hasChecksum = (descriptor & 0x04) != 0;
+        final int dictionaryIdSize = switch (descriptor & 0x03) {
+            case 0 -> 0;
+            case 1 -> 1;
+            case 2 -> 2;
+            default -> 4;
+        };
+        final int contentSizeSize = switch (contentSizeFlag) {
+            case 0 -> singleSegment ? 1 : 0;
+            case 1 -> 2;
+            case 2 -> 4;
+            default -> 8;
+        };
+        final int headerSize = Integer.BYTES + 1 + (singleSegment ? 0 : 1) + dictionaryIdSize + contentSizeSize;
+        assert headerSize <= MAX_FRAME_HEADER_SIZE;
+        if (length < headerSize) {
+            return 0;
+        }
+
+        int position = offset + Integer.BYTES + 1;
+        long window = 0;
+        if (singleSegment == false) {
+            final int windowDescriptor = source[position++] & 0xFF;
+            final int windowLog = MIN_WINDOW_LOG + (windowDescriptor >>> 3);
+            if (windowLog > highBit(MAX_WINDOW_SIZE)) {
+                throw new IOException("zstd window size of 2^" + windowLog + " bytes exceeds the maximum of " + MAX_WINDOW_SIZE + " bytes");
+            }
+            window = (1L << windowLog) + ((1L << windowLog) >>> 3) * (windowDescriptor & 0x07);
+        }
+        final long dictionaryId = readLittleEndian(source, position, dictionaryIdSize);
+        position += dictionaryIdSize;
+        if (contentSizeSize > 0) {
+            long contentSize = readLittleEndian(source, position, contentSizeSize);
+            if (contentSizeSize == 2) {
+                contentSize += 256;
+            }
+            if (singleSegment) {
+                window = contentSize;
+            }
+        }
+        if (window > MAX_WINDOW_SIZE) {
+            throw new IOException("zstd window size of [" + window + "] bytes exceeds the maximum of " + MAX_WINDOW_SIZE + " bytes");
+        }
+        windowSize = (int) window;
+        initHistory(dictionaryId);
+        Arrays.fill(repeatedOffsets, 0);
+        repeatedOffsets[0] = 1;
+        repeatedOffsets[1] = 4;
+        repeatedOffsets[2] = 8;
+        huffmanTable = null;
+        literalsLengthTable = null;
+        offsetTable = null;
+        matchLengthTable = null;
+        state = State.BLOCK;
+        return headerSize;
+    }
+
+    private void initHistory(long dictionaryId) throws IOException {
+        readPosition = 0;
+        writePosition = 0;
+        if (dictionaryId != 0) {
+            final byte[] dictionary = dictionaries.apply((int) dictionaryId);
+            if (dictionary == null) {
+                throw new IOException("unknown zstd dictionary [" + Long.toUnsignedString(dictionaryId) + "]");
+            }
+            // the dictionary precedes the content of the frame, so it can be referred to within the window
+            windowSize = Math.max(windowSize, dictionary.length);
+            ensureCapacity(dictionary.length);
+            System.arraycopy(dictionary, 0, buffer, 0, dictionary.length);
+            readPosition = writePosition = dictionary.length;
+        }
+        bufferLimit = windowSize + MAX_BLOCK_SIZE;
+    }
+
+    private static long readLittleEndian(byte[] source, int offset, int size) {
+        long value = 0;
+        for (int i = 0; i < size; i++) {
+            value |= (source[offset + i] & 0xFFL) << (8 * i);
+        }
+        return value;
+    }
+
+    /**
+     * Makes room for a block of at most the given size at the end of the buffer, by discarding the bytes that are out of the window once
+     * the buffer reaches the size of the window plus a block. The buffer only grows as the decompressed bytes need it, so that small
+     * frames only use small buffers.
+     */
+    private void makeRoomForBlock(int maxBlockSize) {
+        if (writePosition + maxBlockSize > bufferLimit) {
+            final int discarded = writePosition - windowSize;
+            assert discarded > 0 && readPosition == writePosition;
+            System.arraycopy(buffer, discarded, buffer, 0, windowSize);
+            writePosition = readPosition = windowSize;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(capacity, Math.min(bufferLimit, Math.max(INITIAL_BUFFER_SIZE, buffer.length * 2))));
+        }
+    }
+
+    private int decodeBlock(byte[] source, int offset, int length) throws IOException {
+        if (length < BLOCK_HEADER_SIZE) {
+            return 0;
+        }
+        final int header = (source[offset] & 0xFF) | (source[offset + 1] & 0xFF) << 8 | (source[offset + 2] & 0xFF) << 16;
+        final boolean lastBlock = (header & 1) != 0;
+        final int blockType = (header >>> 1) & 0x03;
+        final int blockSize = header >>> 3;
+        final int maxBlockSize = Math.min(Math.max(windowSize, 1), MAX_BLOCK_SIZE);
+        if (blockSize > maxBlockSize) {
+            throw new IOException("zstd block size of [" + blockSize + "] bytes exceeds the maximum of [" + maxBlockSize + "] bytes");
+        }
+        final int blockStart = offset + BLOCK_HEADER_SIZE;
+        final int consumed;
+        switch (blockType) {
+            case BLOCK_TYPE_RAW -> {
+                if (length < BLOCK_HEADER_SIZE + blockSize) {
+                    return 0;
+                }
+                makeRoomForBlock(blockSize);
+                ensureCapacity(writePosition + blockSize);
+                System.arraycopy(source, blockStart, buffer, writePosition, blockSize);
+                writePosition += blockSize;
+                consumed = BLOCK_HEADER_SIZE + blockSize;
+            }
+            case BLOCK_TYPE_RLE -> {
+                if (length < BLOCK_HEADER_SIZE + 1) {
+                    return 0;
+                }
+                makeRoomForBlock(blockSize);
+                ensureCapacity(writePosition + blockSize);
+                Arrays.fill(buffer, writePosition, writePosition + blockSize, source[blockStart]);
+                writePosition += blockSize;
+                consumed = BLOCK_HEADER_SIZE + 1;
+            }
+            case BLOCK_TYPE_COMPRESSED -> {
+                if (length < BLOCK_HEADER_SIZE + blockSize) {
+                    return 0;
+                }
+                makeRoomForBlock(MAX_BLOCK_SIZE);
+                decodeCompressedBlock(source, blockStart, blockStart + blockSize);
+                consumed = BLOCK_HEADER_SIZE + blockSize;
+            }
+            default -> throw new IOException("reserved zstd block type");
+        }
+        if (lastBlock) {
+            state = hasChecksum ? State.CHECKSUM : State.FINISHED;
+        }
+        return consumed;
+    }
+
+    private void decodeCompressedBlock(byte[] source, int start, int end) throws IOException {
+        int position = start;
+        if (position >= end) {
+            throw new IOException("empty zstd compressed block");
+        }
+        final int literalsLength;
+        // literals section
+        {
+            final int header = source[position] & 0xFF;
+            final int literalsType = header & 0x03;
+            final int sizeFormat = (header >>> 2) & 0x03;
+            if (literalsType == LITERALS_TYPE_RAW || literalsType == LITERALS_TYPE_RLE) {
+                final int headerSize;
+                switch (sizeFormat) {
+                    case 0, 2 -> {
+                        headerSize = 1;
+                        literalsLength = header >>> 3;
+                    }
+                    case 1 -> {
+                        headerSize = 2;
+                        checkBounds(position + headerSize, end);
+                        literalsLength = (header >>> 4) + ((source[position + 1] & 0xFF) << 4);
+                    }
+                    default -> {
+                        headerSize = 3;
+                        checkBounds(position + headerSize, end);
+                        literalsLength = (header >>> 4) + ((source[position + 1] & 0xFF) << 4) + ((source[position + 2] & 0xFF) << 12);
+                    }
+                }
+                position += headerSize;
+                if (literalsLength > MAX_BLOCK_SIZE) {
+                    throw new IOException("zstd literals section is too large");
+                }
+                literals = ArrayUtil.grow(literals, literalsLength);
+                if (literalsType == LITERALS_TYPE_RAW) {
+                    checkBounds(position + literalsLength, end);
+                    System.arraycopy(source, position, literals, 0, literalsLength);
+                    position += literalsLength;
+                } else {
+                    checkBounds(position + 1, end);
+                    Arrays.fill(literals, 0, literalsLength, source[position]);
+                    position += 1;
+                }
+            } else {
+                final int headerSize = sizeFormat < 2 ? 3 : sizeFormat + 2;
+                final int sizeBits = switch (sizeFormat) {
+                    case 0, 1 -> 10;
+                    case 2 -> 14;
+                    default -> 18;
+                };
+                checkBounds(position + headerSize, end);
+                final long sizes = readLittleEndian(source, position, headerSize) >>> 4;
+                literalsLength = (int) (sizes & ((1 << sizeBits) - 1));
+                final int compressedSize = (int) (sizes >>> sizeBits) & ((1 << sizeBits) - 1);
+                if (literalsLength > MAX_BLOCK_SIZE) {
+                    throw new IOException("zstd literals section is too large");
+                }
+                position += headerSize;
+                final int literalsEnd = position + compressedSize;
+                checkBounds(literalsEnd, end);
+                if (literalsType == LITERALS_TYPE_COMPRESSED) {
+                    huffmanTable = HuffmanTable.read(source, position, literalsEnd, bitReader);
+                    position += huffmanTable.descriptionSize;
+                } else if (huffmanTable == null) {
+                    throw new IOException("zstd treeless literals without a previous huffman table");
+                }
+                literals = ArrayUtil.grow(literals, literalsLength);
+                if (sizeFormat == 0) {
+                    decodeHuffmanStream(source, position, literalsEnd, 0, literalsLength);
+                } else {
+                    decodeHuffmanStreams(source, position, literalsEnd, literalsLength);
+                }
+                position = literalsEnd;
+            }
+        }
+
+        // sequences section
+        checkBounds(position + 1, end);
+        int numSequences = source[position++] & 0xFF;
+        if (numSequences == 0) {
+            if (position != end) {
+                throw new IOException("unexpected bytes after an empty zstd sequences section");
+            }
+            copyLiterals(0, literalsLength);
+            return;
+        }
+        if (numSequences == 255) {
+            checkBounds(position + 2, end);
+            numSequences = (source[position] & 0xFF) + ((source[position + 1] & 0xFF) << 8) + 0x7F00;
+            position += 2;
+        } else if (numSequences >= 128) {
+            checkBounds(position + 1, end);
+            numSequences = ((numSequences - 128) << 8) + (source[position++] & 0xFF);
+        }
+        checkBounds(position + 1, end);
+        final int modes = source[position++] & 0xFF;
+        if ((modes & 0x03) != 0) {
+            throw new IOException("reserved bits of the zstd sequences compression modes are set");
+        }
+        position = readSequenceTable(source, position, end, modes >>> 6, SequenceTable.LITERALS_LENGTH);
+        position = readSequenceTable(source, position, end, (modes >>> 4) & 0x03, SequenceTable.OFFSET);
+        position = readSequenceTable(source, position, end, (modes >>> 2) & 0x03, SequenceTable.MATCH_LENGTH);
+        decodeSequences(source, position, end, numSequences, literalsLength);
+    }
+
+    private static void checkBounds(int position, int end) throws IOException {
+        if (position > end) {
+            throw new IOException("truncated zstd block");
+        }
+    }
+
+    private void decodeHuffmanStreams(byte[] source, int start, int end, int literalsLength) throws IOException {
+        checkBounds(start + 6, end);
+        final int size1 = (source[start] & 0xFF) | (source[start + 1] & 0xFF) << 8;
+        final int size2 = (source[start + 2] & 0xFF) | (source[start + 3] & 0xFF) << 8;
+        final int size3 = (source[start + 4] & 0xFF) | (source[start + 5] & 0xFF) << 8;
+        final int stream1 = start + 6;
+        final int stream2 = stream1 + size1;
+        final int stream3 = stream2 + size2;
+        final int stream4 = stream3 + size3;
+        checkBounds(stream4 + 1, end);
+        final int segmentSize = (literalsLength + 3) / 4;
+        if (3 * segmentSize > literalsLength) {
+            throw new IOException("too few zstd literals for four huffman streams");
+        }
+        decodeHuffmanStream(source, stream1, stream2, 0, segmentSize);
+        decodeHuffmanStream(source, stream2, stream3, segmentSize, 2 * segmentSize);
+        decodeHuffmanStream(source, stream3, stream4, 2 * segmentSize, 3 * segmentSize);
+        decodeHuffmanStream(source, stream4, end, 3 * segmentSize, literalsLength);
+    }
+
+    private void decodeHuffmanStream(byte[] source, int start, int end, int from, int to) throws IOException {
+        final HuffmanTable table = huffmanTable;
+        final BackwardBitReader reader = bitReader;
+        reader.init(source, start, end - start);
+        final int maxBits = table.maxBits;
+        final byte[] symbols = table.symbols;
+        final byte[] numBits = table.numBits;
+        final byte[] literals = this.literals;
+        for (int i = from; i < to; i++) {
+            reader.reload();
+            final int index = (int) reader.peekBits(maxBits);
+            literals[i] = symbols[index];
+            reader.skipBits(numBits[index]);
+        }
+        if (reader.reload() != BackwardBitReader.COMPLETED) {
+            throw new IOException("corrupted zstd huffman stream");
+        }
+    }
+
+    private enum SequenceTable {
+        LITERALS_LENGTH(MAX_LITERALS_LENGTH_CODE, LITERALS_LENGTH_MAX_LOG, DEFAULT_LITERALS_LENGTH_TABLE),
+        OFFSET(MAX_OFFSET_CODE, OFFSET_MAX_LOG, DEFAULT_OFFSET_TABLE),
+        MATCH_LENGTH(MAX_MATCH_LENGTH_CODE, MATCH_LENGTH_MAX_LOG, DEFAULT_MATCH_LENGTH_TABLE);
+
+        final int maxSymbol;
+        final int maxLog;
+        final FseTable defaultTable;
+
+        SequenceTable(int maxSymbol, int maxLog, FseTable defaultTable) {
+            this.maxSymbol = maxSymbol;
+            this.maxLog = maxLog;
+            this.defaultTable = defaultTable;
+        }
+    }
+
+    private int readSequenceTable(byte[] source, int position, int end, int mode, SequenceTable type) throws IOException {
+        final FseTable table;
+        switch (mode) {
+            case SEQUENCE_MODE_PREDEFINED -> table = type.defaultTable;
+            case SEQUENCE_MODE_RLE -> {
+                checkBounds(position + 1, end);
+                final int symbol = source[position++] & 0xFF;
+                if (symbol > type.maxSymbol) {
+                    throw new IOException("invalid zstd " + type + " symbol [" + symbol + "]");
+                }
+                table = FseTable.rle(symbol);
+            }
+            case SEQUENCE_MODE_COMPRESSED -> {
+                final short[] distribution = new short[type.maxSymbol + 1];
+                final long header = FseTable.readDistribution(source, position, end, distribution, type.maxLog);
+                position += (int) (header >>> 32);
+                table = FseTable.build(distribution, distribution.length - 1, (int) header);
+            }
+            default -> {
+                assert mode == SEQUENCE_MODE_REPEAT;
+                table = switch (type) {
+                    case LITERALS_LENGTH -> literalsLengthTable;
+                    case OFFSET -> offsetTable;
+                    case MATCH_LENGTH -> matchLengthTable;
+                };
+                if (table == null) {
+                    throw new IOException("zstd " + type + " table repeated without a previous table");
+                }
+            }
+        }
+        switch (type) {
+            case LITERALS_LENGTH -> literalsLengthTable = table;
+            case OFFSET -> offsetTable = table;
+            case MATCH_LENGTH -> matchLengthTable = table;
+        }
+        return position;
+    }
+
+    private void decodeSequences(byte[] source, int start, int end, int numSequences, int literalsLength) throws IOException {
+        final BackwardBitReader reader = bitReader;
+        reader.init(source, start, end - start);
+        final FseTable literalsLengthTable = this.literalsLengthTable;
+        final FseTable offsetTable = this.offsetTable;
+        final FseTable matchLengthTable = this.matchLengthTable;
+        final int[] repeatedOffsets = this.repeatedOffsets;
+        int literalsLengthState = (int) reader.readBits(literalsLengthTable.log);
+        reader.reload();
+        int offsetState = (int) reader.readBits(offsetTable.log);
+        reader.reload();
+        int matchLengthState = (int) reader.readBits(matchLengthTable.log);
+
+        byte[] buffer = this.buffer;
+        final int blockEnd = writePosition + MAX_BLOCK_SIZE;
+        int literalsPosition = 0;
+        for (int i = 0; i < numSequences; i++) {
+            final int offsetCode = offsetTable.symbols[offsetState];
+            final int matchLengthCode = matchLengthTable.symbols[matchLengthState];
+            final int literalsLengthCode = literalsLengthTable.symbols[literalsLengthState];
+            if (offsetCode > MAX_OFFSET_CODE) {
+                throw new IOException("invalid zstd offset code [" + offsetCode + "]");
+            }
+
+            reader.reload();
+            final long offsetValue = (1L << offsetCode) + reader.readBits(offsetCode);
+            reader.reload();
+            final int matchLength = MATCH_LENGTH_BASE[matchLengthCode] + (int) reader.readBits(MATCH_LENGTH_BITS[matchLengthCode]);
+            reader.reload();
+            final int sequenceLiteralsLength = LITERALS_LENGTH_BASE[literalsLengthCode] + (int) reader.readBits(
+                LITERALS_LENGTH_BITS[literalsLengthCode]
+            );
+
+            final int offset;
+            if (offsetValue > 3) {
+                if (offsetValue - 3 > Integer.MAX_VALUE) {
+                    throw new IOException("invalid zstd offset [" + (offsetValue - 3) + "]");
+                }
+                offset = (int) (offsetValue - 3);
+                repeatedOffsets[2] = repeatedOffsets[1];
+                repeatedOffsets[1] = repeatedOffsets[0];
+                repeatedOffsets[0] = offset;
+            } else {
+                final int index = (int) offsetValue - 1 + (sequenceLiteralsLength == 0 ? 1 : 0);
+                if (index == 0) {
+                    offset = repeatedOffsets[0];
+                } else {
+                    offset = index == 3 ? repeatedOffsets[0] - 1 : repeatedOffsets[index];
+                    if (index != 1) {
+                        repeatedOffsets[2] = repeatedOffsets[1];
+                    }
+                    repeatedOffsets[1] = repeatedOffsets[0];
+                    repeatedOffsets[0] = offset;
+                }
+            }
+
+            if (i < numSequences - 1) {
+                reader.reload();
+                literalsLengthState = literalsLengthTable.nextState(literalsLengthState, reader);
+                reader.reload();
+                matchLengthState = matchLengthTable.nextState(matchLengthState, reader);
+                reader.reload();
+                offsetState = offsetTable.nextState(offsetState, reader);
+            }
+
+            if (literalsPosition + sequenceLiteralsLength > literalsLength) {
+                throw new IOException("zstd sequence refers to more literals than the block has");
+            }
+            if (writePosition + sequenceLiteralsLength + matchLength > blockEnd) {
+                throw new IOException("zstd block decompresses to more than " + MAX_BLOCK_SIZE + " bytes");
+            }
+            if (writePosition + sequenceLiteralsLength + matchLength > buffer.length) {
+                ensureCapacity(writePosition + sequenceLiteralsLength + matchLength);
+                buffer = this.buffer;
+            }
+            System.arraycopy(literals, literalsPosition, buffer, writePosition, sequenceLiteralsLength);
+            literalsPosition += sequenceLiteralsLength;
+            writePosition += sequenceLiteralsLength;
+            if (offset <= 0 || offset > writePosition) {
+                throw new IOException("zstd offset [" + offset + "] is out of the window");
+            }
+            final int matchStart = writePosition - offset;
+            if (offset >= matchLength) {
+                System.arraycopy(buffer, matchStart, buffer, writePosition, matchLength);
+            } else {
+                for (int j = 0; j < matchLength; j++) {
+                    buffer[writePosition + j] = buffer[matchStart + j];
+                }
+            }
+            writePosition += matchLength;
+        }
+        if (reader.reload() < BackwardBitReader.COMPLETED) {
+            throw new IOException("corrupted zstd sequences bit stream");
+        }
+        if (writePosition + literalsLength - literalsPosition > blockEnd) {
+            throw new IOException("zstd block decompresses to more than " + MAX_BLOCK_SIZE + " bytes");
+        }
+        copyLiterals(literalsPosition, literalsLength);
+    }
+
+    private void copyLiterals(int from, int to) {
+        ensureCapacity(writePosition + to - from);
+        System.arraycopy(literals, from, buffer, writePosition, to - from);
+        writePosition += to - from;
+    }
+
+    /**
+     * Reads a bit stream backwards, from its last bit to its first one, as the reference implementation's {@code BIT_DStream_t}. The
+     * highest bit that is set in the last byte marks the end of the stream.
+     */
+    static final class BackwardBitReader {
+        static final int UNFINISHED = 0;
+        static final int END_OF_BUFFER = 1;
+        static final int COMPLETED = 2;
+        static final int OVERFLOW = 3;
+
+        private byte[] bytes;
+        private int start;
+        private int position;
+        private long container;
+        private int bitsConsumed;
+
+        void init(byte[] bytes, int offset, int length) throws IOException {
+            if (length < 1) {
+                throw new IOException("empty zstd bit stream");
+            }
+            final int lastByte = bytes[offset + length - 1] & 0xFF;
+            if (lastByte == 0) {
+                throw new IOException("zstd bit stream is missing its end mark");
+            }
+            this.bytes = bytes;
+            this.start = offset;
+            if (length >= Long.BYTES) {
+                position = offset + length - Long.BYTES;
+                container = ByteUtils.readLongLE(bytes, position);
+                bitsConsumed = Integer.numberOfLeadingZeros(lastByte) - 23;
+            } else {
+                position = offset;
+                container = readLittleEndian(bytes, offset, length);
+                bitsConsumed = Integer.numberOfLeadingZeros(lastByte) - 23 + (Long.BYTES - length) * Byte.SIZE;
+            }
+        }
+
+        long peekBits(int numBits) {
+            if (numBits == 0 || bitsConsumed >= Long.SIZE) {
+                return 0;
+            }
+            return (container << bitsConsumed) >>> (Long.SIZE - numBits);
+        }
+
+        void skipBits(int numBits) {
+            bitsConsumed += numBits;
+        }
+
+        long readBits(int numBits) {
+            final long value = peekBits(numBits);
+            bitsConsumed += numBits;
+            return value;
+        }
+
+        int reload() {
+            if (bitsConsumed > Long.SIZE) {
+                return OVERFLOW;
+            }
+            if (position >= start + Long.BYTES) {
+                position -= bitsConsumed >>> 3;
+                bitsConsumed &= 7;
+                container = ByteUtils.readLongLE(bytes, position);
+                return UNFINISHED;
+            }
+            if (position == start) {
+                return bitsConsumed < Long.SIZE ? END_OF_BUFFER : COMPLETED;
+            }
+            int numBytes = bitsConsumed >>> 3;
+            int result = UNFINISHED;
+            if (position - numBytes < start) {
+                numBytes = position - start;
+                result = END_OF_BUFFER;
+            }
+            position -= numBytes;
+            bitsConsumed -= numBytes * Byte.SIZE;
+            container = ByteUtils.readLongLE(bytes, position);
+            return result;
+        }
+    }
+
+    /**
+     * A finite state entropy decoding table.
+     */
+    static final class FseTable {
+        final int log;
+        final byte[] symbols;
+        final byte[] numBits;
+        final int[] baselines;
+
+        private FseTable(int log) {
+            this.log = log;
+            this.symbols = new byte[1 << log];
+            this.numBits = new byte[1 << log];
+            this.baselines = new int[1 << log];
+        }
+
+        int nextState(int state, BackwardBitReader reader) {
+            return baselines[state] + (int) reader.readBits(numBits[state]);
+        }
+
+        static FseTable rle(int symbol) {
+            final FseTable table = new FseTable(0);
+            table.symbols[0] = (byte) symbol;
+            return table;
+        }
+
+        /**
+         * Builds the decoding table of the given normalized distribution, where symbols with a probability of -1 take a single cell.
+         */
+        static FseTable build(short[] distribution, int maxSymbol, int log) {
+            final FseTable table = new FseTable(log);
+            final int size = 1 << log;
+            final int[] nextStates = new int[maxSymbol + 1];
+            int highThreshold = size - 1;
+            for (int symbol = 0; symbol <= maxSymbol; symbol++) {
+                if (distribution[symbol] == -1) {
+                    table.symbols[highThreshold--] = (byte) symbol;
+                    nextStates[symbol] = 1;
+                } else {
+                    nextStates[symbol] = distribution[symbol];
+                }
+            }
+            final int mask = size - 1;
+            final int step = (size >>> 1) + (size >>> 3) + 3;
+            int position = 0;
+            for (int symbol = 0; symbol <= maxSymbol; symbol++) {
+                for (int i = 0; i < distribution[symbol]; i++) {
+                    table.symbols[position] = (byte) symbol;
+                    do {
+                        position = (position + step) & mask;
+                    } while (position > highThreshold);
+                }
+            }
+            assert position == 0 : "symbols were not spread over the whole table";
+            for (int state = 0; state < size; state++) {
+                final int symbol = table.symbols[state] & 0xFF;
+                final int nextState = nextStates[symbol]++;
+                final int numBits = log - highBit(nextState);
+                table.numBits[state] = (byte) numBits;
+                table.baselines[state] = (nextState << numBits) - size;
+            }
+            return table;
+        }
+
+        /**
+         * Reads a normalized distribution from its compact representation, in which each probability takes as many bits as needed
+         * given the probabilities that were read before.
+         *
+         * @return the number of bytes read in the upper 32 bits and the accuracy log in the lower 32 bits
+         */
+        static long readDistribution(byte[] source, int start, int end, short[] distribution, int maxLog) throws IOException {
+            final ForwardBitReader reader = new ForwardBitReader(source, start, end);
+            final int log = (int) reader.readBits(4) + 5;
+            if (log > maxLog) {
+                throw new IOException("zstd accuracy log [" + log + "] exceeds the maximum of [" + maxLog + "]");
+            }
+            int remaining = (1 << log) + 1;
+            int threshold = 1 << log;
+            int numBits = log + 1;
+            int symbol = 0;
+            boolean previousIsZero = false;
+            while (remaining > 1) {
+                if (previousIsZero) {
+                    int repeat;
+                    do {
+                        repeat = (int) reader.readBits(2);
+                        symbol += repeat;
+                    } while (repeat == 3);
+                    if (symbol >= distribution.length) {
+                        throw new IOException("too many symbols in zstd distribution");
+                    }
+                }
+                if (symbol >= distribution.length) {
+                    throw new IOException("too many symbols in zstd distribution");
+                }
+                final int max = (2 * threshold - 1) - remaining;
+                int count;
+                final int low = (int) reader.peekBits(numBits - 1);
+                if (low < max) {
+                    count = low;
+                    reader.skipBits(numBits - 1);
+                } else {
+                    count = (int) reader.peekBits(numBits);
+                    if (count >= threshold) {
+                        count -= max;
+                    }
+                    reader.skipBits(numBits);
+                }
+                count--;
+                remaining -= Math.abs(count);
+                distribution[symbol++] = (short) count;
+                previousIsZero = count == 0;
+                while (remaining < threshold) {
+                    numBits--;
+                    threshold >>>= 1;
+                }
+            }
+            if (remaining != 1) {
+                throw new IOException("invalid zstd distribution");
+            }
+            Arrays.fill(distribution, symbol, distribution.length, (short) 0);
+            final int bytesRead = reader.bytesRead();
+            if (start + bytesRead > end) {
+                throw new IOException("truncated zstd distribution");
+            }
+            return ((long) bytesRead << 32) | log;
+        }
+    }
+
+    /**
+     * Reads bits from the lowest to the highest, as the compact representation of distributions does.
+     */
+    private static final class ForwardBitReader {
+        private final byte[] bytes;
+        private final int start;
+        private final int end;
+        private long bitPosition;
+
+        ForwardBitReader(byte[] bytes, int start, int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+        }
+
+        long peekBits(int numBits) {
+            long value = 0;
+            final int byteIndex = start + (int) (bitPosition >>> 3);
+            for (int i = 0; i < Long.BYTES && byteIndex + i < end; i++) {
+                value |= (bytes[byteIndex + i] & 0xFFL) << (8 * i);
+            }
+            return (value >>> (bitPosition & 7)) & ((1L << numBits) - 1);
+        }
+
+        void skipBits(int numBits) {
+            bitPosition += numBits;
+        }
+
+        long readBits(int numBits) {
+            final long value = peekBits(numBits);
+            skipBits(numBits);
+            return value;
+        }
+
+        int bytesRead() {
+            return (int) ((bitPosition + 7) >>> 3);
+        }
+    }
+
+    /**
+     * A Huffman decoding table, indexed by the next {@link #maxBits} bits of the stream.
+     */
+    static final class HuffmanTable {
+        final int maxBits;
+        final byte[] symbols;
+        final byte[] numBits;
+        final int descriptionSize;
+
+        private HuffmanTable(int maxBits, int descriptionSize) {
+            this.maxBits = maxBits;
+            this.symbols = new byte[1 << maxBits];
+            this.numBits = new byte[1 << maxBits];
+            this.descriptionSize = descriptionSize;
+        }
+
+        static HuffmanTable read(byte[] source, int start, int end, BackwardBitReader reader) throws IOException {
+            checkBounds(start + 1, end);
+            final int header = source[start] & 0xFF;
+            final byte[] weights = new byte[256];
+            final int numWeights;
+            final int descriptionSize;
+            if (header >= 128) {
+                numWeights = header - 127;
+                descriptionSize = 1 + (numWeights + 1) / 2;
+                checkBounds(start + descriptionSize, end);
+                for (int i = 0; i < numWeights; i++) {
+                    final int b = source[start + 1 + i / 2] & 0xFF;
+                    weights[i] = (byte) ((i & 1) == 0 ? b >>> 4 : b & 0x0F);
+                }
+            } else {
+                descriptionSize = 1 + header;
+                checkBounds(start + descriptionSize, end);
+                numWeights = readCompressedWeights(source, start + 1, start + descriptionSize, weights, reader);
+            }
+
+            int total = 0;
+            for (int i = 0; i < numWeights; i++) {
+                if (weights[i] > MAX_HUFFMAN_BITS) {
+                    throw new IOException("invalid zstd huffman weight [" + weights[i] + "]");
+                }
+                total += weights[i] == 0 ? 0 : 1 << (weights[i] - 1);
+            }
+            if (total == 0) {
+                throw new IOException("invalid zstd huffman weights");
+            }
+            final int maxBits = highBit(total) + 1;
+            if (maxBits > MAX_HUFFMAN_BITS) {
+                throw new IOException("zstd huffman codes of [" + maxBits + "] bits exceed the maximum of " + MAX_HUFFMAN_BITS);
+            }
+            final int rest = (1 << maxBits) - total;
+            if (Integer.bitCount(rest) != 1) {
+                throw new IOException("invalid zstd huffman weights");
+            }
+            weights[numWeights] = (byte) (highBit(rest) + 1);
+            final int numSymbols = numWeights + 1;
+
+            final HuffmanTable table = new HuffmanTable(maxBits, descriptionSize);
+            final int[] rankStarts = new int[maxBits + 2];
+            for (int i = 0; i < numSymbols; i++) {
+                if (weights[i] > 0) {
+                    rankStarts[weights[i] + 1] += 1 << (weights[i] - 1);
+                }
+            }
+            for (int weight = 2; weight <= maxBits + 1; weight++) {
+                rankStarts[weight] += rankStarts[weight - 1];
+            }
+            for (int symbol = 0; symbol < numSymbols; symbol++) {
+                final int weight = weights[symbol];
+                if (weight > 0) {
+                    final int length = 1 << (weight - 1);
+                    final int from = rankStarts[weight];
+                    Arrays.fill(table.symbols, from, from + length, (byte) symbol);
+                    Arrays.fill(table.numBits, from, from + length, (byte) (maxBits + 1 - weight));
+                    rankStarts[weight] += length;
+                }
+            }
+            return table;
+        }
+
+        private static int readCompressedWeights(byte[] source, int start, int end, byte[] weights, BackwardBitReader reader)
+            throws IOException {
+            final short[] distribution = new short[MAX_HUFFMAN_BITS + 1];
+            final long header = FseTable.readDistribution(source, start, end, distribution, MAX_HUFFMAN_WEIGHTS_LOG);
+            final FseTable table = FseTable.build(distribution, distribution.length - 1, (int) header);
+            reader.init(source, start + (int) (header >>> 32), end - start - (int) (header >>> 32));
+            int state1 = (int) reader.readBits(table.log);
+            int state2 = (int) reader.readBits(table.log);
+            // the last weight is implied by the others
+            final int maxWeights = weights.length - 1;
+            int numWeights = 0;
+            while (true) {
+                if (numWeights > maxWeights - 2) {
+                    throw new IOException("too many zstd huffman weights");
+                }
+                weights[numWeights++] = table.symbols[state1];
+                state1 = table.nextState(state1, reader);
+                if (reader.reload() == BackwardBitReader.OVERFLOW) {
+                    weights[numWeights++] = table.symbols[state2];
+                    break;
+                }
+                weights[numWeights++] = table.symbols[state2];
+                state2 = table.nextState(state2, reader);
+                if (reader.reload() == BackwardBitReader.OVERFLOW) {
+                    weights[numWeights++] = table.symbols[state1];
+                    break;
+                }
+            }
+            return numWeights;
+        }
+    }
+}
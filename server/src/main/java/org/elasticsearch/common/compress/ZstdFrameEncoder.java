@@ -0,0 +1,1103 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.common.util.ByteUtils;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import static org.elasticsearch.common.compress.ZstdFormat.BLOCK_HEADER_SIZE;
+import static org.elasticsearch.common.compress.ZstdFormat.BLOCK_TYPE_COMPRESSED;
+import static org.elasticsearch.common.compress.ZstdFormat.BLOCK_TYPE_RAW;
+import static org.elasticsearch.common.compress.ZstdFormat.LITERALS_LENGTH_BASE;
+import static org.elasticsearch.common.compress.ZstdFormat.LITERALS_LENGTH_BITS;
+import static org.elasticsearch.common.compress.ZstdFormat.LITERALS_LENGTH_DEFAULT_DISTRIBUTION;
+import static org.elasticsearch.common.compress.ZstdFormat.LITERALS_LENGTH_DEFAULT_LOG;
+import static org.elasticsearch.common.compress.ZstdFormat.LITERALS_LENGTH_MAX_LOG;
+import static org.elasticsearch.common.compress.ZstdFormat.LITERALS_TYPE_COMPRESSED;
+import static org.elasticsearch.common.compress.ZstdFormat.LITERALS_TYPE_RAW;
+import static org.elasticsearch.common.compress.ZstdFormat.LITERALS_TYPE_RLE;
+import static org.elasticsearch.common.compress.ZstdFormat.MAGIC_NUMBER;
+import static org.elasticsearch.common.compress.ZstdFormat.MATCH_LENGTH_BASE;
+import static org.elasticsearch.common.compress.ZstdFormat.MATCH_LENGTH_BITS;
+import static org.elasticsearch.common.compress.ZstdFormat.MATCH_LENGTH_DEFAULT_DISTRIBUTION;
+import static org.elasticsearch.common.compress.ZstdFormat.MATCH_LENGTH_DEFAULT_LOG;
+import static org.elasticsearch.common.compress.ZstdFormat.MATCH_LENGTH_MAX_LOG;
+import static org.elasticsearch.common.compress.ZstdFormat.MAX_BLOCK_SIZE;
+import static org.elasticsearch.common.compress.ZstdFormat.MAX_HUFFMAN_BITS;
+import static org.elasticsearch.common.compress.ZstdFormat.MAX_HUFFMAN_WEIGHTS_LOG;
+import static org.elasticsearch.common.compress.ZstdFormat.MAX_LITERALS_LENGTH_CODE;
+import static org.elasticsearch.common.compress.ZstdFormat.MAX_MATCH_LENGTH_CODE;
+import static org.elasticsearch.common.compress.ZstdFormat.MAX_OFFSET_CODE;
+import static org.elasticsearch.common.compress.ZstdFormat.MIN_MATCH;
+import static org.elasticsearch.common.compress.ZstdFormat.MIN_WINDOW_LOG;
+import static org.elasticsearch.common.compress.ZstdFormat.OFFSET_DEFAULT_DISTRIBUTION;
+import static org.elasticsearch.common.compress.ZstdFormat.OFFSET_DEFAULT_LOG;
+import static org.elasticsearch.common.compress.ZstdFormat.OFFSET_MAX_LOG;
+import static org.elasticsearch.common.compress.ZstdFormat.SEQUENCE_MODE_COMPRESSED;
+import static org.elasticsearch.common.compress.ZstdFormat.SEQUENCE_MODE_PREDEFINED;
+import static org.elasticsearch.common.compress.ZstdFormat.SEQUENCE_MODE_RLE;
+import static org.elasticsearch.common.compress.ZstdFormat.highBit;
+
+/**
+ * Encodes a Zstandard frame, see <a href="https://www.rfc-editor.org/rfc/rfc8878">RFC 8878</a>, that any conforming decoder can read,
+ * including {@link ZstdFrameDecoder}. The encoder favours speed over ratio, similarly to the fastest levels of the reference
+ * implementation: it finds matches with a single hash table of the last occurrences of 4-byte sequences, compresses literals with
+ * Huffman codes and encodes sequences with the predefined distributions of the format.
+ *
+ * An encoder holds buffers for the window and the current block, so it is meant to be reused across frames, see {@link #reset}.
+ */
+final class ZstdFrameEncoder {
+
+    static final int WINDOW_LOG = 18;
+    static final int WINDOW_SIZE = 1 << WINDOW_LOG;
+
+    private static final int HASH_LOG = 15;
+    private static final int MIN_MATCH_LENGTH = 4;
+    private static final int SKIP_STRENGTH = 7;
+    private static final int MIN_LITERALS_TO_COMPRESS = 64;
+    private static final int MAX_LITERALS_FOR_SINGLE_STREAM = 256;
+
+    private static final int[] LITERALS_LENGTH_CODES = codes(LITERALS_LENGTH_BASE, 64);
+    private static final int[] MATCH_LENGTH_CODES = codes(MATCH_LENGTH_BASE, 128 + MIN_MATCH);
+    private static final FseEncodingTable DEFAULT_LITERALS_LENGTH_TABLE = FseEncodingTable.build(
+        LITERALS_LENGTH_DEFAULT_DISTRIBUTION,
+        LITERALS_LENGTH_DEFAULT_DISTRIBUTION.length - 1,
+        LITERALS_LENGTH_DEFAULT_LOG
+    );
+    private static final FseEncodingTable DEFAULT_MATCH_LENGTH_TABLE = FseEncodingTable.build(
+        MATCH_LENGTH_DEFAULT_DISTRIBUTION,
+        MATCH_LENGTH_DEFAULT_DISTRIBUTION.length - 1,
+        MATCH_LENGTH_DEFAULT_LOG
+    );
+    private static final FseEncodingTable DEFAULT_OFFSET_TABLE = FseEncodingTable.build(
+        OFFSET_DEFAULT_DISTRIBUTION,
+        OFFSET_DEFAULT_DISTRIBUTION.length - 1,
+        OFFSET_DEFAULT_LOG
+    );
+
+    // the history that matches may refer to, followed by the bytes of the current block
+    private byte[] window = new byte[0];
+    private int blockStart;
+    private int position;
+
+    // positions of the last occurrences of 4-byte sequences, offset by hashBase so that the table does not need to be cleared
+    private final int[] hashTable = new int[1 << HASH_LOG];
+    private int hashBase = 1;
+
+    private byte[] literals = new byte[0];
+    private int numLiterals;
+    private int[] sequenceLiteralsLengths = new int[0];
+    private int[] sequenceMatchLengths = new int[0];
+    private int[] sequenceOffsets = new int[0];
+    private int numSequences;
+    private byte[] literalsLengthCodes = new byte[0];
+    private byte[] matchLengthCodes = new byte[0];
+    private byte[] offsetCodes = new byte[0];
+    // the last offsets of the frame, which sequences may refer to with a shorter code as the reference implementation does
+    private final int[] repeatedOffsets = new int[3];
+    private final int[] previousRepeatedOffsets = new int[3];
+
+    private final SequenceTableSelector literalsLengthSelector = new SequenceTableSelector(
+        MAX_LITERALS_LENGTH_CODE,
+        LITERALS_LENGTH_MAX_LOG,
+        LITERALS_LENGTH_DEFAULT_DISTRIBUTION,
+        LITERALS_LENGTH_DEFAULT_LOG,
+        DEFAULT_LITERALS_LENGTH_TABLE
+    );
+    private final SequenceTableSelector matchLengthSelector = new SequenceTableSelector(
+        MAX_MATCH_LENGTH_CODE,
+        MATCH_LENGTH_MAX_LOG,
+        MATCH_LENGTH_DEFAULT_DISTRIBUTION,
+        MATCH_LENGTH_DEFAULT_LOG,
+        DEFAULT_MATCH_LENGTH_TABLE
+    );
+    private final SequenceTableSelector offsetSelector = new SequenceTableSelector(
+        MAX_OFFSET_CODE,
+        OFFSET_MAX_LOG,
+        OFFSET_DEFAULT_DISTRIBUTION,
+        OFFSET_DEFAULT_LOG,
+        DEFAULT_OFFSET_TABLE
+    );
+
+    private byte[] output = new byte[0];
+    private final BitWriter bitWriter = new BitWriter();
+    private final HuffmanEncoder huffmanEncoder = new HuffmanEncoder();
+
+    /**
+     * Starts a new frame, whose history is the given dictionary if any.
+     */
+    void reset(@Nullable byte[] dictionary) {
+        // the entries of the previous frame now point to negative positions
+        advanceHashBase(position + 1);
+        blockStart = position = 0;
+        repeatedOffsets[0] = 1;
+        repeatedOffsets[1] = 4;
+        repeatedOffsets[2] = 8;
+        if (dictionary != null) {
+            final int start = Math.max(0, dictionary.length - WINDOW_SIZE);
+            ensureCapacity(dictionary.length - start);
+            System.arraycopy(dictionary, start, window, 0, dictionary.length - start);
+            blockStart = position = dictionary.length - start;
+            for (int i = 0; i + MIN_MATCH_LENGTH <= position; i++) {
+                hashTable[hash(ByteUtils.readIntLE(window, i))] = i + hashBase;
+            }
+        }
+    }
+
+    /**
+     * Writes the header of a frame that refers to the dictionary with the given id, or to no dictionary if the id is {@code 0}.
+     */
+    static void writeFrameHeader(OutputStream out, int dictionaryId) throws IOException {
+        final byte[] header = new byte[Integer.BYTES + 2 + (dictionaryId == 0 ? 0 : Integer.BYTES)];
+        ByteUtils.writeIntLE(MAGIC_NUMBER, header, 0);
+        // neither the content size nor a checksum, but a window descriptor and maybe a 4-byte dictionary id
+        header[Integer.BYTES] = (byte) (dictionaryId == 0 ? 0 : 0x03);
+        header[Integer.BYTES + 1] = (byte) ((WINDOW_LOG - MIN_WINDOW_LOG) << 3);
+        if (dictionaryId != 0) {
+            ByteUtils.writeIntLE(dictionaryId, header, Integer.BYTES + 2);
+        }
+        out.write(header);
+    }
+
+    /**
+     * Adds the given bytes to the frame, writing a block to the output stream whenever a block is full.
+     */
+    void write(byte[] bytes, int offset, int length, OutputStream out) throws IOException {
+        while (length > 0) {
+            final int toCopy = Math.min(length, MAX_BLOCK_SIZE - (position - blockStart));
+            ensureCapacity(position + toCopy);
+            System.arraycopy(bytes, offset, window, position, toCopy);
+            position += toCopy;
+            offset += toCopy;
+            length -= toCopy;
+            if (position - blockStart == MAX_BLOCK_SIZE) {
+                writeBlock(false, out);
+            }
+        }
+    }
+
+    /**
+     * @return the number of bytes that were added to the frame but not written in a block yet
+     */
+    int pendingBytes() {
+        return position - blockStart;
+    }
+
+    /**
+     * Writes the bytes that were added since the previous block as a block, which may be empty if it is the last block.
+     */
+    void writeBlock(boolean lastBlock, OutputStream out) throws IOException {
+        final int blockSize = position - blockStart;
+        assert blockSize <= MAX_BLOCK_SIZE;
+        int compressedSize = blockSize;
+        if (blockSize > MIN_MATCH_LENGTH) {
+            System.arraycopy(repeatedOffsets, 0, previousRepeatedOffsets, 0, repeatedOffsets.length);
+            findSequences(blockStart, position);
+            output = ArrayUtil.grow(output, BLOCK_HEADER_SIZE + 2 * numLiterals + 512 + 12 * numSequences);
+            int outputPosition = encodeLiterals(BLOCK_HEADER_SIZE);
+            outputPosition = encodeSequences(outputPosition);
+            compressedSize = outputPosition - BLOCK_HEADER_SIZE;
+            if (compressedSize >= blockSize) {
+                // the sequences of raw blocks do not update the repeated offsets of the decoder
+                System.arraycopy(previousRepeatedOffsets, 0, repeatedOffsets, 0, repeatedOffsets.length);
+            }
+        }
+        if (compressedSize < blockSize) {
+            writeBlockHeader(output, lastBlock, BLOCK_TYPE_COMPRESSED, compressedSize);
+            out.write(output, 0, BLOCK_HEADER_SIZE + compressedSize);
+        } else {
+            final byte[] header = new byte[BLOCK_HEADER_SIZE];
+            writeBlockHeader(header, lastBlock, BLOCK_TYPE_RAW, blockSize);
+            out.write(header);
+            out.write(window, blockStart, blockSize);
+        }
+        blockStart = position;
+        if (position > WINDOW_SIZE) {
+            // only keep the window, so that the next block fits in the buffer
+            final int discarded = position - WINDOW_SIZE;
+            System.arraycopy(window, discarded, window, 0, WINDOW_SIZE);
+            blockStart = position = WINDOW_SIZE;
+            advanceHashBase(discarded);
+        }
+    }
+
+    private void advanceHashBase(int delta) {
+        if (hashBase > (1 << 30)) {
+            Arrays.fill(hashTable, 0);
+            hashBase = 1;
+        } else {
+            hashBase += delta;
+        }
+    }
+
+    private static void writeBlockHeader(byte[] bytes, boolean lastBlock, int blockType, int blockSize) {
+        final int header = (lastBlock ? 1 : 0) | blockType << 1 | blockSize << 3;
+        bytes[0] = (byte) header;
+        bytes[1] = (byte) (header >>> 8);
+        bytes[2] = (byte) (header >>> 16);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > window.length) {
+            window = Arrays.copyOf(window, Math.min(WINDOW_SIZE + MAX_BLOCK_SIZE, Math.max(capacity, window.length * 2)));
+        }
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * 0x9E3779B1) >>> (Integer.SIZE - HASH_LOG);
+    }
+
+    /**
+     * Splits the block into sequences of literals followed by a match with the history, and the literals that follow the last match.
+     */
+    private void findSequences(int start, int end) {
+        final byte[] window = this.window;
+        final int[] hashTable = this.hashTable;
+        final int hashBase = this.hashBase;
+        numLiterals = 0;
+        numSequences = 0;
+        literals = ArrayUtil.grow(literals, end - start);
+        int anchor = start;
+        int current = start;
+        int repeatedOffset = repeatedOffsets[0];
+        final int matchLimit = end - MIN_MATCH_LENGTH;
+        while (current <= matchLimit) {
+            // structured data often repeats the last offset, so check whether the next position does before looking for a new match
+            final int next = current + 1;
+            if (next <= matchLimit
+                && next >= repeatedOffset
+                && ByteUtils.readIntLE(window, next - repeatedOffset) == ByteUtils.readIntLE(window, next)) {
+                hashTable[hash(ByteUtils.readIntLE(window, current))] = current + hashBase;
+                final int matchEnd = next + MIN_MATCH_LENGTH + commonLength(
+                    window,
+                    next - repeatedOffset + MIN_MATCH_LENGTH,
+                    next + MIN_MATCH_LENGTH,
+                    end
+                );
+                addSequence(anchor, next, repeatedOffset, matchEnd - next);
+                current = anchor = matchEnd;
+                continue;
+            }
+            final int sequence = ByteUtils.readIntLE(window, current);
+            final int hash = hash(sequence);
+            final int candidate = hashTable[hash] - hashBase;
+            hashTable[hash] = current + hashBase;
+            if (candidate < 0 || current - candidate > WINDOW_SIZE || ByteUtils.readIntLE(window, candidate) != sequence) {
+                current += 1 + ((current - anchor) >>> SKIP_STRENGTH);
+                continue;
+            }
+            int matchStart = current;
+            int reference = candidate;
+            while (matchStart > anchor && reference > 0 && window[matchStart - 1] == window[reference - 1]) {
+                matchStart--;
+                reference--;
+            }
+            final int matchEnd = current + MIN_MATCH_LENGTH + commonLength(
+                window,
+                candidate + MIN_MATCH_LENGTH,
+                current + MIN_MATCH_LENGTH,
+                end
+            );
+            repeatedOffset = matchStart - reference;
+            addSequence(anchor, matchStart, repeatedOffset, matchEnd - matchStart);
+            if (matchStart + 2 <= matchLimit) {
+                hashTable[hash(ByteUtils.readIntLE(window, matchStart + 2))] = matchStart + 2 + hashBase;
+            }
+            current = anchor = matchEnd;
+            if (current <= matchLimit) {
+                hashTable[hash(ByteUtils.readIntLE(window, current - 2))] = current - 2 + hashBase;
+            }
+        }
+        System.arraycopy(window, anchor, literals, numLiterals, end - anchor);
+        numLiterals += end - anchor;
+    }
+
+    private static int commonLength(byte[] bytes, int reference, int current, int end) {
+        final int start = current;
+        while (current + Long.BYTES <= end) {
+            final long diff = ByteUtils.readLongLE(bytes, reference) ^ ByteUtils.readLongLE(bytes, current);
+            if (diff != 0) {
+                return current - start + (Long.numberOfTrailingZeros(diff) >>> 3);
+            }
+            current += Long.BYTES;
+            reference += Long.BYTES;
+        }
+        while (current < end && bytes[reference] == bytes[current]) {
+            current++;
+            reference++;
+        }
+        return current - start;
+    }
+
+    private void addSequence(int literalsStart, int literalsEnd, int offset, int matchLength) {
+        final int literalsLength = literalsEnd - literalsStart;
+        System.arraycopy(window, literalsStart, literals, numLiterals, literalsLength);
+        numLiterals += literalsLength;
+        if (numSequences == sequenceOffsets.length) {
+            final int newLength = ArrayUtil.oversize(numSequences + 1, Integer.BYTES);
+            sequenceLiteralsLengths = Arrays.copyOf(sequenceLiteralsLengths, newLength);
+            sequenceMatchLengths = Arrays.copyOf(sequenceMatchLengths, newLength);
+            sequenceOffsets = Arrays.copyOf(sequenceOffsets, newLength);
+        }
+        sequenceLiteralsLengths[numSequences] = literalsLength;
+        sequenceMatchLengths[numSequences] = matchLength;
+        sequenceOffsets[numSequences] = offset;
+        numSequences++;
+    }
+
+    private int encodeLiterals(int start) {
+        final int n = numLiterals;
+        if (n >= MIN_LITERALS_TO_COMPRESS) {
+            final HuffmanEncoder huffman = huffmanEncoder;
+            final int maxSymbol = huffman.count(literals, n);
+            if (huffman.distinctSymbols == 1) {
+                final int headerSize = writeRawLiteralsHeader(output, start, LITERALS_TYPE_RLE, n);
+                output[start + headerSize] = literals[0];
+                return start + headerSize + 1;
+            }
+            huffman.buildCodes(maxSymbol);
+            // leave room for the largest header, the literals are moved next to the actual header once its size is known
+            final int maxHeaderSize = 5;
+            int position = start + maxHeaderSize;
+            final int descriptionSize = huffman.writeDescription(output, position, bitWriter);
+            if (descriptionSize > 0) {
+                position += descriptionSize;
+                final boolean singleStream = n < MAX_LITERALS_FOR_SINGLE_STREAM;
+                if (singleStream) {
+                    position = huffman.encode(literals, 0, n, output, position, bitWriter);
+                } else {
+                    final int segmentSize = (n + 3) / 4;
+                    final int jumpTable = position;
+                    position += 6;
+                    for (int stream = 0; stream < 4; stream++) {
+                        final int streamStart = position;
+                        final int from = stream * segmentSize;
+                        final int to = Math.min(n, from + segmentSize);
+                        position = huffman.encode(literals, from, to, output, position, bitWriter);
+                        if (stream < 3) {
+                            output[jumpTable + 2 * stream] = (byte) (position - streamStart);
+                            output[jumpTable + 2 * stream + 1] = (byte) ((position - streamStart) >>> 8);
+                        }
+                    }
+                }
+                final int compressedSize = position - start - maxHeaderSize;
+                final int sizeFormat;
+                final int headerSize;
+                if (singleStream) {
+                    sizeFormat = 0;
+                    headerSize = 3;
+                } else if (n < 1024 && compressedSize < 1024) {
+                    sizeFormat = 1;
+                    headerSize = 3;
+                } else if (n < 16384 && compressedSize < 16384) {
+                    sizeFormat = 2;
+                    headerSize = 4;
+                } else {
+                    sizeFormat = 3;
+                    headerSize = 5;
+                }
+                if (headerSize + compressedSize < n) {
+                    final int sizeBits = headerSize == 3 ? 10 : headerSize == 4 ? 14 : 18;
+                    final long header = LITERALS_TYPE_COMPRESSED | sizeFormat << 2 | (long) n << 4
+                        | (long) compressedSize << (4 + sizeBits);
+                    for (int i = 0; i < headerSize; i++) {
+                        output[start + i] = (byte) (header >>> (8 * i));
+                    }
+                    System.arraycopy(output, start + maxHeaderSize, output, start + headerSize, compressedSize);
+                    return start + headerSize + compressedSize;
+                }
+            }
+        }
+        final int headerSize = writeRawLiteralsHeader(output, start, LITERALS_TYPE_RAW, n);
+        System.arraycopy(literals, 0, output, start + headerSize, n);
+        return start + headerSize + n;
+    }
+
+    private static int writeRawLiteralsHeader(byte[] bytes, int start, int literalsType, int n) {
+        if (n < 32) {
+            bytes[start] = (byte) (literalsType | n << 3);
+            return 1;
+        } else if (n < 4096) {
+            final int header = literalsType | 1 << 2 | n << 4;
+            bytes[start] = (byte) header;
+            bytes[start + 1] = (byte) (header >>> 8);
+            return 2;
+        } else {
+            final int header = literalsType | 3 << 2 | n << 4;
+            bytes[start] = (byte) header;
+            bytes[start + 1] = (byte) (header >>> 8);
+            bytes[start + 2] = (byte) (header >>> 16);
+            return 3;
+        }
+    }
+
+    private int encodeSequences(int start) {
+        final byte[] output = this.output;
+        final int n = numSequences;
+        int position = start;
+        if (n < 128) {
+            output[position++] = (byte) n;
+        } else if (n < 0x7F00) {
+            output[position++] = (byte) ((n >>> 8) + 128);
+            output[position++] = (byte) n;
+        } else {
+            output[position++] = (byte) 255;
+            output[position++] = (byte) (n - 0x7F00);
+            output[position++] = (byte) ((n - 0x7F00) >>> 8);
+        }
+        if (n == 0) {
+            return position;
+        }
+        literalsLengthCodes = ArrayUtil.grow(literalsLengthCodes, n);
+        matchLengthCodes = ArrayUtil.grow(matchLengthCodes, n);
+        offsetCodes = ArrayUtil.grow(offsetCodes, n);
+        final int[] literalsLengths = sequenceLiteralsLengths;
+        final int[] matchLengths = sequenceMatchLengths;
+        final int[] offsetValues = sequenceOffsets;
+        for (int i = 0; i < n; i++) {
+            offsetValues[i] = offsetValue(sequenceOffsets[i], literalsLengths[i] == 0);
+            literalsLengthCodes[i] = (byte) literalsLengthCode(literalsLengths[i]);
+            matchLengthCodes[i] = (byte) matchLengthCode(matchLengths[i]);
+            offsetCodes[i] = (byte) highBit(offsetValues[i]);
+        }
+        final int modesPosition = position++;
+        position = literalsLengthSelector.select(literalsLengthCodes, n, output, position);
+        position = offsetSelector.select(offsetCodes, n, output, position);
+        position = matchLengthSelector.select(matchLengthCodes, n, output, position);
+        output[modesPosition] = (byte) (literalsLengthSelector.mode << 6 | offsetSelector.mode << 4 | matchLengthSelector.mode << 2);
+
+        final BitWriter writer = bitWriter;
+        writer.reset(output, position);
+        final FseEncodingTable literalsLengthTable = literalsLengthSelector.table;
+        final FseEncodingTable matchLengthTable = matchLengthSelector.table;
+        final FseEncodingTable offsetTable = offsetSelector.table;
+
+        // the sequences are encoded backwards, so that the decoder reads them in order
+        int literalsLengthCode = literalsLengthCodes[n - 1];
+        int matchLengthCode = matchLengthCodes[n - 1];
+        int offsetCode = offsetCodes[n - 1];
+        int matchLengthState = matchLengthTable.initialState(matchLengthCode);
+        int offsetState = offsetTable.initialState(offsetCode);
+        int literalsLengthState = literalsLengthTable.initialState(literalsLengthCode);
+        writer.addBits(literalsLengths[n - 1] - LITERALS_LENGTH_BASE[literalsLengthCode], LITERALS_LENGTH_BITS[literalsLengthCode]);
+        writer.addBits(matchLengths[n - 1] - MATCH_LENGTH_BASE[matchLengthCode], MATCH_LENGTH_BITS[matchLengthCode]);
+        writer.addBits(offsetValues[n - 1] - (1 << offsetCode), offsetCode);
+        for (int i = n - 2; i >= 0; i--) {
+            literalsLengthCode = literalsLengthCodes[i];
+            matchLengthCode = matchLengthCodes[i];
+            offsetCode = offsetCodes[i];
+            offsetState = offsetTable.encode(offsetState, offsetCode, writer);
+            matchLengthState = matchLengthTable.encode(matchLengthState, matchLengthCode, writer);
+            literalsLengthState = literalsLengthTable.encode(literalsLengthState, literalsLengthCode, writer);
+            writer.addBits(literalsLengths[i] - LITERALS_LENGTH_BASE[literalsLengthCode], LITERALS_LENGTH_BITS[literalsLengthCode]);
+            writer.addBits(matchLengths[i] - MATCH_LENGTH_BASE[matchLengthCode], MATCH_LENGTH_BITS[matchLengthCode]);
+            writer.addBits(offsetValues[i] - (1 << offsetCode), offsetCode);
+        }
+        writer.addBits(matchLengthState, matchLengthTable.log);
+        writer.addBits(offsetState, offsetTable.log);
+        writer.addBits(literalsLengthState, literalsLengthTable.log);
+        return writer.close();
+    }
+
+    /**
+     * Converts the offset of a sequence to the value that is encoded, which refers to one of the repeated offsets if possible, and
+     * updates the repeated offsets the same way as the decoder does.
+     */
+    private int offsetValue(int offset, boolean noLiterals) {
+        final int[] repeated = repeatedOffsets;
+        if (offset == repeated[0] && noLiterals == false) {
+            return 1;
+        }
+        final int index;
+        if (offset == repeated[1]) {
+            index = 1;
+        } else if (offset == repeated[2]) {
+            index = 2;
+        } else if (noLiterals && offset == repeated[0] - 1) {
+            index = 3;
+        } else {
+            repeated[2] = repeated[1];
+            repeated[1] = repeated[0];
+            repeated[0] = offset;
+            return offset + 3;
+        }
+        if (index != 1) {
+            repeated[2] = repeated[1];
+        }
+        repeated[1] = repeated[0];
+        repeated[0] = offset;
+        return noLiterals ? index : index + 1;
+    }
+
+    private static int[] codes(int[] baselines, int size) {
+        final int[] codes = new int[size];
+        int code = 0;
+        for (int length = baselines[0]; length < size; length++) {
+            while (code + 1 < baselines.length && baselines[code + 1] <= length) {
+                code++;
+            }
+            codes[length] = code;
+        }
+        return codes;
+    }
+
+    private static int literalsLengthCode(int literalsLength) {
+        return literalsLength < LITERALS_LENGTH_CODES.length ? LITERALS_LENGTH_CODES[literalsLength] : highBit(literalsLength) + 19;
+    }
+
+    private static int matchLengthCode(int matchLength) {
+        return matchLength < MATCH_LENGTH_CODES.length ? MATCH_LENGTH_CODES[matchLength] : highBit(matchLength - MIN_MATCH) + 36;
+    }
+
+    /**
+     * Writes bits from the lowest to the highest, so that a {@link ZstdFrameDecoder.BackwardBitReader} reads the last bits written first.
+     */
+    static final class BitWriter {
+        private byte[] bytes;
+        private int position;
+        private long container;
+        private int bitCount;
+
+        void reset(byte[] bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+            this.container = 0;
+            this.bitCount = 0;
+        }
+
+        void addBits(long value, int numBits) {
+            assert numBits <= 32 : numBits;
+            if (bitCount + numBits > Long.SIZE) {
+                flush();
+            }
+            container |= (value & ((1L << numBits) - 1)) << bitCount;
+            bitCount += numBits;
+        }
+
+        private void flush() {
+            while (bitCount >= Byte.SIZE) {
+                bytes[position++] = (byte) container;
+                container >>>= Byte.SIZE;
+                bitCount -= Byte.SIZE;
+            }
+        }
+
+        /**
+         * Adds the mark of the end of the stream and writes the remaining bits.
+         *
+         * @return the position after the stream
+         */
+        int close() {
+            addBits(1, 1);
+            flush();
+            if (bitCount > 0) {
+                bytes[position++] = (byte) container;
+            }
+            return position;
+        }
+    }
+
+    /**
+     * A finite state entropy encoding table, as the reference implementation's {@code FSE_CTable}.
+     */
+    static final class FseEncodingTable {
+        final int log;
+        private final int[] stateTable;
+        private final int[] deltaNumBits;
+        private final int[] deltaFindState;
+
+        private FseEncodingTable(int log, int maxSymbol) {
+            this.log = log;
+            this.stateTable = new int[1 << log];
+            this.deltaNumBits = new int[maxSymbol + 1];
+            this.deltaFindState = new int[maxSymbol + 1];
+        }
+
+        static FseEncodingTable build(short[] distribution, int maxSymbol, int log) {
+            final FseEncodingTable table = new FseEncodingTable(log, maxSymbol);
+            final int size = 1 << log;
+            final int[] symbols = new int[size];
+            final int[] cumulative = new int[maxSymbol + 2];
+            int highThreshold = size - 1;
+            for (int symbol = 0; symbol <= maxSymbol; symbol++) {
+                if (distribution[symbol] == -1) {
+                    cumulative[symbol + 1] = cumulative[symbol] + 1;
+                    symbols[highThreshold--] = symbol;
+                } else {
+                    cumulative[symbol + 1] = cumulative[symbol] + distribution[symbol];
+                }
+            }
+            final int mask = size - 1;
+            final int step = (size >>> 1) + (size >>> 3) + 3;
+            int position = 0;
+            for (int symbol = 0; symbol <= maxSymbol; symbol++) {
+                for (int i = 0; i < distribution[symbol]; i++) {
+                    symbols[position] = symbol;
+                    do {
+                        position = (position + step) & mask;
+                    } while (position > highThreshold);
+                }
+            }
+            assert position == 0 : "symbols were not spread over the whole table";
+            for (int state = 0; state < size; state++) {
+                table.stateTable[cumulative[symbols[state]]++] = size + state;
+            }
+            int total = 0;
+            for (int symbol = 0; symbol <= maxSymbol; symbol++) {
+                final int probability = distribution[symbol];
+                if (probability == 0) {
+                    table.deltaNumBits[symbol] = ((log + 1) << 16) - size;
+                } else if (probability == -1 || probability == 1) {
+                    table.deltaNumBits[symbol] = (log << 16) - size;
+                    table.deltaFindState[symbol] = total - 1;
+                    total++;
+                } else {
+                    final int maxBitsOut = log - highBit(probability - 1);
+                    final int minStatePlus = probability << maxBitsOut;
+                    table.deltaNumBits[symbol] = (maxBitsOut << 16) - minStatePlus;
+                    table.deltaFindState[symbol] = total - probability;
+                    total += probability;
+                }
+            }
+            return table;
+        }
+
+        /**
+         * @return a table that only encodes the given symbol, without any bits
+         */
+        static FseEncodingTable rle(int symbol) {
+            final FseEncodingTable table = new FseEncodingTable(0, symbol);
+            table.stateTable[0] = 1;
+            table.deltaNumBits[symbol] = -1;
+            table.deltaFindState[symbol] = -1;
+            return table;
+        }
+
+        /**
+         * Scales the given counts so that they sum up to {@code 1 << log}, keeping every symbol that occurs.
+         */
+        static short[] normalize(int[] counts, int maxSymbol, int total, int log) {
+            final short[] distribution = new short[maxSymbol + 1];
+            int sum = 0;
+            int largest = 0;
+            for (int symbol = 0; symbol <= maxSymbol; symbol++) {
+                if (counts[symbol] > 0) {
+                    distribution[symbol] = (short) Math.max(1, ((long) counts[symbol] << log) / total);
+                    sum += distribution[symbol];
+                    if (counts[symbol] > counts[largest]) {
+                        largest = symbol;
+                    }
+                }
+            }
+            distribution[largest] += (short) ((1 << log) - sum);
+            while (distribution[largest] < 1) {
+                // the symbols that were rounded up to 1 took too much, take it back from the most probable symbols
+                int donor = -1;
+                for (int symbol = 0; symbol <= maxSymbol; symbol++) {
+                    if (symbol != largest && distribution[symbol] > 1 && (donor == -1 || distribution[symbol] > distribution[donor])) {
+                        donor = symbol;
+                    }
+                }
+                distribution[donor]--;
+                distribution[largest]++;
+            }
+            return distribution;
+        }
+
+        /**
+         * Writes the compact representation of the given distribution, which {@link ZstdFrameDecoder.FseTable#readDistribution} reads.
+         *
+         * @return the position after the distribution
+         */
+        static int writeDistribution(short[] distribution, int maxSymbol, int log, byte[] output, int start) {
+            int position = start;
+            long bits = log - 5;
+            int bitCount = 4;
+            int remaining = (1 << log) + 1;
+            int threshold = 1 << log;
+            int numBits = log + 1;
+            int symbol = 0;
+            boolean previousIsZero = false;
+            while (symbol <= maxSymbol && remaining > 1) {
+                if (previousIsZero) {
+                    int zeros = symbol;
+                    while (symbol <= maxSymbol && distribution[symbol] == 0) {
+                        symbol++;
+                    }
+                    zeros = symbol - zeros;
+                    while (zeros >= 3) {
+                        bits |= 3L << bitCount;
+                        bitCount += 2;
+                        zeros -= 3;
+                    }
+                    bits |= (long) zeros << bitCount;
+                    bitCount += 2;
+                }
+                int count = distribution[symbol++];
+                final int max = (2 * threshold - 1) - remaining;
+                remaining -= Math.abs(count);
+                count++;
+                if (count >= threshold) {
+                    count += max;
+                }
+                bits |= (long) count << bitCount;
+                bitCount += numBits;
+                if (count < max) {
+                    bitCount--;
+                }
+                previousIsZero = count == 1;
+                while (remaining < threshold) {
+                    numBits--;
+                    threshold >>>= 1;
+                }
+                while (bitCount >= Byte.SIZE) {
+                    output[position++] = (byte) bits;
+                    bits >>>= Byte.SIZE;
+                    bitCount -= Byte.SIZE;
+                }
+            }
+            assert remaining == 1 : remaining;
+            if (bitCount > 0) {
+                output[position++] = (byte) bits;
+            }
+            return position;
+        }
+
+        /**
+         * @return the state that the encoding of the given symbol, which is the last one to decode, starts with
+         */
+        int initialState(int symbol) {
+            final int numBits = (deltaNumBits[symbol] + (1 << 15)) >>> 16;
+            final int value = (numBits << 16) - deltaNumBits[symbol];
+            return stateTable[(value >>> numBits) + deltaFindState[symbol]];
+        }
+
+        /**
+         * Writes the bits of the given state that the decoder needs to find it back after decoding the given symbol.
+         *
+         * @return the state that encodes the given symbol
+         */
+        int encode(int state, int symbol, BitWriter writer) {
+            final int numBits = (state + deltaNumBits[symbol]) >>> 16;
+            writer.addBits(state, numBits);
+            return stateTable[(state >>> numBits) + deltaFindState[symbol]];
+        }
+    }
+
+    /**
+     * Chooses how to encode the codes of one of the fields of the sequences of a block: with the predefined distribution, a single
+     * repeated code, or a distribution that is written in the block and that fits the codes better.
+     */
+    private static final class SequenceTableSelector {
+        private final int maxLog;
+        private final short[] defaultDistribution;
+        private final int defaultLog;
+        private final FseEncodingTable defaultTable;
+        private final int[] counts;
+
+        int mode;
+        FseEncodingTable table;
+
+        SequenceTableSelector(int maxSymbol, int maxLog, short[] defaultDistribution, int defaultLog, FseEncodingTable defaultTable) {
+            this.maxLog = maxLog;
+            this.defaultDistribution = defaultDistribution;
+            this.defaultLog = defaultLog;
+            this.defaultTable = defaultTable;
+            this.counts = new int[maxSymbol + 1];
+        }
+
+        /**
+         * Selects the table of the given codes and writes its description if needed.
+         *
+         * @return the position after the description
+         */
+        int select(byte[] codes, int n, byte[] output, int position) {
+            final int[] counts = this.counts;
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < n; i++) {
+                counts[codes[i]]++;
+            }
+            int maxSymbol = 0;
+            int distinctSymbols = 0;
+            for (int symbol = 0; symbol < counts.length; symbol++) {
+                if (counts[symbol] > 0) {
+                    maxSymbol = symbol;
+                    distinctSymbols++;
+                }
+            }
+            if (distinctSymbols == 1) {
+                mode = SEQUENCE_MODE_RLE;
+                table = FseEncodingTable.rle(maxSymbol);
+                output[position] = (byte) maxSymbol;
+                return position + 1;
+            }
+            final int log = optimalLog(n, maxSymbol);
+            final short[] distribution = FseEncodingTable.normalize(counts, maxSymbol, n, log);
+            final int end = FseEncodingTable.writeDistribution(distribution, maxSymbol, log, output, position);
+            if (cost(distribution, maxSymbol, log) + Byte.SIZE * (end - position) < cost(defaultDistribution, maxSymbol, defaultLog)) {
+                mode = SEQUENCE_MODE_COMPRESSED;
+                table = FseEncodingTable.build(distribution, maxSymbol, log);
+                return end;
+            }
+            mode = SEQUENCE_MODE_PREDEFINED;
+            table = defaultTable;
+            return position;
+        }
+
+        /**
+         * @return the size of a table that is large enough to represent the frequencies of the codes, as the reference implementation
+         * computes it
+         */
+        private int optimalLog(int n, int maxSymbol) {
+            final int minLog = Math.min(highBit(n) + 1, highBit(maxSymbol) + 2);
+            return Math.max(5, Math.min(maxLog, Math.max(minLog, highBit(n - 1) - 2)));
+        }
+
+        /**
+         * @return an estimation of the number of bits that the counted codes take with the given distribution
+         */
+        private double cost(short[] distribution, int maxSymbol, int log) {
+            double bits = 0;
+            for (int symbol = 0; symbol <= maxSymbol; symbol++) {
+                if (counts[symbol] > 0) {
+                    if (symbol >= distribution.length || distribution[symbol] == 0) {
+                        return Double.POSITIVE_INFINITY;
+                    }
+                    // a probability of -1 stands for "less than 1"
+                    final int probability = Math.max(1, distribution[symbol]);
+                    bits += counts[symbol] * (log - Math.log(probability) / Math.log(2));
+                }
+            }
+            return bits;
+        }
+    }
+
+    /**
+     * Builds length-limited Huffman codes for literals and writes their description and the encoded literals.
+     */
+    static final class HuffmanEncoder {
+        private final int[] counts = new int[256];
+        private final int[] codes = new int[256];
+        private final byte[] lengths = new byte[256];
+        private final long[] nodes = new long[512];
+        private final int[] parents = new int[512];
+        private int maxSymbol;
+        private int maxBits;
+        int distinctSymbols;
+
+        /**
+         * @return the largest symbol of the given bytes
+         */
+        int count(byte[] bytes, int length) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < length; i++) {
+                counts[bytes[i] & 0xFF]++;
+            }
+            int max = 0;
+            int distinct = 0;
+            for (int symbol = 0; symbol < counts.length; symbol++) {
+                if (counts[symbol] > 0) {
+                    max = symbol;
+                    distinct++;
+                }
+            }
+            distinctSymbols = distinct;
+            return max;
+        }
+
+        /**
+         * Builds the codes of the counted symbols, of at most {@link ZstdFormat#MAX_HUFFMAN_BITS} bits, and assigns them in the
+         * canonical order of the format: by decreasing length, then by symbol.
+         */
+        void buildCodes(int maxSymbol) {
+            assert distinctSymbols > 1;
+            this.maxSymbol = maxSymbol;
+            final int[] frequencies = Arrays.copyOf(counts, maxSymbol + 1);
+            while (buildLengths(frequencies) > MAX_HUFFMAN_BITS) {
+                // flatten the distribution until the codes are short enough
+                for (int symbol = 0; symbol <= maxSymbol; symbol++) {
+                    if (frequencies[symbol] > 0) {
+                        frequencies[symbol] = (frequencies[symbol] + 1) >>> 1;
+                    }
+                }
+            }
+            maxBits = 0;
+            for (int symbol = 0; symbol <= maxSymbol; symbol++) {
+                maxBits = Math.max(maxBits, lengths[symbol]);
+            }
+            final int[] rankStarts = new int[maxBits + 2];
+            for (int symbol = 0; symbol <= maxSymbol; symbol++) {
+                if (lengths[symbol] > 0) {
+                    final int weight = maxBits + 1 - lengths[symbol];
+                    rankStarts[weight + 1] += 1 << (weight - 1);
+                }
+            }
+            for (int weight = 2; weight <= maxBits + 1; weight++) {
+                rankStarts[weight] += rankStarts[weight - 1];
+            }
+            for (int symbol = 0; symbol <= maxSymbol; symbol++) {
+                if (lengths[symbol] > 0) {
+                    final int weight = maxBits + 1 - lengths[symbol];
+                    codes[symbol] = rankStarts[weight] >>> (weight - 1);
+                    rankStarts[weight] += 1 << (weight - 1);
+                }
+            }
+        }
+
+        /**
+         * Computes the lengths of the Huffman codes of the given frequencies, by merging the two lightest nodes until one is left.
+         *
+         * @return the length of the longest code
+         */
+        private int buildLengths(int[] frequencies) {
+            // leaves sorted by frequency, packed with their symbol
+            int numLeaves = 0;
+            for (int symbol = 0; symbol < frequencies.length; symbol++) {
+                if (frequencies[symbol] > 0) {
+                    nodes[numLeaves++] = (long) frequencies[symbol] << 8 | symbol;
+                }
+            }
+            Arrays.sort(nodes, 0, numLeaves);
+            final long[] weights = new long[2 * numLeaves - 1];
+            for (int i = 0; i < numLeaves; i++) {
+                weights[i] = nodes[i] >>> 8;
+            }
+            // the internal nodes are created by increasing weight, so the two lightest nodes are at the head of either queue
+            int nextLeaf = 0;
+            int nextInternal = numLeaves;
+            int numNodes = numLeaves;
+            while (numNodes < 2 * numLeaves - 1) {
+                final int first;
+                if (nextLeaf < numLeaves && (nextInternal >= numNodes || weights[nextLeaf] <= weights[nextInternal])) {
+                    first = nextLeaf++;
+                } else {
+                    first = nextInternal++;
+                }
+                final int second;
+                if (nextLeaf < numLeaves && (nextInternal >= numNodes || weights[nextLeaf] <= weights[nextInternal])) {
+                    second = nextLeaf++;
+                } else {
+                    second = nextInternal++;
+                }
+                weights[numNodes] = weights[first] + weights[second];
+                parents[first] = numNodes;
+                parents[second] = numNodes;
+                numNodes++;
+            }
+            final int root = numNodes - 1;
+            final int[] depths = new int[numNodes];
+            int maxLength = 0;
+            for (int node = root - 1; node >= 0; node--) {
+                depths[node] = depths[parents[node]] + 1;
+            }
+            Arrays.fill(lengths, (byte) 0);
+            for (int i = 0; i < numLeaves; i++) {
+                final int length = depths[i];
+                lengths[(int) (nodes[i] & 0xFF)] = (byte) Math.min(length, Byte.MAX_VALUE);
+                maxLength = Math.max(maxLength, length);
+            }
+            return maxLength;
+        }
+
+        /**
+         * Writes the weights of the codes, compressed with finite state entropy if possible, otherwise directly.
+         *
+         * @return the number of bytes written, or {@code 0} if the weights cannot be described
+         */
+        int writeDescription(byte[] output, int start, BitWriter writer) {
+            // the weight of the largest symbol is implied by the others
+            final int numWeights = maxSymbol;
+            final byte[] weights = new byte[numWeights];
+            for (int symbol = 0; symbol < numWeights; symbol++) {
+                weights[symbol] = (byte) (lengths[symbol] == 0 ? 0 : maxBits + 1 - lengths[symbol]);
+            }
+            final int compressedSize = writeCompressedWeights(weights, output, start + 1, writer);
+            final int directSize = numWeights <= 128 ? (numWeights + 1) / 2 : Integer.MAX_VALUE;
+            if (compressedSize > 0 && compressedSize < Math.min(128, directSize)) {
+                output[start] = (byte) compressedSize;
+                return 1 + compressedSize;
+            }
+            if (directSize == Integer.MAX_VALUE) {
+                return 0;
+            }
+            output[start] = (byte) (127 + numWeights);
+            for (int i = 0; i < numWeights; i += 2) {
+                final int low = i + 1 < numWeights ? weights[i + 1] : 0;
+                output[start + 1 + i / 2] = (byte) (weights[i] << 4 | low);
+            }
+            return 1 + directSize;
+        }
+
+        /**
+         * @return the number of bytes written, or {@code 0} if the weights are not worth compressing
+         */
+        private static int writeCompressedWeights(byte[] weights, byte[] output, int start, BitWriter writer) {
+            final int numWeights = weights.length;
+            if (numWeights < 2) {
+                return 0;
+            }
+            final int[] counts = new int[MAX_HUFFMAN_BITS + 1];
+            int maxWeight = 0;
+            int maxCount = 0;
+            for (byte weight : weights) {
+                counts[weight]++;
+                maxWeight = Math.max(maxWeight, weight);
+                maxCount = Math.max(maxCount, counts[weight]);
+            }
+            if (maxCount == 1 || maxCount == numWeights) {
+                return 0;
+            }
+            final int log = MAX_HUFFMAN_WEIGHTS_LOG;
+            final short[] distribution = FseEncodingTable.normalize(counts, maxWeight, numWeights, log);
+            int position = FseEncodingTable.writeDistribution(distribution, maxWeight, log, output, start);
+            final FseEncodingTable table = FseEncodingTable.build(distribution, maxWeight, log);
+
+            // two interleaved states, encoded backwards as the reference implementation does
+            writer.reset(output, position);
+            int index = numWeights;
+            int state1;
+            int state2;
+            if ((numWeights & 1) != 0) {
+                state1 = table.initialState(weights[--index]);
+                state2 = table.initialState(weights[--index]);
+                state1 = table.encode(state1, weights[--index], writer);
+            } else {
+                state2 = table.initialState(weights[--index]);
+                state1 = table.initialState(weights[--index]);
+            }
+            while (index > 0) {
+                state2 = table.encode(state2, weights[--index], writer);
+                state1 = table.encode(state1, weights[--index], writer);
+            }
+            writer.addBits(state2, log);
+            writer.addBits(state1, log);
+            position = writer.close();
+            return position - start;
+        }
+
+        /**
+         * Encodes the given literals as a single stream, backwards so that the decoder reads them in order.
+         *
+         * @return the position after the stream
+         */
+        int encode(byte[] literals, int from, int to, byte[] output, int start, BitWriter writer) {
+            writer.reset(output, start);
+            for (int i = to - 1; i >= from; i--) {
+                final int symbol = literals[i] & 0xFF;
+                writer.addBits(codes[symbol], lengths[symbol]);
+            }
+            return writer.close();
+        }
+    }
+}
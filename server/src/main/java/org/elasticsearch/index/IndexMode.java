@@ -54,6 +54,7 @@ public enum IndexMode {
             settingRequiresTimeSeries(settings, IndexMetadata.INDEX_ROUTING_PATH);
             settingRequiresTimeSeries(settings, IndexSettings.TIME_SERIES_START_TIME);
             settingRequiresTimeSeries(settings, IndexSettings.TIME_SERIES_END_TIME);
+            settingRequiresTimeSeries(settings, IndexSettings.TIME_SERIES_ROLLUP_INTERVAL);
         }
 
         private static void settingRequiresTimeSeries(Map<Setting<?>, Object> settings, Setting<?> setting) {
@@ -236,7 +237,8 @@ public enum IndexMode {
                 IndexMetadata.INDEX_ROUTING_PARTITION_SIZE_SETTING,
                 IndexMetadata.INDEX_ROUTING_PATH,
                 IndexSettings.TIME_SERIES_START_TIME,
-                IndexSettings.TIME_SERIES_END_TIME
+                IndexSettings.TIME_SERIES_END_TIME,
+                IndexSettings.TIME_SERIES_ROLLUP_INTERVAL
             ),
             TIME_SERIES_UNSUPPORTED.stream()
         ).collect(toSet())
@@ -66,8 +66,10 @@ import org.elasticsearch.index.shard.ShardNotFoundException;
 import org.elasticsearch.index.shard.ShardNotInPrimaryModeException;
 import org.elasticsearch.index.shard.ShardPath;
 import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.index.store.LazyRestoreDirectory;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.index.translog.TranslogSyncScheduler;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.indices.cluster.IndicesClusterStateService;
 import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
@@ -148,6 +150,8 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
     private final ValuesSourceRegistry valuesSourceRegistry;
 
     private final ReplicationTracker.Factory replicationTrackerFactory;
+    @Nullable
+    private final TranslogSyncScheduler translogSyncScheduler;
 
     public IndexService(
         IndexSettings indexSettings,
@@ -181,7 +185,8 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
         IndexStorePlugin.IndexFoldersDeletionListener indexFoldersDeletionListener,
         IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier,
         Engine.IndexCommitListener indexCommitListener,
-        ReplicationTracker.Factory replicationTrackerFactory
+        ReplicationTracker.Factory replicationTrackerFactory,
+        @Nullable TranslogSyncScheduler translogSyncScheduler
     ) {
         super(indexSettings);
         this.allowExpensiveQueries = allowExpensiveQueries;
@@ -257,6 +262,7 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
             this.retentionLeaseSyncTask = new AsyncRetentionLeaseSyncTask(this);
         }
         this.replicationTrackerFactory = replicationTrackerFactory;
+        this.translogSyncScheduler = translogSyncScheduler;
         updateFsyncTaskIfNecessary();
     }
 
@@ -495,6 +501,15 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
                 }
             };
             Directory directory = directoryFactory.newDirectory(this.indexSettings, path);
+            if (LazyRestoreDirectory.INDEX_LAZY_RESTORE_SETTING.get(this.indexSettings.getSettings())
+                && this.indexSettings.getIndexMetadata().isSearchableSnapshot() == false) {
+                try {
+                    directory = new LazyRestoreDirectory(directory);
+                } catch (IOException e) {
+                    IOUtils.closeWhileHandlingException(directory);
+                    throw e;
+                }
+            }
             store = new Store(
                 shardId,
                 this.indexSettings,
@@ -526,7 +541,8 @@ public class IndexService extends AbstractIndexComponent implements IndicesClust
                 snapshotCommitSupplier,
                 System::nanoTime,
                 indexCommitListener,
-                replicationTrackerFactory
+                replicationTrackerFactory,
+                translogSyncScheduler
             );
             eventListener.indexShardStateChanged(indexShard, null, indexShard.state(), "shard created");
             eventListener.afterIndexShardCreated(indexShard);
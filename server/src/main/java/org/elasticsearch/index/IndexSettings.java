@@ -197,6 +197,17 @@ public final class IndexSettings {
         Property.IndexScope
     );
 
+    /**
+     * Index setting describing the fields whose {@code cardinality} sketches are cached per segment. A {@code cardinality}
+     * aggregation on one of these fields merges the cached sketch of every segment that the query matches entirely instead
+     * of reading its doc values.
+     */
+    public static final Setting<List<String>> CARDINALITY_CACHED_FIELDS = Setting.stringListSetting(
+        "index.cardinality.cached_fields",
+        Property.Dynamic,
+        Property.IndexScope
+    );
+
     /**
      * Index setting describing for NGramTokenizer and NGramTokenFilter
      * the maximum difference between
@@ -427,6 +438,17 @@ public final class IndexSettings {
         Property.IndexScope
     );
 
+    /**
+     * Serializes the documents that were modified by an ingest pipeline to the binary SMILE format instead of the format of
+     * the request, so that the primary and the replicas parse binary tokens instead of tokenizing text again.
+     */
+    public static final Setting<Boolean> INGEST_BINARY_SOURCE_SETTING = Setting.boolSetting(
+        "index.ingest.binary_source",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+
     /**
      * Marks an index to be searched throttled. This means that never more than one shard of such an index will be searched concurrently
      */
@@ -438,6 +460,29 @@ public final class IndexSettings {
         Property.Dynamic
     );
 
+    /**
+     * Enables intra-shard concurrency: the leaves of a shard are grouped into slices that are searched in parallel on the
+     * {@code search_worker} thread pool when the request is eligible for it.
+     */
+    public static final Setting<Boolean> INDEX_SEARCH_CONCURRENT_ENABLED_SETTING = Setting.boolSetting(
+        "index.search.concurrent.enabled",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+
+    /**
+     * Makes the per-segment graph searches of a kNN query share the similarity of the k-th best neighbor found so far, so that
+     * segments that are searched later can stop exploring their graph earlier. Segments are searched concurrently on the
+     * {@code search_worker} thread pool if {@link #INDEX_SEARCH_CONCURRENT_ENABLED_SETTING} is enabled too.
+     */
+    public static final Setting<Boolean> INDEX_SEARCH_KNN_SHARED_TOP_K_ENABLED_SETTING = Setting.boolSetting(
+        "index.search.knn.shared_top_k.enabled",
+        false,
+        Property.Dynamic,
+        Property.IndexScope
+    );
+
     /**
      * Determines a balance between file-based and operations-based peer recoveries. The number of operations that will be used in an
      * operations-based peer recovery is limited to this proportion of the total number of documents in the shard (including deleted
@@ -525,6 +570,18 @@ public final class IndexSettings {
         Property.Dynamic
     );
 
+    /**
+     * in time series mode, the interval of the rollups of the metrics of each time series that every segment stores
+     * next to its doc values, or {@code 0} to not store any rollups
+     */
+    public static final Setting<TimeValue> TIME_SERIES_ROLLUP_INTERVAL = Setting.timeSetting(
+        "index.time_series.rollup_interval",
+        TimeValue.ZERO,
+        TimeValue.ZERO,
+        Property.IndexScope,
+        Property.Final
+    );
+
     /**
      * The {@link IndexMode "mode"} of the index.
      */
@@ -579,6 +636,11 @@ public final class IndexSettings {
      * {@code null} if there are no bounds.
      */
     private volatile TimestampBounds timestampBounds;
+    /**
+     * The interval of the rollups that the segments of a time series index
+     * store or {@link TimeValue#ZERO} if they don't store rollups.
+     */
+    private final TimeValue timeSeriesRollupInterval;
 
     // volatile fields are updated via #updateIndexMetadata(IndexMetadata) under lock
     private volatile Settings settings;
@@ -618,6 +680,8 @@ public final class IndexSettings {
     }
 
     private volatile boolean warmerEnabled;
+    private volatile boolean concurrentSearchEnabled;
+    private volatile boolean knnSharedTopKEnabled;
     private volatile int maxResultWindow;
     private volatile int maxInnerResultWindow;
     private volatile int maxRescoreWindow;
@@ -629,6 +693,7 @@ public final class IndexSettings {
     private volatile TimeValue searchIdleAfter;
     private volatile int maxAnalyzedOffset;
     private volatile int maxTermsCount;
+    private volatile List<String> cardinalityCachedFields;
     private volatile String defaultPipeline;
     private volatile String requiredPipeline;
     private volatile boolean searchThrottled;
@@ -724,6 +789,7 @@ public final class IndexSettings {
         numberOfShards = settings.getAsInt(IndexMetadata.SETTING_NUMBER_OF_SHARDS, null);
         mode = scopedSettings.get(MODE);
         this.timestampBounds = mode.getTimestampBound(indexMetadata);
+        this.timeSeriesRollupInterval = scopedSettings.get(TIME_SERIES_ROLLUP_INTERVAL);
         if (timestampBounds != null) {
             scopedSettings.addSettingsUpdateConsumer(
                 IndexSettings.TIME_SERIES_END_TIME,
@@ -749,6 +815,8 @@ public final class IndexSettings {
         softDeleteRetentionOperations = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING);
         retentionLeaseMillis = scopedSettings.get(INDEX_SOFT_DELETES_RETENTION_LEASE_PERIOD_SETTING).millis();
         warmerEnabled = scopedSettings.get(INDEX_WARMER_ENABLED_SETTING);
+        concurrentSearchEnabled = scopedSettings.get(INDEX_SEARCH_CONCURRENT_ENABLED_SETTING);
+        knnSharedTopKEnabled = scopedSettings.get(INDEX_SEARCH_KNN_SHARED_TOP_K_ENABLED_SETTING);
         maxResultWindow = scopedSettings.get(MAX_RESULT_WINDOW_SETTING);
         maxInnerResultWindow = scopedSettings.get(MAX_INNER_RESULT_WINDOW_SETTING);
         maxRescoreWindow = scopedSettings.get(MAX_RESCORE_WINDOW_SETTING);
@@ -761,6 +829,7 @@ public final class IndexSettings {
         maxSlicesPerScroll = scopedSettings.get(MAX_SLICES_PER_SCROLL);
         maxAnalyzedOffset = scopedSettings.get(MAX_ANALYZED_OFFSET_SETTING);
         maxTermsCount = scopedSettings.get(MAX_TERMS_COUNT_SETTING);
+        cardinalityCachedFields = scopedSettings.get(CARDINALITY_CACHED_FIELDS);
         maxRegexLength = scopedSettings.get(MAX_REGEX_LENGTH_SETTING);
         this.mergePolicyConfig = new MergePolicyConfig(logger, this);
         this.indexSortConfig = new IndexSortConfig(this);
@@ -821,6 +890,8 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(MAX_NGRAM_DIFF_SETTING, this::setMaxNgramDiff);
         scopedSettings.addSettingsUpdateConsumer(MAX_SHINGLE_DIFF_SETTING, this::setMaxShingleDiff);
         scopedSettings.addSettingsUpdateConsumer(INDEX_WARMER_ENABLED_SETTING, this::setEnableWarmer);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_SEARCH_CONCURRENT_ENABLED_SETTING, this::setConcurrentSearchEnabled);
+        scopedSettings.addSettingsUpdateConsumer(INDEX_SEARCH_KNN_SHARED_TOP_K_ENABLED_SETTING, this::setKnnSharedTopKEnabled);
         scopedSettings.addSettingsUpdateConsumer(INDEX_GC_DELETES_SETTING, this::setGCDeletes);
         scopedSettings.addSettingsUpdateConsumer(INDEX_TRANSLOG_FLUSH_THRESHOLD_SIZE_SETTING, this::setTranslogFlushThresholdSize);
         scopedSettings.addSettingsUpdateConsumer(INDEX_FLUSH_AFTER_MERGE_THRESHOLD_SIZE_SETTING, this::setFlushAfterMergeThresholdSize);
@@ -829,6 +900,7 @@ public final class IndexSettings {
         scopedSettings.addSettingsUpdateConsumer(MAX_REFRESH_LISTENERS_PER_SHARD, this::setMaxRefreshListeners);
         scopedSettings.addSettingsUpdateConsumer(MAX_ANALYZED_OFFSET_SETTING, this::setHighlightMaxAnalyzedOffset);
         scopedSettings.addSettingsUpdateConsumer(MAX_TERMS_COUNT_SETTING, this::setMaxTermsCount);
+        scopedSettings.addSettingsUpdateConsumer(CARDINALITY_CACHED_FIELDS, this::setCardinalityCachedFields);
         scopedSettings.addSettingsUpdateConsumer(MAX_SLICES_PER_SCROLL, this::setMaxSlicesPerScroll);
         scopedSettings.addSettingsUpdateConsumer(DEFAULT_FIELD_SETTING, this::setDefaultFields);
         scopedSettings.addSettingsUpdateConsumer(INDEX_SEARCH_IDLE_AFTER, this::setSearchIdleAfter);
@@ -1037,6 +1109,28 @@ public final class IndexSettings {
         this.warmerEnabled = enableWarmer;
     }
 
+    /**
+     * Returns true if the leaves of this index's shards may be searched concurrently, otherwise <code>false</code>
+     */
+    public boolean isConcurrentSearchEnabled() {
+        return concurrentSearchEnabled;
+    }
+
+    private void setConcurrentSearchEnabled(boolean concurrentSearchEnabled) {
+        this.concurrentSearchEnabled = concurrentSearchEnabled;
+    }
+
+    /**
+     * Returns true if the segments searched by a kNN query share their top k neighbors, otherwise <code>false</code>
+     */
+    public boolean isKnnSharedTopKEnabled() {
+        return knnSharedTopKEnabled;
+    }
+
+    private void setKnnSharedTopKEnabled(boolean knnSharedTopKEnabled) {
+        this.knnSharedTopKEnabled = knnSharedTopKEnabled;
+    }
+
     /**
      * Returns the translog sync interval. This is the interval in which the transaction log is asynchronously fsynced unless
      * the transaction log is fsyncing on every operations
@@ -1189,6 +1283,17 @@ public final class IndexSettings {
         this.maxTermsCount = maxTermsCount;
     }
 
+    /**
+     * Returns the fields whose {@code cardinality} sketches are cached per segment
+     */
+    public List<String> getCardinalityCachedFields() {
+        return cardinalityCachedFields;
+    }
+
+    private void setCardinalityCachedFields(List<String> cardinalityCachedFields) {
+        this.cardinalityCachedFields = cardinalityCachedFields;
+    }
+
     /**
      * Returns the maximum number of allowed script_fields to retrieve in a search request
      */
@@ -1378,6 +1483,14 @@ public final class IndexSettings {
         return timestampBounds;
     }
 
+    /**
+     * The interval of the rollups that the segments of a time series index
+     * store or {@link TimeValue#ZERO} if they don't store rollups.
+     */
+    public TimeValue getTimeSeriesRollupInterval() {
+        return timeSeriesRollupInterval;
+    }
+
     /**
      * The way that documents are routed on the coordinating
      * node when being sent to shards of this index.
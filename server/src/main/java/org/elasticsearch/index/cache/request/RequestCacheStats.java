@@ -8,6 +8,7 @@
 
 package org.elasticsearch.index.cache.request;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -24,6 +25,9 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
     private long evictions;
     private long hitCount;
     private long missCount;
+    private long diskHitCount;
+    private long diskMissCount;
+    private long spillCount;
 
     public RequestCacheStats() {}
 
@@ -32,13 +36,33 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         evictions = in.readVLong();
         hitCount = in.readVLong();
         missCount = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_8_7_0)) {
+            diskHitCount = in.readVLong();
+            diskMissCount = in.readVLong();
+            spillCount = in.readVLong();
+        }
     }
 
     public RequestCacheStats(long memorySize, long evictions, long hitCount, long missCount) {
+        this(memorySize, evictions, hitCount, missCount, 0, 0, 0);
+    }
+
+    public RequestCacheStats(
+        long memorySize,
+        long evictions,
+        long hitCount,
+        long missCount,
+        long diskHitCount,
+        long diskMissCount,
+        long spillCount
+    ) {
         this.memorySize = memorySize;
         this.evictions = evictions;
         this.hitCount = hitCount;
         this.missCount = missCount;
+        this.diskHitCount = diskHitCount;
+        this.diskMissCount = diskMissCount;
+        this.spillCount = spillCount;
     }
 
     public void add(RequestCacheStats stats) {
@@ -49,6 +73,9 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         this.evictions += stats.evictions;
         this.hitCount += stats.hitCount;
         this.missCount += stats.missCount;
+        this.diskHitCount += stats.diskHitCount;
+        this.diskMissCount += stats.diskMissCount;
+        this.spillCount += stats.spillCount;
     }
 
     public long getMemorySizeInBytes() {
@@ -71,12 +98,38 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         return this.missCount;
     }
 
+    /**
+     * The number of heap misses that were served by the disk tier, which promotes the entry back to the heap
+     */
+    public long getDiskHitCount() {
+        return this.diskHitCount;
+    }
+
+    /**
+     * The number of heap misses that were not found in the disk tier either and had to be computed
+     */
+    public long getDiskMissCount() {
+        return this.diskMissCount;
+    }
+
+    /**
+     * The number of entries that were evicted from the heap and written to the disk tier
+     */
+    public long getSpillCount() {
+        return this.spillCount;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVLong(memorySize);
         out.writeVLong(evictions);
         out.writeVLong(hitCount);
         out.writeVLong(missCount);
+        if (out.getVersion().onOrAfter(Version.V_8_7_0)) {
+            out.writeVLong(diskHitCount);
+            out.writeVLong(diskMissCount);
+            out.writeVLong(spillCount);
+        }
     }
 
     @Override
@@ -84,12 +137,18 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         RequestCacheStats that = (RequestCacheStats) o;
-        return memorySize == that.memorySize && evictions == that.evictions && hitCount == that.hitCount && missCount == that.missCount;
+        return memorySize == that.memorySize
+            && evictions == that.evictions
+            && hitCount == that.hitCount
+            && missCount == that.missCount
+            && diskHitCount == that.diskHitCount
+            && diskMissCount == that.diskMissCount
+            && spillCount == that.spillCount;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(memorySize, evictions, hitCount, missCount);
+        return Objects.hash(memorySize, evictions, hitCount, missCount, diskHitCount, diskMissCount, spillCount);
     }
 
     @Override
@@ -99,6 +158,11 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         builder.field(Fields.EVICTIONS, getEvictions());
         builder.field(Fields.HIT_COUNT, getHitCount());
         builder.field(Fields.MISS_COUNT, getMissCount());
+        builder.startObject(Fields.DISK);
+        builder.field(Fields.HIT_COUNT, getDiskHitCount());
+        builder.field(Fields.MISS_COUNT, getDiskMissCount());
+        builder.field(Fields.SPILL_COUNT, getSpillCount());
+        builder.endObject();
         builder.endObject();
         return builder;
     }
@@ -110,5 +174,7 @@ public class RequestCacheStats implements Writeable, ToXContentFragment {
         static final String EVICTIONS = "evictions";
         static final String HIT_COUNT = "hit_count";
         static final String MISS_COUNT = "miss_count";
+        static final String DISK = "disk";
+        static final String SPILL_COUNT = "spill_count";
     }
 }
@@ -21,9 +21,20 @@ public final class ShardRequestCache {
     final CounterMetric totalMetric = new CounterMetric();
     final CounterMetric hitCount = new CounterMetric();
     final CounterMetric missCount = new CounterMetric();
+    final CounterMetric diskHitCount = new CounterMetric();
+    final CounterMetric diskMissCount = new CounterMetric();
+    final CounterMetric spillCount = new CounterMetric();
 
     public RequestCacheStats stats() {
-        return new RequestCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count());
+        return new RequestCacheStats(
+            totalMetric.count(),
+            evictionsMetric.count(),
+            hitCount.count(),
+            missCount.count(),
+            diskHitCount.count(),
+            diskMissCount.count(),
+            spillCount.count()
+        );
     }
 
     public void onHit() {
@@ -34,6 +45,18 @@ public final class ShardRequestCache {
         missCount.inc();
     }
 
+    public void onDiskHit() {
+        diskHitCount.inc();
+    }
+
+    public void onDiskMiss() {
+        diskMissCount.inc();
+    }
+
+    public void onSpilled() {
+        spillCount.inc();
+    }
+
     public void onCached(Accountable key, BytesReference value) {
         totalMetric.inc(key.ramBytesUsed() + value.ramBytesUsed());
     }
@@ -19,9 +19,17 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.IndexMode;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.codec.bloomfilter.ES85BloomFilterPostingsFormat;
+import org.elasticsearch.index.codec.tsdb.ES87TimeSeriesRollupDocValuesFormat;
+import org.elasticsearch.index.codec.tsdb.TimeSeriesRollups;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData.NumericType;
+import org.elasticsearch.index.mapper.DataStreamTimestampFieldMapper;
+import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.IdFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.Mapper;
 import org.elasticsearch.index.mapper.MapperService;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
 import org.elasticsearch.index.mapper.vectors.DenseVectorFieldMapper;
 
 /**
@@ -37,6 +45,7 @@ public class PerFieldMapperCodec extends Lucene94Codec {
     private final MapperService mapperService;
     private final DocValuesFormat docValuesFormat = new Lucene90DocValuesFormat();
     private final ES85BloomFilterPostingsFormat bloomFilterPostingsFormat;
+    private final ES87TimeSeriesRollupDocValuesFormat timeSeriesRollupDocValuesFormat;
 
     static {
         assert Codec.forName(Lucene.LATEST_CODEC).getClass().isAssignableFrom(PerFieldMapperCodec.class)
@@ -47,6 +56,15 @@ public class PerFieldMapperCodec extends Lucene94Codec {
         super(compressionMode);
         this.mapperService = mapperService;
         this.bloomFilterPostingsFormat = new ES85BloomFilterPostingsFormat(bigArrays, this::internalGetPostingsFormatForField);
+        IndexSettings indexSettings = mapperService.getIndexSettings();
+        if (indexSettings.getMode() == IndexMode.TIME_SERIES && indexSettings.getTimeSeriesRollupInterval().millis() > 0) {
+            this.timeSeriesRollupDocValuesFormat = new ES87TimeSeriesRollupDocValuesFormat(
+                indexSettings.getTimeSeriesRollupInterval().millis(),
+                this::timeSeriesMetricType
+            );
+        } else {
+            this.timeSeriesRollupDocValuesFormat = null;
+        }
     }
 
     @Override
@@ -94,6 +112,36 @@ public class PerFieldMapperCodec extends Lucene94Codec {
 
     @Override
     public DocValuesFormat getDocValuesFormatForField(String field) {
+        if (useTimeSeriesRollups(field)) {
+            return timeSeriesRollupDocValuesFormat;
+        }
         return docValuesFormat;
     }
+
+    /**
+     * Should the doc values of the field be written with the format that
+     * builds the {@link TimeSeriesRollups}? That format needs to see the
+     * {@code _tsid}, the {@code @timestamp} and the metrics that it rolls up.
+     */
+    boolean useTimeSeriesRollups(String field) {
+        if (timeSeriesRollupDocValuesFormat == null) {
+            return false;
+        }
+        if (DataStreamTimestampFieldMapper.DEFAULT_PATH.equals(field)) {
+            // The rollups are keyed by intervals in milliseconds
+            return mapperService.mappingLookup().getFieldType(field) instanceof DateFieldMapper.DateFieldType dateFieldType
+                && dateFieldType.resolution() == DateFieldMapper.Resolution.MILLISECONDS;
+        }
+        return TimeSeriesIdFieldMapper.NAME.equals(field) || timeSeriesMetricType(field) != null;
+    }
+
+    private NumericType timeSeriesMetricType(String field) {
+        MappedFieldType fieldType = mapperService.mappingLookup().getFieldType(field);
+        if (fieldType instanceof NumberFieldMapper.NumberFieldType numberFieldType
+            && numberFieldType.getMetricType() != null
+            && numberFieldType.hasDocValues()) {
+            return numberFieldType.numericType();
+        }
+        return null;
+    }
 }
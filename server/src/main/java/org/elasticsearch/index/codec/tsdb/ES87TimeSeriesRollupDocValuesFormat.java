@@ -0,0 +1,488 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.tsdb;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.codecs.DocValuesConsumer;
+import org.apache.lucene.codecs.DocValuesFormat;
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.codecs.lucene90.Lucene90DocValuesFormat;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FilterSortedDocValues;
+import org.apache.lucene.index.IndexFileNames;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.SegmentReadState;
+import org.apache.lucene.index.SegmentWriteState;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.sandbox.document.HalfFloatPoint;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData.NumericType;
+import org.elasticsearch.index.mapper.DataStreamTimestampFieldMapper;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
+import org.elasticsearch.search.aggregations.metrics.CompensatedSum;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * A {@link DocValuesFormat} for time series indices that writes the doc
+ * values with the {@link Lucene90DocValuesFormat} and, next to them, the
+ * {@link TimeSeriesRollups} of the metrics of each {@code _tsid} over fixed
+ * intervals of {@code @timestamp}. The rollups are built when a segment is
+ * flushed or merged, so the {@code _tsid}, the {@code @timestamp} and the
+ * metric fields must all use this format. The rollups are only written if
+ * every doc of the segment has a {@code _tsid} and a single {@code @timestamp}.
+ */
+public class ES87TimeSeriesRollupDocValuesFormat extends DocValuesFormat {
+    static final String CODEC_NAME = "ES87TimeSeriesRollup";
+    static final int VERSION_START = 0;
+    static final int VERSION_CURRENT = VERSION_START;
+    static final String META_EXTENSION = "tsrm";
+    static final String DATA_EXTENSION = "tsrd";
+
+    private final DocValuesFormat delegate = new Lucene90DocValuesFormat();
+    private long interval;
+    private Function<String, NumericType> metricTypes;
+
+    /**
+     * @param interval the length in milliseconds of the interval of the rollups
+     * @param metricTypes the type of the values of the metric fields to roll up or {@code null} for the other fields
+     */
+    public ES87TimeSeriesRollupDocValuesFormat(long interval, Function<String, NumericType> metricTypes) {
+        this();
+        if (interval <= 0) {
+            throw new IllegalArgumentException("the interval of the rollups must be positive but was [" + interval + "]");
+        }
+        this.interval = interval;
+        this.metricTypes = Objects.requireNonNull(metricTypes);
+    }
+
+    public ES87TimeSeriesRollupDocValuesFormat() {
+        super(CODEC_NAME);
+    }
+
+    @Override
+    public DocValuesConsumer fieldsConsumer(SegmentWriteState state) throws IOException {
+        if (metricTypes == null) {
+            assert false : CODEC_NAME + " was initialized with a wrong constructor";
+            throw new UnsupportedOperationException(CODEC_NAME + " was initialized with a wrong constructor");
+        }
+        return new RollupsWriter(state, delegate.fieldsConsumer(state));
+    }
+
+    @Override
+    public DocValuesProducer fieldsProducer(SegmentReadState state) throws IOException {
+        return new RollupsReader(state, delegate.fieldsProducer(state));
+    }
+
+    @Override
+    public String toString() {
+        return CODEC_NAME;
+    }
+
+    private static String metaFile(SegmentInfo si, String segmentSuffix) {
+        return IndexFileNames.segmentFileName(si.name, segmentSuffix, META_EXTENSION);
+    }
+
+    private static String dataFile(SegmentInfo si, String segmentSuffix) {
+        return IndexFileNames.segmentFileName(si.name, segmentSuffix, DATA_EXTENSION);
+    }
+
+    /**
+     * Decodes a doc value of a numeric field into the {@code double} that aggregations read.
+     */
+    static double toDouble(NumericType type, long value) {
+        return switch (type) {
+            case DOUBLE -> NumericUtils.sortableLongToDouble(value);
+            case FLOAT -> NumericUtils.sortableIntToFloat((int) value);
+            case HALF_FLOAT -> HalfFloatPoint.sortableShortToHalfFloat((short) value);
+            default -> value;
+        };
+    }
+
+    private record Metric(FieldInfo field, NumericType type, DocValuesProducer values) {}
+
+    final class RollupsWriter extends DocValuesConsumer {
+        private final SegmentWriteState state;
+        private final DocValuesConsumer delegate;
+        private final List<Metric> metrics = new ArrayList<>();
+        private FieldInfo tsidField;
+        private DocValuesProducer tsidValues;
+        private FieldInfo timestampField;
+        private DocValuesProducer timestampValues;
+        private boolean closed;
+
+        RollupsWriter(SegmentWriteState state, DocValuesConsumer delegate) {
+            this.state = state;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void addNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+            delegate.addNumericField(field, valuesProducer);
+        }
+
+        @Override
+        public void addBinaryField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+            delegate.addBinaryField(field, valuesProducer);
+        }
+
+        @Override
+        public void addSortedField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+            delegate.addSortedField(field, valuesProducer);
+            if (TimeSeriesIdFieldMapper.NAME.equals(field.name)) {
+                tsidField = field;
+                tsidValues = valuesProducer;
+            }
+        }
+
+        @Override
+        public void addSortedNumericField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+            delegate.addSortedNumericField(field, valuesProducer);
+            if (DataStreamTimestampFieldMapper.DEFAULT_PATH.equals(field.name)) {
+                timestampField = field;
+                timestampValues = valuesProducer;
+                return;
+            }
+            NumericType type = metricTypes.apply(field.name);
+            if (type != null) {
+                metrics.add(new Metric(field, type, valuesProducer));
+            }
+        }
+
+        @Override
+        public void addSortedSetField(FieldInfo field, DocValuesProducer valuesProducer) throws IOException {
+            delegate.addSortedSetField(field, valuesProducer);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            boolean success = false;
+            try {
+                writeRollups();
+                success = true;
+            } finally {
+                if (success) {
+                    IOUtils.close(delegate);
+                } else {
+                    IOUtils.closeWhileHandlingException(delegate);
+                }
+            }
+        }
+
+        private void writeRollups() throws IOException {
+            try (
+                IndexOutput metaOut = state.directory.createOutput(metaFile(state.segmentInfo, state.segmentSuffix), state.context);
+                IndexOutput dataOut = state.directory.createOutput(dataFile(state.segmentInfo, state.segmentSuffix), state.context)
+            ) {
+                CodecUtil.writeIndexHeader(metaOut, CODEC_NAME, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+                CodecUtil.writeIndexHeader(dataOut, CODEC_NAME, VERSION_CURRENT, state.segmentInfo.getId(), state.segmentSuffix);
+                long dataStart = dataOut.getFilePointer();
+                RollupKeys keys = new RollupKeys();
+                long rollupCount = tsidValues == null || timestampValues == null ? -1 : writeRollups(dataOut, keys);
+                if (rollupCount < 0) {
+                    metaOut.writeByte((byte) 0);
+                } else {
+                    metaOut.writeByte((byte) 1);
+                    metaOut.writeVLong(interval);
+                    metaOut.writeVInt(metrics.size());
+                    for (Metric metric : metrics) {
+                        metaOut.writeVInt(metric.field.number);
+                    }
+                    metaOut.writeVInt(keys.size);
+                    long previous = 0;
+                    for (int i = 0; i < keys.size; i++) {
+                        metaOut.writeZLong(keys.keys[i] - previous);
+                        previous = keys.keys[i];
+                    }
+                    metaOut.writeVLong(rollupCount);
+                    metaOut.writeVLong(dataStart);
+                }
+                CodecUtil.writeFooter(metaOut);
+                CodecUtil.writeFooter(dataOut);
+            }
+        }
+
+        /**
+         * Writes the rollups of the docs in doc order, starting a new rollup
+         * whenever the {@code _tsid} or the interval changes. Time series
+         * indices are sorted on {@code _tsid} and {@code @timestamp} so each
+         * rollup ends up covering all docs of its {@code _tsid} and interval.
+         *
+         * @return the number of rollups or {@code -1} if a doc doesn't have a {@code _tsid} or a single {@code @timestamp}
+         */
+        private long writeRollups(IndexOutput out, RollupKeys keys) throws IOException {
+            SortedDocValues tsids = tsidValues.getSorted(tsidField);
+            SortedNumericDocValues timestamps = timestampValues.getSortedNumeric(timestampField);
+            SortedNumericDocValues[] metricValues = new SortedNumericDocValues[metrics.size()];
+            for (int m = 0; m < metricValues.length; m++) {
+                metricValues[m] = metrics.get(m).values.getSortedNumeric(metrics.get(m).field);
+            }
+            Rollup rollup = new Rollup(metricValues.length);
+            long rollupCount = 0;
+            int rollupTsidOrd = -1;
+            long rollupKey = Long.MIN_VALUE;
+            for (int doc = 0; doc < state.segmentInfo.maxDoc(); doc++) {
+                // The values of flushed and merged segments only support nextDoc
+                if (advance(tsids, doc) == false || advance(timestamps, doc) == false || timestamps.docValueCount() != 1) {
+                    return -1;
+                }
+                int tsidOrd = tsids.ordValue();
+                long key = Math.floorDiv(timestamps.nextValue(), interval) * interval;
+                if (tsidOrd != rollupTsidOrd || key != rollupKey) {
+                    if (rollup.docCount > 0) {
+                        rollup.writeTo(out, rollupTsidOrd, keys.index(rollupKey));
+                        rollupCount++;
+                    }
+                    rollup.reset();
+                    rollupTsidOrd = tsidOrd;
+                    rollupKey = key;
+                }
+                rollup.docCount++;
+                for (int m = 0; m < metricValues.length; m++) {
+                    if (advance(metricValues[m], doc)) {
+                        NumericType type = metrics.get(m).type;
+                        for (int i = 0; i < metricValues[m].docValueCount(); i++) {
+                            rollup.add(m, toDouble(type, metricValues[m].nextValue()));
+                        }
+                    }
+                }
+            }
+            if (rollup.docCount > 0) {
+                rollup.writeTo(out, rollupTsidOrd, keys.index(rollupKey));
+                rollupCount++;
+            }
+            return rollupCount;
+        }
+
+        private static boolean advance(DocIdSetIterator values, int doc) throws IOException {
+            while (values.docID() < doc) {
+                values.nextDoc();
+            }
+            return values.docID() == doc;
+        }
+    }
+
+    /**
+     * The distinct starts of the intervals of the rollups, in the order the rollups first reference them.
+     */
+    private static class RollupKeys {
+        private final Map<Long, Integer> indices = new HashMap<>();
+        private long[] keys = new long[16];
+        private int size;
+
+        int index(long key) {
+            return indices.computeIfAbsent(key, k -> {
+                keys = ArrayUtil.grow(keys, size + 1);
+                keys[size] = k;
+                return size++;
+            });
+        }
+    }
+
+    /**
+     * The rollup of the metrics that is being built.
+     */
+    private static class Rollup {
+        private long docCount;
+        private final long[] counts;
+        private final CompensatedSum[] sums;
+        private final double[] mins;
+        private final double[] maxes;
+
+        Rollup(int metricCount) {
+            counts = new long[metricCount];
+            sums = new CompensatedSum[metricCount];
+            for (int m = 0; m < metricCount; m++) {
+                sums[m] = new CompensatedSum(0, 0);
+            }
+            mins = new double[metricCount];
+            maxes = new double[metricCount];
+            reset();
+        }
+
+        void reset() {
+            docCount = 0;
+            Arrays.fill(counts, 0);
+            for (CompensatedSum sum : sums) {
+                sum.reset(0, 0);
+            }
+            Arrays.fill(mins, Double.POSITIVE_INFINITY);
+            Arrays.fill(maxes, Double.NEGATIVE_INFINITY);
+        }
+
+        void add(int metric, double value) {
+            counts[metric]++;
+            sums[metric].add(value);
+            mins[metric] = Math.min(mins[metric], value);
+            maxes[metric] = Math.max(maxes[metric], value);
+        }
+
+        void writeTo(IndexOutput out, int tsidOrd, int keyIndex) throws IOException {
+            out.writeVInt(tsidOrd);
+            out.writeVInt(keyIndex);
+            out.writeVLong(docCount);
+            for (int m = 0; m < counts.length; m++) {
+                out.writeVLong(counts[m]);
+                if (counts[m] > 0) {
+                    out.writeLong(Double.doubleToLongBits(sums[m].value()));
+                    out.writeLong(Double.doubleToLongBits(mins[m]));
+                    out.writeLong(Double.doubleToLongBits(maxes[m]));
+                }
+            }
+        }
+    }
+
+    static final class RollupsReader extends DocValuesProducer {
+        private final DocValuesProducer delegate;
+        private final IndexInput data;
+        private final TimeSeriesRollups rollups;
+
+        RollupsReader(SegmentReadState state, DocValuesProducer delegate) throws IOException {
+            this.delegate = delegate;
+            IndexInput data = null;
+            boolean success = false;
+            try {
+                long interval = 0;
+                List<String> metrics = null;
+                long[] keys = null;
+                long rollupCount = 0;
+                long dataStart = 0;
+                try (
+                    ChecksumIndexInput metaIn = state.directory.openChecksumInput(
+                        metaFile(state.segmentInfo, state.segmentSuffix),
+                        IOContext.READONCE
+                    )
+                ) {
+                    CodecUtil.checkIndexHeader(
+                        metaIn,
+                        CODEC_NAME,
+                        VERSION_START,
+                        VERSION_CURRENT,
+                        state.segmentInfo.getId(),
+                        state.segmentSuffix
+                    );
+                    if (metaIn.readByte() == 1) {
+                        interval = metaIn.readVLong();
+                        int metricCount = metaIn.readVInt();
+                        metrics = new ArrayList<>(metricCount);
+                        for (int m = 0; m < metricCount; m++) {
+                            metrics.add(state.fieldInfos.fieldInfo(metaIn.readVInt()).name);
+                        }
+                        keys = new long[metaIn.readVInt()];
+                        long previous = 0;
+                        for (int i = 0; i < keys.length; i++) {
+                            keys[i] = previous + metaIn.readZLong();
+                            previous = keys[i];
+                        }
+                        rollupCount = metaIn.readVLong();
+                        dataStart = metaIn.readVLong();
+                    }
+                    CodecUtil.checkFooter(metaIn);
+                }
+                data = state.directory.openInput(dataFile(state.segmentInfo, state.segmentSuffix), state.context);
+                CodecUtil.checkIndexHeader(
+                    data,
+                    CODEC_NAME,
+                    VERSION_START,
+                    VERSION_CURRENT,
+                    state.segmentInfo.getId(),
+                    state.segmentSuffix
+                );
+                CodecUtil.retrieveChecksum(data);
+                this.data = data;
+                this.rollups = metrics == null
+                    ? null
+                    : new TimeSeriesRollups(interval, List.copyOf(metrics), keys, rollupCount, data, dataStart);
+                success = true;
+            } finally {
+                if (success == false) {
+                    IOUtils.closeWhileHandlingException(data, delegate);
+                }
+            }
+        }
+
+        @Override
+        public NumericDocValues getNumeric(FieldInfo field) throws IOException {
+            return delegate.getNumeric(field);
+        }
+
+        @Override
+        public BinaryDocValues getBinary(FieldInfo field) throws IOException {
+            return delegate.getBinary(field);
+        }
+
+        @Override
+        public SortedDocValues getSorted(FieldInfo field) throws IOException {
+            SortedDocValues values = delegate.getSorted(field);
+            if (rollups != null && TimeSeriesIdFieldMapper.NAME.equals(field.name)) {
+                return new RollupsSortedDocValues(values, rollups);
+            }
+            return values;
+        }
+
+        @Override
+        public SortedNumericDocValues getSortedNumeric(FieldInfo field) throws IOException {
+            return delegate.getSortedNumeric(field);
+        }
+
+        @Override
+        public SortedSetDocValues getSortedSet(FieldInfo field) throws IOException {
+            return delegate.getSortedSet(field);
+        }
+
+        @Override
+        public void checkIntegrity() throws IOException {
+            delegate.checkIntegrity();
+            CodecUtil.checksumEntireFile(data);
+        }
+
+        @Override
+        public void close() throws IOException {
+            IOUtils.close(data, delegate);
+        }
+    }
+
+    /**
+     * The values of the {@code _tsid}, which expose the {@link TimeSeriesRollups} of the segment.
+     */
+    static final class RollupsSortedDocValues extends FilterSortedDocValues {
+        private final TimeSeriesRollups rollups;
+
+        RollupsSortedDocValues(SortedDocValues in, TimeSeriesRollups rollups) {
+            super(in);
+            this.rollups = rollups;
+        }
+
+        TimeSeriesRollups rollups() {
+            return rollups;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.tsdb;
+
+import org.apache.lucene.codecs.DocValuesProducer;
+import org.apache.lucene.index.CodecReader;
+import org.apache.lucene.index.DocValuesType;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FilterCodecReader;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The rollups of the metrics of each time series that a segment of a time
+ * series index stores next to its doc values, see
+ * {@link ES87TimeSeriesRollupDocValuesFormat}. A rollup holds the number of
+ * docs and the {@code count}, {@code sum}, {@code min} and {@code max} of the
+ * values of each metric of one {@code _tsid} over one interval of
+ * {@code @timestamp}. The rollups cover every doc of the segment, including
+ * the deleted ones.
+ */
+public final class TimeSeriesRollups {
+    private final long interval;
+    private final List<String> metrics;
+    private final long[] keys;
+    private final long rollupCount;
+    private final IndexInput data;
+    private final long dataStart;
+
+    TimeSeriesRollups(long interval, List<String> metrics, long[] keys, long rollupCount, IndexInput data, long dataStart) {
+        this.interval = interval;
+        this.metrics = metrics;
+        this.keys = keys;
+        this.rollupCount = rollupCount;
+        this.data = data;
+        this.dataStart = dataStart;
+    }
+
+    /**
+     * The rollups of the segment of the provided reader or {@code null} if it
+     * doesn't store any.
+     */
+    @Nullable
+    public static TimeSeriesRollups get(LeafReader reader) throws IOException {
+        FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo(TimeSeriesIdFieldMapper.NAME);
+        if (fieldInfo == null || fieldInfo.getDocValuesType() != DocValuesType.SORTED) {
+            return null;
+        }
+        CodecReader codecReader = unwrap(reader);
+        if (codecReader == null) {
+            return null;
+        }
+        DocValuesProducer docValuesReader = codecReader.getDocValuesReader();
+        if (docValuesReader == null) {
+            return null;
+        }
+        SortedDocValues values = docValuesReader.getSorted(fieldInfo);
+        if (values instanceof ES87TimeSeriesRollupDocValuesFormat.RollupsSortedDocValues rollupsValues) {
+            return rollupsValues.rollups();
+        }
+        return null;
+    }
+
+    private static CodecReader unwrap(LeafReader reader) {
+        while (true) {
+            if (reader instanceof FilterLeafReader filterLeafReader) {
+                reader = FilterLeafReader.unwrap(filterLeafReader);
+            } else if (reader instanceof FilterCodecReader filterCodecReader) {
+                reader = FilterCodecReader.unwrap(filterCodecReader);
+            } else if (reader instanceof CodecReader codecReader) {
+                return codecReader;
+            } else {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The length of the interval of each rollup in milliseconds.
+     */
+    public long interval() {
+        return interval;
+    }
+
+    /**
+     * The names of the metric fields of the rollups.
+     */
+    public List<String> metrics() {
+        return metrics;
+    }
+
+    /**
+     * The number of distinct starts of the interval of a rollup.
+     */
+    public int keyCount() {
+        return keys.length;
+    }
+
+    /**
+     * The start of an interval of a rollup, in the order the rollups first
+     * reference them.
+     */
+    public long key(int keyIndex) {
+        return keys[keyIndex];
+    }
+
+    /**
+     * The number of rollups.
+     */
+    public long rollupCount() {
+        return rollupCount;
+    }
+
+    /**
+     * Iterates over the rollups in the order of the docs that they roll up.
+     * Not thread safe.
+     */
+    public Cursor cursor() throws IOException {
+        IndexInput in = data.clone();
+        in.seek(dataStart);
+        return new Cursor(in, metrics.size(), rollupCount);
+    }
+
+    /**
+     * Iterates over the rollups.
+     */
+    public static final class Cursor {
+        private final IndexInput in;
+        private long remaining;
+        private int tsidOrd;
+        private int keyIndex;
+        private long docCount;
+        private final long[] counts;
+        private final double[] sums;
+        private final double[] mins;
+        private final double[] maxes;
+
+        private Cursor(IndexInput in, int metricCount, long rollupCount) {
+            this.in = in;
+            this.remaining = rollupCount;
+            this.counts = new long[metricCount];
+            this.sums = new double[metricCount];
+            this.mins = new double[metricCount];
+            this.maxes = new double[metricCount];
+        }
+
+        /**
+         * Moves to the next rollup.
+         *
+         * @return {@code false} if there are no more rollups
+         */
+        public boolean next() throws IOException {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            tsidOrd = in.readVInt();
+            keyIndex = in.readVInt();
+            docCount = in.readVLong();
+            for (int m = 0; m < counts.length; m++) {
+                counts[m] = in.readVLong();
+                if (counts[m] > 0) {
+                    sums[m] = Double.longBitsToDouble(in.readLong());
+                    mins[m] = Double.longBitsToDouble(in.readLong());
+                    maxes[m] = Double.longBitsToDouble(in.readLong());
+                } else {
+                    sums[m] = 0;
+                    mins[m] = Double.POSITIVE_INFINITY;
+                    maxes[m] = Double.NEGATIVE_INFINITY;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * The segment ordinal of the {@code _tsid} of the rollup.
+         */
+        public int tsidOrd() {
+            return tsidOrd;
+        }
+
+        /**
+         * The index of the {@link TimeSeriesRollups#key(int) start of the interval} of the rollup.
+         */
+        public int keyIndex() {
+            return keyIndex;
+        }
+
+        /**
+         * The number of docs of the rollup.
+         */
+        public long docCount() {
+            return docCount;
+        }
+
+        /**
+         * The number of values of a {@link TimeSeriesRollups#metrics() metric}.
+         */
+        public long count(int metric) {
+            return counts[metric];
+        }
+
+        /**
+         * The sum of the values of a {@link TimeSeriesRollups#metrics() metric}.
+         */
+        public double sum(int metric) {
+            return sums[metric];
+        }
+
+        /**
+         * The smallest value of a {@link TimeSeriesRollups#metrics() metric}.
+         */
+        public double min(int metric) {
+            return mins[metric];
+        }
+
+        /**
+         * The largest value of a {@link TimeSeriesRollups#metrics() metric}.
+         */
+        public double max(int metric) {
+            return maxes[metric];
+        }
+    }
+}
@@ -108,6 +108,17 @@ public final class EngineConfig {
         }
     }, Property.IndexScope, Property.NodeScope);
 
+    /**
+     * Index setting to keep the versions of the documents that were indexed since the last refresh in paged arrays rather than
+     * in one map entry per document, see {@link LiveVersionMap}.
+     * This setting is <b>not</b> realtime updateable.
+     */
+    public static final Setting<Boolean> INDEX_VERSION_MAP_PAGED_SETTING = Setting.boolSetting(
+        "index.version_map.paged",
+        false,
+        Property.IndexScope
+    );
+
     /**
      * Legacy index setting, kept for 7.x BWC compatibility. This setting has no effect in 8.x. Do not use.
      * TODO: Remove in 9.0
@@ -12,8 +12,10 @@ import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.KeyedLock;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
 
 import java.io.IOException;
@@ -33,8 +35,11 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
          *  clear this RAM. */
         final AtomicLong ramBytesUsed = new AtomicLong();
 
-        private static final VersionLookup EMPTY = new VersionLookup(Collections.emptyMap());
+        private static final VersionLookup EMPTY = new VersionLookup(Collections.emptyMap(), null);
         private final Map<BytesRef, VersionValue> map;
+        // used instead of the map if the versions are kept in paged arrays, see EngineConfig#INDEX_VERSION_MAP_PAGED_SETTING
+        @Nullable
+        private final PagedVersionMap pagedMap;
 
         // each version map has a notion of safe / unsafe which allows us to apply certain optimization in the auto-generated ID usecase
         // where we know that documents can't have any duplicates so we can skip the version map entirely. This reduces
@@ -52,24 +57,55 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         // the tombstone
         private final AtomicLong minDeleteTimestamp = new AtomicLong(Long.MAX_VALUE);
 
-        private VersionLookup(Map<BytesRef, VersionValue> map) {
+        private VersionLookup(Map<BytesRef, VersionValue> map, PagedVersionMap pagedMap) {
             this.map = map;
+            this.pagedMap = pagedMap;
+        }
+
+        static VersionLookup create(boolean paged, int expectedSize) {
+            if (paged) {
+                // the pages are not recycled since a concurrent lookup may still read from this map after it was dropped on refresh
+                return new VersionLookup(null, new PagedVersionMap(BigArrays.NON_RECYCLING_INSTANCE, expectedSize));
+            }
+            return new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(expectedSize), null);
+        }
+
+        /**
+         * Whether the RAM used by this lookup is computed by the paged map itself rather than accounted entry by entry
+         */
+        boolean isPaged() {
+            return pagedMap != null;
+        }
+
+        long ramBytesUsed() {
+            return pagedMap != null ? pagedMap.ramBytesUsed() : ramBytesUsed.get();
         }
 
         VersionValue get(BytesRef key) {
-            return map.get(key);
+            return pagedMap != null ? pagedMap.get(key) : map.get(key);
         }
 
+        /**
+         * Puts a value and returns the previous one. Paged lookups don't materialize the previous value and always return {@code null}.
+         */
         VersionValue put(BytesRef key, VersionValue value) {
+            if (pagedMap != null) {
+                pagedMap.put(key, value);
+                return null;
+            }
             return map.put(key, value);
         }
 
         boolean isEmpty() {
-            return map.isEmpty();
+            return pagedMap != null ? pagedMap.isEmpty() : map.isEmpty();
         }
 
         int size() {
-            return map.size();
+            return pagedMap != null ? pagedMap.size() : map.size();
+        }
+
+        Map<BytesRef, VersionValue> asMap() {
+            return pagedMap != null ? pagedMap.copyToMap() : map;
         }
 
         boolean isUnsafe() {
@@ -80,7 +116,14 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
             unsafe = true;
         }
 
+        /**
+         * Removes a value and returns it. Paged lookups don't materialize the removed value and always return {@code null}.
+         */
         public VersionValue remove(BytesRef uid) {
+            if (pagedMap != null) {
+                pagedMap.remove(uid);
+                return null;
+            }
             return map.remove(uid);
         }
 
@@ -102,15 +145,17 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
         // have the volatile read of the Maps reference to make it visible even across threads.
         boolean needsSafeAccess;
         final boolean previousMapsNeededSafeAccess;
+        final boolean paged;
 
-        Maps(VersionLookup current, VersionLookup old, boolean previousMapsNeededSafeAccess) {
+        Maps(VersionLookup current, VersionLookup old, boolean previousMapsNeededSafeAccess, boolean paged) {
             this.current = current;
             this.old = old;
             this.previousMapsNeededSafeAccess = previousMapsNeededSafeAccess;
+            this.paged = paged;
         }
 
-        Maps() {
-            this(new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency()), VersionLookup.EMPTY, false);
+        Maps(boolean paged) {
+            this(VersionLookup.create(paged, 16), VersionLookup.EMPTY, false, paged);
         }
 
         boolean isSafeAccessMode() {
@@ -128,21 +173,21 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
          * Builds a new map for the refresh transition this should be called in beforeRefresh()
          */
         Maps buildTransitionMap() {
-            return new Maps(
-                new VersionLookup(ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency(current.size())),
-                current,
-                shouldInheritSafeAccess()
-            );
+            return new Maps(VersionLookup.create(paged, current.size()), current, shouldInheritSafeAccess(), paged);
         }
 
         /**
          * builds a new map that invalidates the old map but maintains the current. This should be called in afterRefresh()
          */
         Maps invalidateOldMap() {
-            return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess);
+            return new Maps(current, VersionLookup.EMPTY, previousMapsNeededSafeAccess, paged);
         }
 
         void put(BytesRef uid, VersionValue version) {
+            if (current.isPaged()) {
+                current.put(uid, version);
+                return;
+            }
             long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
             long ramAccounting = BASE_BYTES_PER_CHM_ENTRY + version.ramBytesUsed() + uidRAMBytesUsed;
             VersionValue previousValue = current.put(uid, version);
@@ -179,10 +224,25 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
     // All deletes also go here, and delete "tombstones" are retained after refresh:
     private final Map<BytesRef, DeleteVersionValue> tombstones = ConcurrentCollections.newConcurrentMapWithAggressiveConcurrency();
 
-    private volatile Maps maps = new Maps();
+    private final boolean paged;
+    private volatile Maps maps;
     // we maintain a second map that only receives the updates that we skip on the actual map (unsafe ops)
     // this map is only maintained if assertions are enabled
-    private volatile Maps unsafeKeysMap = new Maps();
+    private volatile Maps unsafeKeysMap;
+
+    LiveVersionMap() {
+        this(false);
+    }
+
+    /**
+     * @param paged whether the versions of the documents that were indexed since the last refresh should be kept in paged arrays
+     *              rather than in one map entry per document, see {@link EngineConfig#INDEX_VERSION_MAP_PAGED_SETTING}
+     */
+    LiveVersionMap(boolean paged) {
+        this.paged = paged;
+        this.maps = new Maps(paged);
+        this.unsafeKeysMap = new Maps(paged);
+    }
 
     /**
      * Bytes consumed for each BytesRef UID:
@@ -403,7 +463,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * Called when this index is closed.
      */
     synchronized void clear() {
-        maps = new Maps();
+        maps = new Maps(paged);
         tombstones.clear();
         // NOTE: we can't zero this here, because a refresh thread could be calling InternalEngine.pruneDeletedTombstones at the same time,
         // and this will lead to an assert trip. Presumably it's fine if our ramBytesUsedTombstones is non-zero after clear since the
@@ -413,7 +473,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
 
     @Override
     public long ramBytesUsed() {
-        return maps.current.ramBytesUsed.get() + ramBytesUsedTombstones.get();
+        return maps.current.ramBytesUsed() + ramBytesUsedTombstones.get();
     }
 
     /**
@@ -421,7 +481,7 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * don't clear on refresh.
      */
     long ramBytesUsedForRefresh() {
-        return maps.current.ramBytesUsed.get();
+        return maps.current.ramBytesUsed();
     }
 
     /**
@@ -429,14 +489,14 @@ final class LiveVersionMap implements ReferenceManager.RefreshListener, Accounta
      * except does not include tombstones because they don't clear on refresh.
      */
     long getRefreshingBytes() {
-        return maps.old.ramBytesUsed.get();
+        return maps.old.ramBytesUsed();
     }
 
     /**
      * Returns the current internal versions as a point in time snapshot
      */
     Map<BytesRef, VersionValue> getAllCurrent() {
-        return maps.current.map;
+        return maps.current.asMap();
     }
 
     /** Iterates over all deleted versions, including new ones (not yet exposed via reader) and old ones
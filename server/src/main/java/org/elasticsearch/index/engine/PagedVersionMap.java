@@ -0,0 +1,256 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.index.translog.Translog;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A map of _uid values to {@link IndexVersionValue}s that stores its keys and values in paged {@link BigArrays} instead of
+ * one {@link BytesRef}, one {@link VersionValue} and one map entry object per document. This keeps the number of objects that
+ * the garbage collector has to trace constant, no matter how many documents were updated since the last refresh.
+ *
+ * The map is split into a fixed number of stripes that are each guarded by their own monitor, so that writes to different
+ * _uid values rarely contend. Callers are still expected to serialize operations on the same _uid through the
+ * {@link LiveVersionMap#acquireLock(BytesRef) keyed lock} of the version map.
+ *
+ * Removed keys are not reclaimed until the whole map is dropped, which happens on the next refresh.
+ *
+ * Writes never materialize the previous value. Each stripe keeps the values that were last written or read in a small direct
+ * mapped cache so that looking up a recently written _uid, which is what updates do, doesn't allocate.
+ */
+final class PagedVersionMap implements Accountable {
+
+    private static final int NUM_STRIPES = 16;
+
+    private static final long SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(PagedVersionMap.class)
+        + RamUsageEstimator.shallowSizeOf(new Stripe[NUM_STRIPES]);
+
+    private final Stripe[] stripes;
+
+    PagedVersionMap(BigArrays bigArrays, int expectedSize) {
+        final int stripeCapacity = Math.max(1, expectedSize / NUM_STRIPES);
+        this.stripes = new Stripe[NUM_STRIPES];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(bigArrays, stripeCapacity);
+        }
+    }
+
+    private Stripe stripe(BytesRef key) {
+        return stripes[key.hashCode() & (NUM_STRIPES - 1)];
+    }
+
+    VersionValue get(BytesRef uid) {
+        return stripe(uid).get(uid);
+    }
+
+    void put(BytesRef uid, VersionValue value) {
+        if (value instanceof IndexVersionValue == false) {
+            throw new IllegalArgumentException("only index versions can be stored in a paged version map but got " + value);
+        }
+        stripe(uid).put(uid, value);
+    }
+
+    /**
+     * Removes the value of the provided _uid.
+     *
+     * @return whether the map held a value for the _uid
+     */
+    boolean remove(BytesRef uid) {
+        return stripe(uid).remove(uid);
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    boolean isEmpty() {
+        for (Stripe stripe : stripes) {
+            if (stripe.size > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a point in time copy of the live entries of this map. This is expensive and only meant to be used by tests.
+     */
+    Map<BytesRef, VersionValue> copyToMap() {
+        final Map<BytesRef, VersionValue> copy = new HashMap<>();
+        for (Stripe stripe : stripes) {
+            stripe.copyTo(copy);
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long ramBytesUsed = SHALLOW_SIZE;
+        for (Stripe stripe : stripes) {
+            ramBytesUsed += stripe.ramBytesUsed;
+        }
+        return ramBytesUsed;
+    }
+
+    /**
+     * An open addressing hash of _uid values to fixed width version records.
+     */
+    private static final class Stripe {
+
+        // the record of each id is made of the version, the seq# and the primary term, followed by the translog location
+        private static final int VERSION = 0;
+        private static final int SEQ_NO = 1;
+        private static final int TERM = 2;
+        private static final int GENERATION = 3;
+        private static final int TRANSLOG_LOCATION = 4;
+        // the state of the record in the upper 32 bits and the size of the translog location in the lower 32 bits
+        private static final int STATE_AND_SIZE = 5;
+        private static final int RECORD_LENGTH = 6;
+
+        private static final long REMOVED = 0;
+        private static final long NO_LOCATION = 1;
+        private static final long WITH_LOCATION = 2;
+
+        private static final int CACHE_SIZE = 64;
+        private static final long NO_ID = -1;
+
+        // the cached values are counted as if every slot held an index version without a translog location
+        private static final long SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(Stripe.class)
+            + RamUsageEstimator.sizeOf(new long[CACHE_SIZE])
+            + RamUsageEstimator.shallowSizeOf(new VersionValue[CACHE_SIZE])
+            + CACHE_SIZE * RamUsageEstimator.shallowSizeOfInstance(IndexVersionValue.class);
+
+        private final BigArrays bigArrays;
+        private final BytesRefHash keys;
+        private LongArray records;
+        private volatile int size;
+        private volatile long ramBytesUsed;
+        // the ids of the cached values, a value is cached in the slot of the lower bits of its id
+        private final long[] cachedIds = new long[CACHE_SIZE];
+        private final VersionValue[] cachedValues = new VersionValue[CACHE_SIZE];
+
+        Stripe(BigArrays bigArrays, int capacity) {
+            this.bigArrays = bigArrays;
+            Arrays.fill(cachedIds, NO_ID);
+            this.keys = new BytesRefHash(capacity, bigArrays);
+            this.records = bigArrays.newLongArray((long) capacity * RECORD_LENGTH, false);
+            updateRamBytesUsed();
+        }
+
+        synchronized VersionValue get(BytesRef uid) {
+            final long id = keys.find(uid);
+            if (id < 0) {
+                return null;
+            }
+            final int slot = (int) (id & (CACHE_SIZE - 1));
+            if (cachedIds[slot] == id) {
+                return cachedValues[slot];
+            }
+            final VersionValue value = read(id);
+            if (value != null) {
+                cache(slot, id, value);
+            }
+            return value;
+        }
+
+        synchronized void put(BytesRef uid, VersionValue value) {
+            long id = keys.add(uid);
+            final boolean hadValue;
+            if (id < 0) {
+                id = -1 - id;
+                hadValue = isLive(id);
+            } else {
+                records = bigArrays.grow(records, (id + 1) * RECORD_LENGTH);
+                hadValue = false;
+            }
+            final long offset = id * RECORD_LENGTH;
+            records.set(offset + VERSION, value.version);
+            records.set(offset + SEQ_NO, value.seqNo);
+            records.set(offset + TERM, value.term);
+            final Translog.Location location = value.getLocation();
+            if (location == null) {
+                records.set(offset + STATE_AND_SIZE, NO_LOCATION << 32);
+            } else {
+                records.set(offset + GENERATION, location.generation);
+                records.set(offset + TRANSLOG_LOCATION, location.translogLocation);
+                records.set(offset + STATE_AND_SIZE, (WITH_LOCATION << 32) | (location.size & 0xFFFFFFFFL));
+            }
+            if (hadValue == false) {
+                size++;
+            }
+            cache((int) (id & (CACHE_SIZE - 1)), id, value);
+            updateRamBytesUsed();
+        }
+
+        synchronized boolean remove(BytesRef uid) {
+            final long id = keys.find(uid);
+            if (id < 0 || isLive(id) == false) {
+                return false;
+            }
+            records.set(id * RECORD_LENGTH + STATE_AND_SIZE, REMOVED << 32);
+            size--;
+            final int slot = (int) (id & (CACHE_SIZE - 1));
+            if (cachedIds[slot] == id) {
+                cache(slot, NO_ID, null);
+            }
+            return true;
+        }
+
+        private void cache(int slot, long id, VersionValue value) {
+            cachedIds[slot] = id;
+            cachedValues[slot] = value;
+        }
+
+        private boolean isLive(long id) {
+            return records.get(id * RECORD_LENGTH + STATE_AND_SIZE) >>> 32 != REMOVED;
+        }
+
+        synchronized void copyTo(Map<BytesRef, VersionValue> map) {
+            final BytesRef spare = new BytesRef();
+            for (long id = 0; id < keys.size(); id++) {
+                final VersionValue value = read(id);
+                if (value != null) {
+                    map.put(BytesRef.deepCopyOf(keys.get(id, spare)), value);
+                }
+            }
+        }
+
+        private VersionValue read(long id) {
+            final long offset = id * RECORD_LENGTH;
+            final long stateAndSize = records.get(offset + STATE_AND_SIZE);
+            final long state = stateAndSize >>> 32;
+            if (state == REMOVED) {
+                return null;
+            }
+            final Translog.Location location = state == NO_LOCATION
+                ? null
+                : new Translog.Location(records.get(offset + GENERATION), records.get(offset + TRANSLOG_LOCATION), (int) stateAndSize);
+            return new IndexVersionValue(location, records.get(offset + VERSION), records.get(offset + SEQ_NO), records.get(offset + TERM));
+        }
+
+        private void updateRamBytesUsed() {
+            ramBytesUsed = SHALLOW_SIZE + keys.ramBytesUsed() + records.ramBytesUsed();
+        }
+    }
+}
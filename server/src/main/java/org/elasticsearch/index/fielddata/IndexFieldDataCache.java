@@ -23,6 +23,14 @@ public interface IndexFieldDataCache {
     <FD extends LeafFieldData, IFD extends IndexFieldData.Global<FD>> IFD load(DirectoryReader indexReader, IFD indexFieldData)
         throws Exception;
 
+    /**
+     * Whether the global field data of the given reader is cached, in which case
+     * {@link #load(DirectoryReader, IndexFieldData.Global)} doesn't have to build it.
+     */
+    default boolean isCached(DirectoryReader indexReader, IndexFieldData.Global<?> indexFieldData) {
+        return false;
+    }
+
     /**
      * Clears all the field data stored cached in on this index.
      */
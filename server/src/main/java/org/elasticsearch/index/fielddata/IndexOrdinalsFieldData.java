@@ -30,6 +30,15 @@ public interface IndexOrdinalsFieldData extends IndexFieldData.Global<LeafOrdina
     @Override
     IndexOrdinalsFieldData loadGlobalDirect(DirectoryReader indexReader) throws Exception;
 
+    /**
+     * Whether {@link #loadGlobal} returns the global ordinals of the given
+     * {@link IndexReader} without building them, either because they are
+     * cached or because the segment ordinals are already global.
+     */
+    default boolean isGlobalLoaded(DirectoryReader indexReader) {
+        return true;
+    }
+
     /**
      * Returns the underlying {@link OrdinalMap} for this fielddata
      * or null if global ordinals are not needed (constant value or single segment).
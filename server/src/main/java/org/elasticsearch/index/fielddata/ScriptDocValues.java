@@ -48,6 +48,24 @@ public abstract class ScriptDocValues<T> extends AbstractList<T> {
 
         T getInternal(int index);
 
+        /**
+         * Returns the value at {@code index} as a primitive {@code long}. Suppliers that
+         * keep their values in primitive arrays override this so that numeric access from
+         * scripts doesn't box a value per document.
+         */
+        default long getLongInternal(int index) {
+            return ((Number) getInternal(index)).longValue();
+        }
+
+        /**
+         * Returns the value at {@code index} as a primitive {@code double}. Suppliers that
+         * keep their values in primitive arrays override this so that numeric access from
+         * scripts doesn't box a value per document.
+         */
+        default double getDoubleInternal(int index) {
+            return ((Number) getInternal(index)).doubleValue();
+        }
+
         int size();
     }
 
@@ -102,7 +120,8 @@ public abstract class ScriptDocValues<T> extends AbstractList<T> {
         }
 
         public long getValue() {
-            return get(0);
+            throwIfEmpty();
+            return supplier.getLongInternal(0);
         }
 
         @Override
@@ -189,6 +208,11 @@ public abstract class ScriptDocValues<T> extends AbstractList<T> {
             return values[index];
         }
 
+        @Override
+        public double getDoubleInternal(int index) {
+            return values[index];
+        }
+
         @Override
         public int size() {
             return count;
@@ -202,7 +226,8 @@ public abstract class ScriptDocValues<T> extends AbstractList<T> {
         }
 
         public double getValue() {
-            return get(0);
+            throwIfEmpty();
+            return supplier.getDoubleInternal(0);
         }
 
         @Override
@@ -100,6 +100,11 @@ public abstract class AbstractIndexOrdinalsFieldData implements IndexOrdinalsFie
         }
     }
 
+    @Override
+    public boolean isGlobalLoaded(DirectoryReader indexReader) {
+        return indexReader.leaves().size() <= 1 || cache.isCached(indexReader, this);
+    }
+
     private IndexOrdinalsFieldData loadGlobalInternal(DirectoryReader indexReader) {
         if (indexReader.leaves().size() <= 1) {
             // ordinals are already global
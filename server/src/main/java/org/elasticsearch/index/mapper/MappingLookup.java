@@ -34,7 +34,25 @@ public final class MappingLookup {
      * Key for the lookup to be used in caches.
      */
     public static class CacheKey {
-        private CacheKey() {}
+        private final Mapping mapping;
+        private volatile String digest;
+
+        private CacheKey(Mapping mapping) {
+            this.mapping = mapping;
+        }
+
+        /**
+         * Returns a digest of the mapping of the lookup. Unlike the key itself the digest is stable across node restarts, so it
+         * can be used to key caches that are persisted to disk.
+         */
+        public String digest() {
+            String digest = this.digest;
+            if (digest == null) {
+                // computing the digest concurrently is harmless, it's always the same
+                this.digest = digest = mapping.toCompressedXContent().getSha256();
+            }
+            return digest;
+        }
     }
 
     /**
@@ -43,7 +61,7 @@ public final class MappingLookup {
      */
     public static final MappingLookup EMPTY = fromMappers(Mapping.EMPTY, List.of(), List.of(), List.of());
 
-    private final CacheKey cacheKey = new CacheKey();
+    private final CacheKey cacheKey;
 
     /** Full field name to mapper */
     private final Map<String, Mapper> fieldMappers;
@@ -129,6 +147,7 @@ public final class MappingLookup {
         Collection<FieldAliasMapper> aliasMappers
     ) {
         this.mapping = mapping;
+        this.cacheKey = new CacheKey(mapping);
         Map<String, Mapper> fieldMappers = new HashMap<>();
         Map<String, ObjectMapper> objects = new HashMap<>();
 
@@ -533,6 +533,11 @@ public final class FlattenedFieldMapper extends FieldMapper {
             return new KeyedFlattenedFieldData(key, fieldData, toScriptFieldFactory);
         }
 
+        @Override
+        public boolean isGlobalLoaded(DirectoryReader indexReader) {
+            return delegate.isGlobalLoaded(indexReader);
+        }
+
         @Override
         public IndexOrdinalsFieldData loadGlobalDirect(DirectoryReader indexReader) throws Exception {
             IndexOrdinalsFieldData fieldData = delegate.loadGlobalDirect(indexReader);
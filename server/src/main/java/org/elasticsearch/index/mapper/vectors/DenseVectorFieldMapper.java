@@ -18,12 +18,12 @@ import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.VectorSimilarityFunction;
 import org.apache.lucene.index.VectorValues;
 import org.apache.lucene.search.FieldExistsQuery;
-import org.apache.lucene.search.KnnVectorQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.VectorUtil;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.index.fielddata.FieldDataContext;
 import org.elasticsearch.index.fielddata.IndexFieldData;
 import org.elasticsearch.index.mapper.ArraySourceValueFetcher;
@@ -41,6 +41,8 @@ import org.elasticsearch.index.mapper.ValueFetcher;
 import org.elasticsearch.index.query.SearchExecutionContext;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
+import org.elasticsearch.search.vectors.MultiSegmentKnnVectorQuery;
+import org.elasticsearch.search.vectors.RescoreKnnVectorQuery;
 import org.elasticsearch.xcontent.ToXContent;
 import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xcontent.XContentParser.Token;
@@ -62,6 +64,7 @@ public class DenseVectorFieldMapper extends FieldMapper {
     public static final String CONTENT_TYPE = "dense_vector";
     public static short MAX_DIMS_COUNT = 2048; // maximum allowed number of dimensions
     public static final int MAGNITUDE_BYTES = 4;
+    static final String RAW_VECTOR_SUFFIX = "._raw";
 
     private static DenseVectorFieldMapper toType(FieldMapper in) {
         return (DenseVectorFieldMapper) in;
@@ -139,6 +142,19 @@ public class DenseVectorFieldMapper extends FieldMapper {
 
         @Override
         public DenseVectorFieldMapper build(MapperBuilderContext context) {
+            boolean quantized = indexOptions.getValue() instanceof Int8HnswIndexOptions;
+            if (quantized) {
+                if (elementType.getValue() != ElementType.FLOAT) {
+                    throw new MapperParsingException(
+                        "[index_options] of type [int8_hnsw] can only be used with [element_type] [float] for field [" + name + "]"
+                    );
+                }
+                if (similarity.getValue() == VectorSimilarity.l2_norm) {
+                    throw new MapperParsingException(
+                        "[index_options] of type [int8_hnsw] don't support [similarity] [l2_norm] for field [" + name + "]"
+                    );
+                }
+            }
             return new DenseVectorFieldMapper(
                 name,
                 new DenseVectorFieldType(
@@ -148,6 +164,7 @@ public class DenseVectorFieldMapper extends FieldMapper {
                     dims.getValue(),
                     indexed.getValue(),
                     similarity.getValue(),
+                    quantized,
                     meta.getValue()
                 ),
                 elementType.getValue(),
@@ -416,23 +433,27 @@ public class DenseVectorFieldMapper extends FieldMapper {
         private final int m;
         private final int efConstruction;
 
-        static IndexOptions parseIndexOptions(String fieldName, Map<String, ?> indexOptionsMap) {
+        static IndexOptions parseIndexOptions(String fieldName, String type, Map<String, ?> indexOptionsMap) {
             Object mNode = indexOptionsMap.remove("m");
             Object efConstructionNode = indexOptionsMap.remove("ef_construction");
             if (mNode == null) {
-                throw new MapperParsingException("[index_options] of type [hnsw] requires field [m] to be configured");
+                throw new MapperParsingException("[index_options] of type [" + type + "] requires field [m] to be configured");
             }
             if (efConstructionNode == null) {
-                throw new MapperParsingException("[index_options] of type [hnsw] requires field [ef_construction] to be configured");
+                throw new MapperParsingException(
+                    "[index_options] of type [" + type + "] requires field [ef_construction] to be configured"
+                );
             }
             int m = XContentMapValues.nodeIntegerValue(mNode);
             int efConstruction = XContentMapValues.nodeIntegerValue(efConstructionNode);
             MappingParser.checkNoRemainingFields(fieldName, indexOptionsMap);
-            return new HnswIndexOptions(m, efConstruction);
+            return type.equals(Int8HnswIndexOptions.TYPE)
+                ? new Int8HnswIndexOptions(m, efConstruction)
+                : new HnswIndexOptions("hnsw", m, efConstruction);
         }
 
-        private HnswIndexOptions(int m, int efConstruction) {
-            super("hnsw");
+        private HnswIndexOptions(String type, int m, int efConstruction) {
+            super(type);
             this.m = m;
             this.efConstruction = efConstruction;
         }
@@ -466,6 +487,19 @@ public class DenseVectorFieldMapper extends FieldMapper {
         }
     }
 
+    /**
+     * HNSW graph over vectors that are quantized to one signed byte per dimension, which makes the graph four times smaller
+     * than with float vectors. The original float vectors are kept in binary doc values so that they can be used to re-score
+     * the nearest neighbors, for scripts and for synthetic source, without having to be read when walking the graph.
+     */
+    private static class Int8HnswIndexOptions extends HnswIndexOptions {
+        static final String TYPE = "int8_hnsw";
+
+        private Int8HnswIndexOptions(int m, int efConstruction) {
+            super(TYPE, m, efConstruction);
+        }
+    }
+
     public static final TypeParser PARSER = new TypeParser(
         (n, c) -> new Builder(n, c.indexVersionCreated()),
         notInMultiFields(CONTENT_TYPE)
@@ -476,6 +510,7 @@ public class DenseVectorFieldMapper extends FieldMapper {
         private final int dims;
         private final boolean indexed;
         private final VectorSimilarity similarity;
+        private final boolean quantized;
         private final Version indexVersionCreated;
 
         public DenseVectorFieldType(
@@ -487,14 +522,35 @@ public class DenseVectorFieldMapper extends FieldMapper {
             VectorSimilarity similarity,
             Map<String, String> meta
         ) {
-            super(name, indexed, false, indexed == false, TextSearchInfo.NONE, meta);
+            this(name, indexVersionCreated, elementType, dims, indexed, similarity, false, meta);
+        }
+
+        public DenseVectorFieldType(
+            String name,
+            Version indexVersionCreated,
+            ElementType elementType,
+            int dims,
+            boolean indexed,
+            VectorSimilarity similarity,
+            boolean quantized,
+            Map<String, String> meta
+        ) {
+            super(name, indexed, false, indexed == false || quantized, TextSearchInfo.NONE, meta);
             this.elementType = elementType;
             this.dims = dims;
             this.indexed = indexed;
             this.similarity = similarity;
+            this.quantized = quantized;
             this.indexVersionCreated = indexVersionCreated;
         }
 
+        /**
+         * Whether the vectors are indexed as int8 quantized vectors, with the original float vectors kept in doc values.
+         */
+        public boolean isQuantized() {
+            return quantized;
+        }
+
         @Override
         public String typeName() {
             return CONTENT_TYPE;
@@ -527,6 +583,17 @@ public class DenseVectorFieldMapper extends FieldMapper {
 
         @Override
         public IndexFieldData.Builder fielddataBuilder(FieldDataContext fieldDataContext) {
+            if (quantized) {
+                // scripts get the original float vectors rather than the quantized ones
+                return new VectorIndexFieldData.Builder(
+                    name() + RAW_VECTOR_SUFFIX,
+                    CoreValuesSourceType.KEYWORD,
+                    indexVersionCreated,
+                    ElementType.FLOAT,
+                    dims,
+                    false
+                );
+            }
             return elementType.fielddataBuilder(this, fieldDataContext);
         }
 
@@ -540,7 +607,31 @@ public class DenseVectorFieldMapper extends FieldMapper {
             throw new IllegalArgumentException("Field [" + name() + "] of type [" + typeName() + "] doesn't support term queries");
         }
 
-        public KnnVectorQuery createKnnQuery(float[] queryVector, int numCands, Query filter) {
+        public Query createKnnQuery(float[] queryVector, int numCands, Query filter) {
+            return createKnnQuery(queryVector, numCands, filter, false);
+        }
+
+        /**
+         * Creates a query that finds the {@code numCands} nearest neighbors of the query vector. If the vectors are
+         * {@link #isQuantized() quantized} and {@code rescore} is set then the scores of the nearest neighbors are
+         * computed again with the original float vectors, otherwise {@code rescore} has no effect since the scores
+         * are already exact.
+         */
+        public Query createKnnQuery(float[] queryVector, int numCands, Query filter, boolean rescore) {
+            return createKnnQuery(queryVector, numCands, filter, rescore, null);
+        }
+
+        /**
+         * Like {@link #createKnnQuery(float[], int, Query, boolean)}, but the graphs of the segments share the nearest neighbors
+         * they found so far if {@code sharedTopK} is set, see {@link MultiSegmentKnnVectorQuery}.
+         */
+        public Query createKnnQuery(
+            float[] queryVector,
+            int numCands,
+            Query filter,
+            boolean rescore,
+            @Nullable MultiSegmentKnnVectorQuery.SharedTopK sharedTopK
+        ) {
             if (isIndexed() == false) {
                 throw new IllegalArgumentException(
                     "to perform knn search on field [" + name() + "], its mapping must have [index] set to [true]"
@@ -563,8 +654,43 @@ public class DenseVectorFieldMapper extends FieldMapper {
                 elementType.checkVectorMagnitude(similarity, queryVector, squaredMagnitude);
             }
 
-            return new KnnVectorQuery(name(), queryVector, numCands, filter);
+            if (quantized) {
+                Query knnQuery = new MultiSegmentKnnVectorQuery(name(), toFloats(quantize(queryVector)), numCands, filter, sharedTopK);
+                if (rescore) {
+                    return new RescoreKnnVectorQuery(knnQuery, name() + RAW_VECTOR_SUFFIX, queryVector, similarity.function);
+                }
+                return knnQuery;
+            }
+            return new MultiSegmentKnnVectorQuery(name(), queryVector, numCands, filter, sharedTopK);
+        }
+    }
+
+    /**
+     * Quantizes a vector to one signed byte per dimension by scaling it so that its largest absolute component maps to
+     * {@link Byte#MAX_VALUE}. Every vector gets its own scale, so only the direction of the vectors is retained: this is
+     * what the {@code cosine} similarity compares, and {@code dot_product} is the same as {@code cosine} on the unit-length
+     * vectors that it requires.
+     */
+    static byte[] quantize(float[] vector) {
+        float maxAbs = 0f;
+        for (float value : vector) {
+            maxAbs = Math.max(maxAbs, Math.abs(value));
+        }
+        assert maxAbs > 0f : "zero vectors are rejected by the similarity checks";
+        float scale = Byte.MAX_VALUE / maxAbs;
+        byte[] quantized = new byte[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            quantized[i] = (byte) Math.round(vector[i] * scale);
+        }
+        return quantized;
+    }
+
+    private static float[] toFloats(byte[] vector) {
+        float[] floats = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            floats[i] = vector[i];
         }
+        return floats;
     }
 
     private final ElementType elementType;
@@ -636,9 +762,27 @@ public class DenseVectorFieldMapper extends FieldMapper {
         checkDimensionMatches(index, context);
         elementType.checkVectorBounds(vector);
         elementType.checkVectorMagnitude(similarity, vector, squaredMagnitude);
+        if (fieldType().quantized) {
+            context.doc().add(new BinaryDocValuesField(fieldType().name() + RAW_VECTOR_SUFFIX, encodeRawVector(vector, squaredMagnitude)));
+            // the quantized vectors only retain the direction of the original vectors, see #quantize
+            return new KnnVectorField(fieldType().name(), new BytesRef(quantize(vector)), VectorSimilarityFunction.COSINE);
+        }
         return elementType.createKnnVectorField(fieldType().name(), vector, similarity.function);
     }
 
+    private BytesRef encodeRawVector(float[] vector, float squaredMagnitude) {
+        // same encoding as non-indexed float vectors so that the raw vectors can be read like them
+        boolean withMagnitude = indexCreatedVersion.onOrAfter(Version.V_7_5_0);
+        ByteBuffer byteBuffer = ByteBuffer.allocate(dims * ElementType.FLOAT.elementBytes + (withMagnitude ? MAGNITUDE_BYTES : 0));
+        for (float value : vector) {
+            byteBuffer.putFloat(value);
+        }
+        if (withMagnitude) {
+            byteBuffer.putFloat((float) Math.sqrt(squaredMagnitude));
+        }
+        return new BytesRef(byteBuffer.array());
+    }
+
     private Field parseBinaryDocValuesVector(DocumentParserContext context) throws IOException {
         // encode array of floats as array of integers and store into buf
         // this code is here and not int the VectorEncoderDecoder so not to create extra arrays
@@ -737,8 +881,8 @@ public class DenseVectorFieldMapper extends FieldMapper {
             throw new MapperParsingException("[index_options] requires field [type] to be configured");
         }
         String type = XContentMapValues.nodeStringValue(typeNode);
-        if (type.equals("hnsw")) {
-            return HnswIndexOptions.parseIndexOptions(fieldName, indexOptionsMap);
+        if (type.equals("hnsw") || type.equals(Int8HnswIndexOptions.TYPE)) {
+            return HnswIndexOptions.parseIndexOptions(fieldName, type, indexOptionsMap);
         } else {
             throw new MapperParsingException("Unknown vector index options type [" + type + "] for field [" + fieldName + "]");
         }
@@ -764,10 +908,10 @@ public class DenseVectorFieldMapper extends FieldMapper {
                 "field [" + name() + "] of type [" + typeName() + "] doesn't support synthetic source because it declares copy_to"
             );
         }
-        if (indexed) {
+        if (indexed && fieldType().quantized == false) {
             return new IndexedSyntheticFieldLoader();
         }
-        return new DocValuesSyntheticFieldLoader();
+        return new DocValuesSyntheticFieldLoader(fieldType().quantized ? name() + RAW_VECTOR_SUFFIX : name());
     }
 
     private class IndexedSyntheticFieldLoader implements SourceLoader.SyntheticFieldLoader {
@@ -810,9 +954,14 @@ public class DenseVectorFieldMapper extends FieldMapper {
     }
 
     private class DocValuesSyntheticFieldLoader implements SourceLoader.SyntheticFieldLoader {
+        private final String fieldName;
         private BinaryDocValues values;
         private boolean hasValue;
 
+        private DocValuesSyntheticFieldLoader(String fieldName) {
+            this.fieldName = fieldName;
+        }
+
         @Override
         public Stream<Map.Entry<String, StoredFieldLoader>> storedFieldLoaders() {
             return Stream.of();
@@ -820,7 +969,7 @@ public class DenseVectorFieldMapper extends FieldMapper {
 
         @Override
         public DocValuesLoader docValuesLoader(LeafReader leafReader, int[] docIdsInLeaf) throws IOException {
-            values = leafReader.getBinaryDocValues(name());
+            values = leafReader.getBinaryDocValues(fieldName);
             if (values == null) {
                 return null;
             }
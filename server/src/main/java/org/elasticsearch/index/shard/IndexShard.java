@@ -124,6 +124,7 @@ import org.elasticsearch.index.seqno.SeqNoStats;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.PrimaryReplicaSyncer.ResyncTask;
 import org.elasticsearch.index.similarity.SimilarityService;
+import org.elasticsearch.index.store.LazyRestoreDirectory;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.Store.MetadataSnapshot;
 import org.elasticsearch.index.store.StoreFileMetadata;
@@ -131,6 +132,7 @@ import org.elasticsearch.index.store.StoreStats;
 import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogConfig;
 import org.elasticsearch.index.translog.TranslogStats;
+import org.elasticsearch.index.translog.TranslogSyncScheduler;
 import org.elasticsearch.index.warmer.ShardIndexWarmerService;
 import org.elasticsearch.index.warmer.WarmerStats;
 import org.elasticsearch.indices.IndexingMemoryController;
@@ -145,6 +147,7 @@ import org.elasticsearch.indices.recovery.RecoveryTarget;
 import org.elasticsearch.plugins.IndexStorePlugin;
 import org.elasticsearch.repositories.RepositoriesService;
 import org.elasticsearch.repositories.Repository;
+import org.elasticsearch.repositories.blobstore.BlobStoreRepository;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.internal.FieldUsageTrackingDirectoryReader;
 import org.elasticsearch.search.suggest.completion.CompletionStats;
@@ -155,6 +158,7 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.channels.ClosedByInterruptException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
@@ -314,7 +318,8 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         final IndexStorePlugin.SnapshotCommitSupplier snapshotCommitSupplier,
         final LongSupplier relativeTimeInNanosSupplier,
         final Engine.IndexCommitListener indexCommitListener,
-        final ReplicationTracker.Factory replicationTrackerFactory
+        final ReplicationTracker.Factory replicationTrackerFactory,
+        @Nullable final TranslogSyncScheduler translogSyncScheduler
     ) throws IOException {
         super(shardRouting.shardId(), indexSettings);
         assert shardRouting.initializing();
@@ -330,7 +335,14 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         this.indexSortSupplier = indexSortSupplier;
         this.indexEventListener = indexEventListener;
         this.threadPool = threadPool;
-        this.translogSyncProcessor = createTranslogSyncProcessor(logger, threadPool.getThreadContext(), this::getEngine);
+        this.translogSyncScheduler = translogSyncScheduler;
+        this.translogSyncProcessor = createTranslogSyncProcessor(
+            logger,
+            threadPool.getThreadContext(),
+            translogSyncer,
+            translogSyncScheduler,
+            path.getRootDataPath()
+        );
         this.mapperService = mapperService;
         this.indexCache = indexCache;
         this.internalIndexingStats = new InternalIndexingStats();
@@ -1313,6 +1325,13 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
             } else {
                 final long bytesStillToRecover = recoveryState == null ? -1L : recoveryState.getIndex().bytesStillToRecover();
                 final long reservedBytes = bytesStillToRecover == -1 ? StoreStats.UNKNOWN_RESERVED_BYTES : bytesStillToRecover;
+                final LazyRestoreDirectory lazyRestoreDirectory = LazyRestoreDirectory.unwrap(store.directory());
+                final long remoteBytes = lazyRestoreDirectory == null ? 0L : lazyRestoreDirectory.remoteSizeInBytes();
+                if (remoteBytes > 0L) {
+                    // files that are still read from the repository are part of the data set but not on disk yet, and the store grows
+                    // by their size once they are copied
+                    return store.stats(Math.max(reservedBytes, remoteBytes), size -> Math.max(0L, size - remoteBytes));
+                }
                 return store.stats(reservedBytes, LongUnaryOperator.identity());
             }
         } catch (IOException e) {
@@ -3004,6 +3023,22 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         return this.currentEngineReference.get();
     }
 
+    /**
+     * If this shard was restored lazily and some of its files were not copied from the repository before it was closed, resumes reading
+     * and copying these files.
+     */
+    private void resumeLazyRestore(RepositoriesService repositoriesService, ActionListener<Void> listener) {
+        final LazyRestoreDirectory directory = LazyRestoreDirectory.unwrap(store.directory());
+        final LazyRestoreDirectory.Source source = directory == null ? null : directory.source();
+        if (source == null) {
+            listener.onResponse(null);
+        } else if (repositoriesService.repository(source.repository()) instanceof BlobStoreRepository blobStoreRepository) {
+            blobStoreRepository.resumeLazyRestore(store, listener);
+        } else {
+            listener.onFailure(new IllegalStateException("repository [" + source.repository() + "] does not support lazy restores"));
+        }
+    }
+
     public void startRecovery(
         RecoveryState recoveryState,
         PeerRecoveryTargetService recoveryTargetService,
@@ -3032,7 +3067,12 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
         switch (recoveryState.getRecoverySource().getType()) {
             case EMPTY_STORE:
             case EXISTING_STORE:
-                executeRecovery("from store", recoveryState, recoveryListener, this::recoverFromStore);
+                executeRecovery(
+                    "from store",
+                    recoveryState,
+                    recoveryListener,
+                    l -> resumeLazyRestore(repositoriesService, l.delegateFailure((delegate, ignored) -> recoverFromStore(delegate)))
+                );
                 break;
             case PEER:
                 try {
@@ -3613,28 +3653,44 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
     }
 
     private final AsyncIOProcessor<Translog.Location> translogSyncProcessor;
+    @Nullable
+    private final TranslogSyncScheduler translogSyncScheduler;
+    // a single instance so that the group commits of the translog sync scheduler can coalesce the syncs of this shard
+    private final CheckedConsumer<List<Translog.Location>, IOException> translogSyncer = this::ensureTranslogSynced;
 
     private static AsyncIOProcessor<Translog.Location> createTranslogSyncProcessor(
         Logger logger,
         ThreadContext threadContext,
-        Supplier<Engine> engineSupplier
+        CheckedConsumer<List<Translog.Location>, IOException> translogSyncer,
+        @Nullable TranslogSyncScheduler translogSyncScheduler,
+        Path dataPath
     ) {
         return new AsyncIOProcessor<>(logger, 1024, threadContext) {
             @Override
             protected void write(List<Tuple<Translog.Location, Consumer<Exception>>> candidates) throws IOException {
+                final long startTimeNanos = System.nanoTime();
                 try {
-                    engineSupplier.get().ensureTranslogSynced(candidates.stream().map(Tuple::v1));
-                } catch (AlreadyClosedException ex) {
-                    // that's fine since we already synced everything on engine close - this also is conform with the methods
-                    // documentation
+                    translogSyncer.accept(candidates.stream().map(Tuple::v1).toList());
                 } catch (IOException ex) { // if this fails we are in deep shit - fail the request
                     logger.debug("failed to sync translog", ex);
                     throw ex;
                 }
+                if (translogSyncScheduler != null) {
+                    translogSyncScheduler.onSynced(dataPath, candidates.size(), System.nanoTime() - startTimeNanos);
+                }
             }
         };
     }
 
+    private void ensureTranslogSynced(List<Translog.Location> locations) throws IOException {
+        try {
+            getEngine().ensureTranslogSynced(locations.stream());
+        } catch (AlreadyClosedException ex) {
+            // that's fine since we already synced everything on engine close - this also is conform with the methods
+            // documentation
+        }
+    }
+
     /**
      * Syncs the given location with the underlying storage unless already synced. This method might return immediately without
      * actually fsyncing the location until the sync listener is called. Yet, unless there is already another thread fsyncing
@@ -3646,7 +3702,12 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
      */
     public final void sync(Translog.Location location, Consumer<Exception> syncListener) {
         verifyNotClosed();
-        translogSyncProcessor.put(location, syncListener);
+        if (translogSyncScheduler != null && translogSyncScheduler.isGroupCommitEnabled()) {
+            // coalesce the fsync with the ones of the other shards on the same data path
+            translogSyncScheduler.sync(path.getRootDataPath(), translogSyncer, location, syncListener);
+        } else {
+            translogSyncProcessor.put(location, syncListener);
+        }
     }
 
     public void sync() throws IOException {
@@ -8,13 +8,28 @@
 
 package org.elasticsearch.index.snapshots;
 
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.repositories.ShardGeneration;
 import org.elasticsearch.repositories.ShardSnapshotResult;
 import org.elasticsearch.snapshots.AbortedSnapshotException;
-
+import org.elasticsearch.xcontent.ConstructingObjectParser;
+import org.elasticsearch.xcontent.ParseField;
+import org.elasticsearch.xcontent.ToXContentObject;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static org.elasticsearch.xcontent.ConstructingObjectParser.constructorArg;
+
 /**
  * Represent shard snapshot status
  */
@@ -63,6 +78,7 @@ public class IndexShardSnapshotStatus {
     private long processedSize;
     private long indexVersion;
     private String failure;
+    private final List<FileUploadStats> parallelFileUploads = new ArrayList<>();
 
     private IndexShardSnapshotStatus(
         final Stage stage,
@@ -183,6 +199,13 @@ public class IndexShardSnapshotStatus {
         processedSize += totalSize;
     }
 
+    /**
+     * Records the upload of a file whose parts were uploaded concurrently
+     */
+    public synchronized void addParallelFileUpload(FileUploadStats fileUploadStats) {
+        parallelFileUploads.add(fileUploadStats);
+    }
+
     /**
      * Returns a copy of the current {@link IndexShardSnapshotStatus}. This method is
      * intended to be used when a coherent state of {@link IndexShardSnapshotStatus} is needed.
@@ -201,7 +224,8 @@ public class IndexShardSnapshotStatus {
             totalSize,
             processedSize,
             indexVersion,
-            failure
+            failure,
+            List.copyOf(parallelFileUploads)
         );
     }
 
@@ -258,6 +282,7 @@ public class IndexShardSnapshotStatus {
         private final long incrementalSize;
         private final long indexVersion;
         private final String failure;
+        private final List<FileUploadStats> parallelFileUploads;
 
         public Copy(
             final Stage stage,
@@ -270,7 +295,8 @@ public class IndexShardSnapshotStatus {
             final long totalSize,
             final long processedSize,
             final long indexVersion,
-            final String failure
+            final String failure,
+            final List<FileUploadStats> parallelFileUploads
         ) {
             this.stage = stage;
             this.startTime = startTime;
@@ -283,6 +309,7 @@ public class IndexShardSnapshotStatus {
             this.incrementalSize = incrementalSize;
             this.indexVersion = indexVersion;
             this.failure = failure;
+            this.parallelFileUploads = parallelFileUploads;
         }
 
         public Stage getStage() {
@@ -329,6 +356,13 @@ public class IndexShardSnapshotStatus {
             return failure;
         }
 
+        /**
+         * Returns the files whose parts were uploaded concurrently
+         */
+        public List<FileUploadStats> getParallelFileUploads() {
+            return parallelFileUploads;
+        }
+
         @Override
         public String toString() {
             return "index shard snapshot status ("
@@ -358,4 +392,75 @@ public class IndexShardSnapshotStatus {
                 + ')';
         }
     }
+
+    /**
+     * Statistics about the upload of a single file whose parts were uploaded concurrently.
+     *
+     * @param name               the name of the file in the shard
+     * @param parts              the number of parts the file was split into
+     * @param maxConcurrentParts the largest number of parts that were uploaded at the same time
+     * @param sizeInBytes        the size of the file
+     * @param timeInMillis       the time it took to upload all parts and verify the file
+     */
+    public record FileUploadStats(String name, int parts, int maxConcurrentParts, long sizeInBytes, long timeInMillis)
+        implements
+            Writeable,
+            ToXContentObject {
+
+        static final ParseField NAME = new ParseField("name");
+        static final ParseField PARTS = new ParseField("parts");
+        static final ParseField MAX_CONCURRENT_PARTS = new ParseField("max_concurrent_parts");
+        static final ParseField SIZE_IN_BYTES = new ParseField("size_in_bytes");
+        static final ParseField TIME_IN_MILLIS = new ParseField("time_in_millis");
+
+        private static final ConstructingObjectParser<FileUploadStats, Void> PARSER = new ConstructingObjectParser<>(
+            "file_upload_stats",
+            true,
+            args -> new FileUploadStats((String) args[0], (int) args[1], (int) args[2], (long) args[3], (long) args[4])
+        );
+
+        static {
+            PARSER.declareString(constructorArg(), NAME);
+            PARSER.declareInt(constructorArg(), PARTS);
+            PARSER.declareInt(constructorArg(), MAX_CONCURRENT_PARTS);
+            PARSER.declareLong(constructorArg(), SIZE_IN_BYTES);
+            PARSER.declareLong(constructorArg(), TIME_IN_MILLIS);
+        }
+
+        public FileUploadStats(StreamInput in) throws IOException {
+            this(in.readString(), in.readVInt(), in.readVInt(), in.readVLong(), in.readVLong());
+        }
+
+        public static FileUploadStats fromXContent(XContentParser parser) throws IOException {
+            return PARSER.parse(parser, null);
+        }
+
+        /**
+         * Returns the number of bytes uploaded per second
+         */
+        public long throughputInBytesPerSecond() {
+            return sizeInBytes * 1000 / Math.max(1L, timeInMillis);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(name);
+            out.writeVInt(parts);
+            out.writeVInt(maxConcurrentParts);
+            out.writeVLong(sizeInBytes);
+            out.writeVLong(timeInMillis);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field(NAME.getPreferredName(), name);
+            builder.field(PARTS.getPreferredName(), parts);
+            builder.field(MAX_CONCURRENT_PARTS.getPreferredName(), maxConcurrentParts);
+            builder.humanReadableField(SIZE_IN_BYTES.getPreferredName(), "size", ByteSizeValue.ofBytes(sizeInBytes));
+            builder.humanReadableField(TIME_IN_MILLIS.getPreferredName(), "time", new TimeValue(timeInMillis));
+            builder.field("throughput_in_bytes_per_sec", throughputInBytesPerSecond());
+            return builder.endObject();
+        }
+    }
 }
@@ -0,0 +1,802 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.store;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.store.BufferedIndexInput;
+import org.apache.lucene.store.ChecksumIndexInput;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FilterDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+import org.elasticsearch.index.snapshots.blobstore.SlicedInputStream;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.snapshots.SnapshotId;
+
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+import static org.elasticsearch.core.Strings.format;
+
+/**
+ * A {@link Directory} for the shards of indices restored with {@link #INDEX_LAZY_RESTORE_SETTING}. Such a restore registers the files of
+ * the snapshot as remote files instead of copying them, so the shard starts as soon as the snapshot metadata is loaded. Remote files are
+ * read from the repository while they are copied to the wrapped directory in the background. Once a file is copied, all inputs of this
+ * file, including those that were opened before, read it locally; once all files are copied this directory behaves like the directory it
+ * wraps.
+ * <p>
+ * Searches read the remote files in blocks of {@link #BLOCK_SIZE_IN_BYTES}, which are cached in memory up to
+ * {@link #BLOCK_CACHE_SIZE_IN_BYTES} per directory until the file is copied. The first read of a block waits for a ranged read from
+ * the repository, so queries are slower while a shard copies its files, most noticeably for those that read many blocks once.
+ * <p>
+ * The remote files are recorded in a state file in the wrapped directory, so that copying resumes after the shard is reopened, see
+ * {@link #resume}. The snapshot must not be deleted while files are still remote: the restore records it in the private
+ * {@link #INDEX_LAZY_RESTORE_SOURCE_PREFIX} settings of the index, which block its deletion until the primaries of all shards
+ * reported that their files are local.
+ */
+public final class LazyRestoreDirectory extends FilterDirectory {
+
+    private static final Logger logger = LogManager.getLogger(LazyRestoreDirectory.class);
+
+    /**
+     * Restore the shards of an index lazily. Only applies to restores, and ignored when the index is restored from a snapshot of an index
+     * that was itself restored lazily unless it is set in the index settings of the restore request.
+     */
+    public static final Setting<Boolean> INDEX_LAZY_RESTORE_SETTING = Setting.boolSetting(
+        "index.restore.lazy",
+        false,
+        Setting.Property.IndexScope
+    );
+
+    /**
+     * Prefix of the private settings that record the snapshot of a lazily restored index until all its shards copied their files, so
+     * that the snapshot cannot be deleted while it is still read from.
+     */
+    public static final String INDEX_LAZY_RESTORE_SOURCE_PREFIX = "index.restore.lazy_source.";
+
+    public static final Setting<String> INDEX_LAZY_RESTORE_REPOSITORY_NAME_SETTING = Setting.simpleString(
+        INDEX_LAZY_RESTORE_SOURCE_PREFIX + "repository_name",
+        Setting.Property.IndexScope,
+        Setting.Property.PrivateIndex,
+        Setting.Property.NotCopyableOnResize
+    );
+
+    public static final Setting<String> INDEX_LAZY_RESTORE_SNAPSHOT_UUID_SETTING = Setting.simpleString(
+        INDEX_LAZY_RESTORE_SOURCE_PREFIX + "snapshot_uuid",
+        Setting.Property.IndexScope,
+        Setting.Property.PrivateIndex,
+        Setting.Property.NotCopyableOnResize
+    );
+
+    /**
+     * The shards of a lazily restored index whose primary reported that all files are local.
+     */
+    public static final Setting<List<Integer>> INDEX_LAZY_RESTORE_COMPLETED_SHARDS_SETTING = Setting.listSetting(
+        INDEX_LAZY_RESTORE_SOURCE_PREFIX + "completed_shards",
+        List.of(),
+        Integer::parseInt,
+        Setting.Property.IndexScope,
+        Setting.Property.PrivateIndex,
+        Setting.Property.NotCopyableOnResize
+    );
+
+    // files of this directory that are hidden from Lucene all start with this prefix
+    static final String FILE_PREFIX = "lazy_restore.";
+    static final String STATE_FILE_NAME = FILE_PREFIX + "state";
+    private static final String STATE_CODEC = "lazy_restore_state";
+    private static final int STATE_VERSION = 0;
+
+    // remote files are read from the repository in blocks of this size, the last block of a file may be smaller
+    static final int BLOCK_SIZE_IN_BYTES = 128 * 1024;
+    static final long BLOCK_CACHE_SIZE_IN_BYTES = 8L * 1024 * 1024;
+
+    /**
+     * The coordinates of the shard snapshot that remote files are read from.
+     */
+    public record Source(String repository, SnapshotId snapshotId, IndexId indexId, ShardId snapshotShardId) {}
+
+    private static final class RemoteFile {
+        private final String name;
+        private final long length;
+        // null until the restore of the shard is resumed after the shard was reopened
+        private volatile FileInfo fileInfo;
+        private volatile boolean copied;
+
+        RemoteFile(String name, long length, @Nullable FileInfo fileInfo) {
+            this.name = name;
+            this.length = length;
+            this.fileInfo = fileInfo;
+        }
+    }
+
+    private record BlockKey(RemoteFile remoteFile, long block) {}
+
+    // guards the remote files, the source and the state files
+    private final Object mutex = new Object();
+    private final Map<String, RemoteFile> remoteFiles = new HashMap<>();
+    @Nullable
+    private Source source;
+    @Nullable
+    private volatile BlobContainer blobContainer;
+    private volatile int bufferSize = BufferedIndexInput.BUFFER_SIZE;
+    private long stateGeneration;
+    private final List<Runnable> completionListeners = new ArrayList<>();
+    private final Cache<BlockKey, byte[]> blockCache = CacheBuilder.<BlockKey, byte[]>builder()
+        .setMaximumWeight(BLOCK_CACHE_SIZE_IN_BYTES)
+        .weigher((key, block) -> block.length)
+        .build();
+
+    public LazyRestoreDirectory(Directory in) throws IOException {
+        super(in);
+        readState();
+    }
+
+    /**
+     * @return the {@link LazyRestoreDirectory} that the given directory wraps, or {@code null} if there is none
+     */
+    @Nullable
+    public static LazyRestoreDirectory unwrap(Directory directory) {
+        while (directory instanceof FilterDirectory filterDirectory) {
+            if (directory instanceof LazyRestoreDirectory lazyRestoreDirectory) {
+                return lazyRestoreDirectory;
+            }
+            directory = filterDirectory.getDelegate();
+        }
+        return null;
+    }
+
+    /**
+     * @return the shard snapshot that the remote files of this directory are read from, or {@code null} if all files are local
+     */
+    @Nullable
+    public Source source() {
+        synchronized (mutex) {
+            return remoteFiles.isEmpty() ? null : source;
+        }
+    }
+
+    /**
+     * @return whether some files are still read from the repository
+     */
+    public boolean hasRemoteFiles() {
+        synchronized (mutex) {
+            return remoteFiles.isEmpty() == false;
+        }
+    }
+
+    /**
+     * @return the number of bytes of the files that are still read from the repository
+     */
+    public long remoteSizeInBytes() {
+        synchronized (mutex) {
+            return remoteFiles.values().stream().mapToLong(file -> file.length).sum();
+        }
+    }
+
+    /**
+     * Runs the given listener once all files of this directory are local, which may be immediately. The listener is not run if copying
+     * the remote files fails, nor when the shard is closed before all files are copied.
+     */
+    public void addCompletionListener(Runnable listener) {
+        synchronized (mutex) {
+            if (remoteFiles.isEmpty() == false) {
+                completionListeners.add(listener);
+                return;
+            }
+        }
+        listener.run();
+    }
+
+    /**
+     * Registers the given files of a shard snapshot as remote files and records them in the state file.
+     *
+     * @param bufferSize the size of the buffers used to read and copy the remote files
+     */
+    public void addRemoteFiles(Source source, BlobContainer blobContainer, int bufferSize, List<FileInfo> files) throws IOException {
+        final Set<String> localFiles = Set.of(in.listAll());
+        for (FileInfo file : files) {
+            if (localFiles.contains(file.physicalName())) {
+                throw new FileAlreadyExistsException(file.physicalName());
+            }
+        }
+        synchronized (mutex) {
+            if (remoteFiles.isEmpty() == false && source.equals(this.source) == false) {
+                throw new IllegalStateException("directory already has remote files from [" + this.source + "]");
+            }
+            this.source = source;
+            this.blobContainer = blobContainer;
+            this.bufferSize = bufferSize;
+            for (FileInfo file : files) {
+                remoteFiles.put(file.physicalName(), new RemoteFile(file.physicalName(), file.length(), file));
+            }
+            writeState();
+        }
+    }
+
+    /**
+     * Resumes reading the remote files from the repository after the shard was reopened.
+     *
+     * @param snapshotFiles the files of the shard snapshot that {@link #source()} points to
+     */
+    public void resume(BlobContainer blobContainer, int bufferSize, List<FileInfo> snapshotFiles) {
+        final Map<String, FileInfo> filesByName = snapshotFiles.stream().collect(Collectors.toMap(FileInfo::physicalName, f -> f));
+        synchronized (mutex) {
+            for (RemoteFile remoteFile : remoteFiles.values()) {
+                final FileInfo fileInfo = filesByName.get(remoteFile.name);
+                if (fileInfo == null || fileInfo.length() != remoteFile.length) {
+                    throw new IllegalStateException(
+                        "file [" + remoteFile.name + "] of length [" + remoteFile.length + "] is missing in snapshot [" + source + "]"
+                    );
+                }
+                remoteFile.fileInfo = fileInfo;
+            }
+            this.blobContainer = blobContainer;
+            this.bufferSize = bufferSize;
+        }
+    }
+
+    /**
+     * Copies the remote files to the wrapped directory in the background, one file at a time and smallest files first.
+     *
+     * @param rateLimiter      rate limits the streams of the files read from the repository
+     * @param progressListener notified of the number of bytes copied to a file
+     */
+    public void copyRemoteFiles(
+        Store store,
+        Executor executor,
+        UnaryOperator<InputStream> rateLimiter,
+        BiConsumer<String, Long> progressListener
+    ) {
+        executor.execute(new AbstractRunnable() {
+            @Override
+            protected void doRun() throws Exception {
+                if (store.tryIncRef() == false) {
+                    return;
+                }
+                final boolean hasMoreFiles;
+                try {
+                    final RemoteFile remoteFile;
+                    synchronized (mutex) {
+                        remoteFile = remoteFiles.values()
+                            .stream()
+                            .min(Comparator.<RemoteFile>comparingLong(file -> file.length).thenComparing(file -> file.name))
+                            .orElse(null);
+                    }
+                    if (remoteFile == null) {
+                        logger.debug("{} all files of the lazy restore are local", store.shardId());
+                        return;
+                    }
+                    copyRemoteFile(store, remoteFile, rateLimiter, progressListener);
+                    hasMoreFiles = hasRemoteFiles();
+                } finally {
+                    store.decRef();
+                }
+                if (hasMoreFiles) {
+                    executor.execute(this);
+                } else {
+                    logger.info("{} finished copying the files of the lazy restore from [{}]", store.shardId(), source);
+                    final List<Runnable> listeners;
+                    synchronized (mutex) {
+                        listeners = List.copyOf(completionListeners);
+                        completionListeners.clear();
+                    }
+                    listeners.forEach(Runnable::run);
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                // the remaining files are still read from the repository, and copying them resumes when the shard is reopened
+                logger.warn(() -> format("%s failed to copy the files of the lazy restore", store.shardId()), e);
+            }
+        });
+    }
+
+    private void copyRemoteFile(
+        Store store,
+        RemoteFile remoteFile,
+        UnaryOperator<InputStream> rateLimiter,
+        BiConsumer<String, Long> progressListener
+    ) throws IOException {
+        final FileInfo fileInfo = remoteFile.fileInfo;
+        final BlobContainer container = blobContainer;
+        if (fileInfo == null || container == null) {
+            throw new IllegalStateException("lazy restore of [" + remoteFile.name + "] was not resumed");
+        }
+        final String tempFileName = FILE_PREFIX + remoteFile.name;
+        deleteIfExists(tempFileName);
+        boolean success = false;
+        try {
+            try (
+                IndexOutput output = new Store.LuceneVerifyingIndexOutput(
+                    fileInfo.metadata(),
+                    in.createOutput(tempFileName, IOContext.DEFAULT)
+                );
+                InputStream stream = rateLimiter.apply(new SlicedInputStream(fileInfo.numberOfParts()) {
+                    @Override
+                    protected InputStream openSlice(int slice) throws IOException {
+                        store.ensureOpen();
+                        return container.readBlob(fileInfo.partName(slice));
+                    }
+                })
+            ) {
+                final byte[] buffer = new byte[Math.toIntExact(Math.min(bufferSize, fileInfo.length()))];
+                int length;
+                while ((length = stream.read(buffer)) > 0) {
+                    output.writeBytes(buffer, 0, length);
+                    progressListener.accept(remoteFile.name, (long) length);
+                }
+                Store.verify(output);
+            }
+            in.sync(List.of(tempFileName));
+            synchronized (mutex) {
+                if (remoteFiles.get(remoteFile.name) == remoteFile) {
+                    in.rename(tempFileName, remoteFile.name);
+                    in.syncMetaData();
+                    remoteFile.copied = true;
+                    remoteFiles.remove(remoteFile.name);
+                    writeState();
+                    success = true;
+                    invalidateBlocks(remoteFile);
+                    logger.trace("{} copied [{}] of the lazy restore", store.shardId(), remoteFile.name);
+                }
+            }
+        } finally {
+            if (success == false) {
+                deleteIfExists(tempFileName);
+            }
+        }
+    }
+
+    @Override
+    public String[] listAll() throws IOException {
+        final TreeSet<String> files = new TreeSet<>();
+        for (String file : in.listAll()) {
+            if (file.startsWith(FILE_PREFIX) == false) {
+                files.add(file);
+            }
+        }
+        synchronized (mutex) {
+            files.addAll(remoteFiles.keySet());
+        }
+        return files.toArray(String[]::new);
+    }
+
+    @Override
+    public long fileLength(String name) throws IOException {
+        final RemoteFile remoteFile = remoteFile(name);
+        return remoteFile != null ? remoteFile.length : in.fileLength(name);
+    }
+
+    @Override
+    public IndexInput openInput(String name, IOContext context) throws IOException {
+        final RemoteFile remoteFile = remoteFile(name);
+        if (remoteFile == null) {
+            return in.openInput(name, context);
+        }
+        final BlobContainer container = blobContainer;
+        if (remoteFile.fileInfo == null || container == null) {
+            throw new IOException("file [" + name + "] is restored lazily from [" + source + "] but the restore was not resumed");
+        }
+        return new RemoteIndexInput(remoteFile, container, bufferSize, context);
+    }
+
+    @Override
+    public IndexOutput createOutput(String name, IOContext context) throws IOException {
+        if (remoteFile(name) != null) {
+            throw new FileAlreadyExistsException(name);
+        }
+        return in.createOutput(name, context);
+    }
+
+    @Override
+    public void deleteFile(String name) throws IOException {
+        final RemoteFile remoteFile;
+        synchronized (mutex) {
+            remoteFile = remoteFiles.remove(name);
+            if (remoteFile != null) {
+                writeState();
+            }
+        }
+        if (remoteFile != null) {
+            invalidateBlocks(remoteFile);
+            return;
+        }
+        in.deleteFile(name);
+    }
+
+    @Override
+    public void sync(Collection<String> names) throws IOException {
+        synchronized (mutex) {
+            // remote files are durable in the repository
+            names = names.stream().filter(name -> remoteFiles.containsKey(name) == false).toList();
+        }
+        in.sync(names);
+    }
+
+    @Override
+    public void rename(String source, String dest) throws IOException {
+        if (remoteFile(source) != null) {
+            throw new IOException("cannot rename [" + source + "] which is still restored lazily");
+        }
+        if (remoteFile(dest) != null) {
+            throw new FileAlreadyExistsException(dest);
+        }
+        in.rename(source, dest);
+    }
+
+    @Override
+    public void close() throws IOException {
+        blockCache.invalidateAll();
+        super.close();
+    }
+
+    private void invalidateBlocks(RemoteFile remoteFile) {
+        for (long block = 0; block * BLOCK_SIZE_IN_BYTES < remoteFile.length; block++) {
+            blockCache.invalidate(new BlockKey(remoteFile, block));
+        }
+    }
+
+    @Nullable
+    private RemoteFile remoteFile(String name) {
+        synchronized (mutex) {
+            return remoteFiles.get(name);
+        }
+    }
+
+    private void deleteIfExists(String name) throws IOException {
+        try {
+            in.deleteFile(name);
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            // ok, nothing to delete
+        }
+    }
+
+    /**
+     * @return the name of the given generation of the state file
+     */
+    static String stateFileName(long generation) {
+        return STATE_FILE_NAME + "_" + generation;
+    }
+
+    private void readState() throws IOException {
+        // the state is written to a new generation of the state file each time since files cannot be renamed over existing files
+        String stateFileName = null;
+        for (String file : in.listAll()) {
+            if (file.startsWith(STATE_FILE_NAME + "_")) {
+                final long generation = Long.parseLong(file.substring(STATE_FILE_NAME.length() + 1));
+                if (generation > stateGeneration) {
+                    stateGeneration = generation;
+                    stateFileName = file;
+                }
+            }
+        }
+        if (stateFileName == null) {
+            return;
+        }
+        try (ChecksumIndexInput input = in.openChecksumInput(stateFileName, IOContext.READONCE)) {
+            CodecUtil.checkHeader(input, STATE_CODEC, STATE_VERSION, STATE_VERSION);
+            final String repository = input.readString();
+            final SnapshotId snapshotId = new SnapshotId(input.readString(), input.readString());
+            final IndexId indexId = new IndexId(input.readString(), input.readString());
+            final ShardId snapshotShardId = new ShardId(input.readString(), input.readString(), input.readVInt());
+            final int numberOfFiles = input.readVInt();
+            synchronized (mutex) {
+                source = new Source(repository, snapshotId, indexId, snapshotShardId);
+                for (int i = 0; i < numberOfFiles; i++) {
+                    final String name = input.readString();
+                    remoteFiles.put(name, new RemoteFile(name, input.readVLong(), null));
+                }
+            }
+            CodecUtil.checkFooter(input);
+        }
+        deleteOlderStateFiles();
+    }
+
+    private void writeState() throws IOException {
+        assert Thread.holdsLock(mutex);
+        if (remoteFiles.isEmpty()) {
+            deleteIfExists(stateFileName(stateGeneration));
+            in.syncMetaData();
+            return;
+        }
+        final String stateFileName = stateFileName(stateGeneration + 1);
+        deleteIfExists(stateFileName);
+        try (IndexOutput output = in.createOutput(stateFileName, IOContext.DEFAULT)) {
+            CodecUtil.writeHeader(output, STATE_CODEC, STATE_VERSION);
+            output.writeString(source.repository());
+            output.writeString(source.snapshotId().getName());
+            output.writeString(source.snapshotId().getUUID());
+            output.writeString(source.indexId().getName());
+            output.writeString(source.indexId().getId());
+            output.writeString(source.snapshotShardId().getIndexName());
+            output.writeString(source.snapshotShardId().getIndex().getUUID());
+            output.writeVInt(source.snapshotShardId().id());
+            output.writeVInt(remoteFiles.size());
+            for (RemoteFile remoteFile : remoteFiles.values()) {
+                output.writeString(remoteFile.name);
+                output.writeVLong(remoteFile.length);
+            }
+            CodecUtil.writeFooter(output);
+        }
+        in.sync(List.of(stateFileName));
+        in.syncMetaData();
+        stateGeneration++;
+        deleteOlderStateFiles();
+    }
+
+    private void deleteOlderStateFiles() throws IOException {
+        for (String file : in.listAll()) {
+            if (file.startsWith(STATE_FILE_NAME + "_") && file.equals(stateFileName(stateGeneration)) == false) {
+                deleteIfExists(file);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "LazyRestoreDirectory(" + in + ")";
+    }
+
+    /**
+     * Reads a remote file from the repository through the block cache, and from the wrapped directory once it is copied. The local input
+     * is opened by the first read after the file is copied and shared by all clones and slices of an input, which each clone it.
+     */
+    private final class RemoteIndexInput extends BufferedIndexInput {
+
+        private final RemoteFile remoteFile;
+        private final BlobContainer container;
+        private final LocalInput localInput;
+        private final long offset;
+        private final long length;
+        private boolean isClone;
+        @Nullable
+        private IndexInput localClone;
+
+        RemoteIndexInput(RemoteFile remoteFile, BlobContainer container, int bufferSize, IOContext context) {
+            this(
+                "RemoteIndexInput(" + remoteFile.name + ")",
+                remoteFile,
+                container,
+                new LocalInput(remoteFile, context),
+                0L,
+                remoteFile.length,
+                bufferSize
+            );
+        }
+
+        private RemoteIndexInput(
+            String resourceDescription,
+            RemoteFile remoteFile,
+            BlobContainer container,
+            LocalInput localInput,
+            long offset,
+            long length,
+            int bufferSize
+        ) {
+            super(resourceDescription, bufferSize);
+            this.remoteFile = remoteFile;
+            this.container = container;
+            this.localInput = localInput;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        protected void readInternal(ByteBuffer b) throws IOException {
+            final long position = getFilePointer();
+            final int len = b.remaining();
+            if (position + len > length) {
+                throw new EOFException("read past EOF: " + this + " position=" + position + " len=" + len + " length=" + length);
+            }
+            final byte[] bytes;
+            final int bytesOffset;
+            if (b.hasArray()) {
+                bytes = b.array();
+                bytesOffset = b.arrayOffset() + b.position();
+            } else {
+                bytes = new byte[len];
+                bytesOffset = 0;
+            }
+            final IndexInput local = localClone();
+            if (local != null) {
+                local.seek(offset + position);
+                local.readBytes(bytes, bytesOffset, len);
+            } else {
+                readRemote(offset + position, bytes, bytesOffset, len);
+            }
+            if (b.hasArray()) {
+                b.position(b.position() + len);
+            } else {
+                b.put(bytes, 0, len);
+            }
+        }
+
+        private void readRemote(long position, byte[] bytes, int bytesOffset, int len) throws IOException {
+            while (len > 0) {
+                final long block = position / BLOCK_SIZE_IN_BYTES;
+                final byte[] blockBytes = readBlock(block);
+                final int blockPosition = Math.toIntExact(position - block * BLOCK_SIZE_IN_BYTES);
+                final int read = Math.min(len, blockBytes.length - blockPosition);
+                System.arraycopy(blockBytes, blockPosition, bytes, bytesOffset, read);
+                position += read;
+                bytesOffset += read;
+                len -= read;
+            }
+        }
+
+        private byte[] readBlock(long block) throws IOException {
+            try {
+                return blockCache.computeIfAbsent(new BlockKey(remoteFile, block), key -> {
+                    final long start = block * BLOCK_SIZE_IN_BYTES;
+                    final byte[] blockBytes = new byte[Math.toIntExact(Math.min(BLOCK_SIZE_IN_BYTES, remoteFile.length - start))];
+                    readBlobs(start, blockBytes, 0, blockBytes.length);
+                    return blockBytes;
+                });
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioException) {
+                    throw ioException;
+                }
+                throw new IOException("failed to read block [" + block + "] of [" + remoteFile.name + "]", e.getCause());
+            }
+        }
+
+        private void readBlobs(long position, byte[] bytes, int bytesOffset, int len) throws IOException {
+            final FileInfo fileInfo = remoteFile.fileInfo;
+            final long partSize = fileInfo.numberOfParts() > 1 ? fileInfo.partSize().getBytes() : Long.MAX_VALUE;
+            while (len > 0) {
+                final int part = Math.toIntExact(position / partSize);
+                final long partPosition = position % partSize;
+                final int read = Math.toIntExact(Math.min(len, fileInfo.partBytes(part) - partPosition));
+                try (InputStream stream = container.readBlob(fileInfo.partName(part), partPosition, read)) {
+                    final int actual = Streams.readFully(stream, bytes, bytesOffset, read);
+                    if (actual != read) {
+                        throw new EOFException(
+                            "expected to read [" + read + "] bytes from [" + fileInfo.partName(part) + "] but got [" + actual + "]"
+                        );
+                    }
+                }
+                position += read;
+                bytesOffset += read;
+                len -= read;
+            }
+        }
+
+        @Nullable
+        private IndexInput localClone() throws IOException {
+            if (localClone == null && remoteFile.copied) {
+                final IndexInput input = localInput.get();
+                if (input != null) {
+                    localClone = input.clone();
+                }
+            }
+            return localClone;
+        }
+
+        @Override
+        protected void seekInternal(long pos) throws IOException {
+            if (pos > length) {
+                throw new EOFException("seek past EOF: " + this + " pos=" + pos + " length=" + length);
+            }
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+
+        @Override
+        public RemoteIndexInput clone() {
+            final RemoteIndexInput clone = (RemoteIndexInput) super.clone();
+            clone.isClone = true;
+            clone.localClone = null;
+            return clone;
+        }
+
+        @Override
+        public IndexInput slice(String sliceDescription, long sliceOffset, long sliceLength) throws IOException {
+            if (sliceOffset < 0 || sliceLength < 0 || sliceOffset + sliceLength > length) {
+                throw new IllegalArgumentException(
+                    "slice() "
+                        + sliceDescription
+                        + " out of bounds: offset="
+                        + sliceOffset
+                        + ",length="
+                        + sliceLength
+                        + ",fileLength="
+                        + length
+                );
+            }
+            final RemoteIndexInput slice = new RemoteIndexInput(
+                getFullSliceDescription(sliceDescription),
+                remoteFile,
+                container,
+                localInput,
+                offset + sliceOffset,
+                sliceLength,
+                getBufferSize()
+            );
+            slice.isClone = true;
+            return slice;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (isClone == false) {
+                localInput.close();
+            }
+        }
+    }
+
+    /**
+     * The input of a file that was copied to the wrapped directory, shared by an input and its clones and slices.
+     */
+    private final class LocalInput {
+        private final RemoteFile remoteFile;
+        private final IOContext context;
+        private IndexInput input;
+        // whether the local file could not be opened, e.g. because it was deleted since it was copied
+        private boolean missing;
+        private boolean closed;
+
+        LocalInput(RemoteFile remoteFile, IOContext context) {
+            this.remoteFile = remoteFile;
+            this.context = context;
+        }
+
+        @Nullable
+        synchronized IndexInput get() throws IOException {
+            if (input == null && missing == false && closed == false) {
+                try {
+                    input = in.openInput(remoteFile.name, context);
+                } catch (NoSuchFileException | FileNotFoundException e) {
+                    // the file was deleted since it was copied, keep reading it from the repository
+                    missing = true;
+                }
+            }
+            return input;
+        }
+
+        synchronized void close() throws IOException {
+            closed = true;
+            IOUtils.close(input);
+        }
+    }
+}
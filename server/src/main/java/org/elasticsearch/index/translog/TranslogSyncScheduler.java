@@ -0,0 +1,332 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.network.HandlingTimeTracker;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A node level scheduler that coalesces the translog fsyncs of all the shards that are allocated on the same data path.
+ * <p>
+ * With {@code index.translog.durability: request} every write request syncs the translog of its shard before it is acknowledged.
+ * When {@link #GROUP_COMMIT_WINDOW_SETTING} is set to a positive value, the first write request that needs a sync on a data path
+ * becomes the leader of a batch: it waits for the configured window so that requests of other shards on the same data path can join
+ * the batch, then syncs the translog of every shard in the batch once, up to the highest location that was requested for that shard,
+ * and finally releases all the listeners of the batch at once. The translogs of the shards of a batch are synced in parallel: the
+ * leader forks all of them but one to the sync executor and syncs every translog that no thread of the executor picked up yet
+ * itself. Requests that arrive while a batch is being synced are collected into the next batch, which is processed by the same
+ * leader, similarly to {@link org.elasticsearch.common.util.concurrent.AsyncIOProcessor}. A leader processes at most
+ * {@link #MAX_BATCHES_PER_LEADER} batches before it hands the remaining ones over to the sync executor, so that a write thread isn't
+ * captured for as long as requests keep arriving.
+ * <p>
+ * The scheduler also keeps per data path statistics of the batch sizes and latencies of the translog syncs, including the syncs that
+ * are processed by the per shard {@link org.elasticsearch.common.util.concurrent.AsyncIOProcessor} when group commit is disabled.
+ */
+public class TranslogSyncScheduler {
+
+    private static final Logger logger = LogManager.getLogger(TranslogSyncScheduler.class);
+
+    /**
+     * The time the leader of a batch waits for other translog syncs on the same data path before it processes the batch. A value
+     * of {@code 0} disables group commit, in which case each shard syncs its translog on its own.
+     */
+    public static final Setting<TimeValue> GROUP_COMMIT_WINDOW_SETTING = Setting.timeSetting(
+        "indices.translog.group_commit.window",
+        TimeValue.ZERO,
+        TimeValue.ZERO,
+        TimeValue.timeValueMillis(100),
+        Property.NodeScope,
+        Property.Dynamic
+    );
+
+    static final int MAX_BATCHES_PER_LEADER = 16;
+
+    private final ThreadContext threadContext;
+    private final Executor executor;
+    private final ConcurrentMap<Path, DataPathGroup> groups = ConcurrentCollections.newConcurrentMap();
+    private volatile TimeValue groupCommitWindow;
+
+    /**
+     * @param executor syncs the translogs of the shards of a batch in parallel and processes the batches that a leader hands over
+     */
+    public TranslogSyncScheduler(Settings settings, ClusterSettings clusterSettings, ThreadContext threadContext, Executor executor) {
+        this.threadContext = threadContext;
+        this.executor = executor;
+        this.groupCommitWindow = GROUP_COMMIT_WINDOW_SETTING.get(settings);
+        clusterSettings.addSettingsUpdateConsumer(GROUP_COMMIT_WINDOW_SETTING, this::setGroupCommitWindow);
+    }
+
+    private void setGroupCommitWindow(TimeValue groupCommitWindow) {
+        this.groupCommitWindow = groupCommitWindow;
+    }
+
+    /**
+     * Returns <code>true</code> if the translog syncs of the shards on the same data path should be coalesced
+     */
+    public boolean isGroupCommitEnabled() {
+        return groupCommitWindow.nanos() > 0;
+    }
+
+    /**
+     * Syncs the translog of a shard up to the given location as part of the next batch of the given data path. The listener is
+     * notified once the sync completed, with the exception that the sync failed with, if any. The calling thread might be
+     * hijacked to process the batch if no other thread is currently processing batches for this data path.
+     *
+     * @param dataPath the data path the translog of the shard is stored on
+     * @param syncer   syncs the translog of the shard up to the highest of the given locations. Must be the same instance for all
+     *                 the requests of a shard so that they are coalesced into a single sync
+     * @param location the location to sync up to
+     * @param listener the listener to notify once the sync completed
+     */
+    public void sync(
+        Path dataPath,
+        CheckedConsumer<List<Translog.Location>, IOException> syncer,
+        Translog.Location location,
+        Consumer<Exception> listener
+    ) {
+        groups.computeIfAbsent(dataPath, DataPathGroup::new).sync(syncer, location, listener);
+    }
+
+    /**
+     * Records a translog sync that was not coalesced by this scheduler
+     *
+     * @param dataPath       the data path the translog is stored on
+     * @param operations     the number of requests that were released by this sync
+     * @param tookInNanos    the time it took to sync the translog
+     */
+    public void onSynced(Path dataPath, int operations, long tookInNanos) {
+        groups.computeIfAbsent(dataPath, DataPathGroup::new).onBatchProcessed(1, operations, tookInNanos);
+    }
+
+    /**
+     * Returns the statistics of the translog syncs of the given data path, or <code>null</code> if no translog was synced there yet
+     */
+    @Nullable
+    public TranslogSyncStats stats(Path dataPath) {
+        final DataPathGroup group = groups.get(dataPath);
+        return group == null ? null : group.stats();
+    }
+
+    private record PendingSync(
+        CheckedConsumer<List<Translog.Location>, IOException> syncer,
+        Translog.Location location,
+        Consumer<Exception> listener
+    ) {}
+
+    private class DataPathGroup {
+
+        private final Path dataPath;
+        private final CounterMetric batches = new CounterMetric();
+        private final CounterMetric syncs = new CounterMetric();
+        private final CounterMetric operations = new CounterMetric();
+        private final HandlingTimeTracker batchSizes = new HandlingTimeTracker();
+        private final HandlingTimeTracker latencies = new HandlingTimeTracker();
+
+        // protected by the group's monitor
+        private List<PendingSync> pending = new ArrayList<>();
+        private boolean processing;
+
+        DataPathGroup(Path dataPath) {
+            this.dataPath = dataPath;
+        }
+
+        void sync(CheckedConsumer<List<Translog.Location>, IOException> syncer, Translog.Location location, Consumer<Exception> listener) {
+            synchronized (this) {
+                if (processing) {
+                    // the leader will pick this sync up with its next batch, on its own thread
+                    pending.add(new PendingSync(syncer, location, preserveContext(listener)));
+                    return;
+                }
+                processing = true;
+                pending.add(new PendingSync(syncer, location, listener));
+            }
+            // we are the leader: give the other shards on this data path a chance to join the batch before we sync
+            final long deadline = System.nanoTime() + groupCommitWindow.nanos();
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(remaining);
+            }
+            processPending();
+        }
+
+        private void processPending() {
+            boolean released = false;
+            try {
+                while (true) {
+                    for (int i = 0; i < MAX_BATCHES_PER_LEADER; i++) {
+                        final List<PendingSync> batch = nextBatch();
+                        if (batch == null) {
+                            released = true;
+                            return;
+                        }
+                        processBatch(batch);
+                    }
+                    try {
+                        executor.execute(this::processPending);
+                        released = true;
+                        return;
+                    } catch (RejectedExecutionException e) {
+                        // keep processing the batches on this thread
+                    }
+                }
+            } finally {
+                if (released == false) {
+                    // the next sync becomes the leader and processes the pending syncs
+                    synchronized (this) {
+                        processing = false;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Returns the pending syncs or {@code null} and stops processing if there are none.
+         */
+        private synchronized List<PendingSync> nextBatch() {
+            if (pending.isEmpty()) {
+                processing = false;
+                return null;
+            }
+            final List<PendingSync> batch = pending;
+            pending = new ArrayList<>();
+            return batch;
+        }
+
+        private void processBatch(List<PendingSync> batch) {
+            final long startNanos = System.nanoTime();
+            final Map<CheckedConsumer<List<Translog.Location>, IOException>, List<Translog.Location>> locationsBySyncer =
+                new IdentityHashMap<>();
+            for (PendingSync pendingSync : batch) {
+                locationsBySyncer.computeIfAbsent(pendingSync.syncer(), k -> new ArrayList<>()).add(pendingSync.location());
+            }
+            final List<CheckedConsumer<List<Translog.Location>, IOException>> syncers = new ArrayList<>(locationsBySyncer.size());
+            final List<FutureTask<Void>> tasks = new ArrayList<>(locationsBySyncer.size());
+            for (Map.Entry<CheckedConsumer<List<Translog.Location>, IOException>, List<Translog.Location>> entry : locationsBySyncer
+                .entrySet()) {
+                syncers.add(entry.getKey());
+                tasks.add(new FutureTask<>(() -> {
+                    entry.getKey().accept(entry.getValue());
+                    return null;
+                }));
+            }
+            for (FutureTask<Void> task : tasks.subList(1, tasks.size())) {
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    // synced on this thread below
+                }
+            }
+            final Map<CheckedConsumer<List<Translog.Location>, IOException>, Exception> failures = new IdentityHashMap<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                final FutureTask<Void> task = tasks.get(i);
+                // does nothing if a thread of the executor already picked the task up
+                task.run();
+                final Exception e = awaitSync(task);
+                if (e != null) {
+                    logger.debug("failed to sync translog", e);
+                    failures.put(syncers.get(i), e);
+                }
+            }
+            onBatchProcessed(locationsBySyncer.size(), batch.size(), System.nanoTime() - startNanos);
+            for (PendingSync pendingSync : batch) {
+                try {
+                    pendingSync.listener().accept(failures.get(pendingSync.syncer()));
+                } catch (Exception e) {
+                    logger.warn("failed to notify callback", e);
+                }
+            }
+        }
+
+        void onBatchProcessed(int numSyncs, int numOperations, long tookInNanos) {
+            batches.inc();
+            syncs.inc(numSyncs);
+            operations.inc(numOperations);
+            batchSizes.addHandlingTime(numOperations);
+            latencies.addHandlingTime(TimeUnit.NANOSECONDS.toMicros(tookInNanos));
+        }
+
+        /**
+         * Waits for a translog sync to complete and returns the exception it failed with, if any.
+         */
+        private static Exception awaitSync(FutureTask<Void> task) {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        task.get();
+                        return null;
+                    } catch (InterruptedException e) {
+                        // the listeners of the batch must only be released once the translog is synced
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof Error error) {
+                            throw error;
+                        }
+                        return (Exception) e.getCause();
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        TranslogSyncStats stats() {
+            return new TranslogSyncStats(
+                batches.count(),
+                syncs.count(),
+                operations.count(),
+                batchSizes.getHistogram(),
+                latencies.getHistogram()
+            );
+        }
+
+        @Override
+        public String toString() {
+            return "DataPathGroup{" + dataPath + '}';
+        }
+    }
+
+    private Consumer<Exception> preserveContext(Consumer<Exception> consumer) {
+        final Supplier<ThreadContext.StoredContext> restorableContext = threadContext.newRestorableContext(false);
+        return e -> {
+            try (ThreadContext.StoredContext ignore = restorableContext.get()) {
+                consumer.accept(e);
+            }
+        };
+    }
+}
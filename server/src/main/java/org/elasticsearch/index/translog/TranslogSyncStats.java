@@ -0,0 +1,153 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.network.HandlingTimeTracker;
+import org.elasticsearch.xcontent.ToXContentFragment;
+import org.elasticsearch.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Statistics of the translog syncs of the shards allocated on a data path, see {@link TranslogSyncScheduler}.
+ */
+public class TranslogSyncStats implements Writeable, ToXContentFragment {
+
+    private final long batches;
+    private final long syncs;
+    private final long operations;
+    private final long[] batchSizeBucketFrequencies;
+    private final long[] latencyBucketFrequencies;
+
+    public TranslogSyncStats(
+        long batches,
+        long syncs,
+        long operations,
+        long[] batchSizeBucketFrequencies,
+        long[] latencyBucketFrequencies
+    ) {
+        assert batchSizeBucketFrequencies.length == HandlingTimeTracker.BUCKET_COUNT;
+        assert latencyBucketFrequencies.length == HandlingTimeTracker.BUCKET_COUNT;
+        this.batches = batches;
+        this.syncs = syncs;
+        this.operations = operations;
+        this.batchSizeBucketFrequencies = batchSizeBucketFrequencies;
+        this.latencyBucketFrequencies = latencyBucketFrequencies;
+    }
+
+    public TranslogSyncStats(StreamInput in) throws IOException {
+        batches = in.readVLong();
+        syncs = in.readVLong();
+        operations = in.readVLong();
+        batchSizeBucketFrequencies = in.readVLongArray();
+        latencyBucketFrequencies = in.readVLongArray();
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(batches);
+        out.writeVLong(syncs);
+        out.writeVLong(operations);
+        out.writeVLongArray(batchSizeBucketFrequencies);
+        out.writeVLongArray(latencyBucketFrequencies);
+    }
+
+    /**
+     * The number of batches of translog syncs that were processed
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * The number of translogs that were synced, which is the number of fsyncs that were issued
+     */
+    public long getSyncs() {
+        return syncs;
+    }
+
+    /**
+     * The number of requests that were released by the translog syncs
+     */
+    public long getOperations() {
+        return operations;
+    }
+
+    public long[] getBatchSizeBucketFrequencies() {
+        return Arrays.copyOf(batchSizeBucketFrequencies, batchSizeBucketFrequencies.length);
+    }
+
+    public long[] getLatencyBucketFrequencies() {
+        return Arrays.copyOf(latencyBucketFrequencies, latencyBucketFrequencies.length);
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.TRANSLOG_SYNC);
+        builder.field(Fields.BATCHES, batches);
+        builder.field(Fields.SYNCS, syncs);
+        builder.field(Fields.OPERATIONS, operations);
+        histogramToXContent(builder, batchSizeBucketFrequencies, Fields.BATCH_SIZE_HISTOGRAM, "");
+        histogramToXContent(builder, latencyBucketFrequencies, Fields.LATENCY_HISTOGRAM, "_micros");
+        builder.endObject();
+        return builder;
+    }
+
+    private static void histogramToXContent(XContentBuilder builder, long[] bucketFrequencies, String fieldName, String unitSuffix)
+        throws IOException {
+        final int[] bucketBounds = HandlingTimeTracker.getBucketUpperBounds();
+        assert bucketFrequencies.length == bucketBounds.length + 1;
+        builder.startArray(fieldName);
+        for (int i = 0; i < bucketFrequencies.length; i++) {
+            builder.startObject();
+            if (i > 0 && i <= bucketBounds.length) {
+                builder.field("ge" + unitSuffix, bucketBounds[i - 1]);
+            }
+            if (i < bucketBounds.length) {
+                builder.field("lt" + unitSuffix, bucketBounds[i]);
+            }
+            builder.field("count", bucketFrequencies[i]);
+            builder.endObject();
+        }
+        builder.endArray();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        TranslogSyncStats that = (TranslogSyncStats) o;
+        return batches == that.batches
+            && syncs == that.syncs
+            && operations == that.operations
+            && Arrays.equals(batchSizeBucketFrequencies, that.batchSizeBucketFrequencies)
+            && Arrays.equals(latencyBucketFrequencies, that.latencyBucketFrequencies);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(batches, syncs, operations);
+        result = 31 * result + Arrays.hashCode(batchSizeBucketFrequencies);
+        result = 31 * result + Arrays.hashCode(latencyBucketFrequencies);
+        return result;
+    }
+
+    static final class Fields {
+        static final String TRANSLOG_SYNC = "translog_sync";
+        static final String BATCHES = "batches";
+        static final String SYNCS = "syncs";
+        static final String OPERATIONS = "operations";
+        static final String BATCH_SIZE_HISTOGRAM = "batch_size_histogram";
+        static final String LATENCY_HISTOGRAM = "latency_histogram";
+    }
+}
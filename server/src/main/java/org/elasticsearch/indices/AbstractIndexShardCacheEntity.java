@@ -38,6 +38,21 @@ abstract class AbstractIndexShardCacheEntity implements IndicesRequestCache.Cach
         stats().onMiss();
     }
 
+    @Override
+    public final void onDiskHit() {
+        stats().onDiskHit();
+    }
+
+    @Override
+    public final void onDiskMiss() {
+        stats().onDiskMiss();
+    }
+
+    @Override
+    public final void onSpilled() {
+        stats().onSpilled();
+    }
+
     @Override
     public final void onRemoval(RemovalNotification<IndicesRequestCache.Key, BytesReference> notification) {
         stats().onRemoval(
@@ -8,7 +8,14 @@
 
 package org.elasticsearch.indices;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SegmentCommitInfo;
+import org.apache.lucene.index.SegmentReader;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.CheckedSupplier;
@@ -18,22 +25,31 @@ import org.elasticsearch.common.cache.CacheBuilder;
 import org.elasticsearch.common.cache.CacheLoader;
 import org.elasticsearch.common.cache.RemovalListener;
 import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.hash.MessageDigests;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.mapper.MappingLookup;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Objects;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * The indices request cache allows to cache a shard level request stage responses, helping with improving
@@ -45,6 +61,11 @@ import java.util.concurrent.ConcurrentMap;
  * Currently, the cache is only enabled for count requests, and can only be opted in on an index
  * level setting that can be dynamically changed and defaults to false.
  * <p>
+ * When {@link #INDICES_CACHE_DISK_SIZE} is set, entries that are evicted from the heap are spilled to a
+ * {@link RequestCacheDiskTier disk tier} which is checked on heap misses and survives node restarts. Only the
+ * entries of {@link CacheEntity entities} with a {@link CacheEntity#getPersistentIdentity() persistent identity}
+ * and of readers with a {@link #persistentReaderIdentity persistent identity} are spilled.
+ * <p>
  * There are still several TODOs left in this class, some easily addressable, some more complex, but the support
  * is functional.
  */
@@ -70,14 +91,44 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         new TimeValue(0),
         Property.NodeScope
     );
+    /**
+     * The maximum size of the disk tier of the cache, which is disabled when set to {@code 0}.
+     */
+    public static final Setting<ByteSizeValue> INDICES_CACHE_DISK_SIZE = Setting.byteSizeSetting(
+        "indices.requests.cache.disk.size",
+        ByteSizeValue.ZERO,
+        Property.NodeScope
+    );
+
+    static final String DISK_TIER_FOLDER = "request_cache";
+
+    private static final Logger logger = LogManager.getLogger(IndicesRequestCache.class);
+
+    /**
+     * The maximum number of bytes of evicted entries that wait to be written to the disk tier, further evictions are dropped
+     */
+    private static final long MAX_PENDING_SPILL_BYTES = ByteSizeValue.ofMb(16).getBytes();
 
     private final ConcurrentMap<CleanupKey, Boolean> registeredClosedListeners = ConcurrentCollections.newConcurrentMap();
     private final Set<CleanupKey> keysToClean = ConcurrentCollections.newConcurrentSet();
     private final ByteSizeValue size;
     private final TimeValue expire;
     private final Cache<Key, BytesReference> cache;
+    @Nullable
+    private final RequestCacheDiskTier diskTier;
+    // entries evicted from the heap, they are written to the disk tier outside of the locks of the heap cache
+    private final Queue<Tuple<Key, BytesReference>> pendingSpills = ConcurrentCollections.newQueue();
+    private final AtomicLong pendingSpillBytes = new AtomicLong();
+    private final ReentrantLock spillLock = new ReentrantLock();
 
     IndicesRequestCache(Settings settings) {
+        this(settings, null);
+    }
+
+    /**
+     * @param diskTierPath the directory to store the disk tier in, or <code>null</code> to disable the disk tier
+     */
+    IndicesRequestCache(Settings settings, @Nullable Path diskTierPath) {
         this.size = INDICES_CACHE_QUERY_SIZE.get(settings);
         this.expire = INDICES_CACHE_QUERY_EXPIRE.exists(settings) ? INDICES_CACHE_QUERY_EXPIRE.get(settings) : null;
         long sizeInBytes = size.getBytes();
@@ -89,21 +140,79 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
             cacheBuilder.setExpireAfterAccess(expire);
         }
         cache = cacheBuilder.build();
+        final long diskSizeInBytes = INDICES_CACHE_DISK_SIZE.get(settings).getBytes();
+        RequestCacheDiskTier diskTier = null;
+        if (diskSizeInBytes > 0 && diskTierPath != null) {
+            try {
+                diskTier = new RequestCacheDiskTier(diskTierPath, diskSizeInBytes);
+            } catch (IOException e) {
+                logger.warn(() -> "failed to open the disk tier of the request cache at [" + diskTierPath + "], disabling it", e);
+            }
+        }
+        this.diskTier = diskTier;
     }
 
     @Override
     public void close() {
         cache.invalidateAll();
+        if (diskTier != null) {
+            pendingSpills.clear();
+            try {
+                diskTier.close();
+            } catch (IOException e) {
+                logger.warn("failed to close the disk tier of the request cache", e);
+            }
+        }
     }
 
     void clear(CacheEntity entity) {
+        if (diskTier != null && entity.getPersistentIdentity() != null) {
+            diskTier.invalidateAll(entity.getPersistentIdentity());
+        }
         keysToClean.add(new CleanupKey(entity, null));
         cleanCache();
     }
 
     @Override
     public void onRemoval(RemovalNotification<Key, BytesReference> notification) {
-        notification.getKey().entity.onRemoval(notification);
+        final Key key = notification.getKey();
+        key.entity.onRemoval(notification);
+        if (key.diskKey != null
+            && key.loadedFromDisk == false
+            && notification.getRemovalReason() == RemovalNotification.RemovalReason.EVICTED
+            && pendingSpillBytes.get() < MAX_PENDING_SPILL_BYTES) {
+            // this is called under the locks of the heap cache, the entry is written to disk later by a thread that uses the cache
+            pendingSpillBytes.addAndGet(notification.getValue().length());
+            pendingSpills.add(new Tuple<>(key, notification.getValue()));
+        }
+    }
+
+    /**
+     * Writes the entries that were evicted from the heap to the disk tier, unless another thread is already doing it.
+     */
+    private void spillPending() {
+        if (diskTier == null || pendingSpills.isEmpty() || spillLock.tryLock() == false) {
+            return;
+        }
+        try {
+            Tuple<Key, BytesReference> pending;
+            while ((pending = pendingSpills.poll()) != null) {
+                pendingSpillBytes.addAndGet(-pending.v2().length());
+                final Key key = pending.v1();
+                if (key.entity.isOpen() == false) {
+                    continue;
+                }
+                try {
+                    if (diskTier.put(key.diskKey, pending.v2())) {
+                        key.entity.onSpilled();
+                    }
+                } catch (IOException e) {
+                    logger.debug("failed to spill request cache entry to disk", e);
+                }
+            }
+        } finally {
+            spillLock.unlock();
+        }
     }
 
     BytesReference getOrCompute(
@@ -116,8 +225,9 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         final ESCacheHelper cacheHelper = ElasticsearchDirectoryReader.getESReaderCacheHelper(reader);
         assert cacheHelper != null;
         final Key key = new Key(cacheEntity, mappingCacheKey, cacheHelper.getKey(), cacheKey);
-        Loader cacheLoader = new Loader(cacheEntity, loader);
+        Loader cacheLoader = new Loader(cacheEntity, loader, reader);
         BytesReference value = cache.computeIfAbsent(key, cacheLoader);
+        spillPending();
         if (cacheLoader.isLoaded()) {
             key.entity.onMiss();
             // see if its the first time we see this reader, and make sure to register a cleanup key
@@ -152,17 +262,70 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
     void invalidate(CacheEntity cacheEntity, MappingLookup.CacheKey mappingCacheKey, DirectoryReader reader, BytesReference cacheKey) {
         assert reader.getReaderCacheHelper() != null;
         cache.invalidate(new Key(cacheEntity, mappingCacheKey, reader.getReaderCacheHelper().getKey(), cacheKey));
+        if (diskTier != null) {
+            final RequestCacheDiskTier.DiskKey diskKey = diskKey(cacheEntity, mappingCacheKey, reader, cacheKey);
+            if (diskKey != null) {
+                diskTier.invalidate(diskKey);
+            }
+        }
+    }
+
+    @Nullable
+    private RequestCacheDiskTier.DiskKey diskKey(
+        CacheEntity entity,
+        MappingLookup.CacheKey mappingCacheKey,
+        DirectoryReader reader,
+        BytesReference cacheKey
+    ) {
+        final String shardIdentity = entity.getPersistentIdentity();
+        if (shardIdentity == null) {
+            return null;
+        }
+        final String readerIdentity = persistentReaderIdentity(reader);
+        if (readerIdentity == null) {
+            return null;
+        }
+        return new RequestCacheDiskTier.DiskKey(shardIdentity, mappingCacheKey.digest(), readerIdentity, cacheKey);
     }
 
-    private static class Loader implements CacheLoader<Key, BytesReference> {
+    /**
+     * Returns an identity of the point in time view of the given reader that is stable across node restarts, or <code>null</code>
+     * if the reader doesn't consist of segments. The identity is derived from the unique ids and generations of the segments of the
+     * reader and from their number of live documents, which only goes down as documents get deleted from a segment.
+     */
+    @Nullable
+    static String persistentReaderIdentity(DirectoryReader reader) {
+        final MessageDigest digest = MessageDigests.sha256();
+        final ByteBuffer buffer = ByteBuffer.allocate(3 * Long.BYTES + 2 * Integer.BYTES);
+        for (LeafReaderContext leaf : reader.leaves()) {
+            final LeafReader unwrapped = FilterLeafReader.unwrap(leaf.reader());
+            if (unwrapped instanceof SegmentReader == false) {
+                return null;
+            }
+            final SegmentCommitInfo segmentCommitInfo = ((SegmentReader) unwrapped).getSegmentInfo();
+            digest.update(segmentCommitInfo.info.getId());
+            buffer.clear();
+            buffer.putLong(segmentCommitInfo.getDelGen());
+            buffer.putLong(segmentCommitInfo.getFieldInfosGen());
+            buffer.putLong(segmentCommitInfo.getDocValuesGen());
+            buffer.putInt(leaf.reader().maxDoc());
+            buffer.putInt(leaf.reader().numDocs());
+            digest.update(buffer.array());
+        }
+        return MessageDigests.toHexString(digest.digest());
+    }
+
+    private class Loader implements CacheLoader<Key, BytesReference> {
 
         private final CacheEntity entity;
         private final CheckedSupplier<BytesReference, IOException> loader;
+        private final DirectoryReader reader;
         private boolean loaded;
 
-        Loader(CacheEntity entity, CheckedSupplier<BytesReference, IOException> loader) {
+        Loader(CacheEntity entity, CheckedSupplier<BytesReference, IOException> loader, DirectoryReader reader) {
             this.entity = entity;
             this.loader = loader;
+            this.reader = reader;
         }
 
         public boolean isLoaded() {
@@ -171,7 +334,23 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
 
         @Override
         public BytesReference load(Key key) throws Exception {
-            BytesReference value = loader.get();
+            BytesReference value = null;
+            if (diskTier != null) {
+                key.diskKey = diskKey(entity, key.mappingCacheKey, reader, key.value);
+                if (key.diskKey != null) {
+                    value = diskTier.get(key.diskKey);
+                    if (value != null) {
+                        // the entry is still on disk, it doesn't need to be spilled again when it is evicted from the heap
+                        key.loadedFromDisk = true;
+                        entity.onDiskHit();
+                    } else {
+                        entity.onDiskMiss();
+                    }
+                }
+            }
+            if (value == null) {
+                value = loader.get();
+            }
             entity.onCached(key, value);
             loaded = true;
             return value;
@@ -214,6 +393,30 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
          * Called when this entity instance is removed
          */
         void onRemoval(RemovalNotification<Key, BytesReference> notification);
+
+        /**
+         * Returns an identity of the resource behind this entity that is stable across node restarts, or <code>null</code> if the
+         * entries of this entity must not be stored in the disk tier of the cache.
+         */
+        @Nullable
+        default String getPersistentIdentity() {
+            return null;
+        }
+
+        /**
+         * Called each time a heap miss of this entity was served by the disk tier.
+         */
+        void onDiskHit();
+
+        /**
+         * Called each time a heap miss of this entity was not found in the disk tier either.
+         */
+        void onDiskMiss();
+
+        /**
+         * Called each time an entry of this entity was evicted from the heap and written to the disk tier.
+         */
+        void onSpilled();
     }
 
     static class Key implements Accountable {
@@ -223,6 +426,11 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         public final MappingLookup.CacheKey mappingCacheKey;
         public final Object readerCacheKey;
         public final BytesReference value;
+        // the key of the entry in the disk tier, set when the entry is loaded if it can be spilled to disk
+        @Nullable
+        RequestCacheDiskTier.DiskKey diskKey;
+        // whether the entry was promoted from the disk tier
+        boolean loadedFromDisk;
 
         Key(CacheEntity entity, MappingLookup.CacheKey mappingCacheKey, Object readerCacheKey, BytesReference value) {
             this.entity = entity;
@@ -335,6 +543,7 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         }
 
         cache.refresh();
+        spillPending();
     }
 
     /**
@@ -348,6 +557,13 @@ public final class IndicesRequestCache implements RemovalListener<IndicesRequest
         return cache.keys();
     }
 
+    /**
+     * Returns the number of entries in the disk tier, or {@code 0} if the disk tier is disabled
+     */
+    int diskCount() {
+        return diskTier == null ? 0 : diskTier.count();
+    }
+
     int numRegisteredCloseListeners() { // for testing
         return registeredClosedListeners.size();
     }
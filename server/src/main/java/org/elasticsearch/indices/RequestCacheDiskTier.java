@@ -0,0 +1,454 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.util.concurrent.ReleasableLock;
+import org.elasticsearch.core.IOUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * The second tier of the {@link IndicesRequestCache}: entries that are evicted from the heap are appended to generation files in a
+ * local directory, and entries that are found there on a heap miss are promoted back to the heap.
+ * <p>
+ * Entries are keyed by {@link DiskKey}, which only contains identities that are stable across node restarts, so the generation files
+ * are reloaded when the node starts and entries keep being served as long as the shard still opens the same segments with the same
+ * mapping. Entries of readers that are gone are never hit again and simply age out.
+ * <p>
+ * Files are written sequentially and evicted as a whole, oldest first, once the total size of the tier exceeds its limit. Sealed
+ * generations are memory-mapped for reads. Every record is checksummed so that a generation that was only partially written when the
+ * node stopped is truncated to its last complete record when it is reloaded.
+ * <p>
+ * Reads only hold the read lock of the tier while looking up the location of an entry and read the file without any lock, so that
+ * heap misses of different requests don't wait on each other. Writes are serialized by the append mutex and only hold the write lock
+ * while publishing the entry they wrote.
+ */
+final class RequestCacheDiskTier implements Closeable {
+
+    private static final Logger logger = LogManager.getLogger(RequestCacheDiskTier.class);
+
+    static final String FILE_PREFIX = "request_cache-";
+    static final String FILE_SUFFIX = ".dat";
+
+    /**
+     * The number of generations the tier is split into, which is the granularity of evictions
+     */
+    private static final int TARGET_GENERATIONS = 8;
+
+    /**
+     * Generations are memory-mapped as a single buffer, so they must not grow larger than what a buffer can address
+     */
+    private static final long MAX_GENERATION_SIZE_IN_BYTES = 1L << 30;
+
+    // each record is made of its length and the checksum of its payload, followed by the payload
+    private static final int RECORD_HEADER_LENGTH = Integer.BYTES + Integer.BYTES;
+
+    /**
+     * The key of an entry of the disk tier.
+     *
+     * @param shardIdentity   the {@link IndicesRequestCache.CacheEntity#getPersistentIdentity() persistent identity} of the shard
+     * @param mappingDigest   the {@link org.elasticsearch.index.mapper.MappingLookup.CacheKey#digest() digest} of the mapping
+     * @param readerIdentity  the {@link IndicesRequestCache#persistentReaderIdentity persistent identity} of the reader
+     * @param request         the cache key of the request
+     */
+    record DiskKey(String shardIdentity, String mappingDigest, String readerIdentity, BytesReference request) {}
+
+    private record Location(Generation generation, long offset, int length) {}
+
+    private final Path path;
+    private final long maxSizeInBytes;
+    private final long generationSizeInBytes;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReleasableLock readLock = new ReleasableLock(lock.readLock());
+    private final ReleasableLock writeLock = new ReleasableLock(lock.writeLock());
+    // serializes the appends to the current generation, always acquired before the lock of the tier
+    private final Object appendMutex = new Object();
+
+    // protected by the lock of the tier
+    private final Map<DiskKey, Location> entries = new HashMap<>();
+    private final Deque<Generation> generations = new ArrayDeque<>();
+    private long sizeInBytes;
+    private boolean closed;
+
+    // only changes while holding both the append mutex and the write lock
+    private volatile Generation current;
+
+    RequestCacheDiskTier(Path path, long maxSizeInBytes) throws IOException {
+        assert maxSizeInBytes > 0 : maxSizeInBytes;
+        this.path = path;
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.generationSizeInBytes = Math.min(MAX_GENERATION_SIZE_IN_BYTES, Math.max(1L, maxSizeInBytes / TARGET_GENERATIONS));
+        Files.createDirectories(path);
+        final List<Long> existing = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            for (Path file : stream) {
+                final String name = file.getFileName().toString();
+                try {
+                    existing.add(Long.parseLong(name.substring(FILE_PREFIX.length(), name.length() - FILE_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    logger.debug("ignoring unexpected file [{}] in request cache directory", file);
+                }
+            }
+        }
+        existing.sort(Long::compare);
+        long nextGeneration = 0;
+        for (long id : existing) {
+            final Generation generation = new Generation(id, FileChannel.open(file(id), StandardOpenOption.READ, StandardOpenOption.WRITE));
+            try {
+                load(generation);
+                generation.seal();
+            } catch (IOException e) {
+                logger.warn(() -> "failed to load request cache generation [" + file(id) + "], dropping it", e);
+                generation.keys.forEach(entries::remove);
+                generation.delete();
+                continue;
+            }
+            if (generation.size == 0) {
+                generation.delete();
+                continue;
+            }
+            generations.addLast(generation);
+            sizeInBytes += generation.size;
+            nextGeneration = id + 1;
+        }
+        current = openGeneration(nextGeneration);
+        generations.addLast(current);
+        try (ReleasableLock ignored = writeLock.acquire()) {
+            evictIfNeeded();
+        }
+        logger.debug("loaded [{}] request cache entries of [{}] bytes from [{}]", entries.size(), sizeInBytes, path);
+    }
+
+    private Path file(long id) {
+        return path.resolve(FILE_PREFIX + id + FILE_SUFFIX);
+    }
+
+    private Generation openGeneration(long id) throws IOException {
+        return new Generation(
+            id,
+            FileChannel.open(file(id), StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+        );
+    }
+
+    /**
+     * Reads the records of the given generation, stopping at the first record that is incomplete or corrupted.
+     */
+    private void load(Generation generation) throws IOException {
+        final FileChannel channel = generation.channel;
+        final long fileSize = channel.size();
+        final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH).order(ByteOrder.BIG_ENDIAN);
+        long position = 0;
+        while (position + RECORD_HEADER_LENGTH <= fileSize) {
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            final int length = header.getInt();
+            final int checksum = header.getInt();
+            if (length <= 0 || position + RECORD_HEADER_LENGTH + length > fileSize) {
+                break;
+            }
+            final byte[] payload = new byte[length];
+            readFully(channel, ByteBuffer.wrap(payload), position + RECORD_HEADER_LENGTH);
+            final CRC32 crc32 = new CRC32();
+            crc32.update(payload);
+            if ((int) crc32.getValue() != checksum) {
+                break;
+            }
+            try (StreamInput in = new BytesArray(payload).streamInput()) {
+                final DiskKey key = readKey(in);
+                final int valueLength = in.readVInt();
+                final int valueOffset = length - valueLength;
+                final Location previous = entries.put(
+                    key,
+                    new Location(generation, position + RECORD_HEADER_LENGTH + valueOffset, valueLength)
+                );
+                if (previous != null) {
+                    previous.generation.keys.remove(key);
+                }
+                generation.keys.add(key);
+            }
+            position += RECORD_HEADER_LENGTH + length;
+        }
+        if (position < fileSize) {
+            logger.debug("truncating request cache generation [{}] from [{}] to [{}] bytes", file(generation.id), fileSize, position);
+            channel.truncate(position);
+        }
+        generation.size = position;
+    }
+
+    private static DiskKey readKey(StreamInput in) throws IOException {
+        return new DiskKey(in.readString(), in.readString(), in.readString(), in.readBytesReference());
+    }
+
+    /**
+     * Returns the value of the given key, or <code>null</code> if the tier doesn't contain the key.
+     */
+    BytesReference get(DiskKey key) {
+        final Location location;
+        try (ReleasableLock ignored = readLock.acquire()) {
+            if (closed) {
+                return null;
+            }
+            location = entries.get(key);
+        }
+        if (location == null) {
+            return null;
+        }
+        try {
+            // the generation may be evicted concurrently, in which case the read fails because its channel is closed
+            return location.generation.read(location.offset, location.length);
+        } catch (IOException e) {
+            logger.debug(() -> "failed to read request cache entry from [" + file(location.generation.id) + "]", e);
+            try (ReleasableLock ignored = writeLock.acquire()) {
+                if (entries.remove(key, location)) {
+                    location.generation.keys.remove(key);
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the tier contains the given key.
+     */
+    boolean contains(DiskKey key) {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            return entries.containsKey(key);
+        }
+    }
+
+    /**
+     * Appends the given entry to the current generation. Entries that are already in the tier, or that are larger than a
+     * generation, are ignored.
+     *
+     * @return <code>true</code> if the entry was written
+     */
+    boolean put(DiskKey key, BytesReference value) throws IOException {
+        if (isClosedOrContains(key)) {
+            return false;
+        }
+        final BytesReference payload;
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.writeString(key.shardIdentity());
+            out.writeString(key.mappingDigest());
+            out.writeString(key.readerIdentity());
+            out.writeBytesReference(key.request());
+            out.writeVInt(value.length());
+            value.writeTo(out);
+            payload = out.bytes();
+        }
+        final long recordLength = RECORD_HEADER_LENGTH + payload.length();
+        if (recordLength > generationSizeInBytes) {
+            return false;
+        }
+        final byte[] bytes = BytesReference.toBytes(payload);
+        final CRC32 crc32 = new CRC32();
+        crc32.update(bytes);
+        final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_LENGTH).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(bytes.length).putInt((int) crc32.getValue()).flip();
+        synchronized (appendMutex) {
+            // another thread may have written the same entry while this one was serializing it
+            if (isClosedOrContains(key)) {
+                return false;
+            }
+            Generation generation = current;
+            if (generation.size + recordLength > generationSizeInBytes) {
+                generation.seal();
+                generation = openGeneration(generation.id + 1);
+                try (ReleasableLock ignored = writeLock.acquire()) {
+                    generations.addLast(generation);
+                    current = generation;
+                }
+            }
+            // the record is written without holding the lock of the tier, readers only find it once it is published below
+            final long position = generation.size;
+            writeFully(generation.channel, header, position);
+            writeFully(generation.channel, ByteBuffer.wrap(bytes), position + RECORD_HEADER_LENGTH);
+            generation.size += recordLength;
+            try (ReleasableLock ignored = writeLock.acquire()) {
+                if (closed) {
+                    return false;
+                }
+                entries.put(key, new Location(generation, position + recordLength - value.length(), value.length()));
+                generation.keys.add(key);
+                sizeInBytes += recordLength;
+                evictIfNeeded();
+            }
+        }
+        return true;
+    }
+
+    private boolean isClosedOrContains(DiskKey key) {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            return closed || entries.containsKey(key);
+        }
+    }
+
+    /**
+     * Removes the given key from the tier. The space that the entry takes is only reclaimed once its generation is evicted.
+     */
+    void invalidate(DiskKey key) {
+        try (ReleasableLock ignored = writeLock.acquire()) {
+            final Location location = entries.remove(key);
+            if (location != null) {
+                location.generation.keys.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Removes all the entries of the shard with the given persistent identity.
+     */
+    void invalidateAll(String shardIdentity) {
+        try (ReleasableLock ignored = writeLock.acquire()) {
+            for (Iterator<Map.Entry<DiskKey, Location>> iterator = entries.entrySet().iterator(); iterator.hasNext();) {
+                final Map.Entry<DiskKey, Location> entry = iterator.next();
+                if (entry.getKey().shardIdentity().equals(shardIdentity)) {
+                    entry.getValue().generation.keys.remove(entry.getKey());
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private void evictIfNeeded() {
+        assert lock.isWriteLockedByCurrentThread();
+        while (sizeInBytes > maxSizeInBytes && generations.peekFirst() != current) {
+            final Generation oldest = generations.removeFirst();
+            for (DiskKey key : oldest.keys) {
+                entries.remove(key);
+            }
+            oldest.keys.clear();
+            sizeInBytes -= oldest.size;
+            oldest.delete();
+        }
+    }
+
+    /**
+     * The number of entries in the tier
+     */
+    int count() {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * The number of bytes the generation files of the tier take on disk
+     */
+    long sizeInBytes() {
+        try (ReleasableLock ignored = readLock.acquire()) {
+            return sizeInBytes;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (appendMutex) {
+            try (ReleasableLock ignored = writeLock.acquire()) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                try {
+                    current.channel.force(false);
+                } finally {
+                    IOUtils.close(generations.stream().map(generation -> (Closeable) generation.channel).toList());
+                }
+            }
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("unexpected end of file at position [" + position + "]");
+            }
+            position += read;
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private final class Generation {
+        private final long id;
+        private final FileChannel channel;
+        // the keys of the entries whose live copy is in this generation, protected by the lock of the tier
+        private final Set<DiskKey> keys = new HashSet<>();
+        private volatile MappedByteBuffer mapped;
+        // only changes while holding the append mutex
+        private long size;
+
+        Generation(long id, FileChannel channel) {
+            this.id = id;
+            this.channel = channel;
+        }
+
+        /**
+         * Seals this generation, no more records are written to it and reads go through a memory mapping of the file.
+         */
+        void seal() throws IOException {
+            if (size > 0) {
+                channel.force(false);
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+        }
+
+        BytesReference read(long offset, int length) throws IOException {
+            final byte[] bytes = new byte[length];
+            final MappedByteBuffer mapped = this.mapped;
+            if (mapped != null) {
+                // absolute reads don't touch the position of the buffer, so concurrent reads are safe
+                mapped.get(Math.toIntExact(offset), bytes);
+            } else {
+                readFully(channel, ByteBuffer.wrap(bytes), offset);
+            }
+            // copy the value so that it doesn't reference the file once the generation is evicted
+            return new BytesArray(bytes);
+        }
+
+        void delete() {
+            mapped = null;
+            IOUtils.closeWhileHandlingException(channel);
+            IOUtils.deleteFilesIgnoringExceptions(file(id));
+        }
+    }
+}
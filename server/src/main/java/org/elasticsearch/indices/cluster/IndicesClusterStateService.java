@@ -11,6 +11,7 @@ package org.elasticsearch.indices.cluster;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.store.AlreadyClosedException;
+import org.apache.lucene.util.ThreadInterruptedException;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.ResourceAlreadyExistsException;
 import org.elasticsearch.action.ActionListener;
@@ -30,11 +31,14 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.Releasable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.env.ShardLockObtainFailedException;
 import org.elasticsearch.gateway.GatewayService;
@@ -67,12 +71,16 @@ import org.elasticsearch.threadpool.ThreadPool;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
@@ -86,6 +94,17 @@ import static org.elasticsearch.indices.cluster.IndicesClusterStateService.Alloc
 public class IndicesClusterStateService extends AbstractLifecycleComponent implements ClusterStateApplier {
     private static final Logger logger = LogManager.getLogger(IndicesClusterStateService.class);
 
+    /**
+     * The maximum number of indices whose shards are created, updated or removed concurrently while applying a cluster state, including
+     * the index on the applier thread. The shards of an index are always handled in order by a single thread.
+     */
+    public static final Setting<Integer> CONCURRENT_INDEX_OPERATIONS_SETTING = new Setting<>(
+        "indices.cluster.max_concurrent_index_operations",
+        s -> Integer.toString(Math.min(8, EsExecutors.allocatedProcessors(s))),
+        s -> Setting.parseInt(s, 1, "indices.cluster.max_concurrent_index_operations"),
+        Setting.Property.NodeScope
+    );
+
     final AllocatedIndices<? extends Shard, ? extends AllocatedIndex<? extends Shard>> indicesService;
     private final ClusterService clusterService;
     private final ThreadPool threadPool;
@@ -104,6 +123,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
     private final PrimaryReplicaSyncer primaryReplicaSyncer;
     private final RetentionLeaseSyncer retentionLeaseSyncer;
     private final NodeClient client;
+    private final int concurrentIndexOperations;
 
     @Inject
     public IndicesClusterStateService(
@@ -165,6 +185,7 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         this.primaryReplicaSyncer = primaryReplicaSyncer;
         this.retentionLeaseSyncer = retentionLeaseSyncer;
         this.client = client;
+        this.concurrentIndexOperations = CONCURRENT_INDEX_OPERATIONS_SETTING.get(settings);
     }
 
     @Override
@@ -217,13 +238,72 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
 
         updateFailedShardsCache(state);
 
-        deleteIndices(event); // also deletes shards of deleted indices
+        try (Releasable ignored = recordPhase("delete_indices")) {
+            deleteIndices(event); // also deletes shards of deleted indices
+        }
 
-        removeIndicesAndShards(event); // also removes shards of removed indices
+        try (Releasable ignored = recordPhase("remove_indices_and_shards")) {
+            removeIndicesAndShards(event); // also removes shards of removed indices
+        }
+
+        try (Releasable ignored = recordPhase("update_indices")) {
+            updateIndices(event); // can also fail shards, but these are then guaranteed to be in failedShardsCache
+        }
+
+        try (Releasable ignored = recordPhase("create_indices_and_update_shards")) {
+            createIndicesAndUpdateShards(state);
+        }
+    }
+
+    private Releasable recordPhase(String phase) {
+        return clusterService.getClusterApplierService().recordApplierPhase(phase);
+    }
+
+    /**
+     * Applies the given operation to each of the given items, using up to {@link #CONCURRENT_INDEX_OPERATIONS_SETTING} threads including
+     * the applier thread, and waits for all of them to complete. The applier thread processes items too, so it never waits for workers
+     * that are queued on a busy generic thread pool.
+     */
+    private <T> void forEachConcurrently(List<T> items, Consumer<T> operation) {
+        final int numWorkers = Math.min(concurrentIndexOperations, items.size());
+        if (numWorkers <= 1) {
+            items.forEach(operation);
+            return;
+        }
 
-        updateIndices(event); // can also fail shards, but these are then guaranteed to be in failedShardsCache
+        final AtomicInteger nextItem = new AtomicInteger();
+        // counts the items that are done rather than the workers, since workers that are still queued once all items are claimed have
+        // nothing left to do and are not waited for
+        final CountDownLatch pendingItems = new CountDownLatch(items.size());
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Runnable worker = () -> {
+            for (int i = nextItem.getAndIncrement(); i < items.size(); i = nextItem.getAndIncrement()) {
+                try {
+                    operation.accept(items.get(i));
+                } catch (Exception e) {
+                    failure.accumulateAndGet(e, ExceptionsHelper::useOrSuppress);
+                } finally {
+                    pendingItems.countDown();
+                }
+            }
+        };
+        for (int i = 1; i < numWorkers; i++) {
+            try {
+                threadPool.generic().execute(threadPool.getThreadContext().preserveContext(worker));
+            } catch (RejectedExecutionException e) {
+                // the applier thread processes the items of this worker
+                break;
+            }
+        }
 
-        createIndicesAndUpdateShards(state);
+        worker.run();
+        try {
+            pendingItems.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ThreadInterruptedException(e);
+        }
+        ExceptionsHelper.reThrowIfNotNull(failure.get());
     }
 
     /**
@@ -363,63 +443,72 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
         assert localNodeId != null;
 
         RoutingNode localRoutingNode = state.getRoutingNodes().node(localNodeId);
-        for (AllocatedIndex<? extends Shard> indexService : indicesService) {
-            final Index index = indexService.getIndexSettings().getIndex();
-            final IndexMetadata indexMetadata = state.metadata().index(index);
-            final IndexMetadata existingMetadata = indexService.getIndexSettings().getIndexMetadata();
-
-            AllocatedIndices.IndexRemovalReason reason = null;
-            if (indexMetadata != null && indexMetadata.getState() != existingMetadata.getState()) {
-                reason = indexMetadata.getState() == IndexMetadata.State.CLOSE ? CLOSED : REOPENED;
-            } else if (localRoutingNode == null || localRoutingNode.hasIndex(index) == false) {
-                // if the cluster change indicates a brand new cluster, we only want
-                // to remove the in-memory structures for the index and not delete the
-                // contents on disk because the index will later be re-imported as a
-                // dangling index
-                assert indexMetadata != null || event.isNewCluster()
-                    : "index "
-                        + index
-                        + " does not exist in the cluster state, it should either "
-                        + "have been deleted or the cluster must be new";
-                reason = indexMetadata != null && indexMetadata.getState() == IndexMetadata.State.CLOSE ? CLOSED : NO_LONGER_ASSIGNED;
-            }
+        final List<AllocatedIndex<? extends Shard>> indexServices = new ArrayList<>();
+        indicesService.forEach(indexServices::add);
+        forEachConcurrently(indexServices, indexService -> removeIndexOrShards(event, localRoutingNode, indexService));
+    }
 
-            if (reason != null) {
-                logger.debug("{} removing index ({})", index, reason);
-                indicesService.removeIndex(index, reason, "removing index (" + reason + ")");
-            } else {
-                // remove shards based on routing nodes (no deletion of data)
-                for (Shard shard : indexService) {
-                    ShardRouting currentRoutingEntry = shard.routingEntry();
-                    ShardId shardId = currentRoutingEntry.shardId();
-                    ShardRouting newShardRouting = localRoutingNode.getByShardId(shardId);
-                    if (newShardRouting == null) {
-                        // we can just remove the shard without cleaning it locally, since we will clean it in IndicesStore
-                        // once all shards are allocated
-                        logger.debug("{} removing shard (not allocated)", shardId);
-                        indexService.removeShard(shardId.id(), "removing shard (not allocated)");
-                    } else if (newShardRouting.isSameAllocation(currentRoutingEntry) == false) {
-                        logger.debug(
-                            "{} removing shard (stale allocation id, stale {}, new {})",
-                            shardId,
-                            currentRoutingEntry,
-                            newShardRouting
-                        );
-                        indexService.removeShard(shardId.id(), "removing shard (stale copy)");
-                    } else if (newShardRouting.initializing() && currentRoutingEntry.active()) {
-                        // this can happen if the node was isolated/gc-ed, rejoins the cluster and a new shard with the same allocation id
-                        // is assigned to it. Batch cluster state processing or if shard fetching completes before the node gets a new
-                        // cluster state may result in a new shard being initialized while having the same allocation id as the currently
-                        // started shard.
-                        logger.debug("{} removing shard (not active, current {}, new {})", shardId, currentRoutingEntry, newShardRouting);
-                        indexService.removeShard(shardId.id(), "removing shard (stale copy)");
-                    } else if (newShardRouting.primary() && currentRoutingEntry.primary() == false && newShardRouting.initializing()) {
-                        assert currentRoutingEntry.initializing() : currentRoutingEntry; // see above if clause
-                        // this can happen when cluster state batching batches activation of the shard, closing an index, reopening it
-                        // and assigning an initializing primary to this node
-                        logger.debug("{} removing shard (not active, current {}, new {})", shardId, currentRoutingEntry, newShardRouting);
-                        indexService.removeShard(shardId.id(), "removing shard (stale copy)");
-                    }
+    private void removeIndexOrShards(
+        ClusterChangedEvent event,
+        @Nullable RoutingNode localRoutingNode,
+        AllocatedIndex<? extends Shard> indexService
+    ) {
+        final ClusterState state = event.state();
+        final Index index = indexService.getIndexSettings().getIndex();
+        final IndexMetadata indexMetadata = state.metadata().index(index);
+        final IndexMetadata existingMetadata = indexService.getIndexSettings().getIndexMetadata();
+
+        AllocatedIndices.IndexRemovalReason reason = null;
+        if (indexMetadata != null && indexMetadata.getState() != existingMetadata.getState()) {
+            reason = indexMetadata.getState() == IndexMetadata.State.CLOSE ? CLOSED : REOPENED;
+        } else if (localRoutingNode == null || localRoutingNode.hasIndex(index) == false) {
+            // if the cluster change indicates a brand new cluster, we only want
+            // to remove the in-memory structures for the index and not delete the
+            // contents on disk because the index will later be re-imported as a
+            // dangling index
+            assert indexMetadata != null || event.isNewCluster()
+                : "index "
+                    + index
+                    + " does not exist in the cluster state, it should either "
+                    + "have been deleted or the cluster must be new";
+            reason = indexMetadata != null && indexMetadata.getState() == IndexMetadata.State.CLOSE ? CLOSED : NO_LONGER_ASSIGNED;
+        }
+
+        if (reason != null) {
+            logger.debug("{} removing index ({})", index, reason);
+            indicesService.removeIndex(index, reason, "removing index (" + reason + ")");
+        } else {
+            // remove shards based on routing nodes (no deletion of data)
+            for (Shard shard : indexService) {
+                ShardRouting currentRoutingEntry = shard.routingEntry();
+                ShardId shardId = currentRoutingEntry.shardId();
+                ShardRouting newShardRouting = localRoutingNode.getByShardId(shardId);
+                if (newShardRouting == null) {
+                    // we can just remove the shard without cleaning it locally, since we will clean it in IndicesStore
+                    // once all shards are allocated
+                    logger.debug("{} removing shard (not allocated)", shardId);
+                    indexService.removeShard(shardId.id(), "removing shard (not allocated)");
+                } else if (newShardRouting.isSameAllocation(currentRoutingEntry) == false) {
+                    logger.debug(
+                        "{} removing shard (stale allocation id, stale {}, new {})",
+                        shardId,
+                        currentRoutingEntry,
+                        newShardRouting
+                    );
+                    indexService.removeShard(shardId.id(), "removing shard (stale copy)");
+                } else if (newShardRouting.initializing() && currentRoutingEntry.active()) {
+                    // this can happen if the node was isolated/gc-ed, rejoins the cluster and a new shard with the same allocation id
+                    // is assigned to it. Batch cluster state processing or if shard fetching completes before the node gets a new
+                    // cluster state may result in a new shard being initialized while having the same allocation id as the currently
+                    // started shard.
+                    logger.debug("{} removing shard (not active, current {}, new {})", shardId, currentRoutingEntry, newShardRouting);
+                    indexService.removeShard(shardId.id(), "removing shard (stale copy)");
+                } else if (newShardRouting.primary() && currentRoutingEntry.primary() == false && newShardRouting.initializing()) {
+                    assert currentRoutingEntry.initializing() : currentRoutingEntry; // see above if clause
+                    // this can happen when cluster state batching batches activation of the shard, closing an index, reopening it
+                    // and assigning an initializing primary to this node
+                    logger.debug("{} removing shard (not active, current {}, new {})", shardId, currentRoutingEntry, newShardRouting);
+                    indexService.removeShard(shardId.id(), "removing shard (stale copy)");
                 }
             }
         }
@@ -440,9 +529,9 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
 
         RoutingTable routingTable = state.routingTable();
 
-        // create map of indices to create with shards to fail if index creation fails or create or update shards if an existing index
-        // service is found
-        final Map<Index, List<ShardRouting>> indicesToCreate = new HashMap<>();
+        // group the shards to create or update by index, together with the existing index service if any: the indices are then handled
+        // concurrently and the shards of each index in order
+        final Map<Index, PendingIndexOperations> pendingOperations = new LinkedHashMap<>();
         for (ShardRouting shardRouting : localRoutingNode) {
             ShardId shardId = shardRouting.shardId();
             if (failedShardsCache.containsKey(shardId) == false) {
@@ -457,21 +546,40 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
                         state
                     );
                 } else {
-                    if (indexService == null) {
-                        indicesToCreate.computeIfAbsent(index, k -> new ArrayList<>()).add(shardRouting);
-                    } else {
-                        createOrUpdateShard(state, nodes, routingTable, shardRouting, indexService);
-                    }
+                    pendingOperations.computeIfAbsent(index, k -> new PendingIndexOperations(index, indexService, new ArrayList<>()))
+                        .shardRoutings()
+                        .add(shardRouting);
                 }
             }
         }
 
-        for (Map.Entry<Index, List<ShardRouting>> entry : indicesToCreate.entrySet()) {
-            final Index index = entry.getKey();
+        forEachConcurrently(
+            new ArrayList<>(pendingOperations.values()),
+            operations -> createIndexAndUpdateShards(state, nodes, routingTable, operations)
+        );
+    }
+
+    /**
+     * The shards of an index to create or update, and the index service if the index exists already.
+     */
+    private record PendingIndexOperations(
+        Index index,
+        @Nullable AllocatedIndex<? extends Shard> indexService,
+        List<ShardRouting> shardRoutings
+    ) {}
+
+    private void createIndexAndUpdateShards(
+        ClusterState state,
+        DiscoveryNodes nodes,
+        RoutingTable routingTable,
+        PendingIndexOperations operations
+    ) {
+        AllocatedIndex<? extends Shard> indexService = operations.indexService();
+        if (indexService == null) {
+            final Index index = operations.index();
             final IndexMetadata indexMetadata = state.metadata().index(index);
             logger.debug("[{}] creating index", index);
 
-            AllocatedIndex<? extends Shard> indexService = null;
             try {
                 indexService = indicesService.createIndex(indexMetadata, buildInIndexListener, true);
                 indexService.updateMapping(null, indexMetadata);
@@ -483,16 +591,16 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
                     failShardReason = "failed to update mapping for index";
                     indicesService.removeIndex(index, FAILURE, "removing index (mapping update failed)");
                 }
-                for (ShardRouting shardRouting : entry.getValue()) {
+                for (ShardRouting shardRouting : operations.shardRoutings()) {
                     sendFailShard(shardRouting, failShardReason, e, state);
                 }
-                continue;
-            }
-            // we succeeded in creating the index service, so now we can create the missing shards assigned to this node
-            for (ShardRouting shardRouting : entry.getValue()) {
-                createOrUpdateShard(state, nodes, routingTable, shardRouting, indexService);
+                return;
             }
         }
+        // the index service exists or we succeeded in creating it, so now we can create or update the shards assigned to this node
+        for (ShardRouting shardRouting : operations.shardRoutings()) {
+            createOrUpdateShard(state, nodes, routingTable, shardRouting, indexService);
+        }
     }
 
     private void createOrUpdateShard(
@@ -516,35 +624,44 @@ public class IndicesClusterStateService extends AbstractLifecycleComponent imple
             return;
         }
         final ClusterState state = event.state();
+        final List<AllocatedIndex<? extends Shard>> updatedIndices = new ArrayList<>();
         for (AllocatedIndex<? extends Shard> indexService : indicesService) {
             final IndexMetadata currentIndexMetadata = indexService.getIndexSettings().getIndexMetadata();
             final Index index = indexService.getIndexSettings().getIndex();
             final IndexMetadata newIndexMetadata = state.metadata().index(index);
             assert newIndexMetadata != null : "index " + index + " should have been removed by deleteIndices";
             if (ClusterChangedEvent.indexMetadataChanged(currentIndexMetadata, newIndexMetadata)) {
-                String reason = null;
-                try {
-                    reason = "metadata update failed";
-                    try {
-                        indexService.updateMetadata(currentIndexMetadata, newIndexMetadata);
-                    } catch (Exception e) {
-                        assert false : e;
-                        throw e;
-                    }
+                updatedIndices.add(indexService);
+            }
+        }
+        forEachConcurrently(updatedIndices, indexService -> updateIndex(state, indexService));
+    }
 
-                    reason = "mapping update failed";
-                    indexService.updateMapping(currentIndexMetadata, newIndexMetadata);
-                } catch (Exception e) {
-                    indicesService.removeIndex(index, FAILURE, "removing index (" + reason + ")");
-
-                    // fail shards that would be created or updated by createOrUpdateShards
-                    RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
-                    if (localRoutingNode != null) {
-                        for (final ShardRouting shardRouting : localRoutingNode) {
-                            if (shardRouting.index().equals(index) && failedShardsCache.containsKey(shardRouting.shardId()) == false) {
-                                sendFailShard(shardRouting, "failed to update index (" + reason + ")", e, state);
-                            }
-                        }
+    private void updateIndex(ClusterState state, AllocatedIndex<? extends Shard> indexService) {
+        final IndexMetadata currentIndexMetadata = indexService.getIndexSettings().getIndexMetadata();
+        final Index index = indexService.getIndexSettings().getIndex();
+        final IndexMetadata newIndexMetadata = state.metadata().index(index);
+        String reason = null;
+        try {
+            reason = "metadata update failed";
+            try {
+                indexService.updateMetadata(currentIndexMetadata, newIndexMetadata);
+            } catch (Exception e) {
+                assert false : e;
+                throw e;
+            }
+
+            reason = "mapping update failed";
+            indexService.updateMapping(currentIndexMetadata, newIndexMetadata);
+        } catch (Exception e) {
+            indicesService.removeIndex(index, FAILURE, "removing index (" + reason + ")");
+
+            // fail shards that would be created or updated by createOrUpdateShards
+            RoutingNode localRoutingNode = state.getRoutingNodes().node(state.nodes().getLocalNodeId());
+            if (localRoutingNode != null) {
+                for (final ShardRouting shardRouting : localRoutingNode) {
+                    if (shardRouting.index().equals(index) && failedShardsCache.containsKey(shardRouting.shardId()) == false) {
+                        sendFailShard(shardRouting, "failed to update index (" + reason + ")", e, state);
                     }
                 }
             }
@@ -176,6 +176,12 @@ public class IndicesFieldDataCache implements RemovalListener<IndicesFieldDataCa
             return (IFD) accountable;
         }
 
+        @Override
+        public boolean isCached(DirectoryReader indexReader, IndexFieldData.Global<?> indexFieldData) {
+            final IndexReader.CacheHelper cacheHelper = indexReader.getReaderCacheHelper();
+            return cacheHelper != null && cache.get(new Key(this, cacheHelper.getKey(), null)) != null;
+        }
+
         @Override
         public void onClose(CacheKey key) {
             cache.invalidate(new Key(this, key, null));
@@ -0,0 +1,237 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.core.TimeValue;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Decides how many chunk requests a {@link MultiChunkTransfer} keeps in flight and how large these chunks are, in the spirit of TCP
+ * congestion control. The window starts at a single chunk and grows by one chunk per acknowledged chunk until it reaches the slow start
+ * threshold, and by one chunk per window of acknowledged chunks after that. Once the window reaches the configured number of chunks, the
+ * chunk size grows back to the configured chunk size if it was reduced.
+ * <p>
+ * The configured values are not hard limits: past them, the window and then the chunk size keep growing up to {@link #MAX_WINDOW} and
+ * {@link #MAX_CHUNK_SIZE_IN_BYTES} (or the given lower limits) as long as the bytes in flight are less than what the recovery rate limiter
+ * lets through during the smallest round-trip time, since more bytes in flight would only wait for the rate limiter.
+ * <p>
+ * Chunks are acknowledged once the target has written them, so the round-trip time of a chunk covers both the network and the disk of the
+ * target. When the round-trip time of a full-sized chunk exceeds twice the smallest round-trip time observed since the last reduction, the
+ * network or the target cannot keep up: the window and the chunk size are halved. Chunks that were sent before a reduction do not change
+ * the window any more, as their round-trip times reflect the window before the reduction.
+ * <p>
+ * Not thread-safe: all methods but {@link #relativeTimeInNanos()} are called while the transfer handles the responses, which happens on
+ * one thread at a time.
+ */
+final class AdaptiveChunkWindow {
+
+    static final int MIN_CHUNK_SIZE_IN_BYTES = Math.toIntExact(ByteSizeUnit.KB.toBytes(64));
+    static final long THROUGHPUT_SAMPLE_INTERVAL_IN_NANOS = TimeValue.timeValueSeconds(1).nanos();
+    static final int CONGESTION_RTT_FACTOR = 2;
+    static final int MAX_WINDOW = 16;
+    static final int MAX_CHUNK_SIZE_IN_BYTES = Math.toIntExact(ByteSizeUnit.MB.toBytes(4));
+
+    private final int configuredWindow;
+    private final int configuredChunkSizeInBytes;
+    private final int maxWindow;
+    private final int minChunkSizeInBytes;
+    private final int maxChunkSizeInBytes;
+    private final LongSupplier maxBytesPerSecondSupplier;
+    private final LongSupplier relativeTimeInNanosSupplier;
+
+    private int window = 1;
+    private int slowStartThreshold;
+    private int chunkSizeInBytes;
+    // acknowledged chunks since the window was last increased in congestion avoidance
+    private int acknowledgedInWindow;
+    private long minRoundTripTimeInNanos = Long.MAX_VALUE;
+    private long lastReductionInNanos;
+
+    private long sampleStartInNanos;
+    private long sampleBytes;
+    private long throughputInBytesPerSecond;
+
+    /**
+     * Creates a window that never grows past the given window and chunk size.
+     */
+    AdaptiveChunkWindow(int maxWindow, int maxChunkSizeInBytes, LongSupplier relativeTimeInNanosSupplier) {
+        this(maxWindow, maxChunkSizeInBytes, maxWindow, maxChunkSizeInBytes, () -> 0L, relativeTimeInNanosSupplier);
+    }
+
+    /**
+     * @param configuredWindow           the number of chunks in flight that the window grows to without further checks
+     * @param configuredChunkSizeInBytes the size of the chunks that the window starts with
+     * @param maxWindow                  the hard limit of the number of chunks in flight
+     * @param maxChunkSizeInBytes        the hard limit of the size of the chunks
+     * @param maxBytesPerSecondSupplier  the current limit of the recovery rate limiter, or {@code 0} if recoveries are not throttled
+     */
+    AdaptiveChunkWindow(
+        int configuredWindow,
+        int configuredChunkSizeInBytes,
+        int maxWindow,
+        int maxChunkSizeInBytes,
+        LongSupplier maxBytesPerSecondSupplier,
+        LongSupplier relativeTimeInNanosSupplier
+    ) {
+        if (configuredWindow < 1) {
+            throw new IllegalArgumentException("window must be at least 1 but was [" + configuredWindow + "]");
+        }
+        if (configuredChunkSizeInBytes < 1) {
+            throw new IllegalArgumentException("chunk size must be at least 1 byte but was [" + configuredChunkSizeInBytes + "]");
+        }
+        if (maxWindow < configuredWindow) {
+            throw new IllegalArgumentException("max window [" + maxWindow + "] must be at least [" + configuredWindow + "]");
+        }
+        if (maxChunkSizeInBytes < configuredChunkSizeInBytes) {
+            throw new IllegalArgumentException(
+                "max chunk size [" + maxChunkSizeInBytes + "] must be at least [" + configuredChunkSizeInBytes + "] bytes"
+            );
+        }
+        this.configuredWindow = configuredWindow;
+        this.configuredChunkSizeInBytes = configuredChunkSizeInBytes;
+        this.maxWindow = maxWindow;
+        this.maxChunkSizeInBytes = maxChunkSizeInBytes;
+        this.minChunkSizeInBytes = Math.min(MIN_CHUNK_SIZE_IN_BYTES, configuredChunkSizeInBytes);
+        this.chunkSizeInBytes = configuredChunkSizeInBytes;
+        this.slowStartThreshold = configuredWindow;
+        this.maxBytesPerSecondSupplier = maxBytesPerSecondSupplier;
+        this.relativeTimeInNanosSupplier = relativeTimeInNanosSupplier;
+        this.sampleStartInNanos = relativeTimeInNanosSupplier.getAsLong();
+        this.lastReductionInNanos = sampleStartInNanos;
+    }
+
+    /**
+     * @return the number of chunk requests that may be in flight
+     */
+    int window() {
+        return window;
+    }
+
+    /**
+     * @return the number of chunk requests that may ever be in flight
+     */
+    int maxWindow() {
+        return maxWindow;
+    }
+
+    /**
+     * @return the size of the chunks to read next
+     */
+    int chunkSizeInBytes() {
+        return chunkSizeInBytes;
+    }
+
+    /**
+     * @return the number of bytes acknowledged per second over the last complete sampling interval, or {@code 0} if no interval completed
+     */
+    long throughputInBytesPerSecond() {
+        return throughputInBytesPerSecond;
+    }
+
+    long relativeTimeInNanos() {
+        return relativeTimeInNanosSupplier.getAsLong();
+    }
+
+    /**
+     * Called when a chunk of {@code bytes} bytes is acknowledged, {@code sentAtInNanos} and {@code acknowledgedAtInNanos} are the
+     * {@link #relativeTimeInNanos()} at which the chunk was sent and at which its response was received. A response that was received
+     * before the chunk was considered sent does not tell anything about the round-trip time.
+     */
+    void onChunkAcknowledged(long bytes, long sentAtInNanos, long acknowledgedAtInNanos) {
+        final long now = relativeTimeInNanos();
+        sampleBytes += bytes;
+        final long elapsed = now - sampleStartInNanos;
+        if (elapsed >= THROUGHPUT_SAMPLE_INTERVAL_IN_NANOS) {
+            throughputInBytesPerSecond = sampleBytes * TimeValue.timeValueSeconds(1).nanos() / elapsed;
+            sampleStartInNanos = now;
+            sampleBytes = 0;
+        }
+
+        if (sentAtInNanos < lastReductionInNanos) {
+            return;
+        }
+        // the last chunk of each file is usually smaller and says little about the capacity of the network or the target
+        if (bytes >= chunkSizeInBytes && acknowledgedAtInNanos >= sentAtInNanos) {
+            final long roundTripTime = acknowledgedAtInNanos - sentAtInNanos;
+            if (roundTripTime < minRoundTripTimeInNanos) {
+                minRoundTripTimeInNanos = roundTripTime;
+            } else if (roundTripTime > CONGESTION_RTT_FACTOR * minRoundTripTimeInNanos) {
+                onCongestion(now);
+                return;
+            }
+        }
+
+        if (window < slowStartThreshold) {
+            window++;
+        } else if (++acknowledgedInWindow >= window) {
+            acknowledgedInWindow = 0;
+            if (window < configuredWindow) {
+                window++;
+            } else if (chunkSizeInBytes < configuredChunkSizeInBytes) {
+                growChunkSize(configuredChunkSizeInBytes);
+            } else if (belowRateLimit()) {
+                if (window < maxWindow) {
+                    window++;
+                } else if (chunkSizeInBytes < maxChunkSizeInBytes) {
+                    growChunkSize(maxChunkSizeInBytes);
+                }
+            }
+        }
+    }
+
+    private void growChunkSize(int limitInBytes) {
+        chunkSizeInBytes = (int) Math.min(limitInBytes, 2L * chunkSizeInBytes);
+        // larger chunks take at most twice as long, later chunks will tell if they are faster than that
+        if (minRoundTripTimeInNanos != Long.MAX_VALUE) {
+            minRoundTripTimeInNanos = 2 * minRoundTripTimeInNanos;
+        }
+    }
+
+    /**
+     * Returns true if the rate limiter lets through more bytes during the smallest round-trip time than the window has in flight, that
+     * is if growing the window past the configured values may still increase the throughput.
+     */
+    private boolean belowRateLimit() {
+        if (minRoundTripTimeInNanos == Long.MAX_VALUE) {
+            return false;
+        }
+        final long maxBytesPerSecond = maxBytesPerSecondSupplier.getAsLong();
+        if (maxBytesPerSecond <= 0) {
+            return true;
+        }
+        final double bytesPerRoundTrip = (double) maxBytesPerSecond * minRoundTripTimeInNanos / TimeValue.timeValueSeconds(1).nanos();
+        return (double) window * chunkSizeInBytes < bytesPerRoundTrip;
+    }
+
+    private void onCongestion(long now) {
+        window = Math.max(1, window / 2);
+        slowStartThreshold = window;
+        acknowledgedInWindow = 0;
+        chunkSizeInBytes = Math.max(minChunkSizeInBytes, chunkSizeInBytes / 2);
+        lastReductionInNanos = now;
+        // the round-trip time may have grown for good (e.g. other recoveries share the link), so measure it again after every reduction
+        minRoundTripTimeInNanos = Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveChunkWindow{"
+            + "window="
+            + window
+            + ", slowStartThreshold="
+            + slowStartThreshold
+            + ", chunkSizeInBytes="
+            + chunkSizeInBytes
+            + ", throughputInBytesPerSecond="
+            + throughputInBytesPerSecond
+            + '}';
+    }
+}
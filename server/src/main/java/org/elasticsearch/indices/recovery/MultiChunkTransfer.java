@@ -14,6 +14,7 @@ import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.common.util.concurrent.AsyncIOProcessor;
 import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.IOUtils;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.seqno.LocalCheckpointTracker;
 
@@ -21,6 +22,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import static org.elasticsearch.core.Strings.format;
@@ -44,6 +46,12 @@ import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_SEQ_NO;
  * greater than {@code maxConcurrentFileChunks}), the sending/requesting thread will abort its execution. That process will be resumed by
  * one of the networking threads which receive/handle the responses of the current pending file chunk requests. This process will continue
  * until all chunk requests are sent/responded.
+ * <p>
+ * If an {@link AdaptiveChunkWindow} is given then it decides how many requests may be in flight instead of {@code maxConcurrentFileChunks},
+ * based on the round-trip time of the acknowledged chunk requests. The round-trip time of a request starts when
+ * {@link #executeChunkRequest} returns, since implementations may block before sending the request to throttle the transfer (e.g. on the
+ * recovery rate limiter) and that delay says nothing about the network or the target. It ends when the response is received rather than
+ * when it is handled, as responses that are received while the next requests are throttled are only handled afterwards.
  */
 public abstract class MultiChunkTransfer<Source, Request extends MultiChunkTransfer.ChunkRequest> implements Closeable {
     private Status status = Status.PROCESSING;
@@ -52,6 +60,8 @@ public abstract class MultiChunkTransfer<Source, Request extends MultiChunkTrans
     private final LocalCheckpointTracker requestSeqIdTracker = new LocalCheckpointTracker(NO_OPS_PERFORMED, NO_OPS_PERFORMED);
     private final AsyncIOProcessor<FileChunkResponseItem<Source>> processor;
     private final int maxConcurrentChunks;
+    @Nullable
+    private final AdaptiveChunkWindow chunkWindow;
     private Source currentSource = null;
     private final Iterator<Source> remainingSources;
     private Tuple<Source, Request> readAheadRequest = null;
@@ -62,11 +72,24 @@ public abstract class MultiChunkTransfer<Source, Request extends MultiChunkTrans
         ActionListener<Void> listener,
         int maxConcurrentChunks,
         List<Source> sources
+    ) {
+        this(logger, threadContext, listener, maxConcurrentChunks, null, sources);
+    }
+
+    protected MultiChunkTransfer(
+        Logger logger,
+        ThreadContext threadContext,
+        ActionListener<Void> listener,
+        int maxConcurrentChunks,
+        @Nullable AdaptiveChunkWindow chunkWindow,
+        List<Source> sources
     ) {
         this.logger = logger;
         this.maxConcurrentChunks = maxConcurrentChunks;
+        this.chunkWindow = chunkWindow;
         this.listener = listener;
-        this.processor = new AsyncIOProcessor<>(logger, maxConcurrentChunks, threadContext) {
+        final int maxInFlight = chunkWindow != null ? chunkWindow.maxWindow() : maxConcurrentChunks;
+        this.processor = new AsyncIOProcessor<>(logger, maxInFlight, threadContext) {
             @Override
             protected void write(List<Tuple<FileChunkResponseItem<Source>, Consumer<Exception>>> items) {
                 handleItems(items);
@@ -76,11 +99,14 @@ public abstract class MultiChunkTransfer<Source, Request extends MultiChunkTrans
     }
 
     public final void start() {
-        addItem(UNASSIGNED_SEQ_NO, null, null); // put a dummy item to start the processor
+        addItem(UNASSIGNED_SEQ_NO, null, 0L, null, null); // put a dummy item to start the processor
     }
 
-    private void addItem(long requestSeqId, Source resource, Exception failure) {
-        processor.put(new FileChunkResponseItem<>(requestSeqId, resource, failure), e -> { assert e == null : e; });
+    private void addItem(long requestSeqId, Source resource, long sizeInBytes, @Nullable AtomicLong sentAtInNanos, Exception failure) {
+        final long receivedAtInNanos = chunkWindow != null ? chunkWindow.relativeTimeInNanos() : 0L;
+        processor.put(new FileChunkResponseItem<>(requestSeqId, resource, sizeInBytes, sentAtInNanos, receivedAtInNanos, failure), e -> {
+            assert e == null : e;
+        });
     }
 
     private void handleItems(List<Tuple<FileChunkResponseItem<Source>, Consumer<Exception>>> items) {
@@ -103,8 +129,12 @@ public abstract class MultiChunkTransfer<Source, Request extends MultiChunkTrans
                     handleError(resp.source, resp.failure);
                     throw resp.failure;
                 }
+                if (chunkWindow != null) {
+                    chunkWindow.onChunkAcknowledged(resp.sizeInBytes, resp.sentAtInNanos.get(), resp.receivedAtInNanos);
+                }
             }
-            while (requestSeqIdTracker.getMaxSeqNo() - requestSeqIdTracker.getProcessedCheckpoint() < maxConcurrentChunks) {
+            final int maxInFlight = chunkWindow != null ? chunkWindow.window() : maxConcurrentChunks;
+            while (requestSeqIdTracker.getMaxSeqNo() - requestSeqIdTracker.getProcessedCheckpoint() < maxInFlight) {
                 final Tuple<Source, Request> request = readAheadRequest != null ? readAheadRequest : getNextRequest();
                 readAheadRequest = null;
                 if (request == null) {
@@ -115,10 +145,20 @@ public abstract class MultiChunkTransfer<Source, Request extends MultiChunkTrans
                     return;
                 }
                 final long requestSeqId = requestSeqIdTracker.generateSeqNo();
+                final long sizeInBytes = request.v2().sizeInBytes();
+                // Set once the request is sent, which always happens before its response is handled: responses are only handled by
+                // this method and queued while it runs, and the request may be sent as late as executeChunkRequest returns.
+                final AtomicLong sentAtInNanos = chunkWindow != null ? new AtomicLong() : null;
                 executeChunkRequest(
                     request.v2(),
-                    ActionListener.wrap(r -> addItem(requestSeqId, request.v1(), null), e -> addItem(requestSeqId, request.v1(), e))
+                    ActionListener.wrap(
+                        r -> addItem(requestSeqId, request.v1(), sizeInBytes, sentAtInNanos, null),
+                        e -> addItem(requestSeqId, request.v1(), sizeInBytes, sentAtInNanos, e)
+                    )
                 );
+                if (sentAtInNanos != null) {
+                    sentAtInNanos.set(chunkWindow.relativeTimeInNanos());
+                }
             }
             // While we are waiting for the responses, we can prepare the next request in advance
             // so we can send it immediately when the responses arrive to reduce the transfer time.
@@ -181,6 +221,9 @@ public abstract class MultiChunkTransfer<Source, Request extends MultiChunkTrans
 
     protected abstract Request nextChunkRequest(Source resource) throws IOException;
 
+    /**
+     * Sends the given request. Implementations may block before sending it in order to throttle the transfer.
+     */
     protected abstract void executeChunkRequest(Request request, ActionListener<Void> listener);
 
     protected abstract void handleError(Source resource, Exception e) throws Exception;
@@ -188,11 +231,25 @@ public abstract class MultiChunkTransfer<Source, Request extends MultiChunkTrans
     private static class FileChunkResponseItem<Source> {
         final long requestSeqId;
         final Source source;
+        final long sizeInBytes;
+        @Nullable
+        final AtomicLong sentAtInNanos;
+        final long receivedAtInNanos;
         final Exception failure;
 
-        FileChunkResponseItem(long requestSeqId, Source source, Exception failure) {
+        FileChunkResponseItem(
+            long requestSeqId,
+            Source source,
+            long sizeInBytes,
+            @Nullable AtomicLong sentAtInNanos,
+            long receivedAtInNanos,
+            Exception failure
+        ) {
             this.requestSeqId = requestSeqId;
             this.source = source;
+            this.sizeInBytes = sizeInBytes;
+            this.sentAtInNanos = sentAtInNanos;
+            this.receivedAtInNanos = receivedAtInNanos;
             this.failure = failure;
         }
     }
@@ -202,6 +259,13 @@ public abstract class MultiChunkTransfer<Source, Request extends MultiChunkTrans
          * @return {@code true} if this chunk request is the last chunk of the current file
          */
         boolean lastChunk();
+
+        /**
+         * @return the number of bytes transferred by this chunk request, used to adapt the number of requests in flight
+         */
+        default long sizeInBytes() {
+            return 0L;
+        }
     }
 
     private enum Status {
@@ -572,6 +572,9 @@ public class PeerRecoveryTargetService implements IndexEventListener {
                 if (request.sourceThrottleTimeInNanos() != RecoveryState.Index.UNKNOWN) {
                     indexState.addSourceThrottling(request.sourceThrottleTimeInNanos());
                 }
+                if (request.fileChunkWindow() != null) {
+                    indexState.recordFileChunkWindow(request.fileChunkWindow());
+                }
 
                 RateLimiter rateLimiter = recoverySettings.rateLimiter();
                 if (rateLimiter != null) {
@@ -11,6 +11,7 @@ package org.elasticsearch.indices.recovery;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.RefCounted;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.store.StoreFileMetadata;
@@ -25,6 +26,8 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
     private final ReleasableBytesReference content;
     private final StoreFileMetadata metadata;
     private final long sourceThrottleTimeInNanos;
+    @Nullable
+    private final RecoveryState.FileChunkWindow fileChunkWindow;
 
     private final int totalTranslogOps;
 
@@ -42,6 +45,11 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         lastChunk = in.readBoolean();
         totalTranslogOps = in.readVInt();
         sourceThrottleTimeInNanos = in.readLong();
+        if (in.getVersion().onOrAfter(RecoverySettings.FILE_CHUNK_WINDOW_STATS_VERSION)) {
+            fileChunkWindow = in.readOptionalWriteable(RecoveryState.FileChunkWindow::new);
+        } else {
+            fileChunkWindow = null;
+        }
     }
 
     public RecoveryFileChunkRequest(
@@ -54,6 +62,32 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         boolean lastChunk,
         int totalTranslogOps,
         long sourceThrottleTimeInNanos
+    ) {
+        this(
+            recoveryId,
+            requestSeqNo,
+            shardId,
+            metadata,
+            position,
+            content,
+            lastChunk,
+            totalTranslogOps,
+            sourceThrottleTimeInNanos,
+            null
+        );
+    }
+
+    public RecoveryFileChunkRequest(
+        long recoveryId,
+        final long requestSeqNo,
+        ShardId shardId,
+        StoreFileMetadata metadata,
+        long position,
+        ReleasableBytesReference content,
+        boolean lastChunk,
+        int totalTranslogOps,
+        long sourceThrottleTimeInNanos,
+        @Nullable RecoveryState.FileChunkWindow fileChunkWindow
     ) {
         super(requestSeqNo);
         this.recoveryId = recoveryId;
@@ -64,6 +98,7 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         this.lastChunk = lastChunk;
         this.totalTranslogOps = totalTranslogOps;
         this.sourceThrottleTimeInNanos = sourceThrottleTimeInNanos;
+        this.fileChunkWindow = fileChunkWindow;
     }
 
     public long recoveryId() {
@@ -98,6 +133,14 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         return sourceThrottleTimeInNanos;
     }
 
+    /**
+     * @return the window of concurrent file chunk requests chosen by the source, or {@code null} if the source does not adapt it
+     */
+    @Nullable
+    public RecoveryState.FileChunkWindow fileChunkWindow() {
+        return fileChunkWindow;
+    }
+
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
@@ -112,6 +155,9 @@ public final class RecoveryFileChunkRequest extends RecoveryTransportRequest imp
         out.writeBoolean(lastChunk);
         out.writeVInt(totalTranslogOps);
         out.writeLong(sourceThrottleTimeInNanos);
+        if (out.getVersion().onOrAfter(RecoverySettings.FILE_CHUNK_WINDOW_STATS_VERSION)) {
+            out.writeOptionalWriteable(fileChunkWindow);
+        }
     }
 
     @Override
@@ -45,6 +45,7 @@ public class RecoverySettings {
     public static final Version SNAPSHOT_RECOVERIES_SUPPORTED_VERSION = Version.V_7_15_0;
     public static final Version SEQ_NO_SNAPSHOT_RECOVERIES_SUPPORTED_VERSION = Version.V_7_16_0;
     public static final Version SNAPSHOT_FILE_DOWNLOAD_THROTTLING_SUPPORTED_VERSION = Version.V_7_16_0;
+    public static final Version FILE_CHUNK_WINDOW_STATS_VERSION = Version.V_8_7_0;
 
     private static final Logger logger = LogManager.getLogger(RecoverySettings.class);
 
@@ -244,6 +245,18 @@ public class RecoverySettings {
         Property.NodeScope
     );
 
+    /**
+     * Whether the source node adapts the number of concurrent file chunk requests and their size to the round-trip time of the file chunk
+     * requests. The window grows past {@link #INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING} and the chunk size only while the
+     * recovery rate limiter would let more bytes through, see {@link AdaptiveChunkWindow}.
+     */
+    public static final Setting<Boolean> INDICES_RECOVERY_ADAPTIVE_FILE_CHUNK_WINDOW_SETTING = Setting.boolSetting(
+        "indices.recovery.adaptive_file_chunk_window",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     /**
      * Controls the maximum number of operation chunk requests that can be sent concurrently from the source node to the target node.
      */
@@ -379,6 +392,7 @@ public class RecoverySettings {
 
     private volatile ByteSizeValue maxBytesPerSec;
     private volatile int maxConcurrentFileChunks;
+    private volatile boolean adaptiveFileChunkWindow;
     private volatile int maxConcurrentOperations;
     private volatile SimpleRateLimiter rateLimiter;
     private volatile TimeValue retryDelayStateSync;
@@ -403,6 +417,7 @@ public class RecoverySettings {
     public RecoverySettings(Settings settings, ClusterSettings clusterSettings) {
         this.retryDelayStateSync = INDICES_RECOVERY_RETRY_DELAY_STATE_SYNC_SETTING.get(settings);
         this.maxConcurrentFileChunks = INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING.get(settings);
+        this.adaptiveFileChunkWindow = INDICES_RECOVERY_ADAPTIVE_FILE_CHUNK_WINDOW_SETTING.get(settings);
         this.maxConcurrentOperations = INDICES_RECOVERY_MAX_CONCURRENT_OPERATIONS_SETTING.get(settings);
         // doesn't have to be fast as nodes are reconnected every 10s by default (see InternalClusterService.ReconnectToNodes)
         // and we want to give the master time to remove a faulty node
@@ -442,6 +457,7 @@ public class RecoverySettings {
             );
         }
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING, this::setMaxConcurrentFileChunks);
+        clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_ADAPTIVE_FILE_CHUNK_WINDOW_SETTING, this::setAdaptiveFileChunkWindow);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_CONCURRENT_OPERATIONS_SETTING, this::setMaxConcurrentOperations);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_RETRY_DELAY_STATE_SYNC_SETTING, this::setRetryDelayStateSync);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_RETRY_DELAY_NETWORK_SETTING, this::setRetryDelayNetwork);
@@ -622,6 +638,14 @@ public class RecoverySettings {
         this.maxConcurrentFileChunks = maxConcurrentFileChunks;
     }
 
+    public boolean isAdaptiveFileChunkWindow() {
+        return adaptiveFileChunkWindow;
+    }
+
+    private void setAdaptiveFileChunkWindow(boolean adaptiveFileChunkWindow) {
+        this.adaptiveFileChunkWindow = adaptiveFileChunkWindow;
+    }
+
     public int getMaxConcurrentOperations() {
         return maxConcurrentOperations;
     }
@@ -87,6 +87,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
 import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.common.util.CollectionUtils.concatLists;
@@ -114,6 +115,8 @@ public class RecoverySourceHandler {
     private final int chunkSizeInBytes;
     private final RecoveryTargetHandler recoveryTarget;
     private final int maxConcurrentFileChunks;
+    private final boolean adaptiveFileChunkWindow;
+    private final LongSupplier maxBytesPerSecSupplier;
     private final int maxConcurrentOperations;
     private final int maxConcurrentSnapshotFileDownloads;
     private final boolean useSnapshots;
@@ -134,6 +137,36 @@ public class RecoverySourceHandler {
         int maxConcurrentSnapshotFileDownloads,
         boolean useSnapshots,
         RecoveryPlannerService recoveryPlannerService
+    ) {
+        this(
+            shard,
+            recoveryTarget,
+            threadPool,
+            request,
+            fileChunkSizeInBytes,
+            maxConcurrentFileChunks,
+            false,
+            () -> 0L,
+            maxConcurrentOperations,
+            maxConcurrentSnapshotFileDownloads,
+            useSnapshots,
+            recoveryPlannerService
+        );
+    }
+
+    public RecoverySourceHandler(
+        IndexShard shard,
+        RecoveryTargetHandler recoveryTarget,
+        ThreadPool threadPool,
+        StartRecoveryRequest request,
+        int fileChunkSizeInBytes,
+        int maxConcurrentFileChunks,
+        boolean adaptiveFileChunkWindow,
+        LongSupplier maxBytesPerSecSupplier,
+        int maxConcurrentOperations,
+        int maxConcurrentSnapshotFileDownloads,
+        boolean useSnapshots,
+        RecoveryPlannerService recoveryPlannerService
     ) {
         this.shard = shard;
         this.recoveryTarget = recoveryTarget;
@@ -144,6 +177,8 @@ public class RecoverySourceHandler {
         this.logger = Loggers.getLogger(getClass(), request.shardId(), "recover to " + request.targetNode().getName());
         this.chunkSizeInBytes = fileChunkSizeInBytes;
         this.maxConcurrentFileChunks = maxConcurrentFileChunks;
+        this.adaptiveFileChunkWindow = adaptiveFileChunkWindow;
+        this.maxBytesPerSecSupplier = maxBytesPerSecSupplier;
         this.maxConcurrentOperations = maxConcurrentOperations;
         this.maxConcurrentSnapshotFileDownloads = maxConcurrentSnapshotFileDownloads;
         this.useSnapshots = useSnapshots;
@@ -1334,6 +1369,11 @@ public class RecoverySourceHandler {
             return lastChunk;
         }
 
+        @Override
+        public long sizeInBytes() {
+            return content.length();
+        }
+
         @Override
         public void close() {
             onClose.close();
@@ -1344,6 +1384,17 @@ public class RecoverySourceHandler {
         ArrayUtil.timSort(files, Comparator.comparingLong(StoreFileMetadata::length)); // send smallest first
         // use a smaller buffer than the configured chunk size if we only have files smaller than the chunk size
         final int bufferSize = files.length == 0 ? 0 : (int) Math.min(chunkSizeInBytes, files[files.length - 1].length());
+        // the adaptive window may grow past the configured chunk size, but not past the size of the largest file
+        final AdaptiveChunkWindow chunkWindow = adaptiveFileChunkWindow && bufferSize > 0
+            ? new AdaptiveChunkWindow(
+                maxConcurrentFileChunks,
+                bufferSize,
+                Math.max(AdaptiveChunkWindow.MAX_WINDOW, maxConcurrentFileChunks),
+                (int) Math.min(Math.max(AdaptiveChunkWindow.MAX_CHUNK_SIZE_IN_BYTES, bufferSize), files[files.length - 1].length()),
+                maxBytesPerSecSupplier,
+                System::nanoTime
+            )
+            : null;
         Releasable temporaryStoreRef = acquireStore(store);
         try {
             final Releasable storeRef = temporaryStoreRef;
@@ -1352,6 +1403,7 @@ public class RecoverySourceHandler {
                 threadPool.getThreadContext(),
                 listener,
                 maxConcurrentFileChunks,
+                chunkWindow,
                 Arrays.asList(files)
             ) {
 
@@ -1381,9 +1433,14 @@ public class RecoverySourceHandler {
                         assert md.hashEqualsContents();
                         return new FileChunk(md, new BytesArray(md.hash()), 0, true, () -> {});
                     }
-                    final byte[] buffer = Objects.requireNonNullElseGet(buffers.pollFirst(), () -> new byte[bufferSize]);
+                    final int chunkSize = chunkWindow != null ? chunkWindow.chunkSizeInBytes() : bufferSize;
+                    final byte[] recycledBuffer = buffers.pollFirst();
+                    // buffers that are smaller than the chunk size the adaptive window grew to are dropped
+                    final byte[] buffer = recycledBuffer != null && recycledBuffer.length >= chunkSize
+                        ? recycledBuffer
+                        : new byte[Math.max(chunkSize, bufferSize)];
                     assert liveBufferCount.incrementAndGet() > 0;
-                    final int toRead = Math.toIntExact(Math.min(md.length() - offset, buffer.length));
+                    final int toRead = Math.toIntExact(Math.min(md.length() - offset, chunkSize));
                     currentInput.readBytes(buffer, 0, toRead, false);
                     final boolean lastChunk = offset + toRead == md.length();
                     final FileChunk chunk = new FileChunk(md, new BytesArray(buffer, 0, toRead), offset, lastChunk, () -> {
@@ -1398,6 +1455,15 @@ public class RecoverySourceHandler {
                 protected void executeChunkRequest(FileChunk request, ActionListener<Void> listener) {
                     cancellableThreads.checkForCancel();
                     final ReleasableBytesReference content = new ReleasableBytesReference(request.content, request);
+                    if (chunkWindow != null) {
+                        recoveryTarget.onFileChunkWindow(
+                            new RecoveryState.FileChunkWindow(
+                                chunkWindow.window(),
+                                chunkWindow.chunkSizeInBytes(),
+                                chunkWindow.throughputInBytesPerSecond()
+                            )
+                        );
+                    }
                     recoveryTarget.writeFileChunk(
                         request.md,
                         request.position,
@@ -26,7 +26,9 @@ import org.elasticsearch.xcontent.ToXContentObject;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
@@ -374,6 +376,63 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         static final String SOURCE_THROTTLE_TIME_IN_MILLIS = "source_throttle_time_in_millis";
         static final String TARGET_THROTTLE_TIME = "target_throttle_time";
         static final String TARGET_THROTTLE_TIME_IN_MILLIS = "target_throttle_time_in_millis";
+        static final String FILE_CHUNK_WINDOW = "file_chunk_window";
+        static final String WINDOW = "window";
+        static final String CHUNK_SIZE = "chunk_size";
+        static final String CHUNK_SIZE_IN_BYTES = "chunk_size_in_bytes";
+        static final String THROUGHPUT_IN_BYTES_PER_SEC = "throughput_in_bytes_per_sec";
+        static final String HISTORY = "history";
+        static final String TIME = "time";
+        static final String TIME_IN_MILLIS = "time_in_millis";
+    }
+
+    /**
+     * The number of concurrent file chunk requests and the chunk size chosen by the recovery source when it adapts them to the observed
+     * round-trip times, see {@link RecoverySettings#INDICES_RECOVERY_ADAPTIVE_FILE_CHUNK_WINDOW_SETTING}, together with the rate at which
+     * the target acknowledged the file chunks.
+     */
+    public record FileChunkWindow(int window, int chunkSizeInBytes, long throughputInBytesPerSecond) implements Writeable {
+
+        public FileChunkWindow(StreamInput in) throws IOException {
+            this(in.readVInt(), in.readVInt(), in.readVLong());
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVInt(window);
+            out.writeVInt(chunkSizeInBytes);
+            out.writeVLong(throughputInBytesPerSecond);
+        }
+
+        private void innerToXContent(XContentBuilder builder) throws IOException {
+            builder.field(Fields.WINDOW, window);
+            builder.humanReadableField(Fields.CHUNK_SIZE_IN_BYTES, Fields.CHUNK_SIZE, ByteSizeValue.ofBytes(chunkSizeInBytes));
+            builder.field(Fields.THROUGHPUT_IN_BYTES_PER_SEC, throughputInBytesPerSecond);
+        }
+    }
+
+    /**
+     * A {@link FileChunkWindow} reported to the target, with the time since the start of the index stage at which it was first reported.
+     */
+    public record FileChunkWindowSample(long timeInMillis, FileChunkWindow fileChunkWindow) implements Writeable, ToXContentObject {
+
+        public FileChunkWindowSample(StreamInput in) throws IOException {
+            this(in.readVLong(), new FileChunkWindow(in));
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(timeInMillis);
+            fileChunkWindow.writeTo(out);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.humanReadableField(Fields.TIME_IN_MILLIS, Fields.TIME, new TimeValue(timeInMillis));
+            fileChunkWindow.innerToXContent(builder);
+            return builder.endObject();
+        }
     }
 
     public static class Timer implements Writeable {
@@ -859,6 +918,14 @@ public class RecoveryState implements ToXContentFragment, Writeable {
         private long sourceThrottlingInNanos = UNKNOWN;
         private long targetThrottleTimeInNanos = UNKNOWN;
 
+        /**
+         * Minimum time between two retained {@link FileChunkWindowSample}s, later reports within this interval replace the last sample.
+         */
+        static final long FILE_CHUNK_WINDOW_SAMPLE_INTERVAL_MILLIS = TimeValue.timeValueSeconds(1).millis();
+        static final int MAX_FILE_CHUNK_WINDOW_SAMPLES = 300;
+
+        private final Deque<FileChunkWindowSample> fileChunkWindowSamples = new ArrayDeque<>();
+
         public Index() {
             this(new RecoveryFilesDetails());
         }
@@ -872,6 +939,9 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             fileDetails = new RecoveryFilesDetails(in);
             sourceThrottlingInNanos = in.readLong();
             targetThrottleTimeInNanos = in.readLong();
+            if (in.getVersion().onOrAfter(RecoverySettings.FILE_CHUNK_WINDOW_STATS_VERSION)) {
+                fileChunkWindowSamples.addAll(in.readList(FileChunkWindowSample::new));
+            }
         }
 
         @Override
@@ -880,6 +950,9 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             fileDetails.writeTo(out);
             out.writeLong(sourceThrottlingInNanos);
             out.writeLong(targetThrottleTimeInNanos);
+            if (out.getVersion().onOrAfter(RecoverySettings.FILE_CHUNK_WINDOW_STATS_VERSION)) {
+                out.writeCollection(fileChunkWindowSamples);
+            }
         }
 
         public synchronized List<FileDetail> fileDetails() {
@@ -891,6 +964,7 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             fileDetails.clear();
             sourceThrottlingInNanos = UNKNOWN;
             targetThrottleTimeInNanos = UNKNOWN;
+            fileChunkWindowSamples.clear();
         }
 
         public synchronized void addFileDetail(String name, long length, boolean reused) {
@@ -929,6 +1003,38 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             }
         }
 
+        public synchronized void recordFileChunkWindow(FileChunkWindow fileChunkWindow) {
+            final long now = time();
+            final FileChunkWindowSample last = fileChunkWindowSamples.peekLast();
+            if (last != null && now - last.timeInMillis() < FILE_CHUNK_WINDOW_SAMPLE_INTERVAL_MILLIS) {
+                if (last.fileChunkWindow().equals(fileChunkWindow) == false) {
+                    fileChunkWindowSamples.pollLast();
+                    fileChunkWindowSamples.addLast(new FileChunkWindowSample(last.timeInMillis(), fileChunkWindow));
+                }
+            } else {
+                fileChunkWindowSamples.addLast(new FileChunkWindowSample(now, fileChunkWindow));
+                if (fileChunkWindowSamples.size() > MAX_FILE_CHUNK_WINDOW_SAMPLES) {
+                    fileChunkWindowSamples.pollFirst();
+                }
+            }
+        }
+
+        /**
+         * @return the last reported window of concurrent file chunk requests, or {@code null} if the source does not adapt it
+         */
+        @Nullable
+        public synchronized FileChunkWindow fileChunkWindow() {
+            final FileChunkWindowSample last = fileChunkWindowSamples.peekLast();
+            return last == null ? null : last.fileChunkWindow();
+        }
+
+        /**
+         * @return the reported windows of concurrent file chunk requests, at most one per second and oldest first
+         */
+        public synchronized List<FileChunkWindowSample> fileChunkWindowHistory() {
+            return List.copyOf(fileChunkWindowSamples);
+        }
+
         public synchronized TimeValue sourceThrottling() {
             return TimeValue.timeValueNanos(sourceThrottlingInNanos);
         }
@@ -1123,6 +1229,15 @@ public class RecoveryState implements ToXContentFragment, Writeable {
             builder.humanReadableField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, new TimeValue(time()));
             builder.humanReadableField(Fields.SOURCE_THROTTLE_TIME_IN_MILLIS, Fields.SOURCE_THROTTLE_TIME, sourceThrottling());
             builder.humanReadableField(Fields.TARGET_THROTTLE_TIME_IN_MILLIS, Fields.TARGET_THROTTLE_TIME, targetThrottling());
+            final FileChunkWindowSample last = fileChunkWindowSamples.peekLast();
+            if (last != null) {
+                builder.startObject(Fields.FILE_CHUNK_WINDOW);
+                last.fileChunkWindow().innerToXContent(builder);
+                if (params.paramAsBoolean("detailed", false)) {
+                    builder.xContentList(Fields.HISTORY, fileChunkWindowSamples, params);
+                }
+                builder.endObject();
+            }
             return builder;
         }
 
@@ -120,5 +120,11 @@ public interface RecoveryTargetHandler {
         ActionListener<Void> listener
     );
 
+    /**
+     * Called before {@link #writeFileChunk} with the window of concurrent file chunk requests and the chunk size chosen by the source, if
+     * the source adapts them to the observed round-trip times.
+     */
+    default void onFileChunkWindow(RecoveryState.FileChunkWindow fileChunkWindow) {}
+
     default void cancel() {}
 }
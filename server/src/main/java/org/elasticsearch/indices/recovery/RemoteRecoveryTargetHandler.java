@@ -71,6 +71,7 @@ public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
     private final Consumer<Long> onSourceThrottle;
     private final Task task;
     private volatile boolean isCancelled = false;
+    private volatile RecoveryState.FileChunkWindow fileChunkWindow;
 
     public RemoteRecoveryTargetHandler(
         long recoveryId,
@@ -292,7 +293,8 @@ public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
             content,
             lastChunk,
             totalTranslogOps,
-            throttleTimeInNanos
+            throttleTimeInNanos,
+            fileChunkWindow
         );
 
         // Fork the actual sending onto a separate thread so we can send them concurrently even if CPU-bound (e.g. using compression).
@@ -307,6 +309,11 @@ public class RemoteRecoveryTargetHandler implements RecoveryTargetHandler {
             );
     }
 
+    @Override
+    public void onFileChunkWindow(RecoveryState.FileChunkWindow fileChunkWindow) {
+        this.fileChunkWindow = fileChunkWindow;
+    }
+
     @Override
     public void cancel() {
         isCancelled = true;
@@ -58,6 +58,7 @@ import org.elasticsearch.plugins.IngestPlugin;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -906,7 +907,8 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
                 }
                 try {
                     boolean ensureNoSelfReferences = ingestDocument.doNoSelfReferencesCheck();
-                    indexRequest.source(ingestDocument.getSource(), indexRequest.getContentType(), ensureNoSelfReferences);
+                    XContentType contentType = binarySource(metadata.getIndex()) ? XContentType.SMILE : indexRequest.getContentType();
+                    indexRequest.source(ingestDocument.getSource(), contentType, ensureNoSelfReferences);
                 } catch (IllegalArgumentException ex) {
                     // An IllegalArgumentException can be thrown when an ingest processor creates a source map that is self-referencing.
                     // In that case, we catch and wrap the exception, so we can include which pipeline failed.
@@ -940,6 +942,23 @@ public class IngestService implements ClusterStateApplier, ReportingService<Inge
         });
     }
 
+    /**
+     * Returns true if the documents that are written to the given index or alias are serialized to SMILE after ingest, see
+     * {@link IndexSettings#INGEST_BINARY_SOURCE_SETTING}.
+     */
+    private boolean binarySource(String index) {
+        final ClusterState state = this.state;
+        if (state == null || index == null) {
+            return false;
+        }
+        IndexAbstraction indexAbstraction = state.metadata().getIndicesLookup().get(index);
+        if (indexAbstraction == null || indexAbstraction.getWriteIndex() == null) {
+            return false;
+        }
+        IndexMetadata indexMetadata = state.metadata().index(indexAbstraction.getWriteIndex());
+        return indexMetadata != null && IndexSettings.INGEST_BINARY_SOURCE_SETTING.get(indexMetadata.getSettings());
+    }
+
     private void postIngest(IngestDocument ingestDocument, IndexRequest indexRequest) {
         // cache timestamp from ingest source map
         Object rawTimestamp = ingestDocument.getSourceAndMetadata().get(TimestampField.FIXED_TIMESTAMP_FIELD);
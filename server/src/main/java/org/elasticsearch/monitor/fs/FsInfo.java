@@ -8,6 +8,7 @@
 
 package org.elasticsearch.monitor.fs;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -15,6 +16,7 @@ import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.translog.TranslogSyncStats;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.ToXContentObject;
 import org.elasticsearch.xcontent.XContentBuilder;
@@ -36,6 +38,9 @@ public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragm
         long total = -1;
         long free = -1;
         long available = -1;
+        /** Statistics of the translog syncs of the shards on this path, if any. Not set for total aggregates. */
+        @Nullable
+        TranslogSyncStats translogSync;
 
         public Path() {}
 
@@ -57,6 +62,9 @@ public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragm
             total = in.readLong();
             free = in.readLong();
             available = in.readLong();
+            if (in.getVersion().onOrAfter(Version.V_8_7_0)) {
+                translogSync = in.readOptionalWriteable(TranslogSyncStats::new);
+            }
         }
 
         @Override
@@ -67,6 +75,9 @@ public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragm
             out.writeLong(total);
             out.writeLong(free);
             out.writeLong(available);
+            if (out.getVersion().onOrAfter(Version.V_8_7_0)) {
+                out.writeOptionalWriteable(translogSync);
+            }
         }
 
         public String getPath() {
@@ -93,6 +104,11 @@ public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragm
             return ByteSizeValue.ofBytes(available);
         }
 
+        @Nullable
+        public TranslogSyncStats getTranslogSync() {
+            return translogSync;
+        }
+
         private static long addLong(long current, long other) {
             if (current == -1 && other == -1) {
                 return 0;
@@ -146,6 +162,9 @@ public class FsInfo implements Iterable<FsInfo.Path>, Writeable, ToXContentFragm
             if (available != -1) {
                 builder.humanReadableField(Fields.AVAILABLE_IN_BYTES, Fields.AVAILABLE, getAvailable());
             }
+            if (translogSync != null) {
+                translogSync.toXContent(builder, params);
+            }
 
             builder.endObject();
             return builder;
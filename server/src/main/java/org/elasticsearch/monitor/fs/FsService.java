@@ -14,8 +14,10 @@ import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.SingleObjectCache;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.index.translog.TranslogSyncScheduler;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
@@ -42,7 +44,15 @@ public class FsService {
     );
 
     public FsService(final Settings settings, final NodeEnvironment nodeEnvironment) {
-        final FsProbe probe = new FsProbe(nodeEnvironment);
+        this(settings, nodeEnvironment, null);
+    }
+
+    public FsService(
+        final Settings settings,
+        final NodeEnvironment nodeEnvironment,
+        @Nullable final TranslogSyncScheduler translogSyncScheduler
+    ) {
+        final FsProbe probe = new FsProbe(nodeEnvironment, translogSyncScheduler);
         final FsInfo initialValue = stats(probe, null);
         if (ALWAYS_REFRESH_SETTING.get(settings)) {
             assert REFRESH_INTERVAL_SETTING.exists(settings) == false;
@@ -84,6 +84,7 @@ import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshots;
 import org.elasticsearch.index.snapshots.blobstore.RateLimitingInputStream;
 import org.elasticsearch.index.snapshots.blobstore.SlicedInputStream;
 import org.elasticsearch.index.snapshots.blobstore.SnapshotFiles;
+import org.elasticsearch.index.store.LazyRestoreDirectory;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetadata;
 import org.elasticsearch.indices.recovery.RecoverySettings;
@@ -235,6 +236,19 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         Setting.Property.NodeScope
     );
 
+    /**
+     * Size of the parts of files that are uploaded concurrently by several snapshot threads. Files larger than this size are split into
+     * parts of this size, each uploaded as a separate blob, so that a single large file does not hold up the snapshot of a shard. Disabled
+     * by default, in which case each file is uploaded by a single thread in parts of {@link #chunkSize()}.
+     */
+    public static final Setting<ByteSizeValue> PARALLEL_UPLOAD_PART_SIZE_SETTING = Setting.byteSizeSetting(
+        "parallel_upload_part_size",
+        ByteSizeValue.ZERO,
+        ByteSizeValue.ZERO,
+        ByteSizeValue.ofBytes(Long.MAX_VALUE),
+        Setting.Property.NodeScope
+    );
+
     /**
      * Setting to disable writing the {@code index.latest} blob which enables the contents of this repository to be used with a
      * url-repository.
@@ -385,6 +399,12 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
      */
     protected final int bufferSize;
 
+    /**
+     * Size of the parts of files that are uploaded concurrently, or {@code null} if files are uploaded by a single thread.
+     */
+    @Nullable
+    private final ByteSizeValue parallelUploadPartSize;
+
     /**
      * Maximum number of snapshots that this repository can hold.
      */
@@ -417,6 +437,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         readOnly = metadata.settings().getAsBoolean(READONLY_SETTING_KEY, false);
         cacheRepositoryData = CACHE_REPOSITORY_DATA.get(metadata.settings());
         bufferSize = Math.toIntExact(BUFFER_SIZE_SETTING.get(metadata.settings()).getBytes());
+        final ByteSizeValue parallelUploadPartSize = PARALLEL_UPLOAD_PART_SIZE_SETTING.get(metadata.settings());
+        this.parallelUploadPartSize = parallelUploadPartSize.getBytes() > 0 ? parallelUploadPartSize : null;
         this.namedXContentRegistry = namedXContentRegistry;
         this.basePath = basePath;
         this.maxSnapshotCount = MAX_SNAPSHOTS_SETTING.get(metadata.settings());
@@ -815,6 +837,18 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         return null;
     }
 
+    /**
+     * Returns the size of the parts that new files are split into, which is the chunk size unless parallel uploads use smaller parts.
+     */
+    @Nullable
+    private ByteSizeValue filePartSize() {
+        final ByteSizeValue chunkSize = chunkSize();
+        if (parallelUploadPartSize == null || (chunkSize != null && chunkSize.getBytes() <= parallelUploadPartSize.getBytes())) {
+            return chunkSize;
+        }
+        return parallelUploadPartSize;
+    }
+
     @Override
     public RepositoryMetadata getMetadata() {
         return metadata;
@@ -2781,7 +2815,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                         BlobStoreIndexShardSnapshot.FileInfo snapshotFileInfo = new BlobStoreIndexShardSnapshot.FileInfo(
                             (needsWrite ? UPLOADED_DATA_BLOB_PREFIX : VIRTUAL_DATA_BLOB_PREFIX) + UUIDs.randomBase64UUID(),
                             md,
-                            chunkSize()
+                            filePartSize()
                         );
                         indexCommitPointFiles.add(snapshotFileInfo);
                         if (needsWrite) {
@@ -3043,8 +3077,14 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     Store store,
                     ActionListener<Void> listener
                 ) {
+                    final LazyRestoreDirectory lazyRestoreDirectory = LazyRestoreDirectory.unwrap(store.directory());
                     if (filesToRecover.isEmpty()) {
                         listener.onResponse(null);
+                    } else if (lazyRestoreDirectory != null) {
+                        ActionListener.completeWith(listener, () -> {
+                            restoreFilesLazily(lazyRestoreDirectory, filesToRecover, store);
+                            return null;
+                        });
                     } else {
                         // Start as many workers as fit into the snapshot pool at once at the most
                         final int workers = Math.min(
@@ -3064,6 +3104,42 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     }
                 }
 
+                /**
+                 * Restores the files whose contents are in the shard snapshot metadata, and registers all other files as remote files
+                 * of the {@link LazyRestoreDirectory} which copies them in the background.
+                 */
+                private void restoreFilesLazily(
+                    LazyRestoreDirectory directory,
+                    List<BlobStoreIndexShardSnapshot.FileInfo> filesToRecover,
+                    Store store
+                ) throws IOException {
+                    final List<BlobStoreIndexShardSnapshot.FileInfo> remoteFiles = new ArrayList<>();
+                    for (BlobStoreIndexShardSnapshot.FileInfo fileInfo : filesToRecover) {
+                        if (fileInfo.name().startsWith(VIRTUAL_DATA_BLOB_PREFIX)) {
+                            store.incRef();
+                            try {
+                                restoreFile(fileInfo, store);
+                            } finally {
+                                store.decRef();
+                            }
+                        } else {
+                            remoteFiles.add(fileInfo);
+                        }
+                    }
+                    directory.addRemoteFiles(
+                        new LazyRestoreDirectory.Source(metadata.name(), snapshotId, indexId, snapshotShardId),
+                        container,
+                        bufferSize,
+                        remoteFiles
+                    );
+                    directory.copyRemoteFiles(
+                        store,
+                        executor,
+                        BlobStoreRepository.this::maybeRateLimitRestores,
+                        (file, bytes) -> recoveryState.getIndex().addRecoveredBytesToFile(file, bytes)
+                    );
+                }
+
                 private void executeOneFileRestore(
                     BlockingQueue<BlobStoreIndexShardSnapshot.FileInfo> files,
                     ActionListener<Void> allFilesListener
@@ -3470,11 +3546,14 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
      * @param fileInfo file to snapshot
      */
     protected void snapshotFile(SnapshotShardContext context, FileInfo fileInfo) throws IOException {
+        if (parallelUploadPartSize != null && fileInfo.numberOfParts() > 1) {
+            snapshotFileParts(context, fileInfo);
+            return;
+        }
         final IndexId indexId = context.indexId();
         final Store store = context.store();
         final ShardId shardId = store.shardId();
         final IndexShardSnapshotStatus snapshotStatus = context.status();
-        final SnapshotId snapshotId = context.snapshotId();
         final BlobContainer shardContainer = shardContainer(indexId, shardId);
         final String file = fileInfo.physicalName();
         try (
@@ -3483,42 +3562,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         ) {
             for (int i = 0; i < fileInfo.numberOfParts(); i++) {
                 final long partBytes = fileInfo.partBytes(i);
-
-                // Make reads abortable by mutating the snapshotStatus object
-                final InputStream inputStream = new FilterInputStream(
-                    maybeRateLimitSnapshots(new InputStreamIndexInput(indexInput, partBytes))
-                ) {
-                    @Override
-                    public int read() throws IOException {
-                        checkAborted();
-                        return super.read();
-                    }
-
-                    @Override
-                    public int read(byte[] b, int off, int len) throws IOException {
-                        checkAborted();
-                        return super.read(b, off, len);
-                    }
-
-                    private void checkAborted() {
-                        if (snapshotStatus.isAborted()) {
-                            logger.debug("[{}] [{}] Aborted on the file [{}], exiting", shardId, snapshotId, fileInfo.physicalName());
-                            throw new AbortedSnapshotException();
-                        }
-                    }
-                };
-                final String partName = fileInfo.partName(i);
-                logger.trace("[{}] Writing [{}] to [{}]", metadata.name(), partName, shardContainer.path());
-                final long startMS = threadPool.relativeTimeInMillis();
-                shardContainer.writeBlob(partName, inputStream, partBytes, false);
-                logger.trace(
-                    "[{}] Writing [{}] of size [{}b] to [{}] took [{}ms]",
-                    metadata.name(),
-                    partName,
-                    partBytes,
-                    shardContainer.path(),
-                    threadPool.relativeTimeInMillis() - startMS
-                );
+                writeFilePart(context, shardContainer, fileInfo, i, new InputStreamIndexInput(indexInput, partBytes));
             }
             Store.verify(indexInput);
             snapshotStatus.addProcessedFile(fileInfo.length());
@@ -3529,6 +3573,115 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         }
     }
 
+    /**
+     * Snapshot the parts of an individual file concurrently: the calling task enqueues helper tasks on the
+     * {@link ShardSnapshotTaskRunner} and all of them upload parts until none are left, see {@link ParallelFileUpload}.
+     * @param fileInfo file to snapshot
+     */
+    private void snapshotFileParts(SnapshotShardContext context, FileInfo fileInfo) throws IOException {
+        final Store store = context.store();
+        final IndexShardSnapshotStatus snapshotStatus = context.status();
+        final BlobContainer shardContainer = shardContainer(context.indexId(), store.shardId());
+        final long startMS = threadPool.relativeTimeInMillis();
+        try (Releasable ignored = BlobStoreRepository.incrementStoreRef(store, snapshotStatus, store.shardId())) {
+            final ParallelFileUpload upload = new ParallelFileUpload(
+                fileInfo,
+                () -> store.directory().openInput(fileInfo.physicalName(), IOContext.READONCE),
+                (part, inputStream) -> writeFilePart(context, shardContainer, fileInfo, part, inputStream)
+            );
+            // the store ref is held until all parts are uploaded, helpers that start later find no parts left and return immediately
+            final int helpers = Math.min(fileInfo.numberOfParts(), threadPool.info(ThreadPool.Names.SNAPSHOT).getMax()) - 1;
+            for (int i = 0; i < helpers; i++) {
+                shardSnapshotTaskRunner.enqueueFilePartSnapshot(context, upload::uploadParts, ActionListener.noop());
+            }
+            final int maxConcurrentParts = upload.run();
+            snapshotStatus.addProcessedFile(fileInfo.length());
+            snapshotStatus.addParallelFileUpload(
+                new IndexShardSnapshotStatus.FileUploadStats(
+                    fileInfo.physicalName(),
+                    fileInfo.numberOfParts(),
+                    maxConcurrentParts,
+                    fileInfo.length(),
+                    threadPool.relativeTimeInMillis() - startMS
+                )
+            );
+        } catch (Exception t) {
+            failStoreIfCorrupted(store, t);
+            snapshotStatus.addProcessedFile(0);
+            throw t;
+        }
+    }
+
+    private void writeFilePart(
+        SnapshotShardContext context,
+        BlobContainer shardContainer,
+        FileInfo fileInfo,
+        int part,
+        InputStream partInputStream
+    ) throws IOException {
+        final IndexShardSnapshotStatus snapshotStatus = context.status();
+        final long partBytes = fileInfo.partBytes(part);
+        // Make reads abortable by mutating the snapshotStatus object
+        final InputStream inputStream = new FilterInputStream(maybeRateLimitSnapshots(partInputStream)) {
+            @Override
+            public int read() throws IOException {
+                checkAborted();
+                return super.read();
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                checkAborted();
+                return super.read(b, off, len);
+            }
+
+            private void checkAborted() {
+                if (snapshotStatus.isAborted()) {
+                    logger.debug(
+                        "[{}] [{}] Aborted on the file [{}], exiting",
+                        context.store().shardId(),
+                        context.snapshotId(),
+                        fileInfo.physicalName()
+                    );
+                    throw new AbortedSnapshotException();
+                }
+            }
+        };
+        final String partName = fileInfo.partName(part);
+        logger.trace("[{}] Writing [{}] to [{}]", metadata.name(), partName, shardContainer.path());
+        final long startMS = threadPool.relativeTimeInMillis();
+        shardContainer.writeBlob(partName, inputStream, partBytes, false);
+        logger.trace(
+            "[{}] Writing [{}] of size [{}b] to [{}] took [{}ms]",
+            metadata.name(),
+            partName,
+            partBytes,
+            shardContainer.path(),
+            threadPool.relativeTimeInMillis() - startMS
+        );
+    }
+
+    /**
+     * Resumes a lazy restore of a shard from this repository after the shard was reopened, see {@link LazyRestoreDirectory}.
+     */
+    public void resumeLazyRestore(Store store, ActionListener<Void> listener) {
+        final LazyRestoreDirectory directory = LazyRestoreDirectory.unwrap(store.directory());
+        final LazyRestoreDirectory.Source source = directory == null ? null : directory.source();
+        if (source == null) {
+            listener.onResponse(null);
+            return;
+        }
+        assert source.repository().equals(metadata.name()) : source + " vs " + metadata.name();
+        final Executor executor = threadPool.executor(ThreadPool.Names.SNAPSHOT);
+        executor.execute(ActionRunnable.run(listener, () -> {
+            final BlobContainer container = shardContainer(source.indexId(), source.snapshotShardId());
+            final BlobStoreIndexShardSnapshot snapshot = loadShardSnapshot(container, source.snapshotId());
+            directory.resume(container, bufferSize, snapshot.indexFiles());
+            logger.debug("{} resuming lazy restore of [{}] bytes from [{}]", store.shardId(), directory.remoteSizeInBytes(), source);
+            directory.copyRemoteFiles(store, executor, this::maybeRateLimitRestores, (file, bytes) -> {});
+        }));
+    }
+
     private static void failStoreIfCorrupted(Store store, Exception e) {
         if (Lucene.isCorruptionException(e)) {
             try {
@@ -0,0 +1,269 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.repositories.blobstore;
+
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.common.CheckedSupplier;
+import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
+import org.elasticsearch.index.store.Store;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+import static org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+
+/**
+ * Uploads the parts of a single file concurrently. Every task that takes part in the upload claims the next part that is not uploaded yet
+ * until all parts are claimed; the task that picked the file then waits for the parts that other tasks are still uploading. Since the parts
+ * are read independently, the checksum of the file is verified by combining the CRC32 checksums of its parts rather than by reading the
+ * whole file in order.
+ */
+final class ParallelFileUpload {
+
+    @FunctionalInterface
+    interface PartUploader {
+        /**
+         * Uploads the given part of the file, reading exactly {@link FileInfo#partBytes} bytes from the given stream.
+         */
+        void uploadPart(int part, InputStream inputStream) throws IOException;
+    }
+
+    private final FileInfo fileInfo;
+    private final CheckedSupplier<IndexInput, IOException> inputSupplier;
+    private final PartUploader partUploader;
+    // position of the checksum in the footer of the file, the checksum covers all bytes before it
+    private final long checksumPosition;
+
+    private final long[] partChecksums;
+    private final long[] partChecksumLengths;
+    private final byte[] footerChecksum = new byte[Long.BYTES];
+
+    private final AtomicInteger nextPart = new AtomicInteger();
+    private final AtomicInteger activeParts = new AtomicInteger();
+    private final AtomicInteger maxActiveParts = new AtomicInteger();
+    private final AtomicReference<Exception> failure = new AtomicReference<>();
+    private final CountDownLatch completedParts;
+
+    ParallelFileUpload(FileInfo fileInfo, CheckedSupplier<IndexInput, IOException> inputSupplier, PartUploader partUploader) {
+        this.fileInfo = fileInfo;
+        this.inputSupplier = inputSupplier;
+        this.partUploader = partUploader;
+        this.checksumPosition = fileInfo.length() - Long.BYTES;
+        this.partChecksums = new long[fileInfo.numberOfParts()];
+        this.partChecksumLengths = new long[fileInfo.numberOfParts()];
+        this.completedParts = new CountDownLatch(fileInfo.numberOfParts());
+    }
+
+    /**
+     * Uploads parts until all parts are claimed. Failures are recorded and reported by {@link #run()}, so this method can be executed by
+     * any number of helper tasks.
+     */
+    void uploadParts() {
+        int part;
+        while ((part = nextPart.getAndIncrement()) < fileInfo.numberOfParts()) {
+            try {
+                if (failure.get() == null) {
+                    uploadPart(part);
+                }
+            } catch (Exception e) {
+                failure.accumulateAndGet(e, (current, update) -> {
+                    if (current == null) {
+                        return update;
+                    }
+                    current.addSuppressed(update);
+                    return current;
+                });
+            } finally {
+                completedParts.countDown();
+            }
+        }
+    }
+
+    /**
+     * Uploads parts until all parts are claimed, waits for the parts that other tasks are still uploading and verifies the checksum of the
+     * file.
+     *
+     * @return the largest number of parts that were uploaded concurrently
+     */
+    int run() throws IOException {
+        uploadParts();
+        try {
+            completedParts.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while uploading the parts of [" + fileInfo.physicalName() + "]", e);
+        }
+        final Exception e = failure.get();
+        if (e instanceof IOException ioException) {
+            throw ioException;
+        } else if (e instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        } else if (e != null) {
+            throw new IOException("failed to upload the parts of [" + fileInfo.physicalName() + "]", e);
+        }
+        verify();
+        return maxActiveParts.get();
+    }
+
+    private void uploadPart(int part) throws IOException {
+        final int active = activeParts.incrementAndGet();
+        maxActiveParts.accumulateAndGet(active, Math::max);
+        try (IndexInput indexInput = inputSupplier.get()) {
+            final long start = part * fileInfo.partSize().getBytes();
+            final long partBytes = fileInfo.partBytes(part);
+            indexInput.seek(start);
+            final PartChecksumInputStream inputStream = new PartChecksumInputStream(
+                new InputStreamIndexInput(indexInput, partBytes),
+                start
+            );
+            partUploader.uploadPart(part, inputStream);
+            if (inputStream.position != start + partBytes) {
+                throw new IllegalStateException(
+                    "expected to read [" + partBytes + "] bytes of part [" + part + "] but read [" + (inputStream.position - start) + "]"
+                );
+            }
+            partChecksums[part] = inputStream.checksum.getValue();
+            partChecksumLengths[part] = Math.max(0L, Math.min(start + partBytes, checksumPosition) - start);
+        } finally {
+            activeParts.decrementAndGet();
+        }
+    }
+
+    private void verify() throws CorruptIndexException {
+        long checksum = 0L;
+        for (int part = 0; part < partChecksums.length; part++) {
+            checksum = combineCrc32(checksum, partChecksums[part], partChecksumLengths[part]);
+        }
+        long storedChecksum = 0L;
+        for (byte b : footerChecksum) {
+            storedChecksum = (storedChecksum << 8) | (b & 0xFFL);
+        }
+        if (checksum != storedChecksum) {
+            throw new CorruptIndexException(
+                "verification failed : calculated=" + Store.digestToString(checksum) + " stored=" + Store.digestToString(storedChecksum),
+                fileInfo.physicalName()
+            );
+        }
+    }
+
+    /**
+     * Computes the checksum of the bytes of a part that precede the checksum in the footer of the file, and collects the bytes of this
+     * checksum.
+     */
+    private class PartChecksumInputStream extends FilterInputStream {
+        private final CRC32 checksum = new CRC32();
+        private long position;
+
+        PartChecksumInputStream(InputStream in, long position) {
+            super(in);
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b != -1) {
+                if (position < checksumPosition) {
+                    checksum.update(b);
+                } else {
+                    footerChecksum[Math.toIntExact(position - checksumPosition)] = (byte) b;
+                }
+                position++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            final int read = super.read(b, off, len);
+            if (read > 0) {
+                final int checksummed = (int) Math.max(0L, Math.min(read, checksumPosition - position));
+                checksum.update(b, off, checksummed);
+                if (checksummed < read) {
+                    final int footerOffset = Math.toIntExact(position + checksummed - checksumPosition);
+                    System.arraycopy(b, off + checksummed, footerChecksum, footerOffset, read - checksummed);
+                }
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            throw new UnsupportedOperationException("skipping would leave bytes unverified");
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the CRC32 checksum of the concatenation of two byte sequences, given the checksum of both sequences and the length of the
+     * second one. This is the algorithm of zlib's {@code crc32_combine}.
+     */
+    static long combineCrc32(long crc1, long crc2, long len2) {
+        if (len2 <= 0) {
+            return crc1;
+        }
+        final long[] even = new long[32]; // even-power-of-two zeros operator
+        final long[] odd = new long[32]; // odd-power-of-two zeros operator
+
+        // put operator for one zero bit in odd
+        odd[0] = 0xedb88320L; // CRC-32 polynomial
+        long row = 1;
+        for (int n = 1; n < 32; n++) {
+            odd[n] = row;
+            row <<= 1;
+        }
+        gf2MatrixSquare(even, odd); // put operator for two zero bits in even
+        gf2MatrixSquare(odd, even); // put operator for four zero bits in odd
+
+        // apply len2 zeros to crc1 (first square will put the operator for one zero byte, eight zero bits, in even)
+        do {
+            gf2MatrixSquare(even, odd);
+            if ((len2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(even, crc1);
+            }
+            len2 >>= 1;
+            if (len2 == 0) {
+                break;
+            }
+            gf2MatrixSquare(odd, even);
+            if ((len2 & 1) != 0) {
+                crc1 = gf2MatrixTimes(odd, crc1);
+            }
+            len2 >>= 1;
+        } while (len2 != 0);
+        return crc1 ^ crc2;
+    }
+
+    private static long gf2MatrixTimes(long[] mat, long vec) {
+        long sum = 0;
+        for (int i = 0; vec != 0; i++, vec >>>= 1) {
+            if ((vec & 1) != 0) {
+                sum ^= mat[i];
+            }
+        }
+        return sum;
+    }
+
+    private static void gf2MatrixSquare(long[] square, long[] mat) {
+        for (int n = 0; n < 32; n++) {
+            square[n] = gf2MatrixTimes(mat, mat[n]);
+        }
+    }
+}
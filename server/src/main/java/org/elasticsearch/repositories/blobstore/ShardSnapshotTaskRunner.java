@@ -15,6 +15,7 @@ import org.elasticsearch.action.ActionRunnable;
 import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.PrioritizedThrottledTaskRunner;
+import org.elasticsearch.core.CheckedRunnable;
 import org.elasticsearch.core.Strings;
 import org.elasticsearch.repositories.SnapshotShardContext;
 
@@ -28,8 +29,9 @@ import static org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSna
 
 /**
  * {@link ShardSnapshotTaskRunner} performs snapshotting tasks, prioritizing {@link ShardSnapshotTask}
- * over {@link FileSnapshotTask}. Each enqueued shard to snapshot results in one {@link ShardSnapshotTask}
- * and zero or more {@link FileSnapshotTask}s.
+ * over {@link FilePartSnapshotTask} over {@link FileSnapshotTask}. Each enqueued shard to snapshot results in one {@link ShardSnapshotTask}
+ * and zero or more {@link FileSnapshotTask}s. A {@link FileSnapshotTask} may enqueue {@link FilePartSnapshotTask}s to upload the parts
+ * of its file concurrently, these run ahead of the remaining files so that files which are already being uploaded complete first.
  */
 public class ShardSnapshotTaskRunner {
     private static final Logger logger = LogManager.getLogger(ShardSnapshotTaskRunner.class);
@@ -108,6 +110,36 @@ public class ShardSnapshotTaskRunner {
             }).run();
         }
 
+        @Override
+        public int priority() {
+            return 3;
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + "{snapshotID=[" + context.snapshotId() + "], indexID=[" + context.indexId() + "]}";
+        }
+    }
+
+    class FilePartSnapshotTask extends SnapshotTask {
+        private final CheckedRunnable<Exception> partSnapshotter;
+        private final ActionListener<Void> partSnapshotListener;
+
+        FilePartSnapshotTask(
+            SnapshotShardContext context,
+            CheckedRunnable<Exception> partSnapshotter,
+            ActionListener<Void> partSnapshotListener
+        ) {
+            super(context);
+            this.partSnapshotter = partSnapshotter;
+            this.partSnapshotListener = partSnapshotListener;
+        }
+
+        @Override
+        public void doRun() {
+            ActionRunnable.run(partSnapshotListener, partSnapshotter).run();
+        }
+
         @Override
         public int priority() {
             return 2;
@@ -144,6 +176,15 @@ public class ShardSnapshotTaskRunner {
         taskRunner.enqueueTask(task);
     }
 
+    public void enqueueFilePartSnapshot(
+        final SnapshotShardContext context,
+        final CheckedRunnable<Exception> partSnapshotter,
+        final ActionListener<Void> listener
+    ) {
+        final FilePartSnapshotTask task = new FilePartSnapshotTask(context, partSnapshotter, listener);
+        taskRunner.enqueueTask(task);
+    }
+
     // visible for testing
     int runningTasks() {
         return taskRunner.runningTasks();
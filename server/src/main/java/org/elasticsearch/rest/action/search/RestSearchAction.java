@@ -14,20 +14,25 @@ import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.search.SearchAction;
 import org.elasticsearch.action.search.SearchContextId;
 import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.client.internal.node.NodeClient;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.logging.DeprecationLogger;
+import org.elasticsearch.common.xcontent.ChunkedToXContentObject;
 import org.elasticsearch.core.Booleans;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.RestApiVersion;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.rest.BaseRestHandler;
+import org.elasticsearch.rest.ChunkedRestResponseBody;
+import org.elasticsearch.rest.RestChannel;
 import org.elasticsearch.rest.RestRequest;
+import org.elasticsearch.rest.RestResponse;
+import org.elasticsearch.rest.action.RestActionListener;
 import org.elasticsearch.rest.action.RestActions;
 import org.elasticsearch.rest.action.RestCancellableNodeClient;
-import org.elasticsearch.rest.action.RestStatusToXContentListener;
 import org.elasticsearch.search.Scroll;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
@@ -117,7 +122,24 @@ public class RestSearchAction extends BaseRestHandler {
 
         return channel -> {
             RestCancellableNodeClient cancelClient = new RestCancellableNodeClient(client, request.getHttpChannel());
-            cancelClient.execute(SearchAction.INSTANCE, searchRequest, new RestStatusToXContentListener<>(channel));
+            cancelClient.execute(SearchAction.INSTANCE, searchRequest, chunkedResponseListener(channel));
+        };
+    }
+
+    /**
+     * Builds a listener that serializes the {@link SearchResponse} lazily while it is written to the channel, one hit or aggregation
+     * bucket at a time, so that the memory needed to send a large response is bounded by the size of the chunks that are in flight
+     * rather than by the size of the whole response.
+     */
+    public static RestActionListener<SearchResponse> chunkedResponseListener(RestChannel channel) {
+        return new RestActionListener<>(channel) {
+            @Override
+            protected void processResponse(SearchResponse response) throws IOException {
+                final ChunkedToXContentObject chunkedResponse = response::toXContentChunked;
+                channel.sendResponse(
+                    new RestResponse(response.status(), ChunkedRestResponseBody.fromXContent(chunkedResponse, channel.request(), channel))
+                );
+            }
         };
     }
 
@@ -22,6 +22,7 @@ import org.elasticsearch.core.Tuple;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.LongSupplier;
 
@@ -101,11 +102,22 @@ public class ScriptCache {
                         options
                     );
                 }
+                // A script the engine already compiled earlier doesn't cost a compilation
+                if (scriptEngine.isCompiledCacheEnabled()) {
+                    Object loadedScript = scriptEngine.loadCompiled(id, idOrCode, context, options);
+                    if (loadedScript != null) {
+                        scriptMetrics.onCompiledCacheHit();
+                        return loadedScript;
+                    }
+                    scriptMetrics.onCompiledCacheMiss();
+                }
                 if (context.compilationRateLimited) {
                     // Check whether too many compilations have happened
                     checkCompilationLimit();
                 }
+                long startNanos = System.nanoTime();
                 Object compiledScript = scriptEngine.compile(id, idOrCode, context, options);
+                scriptMetrics.onCompilationTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
                 // Since the cache key is the script content itself we don't need to
                 // invalidate/check the cache if an indexed script changes.
                 scriptMetrics.onCompilation();
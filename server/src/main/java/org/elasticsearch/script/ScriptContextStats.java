@@ -12,10 +12,12 @@ import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.network.HandlingTimeTracker;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Objects;
 
 public class ScriptContextStats implements Writeable, ToXContentFragment, Comparable<ScriptContextStats> {
@@ -25,12 +27,27 @@ public class ScriptContextStats implements Writeable, ToXContentFragment, Compar
     private final long cacheEvictions;
     private final TimeSeries cacheEvictionsHistory;
     private final long compilationLimitTriggered;
+    private final long compiledCacheHits;
+    private final long compiledCacheMisses;
+    private final long[] compilationTimeHistogram;
 
     public ScriptContextStats(
         String context,
         long compilationLimitTriggered,
         TimeSeries compilationsHistory,
         TimeSeries cacheEvictionsHistory
+    ) {
+        this(context, compilationLimitTriggered, compilationsHistory, cacheEvictionsHistory, 0, 0, new long[0]);
+    }
+
+    public ScriptContextStats(
+        String context,
+        long compilationLimitTriggered,
+        TimeSeries compilationsHistory,
+        TimeSeries cacheEvictionsHistory,
+        long compiledCacheHits,
+        long compiledCacheMisses,
+        long[] compilationTimeHistogram
     ) {
         this.context = Objects.requireNonNull(context);
         this.compilations = compilationsHistory.total;
@@ -38,6 +55,9 @@ public class ScriptContextStats implements Writeable, ToXContentFragment, Compar
         this.compilationLimitTriggered = compilationLimitTriggered;
         this.compilationsHistory = compilationsHistory;
         this.cacheEvictionsHistory = cacheEvictionsHistory;
+        this.compiledCacheHits = compiledCacheHits;
+        this.compiledCacheMisses = compiledCacheMisses;
+        this.compilationTimeHistogram = Objects.requireNonNull(compilationTimeHistogram);
     }
 
     public ScriptContextStats(StreamInput in) throws IOException {
@@ -55,6 +75,15 @@ public class ScriptContextStats implements Writeable, ToXContentFragment, Compar
             compilationsHistory = new TimeSeries(compilations);
             cacheEvictionsHistory = new TimeSeries(cacheEvictions);
         }
+        if (in.getVersion().onOrAfter(Version.V_8_7_0)) {
+            compiledCacheHits = in.readVLong();
+            compiledCacheMisses = in.readVLong();
+            compilationTimeHistogram = in.readVLongArray();
+        } else {
+            compiledCacheHits = 0;
+            compiledCacheMisses = 0;
+            compilationTimeHistogram = new long[0];
+        }
     }
 
     @Override
@@ -67,6 +96,11 @@ public class ScriptContextStats implements Writeable, ToXContentFragment, Compar
             compilationsHistory.writeTo(out);
             cacheEvictionsHistory.writeTo(out);
         }
+        if (out.getVersion().onOrAfter(Version.V_8_7_0)) {
+            out.writeVLong(compiledCacheHits);
+            out.writeVLong(compiledCacheMisses);
+            out.writeVLongArray(compilationTimeHistogram);
+        }
     }
 
     public String getContext() {
@@ -93,6 +127,29 @@ public class ScriptContextStats implements Writeable, ToXContentFragment, Compar
         return compilationLimitTriggered;
     }
 
+    /**
+     * @return the number of scripts the engine loaded from its compiled script cache instead of compiling them
+     */
+    public long getCompiledCacheHits() {
+        return compiledCacheHits;
+    }
+
+    /**
+     * @return the number of scripts that were not found in the engine's compiled script cache and had to be compiled
+     */
+    public long getCompiledCacheMisses() {
+        return compiledCacheMisses;
+    }
+
+    /**
+     * @return An array of frequencies of compilation times in buckets with upper bounds as returned by
+     *         {@link HandlingTimeTracker#getBucketUpperBounds()}, plus an extra bucket for longer compilations, or an empty array
+     *         if the stats came from a node that does not track compilation times.
+     */
+    public long[] getCompilationTimeHistogram() {
+        return compilationTimeHistogram;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject();
@@ -115,10 +172,34 @@ public class ScriptContextStats implements Writeable, ToXContentFragment, Compar
         }
 
         builder.field(Fields.COMPILATION_LIMIT_TRIGGERED, getCompilationLimitTriggered());
+        builder.field(Fields.COMPILED_CACHE_HITS, getCompiledCacheHits());
+        builder.field(Fields.COMPILED_CACHE_MISSES, getCompiledCacheMisses());
+        compilationTimeHistogramToXContent(builder, getCompilationTimeHistogram());
         builder.endObject();
         return builder;
     }
 
+    static void compilationTimeHistogramToXContent(XContentBuilder builder, long[] bucketFrequencies) throws IOException {
+        if (Arrays.stream(bucketFrequencies).allMatch(count -> count == 0)) {
+            return;
+        }
+        final int[] bucketBounds = HandlingTimeTracker.getBucketUpperBounds();
+        assert bucketFrequencies.length == bucketBounds.length + 1;
+        builder.startArray(Fields.COMPILATION_TIME_HISTOGRAM);
+        for (int i = 0; i < bucketFrequencies.length; i++) {
+            builder.startObject();
+            if (i > 0 && i <= bucketBounds.length) {
+                builder.field("ge_millis", bucketBounds[i - 1]);
+            }
+            if (i < bucketBounds.length) {
+                builder.field("lt_millis", bucketBounds[i]);
+            }
+            builder.field("count", bucketFrequencies[i]);
+            builder.endObject();
+        }
+        builder.endArray();
+    }
+
     @Override
     public int compareTo(ScriptContextStats o) {
         return this.context.compareTo(o.context);
@@ -131,6 +212,9 @@ public class ScriptContextStats implements Writeable, ToXContentFragment, Compar
         static final String CACHE_EVICTIONS = "cache_evictions";
         static final String CACHE_EVICTIONS_HISTORY = "cache_evictions_history";
         static final String COMPILATION_LIMIT_TRIGGERED = "compilation_limit_triggered";
+        static final String COMPILED_CACHE_HITS = "compiled_cache_hits";
+        static final String COMPILED_CACHE_MISSES = "compiled_cache_misses";
+        static final String COMPILATION_TIME_HISTOGRAM = "compilation_time_histogram";
         static final String FIVE_MINUTES = "5m";
         static final String FIFTEEN_MINUTES = "15m";
         static final String TWENTY_FOUR_HOURS = "24h";
@@ -33,6 +33,33 @@ public interface ScriptEngine extends Closeable {
      */
     <FactoryType> FactoryType compile(String name, String code, ScriptContext<FactoryType> context, Map<String, String> params);
 
+    /**
+     * Loads a script that this engine compiled before, e.g. on a previous run of this node, without compiling it again.
+     * Scripts loaded this way do not count towards the compilation rate limit. Engines that don't keep compiled scripts
+     * around return {@code null} and the script is compiled with {@link #compile}.
+     * @param name the name of the script. {@code null} if it is anonymous (inline). For a stored script, its the identifier.
+     * @param code actual source of the script
+     * @param context the context this script will be used for
+     * @param params compile-time parameters (such as flags to the compiler)
+     * @return A compiled script of the FactoryType from {@link ScriptContext}, or {@code null} if it has to be compiled
+     */
+    default <FactoryType> FactoryType loadCompiled(
+        String name,
+        String code,
+        ScriptContext<FactoryType> context,
+        Map<String, String> params
+    ) {
+        return null;
+    }
+
+    /**
+     * Whether this engine keeps compiled scripts around for {@link #loadCompiled}. Scripts are only counted as hits or misses of the
+     * compiled script cache if it is enabled.
+     */
+    default boolean isCompiledCacheEnabled() {
+        return false;
+    }
+
     @Override
     default void close() throws IOException {}
 
@@ -9,6 +9,7 @@
 package org.elasticsearch.script;
 
 import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.network.HandlingTimeTracker;
 
 import java.util.function.LongSupplier;
 
@@ -16,6 +17,9 @@ public class ScriptMetrics {
     final CounterMetric compilationLimitTriggered = new CounterMetric();
     final TimeSeriesCounter compilations;
     final TimeSeriesCounter cacheEvictions;
+    final CounterMetric compiledCacheHits = new CounterMetric();
+    final CounterMetric compiledCacheMisses = new CounterMetric();
+    final HandlingTimeTracker compilationTimes = new HandlingTimeTracker();
 
     public ScriptMetrics(LongSupplier timeProvider) {
         compilations = new TimeSeriesCounter(timeProvider);
@@ -34,6 +38,18 @@ public class ScriptMetrics {
         compilationLimitTriggered.inc();
     }
 
+    public void onCompiledCacheHit() {
+        compiledCacheHits.inc();
+    }
+
+    public void onCompiledCacheMiss() {
+        compiledCacheMisses.inc();
+    }
+
+    public void onCompilationTime(long compilationTimeMillis) {
+        compilationTimes.addHandlingTime(compilationTimeMillis);
+    }
+
     public ScriptStats stats() {
         TimeSeries compilationsTimeSeries = compilations.timeSeries();
         TimeSeries cacheEvictionsTimeSeries = cacheEvictions.timeSeries();
@@ -42,13 +58,24 @@ public class ScriptMetrics {
             cacheEvictionsTimeSeries.total,
             compilationLimitTriggered.count(),
             compilationsTimeSeries,
-            cacheEvictionsTimeSeries
+            cacheEvictionsTimeSeries,
+            compiledCacheHits.count(),
+            compiledCacheMisses.count(),
+            compilationTimes.getHistogram()
         );
     }
 
     public ScriptContextStats stats(String context) {
         TimeSeries compilationsTimeSeries = compilations.timeSeries();
         TimeSeries cacheEvictionsTimeSeries = cacheEvictions.timeSeries();
-        return new ScriptContextStats(context, compilationLimitTriggered.count(), compilationsTimeSeries, cacheEvictionsTimeSeries);
+        return new ScriptContextStats(
+            context,
+            compilationLimitTriggered.count(),
+            compilationsTimeSeries,
+            cacheEvictionsTimeSeries,
+            compiledCacheHits.count(),
+            compiledCacheMisses.count(),
+            compilationTimes.getHistogram()
+        );
     }
 }
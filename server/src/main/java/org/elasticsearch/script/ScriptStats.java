@@ -18,9 +18,11 @@ import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 public class ScriptStats implements Writeable, ToXContentFragment {
     private final List<ScriptContextStats> contextStats;
@@ -29,6 +31,9 @@ public class ScriptStats implements Writeable, ToXContentFragment {
     private final long compilationLimitTriggered;
     private final TimeSeries compilationsHistory;
     private final TimeSeries cacheEvictionsHistory;
+    private final long compiledCacheHits;
+    private final long compiledCacheMisses;
+    private final long[] compilationTimeHistogram;
 
     public ScriptStats(List<ScriptContextStats> contextStats) {
         ArrayList<ScriptContextStats> ctxStats = new ArrayList<>(contextStats.size());
@@ -38,16 +43,31 @@ public class ScriptStats implements Writeable, ToXContentFragment {
         long compilations = 0;
         long cacheEvictions = 0;
         long compilationLimitTriggered = 0;
+        long compiledCacheHits = 0;
+        long compiledCacheMisses = 0;
+        long[] compilationTimeHistogram = new long[0];
         for (ScriptContextStats stats : contextStats) {
             compilations += stats.getCompilations();
             cacheEvictions += stats.getCacheEvictions();
             compilationLimitTriggered += stats.getCompilationLimitTriggered();
+            compiledCacheHits += stats.getCompiledCacheHits();
+            compiledCacheMisses += stats.getCompiledCacheMisses();
+            long[] contextHistogram = stats.getCompilationTimeHistogram();
+            if (compilationTimeHistogram.length < contextHistogram.length) {
+                compilationTimeHistogram = Arrays.copyOf(compilationTimeHistogram, contextHistogram.length);
+            }
+            for (int i = 0; i < contextHistogram.length; i++) {
+                compilationTimeHistogram[i] += contextHistogram[i];
+            }
         }
         this.compilations = compilations;
         this.cacheEvictions = cacheEvictions;
         this.compilationLimitTriggered = compilationLimitTriggered;
         this.compilationsHistory = new TimeSeries(compilations);
         this.cacheEvictionsHistory = new TimeSeries(cacheEvictions);
+        this.compiledCacheHits = compiledCacheHits;
+        this.compiledCacheMisses = compiledCacheMisses;
+        this.compilationTimeHistogram = compilationTimeHistogram;
     }
 
     public ScriptStats(
@@ -56,6 +76,19 @@ public class ScriptStats implements Writeable, ToXContentFragment {
         long compilationLimitTriggered,
         TimeSeries compilationsHistory,
         TimeSeries cacheEvictionsHistory
+    ) {
+        this(compilations, cacheEvictions, compilationLimitTriggered, compilationsHistory, cacheEvictionsHistory, 0, 0, new long[0]);
+    }
+
+    public ScriptStats(
+        long compilations,
+        long cacheEvictions,
+        long compilationLimitTriggered,
+        TimeSeries compilationsHistory,
+        TimeSeries cacheEvictionsHistory,
+        long compiledCacheHits,
+        long compiledCacheMisses,
+        long[] compilationTimeHistogram
     ) {
         this.contextStats = Collections.emptyList();
         this.compilations = compilations;
@@ -63,6 +96,9 @@ public class ScriptStats implements Writeable, ToXContentFragment {
         this.compilationLimitTriggered = compilationLimitTriggered;
         this.compilationsHistory = compilationsHistory == null ? new TimeSeries(compilations) : compilationsHistory;
         this.cacheEvictionsHistory = cacheEvictionsHistory == null ? new TimeSeries(cacheEvictions) : cacheEvictionsHistory;
+        this.compiledCacheHits = compiledCacheHits;
+        this.compiledCacheMisses = compiledCacheMisses;
+        this.compilationTimeHistogram = Objects.requireNonNull(compilationTimeHistogram);
     }
 
     public ScriptStats(ScriptContextStats context) {
@@ -71,7 +107,10 @@ public class ScriptStats implements Writeable, ToXContentFragment {
             context.getCacheEvictions(),
             context.getCompilationLimitTriggered(),
             context.getCompilationsHistory(),
-            context.getCacheEvictionsHistory()
+            context.getCacheEvictionsHistory(),
+            context.getCompiledCacheHits(),
+            context.getCompiledCacheMisses(),
+            context.getCompilationTimeHistogram()
         );
     }
 
@@ -89,6 +128,15 @@ public class ScriptStats implements Writeable, ToXContentFragment {
         }
         compilationLimitTriggered = in.readVLong();
         contextStats = in.readList(ScriptContextStats::new);
+        if (in.getVersion().onOrAfter(Version.V_8_7_0)) {
+            compiledCacheHits = in.readVLong();
+            compiledCacheMisses = in.readVLong();
+            compilationTimeHistogram = in.readVLongArray();
+        } else {
+            compiledCacheHits = 0;
+            compiledCacheMisses = 0;
+            compilationTimeHistogram = new long[0];
+        }
     }
 
     @Override
@@ -102,6 +150,11 @@ public class ScriptStats implements Writeable, ToXContentFragment {
         }
         out.writeVLong(compilationLimitTriggered);
         out.writeList(contextStats);
+        if (out.getVersion().onOrAfter(Version.V_8_7_0)) {
+            out.writeVLong(compiledCacheHits);
+            out.writeVLong(compiledCacheMisses);
+            out.writeVLongArray(compilationTimeHistogram);
+        }
     }
 
     public List<ScriptContextStats> getContextStats() {
@@ -120,6 +173,18 @@ public class ScriptStats implements Writeable, ToXContentFragment {
         return compilationLimitTriggered;
     }
 
+    public long getCompiledCacheHits() {
+        return compiledCacheHits;
+    }
+
+    public long getCompiledCacheMisses() {
+        return compiledCacheMisses;
+    }
+
+    public long[] getCompilationTimeHistogram() {
+        return compilationTimeHistogram;
+    }
+
     public ScriptCacheStats toScriptCacheStats() {
         if (contextStats.isEmpty()) {
             return new ScriptCacheStats(this);
@@ -137,6 +202,9 @@ public class ScriptStats implements Writeable, ToXContentFragment {
         builder.field(Fields.COMPILATIONS, compilations);
         builder.field(Fields.CACHE_EVICTIONS, cacheEvictions);
         builder.field(Fields.COMPILATION_LIMIT_TRIGGERED, compilationLimitTriggered);
+        builder.field(ScriptContextStats.Fields.COMPILED_CACHE_HITS, compiledCacheHits);
+        builder.field(ScriptContextStats.Fields.COMPILED_CACHE_MISSES, compiledCacheMisses);
+        ScriptContextStats.compilationTimeHistogramToXContent(builder, compilationTimeHistogram);
         if (compilationsHistory != null && compilationsHistory.areTimingsEmpty() == false) {
             builder.startObject(ScriptContextStats.Fields.COMPILATIONS_HISTORY);
             compilationsHistory.toXContent(builder, params);
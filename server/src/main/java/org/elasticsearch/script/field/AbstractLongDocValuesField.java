@@ -87,6 +87,11 @@ public abstract class AbstractLongDocValuesField extends AbstractScriptFieldFact
         return getLong(index);
     }
 
+    @Override
+    public long getLongInternal(int index) {
+        return getLong(index);
+    }
+
     protected long getLong(int index) {
         return values[index];
     }
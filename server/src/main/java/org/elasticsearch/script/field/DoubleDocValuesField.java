@@ -73,6 +73,11 @@ public class DoubleDocValuesField extends AbstractScriptFieldFactory<Double>
         return values[index];
     }
 
+    @Override
+    public double getDoubleInternal(int index) {
+        return values[index];
+    }
+
     /**
      * Returns the name of this field.
      */
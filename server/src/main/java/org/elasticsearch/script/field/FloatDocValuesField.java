@@ -73,6 +73,11 @@ public class FloatDocValuesField extends AbstractScriptFieldFactory<Float>
         return (double) values[index];
     }
 
+    @Override
+    public double getDoubleInternal(int index) {
+        return values[index];
+    }
+
     /**
      * Returns the name of this field.
      */
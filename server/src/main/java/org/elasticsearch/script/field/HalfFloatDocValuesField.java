@@ -71,6 +71,11 @@ public class HalfFloatDocValuesField extends AbstractScriptFieldFactory<Float>
         return values[index];
     }
 
+    @Override
+    public double getDoubleInternal(int index) {
+        return values[index];
+    }
+
     @Override
     public String getName() {
         return name;
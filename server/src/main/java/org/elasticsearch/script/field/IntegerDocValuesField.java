@@ -73,6 +73,11 @@ public class IntegerDocValuesField extends AbstractScriptFieldFactory<Integer>
         return (long) values[index];
     }
 
+    @Override
+    public long getLongInternal(int index) {
+        return values[index];
+    }
+
     /**
      * Returns the name of this field.
      */
@@ -68,6 +68,11 @@ public class ScaledFloatDocValuesField extends AbstractScriptFieldFactory<Double
         return values[index];
     }
 
+    @Override
+    public double getDoubleInternal(int index) {
+        return values[index];
+    }
+
     @Override
     public String getName() {
         return name;
@@ -16,8 +16,11 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.xcontent.ChunkedToXContent;
+import org.elasticsearch.common.xcontent.ChunkedToXContentHelper;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.rest.action.search.RestSearchAction;
+import org.elasticsearch.xcontent.ToXContent;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xcontent.XContentParser;
@@ -171,30 +174,38 @@ public final class SearchHits implements Writeable, ToXContentFragment, Iterable
 
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
-        builder.startObject(Fields.HITS);
-        boolean totalHitAsInt = params.paramAsBoolean(RestSearchAction.TOTAL_HITS_AS_INT_PARAM, false);
-        if (totalHitAsInt) {
-            long total = totalHits == null ? -1 : totalHits.value;
-            builder.field(Fields.TOTAL, total);
-        } else if (totalHits != null) {
-            builder.startObject(Fields.TOTAL);
-            builder.field("value", totalHits.value);
-            builder.field("relation", totalHits.relation == Relation.EQUAL_TO ? "eq" : "gte");
-            builder.endObject();
-        }
-        if (Float.isNaN(maxScore)) {
-            builder.nullField(Fields.MAX_SCORE);
-        } else {
-            builder.field(Fields.MAX_SCORE, maxScore);
-        }
-        builder.field(Fields.HITS);
-        builder.startArray();
-        for (SearchHit hit : hits) {
-            hit.toXContent(builder, params);
-        }
-        builder.endArray();
-        builder.endObject();
-        return builder;
+        return ChunkedToXContent.wrapAsToXContent(this::toXContentChunked).toXContent(builder, params);
+    }
+
+    /**
+     * Serializes the hits as a sequence of chunks that produce the same output as {@link #toXContent}, one chunk per hit.
+     */
+    public Iterator<? extends ToXContent> toXContentChunked(Params params) {
+        final ToXContent header = (builder, p) -> {
+            builder.startObject(Fields.HITS);
+            boolean totalHitAsInt = p.paramAsBoolean(RestSearchAction.TOTAL_HITS_AS_INT_PARAM, false);
+            if (totalHitAsInt) {
+                long total = totalHits == null ? -1 : totalHits.value;
+                builder.field(Fields.TOTAL, total);
+            } else if (totalHits != null) {
+                builder.startObject(Fields.TOTAL);
+                builder.field("value", totalHits.value);
+                builder.field("relation", totalHits.relation == Relation.EQUAL_TO ? "eq" : "gte");
+                builder.endObject();
+            }
+            if (Float.isNaN(maxScore)) {
+                builder.nullField(Fields.MAX_SCORE);
+            } else {
+                builder.field(Fields.MAX_SCORE, maxScore);
+            }
+            return builder;
+        };
+        // every hit is a chunk of its own so that large pages of hits are written to the channel incrementally
+        return Iterators.concat(
+            Iterators.single(header),
+            ChunkedToXContentHelper.array(Fields.HITS, Iterators.forArray(hits)),
+            ChunkedToXContentHelper.endObject()
+        );
     }
 
     public static SearchHits fromXContent(XContentParser parser) throws IOException {
@@ -74,6 +74,7 @@ import org.elasticsearch.search.aggregations.AggregationReduceContext;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.search.aggregations.SearchContextAggregations;
+import org.elasticsearch.search.aggregations.metrics.CardinalitySketchCache;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.AggregationContext.ProductionAggregationContext;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
@@ -217,6 +218,16 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         Property.NodeScope
     );
 
+    /**
+     * Reduce sibling aggregations in parallel on the {@code search_coordination} thread pool.
+     */
+    public static final Setting<Boolean> ENABLE_PARALLEL_AGGS_REDUCE = Setting.boolSetting(
+        "search.aggs.parallel_reduce",
+        false,
+        Property.Dynamic,
+        Property.NodeScope
+    );
+
     public static final Setting<ByteSizeValue> MAX_ASYNC_SEARCH_RESPONSE_SIZE_SETTING = Setting.byteSizeSetting(
         "search.max_async_search_response_size",
         new ByteSizeValue(10, ByteSizeUnit.MB),
@@ -259,6 +270,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private volatile boolean enableRewriteAggsToFilterByFilter;
 
+    private volatile boolean enableParallelAggsReduce;
+
     private final Cancellable keepAliveReaper;
 
     private final AtomicLong idGenerator = new AtomicLong();
@@ -267,6 +280,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
 
     private final MultiBucketConsumerService multiBucketConsumerService;
 
+    private final CardinalitySketchCache cardinalitySketchCache;
+
     private final AtomicInteger openScrollContexts = new AtomicInteger();
     private final String sessionId = UUIDs.randomBase64UUID();
 
@@ -297,6 +312,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
             settings,
             circuitBreakerService.getBreaker(CircuitBreaker.REQUEST)
         );
+        this.cardinalitySketchCache = new CardinalitySketchCache(settings);
         this.executorSelector = executorSelector;
         this.tracer = tracer;
 
@@ -329,6 +345,9 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         enableRewriteAggsToFilterByFilter = ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER.get(settings);
         clusterService.getClusterSettings()
             .addSettingsUpdateConsumer(ENABLE_REWRITE_AGGS_TO_FILTER_BY_FILTER, this::setEnableRewriteAggsToFilterByFilter);
+
+        enableParallelAggsReduce = ENABLE_PARALLEL_AGGS_REDUCE.get(settings);
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(ENABLE_PARALLEL_AGGS_REDUCE, this::setEnableParallelAggsReduce);
     }
 
     private static void validateKeepAlives(TimeValue defaultKeepAlive, TimeValue maxKeepAlive) {
@@ -379,6 +398,10 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
         this.enableRewriteAggsToFilterByFilter = enableRewriteAggsToFilterByFilter;
     }
 
+    private void setEnableParallelAggsReduce(boolean enableParallelAggsReduce) {
+        this.enableParallelAggsReduce = enableParallelAggsReduce;
+    }
+
     @Override
     public void afterIndexRemoved(Index index, IndexSettings indexSettings, IndexRemovalReason reason) {
         // once an index is removed due to deletion or closing, we can just clean up all the pending search context information
@@ -432,6 +455,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
     protected void doClose() {
         doStop();
         keepAliveReaper.cancel();
+        cardinalitySketchCache.close();
     }
 
     public void executeDfsPhase(ShardSearchRequest request, SearchShardTask task, ActionListener<SearchPhaseResult> listener) {
@@ -1231,6 +1255,7 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                 multiBucketConsumerService.create(),
                 () -> new SubSearchContext(context).parsedQuery(context.parsedQuery()).fetchFieldsContext(context.fetchFieldsContext()),
                 context.bitsetFilterCache(),
+                cardinalitySketchCache,
                 context.indexShard().shardId().hashCode(),
                 context::getRelativeTimeInMillis,
                 context::isCancelled,
@@ -1615,10 +1640,17 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
      * builder retains a reference to the provided {@link SearchRequest}.
      */
     public AggregationReduceContext.Builder aggReduceContextBuilder(Supplier<Boolean> isCanceled, SearchRequest request) {
+        Executor reduceExecutor = enableParallelAggsReduce ? threadPool.executor(Names.SEARCH_COORDINATION) : null;
         return new AggregationReduceContext.Builder() {
             @Override
             public AggregationReduceContext forPartialReduction() {
-                return new AggregationReduceContext.ForPartial(bigArrays, scriptService, isCanceled, request.source().aggregations());
+                return new AggregationReduceContext.ForPartial(
+                    bigArrays,
+                    scriptService,
+                    isCanceled,
+                    request.source().aggregations(),
+                    reduceExecutor
+                );
             }
 
             @Override
@@ -1628,7 +1660,8 @@ public class SearchService extends AbstractLifecycleComponent implements IndexEv
                     scriptService,
                     isCanceled,
                     request.source().aggregations(),
-                    multiBucketConsumerService.create()
+                    multiBucketConsumerService.create(),
+                    reduceExecutor
                 );
             }
         };
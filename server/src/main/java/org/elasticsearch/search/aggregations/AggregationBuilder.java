@@ -202,6 +202,21 @@ public abstract class AggregationBuilder
         return false;
     }
 
+    /**
+     * Can this aggregation be collected concurrently by several top level aggregators, one per leaf slice, whose
+     * results are then partially reduced into a single shard level aggregation?
+     *
+     * By default, it's false for all aggregations.
+     *
+     * Aggregations that return true must produce internal aggregations whose partial reduction is lossless. They must not
+     * run scripts either: the {@link org.elasticsearch.search.lookup.SearchLookup} that scripts read from and the state
+     * they keep aren't thread safe. For the same reason, {@link AggregationPhase} doesn't collect them concurrently when
+     * they target runtime fields.
+     */
+    public boolean supportsParallelCollection() {
+        return false;
+    }
+
     @Override
     public String toString() {
         return Strings.toString(this);
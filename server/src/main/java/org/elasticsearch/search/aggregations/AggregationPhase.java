@@ -10,8 +10,11 @@ package org.elasticsearch.search.aggregations;
 import org.apache.lucene.search.Collector;
 import org.elasticsearch.action.search.SearchShardTask;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.TimeSeriesIndexSearcher;
+import org.elasticsearch.search.aggregations.support.ValuesSourceAggregationBuilder;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.profile.query.CollectorResult;
 import org.elasticsearch.search.profile.query.InternalProfileCollector;
@@ -19,6 +22,7 @@ import org.elasticsearch.search.query.QueryPhase;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -33,6 +37,24 @@ public class AggregationPhase {
         if (context.aggregations() == null) {
             return;
         }
+        if (canCollectConcurrently(context)) {
+            AggregatorFactories.Builder builders = context.request().source().aggregations();
+            AggregationContext aggregationContext = context.aggregations().factories().context();
+            // the aggregations that support parallel collection never need scripts to be partially reduced
+            context.aggregations()
+                .collectorManager(
+                    new AggregatorCollectorManager(
+                        context.aggregations().factories(),
+                        () -> new AggregationReduceContext.ForPartial(
+                            aggregationContext.bigArrays(),
+                            null,
+                            aggregationContext::isCancelled,
+                            builders
+                        )
+                    )
+                );
+            return;
+        }
         BucketCollector bucketCollector;
         try {
             context.aggregations().aggregators(context.aggregations().factories().createTopLevelAggregators());
@@ -58,6 +80,43 @@ public class AggregationPhase {
         }
     }
 
+    /**
+     * Returns true if the aggregations of the provided context can be collected concurrently on the leaf slices of the shard,
+     * in which case the {@link QueryPhase} builds them while merging the results of the slices.
+     */
+    private static boolean canCollectConcurrently(SearchContext context) {
+        if (QueryPhase.canCollectConcurrently(context) == false
+            || context.aggregations().factories().context() == null
+            || context.request().source() == null
+            || context.request().source().aggregations() == null) {
+            return false;
+        }
+        AggregatorFactories.Builder builders = context.request().source().aggregations();
+        return builders.supportsParallelCollection()
+            && builders.isInSortOrderExecutionRequired() == false
+            && readsOnlyDocValues(builders.getAggregatorFactories(), context.aggregations().factories().context());
+    }
+
+    /**
+     * Returns false if any of the provided aggregations reads a field that isn't backed by doc values. Runtime fields, mapped
+     * or defined in the request's runtime mappings, compute their values with scripts that read from the shared, non thread
+     * safe {@link org.elasticsearch.search.lookup.SearchLookup}, just like the scripts of the aggregations themselves.
+     */
+    static boolean readsOnlyDocValues(Collection<AggregationBuilder> builders, AggregationContext context) {
+        for (AggregationBuilder builder : builders) {
+            if (builder instanceof ValuesSourceAggregationBuilder<?> valuesSourceBuilder && valuesSourceBuilder.field() != null) {
+                MappedFieldType fieldType = context.getFieldType(valuesSourceBuilder.field());
+                if (fieldType != null && fieldType.hasDocValues() == false) {
+                    return false;
+                }
+            }
+            if (readsOnlyDocValues(builder.getSubAggregations(), context) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static List<Runnable> getCancellationChecks(SearchContext context) {
         List<Runnable> cancellationChecks = new ArrayList<>();
         if (context.lowLevelCancellation()) {
@@ -14,6 +14,7 @@ import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.tasks.TaskCancelledException;
 
+import java.util.concurrent.Executor;
 import java.util.function.IntConsumer;
 import java.util.function.Supplier;
 
@@ -46,31 +47,37 @@ public abstract sealed class AggregationReduceContext permits AggregationReduceC
     @Nullable
     private final AggregationBuilder builder;
     private final AggregatorFactories.Builder subBuilders;
+    @Nullable
+    private final Executor reduceExecutor;
 
     private AggregationReduceContext(
         BigArrays bigArrays,
         ScriptService scriptService,
         Supplier<Boolean> isCanceled,
-        AggregatorFactories.Builder subBuilders
+        AggregatorFactories.Builder subBuilders,
+        @Nullable Executor reduceExecutor
     ) {
         this.bigArrays = bigArrays;
         this.scriptService = scriptService;
         this.isCanceled = isCanceled;
         this.builder = null;
         this.subBuilders = subBuilders;
+        this.reduceExecutor = reduceExecutor;
     }
 
     private AggregationReduceContext(
         BigArrays bigArrays,
         ScriptService scriptService,
         Supplier<Boolean> isCanceled,
-        AggregationBuilder builder
+        AggregationBuilder builder,
+        @Nullable Executor reduceExecutor
     ) {
         this.bigArrays = bigArrays;
         this.scriptService = scriptService;
         this.isCanceled = isCanceled;
         this.builder = builder;
         this.subBuilders = builder.factoriesBuilder;
+        this.reduceExecutor = reduceExecutor;
     }
 
     /**
@@ -94,6 +101,15 @@ public abstract sealed class AggregationReduceContext permits AggregationReduceC
         return isCanceled;
     }
 
+    /**
+     * The executor to reduce sibling aggregations in parallel on or
+     * {@code null} to reduce them one after the other on the calling thread.
+     */
+    @Nullable
+    public final Executor reduceExecutor() {
+        return reduceExecutor;
+    }
+
     /**
      * Builder for the agg being processed or {@code null} if this context
      * was built for the top level or a pipeline aggregation.
@@ -125,15 +141,27 @@ public abstract sealed class AggregationReduceContext permits AggregationReduceC
      * Build a {@link AggregationReduceContext} for a sub-aggregation.
      */
     public final AggregationReduceContext forAgg(String name) {
+        return forAgg(name, reduceExecutor);
+    }
+
+    /**
+     * Build a {@link AggregationReduceContext} for a sub-aggregation that
+     * reduces its own sub-aggregations one after the other.
+     */
+    public final AggregationReduceContext forAggWithoutParallelism(String name) {
+        return forAgg(name, null);
+    }
+
+    private AggregationReduceContext forAgg(String name, @Nullable Executor reduceExecutor) {
         for (AggregationBuilder b : subBuilders.getAggregatorFactories()) {
             if (b.getName().equals(name)) {
-                return forSubAgg(b);
+                return forSubAgg(b, reduceExecutor);
             }
         }
         throw new IllegalArgumentException("reducing an aggregation [" + name + "] that wasn't requested");
     }
 
-    protected abstract AggregationReduceContext forSubAgg(AggregationBuilder sub);
+    protected abstract AggregationReduceContext forSubAgg(AggregationBuilder sub, @Nullable Executor reduceExecutor);
 
     /**
      * A {@linkplain AggregationReduceContext} to perform a partial reduction.
@@ -145,11 +173,31 @@ public abstract sealed class AggregationReduceContext permits AggregationReduceC
             Supplier<Boolean> isCanceled,
             AggregatorFactories.Builder builders
         ) {
-            super(bigArrays, scriptService, isCanceled, builders);
+            this(bigArrays, scriptService, isCanceled, builders, null);
+        }
+
+        public ForPartial(
+            BigArrays bigArrays,
+            ScriptService scriptService,
+            Supplier<Boolean> isCanceled,
+            AggregatorFactories.Builder builders,
+            @Nullable Executor reduceExecutor
+        ) {
+            super(bigArrays, scriptService, isCanceled, builders, reduceExecutor);
         }
 
         public ForPartial(BigArrays bigArrays, ScriptService scriptService, Supplier<Boolean> isCanceled, AggregationBuilder builder) {
-            super(bigArrays, scriptService, isCanceled, builder);
+            this(bigArrays, scriptService, isCanceled, builder, null);
+        }
+
+        private ForPartial(
+            BigArrays bigArrays,
+            ScriptService scriptService,
+            Supplier<Boolean> isCanceled,
+            AggregationBuilder builder,
+            @Nullable Executor reduceExecutor
+        ) {
+            super(bigArrays, scriptService, isCanceled, builder, reduceExecutor);
         }
 
         @Override
@@ -166,8 +214,8 @@ public abstract sealed class AggregationReduceContext permits AggregationReduceC
         }
 
         @Override
-        protected AggregationReduceContext forSubAgg(AggregationBuilder sub) {
-            return new ForPartial(bigArrays(), scriptService(), isCanceled(), sub);
+        protected AggregationReduceContext forSubAgg(AggregationBuilder sub, @Nullable Executor reduceExecutor) {
+            return new ForPartial(bigArrays(), scriptService(), isCanceled(), sub, reduceExecutor);
         }
     }
 
@@ -185,8 +233,19 @@ public abstract sealed class AggregationReduceContext permits AggregationReduceC
             AggregatorFactories.Builder builders,
             IntConsumer multiBucketConsumer
         ) {
-            super(bigArrays, scriptService, isCanceled, builders);
-            this.multiBucketConsumer = multiBucketConsumer;
+            this(bigArrays, scriptService, isCanceled, builders, multiBucketConsumer, null);
+        }
+
+        public ForFinal(
+            BigArrays bigArrays,
+            ScriptService scriptService,
+            Supplier<Boolean> isCanceled,
+            AggregatorFactories.Builder builders,
+            IntConsumer multiBucketConsumer,
+            @Nullable Executor reduceExecutor
+        ) {
+            super(bigArrays, scriptService, isCanceled, builders, reduceExecutor);
+            this.multiBucketConsumer = reduceExecutor == null ? multiBucketConsumer : synchronizedConsumer(multiBucketConsumer);
             this.pipelineTreeRoot = builders == null ? null : builders.buildPipelineTree();
         }
 
@@ -198,11 +257,35 @@ public abstract sealed class AggregationReduceContext permits AggregationReduceC
             IntConsumer multiBucketConsumer,
             PipelineTree pipelineTreeRoot
         ) {
-            super(bigArrays, scriptService, isCanceled, builder);
+            this(bigArrays, scriptService, isCanceled, builder, multiBucketConsumer, pipelineTreeRoot, null);
+        }
+
+        private ForFinal(
+            BigArrays bigArrays,
+            ScriptService scriptService,
+            Supplier<Boolean> isCanceled,
+            AggregationBuilder builder,
+            IntConsumer multiBucketConsumer,
+            PipelineTree pipelineTreeRoot,
+            @Nullable Executor reduceExecutor
+        ) {
+            super(bigArrays, scriptService, isCanceled, builder, reduceExecutor);
             this.multiBucketConsumer = multiBucketConsumer;
             this.pipelineTreeRoot = pipelineTreeRoot;
         }
 
+        /**
+         * Sibling aggregations that reduce in parallel count their buckets
+         * on different threads.
+         */
+        private static IntConsumer synchronizedConsumer(IntConsumer multiBucketConsumer) {
+            return size -> {
+                synchronized (multiBucketConsumer) {
+                    multiBucketConsumer.accept(size);
+                }
+            };
+        }
+
         @Override
         public boolean isFinalReduce() {
             return true;
@@ -219,8 +302,8 @@ public abstract sealed class AggregationReduceContext permits AggregationReduceC
         }
 
         @Override
-        protected AggregationReduceContext forSubAgg(AggregationBuilder sub) {
-            return new ForFinal(bigArrays(), scriptService(), isCanceled(), sub, multiBucketConsumer, pipelineTreeRoot);
+        protected AggregationReduceContext forSubAgg(AggregationBuilder sub, @Nullable Executor reduceExecutor) {
+            return new ForFinal(bigArrays(), scriptService(), isCanceled(), sub, multiBucketConsumer, pipelineTreeRoot, reduceExecutor);
         }
     }
 }
@@ -9,7 +9,10 @@ package org.elasticsearch.search.aggregations;
 
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.common.ParsingException;
+import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.util.Maps;
+import org.elasticsearch.common.xcontent.ChunkedToXContentHelper;
+import org.elasticsearch.xcontent.ToXContent;
 import org.elasticsearch.xcontent.ToXContentFragment;
 import org.elasticsearch.xcontent.XContentBuilder;
 import org.elasticsearch.xcontent.XContentParser;
@@ -111,6 +114,25 @@ public class Aggregations implements Iterable<Aggregation>, ToXContentFragment {
         return builder.endObject();
     }
 
+    /**
+     * Serializes the aggregations as a sequence of chunks that produce the same output as {@link #toXContent}, emitting the buckets of
+     * aggregations that support it as individual chunks.
+     */
+    public Iterator<? extends ToXContent> toXContentChunked(Params params) {
+        if (aggregations.isEmpty()) {
+            return Collections.emptyIterator();
+        }
+        return ChunkedToXContentHelper.wrapWithObject(
+            AGGREGATIONS_FIELD,
+            Iterators.<Aggregation, ToXContent>flatMap(
+                aggregations.iterator(),
+                aggregation -> aggregation instanceof InternalAggregation internalAggregation
+                    ? internalAggregation.toXContentChunked(params)
+                    : Iterators.single(aggregation)
+            )
+        );
+    }
+
     /**
      * Directly write all the aggregations without their bounding object. Used by sub-aggregations (non top level aggs)
      */
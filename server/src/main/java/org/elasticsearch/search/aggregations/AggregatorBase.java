@@ -12,6 +12,7 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Weight;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.Maps;
@@ -47,6 +48,10 @@ public abstract class AggregatorBase extends Aggregator {
 
     private Map<String, Aggregator> subAggregatorbyName;
     private long requestBytesUsed;
+    // the collectors of the segments that collect docs in blocks, searchers like the TimeSeriesIndexSearcher collect several segments at
+    // once so docs may be buffered in all of them until the collection is done
+    private final List<BlockLeafBucketCollector> blockCollectors = new ArrayList<>();
+    private Weight topLevelWeight;
 
     /**
      * Constructs a new Aggregator.
@@ -215,9 +220,27 @@ public abstract class AggregatorBase extends Aggregator {
      */
     @Override
     public final LeafBucketCollector getLeafCollector(AggregationExecutionContext aggCtx) throws IOException {
+        flushBlocks();
         preGetSubLeafCollectors(aggCtx.getLeafReaderContext());
         final LeafBucketCollector sub = collectableSubAggregators.getLeafCollector(aggCtx);
-        return getLeafCollector(aggCtx, sub);
+        final LeafBucketCollector leafCollector = getLeafCollector(aggCtx, sub);
+        // only top level aggregators can delay the collection of docs, the parents of other aggregators may rely on their sub
+        // aggregators having collected all docs so far, for instance when merging buckets
+        if (parent == null && leafCollector.supportsBlocks() && scoreMode().needsScores() == false) {
+            final BlockLeafBucketCollector blockCollector = new BlockLeafBucketCollector(leafCollector);
+            blockCollectors.add(blockCollector);
+            return blockCollector;
+        }
+        return leafCollector;
+    }
+
+    /**
+     * Collects the docs that the collectors of the segments buffered.
+     */
+    private void flushBlocks() throws IOException {
+        for (BlockLeafBucketCollector blockCollector : blockCollectors) {
+            blockCollector.flush();
+        }
     }
 
     /**
@@ -281,6 +304,8 @@ public abstract class AggregatorBase extends Aggregator {
      */
     @Override
     public void postCollection() throws IOException {
+        flushBlocks();
+        blockCollectors.clear();
         // post-collect this agg before subs to make it possible to buffer and then replay in postCollection()
         doPostCollection();
         collectableSubAggregators.postCollection();
@@ -335,6 +360,23 @@ public abstract class AggregatorBase extends Aggregator {
         return context.query();
     }
 
+    /**
+     * Does the {@link #topLevelQuery() top level query} match every doc of
+     * the segment, including the deleted ones? Used by {@linkplain Aggregator}s
+     * that can aggregate whole segments from data that they precompute per
+     * segment.
+     */
+    protected final boolean topLevelQueryMatchesAllDocs(LeafReaderContext ctx) throws IOException {
+        Query query = topLevelQuery();
+        if (query == null || query.getClass() == MatchAllDocsQuery.class) {
+            return true;
+        }
+        if (topLevelWeight == null) {
+            topLevelWeight = searcher().createWeight(searcher().rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        }
+        return topLevelWeight.count(ctx) == ctx.reader().maxDoc();
+    }
+
     /**
      * The searcher for the shard this {@linkplain Aggregator} is running
      * against. Used by all {@linkplain Aggregator}s that perform extra
@@ -0,0 +1,98 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.ScoreMode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * A {@link CollectorManager} that creates a new tree of top level aggregators for every collector, so that aggregations that
+ * {@link AggregationBuilder#supportsParallelCollection() support parallel collection} can be collected concurrently on
+ * several leaf slices. The aggregations built by each tree are partially reduced into the shard level result.
+ */
+public final class AggregatorCollectorManager
+    implements
+        CollectorManager<AggregatorCollectorManager.AggregatorCollector, InternalAggregations> {
+
+    private final AggregatorFactories factories;
+    private final Supplier<AggregationReduceContext> reduceContextSupplier;
+
+    /**
+     * Ctr
+     * @param factories The factories of the top level aggregators
+     * @param reduceContextSupplier Supplies the context used to partially reduce the results of the collectors
+     */
+    public AggregatorCollectorManager(AggregatorFactories factories, Supplier<AggregationReduceContext> reduceContextSupplier) {
+        this.factories = factories;
+        this.reduceContextSupplier = reduceContextSupplier;
+    }
+
+    @Override
+    public AggregatorCollector newCollector() throws IOException {
+        Aggregator[] aggregators = factories.createTopLevelAggregators();
+        BucketCollector bucketCollector = MultiBucketCollector.wrap(true, List.of(aggregators));
+        bucketCollector.preCollection();
+        return new AggregatorCollector(aggregators, bucketCollector.asCollector());
+    }
+
+    @Override
+    public InternalAggregations reduce(Collection<AggregatorCollector> collectors) throws IOException {
+        if (factories.context() != null) {
+            factories.context().multiBucketConsumer().reset();
+        }
+        List<InternalAggregations> results = new ArrayList<>(collectors.size());
+        for (AggregatorCollector collector : collectors) {
+            List<InternalAggregation> aggregations = new ArrayList<>(collector.aggregators.length);
+            for (Aggregator aggregator : collector.aggregators) {
+                try {
+                    aggregator.postCollection();
+                    aggregations.add(aggregator.buildTopLevel());
+                } catch (IOException e) {
+                    throw new AggregationExecutionException("Failed to build aggregation [" + aggregator.name() + "]", e);
+                }
+            }
+            results.add(InternalAggregations.from(aggregations));
+        }
+        if (results.size() == 1) {
+            return results.get(0);
+        }
+        return InternalAggregations.reduce(results, reduceContextSupplier.get());
+    }
+
+    /**
+     * A {@link Collector} that feeds its own tree of top level aggregators.
+     */
+    public static final class AggregatorCollector implements Collector {
+        private final Aggregator[] aggregators;
+        private final Collector collector;
+
+        private AggregatorCollector(Aggregator[] aggregators, Collector collector) {
+            this.aggregators = aggregators;
+            this.collector = collector;
+        }
+
+        @Override
+        public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+            return collector.getLeafCollector(context);
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return collector.scoreMode();
+        }
+    }
+}
@@ -321,6 +321,18 @@ public class AggregatorFactories {
             return false;
         }
 
+        /**
+         * Return true if all the factories can be collected concurrently, see {@link AggregationBuilder#supportsParallelCollection()}
+         */
+        public boolean supportsParallelCollection() {
+            for (AggregationBuilder builder : aggregationBuilders) {
+                if (builder.supportsParallelCollection() == false) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
         /**
          * Return true if any of the factories can build a time-series aggregation that requires an in-order execution
          */
@@ -0,0 +1,59 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.search.Scorable;
+
+import java.io.IOException;
+
+/**
+ * Buffers the docs collected by a top level {@link Aggregator} and passes them to its collector in blocks, see
+ * {@link LeafBucketCollector#collect(int[], int, long)}. Top level aggregators always collect in bucket {@code 0}. The buffered docs
+ * must be {@link #flush() flushed} once the segment is collected.
+ */
+final class BlockLeafBucketCollector extends LeafBucketCollector {
+
+    private final LeafBucketCollector in;
+    private final int[] docs = new int[BLOCK_SIZE];
+    private int count;
+
+    BlockLeafBucketCollector(LeafBucketCollector in) {
+        assert in.supportsBlocks();
+        this.in = in;
+    }
+
+    @Override
+    public void collect(int doc, long owningBucketOrd) throws IOException {
+        if (owningBucketOrd != 0) {
+            flush();
+            in.collect(doc, owningBucketOrd);
+            return;
+        }
+        docs[count++] = doc;
+        if (count == docs.length) {
+            flush();
+        }
+    }
+
+    /**
+     * Passes the buffered docs to the wrapped collector.
+     */
+    void flush() throws IOException {
+        if (count > 0) {
+            final int blockSize = count;
+            count = 0;
+            in.collect(docs, blockSize, 0);
+        }
+    }
+
+    @Override
+    public void setScorer(Scorable scorer) throws IOException {
+        in.setScorer(scorer);
+    }
+}
@@ -8,15 +8,18 @@
 package org.elasticsearch.search.aggregations;
 
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.io.stream.NamedWriteable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ChunkedToXContentHelper;
 import org.elasticsearch.rest.action.search.RestSearchAction;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.search.aggregations.support.AggregationPath;
 import org.elasticsearch.search.aggregations.support.SamplingContext;
 import org.elasticsearch.search.sort.SortValue;
+import org.elasticsearch.xcontent.ToXContent;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
@@ -189,6 +192,26 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
 
     @Override
     public final XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        startXContent(builder, params);
+        doXContentBody(builder, params);
+        builder.endObject();
+        return builder;
+    }
+
+    /**
+     * Serializes this aggregation as a sequence of chunks that produce the same output as {@link #toXContent}. This allows
+     * the REST layer to write large aggregation results to the channel incrementally, see
+     * {@link org.elasticsearch.common.xcontent.ChunkedToXContent}.
+     */
+    public final Iterator<ToXContent> toXContentChunked(Params params) {
+        return Iterators.concat(
+            Iterators.single((builder, p) -> startXContent(builder, p)),
+            doXContentBodyChunked(params),
+            ChunkedToXContentHelper.endObject()
+        );
+    }
+
+    private XContentBuilder startXContent(XContentBuilder builder, Params params) throws IOException {
         if (params.paramAsBoolean(RestSearchAction.TYPED_KEYS_PARAM, false)) {
             // Concatenates the type and the name of the aggregation (ex: top_hits#foo)
             builder.startObject(String.join(TYPED_KEYS_DELIMITER, getType(), getName()));
@@ -199,13 +222,20 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
             builder.field(CommonFields.META.getPreferredName());
             builder.map(this.metadata);
         }
-        doXContentBody(builder, params);
-        builder.endObject();
         return builder;
     }
 
     public abstract XContentBuilder doXContentBody(XContentBuilder builder, Params params) throws IOException;
 
+    /**
+     * Serializes the body of this aggregation as a sequence of chunks that produce the same output as {@link #doXContentBody}.
+     * Aggregations that may return many buckets should override this to emit their buckets as individual chunks, the default
+     * implementation serializes the whole body as a single chunk.
+     */
+    protected Iterator<? extends ToXContent> doXContentBodyChunked(Params params) {
+        return Iterators.single(this::doXContentBody);
+    }
+
     @Override
     public int hashCode() {
         return Objects.hash(name, metadata);
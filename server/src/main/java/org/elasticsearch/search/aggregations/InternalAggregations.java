@@ -7,14 +7,18 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.common.util.concurrent.FutureUtils;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.SiblingPipelineAggregator;
 import org.elasticsearch.search.aggregations.support.AggregationPath;
 import org.elasticsearch.search.aggregations.support.SamplingContext;
 import org.elasticsearch.search.sort.SortValue;
+import org.elasticsearch.tasks.TaskCancelledException;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -25,6 +29,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Collectors;
 
 /**
@@ -147,25 +152,78 @@ public final class InternalAggregations extends Aggregations implements Writeabl
             }
         }
 
+        if (context.reduceExecutor() != null && aggByName.size() > 1) {
+            return from(reduceInParallel(aggByName, context));
+        }
+
         // now we can use the first aggregation of each list to handle the reduce of its list
         List<InternalAggregation> reducedAggregations = new ArrayList<>();
         for (Map.Entry<String, List<InternalAggregation>> entry : aggByName.entrySet()) {
-            List<InternalAggregation> aggregations = entry.getValue();
-            // Sort aggregations so that unmapped aggs come last in the list
-            // If all aggs are unmapped, the agg that leads the reduction will just return itself
-            aggregations.sort(INTERNAL_AGG_COMPARATOR);
-            InternalAggregation first = aggregations.get(0); // the list can't be empty as it's created on demand
-            if (first.mustReduceOnSingleInternalAgg() || aggregations.size() > 1) {
-                reducedAggregations.add(first.reduce(aggregations, context.forAgg(entry.getKey())));
-            } else {
-                // no need for reduce phase
-                reducedAggregations.add(first);
-            }
+            reducedAggregations.add(reduce(entry.getKey(), entry.getValue(), context));
         }
 
         return from(reducedAggregations);
     }
 
+    /**
+     * Reduces the sibling aggregations in parallel on the {@link AggregationReduceContext#reduceExecutor()}. The calling
+     * thread reduces every aggregation that no thread of the executor has picked up yet so it never waits on a task that
+     * is queued behind it. That keeps nested parallel reductions from exhausting the executor.
+     */
+    private static List<InternalAggregation> reduceInParallel(
+        Map<String, List<InternalAggregation>> aggByName,
+        AggregationReduceContext context
+    ) {
+        List<FutureTask<InternalAggregation>> tasks = new ArrayList<>(aggByName.size());
+        for (Map.Entry<String, List<InternalAggregation>> entry : aggByName.entrySet()) {
+            tasks.add(new FutureTask<>(() -> {
+                if (context.isCanceled().get()) {
+                    throw new TaskCancelledException("Cancelled");
+                }
+                return reduce(entry.getKey(), entry.getValue(), context);
+            }));
+        }
+        for (FutureTask<InternalAggregation> task : tasks.subList(1, tasks.size())) {
+            try {
+                context.reduceExecutor().execute(task);
+            } catch (EsRejectedExecutionException e) {
+                // the calling thread reduces it below
+            }
+        }
+        List<InternalAggregation> reducedAggregations = new ArrayList<>(tasks.size());
+        RuntimeException failure = null;
+        for (FutureTask<InternalAggregation> task : tasks) {
+            // does nothing if a thread of the executor already picked the task up
+            task.run();
+            try {
+                reducedAggregations.add(FutureUtils.get(task));
+            } catch (RuntimeException e) {
+                failure = ExceptionsHelper.useOrSuppress(failure, e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return reducedAggregations;
+    }
+
+    private static InternalAggregation reduce(String name, List<InternalAggregation> aggregations, AggregationReduceContext context) {
+        // Sort aggregations so that unmapped aggs come last in the list
+        // If all aggs are unmapped, the agg that leads the reduction will just return itself
+        aggregations.sort(INTERNAL_AGG_COMPARATOR);
+        InternalAggregation first = aggregations.get(0); // the list can't be empty as it's created on demand
+        if (first.mustReduceOnSingleInternalAgg() || aggregations.size() > 1) {
+            // Forking the reduction of the sub-aggregations of every bucket would cost more than it saves
+            AggregationReduceContext aggContext = first instanceof InternalMultiBucketAggregation
+                ? context.forAggWithoutParallelism(name)
+                : context.forAgg(name);
+            return first.reduce(aggregations, aggContext);
+        } else {
+            // no need for reduce phase
+            return first;
+        }
+    }
+
     /**
      * Finalizes the sampling for all the internal aggregations
      * @param samplingContext the sampling context
@@ -20,6 +20,12 @@ import java.io.IOException;
  * to do the collecting.
  */
 public abstract class LeafBucketCollector implements LeafCollector {
+    /**
+     * The maximum number of docs in the blocks passed to
+     * {@link #collect(int[], int, long)}.
+     */
+    public static final int BLOCK_SIZE = 512;
+
     /**
      * A {@linkplain LeafBucketCollector} that doesn't collect anything.
      * {@link Aggregator}s will return this if they've already collected
@@ -73,6 +79,33 @@ public abstract class LeafBucketCollector implements LeafCollector {
      */
     public abstract void collect(int doc, long owningBucketOrd) throws IOException;
 
+    /**
+     * Collect the first {@code count} docs of {@code docs}, which are in
+     * increasing order, in the bucket owned by {@code owningBucketOrd}.
+     * <p>
+     * Top level {@link Aggregator}s whose collectors
+     * {@link #supportsBlocks() support blocks} receive the docs of a segment
+     * in blocks of up to {@link #BLOCK_SIZE} docs rather than one doc at a
+     * time. This lets metric aggregations load the values of all docs of a
+     * block first and then update their metric in a tight loop over
+     * primitive arrays, see
+     * {@link org.elasticsearch.search.aggregations.metrics.SumAggregator}.
+     */
+    public void collect(int[] docs, int count, long owningBucketOrd) throws IOException {
+        for (int i = 0; i < count; i++) {
+            collect(docs[i], owningBucketOrd);
+        }
+    }
+
+    /**
+     * Does this collector collect blocks of docs faster than one doc at a
+     * time? Only collectors that don't need the {@link Scorable} positioned
+     * on the collected doc may return true.
+     */
+    public boolean supportsBlocks() {
+        return false;
+    }
+
     /**
      * Does this collector collect anything? If this returns true we can safely
      * just never call {@link #collect}.
@@ -14,6 +14,7 @@ public class SearchContextAggregations {
 
     private final AggregatorFactories factories;
     private Aggregator[] aggregators;
+    private AggregatorCollectorManager collectorManager;
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
@@ -38,4 +39,19 @@ public class SearchContextAggregations {
     public void aggregators(Aggregator[] aggregators) {
         this.aggregators = aggregators;
     }
+
+    /**
+     * Returns the manager that creates the aggregators of each leaf slice when the aggregations are collected concurrently,
+     * or <code>null</code> if they are collected by the {@link #aggregators()}.
+     */
+    public AggregatorCollectorManager collectorManager() {
+        return collectorManager;
+    }
+
+    /**
+     * Registers the manager that creates the aggregators of each leaf slice when the aggregations are collected concurrently.
+     */
+    public void collectorManager(AggregatorCollectorManager collectorManager) {
+        this.collectorManager = collectorManager;
+    }
 }
@@ -11,8 +11,10 @@ package org.elasticsearch.search.aggregations.bucket.composite;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.PriorityQueue;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ChunkedToXContentHelper;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.AggregationReduceContext;
 import org.elasticsearch.search.aggregations.Aggregations;
@@ -21,6 +23,7 @@ import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
 import org.elasticsearch.search.aggregations.KeyComparable;
 import org.elasticsearch.search.aggregations.support.SamplingContext;
+import org.elasticsearch.xcontent.ToXContent;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
@@ -114,6 +117,21 @@ public class InternalComposite extends InternalMultiBucketAggregation<InternalCo
         return CompositeAggregation.toXContentFragment(this, builder, params);
     }
 
+    @Override
+    protected Iterator<? extends ToXContent> doXContentBodyChunked(Params params) {
+        final ToXContent header = (builder, p) -> {
+            if (afterKey() != null) {
+                CompositeAggregation.buildCompositeMap("after_key", afterKey(), builder);
+            }
+            return builder.startArray(CommonFields.BUCKETS.getPreferredName());
+        };
+        return Iterators.concat(
+            Iterators.single(header),
+            buckets.stream().map(bucket -> (ToXContent) (b, p) -> CompositeAggregation.bucketToXContent(bucket, b, p)).iterator(),
+            ChunkedToXContentHelper.endArray()
+        );
+    }
+
     @Override
     public String getWriteableName() {
         return CompositeAggregationBuilder.NAME;
@@ -9,6 +9,7 @@ package org.elasticsearch.search.aggregations.bucket.histogram;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.util.CollectionUtil;
@@ -17,6 +18,11 @@ import org.elasticsearch.common.Rounding.DateTimeUnit;
 import org.elasticsearch.core.CheckedFunction;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasables;
+import org.elasticsearch.index.IndexMode;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.codec.tsdb.TimeSeriesRollups;
+import org.elasticsearch.index.mapper.DataStreamTimestampFieldMapper;
+import org.elasticsearch.index.mapper.DocCountFieldMapper;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.AdaptingAggregator;
 import org.elasticsearch.search.aggregations.AggregationExecutionContext;
@@ -35,12 +41,15 @@ import org.elasticsearch.search.aggregations.bucket.range.RangeAggregationBuilde
 import org.elasticsearch.search.aggregations.bucket.range.RangeAggregator;
 import org.elasticsearch.search.aggregations.bucket.range.RangeAggregatorSupplier;
 import org.elasticsearch.search.aggregations.bucket.terms.LongKeyedBucketOrds;
+import org.elasticsearch.search.aggregations.metrics.TimeSeriesRollupCollector;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+import org.elasticsearch.search.profile.aggregation.ProfilingAggregator;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -88,6 +97,38 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         Map<String, Object> metadata
     ) throws IOException {
         Rounding.Prepared preparedRounding = valuesSourceConfig.roundingPreparer(context).apply(rounding);
+        DateHistogramAggregator histogram = null;
+        if (mayUseTimeSeriesRollups(factories, valuesSourceConfig, context, parent)) {
+            histogram = new DateHistogramAggregator(
+                name,
+                factories,
+                rounding,
+                preparedRounding,
+                order,
+                keyed,
+                minDocCount,
+                extendedBounds,
+                hardBounds,
+                valuesSourceConfig,
+                context,
+                parent,
+                cardinality,
+                metadata
+            );
+            if (histogram.rollupCollectors != null) {
+                /*
+                 * Collecting the rollups of the segments is cheaper than the
+                 * range, which has to visit each doc to collect the metrics.
+                 */
+                return histogram;
+            }
+            /*
+             * Some sub-aggregations can't collect rollups so we're better
+             * off with the range. If we can't adapt we use this aggregator
+             * anyway, otherwise the context releases it with the others.
+             */
+            logger.trace("couldn't use the rollups for [{}], some sub-aggregations can't collect them", name);
+        }
         Aggregator asRange = adaptIntoRangeOrNull(
             name,
             factories,
@@ -107,6 +148,9 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         if (asRange != null) {
             return asRange;
         }
+        if (histogram != null) {
+            return histogram;
+        }
         return new DateHistogramAggregator(
             name,
             factories,
@@ -195,6 +239,33 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         );
     }
 
+    /**
+     * Could this aggregation collect the {@link TimeSeriesRollups} that the
+     * segments of a time series index store rather than the docs? We can only
+     * do that for a top level aggregation on {@code @timestamp} whose sub
+     * aggregations are metrics. See {@link #timeSeriesRollupCollectors} and
+     * {@link #collectTimeSeriesRollups} for the rest of the checks.
+     */
+    private static boolean mayUseTimeSeriesRollups(
+        AggregatorFactories factories,
+        ValuesSourceConfig valuesSourceConfig,
+        AggregationContext context,
+        Aggregator parent
+    ) {
+        if (parent != null || factories.countAggregators() == 0) {
+            return false;
+        }
+        IndexSettings indexSettings = context.getIndexSettings();
+        if (indexSettings.getMode() != IndexMode.TIME_SERIES || indexSettings.getTimeSeriesRollupInterval().millis() <= 0) {
+            return false;
+        }
+        return valuesSourceConfig.hasValues()
+            && valuesSourceConfig.fieldContext() != null
+            && DataStreamTimestampFieldMapper.DEFAULT_PATH.equals(valuesSourceConfig.fieldContext().field())
+            && valuesSourceConfig.script() == null
+            && valuesSourceConfig.missing() == null;
+    }
+
     private static RangeAggregator.Range[] ranges(LongBounds hardBounds, long[] fixedRoundingPoints) {
         if (hardBounds == null) {
             RangeAggregator.Range[] ranges = new RangeAggregator.Range[fixedRoundingPoints.length];
@@ -232,6 +303,14 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
 
     private final LongKeyedBucketOrds bucketOrds;
 
+    /**
+     * The sub aggregators that collect the {@link TimeSeriesRollups} of the
+     * segments or {@code null} if we can't use the rollups.
+     */
+    @Nullable
+    private final TimeSeriesRollupCollector[] rollupCollectors;
+    private int segmentsWithRollups;
+
     DateHistogramAggregator(
         String name,
         AggregatorFactories factories,
@@ -262,6 +341,29 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         this.formatter = valuesSourceConfig.format();
 
         bucketOrds = LongKeyedBucketOrds.build(bigArrays(), cardinality);
+        rollupCollectors = mayUseTimeSeriesRollups(factories, valuesSourceConfig, context, parent)
+            ? timeSeriesRollupCollectors(subAggregators)
+            : null;
+    }
+
+    /**
+     * The sub aggregators as {@link TimeSeriesRollupCollector}s or {@code null}
+     * if some of them can't collect rollups.
+     */
+    @Nullable
+    private static TimeSeriesRollupCollector[] timeSeriesRollupCollectors(Aggregator[] subAggregators) {
+        TimeSeriesRollupCollector[] collectors = new TimeSeriesRollupCollector[subAggregators.length];
+        for (int i = 0; i < subAggregators.length; i++) {
+            Aggregator subAggregator = ProfilingAggregator.unwrap(subAggregators[i]);
+            if (subAggregator instanceof TimeSeriesRollupCollector == false) {
+                return null;
+            }
+            collectors[i] = (TimeSeriesRollupCollector) subAggregator;
+            if (collectors[i].rollupField() == null) {
+                return null;
+            }
+        }
+        return collectors;
     }
 
     @Override
@@ -277,6 +379,10 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         if (valuesSource == null) {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
+        if (rollupCollectors != null && collectTimeSeriesRollups(aggCtx.getLeafReaderContext())) {
+            segmentsWithRollups++;
+            return LeafBucketCollector.NO_OP_COLLECTOR;
+        }
         SortedNumericDocValues values = valuesSource.longValues(aggCtx.getLeafReaderContext());
         return new LeafBucketCollectorBase(sub, values) {
             @Override
@@ -308,6 +414,90 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
         };
     }
 
+    /**
+     * Collect the {@link TimeSeriesRollups} of a segment instead of its docs
+     * if the rollups of the segment give the same results. That is if the
+     * top level query matches all docs of the segment, the segment has no
+     * deleted docs, the docs don't have a {@code _doc_count}, the rollups
+     * contain all fields of the sub aggregations and each rollup falls in a
+     * single bucket.
+     *
+     * @return {@code true} if we collected the rollups of the segment
+     */
+    private boolean collectTimeSeriesRollups(LeafReaderContext ctx) throws IOException {
+        if (ctx.reader().hasDeletions() || ctx.reader().getFieldInfos().fieldInfo(DocCountFieldMapper.NAME) != null) {
+            return false;
+        }
+        TimeSeriesRollups rollups = TimeSeriesRollups.get(ctx.reader());
+        if (rollups == null) {
+            return false;
+        }
+        int[] metrics = new int[rollupCollectors.length];
+        for (int i = 0; i < rollupCollectors.length; i++) {
+            metrics[i] = rollups.metrics().indexOf(rollupCollectors[i].rollupField());
+            if (metrics[i] < 0) {
+                return false;
+            }
+        }
+        if (rollups.keyCount() == 0) {
+            return true;
+        }
+        /*
+         * The rollups can start before the first doc and end after the last
+         * one so we can't use the rounding that we prepared for the docs.
+         */
+        long minKey = Long.MAX_VALUE;
+        long maxKey = Long.MIN_VALUE;
+        for (int k = 0; k < rollups.keyCount(); k++) {
+            minKey = Math.min(minKey, rollups.key(k));
+            maxKey = Math.max(maxKey, rollups.key(k));
+        }
+        Rounding.Prepared keyRounding = rounding.prepare(minKey, maxKey + rollups.interval() - 1);
+        long[] roundedKeys = new long[rollups.keyCount()];
+        for (int k = 0; k < roundedKeys.length; k++) {
+            long key = rollups.key(k);
+            roundedKeys[k] = keyRounding.round(key);
+            if (roundedKeys[k] != keyRounding.round(key + rollups.interval() - 1)) {
+                // The rollup straddles two buckets
+                return false;
+            }
+        }
+        if (topLevelQueryMatchesAllDocs(ctx) == false) {
+            return false;
+        }
+        long[] bucketOrdsByKey = new long[roundedKeys.length];
+        Arrays.fill(bucketOrdsByKey, -1);
+        TimeSeriesRollups.Cursor cursor = rollups.cursor();
+        while (cursor.next()) {
+            int keyIndex = cursor.keyIndex();
+            if (hardBounds != null && hardBounds.contain(roundedKeys[keyIndex]) == false) {
+                continue;
+            }
+            long bucketOrd = bucketOrdsByKey[keyIndex];
+            if (bucketOrd < 0) {
+                bucketOrd = bucketOrds.add(0, roundedKeys[keyIndex]);
+                if (bucketOrd < 0) { // already seen
+                    bucketOrd = -1 - bucketOrd;
+                }
+                bucketOrdsByKey[keyIndex] = bucketOrd;
+            }
+            incrementBucketDocCount(bucketOrd, cursor.docCount());
+            for (int i = 0; i < rollupCollectors.length; i++) {
+                long count = cursor.count(metrics[i]);
+                if (count > 0) {
+                    rollupCollectors[i].collectRollup(
+                        bucketOrd,
+                        count,
+                        cursor.sum(metrics[i]),
+                        cursor.min(metrics[i]),
+                        cursor.max(metrics[i])
+                    );
+                }
+            }
+        }
+        return true;
+    }
+
     @Override
     public InternalAggregation[] buildAggregations(long[] owningBucketOrds) throws IOException {
         return buildAggregationsForVariableBuckets(
@@ -364,6 +554,9 @@ class DateHistogramAggregator extends BucketsAggregator implements SizedBucketAg
     @Override
     public void collectDebugInfo(BiConsumer<String, Object> add) {
         add.accept("total_buckets", bucketOrds.size());
+        if (rollupCollectors != null) {
+            add.accept("segments_with_rollups", segmentsWithRollups);
+        }
     }
 
     /**
@@ -9,7 +9,9 @@
 package org.elasticsearch.search.aggregations.bucket.terms;
 
 import org.apache.lucene.util.PriorityQueue;
+import org.elasticsearch.common.collect.Iterators;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.xcontent.ChunkedToXContentHelper;
 import org.elasticsearch.search.aggregations.AggregationExecutionException;
 import org.elasticsearch.search.aggregations.AggregationReduceContext;
 import org.elasticsearch.search.aggregations.BucketOrder;
@@ -21,12 +23,14 @@ import org.elasticsearch.search.aggregations.InternalOrder;
 import org.elasticsearch.search.aggregations.TopBucketBuilder;
 import org.elasticsearch.search.aggregations.bucket.IteratorAndCurrent;
 import org.elasticsearch.search.aggregations.support.SamplingContext;
+import org.elasticsearch.xcontent.ToXContent;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -379,4 +383,23 @@ public abstract class AbstractInternalTerms<A extends AbstractInternalTerms<A, B
         return builder;
     }
 
+    /**
+     * Chunked variant of {@link #doXContentCommon} that emits each bucket as its own chunk.
+     */
+    protected static Iterator<ToXContent> doXContentCommonChunked(
+        Long docCountError,
+        long otherDocCount,
+        List<? extends AbstractTermsBucket> buckets
+    ) {
+        final ToXContent header = (builder, params) -> {
+            builder.field(DOC_COUNT_ERROR_UPPER_BOUND_FIELD_NAME.getPreferredName(), docCountError);
+            builder.field(SUM_OF_OTHER_DOC_COUNTS.getPreferredName(), otherDocCount);
+            return builder;
+        };
+        return Iterators.concat(
+            Iterators.single(header),
+            ChunkedToXContentHelper.array(CommonFields.BUCKETS.getPreferredName(), buckets.iterator())
+        );
+    }
+
 }
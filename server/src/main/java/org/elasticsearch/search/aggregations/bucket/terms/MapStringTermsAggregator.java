@@ -7,7 +7,10 @@
  */
 package org.elasticsearch.search.aggregations.bucket.terms;
 
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.ScoreMode;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
@@ -50,8 +53,8 @@ import static org.elasticsearch.search.aggregations.InternalOrder.isKeyOrder;
 public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
     private final CollectorSource collectorSource;
     private final ResultStrategy<?, ?> resultStrategy;
-    private final BytesKeyedBucketOrds bucketOrds;
-    private final IncludeExclude.StringFilter includeExclude;
+    protected final BytesKeyedBucketOrds bucketOrds;
+    protected final IncludeExclude.StringFilter includeExclude;
 
     public MapStringTermsAggregator(
         String name,
@@ -130,6 +133,151 @@ public class MapStringTermsAggregator extends AbstractStringTermsAggregator {
         Releasables.close(collectorSource, resultStrategy, bucketOrds);
     }
 
+    /**
+     * Variant of {@link MapStringTermsAggregator} that counts the segment
+     * ordinals of a field with ordinals rather than hashing the value of
+     * each document. The counts are turned into buckets once the segment is
+     * collected so every distinct value of the segment is only looked up and
+     * hashed once. Unlike the {@link GlobalOrdinalsStringTermsAggregator} it
+     * doesn't have to build the global ordinals of the field, which can take
+     * a long time for fields with many distinct values after a refresh. But
+     * the values of each segment that are found are hashed again so it is
+     * only faster if the query matches a small part of the values.
+     * <p>
+     * Like {@link GlobalOrdinalsStringTermsAggregator.LowCardinality} this
+     * only works for aggregations without sub-aggregations that collect from
+     * a single bucket.
+     */
+    static class SegmentOrdinals extends MapStringTermsAggregator {
+        private final ValuesSource.Bytes.WithOrdinals valuesSource;
+        private LongArray segmentDocCounts;
+        private SortedSetDocValues segmentOrds;
+        private int segmentsWithSingleValuedOrds = 0;
+        private int segmentsWithMultiValuedOrds = 0;
+        private int segmentsWithoutValues = 0;
+
+        SegmentOrdinals(
+            String name,
+            AggregatorFactories factories,
+            ValuesSourceConfig valuesSourceConfig,
+            BucketOrder order,
+            DocValueFormat format,
+            BucketCountThresholds bucketCountThresholds,
+            IncludeExclude.StringFilter includeExclude,
+            AggregationContext context,
+            Aggregator parent,
+            SubAggCollectionMode collectionMode,
+            boolean showTermDocCountError,
+            Map<String, Object> metadata
+        ) throws IOException {
+            super(
+                name,
+                factories,
+                new ValuesSourceCollectorSource(valuesSourceConfig),
+                a -> a.new StandardTermsResults(valuesSourceConfig.getValuesSource()),
+                order,
+                format,
+                bucketCountThresholds,
+                includeExclude,
+                context,
+                parent,
+                collectionMode,
+                showTermDocCountError,
+                CardinalityUpperBound.ONE,
+                metadata
+            );
+            assert factories == null || factories.countAggregators() == 0;
+            this.valuesSource = (ValuesSource.Bytes.WithOrdinals) valuesSourceConfig.getValuesSource();
+            this.segmentDocCounts = context.bigArrays().newLongArray(1, true);
+        }
+
+        @Override
+        public LeafBucketCollector getLeafCollector(AggregationExecutionContext aggCtx, LeafBucketCollector sub) throws IOException {
+            if (segmentOrds != null) {
+                mapSegmentCountsToBuckets();
+            }
+            final SortedSetDocValues ords = valuesSource.ordinalsValues(aggCtx.getLeafReaderContext());
+            if (ords.getValueCount() == 0) {
+                segmentsWithoutValues++;
+                return LeafBucketCollector.NO_OP_COLLECTOR;
+            }
+            segmentOrds = ords;
+            segmentDocCounts = bigArrays().grow(segmentDocCounts, ords.getValueCount());
+            assert sub.isNoop();
+            final SortedDocValues singleValues = DocValues.unwrapSingleton(ords);
+            if (singleValues != null) {
+                segmentsWithSingleValuedOrds++;
+                return new LeafBucketCollectorBase(sub, ords) {
+                    @Override
+                    public void collect(int doc, long owningBucketOrd) throws IOException {
+                        assert owningBucketOrd == 0;
+                        if (false == singleValues.advanceExact(doc)) {
+                            return;
+                        }
+                        segmentDocCounts.increment(singleValues.ordValue(), docCountProvider.getDocCount(doc));
+                    }
+                };
+            }
+            segmentsWithMultiValuedOrds++;
+            return new LeafBucketCollectorBase(sub, ords) {
+                @Override
+                public void collect(int doc, long owningBucketOrd) throws IOException {
+                    assert owningBucketOrd == 0;
+                    if (false == ords.advanceExact(doc)) {
+                        return;
+                    }
+                    int docCount = docCountProvider.getDocCount(doc);
+                    for (long ord = ords.nextOrd(); ord != SortedSetDocValues.NO_MORE_ORDS; ord = ords.nextOrd()) {
+                        segmentDocCounts.increment(ord, docCount);
+                    }
+                }
+            };
+        }
+
+        @Override
+        protected void doPostCollection() throws IOException {
+            if (segmentOrds != null) {
+                mapSegmentCountsToBuckets();
+                segmentOrds = null;
+            }
+        }
+
+        @Override
+        public void collectDebugInfo(BiConsumer<String, Object> add) {
+            super.collectDebugInfo(add);
+            add.accept("segments_with_single_valued_ords", segmentsWithSingleValuedOrds);
+            add.accept("segments_with_multi_valued_ords", segmentsWithMultiValuedOrds);
+            add.accept("segments_without_values", segmentsWithoutValues);
+        }
+
+        @Override
+        public void doClose() {
+            Releasables.close(super::doClose, segmentDocCounts);
+        }
+
+        /**
+         * Adds the counts of the last collected segment to the buckets of
+         * their values, resetting them so the next segment can reuse them.
+         */
+        private void mapSegmentCountsToBuckets() throws IOException {
+            for (long ord = 0; ord < segmentOrds.getValueCount(); ord++) {
+                long docCount = segmentDocCounts.set(ord, 0);
+                if (docCount == 0) {
+                    continue;
+                }
+                BytesRef bytes = segmentOrds.lookupOrd(ord);
+                if (includeExclude != null && false == includeExclude.accept(bytes)) {
+                    continue;
+                }
+                long bucketOrd = bucketOrds.add(0, bytes);
+                if (bucketOrd < 0) { // already seen
+                    bucketOrd = -1 - bucketOrd;
+                }
+                incrementBucketDocCount(bucketOrd, docCount);
+            }
+        }
+    }
+
     /**
      * Abstraction on top of building collectors to fetch values so {@code terms},
      * {@code significant_terms}, and {@code significant_text} can share a bunch of
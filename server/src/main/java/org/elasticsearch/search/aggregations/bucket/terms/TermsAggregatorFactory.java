@@ -12,8 +12,10 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.elasticsearch.ElasticsearchStatusException;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.search.DocValueFormat;
@@ -47,7 +49,7 @@ import java.util.function.Function;
 import java.util.function.LongPredicate;
 
 public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
-    static Boolean REMAP_GLOBAL_ORDS, COLLECT_SEGMENT_ORDS;
+    static Boolean REMAP_GLOBAL_ORDS, COLLECT_SEGMENT_ORDS, SKIP_GLOBAL_ORDS;
 
     private static final Logger logger = LogManager.getLogger(TermsAggregatorFactory.class);
 
@@ -83,6 +85,20 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
      */
     static final long MAX_ORDS_TO_TRY_FILTERS = 1000;
 
+    /**
+     * The minimum number of segment ordinals, summed over all segments, a
+     * field must have for us to aggregate it
+     * {@link MapStringTermsAggregator.SegmentOrdinals by segment ordinals}
+     * rather than build its global ordinals when they aren't loaded yet.
+     * <p>
+     * Building the global ordinals takes time roughly proportional to this
+     * sum. Below this many it is cheap enough that we'd rather have them
+     * because they open up the "filter by filter" and low cardinality
+     * implementations. We take the same limit as the low cardinality
+     * implementation.
+     */
+    static final long MIN_SEGMENT_ORDS_TO_SKIP_GLOBAL_ORDS = 2048;
+
     /**
      * This supplier is used for all the field types that should be aggregated as bytes/strings,
      * including those that need global ordinals
@@ -111,10 +127,15 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
             if (valuesSource.hasOrdinals() == false) {
                 execution = ExecutionMode.MAP;
             }
+            // Decide before looking at the global ordinals because that would build them
+            final boolean collectSegmentOrdinals = execution == null
+                && collectSegmentOrdinals(valuesSource, factories, cardinality, context);
             if (execution == null) {
                 execution = ExecutionMode.GLOBAL_ORDINALS;
             }
-            final long maxOrd = execution == ExecutionMode.GLOBAL_ORDINALS ? getMaxOrd(valuesSource, context.searcher()) : -1;
+            final long maxOrd = execution == ExecutionMode.GLOBAL_ORDINALS && collectSegmentOrdinals == false
+                ? getMaxOrd(valuesSource, context.searcher())
+                : -1;
             if (subAggCollectMode == null) {
                 subAggCollectMode = pickSubAggColectMode(factories, bucketCountThresholds.getShardSize(), maxOrd);
             }
@@ -130,6 +151,24 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
                 );
             }
 
+            if (collectSegmentOrdinals) {
+                logger.debug("Using segment ordinals implementation");
+                return new MapStringTermsAggregator.SegmentOrdinals(
+                    name,
+                    factories,
+                    valuesSourceConfig,
+                    order,
+                    valuesSourceConfig.format(),
+                    bucketCountThresholds,
+                    includeExclude == null ? null : includeExclude.convertToStringFilter(valuesSourceConfig.format()),
+                    context,
+                    parent,
+                    subAggCollectMode,
+                    showTermDocCountError,
+                    metadata
+                );
+            }
+
             // TODO: [Zach] we might want refactor and remove ExecutionMode#create(), moving that logic outside the enum
             logger.debug("Creating bytes terms aggregator with execution mode [{}]", execution);
             return execution.create(
@@ -348,6 +387,56 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
         return SubAggCollectionMode.DEPTH_FIRST;
     }
 
+    /**
+     * Should we aggregate the field by {@link MapStringTermsAggregator.SegmentOrdinals segment ordinals}
+     * rather than by global ordinals? We do that iff:
+     * <ul>
+     *  <li>the field has ordinals AND
+     *  <li>there are no sub-aggregations AND
+     *  <li>we collect from a single bucket AND
+     *  <li>the documents aren't collected in time series order, which moves back
+     *  and forth between the segments while we only keep the ordinals of the
+     *  current one, AND
+     *  <li>the top level query isn't a {@code match_all}, because collecting every
+     *  document makes us look up and hash nearly every value of each segment which
+     *  is slower than building the global ordinals, AND
+     *  <li>the global ordinals of the field aren't loaded, for example because the
+     *  shard was just refreshed, AND
+     *  <li>the field has enough distinct values for building the global ordinals
+     *  to be expensive.
+     * </ul>
+     */
+    private static boolean collectSegmentOrdinals(
+        ValuesSource valuesSource,
+        AggregatorFactories factories,
+        CardinalityUpperBound cardinality,
+        AggregationContext context
+    ) throws IOException {
+        if (valuesSource instanceof ValuesSource.Bytes.WithOrdinals == false
+            || factories != AggregatorFactories.EMPTY
+            || cardinality != CardinalityUpperBound.ONE
+            || context.isInSortOrderExecutionRequired()) {
+            return false;
+        }
+        // we use the static SKIP_GLOBAL_ORDS to allow tests to force specific optimizations
+        if (SKIP_GLOBAL_ORDS != null) {
+            return SKIP_GLOBAL_ORDS.booleanValue();
+        }
+        if (context.query() == null || context.query().getClass() == MatchAllDocsQuery.class) {
+            return false;
+        }
+        ValuesSource.Bytes.WithOrdinals ordinalsValuesSource = (ValuesSource.Bytes.WithOrdinals) valuesSource;
+        IndexReader reader = context.searcher().getIndexReader();
+        if (ordinalsValuesSource.globalOrdinalsLoaded(reader)) {
+            return false;
+        }
+        long segmentOrds = 0;
+        for (LeafReaderContext ctx : reader.leaves()) {
+            segmentOrds += ordinalsValuesSource.ordinalsValues(ctx).getValueCount();
+        }
+        return segmentOrds >= MIN_SEGMENT_ORDS_TO_SKIP_GLOBAL_ORDS;
+    }
+
     /**
      * Get the maximum global ordinal value for the provided {@link ValuesSource} or -1
      * if the values source is not an instance of {@link ValuesSource.Bytes.WithOrdinals}.
@@ -467,6 +556,7 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
                     && includeExclude == null
                     && cardinality == CardinalityUpperBound.ONE
                     && ordinalsValuesSource.supportsGlobalOrdinalsMapping()
+                    && context.isInSortOrderExecutionRequired() == false
                     &&
                 // we use the static COLLECT_SEGMENT_ORDS to allow tests to force specific optimizations
                 (COLLECT_SEGMENT_ORDS != null ? COLLECT_SEGMENT_ORDS.booleanValue() : ratio <= 0.5 && maxOrd <= 2048)) {
@@ -474,7 +564,8 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory {
                      * We can use the low cardinality execution mode iff this aggregator:
                      *  - has no sub-aggregator AND
                      *  - collects from a single bucket AND
-                     *  - has a values source that can map from segment to global ordinals
+                     *  - has a values source that can map from segment to global ordinals AND
+                     *  - doesn't collect in time series order, which moves back and forth between segments AND
                      *  - At least we reduce the number of global ordinals look-ups by half (ration <= 0.5) AND
                      *  - the maximum global ordinal is less than 2048 (LOW_CARDINALITY has additional memory usage,
                      *  which directly linked to maxOrd, so we need to limit).
@@ -26,7 +26,7 @@ import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
 import java.io.IOException;
 import java.util.Map;
 
-class AvgAggregator extends NumericMetricsAggregator.SingleValue {
+class AvgAggregator extends NumericMetricsAggregator.SingleValue implements TimeSeriesRollupCollector {
 
     final ValuesSource.Numeric valuesSource;
 
@@ -34,6 +34,7 @@ class AvgAggregator extends NumericMetricsAggregator.SingleValue {
     DoubleArray sums;
     DoubleArray compensations;
     DocValueFormat format;
+    private final String rollupField;
 
     AvgAggregator(
         String name,
@@ -46,6 +47,7 @@ class AvgAggregator extends NumericMetricsAggregator.SingleValue {
         // TODO Stop expecting nulls here
         this.valuesSource = valuesSourceConfig.hasValues() ? (ValuesSource.Numeric) valuesSourceConfig.getValuesSource() : null;
         this.format = valuesSourceConfig.format();
+        this.rollupField = TimeSeriesRollupCollector.rollupField(valuesSourceConfig);
         if (valuesSource != null) {
             final BigArrays bigArrays = context.bigArrays();
             counts = bigArrays.newLongArray(1, true);
@@ -66,6 +68,7 @@ class AvgAggregator extends NumericMetricsAggregator.SingleValue {
         }
         final SortedNumericDoubleValues values = valuesSource.doubleValues(aggCtx.getLeafReaderContext());
         final CompensatedSum kahanSummation = new CompensatedSum(0, 0);
+        final DoubleValuesBlock block = new DoubleValuesBlock();
 
         return new LeafBucketCollectorBase(sub, values) {
             @Override
@@ -93,9 +96,48 @@ class AvgAggregator extends NumericMetricsAggregator.SingleValue {
                     compensations.set(bucket, kahanSummation.delta());
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                counts = bigArrays().grow(counts, bucket + 1);
+                sums = bigArrays().grow(sums, bucket + 1);
+                compensations = bigArrays().grow(compensations, bucket + 1);
+
+                final int numValues = block.load(values, docs, count);
+                final double[] blockValues = block.values();
+                counts.increment(bucket, numValues);
+                kahanSummation.reset(sums.get(bucket), compensations.get(bucket));
+                for (int i = 0; i < numValues; i++) {
+                    kahanSummation.add(blockValues[i]);
+                }
+                sums.set(bucket, kahanSummation.value());
+                compensations.set(bucket, kahanSummation.delta());
+            }
+
+            @Override
+            public boolean supportsBlocks() {
+                return true;
+            }
         };
     }
 
+    @Override
+    public String rollupField() {
+        return rollupField;
+    }
+
+    @Override
+    public void collectRollup(long bucket, long count, double sum, double min, double max) {
+        counts = bigArrays().grow(counts, bucket + 1);
+        sums = bigArrays().grow(sums, bucket + 1);
+        compensations = bigArrays().grow(compensations, bucket + 1);
+        counts.increment(bucket, count);
+        CompensatedSum kahanSummation = new CompensatedSum(sums.get(bucket), compensations.get(bucket));
+        kahanSummation.add(sum);
+        compensations.set(bucket, kahanSummation.delta());
+        sums.set(bucket, kahanSummation.value());
+    }
+
     @Override
     public double metric(long owningBucketOrd) {
         if (valuesSource == null || owningBucketOrd >= sums.size()) {
@@ -112,6 +112,11 @@ public final class CardinalityAggregationBuilder extends ValuesSourceAggregation
         return true;
     }
 
+    @Override
+    public boolean supportsParallelCollection() {
+        return script() == null;
+    }
+
     @Override
     protected boolean serializeTargetValueType(Version version) {
         return true;
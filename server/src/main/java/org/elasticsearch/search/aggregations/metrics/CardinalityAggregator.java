@@ -8,6 +8,7 @@
 
 package org.elasticsearch.search.aggregations.metrics;
 
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.index.SortedSetDocValues;
@@ -46,6 +47,13 @@ public class CardinalityAggregator extends NumericMetricsAggregator.SingleValue
     private final int precision;
     private final CardinalityAggregatorFactory.ExecutionMode executionMode;
     private final ValuesSource valuesSource;
+    /**
+     * The field whose {@link CardinalitySketchCache cached sketches} this
+     * aggregator merges or {@code null} if it doesn't use cached sketches.
+     */
+    @Nullable
+    private final String cachedSketchField;
+    private final CardinalitySketchCache sketchCache;
 
     // Expensive to initialize, so we only initialize it when we have an actual value source
     @Nullable
@@ -58,6 +66,7 @@ public class CardinalityAggregator extends NumericMetricsAggregator.SingleValue
     private int ordinalsCollectorsUsed;
     private int ordinalsCollectorsOverheadTooHigh;
     private int stringHashingCollectorsUsed;
+    private int cachedSketchesUsed;
 
     public CardinalityAggregator(
         String name,
@@ -74,6 +83,30 @@ public class CardinalityAggregator extends NumericMetricsAggregator.SingleValue
         this.precision = precision;
         this.counts = valuesSource == null ? null : new HyperLogLogPlusPlus(precision, context.bigArrays(), 1);
         this.executionMode = executionMode;
+        this.cachedSketchField = cachedSketchField(valuesSourceConfig, context, parent);
+        this.sketchCache = context.cardinalitySketchCache();
+    }
+
+    /**
+     * The field whose cached sketches we can merge. We only do this for top
+     * level aggregations that read the values of the field straight from its
+     * doc values because the cached sketch of a segment contains all of them.
+     * A runtime field, for example one of the request's runtime mappings that
+     * shadows the indexed field, computes other values under the same name.
+     */
+    @Nullable
+    static String cachedSketchField(ValuesSourceConfig config, AggregationContext context, Aggregator parent) {
+        if (parent != null
+            || context.cardinalitySketchCache() == null
+            || config.hasValues() == false
+            || config.fieldContext() == null
+            || config.fieldContext().fieldType().hasDocValues() == false
+            || config.script() != null
+            || config.missing() != null) {
+            return null;
+        }
+        String field = config.fieldContext().field();
+        return context.getIndexSettings().getCardinalityCachedFields().contains(field) ? field : null;
     }
 
     @Override
@@ -122,10 +155,78 @@ public class CardinalityAggregator extends NumericMetricsAggregator.SingleValue
     public LeafBucketCollector getLeafCollector(AggregationExecutionContext aggCtx, final LeafBucketCollector sub) throws IOException {
         postCollectLastCollector();
 
+        if (cachedSketchField != null && mergeCachedSketch(aggCtx.getLeafReaderContext())) {
+            cachedSketchesUsed++;
+            return LeafBucketCollector.NO_OP_COLLECTOR;
+        }
         collector = pickCollector(aggCtx.getLeafReaderContext());
         return collector;
     }
 
+    /**
+     * Merge the cached sketch of all values of the field in the segment if
+     * the query matches every doc in it.
+     *
+     * @return {@code false} if we have to collect the segment instead
+     */
+    private boolean mergeCachedSketch(LeafReaderContext ctx) throws IOException {
+        // The sketch contains the values of deleted docs and of fields that the reader hides
+        if (ctx.reader().getLiveDocs() != null || ctx.reader().getFieldInfos().fieldInfo(cachedSketchField) == null) {
+            return false;
+        }
+        IndexReader.CacheHelper cacheHelper = ctx.reader().getCoreCacheHelper();
+        if (cacheHelper == null || topLevelQueryMatchesAllDocs(ctx) == false) {
+            return false;
+        }
+        AbstractHyperLogLogPlusPlus sketch = sketchCache.getOrBuild(
+            cacheHelper,
+            cachedSketchField,
+            precision,
+            bigArrays -> buildSketch(ctx, bigArrays)
+        );
+        counts.merge(0, sketch, 0);
+        return true;
+    }
+
+    /**
+     * Build the sketch of all values of the field in the segment.
+     */
+    private HyperLogLogPlusPlus buildSketch(LeafReaderContext ctx, BigArrays bigArrays) throws IOException {
+        HyperLogLogPlusPlus sketch = new HyperLogLogPlusPlus(precision, bigArrays, 1);
+        boolean success = false;
+        try {
+            if (valuesSource instanceof ValuesSource.Bytes.WithOrdinals source) {
+                // Every term of a segment without deleted docs belongs to a doc
+                SortedSetDocValues ordinalValues = source.ordinalsValues(ctx);
+                MurmurHash3.Hash128 hash = new MurmurHash3.Hash128();
+                for (long ord = 0; ord < ordinalValues.getValueCount(); ord++) {
+                    BytesRef value = ordinalValues.lookupOrd(ord);
+                    MurmurHash3.hash128(value.bytes, value.offset, value.length, 0, hash);
+                    sketch.collect(0, hash.h1);
+                }
+            } else {
+                MurmurHash3Values hashes;
+                if (valuesSource instanceof ValuesSource.Numeric source) {
+                    hashes = source.isFloatingPoint()
+                        ? MurmurHash3Values.hash(source.doubleValues(ctx))
+                        : MurmurHash3Values.hash(source.longValues(ctx));
+                } else {
+                    hashes = MurmurHash3Values.hash(valuesSource.bytesValues(ctx));
+                }
+                DirectCollector collector = new DirectCollector(sketch, hashes);
+                for (int doc = 0; doc < ctx.reader().maxDoc(); doc++) {
+                    collector.collect(doc, 0);
+                }
+            }
+            success = true;
+            return sketch;
+        } finally {
+            if (success == false) {
+                sketch.close();
+            }
+        }
+    }
+
     private void postCollectLastCollector() throws IOException {
         if (collector != null) {
             try {
@@ -176,6 +277,9 @@ public class CardinalityAggregator extends NumericMetricsAggregator.SingleValue
         add.accept("ordinals_collectors_used", ordinalsCollectorsUsed);
         add.accept("ordinals_collectors_overhead_too_high", ordinalsCollectorsOverheadTooHigh);
         add.accept("string_hashing_collectors_used", stringHashingCollectorsUsed);
+        if (cachedSketchField != null) {
+            add.accept("cached_sketches_used", cachedSketchesUsed);
+        }
     }
 
     private abstract static class Collector extends LeafBucketCollector implements Releasable {
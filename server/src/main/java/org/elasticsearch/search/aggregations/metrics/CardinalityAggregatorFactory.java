@@ -153,8 +153,9 @@ public class CardinalityAggregatorFactory extends ValuesSourceAggregatorFactory
             CardinalityAggregationBuilder.REGISTRY_KEY,
             CoreValuesSourceType.ALL_CORE,
             (name, valuesSourceConfig, precision, executionMode, context, parent, metadata) -> {
-                // check global ords
-                if (valuesSourceConfig.hasValues()) {
+                // check global ords, unless we can merge the cached sketches of the segments instead
+                if (valuesSourceConfig.hasValues()
+                    && CardinalityAggregator.cachedSketchField(valuesSourceConfig, context, parent) == null) {
                     if (valuesSourceConfig.getValuesSource()instanceof final ValuesSource.Bytes.WithOrdinals source) {
                         if (executionMode.useGlobalOrdinals(context, source, precision)) {
                             final long maxOrd = source.globalMaxOrd(context.searcher().getIndexReader());
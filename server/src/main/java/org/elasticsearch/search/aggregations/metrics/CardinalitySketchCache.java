@@ -0,0 +1,129 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.apache.lucene.index.IndexReader;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalListener;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.CheckedFunction;
+import org.elasticsearch.core.Releasable;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Caches the {@link AbstractHyperLogLogPlusPlus sketch} of all values of a
+ * field in a segment so {@code cardinality} aggregations that match every
+ * doc of the segment can merge the sketch instead of reading the doc values
+ * of the segment again. Segments are immutable so the sketch stays valid
+ * until the segment is closed. Only the fields listed in
+ * {@link org.elasticsearch.index.IndexSettings#CARDINALITY_CACHED_FIELDS}
+ * are cached.
+ */
+public final class CardinalitySketchCache implements RemovalListener<CardinalitySketchCache.Key, AbstractHyperLogLogPlusPlus>, Releasable {
+    public static final Setting<ByteSizeValue> SIZE_SETTING = Setting.memorySizeSetting(
+        "indices.cardinality_sketch_cache.size",
+        "1%",
+        Property.NodeScope
+    );
+
+    private final Cache<Key, AbstractHyperLogLogPlusPlus> cache;
+    // the keys of the sketches built for each segment, so that they are invalidated by a single closed listener per segment
+    private final Map<IndexReader.CacheKey, Set<Key>> keysByReader = ConcurrentCollections.newConcurrentMap();
+
+    public CardinalitySketchCache(Settings settings) {
+        cache = CacheBuilder.<Key, AbstractHyperLogLogPlusPlus>builder()
+            .setMaximumWeight(SIZE_SETTING.get(settings).getBytes())
+            .weigher((key, sketch) -> ramBytesUsed(sketch))
+            .removalListener(this)
+            .build();
+    }
+
+    /**
+     * Get the sketch of the values of a field in a segment, building it if
+     * it isn't cached.
+     *
+     * @param cacheHelper the {@link IndexReader#getCoreCacheHelper() core cache helper} of the segment
+     * @param builder builds a sketch of all values of the field in the segment
+     */
+    public AbstractHyperLogLogPlusPlus getOrBuild(
+        IndexReader.CacheHelper cacheHelper,
+        String field,
+        int precision,
+        CheckedFunction<BigArrays, AbstractHyperLogLogPlusPlus, IOException> builder
+    ) throws IOException {
+        try {
+            return cache.computeIfAbsent(new Key(cacheHelper.getKey(), field, precision), key -> {
+                keysByReader.computeIfAbsent(key.readerKey(), readerKey -> {
+                    cacheHelper.addClosedListener(this::onReaderClosed);
+                    return ConcurrentCollections.newConcurrentSet();
+                }).add(key);
+                try (AbstractHyperLogLogPlusPlus sketch = builder.apply(BigArrays.NON_RECYCLING_INSTANCE)) {
+                    // Cloning shrinks linear counting sketches to their values
+                    return sketch.clone(0, BigArrays.NON_RECYCLING_INSTANCE);
+                }
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioe) {
+                throw ioe;
+            }
+            throw new IllegalStateException("failed to build the cardinality sketch of [" + field + "]", e.getCause());
+        }
+    }
+
+    private void onReaderClosed(IndexReader.CacheKey readerKey) {
+        final Set<Key> keys = keysByReader.remove(readerKey);
+        if (keys != null) {
+            keys.forEach(cache::invalidate);
+        }
+    }
+
+    /**
+     * The number of cached sketches.
+     */
+    public int count() {
+        return cache.count();
+    }
+
+    /**
+     * The memory used by the cached sketches.
+     */
+    public long ramBytesUsed() {
+        return cache.weight();
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Key, AbstractHyperLogLogPlusPlus> notification) {
+        notification.getValue().close();
+    }
+
+    @Override
+    public void close() {
+        cache.invalidateAll();
+    }
+
+    private static long ramBytesUsed(AbstractHyperLogLogPlusPlus sketch) {
+        if (sketch.getAlgorithm(0) == AbstractHyperLogLogPlusPlus.LINEAR_COUNTING) {
+            return Math.max(1, Integer.BYTES * (long) sketch.getLinearCounting(0).size());
+        }
+        return HyperLogLogPlusPlus.memoryUsage(sketch.precision());
+    }
+
+    record Key(IndexReader.CacheKey readerKey, String field, int precision) {}
+}
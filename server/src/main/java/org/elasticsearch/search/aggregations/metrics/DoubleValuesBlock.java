@@ -0,0 +1,77 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.index.fielddata.FieldData;
+import org.elasticsearch.index.fielddata.NumericDoubleValues;
+import org.elasticsearch.index.fielddata.SortedNumericDoubleValues;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+
+import java.io.IOException;
+
+/**
+ * Loads the values of a block of docs into an array, so that metric aggregations that collect blocks of docs (see
+ * {@link LeafBucketCollector#collect(int[], int, long)}) compute their metric in a loop over the array rather than by advancing the doc
+ * values of each doc in turn between the updates of the metric.
+ */
+final class DoubleValuesBlock {
+
+    private double[] values = new double[LeafBucketCollector.BLOCK_SIZE];
+
+    /**
+     * @return the values that the last call to one of the {@code load} methods loaded
+     */
+    double[] values() {
+        return values;
+    }
+
+    /**
+     * Loads all values of the given docs.
+     *
+     * @return the number of loaded values
+     */
+    int load(SortedNumericDoubleValues docValues, int[] docs, int count) throws IOException {
+        final NumericDoubleValues singleton = FieldData.unwrapSingleton(docValues);
+        if (singleton != null) {
+            return load(singleton, docs, count);
+        }
+        int numValues = 0;
+        for (int i = 0; i < count; i++) {
+            if (docValues.advanceExact(docs[i])) {
+                final int docValueCount = docValues.docValueCount();
+                if (numValues + docValueCount > values.length) {
+                    values = ArrayUtil.grow(values, numValues + docValueCount);
+                }
+                for (int v = 0; v < docValueCount; v++) {
+                    values[numValues++] = docValues.nextValue();
+                }
+            }
+        }
+        return numValues;
+    }
+
+    /**
+     * Loads the value of the given docs that have a value.
+     *
+     * @return the number of loaded values
+     */
+    int load(NumericDoubleValues docValues, int[] docs, int count) throws IOException {
+        if (count > values.length) {
+            values = ArrayUtil.grow(values, count);
+        }
+        int numValues = 0;
+        for (int i = 0; i < count; i++) {
+            if (docValues.advanceExact(docs[i])) {
+                values[numValues++] = docValues.doubleValue();
+            }
+        }
+        return numValues;
+    }
+}
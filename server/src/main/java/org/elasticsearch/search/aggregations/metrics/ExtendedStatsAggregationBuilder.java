@@ -80,6 +80,11 @@ public class ExtendedStatsAggregationBuilder extends ValuesSourceAggregationBuil
         return true;
     }
 
+    @Override
+    public boolean supportsParallelCollection() {
+        return script() == null;
+    }
+
     @Override
     public Set<String> metricNames() {
         return InternalExtendedStats.METRIC_NAMES;
@@ -31,13 +31,14 @@ import java.util.Arrays;
 import java.util.Map;
 import java.util.function.Function;
 
-class MaxAggregator extends NumericMetricsAggregator.SingleValue {
+class MaxAggregator extends NumericMetricsAggregator.SingleValue implements TimeSeriesRollupCollector {
 
     final ValuesSource.Numeric valuesSource;
     final DocValueFormat formatter;
 
     final String pointField;
     final Function<byte[], Number> pointConverter;
+    private final String rollupField;
 
     DoubleArray maxes;
 
@@ -51,6 +52,7 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
             maxes.fill(0, maxes.size(), Double.NEGATIVE_INFINITY);
         }
         this.formatter = config.format();
+        this.rollupField = TimeSeriesRollupCollector.rollupField(config);
         this.pointConverter = pointReaderIfAvailable(config);
         if (pointConverter != null) {
             pointField = config.fieldContext().field();
@@ -86,6 +88,7 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
         }
         final SortedNumericDoubleValues allValues = valuesSource.doubleValues(aggCtx.getLeafReaderContext());
         final NumericDoubleValues values = MultiValueMode.MAX.select(allValues);
+        final DoubleValuesBlock block = new DoubleValuesBlock();
         return new LeafBucketCollectorBase(sub, allValues) {
 
             @Override
@@ -103,9 +106,45 @@ class MaxAggregator extends NumericMetricsAggregator.SingleValue {
                 }
             }
 
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                if (bucket >= maxes.size()) {
+                    long from = maxes.size();
+                    maxes = bigArrays().grow(maxes, bucket + 1);
+                    maxes.fill(from, maxes.size(), Double.NEGATIVE_INFINITY);
+                }
+                final int numValues = block.load(values, docs, count);
+                final double[] blockValues = block.values();
+                double max = maxes.get(bucket);
+                for (int i = 0; i < numValues; i++) {
+                    max = Math.max(max, blockValues[i]);
+                }
+                maxes.set(bucket, max);
+            }
+
+            @Override
+            public boolean supportsBlocks() {
+                return true;
+            }
+
         };
     }
 
+    @Override
+    public String rollupField() {
+        return rollupField;
+    }
+
+    @Override
+    public void collectRollup(long bucket, long count, double sum, double min, double max) {
+        if (bucket >= maxes.size()) {
+            long from = maxes.size();
+            maxes = bigArrays().grow(maxes, bucket + 1);
+            maxes.fill(from, maxes.size(), Double.NEGATIVE_INFINITY);
+        }
+        maxes.set(bucket, Math.max(maxes.get(bucket), max));
+    }
+
     @Override
     public double metric(long owningBucketOrd) {
         if (valuesSource == null || owningBucketOrd >= maxes.size()) {
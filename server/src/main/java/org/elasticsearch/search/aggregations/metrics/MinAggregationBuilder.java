@@ -81,6 +81,11 @@ public class MinAggregationBuilder extends ValuesSourceAggregationBuilder.Single
         return true;
     }
 
+    @Override
+    public boolean supportsParallelCollection() {
+        return script() == null;
+    }
+
     @Override
     protected MinAggregatorFactory innerBuild(
         AggregationContext context,
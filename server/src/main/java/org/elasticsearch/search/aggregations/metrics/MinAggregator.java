@@ -31,7 +31,7 @@ import java.io.IOException;
 import java.util.Map;
 import java.util.function.Function;
 
-public class MinAggregator extends NumericMetricsAggregator.SingleValue {
+public class MinAggregator extends NumericMetricsAggregator.SingleValue implements TimeSeriesRollupCollector {
     private static final int MAX_BKD_LOOKUPS = 1024;
 
     final ValuesSource.Numeric valuesSource;
@@ -39,6 +39,7 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
 
     final String pointField;
     final Function<byte[], Number> pointConverter;
+    private final String rollupField;
 
     DoubleArray mins;
 
@@ -52,6 +53,7 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
             mins.fill(0, mins.size(), Double.POSITIVE_INFINITY);
         }
         this.format = config.format();
+        this.rollupField = TimeSeriesRollupCollector.rollupField(config);
         this.pointConverter = pointReaderIfAvailable(config);
         if (pointConverter != null) {
             pointField = config.fieldContext().field();
@@ -86,6 +88,7 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
         }
         final SortedNumericDoubleValues allValues = valuesSource.doubleValues(aggCtx.getLeafReaderContext());
         final NumericDoubleValues values = MultiValueMode.MIN.select(allValues);
+        final DoubleValuesBlock block = new DoubleValuesBlock();
         return new LeafBucketCollectorBase(sub, allValues) {
             @Override
             public void collect(int doc, long bucket) throws IOException {
@@ -102,9 +105,45 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
                 }
             }
 
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                if (bucket >= mins.size()) {
+                    long from = mins.size();
+                    mins = bigArrays().grow(mins, bucket + 1);
+                    mins.fill(from, mins.size(), Double.POSITIVE_INFINITY);
+                }
+                final int numValues = block.load(values, docs, count);
+                final double[] blockValues = block.values();
+                double min = mins.get(bucket);
+                for (int i = 0; i < numValues; i++) {
+                    min = Math.min(min, blockValues[i]);
+                }
+                mins.set(bucket, min);
+            }
+
+            @Override
+            public boolean supportsBlocks() {
+                return true;
+            }
+
         };
     }
 
+    @Override
+    public String rollupField() {
+        return rollupField;
+    }
+
+    @Override
+    public void collectRollup(long bucket, long count, double sum, double min, double max) {
+        if (bucket >= mins.size()) {
+            long from = mins.size();
+            mins = bigArrays().grow(mins, bucket + 1);
+            mins.fill(from, mins.size(), Double.POSITIVE_INFINITY);
+        }
+        mins.set(bucket, Math.min(mins.get(bucket), min));
+    }
+
     @Override
     public double metric(long owningBucketOrd) {
         if (valuesSource == null || owningBucketOrd >= mins.size()) {
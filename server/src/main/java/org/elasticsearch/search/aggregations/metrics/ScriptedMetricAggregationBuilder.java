@@ -115,6 +115,12 @@ public class ScriptedMetricAggregationBuilder extends AbstractAggregationBuilder
         return true;
     }
 
+    @Override
+    public boolean supportsParallelCollection() {
+        // the scripts share their state and lookups across every segment
+        return false;
+    }
+
     /**
      * Set the {@code init} script.
      */
@@ -73,6 +73,11 @@ public class StatsAggregationBuilder extends ValuesSourceAggregationBuilder.Metr
         return true;
     }
 
+    @Override
+    public boolean supportsParallelCollection() {
+        return script() == null;
+    }
+
     @Override
     public Set<String> metricNames() {
         return InternalStats.METRIC_NAMES;
@@ -26,7 +26,7 @@ import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
 import java.io.IOException;
 import java.util.Map;
 
-class StatsAggregator extends NumericMetricsAggregator.MultiValue {
+class StatsAggregator extends NumericMetricsAggregator.MultiValue implements TimeSeriesRollupCollector {
 
     final ValuesSource.Numeric valuesSource;
     final DocValueFormat format;
@@ -36,6 +36,7 @@ class StatsAggregator extends NumericMetricsAggregator.MultiValue {
     DoubleArray compensations;
     DoubleArray mins;
     DoubleArray maxes;
+    private final String rollupField;
 
     StatsAggregator(
         String name,
@@ -57,6 +58,7 @@ class StatsAggregator extends NumericMetricsAggregator.MultiValue {
             maxes.fill(0, maxes.size(), Double.NEGATIVE_INFINITY);
         }
         this.format = valuesSourceConfig.format();
+        this.rollupField = TimeSeriesRollupCollector.rollupField(valuesSourceConfig);
     }
 
     @Override
@@ -71,21 +73,12 @@ class StatsAggregator extends NumericMetricsAggregator.MultiValue {
         }
         final SortedNumericDoubleValues values = valuesSource.doubleValues(aggCtx.getLeafReaderContext());
         final CompensatedSum kahanSummation = new CompensatedSum(0, 0);
+        final DoubleValuesBlock block = new DoubleValuesBlock();
 
         return new LeafBucketCollectorBase(sub, values) {
             @Override
             public void collect(int doc, long bucket) throws IOException {
-                if (bucket >= counts.size()) {
-                    final long from = counts.size();
-                    final long overSize = BigArrays.overSize(bucket + 1);
-                    counts = bigArrays().resize(counts, overSize);
-                    sums = bigArrays().resize(sums, overSize);
-                    compensations = bigArrays().resize(compensations, overSize);
-                    mins = bigArrays().resize(mins, overSize);
-                    maxes = bigArrays().resize(maxes, overSize);
-                    mins.fill(from, overSize, Double.POSITIVE_INFINITY);
-                    maxes.fill(from, overSize, Double.NEGATIVE_INFINITY);
-                }
+                maybeGrow(bucket);
 
                 if (values.advanceExact(doc)) {
                     final int valuesCount = values.docValueCount();
@@ -110,9 +103,50 @@ class StatsAggregator extends NumericMetricsAggregator.MultiValue {
                     maxes.set(bucket, max);
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                maybeGrow(bucket);
+
+                final int numValues = block.load(values, docs, count);
+                final double[] blockValues = block.values();
+                counts.increment(bucket, numValues);
+                double min = mins.get(bucket);
+                double max = maxes.get(bucket);
+                kahanSummation.reset(sums.get(bucket), compensations.get(bucket));
+                for (int i = 0; i < numValues; i++) {
+                    final double value = blockValues[i];
+                    kahanSummation.add(value);
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+                sums.set(bucket, kahanSummation.value());
+                compensations.set(bucket, kahanSummation.delta());
+                mins.set(bucket, min);
+                maxes.set(bucket, max);
+            }
+
+            @Override
+            public boolean supportsBlocks() {
+                return true;
+            }
         };
     }
 
+    private void maybeGrow(long bucket) {
+        if (bucket >= counts.size()) {
+            final long from = counts.size();
+            final long overSize = BigArrays.overSize(bucket + 1);
+            counts = bigArrays().resize(counts, overSize);
+            sums = bigArrays().resize(sums, overSize);
+            compensations = bigArrays().resize(compensations, overSize);
+            mins = bigArrays().resize(mins, overSize);
+            maxes = bigArrays().resize(maxes, overSize);
+            mins.fill(from, overSize, Double.POSITIVE_INFINITY);
+            maxes.fill(from, overSize, Double.NEGATIVE_INFINITY);
+        }
+    }
+
     @Override
     public boolean hasMetric(String name) {
         try {
@@ -123,6 +157,23 @@ class StatsAggregator extends NumericMetricsAggregator.MultiValue {
         }
     }
 
+    @Override
+    public String rollupField() {
+        return rollupField;
+    }
+
+    @Override
+    public void collectRollup(long bucket, long count, double sum, double min, double max) {
+        maybeGrow(bucket);
+        counts.increment(bucket, count);
+        CompensatedSum kahanSummation = new CompensatedSum(sums.get(bucket), compensations.get(bucket));
+        kahanSummation.add(sum);
+        compensations.set(bucket, kahanSummation.delta());
+        sums.set(bucket, kahanSummation.value());
+        mins.set(bucket, Math.min(mins.get(bucket), min));
+        maxes.set(bucket, Math.max(maxes.get(bucket), max));
+    }
+
     @Override
     public double metric(String name, long owningBucketOrd) {
         if (valuesSource == null || owningBucketOrd >= counts.size()) {
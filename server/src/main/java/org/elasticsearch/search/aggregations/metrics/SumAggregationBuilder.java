@@ -64,6 +64,11 @@ public class SumAggregationBuilder extends ValuesSourceAggregationBuilder.Single
         return true;
     }
 
+    @Override
+    public boolean supportsParallelCollection() {
+        return script() == null;
+    }
+
     /**
      * Read from a stream.
      */
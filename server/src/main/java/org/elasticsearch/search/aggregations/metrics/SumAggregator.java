@@ -24,10 +24,11 @@ import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
 import java.io.IOException;
 import java.util.Map;
 
-public class SumAggregator extends NumericMetricsAggregator.SingleValue {
+public class SumAggregator extends NumericMetricsAggregator.SingleValue implements TimeSeriesRollupCollector {
 
     private final ValuesSource.Numeric valuesSource;
     private final DocValueFormat format;
+    private final String rollupField;
 
     private DoubleArray sums;
     private DoubleArray compensations;
@@ -43,6 +44,7 @@ public class SumAggregator extends NumericMetricsAggregator.SingleValue {
         // TODO: stop expecting nulls here
         this.valuesSource = valuesSourceConfig.hasValues() ? (ValuesSource.Numeric) valuesSourceConfig.getValuesSource() : null;
         this.format = valuesSourceConfig.format();
+        this.rollupField = TimeSeriesRollupCollector.rollupField(valuesSourceConfig);
         if (valuesSource != null) {
             sums = bigArrays().newDoubleArray(1, true);
             compensations = bigArrays().newDoubleArray(1, true);
@@ -61,6 +63,7 @@ public class SumAggregator extends NumericMetricsAggregator.SingleValue {
         }
         final SortedNumericDoubleValues values = valuesSource.doubleValues(aggCtx.getLeafReaderContext());
         final CompensatedSum kahanSummation = new CompensatedSum(0, 0);
+        final DoubleValuesBlock block = new DoubleValuesBlock();
         return new LeafBucketCollectorBase(sub, values) {
             @Override
             public void collect(int doc, long bucket) throws IOException {
@@ -84,9 +87,44 @@ public class SumAggregator extends NumericMetricsAggregator.SingleValue {
                     sums.set(bucket, kahanSummation.value());
                 }
             }
+
+            @Override
+            public void collect(int[] docs, int count, long bucket) throws IOException {
+                sums = bigArrays().grow(sums, bucket + 1);
+                compensations = bigArrays().grow(compensations, bucket + 1);
+
+                final int numValues = block.load(values, docs, count);
+                final double[] blockValues = block.values();
+                kahanSummation.reset(sums.get(bucket), compensations.get(bucket));
+                for (int i = 0; i < numValues; i++) {
+                    kahanSummation.add(blockValues[i]);
+                }
+                compensations.set(bucket, kahanSummation.delta());
+                sums.set(bucket, kahanSummation.value());
+            }
+
+            @Override
+            public boolean supportsBlocks() {
+                return true;
+            }
         };
     }
 
+    @Override
+    public String rollupField() {
+        return rollupField;
+    }
+
+    @Override
+    public void collectRollup(long bucket, long count, double sum, double min, double max) {
+        sums = bigArrays().grow(sums, bucket + 1);
+        compensations = bigArrays().grow(compensations, bucket + 1);
+        CompensatedSum kahanSummation = new CompensatedSum(sums.get(bucket), compensations.get(bucket));
+        kahanSummation.add(sum);
+        compensations.set(bucket, kahanSummation.delta());
+        sums.set(bucket, kahanSummation.value());
+    }
+
     @Override
     public double metric(long owningBucketOrd) {
         if (valuesSource == null || owningBucketOrd >= sums.size()) {
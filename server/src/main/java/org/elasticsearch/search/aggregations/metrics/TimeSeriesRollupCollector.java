@@ -0,0 +1,51 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations.metrics;
+
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.codec.tsdb.TimeSeriesRollups;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+
+/**
+ * A metric aggregator that can collect the {@link TimeSeriesRollups} of its
+ * field instead of the values of the docs that they roll up. The
+ * {@code date_histogram} uses this to aggregate the segments of time series
+ * indices without reading their doc values.
+ */
+public interface TimeSeriesRollupCollector {
+    /**
+     * The field whose rollups this aggregator can collect or {@code null} if
+     * it can't collect rollups, for example because it runs a script.
+     */
+    @Nullable
+    String rollupField();
+
+    /**
+     * Collect the rollup of {@code count} values into a bucket.
+     */
+    void collectRollup(long bucket, long count, double sum, double min, double max);
+
+    /**
+     * The field whose rollups an aggregator on the provided config can
+     * collect or {@code null} if the values don't come straight from the
+     * doc values of a numeric field.
+     */
+    @Nullable
+    static String rollupField(ValuesSourceConfig config) {
+        if (config.hasValues() == false
+            || config.getValuesSource() instanceof ValuesSource.Numeric == false
+            || config.fieldContext() == null
+            || config.script() != null
+            || config.missing() != null) {
+            return null;
+        }
+        return config.fieldContext().field();
+    }
+}
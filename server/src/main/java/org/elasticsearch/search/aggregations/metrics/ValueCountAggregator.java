@@ -31,12 +31,13 @@ import java.util.Map;
  * This aggregator works in a multi-bucket mode, that is, when serves as a sub-aggregator, a single aggregator instance aggregates the
  * counts for all buckets owned by the parent aggregator)
  */
-public class ValueCountAggregator extends NumericMetricsAggregator.SingleValue {
+public class ValueCountAggregator extends NumericMetricsAggregator.SingleValue implements TimeSeriesRollupCollector {
 
     final ValuesSource valuesSource;
 
     // a count per bucket
     LongArray counts;
+    private final String rollupField;
 
     public ValueCountAggregator(
         String name,
@@ -48,6 +49,7 @@ public class ValueCountAggregator extends NumericMetricsAggregator.SingleValue {
         super(name, aggregationContext, parent, metadata);
         // TODO: stop expecting nulls here
         this.valuesSource = valuesSourceConfig.hasValues() ? valuesSourceConfig.getValuesSource() : null;
+        this.rollupField = TimeSeriesRollupCollector.rollupField(valuesSourceConfig);
         if (valuesSource != null) {
             counts = bigArrays().newLongArray(1, true);
         }
@@ -100,6 +102,17 @@ public class ValueCountAggregator extends NumericMetricsAggregator.SingleValue {
         };
     }
 
+    @Override
+    public String rollupField() {
+        return rollupField;
+    }
+
+    @Override
+    public void collectRollup(long bucket, long count, double sum, double min, double max) {
+        counts = bigArrays().grow(counts, bucket + 1);
+        counts.increment(bucket, count);
+    }
+
     @Override
     public double metric(long owningBucketOrd) {
         return (valuesSource == null || owningBucketOrd >= counts.size()) ? 0 : counts.get(owningBucketOrd);
@@ -39,6 +39,7 @@ import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.BucketCollector;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 import org.elasticsearch.search.aggregations.bucket.filter.FilterByFilterAggregator;
+import org.elasticsearch.search.aggregations.metrics.CardinalitySketchCache;
 import org.elasticsearch.search.internal.SubSearchContext;
 import org.elasticsearch.search.lookup.SearchLookup;
 import org.elasticsearch.search.profile.aggregation.AggregationProfiler;
@@ -238,6 +239,13 @@ public abstract class AggregationContext implements Releasable {
     public abstract BitsetFilterCache bitsetFilterCache();
     // TODO it is unclear why we can't just use the IndexSearcher which already caches
 
+    /**
+     * The cache of the {@code cardinality} sketches of each segment or
+     * {@code null} if they aren't cached.
+     */
+    @Nullable
+    public abstract CardinalitySketchCache cardinalitySketchCache();
+
     /**
      * Build a collector for sorted values specialized for aggregations.
      */
@@ -333,6 +341,7 @@ public abstract class AggregationContext implements Releasable {
         private final MultiBucketConsumer multiBucketConsumer;
         private final Supplier<SubSearchContext> subSearchContextBuilder;
         private final BitsetFilterCache bitsetFilterCache;
+        private final CardinalitySketchCache cardinalitySketchCache;
         private final int randomSeed;
         private final LongSupplier relativeTimeInMillis;
         private final Supplier<Boolean> isCancelled;
@@ -353,6 +362,7 @@ public abstract class AggregationContext implements Releasable {
             MultiBucketConsumer multiBucketConsumer,
             Supplier<SubSearchContext> subSearchContextBuilder,
             BitsetFilterCache bitsetFilterCache,
+            @Nullable CardinalitySketchCache cardinalitySketchCache,
             int randomSeed,
             LongSupplier relativeTimeInMillis,
             Supplier<Boolean> isCancelled,
@@ -386,6 +396,7 @@ public abstract class AggregationContext implements Releasable {
             this.multiBucketConsumer = multiBucketConsumer;
             this.subSearchContextBuilder = subSearchContextBuilder;
             this.bitsetFilterCache = bitsetFilterCache;
+            this.cardinalitySketchCache = cardinalitySketchCache;
             this.randomSeed = randomSeed;
             this.relativeTimeInMillis = relativeTimeInMillis;
             this.isCancelled = isCancelled;
@@ -528,6 +539,11 @@ public abstract class AggregationContext implements Releasable {
             return bitsetFilterCache;
         }
 
+        @Override
+        public CardinalitySketchCache cardinalitySketchCache() {
+            return cardinalitySketchCache;
+        }
+
         @Override
         public BucketedSort buildBucketedSort(SortBuilder<?> sort, int bucketSize, BucketedSort.ExtraData extra) throws IOException {
             return sort.buildBucketedSort(context, bigArrays, bucketSize, extra);
@@ -258,6 +258,17 @@ public abstract class ValuesSource {
                 }
             }
 
+            /**
+             * Whether {@link #globalOrdinalsValues} can skip building the
+             * global ordinals lookup for the provided reader, because it is
+             * cached or because the reader's ordinals are already global.
+             * Aggregations that can work on {@link #ordinalsValues segment ordinals}
+             * may prefer them if it can't, for example right after a refresh.
+             */
+            public boolean globalOrdinalsLoaded(IndexReader indexReader) {
+                return true;
+            }
+
             public static class FieldData extends WithOrdinals {
 
                 protected final IndexOrdinalsFieldData indexFieldData;
@@ -290,6 +301,12 @@ public abstract class ValuesSource {
                     return indexFieldData.supportsGlobalOrdinalsMapping();
                 }
 
+                @Override
+                public boolean globalOrdinalsLoaded(IndexReader indexReader) {
+                    return indexReader instanceof DirectoryReader == false
+                        || indexFieldData.isGlobalLoaded((DirectoryReader) indexReader);
+                }
+
                 @Override
                 public LongUnaryOperator globalOrdinalsMapping(LeafReaderContext context) throws IOException {
                     final IndexOrdinalsFieldData global = indexFieldData.loadGlobal((DirectoryReader) context.parent.reader());
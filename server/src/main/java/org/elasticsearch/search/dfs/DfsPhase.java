@@ -26,6 +26,7 @@ import org.elasticsearch.search.profile.query.InternalProfileCollector;
 import org.elasticsearch.search.rescore.RescoreContext;
 import org.elasticsearch.search.vectors.KnnSearchBuilder;
 import org.elasticsearch.search.vectors.KnnVectorQueryBuilder;
+import org.elasticsearch.search.vectors.MultiSegmentKnnVectorQuery;
 import org.elasticsearch.tasks.TaskCancelledException;
 
 import java.io.IOException;
@@ -168,7 +169,7 @@ public class DfsPhase {
             knnVectorQueryBuilder.addFilterQuery(context.request().getAliasFilter().getQueryBuilder());
         }
 
-        Query query = searchExecutionContext.toQuery(knnVectorQueryBuilder).query();
+        Query query = context.searcher().rewrite(searchExecutionContext.toQuery(knnVectorQueryBuilder).query());
         TopScoreDocCollector topScoreDocCollector = TopScoreDocCollector.create(knnSearch.k(), Integer.MAX_VALUE);
         Collector collector = topScoreDocCollector;
 
@@ -183,6 +184,9 @@ public class DfsPhase {
         }
 
         context.searcher().search(query, collector);
+        if (context.getProfilers() != null) {
+            context.getProfilers().getDfsProfiler().setVectorOperationsCount(MultiSegmentKnnVectorQuery.vectorOperationsCount(query));
+        }
         DfsKnnResults knnResults = new DfsKnnResults(topScoreDocCollector.topDocs().scoreDocs);
         context.dfsResult().knnResults(knnResults);
     }
@@ -30,6 +30,7 @@ public class DfsProfiler extends AbstractProfileBreakdown<DfsTimingType> {
 
     private final QueryProfiler queryProfiler;
     private boolean collectorSet = false;
+    private Long vectorOperationsCount;
 
     public DfsProfiler(QueryProfiler queryProfiler) {
         super(DfsTimingType.class);
@@ -57,6 +58,13 @@ public class DfsProfiler extends AbstractProfileBreakdown<DfsTimingType> {
         collectorSet = true;
     }
 
+    /**
+     * Sets the number of vectors that were compared to the query vector by the kNN search.
+     */
+    public void setVectorOperationsCount(long vectorOperationsCount) {
+        this.vectorOperationsCount = vectorOperationsCount;
+    }
+
     public SearchProfileDfsPhaseResult buildDfsPhaseResults() {
         ProfileResult dfsProfileResult = new ProfileResult(
             "statistics",
@@ -67,7 +75,12 @@ public class DfsProfiler extends AbstractProfileBreakdown<DfsTimingType> {
             List.of()
         );
         QueryProfileShardResult queryProfileShardResult = collectorSet
-            ? new QueryProfileShardResult(queryProfiler.getTree(), queryProfiler.getRewriteTime(), queryProfiler.getCollector())
+            ? new QueryProfileShardResult(
+                queryProfiler.getTree(),
+                queryProfiler.getRewriteTime(),
+                queryProfiler.getCollector(),
+                vectorOperationsCount
+            )
             : null;
         return new SearchProfileDfsPhaseResult(dfsProfileResult, queryProfileShardResult);
     }
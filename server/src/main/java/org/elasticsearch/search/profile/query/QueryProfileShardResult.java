@@ -8,10 +8,12 @@
 
 package org.elasticsearch.search.profile.query;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.core.Nullable;
 import org.elasticsearch.search.profile.ProfileResult;
 import org.elasticsearch.xcontent.ToXContentObject;
 import org.elasticsearch.xcontent.XContentBuilder;
@@ -27,13 +29,15 @@ import static org.elasticsearch.common.xcontent.XContentParserUtils.ensureExpect
 
 /**
  * A container class to hold the profile results for a single shard in the request.
- * Contains a list of query profiles, a collector tree and a total rewrite tree.
+ * Contains a list of query profiles, a collector tree and a total rewrite tree, and the number of vectors that were
+ * compared by a kNN search.
  */
 public final class QueryProfileShardResult implements Writeable, ToXContentObject {
 
     public static final String COLLECTOR = "collector";
     public static final String REWRITE_TIME = "rewrite_time";
     public static final String QUERY_ARRAY = "query";
+    public static final String VECTOR_OPERATIONS_COUNT = "vector_operations_count";
 
     private final List<ProfileResult> queryProfileResults;
 
@@ -41,11 +45,23 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
 
     private final long rewriteTime;
 
+    private final Long vectorOperationsCount;
+
     public QueryProfileShardResult(List<ProfileResult> queryProfileResults, long rewriteTime, CollectorResult profileCollector) {
+        this(queryProfileResults, rewriteTime, profileCollector, null);
+    }
+
+    public QueryProfileShardResult(
+        List<ProfileResult> queryProfileResults,
+        long rewriteTime,
+        CollectorResult profileCollector,
+        @Nullable Long vectorOperationsCount
+    ) {
         assert (profileCollector != null);
         this.queryProfileResults = queryProfileResults;
         this.profileCollector = profileCollector;
         this.rewriteTime = rewriteTime;
+        this.vectorOperationsCount = vectorOperationsCount;
     }
 
     /**
@@ -60,6 +76,11 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
 
         profileCollector = new CollectorResult(in);
         rewriteTime = in.readLong();
+        if (in.getVersion().onOrAfter(Version.V_8_7_0)) {
+            vectorOperationsCount = in.readOptionalLong();
+        } else {
+            vectorOperationsCount = null;
+        }
     }
 
     @Override
@@ -70,6 +91,9 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         }
         profileCollector.writeTo(out);
         out.writeLong(rewriteTime);
+        if (out.getVersion().onOrAfter(Version.V_8_7_0)) {
+            out.writeOptionalLong(vectorOperationsCount);
+        }
     }
 
     public List<ProfileResult> getQueryResults() {
@@ -84,9 +108,21 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         return profileCollector;
     }
 
+    /**
+     * Returns the number of vectors that were compared to the query vector by a kNN search, or {@code null} if this is not the
+     * profile of a kNN search.
+     */
+    @Nullable
+    public Long getVectorOperationsCount() {
+        return vectorOperationsCount;
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject();
+        if (vectorOperationsCount != null) {
+            builder.field(VECTOR_OPERATIONS_COUNT, vectorOperationsCount);
+        }
         builder.startArray(QUERY_ARRAY);
         for (ProfileResult p : queryProfileResults) {
             p.toXContent(builder, params);
@@ -108,12 +144,13 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         QueryProfileShardResult other = (QueryProfileShardResult) obj;
         return queryProfileResults.equals(other.queryProfileResults)
             && profileCollector.equals(other.profileCollector)
-            && rewriteTime == other.rewriteTime;
+            && rewriteTime == other.rewriteTime
+            && Objects.equals(vectorOperationsCount, other.vectorOperationsCount);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(queryProfileResults, profileCollector, rewriteTime);
+        return Objects.hash(queryProfileResults, profileCollector, rewriteTime, vectorOperationsCount);
     }
 
     @Override
@@ -127,6 +164,7 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
         String currentFieldName = null;
         List<ProfileResult> queryProfileResults = new ArrayList<>();
         long rewriteTime = 0;
+        Long vectorOperationsCount = null;
         CollectorResult collector = null;
         while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
             if (token == XContentParser.Token.FIELD_NAME) {
@@ -134,6 +172,8 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
             } else if (token.isValue()) {
                 if (REWRITE_TIME.equals(currentFieldName)) {
                     rewriteTime = parser.longValue();
+                } else if (VECTOR_OPERATIONS_COUNT.equals(currentFieldName)) {
+                    vectorOperationsCount = parser.longValue();
                 } else {
                     parser.skipChildren();
                 }
@@ -153,6 +193,6 @@ public final class QueryProfileShardResult implements Writeable, ToXContentObjec
                 parser.skipChildren();
             }
         }
-        return new QueryProfileShardResult(queryProfileResults, rewriteTime, collector);
+        return new QueryProfileShardResult(queryProfileResults, rewriteTime, collector, vectorOperationsCount);
     }
 }
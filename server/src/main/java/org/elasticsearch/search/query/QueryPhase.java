@@ -176,7 +176,14 @@ public class QueryPhase {
             }
 
             try {
-                boolean shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet);
+                final boolean shouldRescore;
+                if (canCollectConcurrently(searchContext) && searchContext.queryCollectors().isEmpty()) {
+                    shouldRescore = searchWithCollectorManager(searchContext, searcher, query, timeoutSet);
+                } else {
+                    assert searchContext.aggregations() == null || searchContext.aggregations().collectorManager() == null
+                        : "aggregations must be collected concurrently";
+                    shouldRescore = searchWithCollector(searchContext, searcher, query, collectors, hasFilterCollector, timeoutSet);
+                }
                 ExecutorService executor = searchContext.indexShard().getThreadPool().executor(ThreadPool.Names.SEARCH);
                 assert executor instanceof EWMATrackingEsThreadPoolExecutor
                     || (executor instanceof EsThreadPoolExecutor == false /* in case thread pool is mocked out in tests */)
@@ -241,6 +248,46 @@ public class QueryPhase {
         return topDocsFactory.shouldRescore();
     }
 
+    /**
+     * Searches the leaf slices of the shard concurrently, see {@link QueryPhaseCollectorManager}.
+     */
+    private static boolean searchWithCollectorManager(
+        SearchContext searchContext,
+        ContextIndexSearcher searcher,
+        Query query,
+        boolean timeoutSet
+    ) throws IOException {
+        final QueryPhaseCollectorManager collectorManager = new QueryPhaseCollectorManager(searchContext);
+        QuerySearchResult queryResult = searchContext.queryResult();
+        try {
+            searcher.search(query, collectorManager);
+        } catch (TimeExceededException e) {
+            assert timeoutSet : "TimeExceededException thrown even though timeout wasn't set";
+            if (searchContext.request().allowPartialSearchResults() == false) {
+                // Can't rethrow TimeExceededException because not serializable
+                throw new QueryPhaseExecutionException(searchContext.shardTarget(), "Time exceeded");
+            }
+            queryResult.searchTimedOut(true);
+        }
+        collectorManager.postProcess(queryResult);
+        return collectorManager.shouldRescore();
+    }
+
+    /**
+     * Returns true if the leaf slices of the shard can be searched concurrently for the provided context. Requests that
+     * are profiled, scrolled, collapsed, or that need collectors that filter or terminate the collection early are always
+     * searched sequentially.
+     */
+    public static boolean canCollectConcurrently(SearchContext searchContext) {
+        return searchContext.searcher().isConcurrentSearchEnabled()
+            && searchContext.getProfilers() == null
+            && searchContext.scrollContext() == null
+            && searchContext.collapse() == null
+            && searchContext.terminateAfter() == SearchContext.DEFAULT_TERMINATE_AFTER
+            && searchContext.parsedPostFilter() == null
+            && searchContext.minimumScore() == null;
+    }
+
     /**
      * Returns whether collection within the provided <code>reader</code> can be early-terminated if it sorts
      * with <code>sortAndFormats</code>.
@@ -0,0 +1,255 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.MultiCollector;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
+import org.apache.lucene.search.TotalHitCountCollector;
+import org.apache.lucene.search.TotalHits;
+import org.elasticsearch.action.search.MaxScoreCollector;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.search.TopDocsAndMaxScore;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.rescore.RescoreContext;
+import org.elasticsearch.search.sort.SortAndFormats;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A {@link CollectorManager} that is used by the {@link QueryPhase} when the leaf slices of a shard are searched concurrently.
+ * It creates one collector per slice that collects the top docs, the maximum score and the aggregations of the request, and
+ * merges the per-slice results into the {@link QuerySearchResult} in {@link #postProcess(QuerySearchResult)}.
+ *
+ * The collectors that are created are tracked by this manager so that partial results can be post-processed even if the search
+ * did not complete, for instance because it timed out.
+ */
+final class QueryPhaseCollectorManager implements CollectorManager<Collector, Void> {
+    private final int numHits;
+    private final int trackTotalHitsUpTo;
+    private final boolean shouldRescore;
+    private final boolean trackMaxScore;
+    @Nullable
+    private final SortAndFormats sortAndFormats;
+    @Nullable
+    private final ScoreDoc searchAfter;
+    /**
+     * The total hit count computed without collecting the documents, or <code>-1</code> if it must be collected
+     */
+    private final int shortcutTotalHitCount;
+    /**
+     * Whether the total hits should be read from the top docs rather than from {@link #trackTotalHitsUpTo}
+     */
+    private final boolean totalHitsFromTopDocs;
+    @Nullable
+    private final CollectorManager<? extends Collector, ? extends TopDocs> topDocsManager;
+    @Nullable
+    private final CollectorManager<? extends Collector, InternalAggregations> aggsManager;
+
+    private final List<Collector> topDocsCollectors = new ArrayList<>();
+    private final List<TotalHitCountCollector> hitCountCollectors = new ArrayList<>();
+    private final List<EarlyTerminatingCollector> earlyTerminatingCollectors = new ArrayList<>();
+    private final List<MaxScoreCollector> maxScoreCollectors = new ArrayList<>();
+    private final List<Collector> aggsCollectors = new ArrayList<>();
+
+    QueryPhaseCollectorManager(SearchContext searchContext) throws IOException {
+        final IndexReader reader = searchContext.searcher().getIndexReader();
+        final Query query = searchContext.rewrittenQuery();
+        this.sortAndFormats = searchContext.sort();
+        this.searchAfter = searchContext.searchAfter();
+        this.trackTotalHitsUpTo = searchContext.trackTotalHitsUpTo();
+        this.aggsManager = searchContext.aggregations() == null ? null : searchContext.aggregations().collectorManager();
+        this.shouldRescore = searchContext.size() > 0 && searchContext.rescore().isEmpty() == false;
+        if (searchContext.size() == 0) {
+            this.numHits = 0;
+            this.trackMaxScore = false;
+            this.topDocsManager = null;
+            this.totalHitsFromTopDocs = false;
+            this.shortcutTotalHitCount = trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_DISABLED
+                ? -1
+                : TopDocsCollectorContext.shortcutTotalHitCount(reader, query);
+        } else {
+            // top collectors don't like a size of 0
+            final int totalNumDocs = Math.max(1, reader.numDocs());
+            int numDocs = Math.min(searchContext.from() + searchContext.size(), totalNumDocs);
+            if (shouldRescore) {
+                assert sortAndFormats == null;
+                for (RescoreContext rescoreContext : searchContext.rescore()) {
+                    numDocs = Math.max(numDocs, rescoreContext.getWindowSize());
+                }
+            }
+            this.numHits = numDocs;
+            this.trackMaxScore = sortAndFormats != null && searchContext.trackScores();
+            final int hitCountThreshold;
+            if ((sortAndFormats == null || SortField.FIELD_SCORE.equals(sortAndFormats.sort.getSort()[0]))
+                && TopDocsCollectorContext.hasInfMaxScore(query)) {
+                // disable max score optimization since we have a mandatory clause
+                // that doesn't track the maximum score
+                hitCountThreshold = Integer.MAX_VALUE;
+                this.shortcutTotalHitCount = -1;
+                this.totalHitsFromTopDocs = true;
+            } else if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
+                // don't compute hit counts via the collector
+                hitCountThreshold = 1;
+                this.shortcutTotalHitCount = -1;
+                this.totalHitsFromTopDocs = false;
+            } else {
+                this.shortcutTotalHitCount = TopDocsCollectorContext.shortcutTotalHitCount(reader, query);
+                if (shortcutTotalHitCount == -1) {
+                    hitCountThreshold = trackTotalHitsUpTo;
+                    this.totalHitsFromTopDocs = true;
+                } else {
+                    // don't compute hit counts via the collector
+                    hitCountThreshold = 1;
+                    this.totalHitsFromTopDocs = false;
+                }
+            }
+            if (sortAndFormats == null) {
+                this.topDocsManager = TopScoreDocCollector.createSharedManager(numHits, searchAfter, hitCountThreshold);
+            } else {
+                this.topDocsManager = TopFieldCollector.createSharedManager(
+                    sortAndFormats.sort,
+                    numHits,
+                    (FieldDoc) searchAfter,
+                    hitCountThreshold
+                );
+            }
+        }
+    }
+
+    /**
+     * Returns true if the top docs should be re-scored after initial search
+     */
+    boolean shouldRescore() {
+        return shouldRescore;
+    }
+
+    @Override
+    public synchronized Collector newCollector() throws IOException {
+        final List<Collector> collectors = new ArrayList<>(3);
+        if (topDocsManager != null) {
+            Collector topDocsCollector = topDocsManager.newCollector();
+            topDocsCollectors.add(topDocsCollector);
+            collectors.add(topDocsCollector);
+            if (trackMaxScore) {
+                MaxScoreCollector maxScoreCollector = new MaxScoreCollector();
+                maxScoreCollectors.add(maxScoreCollector);
+                collectors.add(maxScoreCollector);
+            }
+        } else if (trackTotalHitsUpTo != SearchContext.TRACK_TOTAL_HITS_DISABLED && shortcutTotalHitCount == -1) {
+            TotalHitCountCollector hitCountCollector = new TotalHitCountCollector();
+            hitCountCollectors.add(hitCountCollector);
+            if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_ACCURATE) {
+                collectors.add(hitCountCollector);
+            } else {
+                EarlyTerminatingCollector col = new EarlyTerminatingCollector(hitCountCollector, trackTotalHitsUpTo, false);
+                earlyTerminatingCollectors.add(col);
+                collectors.add(col);
+            }
+        }
+        if (aggsManager != null) {
+            Collector aggsCollector = aggsManager.newCollector();
+            aggsCollectors.add(aggsCollector);
+            collectors.add(aggsCollector);
+        }
+        if (collectors.isEmpty()) {
+            // nothing to collect, terminate the collection of every leaf early
+            collectors.add(new EarlyTerminatingCollector(new TotalHitCountCollector(), 0, false));
+        }
+        return MultiCollector.wrap(collectors);
+    }
+
+    /**
+     * The per-slice results are merged by {@link #postProcess(QuerySearchResult)}.
+     */
+    @Override
+    public Void reduce(Collection<Collector> collectors) {
+        return null;
+    }
+
+    /**
+     * Merges the results of all the collectors that were created by this manager into the provided {@link QuerySearchResult}.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    synchronized void postProcess(QuerySearchResult result) throws IOException {
+        final TopDocs topDocs;
+        final float maxScore;
+        if (topDocsManager != null) {
+            final TopDocs in = (TopDocs) ((CollectorManager) topDocsManager).reduce(topDocsCollectors);
+            final TotalHits totalHits = totalHitsFromTopDocs ? in.totalHits : computeTotalHits();
+            if (in instanceof TopFieldDocs fieldDocs) {
+                topDocs = new TopFieldDocs(totalHits, fieldDocs.scoreDocs, fieldDocs.fields);
+            } else {
+                topDocs = new TopDocs(totalHits, in.scoreDocs);
+            }
+            if (sortAndFormats == null) {
+                maxScore = topDocs.scoreDocs.length == 0 ? Float.NaN : topDocs.scoreDocs[0].score;
+            } else if (trackMaxScore) {
+                float max = Float.NaN;
+                for (MaxScoreCollector maxScoreCollector : maxScoreCollectors) {
+                    float score = maxScoreCollector.getMaxScore();
+                    if (Float.isNaN(max) || score > max) {
+                        max = score;
+                    }
+                }
+                maxScore = max;
+            } else {
+                maxScore = Float.NaN;
+            }
+        } else {
+            final TotalHits totalHits = computeTotalHits();
+            if (sortAndFormats != null) {
+                topDocs = new TopFieldDocs(totalHits, Lucene.EMPTY_SCORE_DOCS, sortAndFormats.sort.getSort());
+            } else {
+                topDocs = new TopDocs(totalHits, Lucene.EMPTY_SCORE_DOCS);
+            }
+            maxScore = Float.NaN;
+        }
+        final DocValueFormat[] sortValueFormats = topDocsManager == null || sortAndFormats == null ? null : sortAndFormats.formats;
+        result.topDocs(new TopDocsAndMaxScore(topDocs, maxScore), sortValueFormats);
+        if (aggsManager != null) {
+            result.aggregations((InternalAggregations) ((CollectorManager) aggsManager).reduce(aggsCollectors));
+        }
+    }
+
+    private TotalHits computeTotalHits() {
+        if (trackTotalHitsUpTo == SearchContext.TRACK_TOTAL_HITS_DISABLED) {
+            // for bwc hit count is set to 0, it will be converted to -1 by the coordinating node
+            return new TotalHits(0, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+        } else if (shortcutTotalHitCount != -1) {
+            return new TotalHits(shortcutTotalHitCount, TotalHits.Relation.EQUAL_TO);
+        }
+        long count = 0;
+        for (TotalHitCountCollector hitCountCollector : hitCountCollectors) {
+            count += hitCountCollector.getTotalHits();
+        }
+        for (EarlyTerminatingCollector earlyTerminatingCollector : earlyTerminatingCollectors) {
+            if (earlyTerminatingCollector.hasEarlyTerminated()) {
+                // each slice counts up to the threshold on its own
+                return new TotalHits(Math.min(count, trackTotalHitsUpTo), TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO);
+            }
+        }
+        return new TotalHits(count, TotalHits.Relation.EQUAL_TO);
+    }
+}
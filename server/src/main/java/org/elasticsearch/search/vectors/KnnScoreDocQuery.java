@@ -38,6 +38,7 @@ class KnnScoreDocQuery extends Query {
     private final float[] scores;
     private final int[] segmentStarts;
     private final Object contextIdentity;
+    private final long vectorOperationsCount;
 
     /**
      * Creates a query.
@@ -52,10 +53,19 @@ class KnnScoreDocQuery extends Query {
      *     query
      */
     KnnScoreDocQuery(int[] docs, float[] scores, int[] segmentStarts, Object contextIdentity) {
+        this(docs, scores, segmentStarts, contextIdentity, 0L);
+    }
+
+    /**
+     * Creates a query for the docs that a kNN search found after comparing
+     * {@code vectorOperationsCount} vectors to the query vector.
+     */
+    KnnScoreDocQuery(int[] docs, float[] scores, int[] segmentStarts, Object contextIdentity, long vectorOperationsCount) {
         this.docs = docs;
         this.scores = scores;
         this.segmentStarts = segmentStarts;
         this.contextIdentity = contextIdentity;
+        this.vectorOperationsCount = vectorOperationsCount;
     }
 
     @Override
@@ -182,6 +192,13 @@ class KnnScoreDocQuery extends Query {
         return scores;
     }
 
+    /**
+     * The number of vectors that were compared to the query vector to find the docs, which is not part of the identity of the query.
+     */
+    long vectorOperationsCount() {
+        return vectorOperationsCount;
+    }
+
     @Override
     public String toString(String field) {
         return "ScoreAndDocQuery";
@@ -8,6 +8,7 @@
 
 package org.elasticsearch.search.vectors;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -40,6 +41,7 @@ public class KnnSearchBuilder implements Writeable, ToXContentFragment, Rewritea
     public static final ParseField NUM_CANDS_FIELD = new ParseField("num_candidates");
     public static final ParseField QUERY_VECTOR_FIELD = new ParseField("query_vector");
     public static final ParseField FILTER_FIELD = new ParseField("filter");
+    public static final ParseField RESCORE_FIELD = new ParseField("rescore");
     public static final ParseField BOOST_FIELD = AbstractQueryBuilder.BOOST_FIELD;
 
     private static final ConstructingObjectParser<KnnSearchBuilder, Void> PARSER = new ConstructingObjectParser<>("knn", args -> {
@@ -64,6 +66,7 @@ public class KnnSearchBuilder implements Writeable, ToXContentFragment, Rewritea
             ObjectParser.ValueType.OBJECT_ARRAY
         );
         PARSER.declareFloat(KnnSearchBuilder::boost, BOOST_FIELD);
+        PARSER.declareBoolean(KnnSearchBuilder::rescore, RESCORE_FIELD);
     }
 
     public static KnnSearchBuilder fromXContent(XContentParser parser) throws IOException {
@@ -76,6 +79,7 @@ public class KnnSearchBuilder implements Writeable, ToXContentFragment, Rewritea
     final int numCands;
     final List<QueryBuilder> filterQueries;
     float boost = AbstractQueryBuilder.DEFAULT_BOOST;
+    boolean rescore;
 
     /**
      * Defines a kNN search.
@@ -111,6 +115,9 @@ public class KnnSearchBuilder implements Writeable, ToXContentFragment, Rewritea
         this.queryVector = in.readFloatArray();
         this.filterQueries = in.readNamedWriteableList(QueryBuilder.class);
         this.boost = in.readFloat();
+        if (in.getVersion().onOrAfter(Version.V_8_7_0)) {
+            this.rescore = in.readBoolean();
+        }
     }
 
     public int k() {
@@ -137,6 +144,15 @@ public class KnnSearchBuilder implements Writeable, ToXContentFragment, Rewritea
         return this;
     }
 
+    /**
+     * Set whether to compute the scores of the nearest neighbor candidates again with the original float vectors, for
+     * fields that index quantized vectors.
+     */
+    public KnnSearchBuilder rescore(boolean rescore) {
+        this.rescore = rescore;
+        return this;
+    }
+
     @Override
     public KnnSearchBuilder rewrite(QueryRewriteContext ctx) throws IOException {
         boolean changed = false;
@@ -149,13 +165,13 @@ public class KnnSearchBuilder implements Writeable, ToXContentFragment, Rewritea
             rewrittenQueries.add(rewrittenQuery);
         }
         if (changed) {
-            return new KnnSearchBuilder(field, queryVector, k, numCands).boost(boost).addFilterQueries(rewrittenQueries);
+            return new KnnSearchBuilder(field, queryVector, k, numCands).boost(boost).rescore(rescore).addFilterQueries(rewrittenQueries);
         }
         return this;
     }
 
     public KnnVectorQueryBuilder toQueryBuilder() {
-        return new KnnVectorQueryBuilder(field, queryVector, numCands).boost(boost).addFilterQueries(filterQueries);
+        return new KnnVectorQueryBuilder(field, queryVector, numCands).boost(boost).rescore(rescore).addFilterQueries(filterQueries);
     }
 
     @Override
@@ -168,12 +184,13 @@ public class KnnSearchBuilder implements Writeable, ToXContentFragment, Rewritea
             && Objects.equals(field, that.field)
             && Arrays.equals(queryVector, that.queryVector)
             && Objects.equals(filterQueries, that.filterQueries)
-            && boost == that.boost;
+            && boost == that.boost
+            && rescore == that.rescore;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(field, k, numCands, Arrays.hashCode(queryVector), Objects.hashCode(filterQueries), boost);
+        return Objects.hash(field, k, numCands, Arrays.hashCode(queryVector), Objects.hashCode(filterQueries), boost, rescore);
     }
 
     @Override
@@ -195,6 +212,10 @@ public class KnnSearchBuilder implements Writeable, ToXContentFragment, Rewritea
             builder.field(BOOST_FIELD.getPreferredName(), boost);
         }
 
+        if (rescore) {
+            builder.field(RESCORE_FIELD.getPreferredName(), rescore);
+        }
+
         return builder;
     }
 
@@ -206,5 +227,8 @@ public class KnnSearchBuilder implements Writeable, ToXContentFragment, Rewritea
         out.writeFloatArray(queryVector);
         out.writeNamedWriteableList(filterQueries);
         out.writeFloat(boost);
+        if (out.getVersion().onOrAfter(Version.V_8_7_0)) {
+            out.writeBoolean(rescore);
+        }
     }
 }
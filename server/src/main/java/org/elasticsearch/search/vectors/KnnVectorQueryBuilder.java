@@ -23,6 +23,7 @@ import org.elasticsearch.index.query.MatchNoneQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryRewriteContext;
 import org.elasticsearch.index.query.SearchExecutionContext;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.xcontent.XContentBuilder;
 
 import java.io.IOException;
@@ -43,6 +44,7 @@ public class KnnVectorQueryBuilder extends AbstractQueryBuilder<KnnVectorQueryBu
     private final float[] queryVector;
     private final int numCands;
     private final List<QueryBuilder> filterQueries;
+    private boolean rescore;
 
     public KnnVectorQueryBuilder(String fieldName, float[] queryVector, int numCands) {
         this.fieldName = fieldName;
@@ -61,6 +63,9 @@ public class KnnVectorQueryBuilder extends AbstractQueryBuilder<KnnVectorQueryBu
         } else {
             this.filterQueries = readQueries(in);
         }
+        if (in.getVersion().onOrAfter(Version.V_8_7_0)) {
+            this.rescore = in.readBoolean();
+        }
     }
 
     public String getFieldName() {
@@ -79,6 +84,19 @@ public class KnnVectorQueryBuilder extends AbstractQueryBuilder<KnnVectorQueryBu
         return filterQueries;
     }
 
+    public boolean rescore() {
+        return rescore;
+    }
+
+    /**
+     * Whether to compute the scores of the nearest neighbors again with the original float vectors when the field
+     * indexes quantized vectors. This has no effect on other fields, whose scores are already exact.
+     */
+    public KnnVectorQueryBuilder rescore(boolean rescore) {
+        this.rescore = rescore;
+        return this;
+    }
+
     public KnnVectorQueryBuilder addFilterQuery(QueryBuilder filterQuery) {
         Objects.requireNonNull(filterQuery);
         this.filterQueries.add(filterQuery);
@@ -99,6 +117,9 @@ public class KnnVectorQueryBuilder extends AbstractQueryBuilder<KnnVectorQueryBu
         if (out.getVersion().onOrAfter(Version.V_8_2_0)) {
             writeQueries(out, filterQueries);
         }
+        if (out.getVersion().onOrAfter(Version.V_8_7_0)) {
+            out.writeBoolean(rescore);
+        }
     }
 
     @Override
@@ -111,6 +132,9 @@ public class KnnVectorQueryBuilder extends AbstractQueryBuilder<KnnVectorQueryBu
             }
             builder.endArray();
         }
+        if (rescore) {
+            builder.field("rescore", rescore);
+        }
 
         builder.endObject();
     }
@@ -135,7 +159,7 @@ public class KnnVectorQueryBuilder extends AbstractQueryBuilder<KnnVectorQueryBu
             rewrittenQueries.add(rewrittenQuery);
         }
         if (changed) {
-            return new KnnVectorQueryBuilder(fieldName, queryVector, numCands).addFilterQueries(rewrittenQueries);
+            return new KnnVectorQueryBuilder(fieldName, queryVector, numCands).rescore(rescore).addFilterQueries(rewrittenQueries);
         }
         return this;
     }
@@ -160,13 +184,22 @@ public class KnnVectorQueryBuilder extends AbstractQueryBuilder<KnnVectorQueryBu
         BooleanQuery booleanQuery = builder.build();
         Query filterQuery = booleanQuery.clauses().isEmpty() ? null : booleanQuery;
 
+        MultiSegmentKnnVectorQuery.SharedTopK sharedTopK = null;
+        if (context.getIndexSettings().isKnnSharedTopKEnabled()) {
+            if (context.searcher() instanceof ContextIndexSearcher searcher) {
+                sharedTopK = new MultiSegmentKnnVectorQuery.SharedTopK(searcher.getExecutor(), searcher::checkCancelled);
+            } else {
+                sharedTopK = new MultiSegmentKnnVectorQuery.SharedTopK(null, () -> {});
+            }
+        }
+
         DenseVectorFieldType vectorFieldType = (DenseVectorFieldType) fieldType;
-        return vectorFieldType.createKnnQuery(queryVector, numCands, filterQuery);
+        return vectorFieldType.createKnnQuery(queryVector, numCands, filterQuery, rescore, sharedTopK);
     }
 
     @Override
     protected int doHashCode() {
-        return Objects.hash(fieldName, Arrays.hashCode(queryVector), numCands, filterQueries);
+        return Objects.hash(fieldName, Arrays.hashCode(queryVector), numCands, filterQueries, rescore);
     }
 
     @Override
@@ -174,7 +207,8 @@ public class KnnVectorQueryBuilder extends AbstractQueryBuilder<KnnVectorQueryBu
         return Objects.equals(fieldName, other.fieldName)
             && Arrays.equals(queryVector, other.queryVector)
             && numCands == other.numCands
-            && Objects.equals(filterQueries, other.filterQueries);
+            && Objects.equals(filterQueries, other.filterQueries)
+            && rescore == other.rescore;
     }
 
     @Override
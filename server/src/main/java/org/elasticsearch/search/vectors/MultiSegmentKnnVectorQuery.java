@@ -0,0 +1,525 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.vectors;
+
+import org.apache.lucene.codecs.KnnVectorsReader;
+import org.apache.lucene.codecs.lucene94.Lucene94HnswVectorsReader;
+import org.apache.lucene.codecs.perfield.PerFieldKnnVectorsFormat;
+import org.apache.lucene.index.CodecReader;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomAccessVectorValues;
+import org.apache.lucene.index.VectorEncoding;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.index.VectorValues;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FieldExistsQuery;
+import org.apache.lucene.search.FilteredDocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.KnnVectorQuery;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.SparseFixedBitSet;
+import org.apache.lucene.util.ThreadInterruptedException;
+import org.apache.lucene.util.VectorUtil;
+import org.apache.lucene.util.hnsw.HnswGraph;
+import org.apache.lucene.util.hnsw.NeighborQueue;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.core.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.lucene.search.DocIdSetIterator.NO_MORE_DOCS;
+
+/**
+ * A {@link KnnVectorQuery} that counts the vectors that are compared to the query vector while searching the segments, and that
+ * can make the segments share their top k nearest neighbors. The count is carried by the query that this query is rewritten into,
+ * see {@link #vectorOperationsCount}.
+ *
+ * Every segment has its own HNSW graph, and Lucene searches each of them as if it were the only one: a segment keeps exploring
+ * its graph until it found its own k nearest neighbors, even if the neighbors that it finds cannot make it into the global top k
+ * anymore. When {@link SharedTopK} is provided the segments publish the similarity of their k-th nearest neighbor once they
+ * found k of them, and the graph searches of the other segments stop exploring candidates that are less similar than the best
+ * published similarity. The segments are searched concurrently if an executor is provided too.
+ *
+ * Note: the search of the graph is adapted from Lucene's HnswGraphSearcher, which has no way to take a minimum similarity from
+ * the outside. It only applies to segments of the default codec in which every document has a vector, since the mapping from
+ * the ordinals of the graph to documents is not exposed. Other segments are searched by the codec, without sharing.
+ */
+public class MultiSegmentKnnVectorQuery extends KnnVectorQuery {
+
+    /**
+     * How the segments share their top k nearest neighbors.
+     *
+     * @param executor the executor that searches the segments concurrently, or {@code null} to search them sequentially
+     * @param checkCancelled checks whether the search was cancelled or timed out while a graph is searched
+     */
+    public record SharedTopK(@Nullable Executor executor, Runnable checkCancelled) {}
+
+    private static final TopDocs NO_RESULTS = new TopDocs(new TotalHits(0, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]);
+
+    private static final int CANCELLATION_CHECK_INTERVAL_MASK = (1 << 8) - 1;
+
+    private final String field;
+    private final float[] target;
+    private final int k;
+    private final Query filter;
+    private final SharedTopK sharedTopK;
+
+    public MultiSegmentKnnVectorQuery(String field, float[] target, int k, @Nullable Query filter, @Nullable SharedTopK sharedTopK) {
+        super(field, target, k, filter);
+        this.field = field;
+        this.target = target;
+        this.k = k;
+        this.filter = filter;
+        this.sharedTopK = sharedTopK;
+    }
+
+    /**
+     * Returns true if the segments share their top k nearest neighbors.
+     */
+    public boolean isSharedTopK() {
+        return sharedTopK != null;
+    }
+
+    /**
+     * Sums the number of vectors that were compared to the query vector by the kNN queries that were rewritten into the provided
+     * query.
+     */
+    public static long vectorOperationsCount(Query rewritten) {
+        final long[] count = new long[1];
+        rewritten.visit(new QueryVisitor() {
+            @Override
+            public void visitLeaf(Query leafQuery) {
+                if (leafQuery instanceof KnnScoreDocQuery knnScoreDocQuery) {
+                    count[0] += knnScoreDocQuery.vectorOperationsCount();
+                }
+            }
+        });
+        return count[0];
+    }
+
+    @Override
+    public Query rewrite(IndexReader reader) throws IOException {
+        final Weight filterWeight;
+        if (filter != null) {
+            IndexSearcher indexSearcher = new IndexSearcher(reader);
+            BooleanQuery booleanQuery = new BooleanQuery.Builder().add(filter, BooleanClause.Occur.FILTER)
+                .add(new FieldExistsQuery(field), BooleanClause.Occur.FILTER)
+                .build();
+            Query rewritten = indexSearcher.rewrite(booleanQuery);
+            filterWeight = indexSearcher.createWeight(rewritten, ScoreMode.COMPLETE_NO_SCORES, 1f);
+        } else {
+            filterWeight = null;
+        }
+
+        final MinSimilarity minSimilarity = sharedTopK == null ? null : new MinSimilarity();
+        final List<LeafReaderContext> leaves = reader.leaves();
+        final TopDocs[] perLeafResults = new TopDocs[leaves.size()];
+        if (sharedTopK == null || sharedTopK.executor() == null || leaves.size() <= 1) {
+            for (LeafReaderContext ctx : leaves) {
+                perLeafResults[ctx.ord] = searchLeaf(ctx, filterWeight, minSimilarity);
+            }
+        } else {
+            searchLeavesConcurrently(leaves, filterWeight, minSimilarity, perLeafResults);
+        }
+
+        long visited = 0;
+        for (TopDocs results : perLeafResults) {
+            visited += results.totalHits.value;
+        }
+
+        TopDocs topK = TopDocs.merge(k, perLeafResults);
+        if (topK.scoreDocs.length == 0) {
+            return new MatchNoDocsQuery();
+        }
+        return createRewrittenQuery(reader, topK, visited);
+    }
+
+    /**
+     * Searches the leaves on the executor, except for the first leaf which is searched by the calling thread. Leaves are searched
+     * by the calling thread too if the executor rejects them.
+     */
+    private void searchLeavesConcurrently(
+        List<LeafReaderContext> leaves,
+        Weight filterWeight,
+        MinSimilarity minSimilarity,
+        TopDocs[] perLeafResults
+    ) throws IOException {
+        final List<FutureTask<TopDocs>> tasks = new ArrayList<>(leaves.size());
+        for (LeafReaderContext ctx : leaves) {
+            tasks.add(new FutureTask<>(() -> searchLeaf(ctx, filterWeight, minSimilarity)));
+        }
+        for (int i = 1; i < tasks.size(); i++) {
+            try {
+                sharedTopK.executor().execute(tasks.get(i));
+            } catch (RejectedExecutionException e) {
+                tasks.get(i).run();
+            }
+        }
+        tasks.get(0).run();
+        Throwable failure = null;
+        for (int i = 0; i < tasks.size(); i++) {
+            try {
+                perLeafResults[i] = tasks.get(i).get();
+            } catch (ExecutionException e) {
+                failure = ExceptionsHelper.useOrSuppress(failure, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ThreadInterruptedException(e);
+            }
+        }
+        if (failure instanceof IOException ioException) {
+            throw ioException;
+        } else if (failure instanceof Error error) {
+            throw error;
+        }
+        ExceptionsHelper.reThrowIfNotNull(failure);
+    }
+
+    /**
+     * Searches a leaf like {@link KnnVectorQuery} does, returning the number of vectors that were compared as total hits.
+     */
+    private TopDocs searchLeaf(LeafReaderContext ctx, Weight filterWeight, MinSimilarity minSimilarity) throws IOException {
+        TopDocs results = doSearchLeaf(ctx, filterWeight, minSimilarity);
+        if (ctx.docBase > 0) {
+            for (ScoreDoc scoreDoc : results.scoreDocs) {
+                scoreDoc.doc += ctx.docBase;
+            }
+        }
+        return results;
+    }
+
+    private TopDocs doSearchLeaf(LeafReaderContext ctx, Weight filterWeight, MinSimilarity minSimilarity) throws IOException {
+        Bits liveDocs = ctx.reader().getLiveDocs();
+        if (filterWeight == null) {
+            return approximateSearch(ctx, liveDocs, Integer.MAX_VALUE, minSimilarity);
+        }
+
+        Scorer scorer = filterWeight.scorer(ctx);
+        if (scorer == null) {
+            return NO_RESULTS;
+        }
+
+        BitSet acceptDocs = createBitSet(scorer.iterator(), liveDocs, ctx.reader().maxDoc());
+        int cost = acceptDocs.cardinality();
+        if (cost <= k) {
+            // if there are <= k possible matches, short-circuit and perform exact search, since HNSW must always visit at least k
+            // documents
+            return exactSearch(ctx, new BitSetIterator(acceptDocs, cost));
+        }
+
+        // perform the approximate kNN search
+        TopDocs results = approximateSearch(ctx, acceptDocs, cost, minSimilarity);
+        if (results.totalHits.relation == TotalHits.Relation.EQUAL_TO) {
+            return results;
+        }
+        // we stopped the kNN search because it visited too many nodes, so fall back to exact search
+        TopDocs exactResults = exactSearch(ctx, new BitSetIterator(acceptDocs, cost));
+        return new TopDocs(
+            new TotalHits(results.totalHits.value + exactResults.totalHits.value, TotalHits.Relation.EQUAL_TO),
+            exactResults.scoreDocs
+        );
+    }
+
+    private static BitSet createBitSet(DocIdSetIterator iterator, Bits liveDocs, int maxDoc) throws IOException {
+        if (liveDocs == null && iterator instanceof BitSetIterator bitSetIterator) {
+            // If we already have a BitSet and no deletions, reuse the BitSet
+            return bitSetIterator.getBitSet();
+        }
+        // Create a new BitSet from matching and live docs
+        FilteredDocIdSetIterator filterIterator = new FilteredDocIdSetIterator(iterator) {
+            @Override
+            protected boolean match(int doc) {
+                return liveDocs == null || liveDocs.get(doc);
+            }
+        };
+        return BitSet.of(filterIterator, maxDoc);
+    }
+
+    private TopDocs approximateSearch(LeafReaderContext ctx, Bits acceptDocs, int visitedLimit, MinSimilarity minSimilarity)
+        throws IOException {
+        if (minSimilarity != null) {
+            SegmentGraph graph = SegmentGraph.of(ctx.reader(), field);
+            if (graph != null) {
+                return graph.search(target, k, acceptDocs, visitedLimit, minSimilarity, sharedTopK.checkCancelled());
+            }
+        }
+        TopDocs results = ctx.reader().searchNearestVectors(field, target, k, acceptDocs, visitedLimit);
+        return results != null ? results : NO_RESULTS;
+    }
+
+    private static Query createRewrittenQuery(IndexReader reader, TopDocs topK, long vectorOperationsCount) {
+        int len = topK.scoreDocs.length;
+        Arrays.sort(topK.scoreDocs, Comparator.comparingInt(a -> a.doc));
+        int[] docs = new int[len];
+        float[] scores = new float[len];
+        for (int i = 0; i < len; i++) {
+            docs[i] = topK.scoreDocs[i].doc;
+            scores[i] = topK.scoreDocs[i].score;
+        }
+        int[] segmentStarts = findSegmentStarts(reader, docs);
+        return new KnnScoreDocQuery(docs, scores, segmentStarts, reader.getContext().id(), vectorOperationsCount);
+    }
+
+    private static int[] findSegmentStarts(IndexReader reader, int[] docs) {
+        int[] starts = new int[reader.leaves().size() + 1];
+        starts[starts.length - 1] = docs.length;
+        if (starts.length == 2) {
+            return starts;
+        }
+        int resultIndex = 0;
+        for (int i = 1; i < starts.length - 1; i++) {
+            int upper = reader.leaves().get(i).docBase;
+            resultIndex = Arrays.binarySearch(docs, resultIndex, docs.length, upper);
+            if (resultIndex < 0) {
+                resultIndex = -1 - resultIndex;
+            }
+            starts[i] = resultIndex;
+        }
+        return starts;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return super.equals(o) && isSharedTopK() == ((MultiSegmentKnnVectorQuery) o).isSharedTopK();
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + Boolean.hashCode(isSharedTopK());
+    }
+
+    /**
+     * The highest similarity of the k-th nearest neighbor of a segment that has been published so far.
+     */
+    static final class MinSimilarity {
+        private final AtomicInteger bits = new AtomicInteger(Float.floatToIntBits(Float.NEGATIVE_INFINITY));
+
+        float get() {
+            return Float.intBitsToFloat(bits.get());
+        }
+
+        void accumulate(float similarity) {
+            int current;
+            while (similarity > Float.intBitsToFloat(current = bits.get())) {
+                if (bits.compareAndSet(current, Float.floatToIntBits(similarity))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * The HNSW graph of a field in a segment whose documents all have a vector, so that the ordinals of the graph are doc ids.
+     */
+    private static final class SegmentGraph {
+        private final HnswGraph graph;
+        private final RandomAccessVectorValues vectors;
+        private final VectorEncoding encoding;
+        private final VectorSimilarityFunction similarityFunction;
+
+        private SegmentGraph(
+            HnswGraph graph,
+            RandomAccessVectorValues vectors,
+            VectorEncoding encoding,
+            VectorSimilarityFunction similarityFunction
+        ) {
+            this.graph = graph;
+            this.vectors = vectors;
+            this.encoding = encoding;
+            this.similarityFunction = similarityFunction;
+        }
+
+        @Nullable
+        static SegmentGraph of(LeafReader reader, String field) throws IOException {
+            FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo(field);
+            if (fieldInfo == null || fieldInfo.getVectorDimension() == 0 || reader.getVectorValues(field) == null) {
+                return null;
+            }
+            LeafReader unwrapped = FilterLeafReader.unwrap(reader);
+            if (unwrapped instanceof CodecReader == false) {
+                return null;
+            }
+            KnnVectorsReader vectorsReader = ((CodecReader) unwrapped).getVectorReader();
+            if (vectorsReader instanceof PerFieldKnnVectorsFormat.FieldsReader fieldsReader) {
+                vectorsReader = fieldsReader.getFieldReader(field);
+            }
+            if (vectorsReader instanceof Lucene94HnswVectorsReader == false) {
+                return null;
+            }
+            Lucene94HnswVectorsReader hnswReader = (Lucene94HnswVectorsReader) vectorsReader;
+            VectorValues values = hnswReader.getVectorValues(field);
+            if (values instanceof RandomAccessVectorValues == false || values.size() != reader.maxDoc()) {
+                return null;
+            }
+            return new SegmentGraph(
+                hnswReader.getGraph(field),
+                (RandomAccessVectorValues) values,
+                fieldInfo.getVectorEncoding(),
+                fieldInfo.getVectorSimilarityFunction()
+            );
+        }
+
+        TopDocs search(float[] target, int k, Bits acceptOrds, int visitedLimit, MinSimilarity minSimilarity, Runnable checkCancelled)
+            throws IOException {
+            if (vectors.size() == 0) {
+                return NO_RESULTS;
+            }
+            checkCancelled.run();
+            BytesRef byteTarget = encoding == VectorEncoding.BYTE ? VectorUtil.toBytesRef(target) : null;
+            int topK = Math.min(k, vectors.size());
+            SparseFixedBitSet visited = new SparseFixedBitSet(vectors.size());
+            int[] eps = new int[] { graph.entryNode() };
+            int numVisited = 0;
+            NeighborQueue results;
+            for (int level = graph.numLevels() - 1; level >= 1; level--) {
+                results = searchLevel(target, byteTarget, 1, level, eps, null, visitedLimit, null, visited, checkCancelled);
+                numVisited += results.visitedCount();
+                visitedLimit -= results.visitedCount();
+                if (results.incomplete()) {
+                    return new TopDocs(new TotalHits(numVisited, TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO), new ScoreDoc[0]);
+                }
+                eps[0] = results.pop();
+            }
+            results = searchLevel(target, byteTarget, topK, 0, eps, acceptOrds, visitedLimit, minSimilarity, visited, checkCancelled);
+            numVisited += results.visitedCount();
+
+            ScoreDoc[] scoreDocs = new ScoreDoc[results.size()];
+            for (int i = scoreDocs.length - 1; i >= 0; i--) {
+                float score = results.topScore();
+                scoreDocs[i] = new ScoreDoc(results.pop(), score);
+            }
+            TotalHits.Relation relation = results.incomplete()
+                ? TotalHits.Relation.GREATER_THAN_OR_EQUAL_TO
+                : TotalHits.Relation.EQUAL_TO;
+            return new TopDocs(new TotalHits(numVisited, relation), scoreDocs);
+        }
+
+        /**
+         * Searches a level of the graph greedily, like Lucene's HnswGraphSearcher, except that the minimum similarity of the
+         * candidates is the highest of the similarity of the k-th nearest neighbor of this segment and of the shared one.
+         */
+        private NeighborQueue searchLevel(
+            float[] target,
+            BytesRef byteTarget,
+            int topK,
+            int level,
+            int[] eps,
+            Bits acceptOrds,
+            int visitedLimit,
+            @Nullable MinSimilarity minSimilarity,
+            SparseFixedBitSet visited,
+            Runnable checkCancelled
+        ) throws IOException {
+            NeighborQueue results = new NeighborQueue(topK, false);
+            NeighborQueue candidates = new NeighborQueue(topK, true);
+            visited.clear(0, visited.length());
+            int numVisited = 0;
+            for (int ep : eps) {
+                if (visited.getAndSet(ep) == false) {
+                    if (numVisited >= visitedLimit) {
+                        results.markIncomplete();
+                        break;
+                    }
+                    float score = similarity(target, byteTarget, ep);
+                    numVisited++;
+                    candidates.add(ep, score);
+                    if (acceptOrds == null || acceptOrds.get(ep)) {
+                        results.add(ep, score);
+                    }
+                }
+            }
+
+            float minAcceptedSimilarity = Float.NEGATIVE_INFINITY;
+            if (results.size() >= topK) {
+                minAcceptedSimilarity = publish(results.topScore(), minSimilarity);
+            }
+            while (candidates.size() > 0 && results.incomplete() == false) {
+                if (minSimilarity != null) {
+                    // other segments may have found better neighbors in the meantime
+                    minAcceptedSimilarity = Math.max(minAcceptedSimilarity, minSimilarity.get());
+                }
+                if (candidates.topScore() < minAcceptedSimilarity) {
+                    break;
+                }
+                int topCandidateNode = candidates.pop();
+                graph.seek(level, topCandidateNode);
+                int friendOrd;
+                while ((friendOrd = graph.nextNeighbor()) != NO_MORE_DOCS) {
+                    if (visited.getAndSet(friendOrd)) {
+                        continue;
+                    }
+                    if (numVisited >= visitedLimit) {
+                        results.markIncomplete();
+                        break;
+                    }
+                    if ((numVisited & CANCELLATION_CHECK_INTERVAL_MASK) == 0) {
+                        checkCancelled.run();
+                    }
+                    float friendSimilarity = similarity(target, byteTarget, friendOrd);
+                    numVisited++;
+                    if (friendSimilarity >= minAcceptedSimilarity) {
+                        candidates.add(friendOrd, friendSimilarity);
+                        if (acceptOrds == null || acceptOrds.get(friendOrd)) {
+                            if (results.insertWithOverflow(friendOrd, friendSimilarity) && results.size() >= topK) {
+                                minAcceptedSimilarity = Math.max(minAcceptedSimilarity, publish(results.topScore(), minSimilarity));
+                            }
+                        }
+                    }
+                }
+            }
+            while (results.size() > topK) {
+                results.pop();
+            }
+            results.setVisitedCount(numVisited);
+            return results;
+        }
+
+        private static float publish(float similarity, @Nullable MinSimilarity minSimilarity) {
+            if (minSimilarity == null) {
+                return similarity;
+            }
+            minSimilarity.accumulate(similarity);
+            return minSimilarity.get();
+        }
+
+        private float similarity(float[] target, BytesRef byteTarget, int ord) throws IOException {
+            if (byteTarget != null) {
+                return similarityFunction.compare(byteTarget, vectors.binaryValue(ord));
+            }
+            return similarityFunction.compare(target, vectors.vectorValue(ord));
+        }
+    }
+}
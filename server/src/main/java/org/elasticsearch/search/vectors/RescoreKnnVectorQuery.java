@@ -0,0 +1,133 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.vectors;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.index.mapper.vectors.VectorEncoderDecoder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Computes the scores of the nearest neighbors that are found by a kNN query over quantized vectors again, with the exact
+ * similarity between the query vector and the original float vectors that are kept in binary doc values.
+ * <p>
+ * The neighbors are searched and rescored when the weight is created, since that is where the searcher of the request is
+ * available, and are then matched by a {@link KnnScoreDocQuery}.
+ */
+public final class RescoreKnnVectorQuery extends Query {
+    private final Query knnQuery;
+    private final String rawVectorField;
+    private final float[] queryVector;
+    private final VectorSimilarityFunction similarityFunction;
+
+    public RescoreKnnVectorQuery(Query knnQuery, String rawVectorField, float[] queryVector, VectorSimilarityFunction similarityFunction) {
+        this.knnQuery = knnQuery;
+        this.rawVectorField = rawVectorField;
+        this.queryVector = queryVector;
+        this.similarityFunction = similarityFunction;
+    }
+
+    @Override
+    public Query rewrite(IndexReader reader) throws IOException {
+        // rewriting the kNN query searches the nearest neighbors, and keeps the number of vectors it compared visible
+        Query rewritten = knnQuery.rewrite(reader);
+        if (rewritten != knnQuery) {
+            return new RescoreKnnVectorQuery(rewritten, rawVectorField, queryVector, similarityFunction);
+        }
+        return super.rewrite(reader);
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        return searcher.rewrite(rescore(searcher)).createWeight(searcher, scoreMode, boost);
+    }
+
+    private Query rescore(IndexSearcher searcher) throws IOException {
+        // the weight of the kNN query is created directly so that the query cache doesn't keep the matching docs
+        Weight weight = searcher.rewrite(knnQuery).createWeight(searcher, ScoreMode.COMPLETE_NO_SCORES, 1f);
+
+        IndexReader reader = searcher.getIndexReader();
+        List<LeafReaderContext> leaves = reader.leaves();
+        int[] segmentStarts = new int[leaves.size() + 1];
+        int[] docs = new int[0];
+        float[] scores = new float[0];
+        int numDocs = 0;
+        float[] vector = new float[queryVector.length];
+        for (LeafReaderContext context : leaves) {
+            segmentStarts[context.ord] = numDocs;
+            Scorer scorer = weight.scorer(context);
+            if (scorer == null) {
+                continue;
+            }
+            BinaryDocValues rawVectors = DocValues.getBinary(context.reader(), rawVectorField);
+            DocIdSetIterator iterator = scorer.iterator();
+            for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+                if (rawVectors.advanceExact(doc) == false) {
+                    throw new IllegalStateException("document [" + doc + "] has no float vector in field [" + rawVectorField + "]");
+                }
+                VectorEncoderDecoder.decodeDenseVector(rawVectors.binaryValue(), vector);
+                docs = ArrayUtil.grow(docs, numDocs + 1);
+                scores = ArrayUtil.grow(scores, numDocs + 1);
+                docs[numDocs] = context.docBase + doc;
+                scores[numDocs] = similarityFunction.compare(queryVector, vector);
+                numDocs++;
+            }
+        }
+        segmentStarts[leaves.size()] = numDocs;
+        return new KnnScoreDocQuery(
+            Arrays.copyOf(docs, numDocs),
+            Arrays.copyOf(scores, numDocs),
+            segmentStarts,
+            reader.getContext().id()
+        );
+    }
+
+    @Override
+    public String toString(String field) {
+        return "rescore_exact(" + knnQuery.toString(field) + ")";
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        knnQuery.visit(visitor.getSubVisitor(BooleanClause.Occur.MUST, this));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (sameClassAs(obj) == false) {
+            return false;
+        }
+        RescoreKnnVectorQuery other = (RescoreKnnVectorQuery) obj;
+        return knnQuery.equals(other.knnQuery)
+            && rawVectorField.equals(other.rawVectorField)
+            && Arrays.equals(queryVector, other.queryVector)
+            && similarityFunction == other.similarityFunction;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(classHash(), knnQuery, rawVectorField, Arrays.hashCode(queryVector), similarityFunction);
+    }
+}
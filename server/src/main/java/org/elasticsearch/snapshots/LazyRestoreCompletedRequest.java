@@ -0,0 +1,82 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.snapshots;
+
+import org.elasticsearch.action.ActionRequestValidationException;
+import org.elasticsearch.action.support.master.MasterNodeRequest;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Internal request that is sent to the master once the primary of a lazily restored shard copied all files of the snapshot it was
+ * restored from, see {@link org.elasticsearch.index.store.LazyRestoreDirectory}.
+ */
+public class LazyRestoreCompletedRequest extends MasterNodeRequest<LazyRestoreCompletedRequest> {
+    private final ShardId shardId;
+    private final String snapshotUuid;
+
+    public LazyRestoreCompletedRequest(StreamInput in) throws IOException {
+        super(in);
+        shardId = new ShardId(in);
+        snapshotUuid = in.readString();
+    }
+
+    public LazyRestoreCompletedRequest(ShardId shardId, String snapshotUuid) {
+        this.shardId = shardId;
+        this.snapshotUuid = snapshotUuid;
+        // the snapshot cannot be deleted until all shards are reported, so keep trying
+        this.masterNodeTimeout = TimeValue.timeValueNanos(Long.MAX_VALUE);
+    }
+
+    @Override
+    public ActionRequestValidationException validate() {
+        return null;
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        shardId.writeTo(out);
+        out.writeString(snapshotUuid);
+    }
+
+    public ShardId shardId() {
+        return shardId;
+    }
+
+    public String snapshotUuid() {
+        return snapshotUuid;
+    }
+
+    @Override
+    public String toString() {
+        return "shardId [" + shardId + "], snapshot uuid [" + snapshotUuid + "]";
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final LazyRestoreCompletedRequest that = (LazyRestoreCompletedRequest) o;
+        return shardId.equals(that.shardId) && snapshotUuid.equals(that.snapshotUuid);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(shardId, snapshotUuid);
+    }
+}
@@ -69,6 +69,7 @@ import org.elasticsearch.index.mapper.Mapping;
 import org.elasticsearch.index.shard.IndexLongFieldRange;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.LazyRestoreDirectory;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.indices.ShardLimitValidator;
 import org.elasticsearch.indices.SystemDataStreamDescriptor;
@@ -1171,7 +1172,19 @@ public class RestoreService implements ClusterStateApplier {
                 simpleMatchPatterns.add(ignoredSetting);
             }
         }
+        if ("snapshot".equals(INDEX_STORE_TYPE_SETTING.get(settings))
+            && LazyRestoreDirectory.INDEX_LAZY_RESTORE_SETTING.get(normalizedChangeSettings)) {
+            throw new SnapshotRestoreException(
+                snapshot,
+                "cannot restore searchable snapshot index " + indexMetadata.getIndex() + " lazily, its files are always read lazily"
+            );
+        }
         Settings.Builder settingsBuilder = Settings.builder().put(settings.filter(k -> {
+            if (k.equals(LazyRestoreDirectory.INDEX_LAZY_RESTORE_SETTING.getKey())
+                || k.startsWith(LazyRestoreDirectory.INDEX_LAZY_RESTORE_SOURCE_PREFIX)) {
+                // an index restored lazily is not restored lazily again unless requested, and does not refer to its own source
+                return false;
+            }
             if (UNREMOVABLE_SETTINGS.contains(k) == false) {
                 for (String filterKey : keyFilters) {
                     if (k.equals(filterKey)) {
@@ -1186,12 +1199,17 @@ public class RestoreService implements ClusterStateApplier {
             }
             return true;
         })).put(normalizedChangeSettings.filter(k -> {
-            if (UNMODIFIABLE_SETTINGS.contains(k)) {
+            if (UNMODIFIABLE_SETTINGS.contains(k) || k.startsWith(LazyRestoreDirectory.INDEX_LAZY_RESTORE_SOURCE_PREFIX)) {
                 throw new SnapshotRestoreException(snapshot, "cannot modify setting [" + k + "] on restore");
             } else {
                 return true;
             }
         }));
+        if (LazyRestoreDirectory.INDEX_LAZY_RESTORE_SETTING.get(normalizedChangeSettings)) {
+            // blocks the deletion of the snapshot until all shards copied their files, see SnapshotsService#deleteSnapshots
+            settingsBuilder.put(LazyRestoreDirectory.INDEX_LAZY_RESTORE_REPOSITORY_NAME_SETTING.getKey(), snapshot.getRepository())
+                .put(LazyRestoreDirectory.INDEX_LAZY_RESTORE_SNAPSHOT_UUID_SETTING.getKey(), snapshot.getSnapshotId().getUUID());
+        }
         settingsBuilder.remove(MetadataIndexStateService.VERIFIED_BEFORE_CLOSE_SETTING.getKey());
         return builder.settings(settingsBuilder).build();
     }
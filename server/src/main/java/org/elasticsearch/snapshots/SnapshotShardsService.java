@@ -23,11 +23,13 @@ import org.elasticsearch.cluster.SnapshotsInProgress.ShardSnapshotStatus;
 import org.elasticsearch.cluster.SnapshotsInProgress.ShardState;
 import org.elasticsearch.cluster.SnapshotsInProgress.State;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.IOUtils;
 import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.seqno.SequenceNumbers;
 import org.elasticsearch.index.shard.IndexEventListener;
@@ -37,6 +39,7 @@ import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.snapshots.IndexShardSnapshotFailedException;
 import org.elasticsearch.index.snapshots.IndexShardSnapshotStatus;
 import org.elasticsearch.index.snapshots.IndexShardSnapshotStatus.Stage;
+import org.elasticsearch.index.store.LazyRestoreDirectory;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.repositories.IndexId;
 import org.elasticsearch.repositories.RepositoriesService;
@@ -82,6 +85,9 @@ public class SnapshotShardsService extends AbstractLifecycleComponent implements
     // A map of snapshots to the shardIds that we already reported to the master as failed
     private final ResultDeduplicator<UpdateIndexShardSnapshotStatusRequest, Void> remoteFailedRequestDeduplicator;
 
+    // lazily restored shards that are being reported to the master as completed
+    private final ResultDeduplicator<LazyRestoreCompletedRequest, Void> lazyRestoreCompletedRequestDeduplicator;
+
     public SnapshotShardsService(
         Settings settings,
         ClusterService clusterService,
@@ -95,6 +101,7 @@ public class SnapshotShardsService extends AbstractLifecycleComponent implements
         this.clusterService = clusterService;
         this.threadPool = transportService.getThreadPool();
         this.remoteFailedRequestDeduplicator = new ResultDeduplicator<>(threadPool.getThreadContext());
+        this.lazyRestoreCompletedRequestDeduplicator = new ResultDeduplicator<>(threadPool.getThreadContext());
         if (DiscoveryNode.canContainData(settings)) {
             // this is only useful on the nodes that can hold data
             clusterService.addListener(this);
@@ -132,17 +139,40 @@ public class SnapshotShardsService extends AbstractLifecycleComponent implements
                 // Clear request deduplicator since we need to send all requests that were potentially not handled by the previous
                 // master again
                 remoteFailedRequestDeduplicator.clear();
+                lazyRestoreCompletedRequestDeduplicator.clear();
                 for (List<SnapshotsInProgress.Entry> snapshots : currentSnapshots.entriesByRepo()) {
                     syncShardStatsOnNewMaster(snapshots);
                 }
             }
 
+            if (event.metadataChanged() || event.routingTableChanged()) {
+                // covers primaries that start, or are promoted, with all files of a lazy restore being local already
+                for (IndexService indexService : indicesService) {
+                    final Settings indexSettings = indexService.getIndexSettings().getSettings();
+                    if (LazyRestoreDirectory.INDEX_LAZY_RESTORE_SNAPSHOT_UUID_SETTING.exists(indexSettings)) {
+                        for (IndexShard indexShard : indexService) {
+                            maybeReportLazyRestoreCompleted(indexShard);
+                        }
+                    }
+                }
+            }
+
         } catch (Exception e) {
             assert false : new AssertionError(e);
             logger.warn("failed to update snapshot state", e);
         }
     }
 
+    @Override
+    public void afterIndexShardStarted(IndexShard indexShard) {
+        final LazyRestoreDirectory directory = LazyRestoreDirectory.unwrap(indexShard.store().directory());
+        if (directory != null
+            && directory.hasRemoteFiles()
+            && LazyRestoreDirectory.INDEX_LAZY_RESTORE_SNAPSHOT_UUID_SETTING.exists(indexShard.indexSettings().getSettings())) {
+            directory.addCompletionListener(() -> maybeReportLazyRestoreCompleted(indexShard));
+        }
+    }
+
     @Override
     public void beforeIndexShardClosed(ShardId shardId, @Nullable IndexShard indexShard, Settings indexSettings) {
         // abort any snapshots occurring on the soon-to-be closed shard
@@ -489,6 +519,48 @@ public class SnapshotShardsService extends AbstractLifecycleComponent implements
         );
     }
 
+    /**
+     * Reports to the master that the given shard no longer reads files from the snapshot it was lazily restored from, if it is a started
+     * primary whose files are all local, so that the snapshot can be deleted once all shards of the index are reported.
+     */
+    private void maybeReportLazyRestoreCompleted(IndexShard indexShard) {
+        final Settings indexSettings = indexShard.indexSettings().getSettings();
+        final String snapshotUuid = LazyRestoreDirectory.INDEX_LAZY_RESTORE_SNAPSHOT_UUID_SETTING.get(indexSettings);
+        final ShardId shardId = indexShard.shardId();
+        final ShardRouting shardRouting = indexShard.routingEntry();
+        if (snapshotUuid.isEmpty()
+            || shardRouting == null
+            || shardRouting.primary() == false
+            || shardRouting.started() == false
+            || LazyRestoreDirectory.INDEX_LAZY_RESTORE_COMPLETED_SHARDS_SETTING.get(indexSettings).contains(shardId.id())) {
+            return;
+        }
+        final LazyRestoreDirectory directory = LazyRestoreDirectory.unwrap(indexShard.store().directory());
+        if (directory != null && directory.hasRemoteFiles()) {
+            return;
+        }
+        lazyRestoreCompletedRequestDeduplicator.executeOnce(
+            new LazyRestoreCompletedRequest(shardId, snapshotUuid),
+            new ActionListener<>() {
+                @Override
+                public void onResponse(Void aVoid) {
+                    logger.debug("{} reported the completion of the lazy restore from [{}]", shardId, snapshotUuid);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    logger.warn(() -> format("%s failed to report the completion of the lazy restore from [%s]", shardId, snapshotUuid), e);
+                }
+            },
+            (req, reqListener) -> transportService.sendRequest(
+                transportService.getLocalNode(),
+                SnapshotsService.LAZY_RESTORE_COMPLETED_ACTION_NAME,
+                req,
+                new ActionListenerResponseHandler<>(reqListener.map(res -> null), in -> ActionResponse.Empty.INSTANCE)
+            )
+        );
+    }
+
     /** Updates the shard snapshot status by sending a {@link UpdateIndexShardSnapshotStatusRequest} to the master node */
     private void sendSnapshotShardUpdate(final Snapshot snapshot, final ShardId shardId, final ShardSnapshotStatus status) {
         remoteFailedRequestDeduplicator.executeOnce(
@@ -72,6 +72,7 @@ import org.elasticsearch.core.SuppressForbidden;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.LazyRestoreDirectory;
 import org.elasticsearch.indices.SystemDataStreamDescriptor;
 import org.elasticsearch.indices.SystemIndices;
 import org.elasticsearch.repositories.FinalizeSnapshotContext;
@@ -105,6 +106,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
@@ -143,6 +145,8 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
 
     public static final String UPDATE_SNAPSHOT_STATUS_ACTION_NAME = "internal:cluster/snapshot/update_snapshot_status";
 
+    public static final String LAZY_RESTORE_COMPLETED_ACTION_NAME = "internal:cluster/snapshot/lazy_restore_completed";
+
     public static final String NO_FEATURE_STATES_VALUE = "none";
 
     private final ClusterService clusterService;
@@ -171,6 +175,8 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
 
     private final UpdateSnapshotStatusAction updateSnapshotStatusHandler;
 
+    private final LazyRestoreCompletedAction lazyRestoreCompletedHandler;
+
     private final TransportService transportService;
 
     private final OngoingRepositoryOperations repositoryOperations = new OngoingRepositoryOperations();
@@ -215,6 +221,13 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
             actionFilters,
             indexNameExpressionResolver
         );
+        this.lazyRestoreCompletedHandler = new LazyRestoreCompletedAction(
+            transportService,
+            clusterService,
+            threadPool,
+            actionFilters,
+            indexNameExpressionResolver
+        );
         if (DiscoveryNode.isMasterNode(settings)) {
             // addLowPriorityApplier to make sure that Repository will be created before snapshot
             clusterService.addLowPriorityApplier(this);
@@ -563,6 +576,69 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
         }
     }
 
+    /**
+     * Lazily restored indices read the files of their snapshot until all their shards copied them, see {@link LazyRestoreDirectory}.
+     */
+    static void ensureNotUsedByLazyRestores(Metadata metadata, String repositoryName, Collection<SnapshotId> snapshotIds) {
+        for (IndexMetadata indexMetadata : metadata) {
+            final Settings indexSettings = indexMetadata.getSettings();
+            if (repositoryName.equals(LazyRestoreDirectory.INDEX_LAZY_RESTORE_REPOSITORY_NAME_SETTING.get(indexSettings)) == false) {
+                continue;
+            }
+            final String snapshotUuid = LazyRestoreDirectory.INDEX_LAZY_RESTORE_SNAPSHOT_UUID_SETTING.get(indexSettings);
+            for (SnapshotId snapshotId : snapshotIds) {
+                if (snapshotId.getUUID().equals(snapshotUuid)) {
+                    throw new ConcurrentSnapshotExecutionException(
+                        new Snapshot(repositoryName, snapshotId),
+                        "cannot delete snapshot while the lazily restored index "
+                            + indexMetadata.getIndex()
+                            + " still reads files from it"
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Records that the primary of the given lazily restored shard copied all files of the snapshot with the given uuid, and removes the
+     * reference to the snapshot from the index once all its shards did.
+     */
+    static ClusterState markLazyRestoreCompleted(ClusterState currentState, ShardId shardId, String snapshotUuid) {
+        final IndexMetadata indexMetadata = currentState.metadata().index(shardId.getIndex());
+        if (indexMetadata == null) {
+            return currentState;
+        }
+        if (snapshotUuid.equals(LazyRestoreDirectory.INDEX_LAZY_RESTORE_SNAPSHOT_UUID_SETTING.get(indexMetadata.getSettings())) == false) {
+            return currentState;
+        }
+        final Set<Integer> completedShards = new TreeSet<>(
+            LazyRestoreDirectory.INDEX_LAZY_RESTORE_COMPLETED_SHARDS_SETTING.get(indexMetadata.getSettings())
+        );
+        if (completedShards.add(shardId.id()) == false) {
+            return currentState;
+        }
+        final Settings.Builder settings = Settings.builder().put(indexMetadata.getSettings());
+        if (completedShards.size() == indexMetadata.getNumberOfShards()) {
+            logger.info("{} all shards copied the files of the lazy restore from snapshot [{}]", indexMetadata.getIndex(), snapshotUuid);
+            settings.remove(LazyRestoreDirectory.INDEX_LAZY_RESTORE_REPOSITORY_NAME_SETTING.getKey());
+            settings.remove(LazyRestoreDirectory.INDEX_LAZY_RESTORE_SNAPSHOT_UUID_SETTING.getKey());
+            settings.remove(LazyRestoreDirectory.INDEX_LAZY_RESTORE_COMPLETED_SHARDS_SETTING.getKey());
+        } else {
+            settings.putList(
+                LazyRestoreDirectory.INDEX_LAZY_RESTORE_COMPLETED_SHARDS_SETTING.getKey(),
+                completedShards.stream().map(String::valueOf).toList()
+            );
+        }
+        return ClusterState.builder(currentState)
+            .metadata(
+                Metadata.builder(currentState.metadata())
+                    .put(
+                        IndexMetadata.builder(indexMetadata).settings(settings).settingsVersion(1 + indexMetadata.getSettingsVersion())
+                    )
+            )
+            .build();
+    }
+
     private static void ensureSnapshotNameAvailableInRepo(RepositoryData repositoryData, String snapshotName, Repository repository) {
         // check if the snapshot name already exists in the repository
         if (repositoryData.getSnapshotIds().stream().anyMatch(s -> s.getName().equals(snapshotName))) {
@@ -2157,6 +2233,7 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
                         );
                     }
                 }
+                ensureNotUsedByLazyRestores(currentState.metadata(), repositoryName, snapshotIds);
                 // Snapshot ids that will have to be physically deleted from the repository
                 final Set<SnapshotId> snapshotIdsRequiringCleanup = new HashSet<>(snapshotIds);
                 final SnapshotsInProgress updatedSnapshots = snapshotsInProgress.withUpdatedEntriesForRepo(
@@ -3000,6 +3077,8 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
     protected void doStart() {
         assert this.updateSnapshotStatusHandler != null;
         assert transportService.getRequestHandler(UPDATE_SNAPSHOT_STATUS_ACTION_NAME) != null;
+        assert this.lazyRestoreCompletedHandler != null;
+        assert transportService.getRequestHandler(LAZY_RESTORE_COMPLETED_ACTION_NAME) != null;
     }
 
     @Override
@@ -3533,6 +3612,59 @@ public class SnapshotsService extends AbstractLifecycleComponent implements Clus
         }
     }
 
+    private class LazyRestoreCompletedAction extends TransportMasterNodeAction<LazyRestoreCompletedRequest, ActionResponse.Empty> {
+        LazyRestoreCompletedAction(
+            TransportService transportService,
+            ClusterService clusterService,
+            ThreadPool threadPool,
+            ActionFilters actionFilters,
+            IndexNameExpressionResolver indexNameExpressionResolver
+        ) {
+            super(
+                LAZY_RESTORE_COMPLETED_ACTION_NAME,
+                false,
+                transportService,
+                clusterService,
+                threadPool,
+                actionFilters,
+                LazyRestoreCompletedRequest::new,
+                indexNameExpressionResolver,
+                in -> ActionResponse.Empty.INSTANCE,
+                ThreadPool.Names.SAME
+            );
+        }
+
+        @Override
+        protected void masterOperation(
+            Task task,
+            LazyRestoreCompletedRequest request,
+            ClusterState state,
+            ActionListener<ActionResponse.Empty> listener
+        ) {
+            submitUnbatchedTask("lazy restore of " + request.shardId() + " completed", new ClusterStateUpdateTask() {
+                @Override
+                public ClusterState execute(ClusterState currentState) {
+                    return markLazyRestoreCompleted(currentState, request.shardId(), request.snapshotUuid());
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    listener.onFailure(e);
+                }
+
+                @Override
+                public void clusterStateProcessed(ClusterState oldState, ClusterState newState) {
+                    listener.onResponse(ActionResponse.Empty.INSTANCE);
+                }
+            });
+        }
+
+        @Override
+        protected ClusterBlockException checkBlock(LazyRestoreCompletedRequest request, ClusterState state) {
+            return null;
+        }
+    }
+
     /**
      * Cluster state update task that removes all {@link SnapshotsInProgress.Entry} and {@link SnapshotDeletionsInProgress.Entry} for a
      * given repository from the cluster state and afterwards fails all relevant listeners in {@link #snapshotCompletionListeners} and
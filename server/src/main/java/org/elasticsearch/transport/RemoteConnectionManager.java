@@ -240,6 +240,11 @@ public class RemoteConnectionManager implements ConnectionManager {
             return connection.getVersion();
         }
 
+        @Override
+        public boolean isZstdSupported() {
+            return connection.isZstdSupported();
+        }
+
         @Override
         public Object getCacheKey() {
             return connection.getCacheKey();
@@ -312,6 +317,11 @@ public class RemoteConnectionManager implements ConnectionManager {
             return connection.getVersion();
         }
 
+        @Override
+        public boolean isZstdSupported() {
+            return connection.isZstdSupported();
+        }
+
         @Override
         public Object getCacheKey() {
             return connection.getCacheKey();
@@ -16,6 +16,8 @@ public class StatsTracker {
 
     private final LongAdder bytesRead = new LongAdder();
     private final LongAdder messagesReceived = new LongAdder();
+    private final LongAdder bytesCopied = new LongAdder();
+    private final LongAdder bytesReferenced = new LongAdder();
     private final MeanMetric writeBytesMetric = new MeanMetric();
 
     public void markBytesRead(long bytesReceived) {
@@ -26,6 +28,20 @@ public class StatsTracker {
         messagesReceived.increment();
     }
 
+    /**
+     * Marks bytes that were copied into a new buffer after being read from the network, before reaching the inbound pipeline.
+     */
+    public void markBytesCopied(long bytesCopied) {
+        this.bytesCopied.add(bytesCopied);
+    }
+
+    /**
+     * Marks bytes that reached the inbound pipeline in the buffer they were read into from the network.
+     */
+    public void markBytesReferenced(long bytesReferenced) {
+        this.bytesReferenced.add(bytesReferenced);
+    }
+
     public void markBytesWritten(long bytesWritten) {
         writeBytesMetric.inc(bytesWritten);
     }
@@ -38,6 +54,14 @@ public class StatsTracker {
         return messagesReceived.sum();
     }
 
+    public long getBytesCopied() {
+        return bytesCopied.sum();
+    }
+
+    public long getBytesReferenced() {
+        return bytesReferenced.sum();
+    }
+
     public long getBytesWritten() {
         return writeBytesMetric.sum();
     }
@@ -192,7 +192,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
                 channel,
                 requestId,
                 TransportHandshaker.HANDSHAKE_ACTION_NAME,
-                new TransportHandshaker.HandshakeRequest(version),
+                new TransportHandshaker.HandshakeRequest(version, true),
                 TransportRequestOptions.EMPTY,
                 v,
                 null,
@@ -254,11 +254,12 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         private final List<TcpChannel> channels;
         private final DiscoveryNode node;
         private final Version version;
+        private final boolean zstdSupported;
         private final Compression.Enabled compress;
         private final Compression.Scheme compressionScheme;
         private final AtomicBoolean isClosing = new AtomicBoolean(false);
 
-        NodeChannels(DiscoveryNode node, List<TcpChannel> channels, ConnectionProfile connectionProfile, Version handshakeVersion) {
+        NodeChannels(DiscoveryNode node, List<TcpChannel> channels, ConnectionProfile connectionProfile, HandshakeResult handshakeResult) {
             this.node = node;
             this.channels = Collections.unmodifiableList(channels);
             assert channels.size() == connectionProfile.getNumConnections()
@@ -268,9 +269,15 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
                 for (TransportRequestOptions.Type type : handle.getTypes())
                     typeMapping.put(type, handle);
             }
-            version = handshakeVersion;
+            version = handshakeResult.version();
+            zstdSupported = handshakeResult.zstdSupported();
             compress = connectionProfile.getCompressionEnabled();
-            compressionScheme = connectionProfile.getCompressionScheme();
+            if (connectionProfile.getCompressionScheme() == Compression.Scheme.ZSTD && handshakeResult.zstdSupported() == false) {
+                // the remote node cannot read zstd compressed messages, fall back to the scheme that it supports
+                compressionScheme = Compression.Scheme.LZ4;
+            } else {
+                compressionScheme = connectionProfile.getCompressionScheme();
+            }
         }
 
         @Override
@@ -278,6 +285,11 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             return version;
         }
 
+        @Override
+        public boolean isZstdSupported() {
+            return zstdSupported;
+        }
+
         public List<TcpChannel> getChannels() {
             return channels;
         }
@@ -933,11 +945,24 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         }
     }
 
-    public void executeHandshake(DiscoveryNode node, TcpChannel channel, ConnectionProfile profile, ActionListener<Version> listener) {
+    public void executeHandshake(
+        DiscoveryNode node,
+        TcpChannel channel,
+        ConnectionProfile profile,
+        ActionListener<HandshakeResult> listener
+    ) {
         long requestId = responseHandlers.newRequestId();
         handshaker.sendHandshake(requestId, node, channel, profile.getHandshakeTimeout(), listener);
     }
 
+    /**
+     * The outcome of a successful handshake with a remote node.
+     *
+     * @param version       the version of the remote node
+     * @param zstdSupported whether the remote node can read {@link Compression.Scheme#ZSTD} compressed messages
+     */
+    public record HandshakeResult(Version version, boolean zstdSupported) {}
+
     final TransportKeepAlive getKeepAlive() {
         return keepAlive;
     }
@@ -976,6 +1001,8 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
         final long messagesSent = statsTracker.getMessagesSent();
         final long messagesReceived = statsTracker.getMessagesReceived();
         final long bytesRead = statsTracker.getBytesRead();
+        final long bytesCopied = statsTracker.getBytesCopied();
+        final long bytesReferenced = statsTracker.getBytesReferenced();
         return new TransportStats(
             acceptedChannels.size(),
             outboundConnectionCount.get(),
@@ -983,6 +1010,8 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             bytesRead,
             messagesSent,
             bytesWritten,
+            bytesCopied,
+            bytesReferenced,
             networkService.getHandlingTimeTracker().getHistogram(),
             outboundHandlingTimeTracker.getHistogram()
         );
@@ -1087,10 +1116,10 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             if (countDown.countDown()) {
                 final TcpChannel handshakeChannel = channels.get(0);
                 try {
-                    executeHandshake(node, handshakeChannel, connectionProfile, ActionListener.wrap(responseVersion -> {
+                    executeHandshake(node, handshakeChannel, connectionProfile, ActionListener.wrap(handshakeResult -> {
                         final long connectionId = outboundConnectionCount.incrementAndGet();
                         logger.debug("opened transport connection [{}] to [{}] using channels [{}]", connectionId, node, channels);
-                        NodeChannels nodeChannels = new NodeChannels(node, channels, connectionProfile, responseVersion);
+                        NodeChannels nodeChannels = new NodeChannels(node, channels, connectionProfile, handshakeResult);
                         long relativeMillisTime = threadPool.relativeTimeInMillis();
                         nodeChannels.channels.forEach(ch -> {
                             // Mark the channel init time
@@ -124,6 +124,14 @@ public interface Transport extends LifecycleComponent {
             return getNode().getVersion();
         }
 
+        /**
+         * Returns whether the node this connection is associated with can read {@link Compression.Scheme#ZSTD} compressed messages, as
+         * negotiated in the transport handshake. Delegating subclasses must delegate method call to the original connection.
+         */
+        default boolean isZstdSupported() {
+            return false;
+        }
+
         /**
          * Returns a key that this connection can be cached on. Delegating subclasses must delegate method call to
          * the original connection.
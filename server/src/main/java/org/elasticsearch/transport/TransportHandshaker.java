@@ -28,6 +28,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
 /**
  * Sends and receives transport-level connection handshakes. This class will send the initial handshake,
  * manage state/timeouts while the handshake is in transit, and handle the eventual response.
+ *
+ * Besides the version, the handshake negotiates whether both nodes can read {@link Compression.Scheme#ZSTD} compressed messages. The
+ * request advertises it after the version in its nested message, which older nodes skip, and the response only carries it if the request
+ * did, since older nodes expect the version alone.
  */
 final class TransportHandshaker {
 
@@ -52,7 +56,13 @@ final class TransportHandshaker {
         this.ignoreDeserializationErrors = ignoreDeserializationErrors;
     }
 
-    void sendHandshake(long requestId, DiscoveryNode node, TcpChannel channel, TimeValue timeout, ActionListener<Version> listener) {
+    void sendHandshake(
+        long requestId,
+        DiscoveryNode node,
+        TcpChannel channel,
+        TimeValue timeout,
+        ActionListener<TcpTransport.HandshakeResult> listener
+    ) {
         numHandshakes.inc();
         final HandshakeResponseHandler handler = new HandshakeResponseHandler(requestId, version, listener);
         pendingHandshakes.put(requestId, handler);
@@ -84,9 +94,10 @@ final class TransportHandshaker {
     }
 
     void handleHandshake(TransportChannel channel, long requestId, StreamInput stream) throws IOException {
+        final HandshakeRequest handshakeRequest;
         try {
             // Must read the handshake request to exhaust the stream
-            new HandshakeRequest(stream);
+            handshakeRequest = new HandshakeRequest(stream);
         } catch (Exception e) {
             assert ignoreDeserializationErrors : e;
             throw e;
@@ -105,7 +116,7 @@ final class TransportHandshaker {
             assert ignoreDeserializationErrors : exception;
             throw exception;
         }
-        channel.sendResponse(new HandshakeResponse(this.version));
+        channel.sendResponse(new HandshakeResponse(this.version, handshakeRequest.zstdSupported));
     }
 
     TransportResponseHandler<HandshakeResponse> removeHandlerForHandshake(long requestId) {
@@ -124,10 +135,10 @@ final class TransportHandshaker {
 
         private final long requestId;
         private final Version currentVersion;
-        private final ActionListener<Version> listener;
+        private final ActionListener<TcpTransport.HandshakeResult> listener;
         private final AtomicBoolean isDone = new AtomicBoolean(false);
 
-        private HandshakeResponseHandler(long requestId, Version currentVersion, ActionListener<Version> listener) {
+        private HandshakeResponseHandler(long requestId, Version currentVersion, ActionListener<TcpTransport.HandshakeResult> listener) {
             this.requestId = requestId;
             this.currentVersion = currentVersion;
             this.listener = listener;
@@ -153,7 +164,7 @@ final class TransportHandshaker {
                         )
                     );
                 } else {
-                    listener.onResponse(responseVersion);
+                    listener.onResponse(new TcpTransport.HandshakeResult(responseVersion, response.zstdSupported));
                 }
             }
         }
@@ -175,9 +186,11 @@ final class TransportHandshaker {
     static final class HandshakeRequest extends TransportRequest {
 
         private final Version version;
+        private final boolean zstdSupported;
 
-        HandshakeRequest(Version version) {
+        HandshakeRequest(Version version, boolean zstdSupported) {
             this.version = version;
+            this.zstdSupported = zstdSupported;
         }
 
         HandshakeRequest(StreamInput streamInput) throws IOException {
@@ -190,9 +203,12 @@ final class TransportHandshaker {
             }
             if (remainingMessage == null) {
                 version = null;
+                zstdSupported = false;
             } else {
                 try (StreamInput messageStreamInput = remainingMessage.streamInput()) {
                     this.version = Version.readVersion(messageStreamInput);
+                    // nodes that do not know about zstd compression only send their version
+                    this.zstdSupported = messageStreamInput.available() > 0 && messageStreamInput.readBoolean();
                 }
             }
         }
@@ -201,8 +217,9 @@ final class TransportHandshaker {
         public void writeTo(StreamOutput streamOutput) throws IOException {
             super.writeTo(streamOutput);
             assert version != null;
-            try (BytesStreamOutput messageStreamOutput = new BytesStreamOutput(4)) {
+            try (BytesStreamOutput messageStreamOutput = new BytesStreamOutput(5)) {
                 Version.writeVersion(version, messageStreamOutput);
+                messageStreamOutput.writeBoolean(zstdSupported);
                 BytesReference reference = messageStreamOutput.bytes();
                 streamOutput.writeBytesReference(reference);
             }
@@ -212,25 +229,39 @@ final class TransportHandshaker {
     static final class HandshakeResponse extends TransportResponse {
 
         private final Version responseVersion;
+        private final boolean zstdSupported;
 
-        HandshakeResponse(Version responseVersion) {
+        /**
+         * @param zstdSupported whether the request advertised zstd support, in which case the response advertises it as well
+         */
+        HandshakeResponse(Version responseVersion, boolean zstdSupported) {
             this.responseVersion = responseVersion;
+            this.zstdSupported = zstdSupported;
         }
 
         private HandshakeResponse(StreamInput in) throws IOException {
             super(in);
             responseVersion = Version.readVersion(in);
+            // nodes that do not know about zstd compression only send their version
+            zstdSupported = in.available() > 0 && in.readBoolean();
         }
 
         @Override
         public void writeTo(StreamOutput out) throws IOException {
             assert responseVersion != null;
             Version.writeVersion(responseVersion, out);
+            if (zstdSupported) {
+                out.writeBoolean(true);
+            }
         }
 
         Version getResponseVersion() {
             return responseVersion;
         }
+
+        boolean isZstdSupported() {
+            return zstdSupported;
+        }
     }
 
     @FunctionalInterface
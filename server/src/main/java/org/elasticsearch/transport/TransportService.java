@@ -134,6 +134,11 @@ public class TransportService extends AbstractLifecycleComponent
             return false;
         }
 
+        @Override
+        public boolean isZstdSupported() {
+            return true;
+        }
+
         @Override
         public void close() {
             assert false : "should not close the local node connection";
@@ -28,6 +28,8 @@ public class TransportStats implements Writeable, ToXContentFragment {
     private final long rxSize;
     private final long txCount;
     private final long txSize;
+    private final long rxCopiedSize;
+    private final long rxReferencedSize;
     private final long[] inboundHandlingTimeBucketFrequencies;
     private final long[] outboundHandlingTimeBucketFrequencies;
 
@@ -38,6 +40,8 @@ public class TransportStats implements Writeable, ToXContentFragment {
         long rxSize,
         long txCount,
         long txSize,
+        long rxCopiedSize,
+        long rxReferencedSize,
         long[] inboundHandlingTimeBucketFrequencies,
         long[] outboundHandlingTimeBucketFrequencies
     ) {
@@ -47,6 +51,8 @@ public class TransportStats implements Writeable, ToXContentFragment {
         this.rxSize = rxSize;
         this.txCount = txCount;
         this.txSize = txSize;
+        this.rxCopiedSize = rxCopiedSize;
+        this.rxReferencedSize = rxReferencedSize;
         this.inboundHandlingTimeBucketFrequencies = inboundHandlingTimeBucketFrequencies;
         this.outboundHandlingTimeBucketFrequencies = outboundHandlingTimeBucketFrequencies;
         assert assertHistogramsConsistent();
@@ -72,6 +78,13 @@ public class TransportStats implements Writeable, ToXContentFragment {
             inboundHandlingTimeBucketFrequencies = new long[0];
             outboundHandlingTimeBucketFrequencies = new long[0];
         }
+        if (in.getVersion().onOrAfter(Version.V_8_7_0)) {
+            rxCopiedSize = in.readVLong();
+            rxReferencedSize = in.readVLong();
+        } else {
+            rxCopiedSize = 0;
+            rxReferencedSize = 0;
+        }
         assert assertHistogramsConsistent();
     }
 
@@ -93,6 +106,10 @@ public class TransportStats implements Writeable, ToXContentFragment {
                 out.writeVLong(handlingTimeBucketFrequency);
             }
         }
+        if (out.getVersion().onOrAfter(Version.V_8_7_0)) {
+            out.writeVLong(rxCopiedSize);
+            out.writeVLong(rxReferencedSize);
+        }
     }
 
     public long serverOpen() {
@@ -127,6 +144,28 @@ public class TransportStats implements Writeable, ToXContentFragment {
         return rxSize();
     }
 
+    /**
+     * @return the size of the received bytes that were copied into another buffer before being handled
+     */
+    public ByteSizeValue rxCopiedSize() {
+        return ByteSizeValue.ofBytes(rxCopiedSize);
+    }
+
+    public ByteSizeValue getRxCopiedSize() {
+        return rxCopiedSize();
+    }
+
+    /**
+     * @return the size of the received bytes that were handled straight from the buffer that they were read into
+     */
+    public ByteSizeValue rxReferencedSize() {
+        return ByteSizeValue.ofBytes(rxReferencedSize);
+    }
+
+    public ByteSizeValue getRxReferencedSize() {
+        return rxReferencedSize();
+    }
+
     public long txCount() {
         return txCount;
     }
@@ -169,6 +208,8 @@ public class TransportStats implements Writeable, ToXContentFragment {
         builder.field(Fields.TOTAL_OUTBOUND_CONNECTIONS, totalOutboundConnections);
         builder.field(Fields.RX_COUNT, rxCount);
         builder.humanReadableField(Fields.RX_SIZE_IN_BYTES, Fields.RX_SIZE, ByteSizeValue.ofBytes(rxSize));
+        builder.humanReadableField(Fields.RX_COPIED_SIZE_IN_BYTES, Fields.RX_COPIED_SIZE, ByteSizeValue.ofBytes(rxCopiedSize));
+        builder.humanReadableField(Fields.RX_REFERENCED_SIZE_IN_BYTES, Fields.RX_REFERENCED_SIZE, ByteSizeValue.ofBytes(rxReferencedSize));
         builder.field(Fields.TX_COUNT, txCount);
         builder.humanReadableField(Fields.TX_SIZE_IN_BYTES, Fields.TX_SIZE, ByteSizeValue.ofBytes(txSize));
         if (inboundHandlingTimeBucketFrequencies.length > 0) {
@@ -207,6 +248,10 @@ public class TransportStats implements Writeable, ToXContentFragment {
         static final String RX_COUNT = "rx_count";
         static final String RX_SIZE = "rx_size";
         static final String RX_SIZE_IN_BYTES = "rx_size_in_bytes";
+        static final String RX_COPIED_SIZE = "rx_copied_size";
+        static final String RX_COPIED_SIZE_IN_BYTES = "rx_copied_size_in_bytes";
+        static final String RX_REFERENCED_SIZE = "rx_referenced_size";
+        static final String RX_REFERENCED_SIZE_IN_BYTES = "rx_referenced_size_in_bytes";
         static final String TX_COUNT = "tx_count";
         static final String TX_SIZE = "tx_size";
         static final String TX_SIZE_IN_BYTES = "tx_size_in_bytes";
@@ -0,0 +1,131 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.transport;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.compress.ZstdFrameDecoder;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.recycler.Recycler;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+
+/**
+ * Decompresses a Zstandard frame, as written by {@link org.elasticsearch.common.compress.ZstdCompressor}, into recycled pages. The frame
+ * is decoded one block at a time, straight from the network buffer if it holds the whole block, and otherwise from a copy of the block.
+ */
+public class ZstdTransportDecompressor implements TransportDecompressor {
+
+    private static final ThreadLocal<byte[]> COMPRESSED = ThreadLocal.withInitial(() -> BytesRef.EMPTY_BYTES);
+
+    private final ZstdFrameDecoder decoder = new ZstdFrameDecoder();
+    private final Recycler<BytesRef> recycler;
+    private final ArrayDeque<Recycler.V<BytesRef>> pages;
+    private int pageOffset = 0;
+    private int pageLength = 0;
+    private boolean hasSkippedESHeader = false;
+
+    public ZstdTransportDecompressor(Recycler<BytesRef> recycler) {
+        this.recycler = recycler;
+        this.pages = new ArrayDeque<>(4);
+    }
+
+    @Override
+    public int decompress(BytesReference bytesReference) throws IOException {
+        int bytesConsumed = 0;
+        if (hasSkippedESHeader == false) {
+            hasSkippedESHeader = true;
+            int esHeaderLength = Compression.Scheme.HEADER_LENGTH;
+            bytesReference = bytesReference.slice(esHeaderLength, bytesReference.length() - esHeaderLength);
+            bytesConsumed += esHeaderLength;
+        }
+
+        while (bytesReference.length() > 0 && decoder.isFinished() == false) {
+            final int consumed = decodeUnit(bytesReference);
+            if (consumed == 0) {
+                break;
+            }
+            bytesConsumed += consumed;
+            bytesReference = bytesReference.slice(consumed, bytesReference.length() - consumed);
+        }
+        return bytesConsumed;
+    }
+
+    private int decodeUnit(BytesReference reference) throws IOException {
+        final BytesRef ref = reference.iterator().next();
+        int consumed = decoder.decode(ref.bytes, ref.offset, ref.length);
+        if (consumed == 0 && reference.length() > ref.length) {
+            // the unit spans several network buffers
+            final int length = Math.min(reference.length(), ZstdFrameDecoder.MAX_UNIT_SIZE);
+            final byte[] compressed = getThreadLocalBuffer(length);
+            try (StreamInput streamInput = reference.streamInput()) {
+                streamInput.readBytes(compressed, 0, length);
+            }
+            consumed = decoder.decode(compressed, 0, length);
+        }
+        while (decoder.available() > 0) {
+            final boolean isNewPage = pageOffset == pageLength;
+            if (isNewPage) {
+                Recycler.V<BytesRef> newPage = recycler.obtain();
+                pageOffset = 0;
+                pageLength = newPage.v().length;
+                assert newPage.v().length > 0;
+                pages.add(newPage);
+            }
+            final BytesRef page = pages.getLast().v();
+            pageOffset += decoder.read(page.bytes, page.offset + pageOffset, pageLength - pageOffset);
+        }
+        return consumed;
+    }
+
+    private static byte[] getThreadLocalBuffer(int requiredSize) {
+        byte[] buffer = COMPRESSED.get();
+        if (requiredSize > buffer.length) {
+            buffer = new byte[requiredSize];
+            COMPRESSED.set(buffer);
+        }
+        return buffer;
+    }
+
+    @Override
+    public ReleasableBytesReference pollDecompressedPage(boolean isEOS) {
+        if (pages.isEmpty()) {
+            return null;
+        } else if (pages.size() == 1) {
+            if (isEOS) {
+                Recycler.V<BytesRef> page = pages.pollFirst();
+                BytesArray delegate = new BytesArray(page.v().bytes, page.v().offset, pageOffset);
+                ReleasableBytesReference reference = new ReleasableBytesReference(delegate, page);
+                pageLength = 0;
+                pageOffset = 0;
+                return reference;
+            } else {
+                return null;
+            }
+        } else {
+            Recycler.V<BytesRef> page = pages.pollFirst();
+            return new ReleasableBytesReference(new BytesArray(page.v()), page);
+        }
+    }
+
+    @Override
+    public Compression.Scheme getScheme() {
+        return Compression.Scheme.ZSTD;
+    }
+
+    @Override
+    public void close() {
+        for (Recycler.V<BytesRef> page : pages) {
+            page.close();
+        }
+    }
+}
@@ -279,6 +279,11 @@ public class NodeStatsTests extends ESTestCase {
                     assertEquals(nodeStats.getTransport().getServerOpen(), deserializedNodeStats.getTransport().getServerOpen());
                     assertEquals(nodeStats.getTransport().getTxCount(), deserializedNodeStats.getTransport().getTxCount());
                     assertEquals(nodeStats.getTransport().getTxSize(), deserializedNodeStats.getTransport().getTxSize());
+                    assertEquals(nodeStats.getTransport().getRxCopiedSize(), deserializedNodeStats.getTransport().getRxCopiedSize());
+                    assertEquals(
+                        nodeStats.getTransport().getRxReferencedSize(),
+                        deserializedNodeStats.getTransport().getRxReferencedSize()
+                    );
                     assertArrayEquals(
                         nodeStats.getTransport().getInboundHandlingTimeBucketFrequencies(),
                         deserializedNodeStats.getTransport().getInboundHandlingTimeBucketFrequencies()
@@ -337,6 +342,9 @@ public class NodeStatsTests extends ESTestCase {
 
                         assertEquals(generatedStats.getCacheEvictions(), deserStats.getCacheEvictions());
                         assertEquals(generatedStats.getCompilations(), deserStats.getCompilations());
+                        assertEquals(generatedStats.getCompiledCacheHits(), deserStats.getCompiledCacheHits());
+                        assertEquals(generatedStats.getCompiledCacheMisses(), deserStats.getCompiledCacheMisses());
+                        assertArrayEquals(generatedStats.getCompilationTimeHistogram(), deserStats.getCompilationTimeHistogram());
                     }
                     assertEquals(evictions, scriptStats.getCacheEvictions());
                     assertEquals(limited, scriptStats.getCompilationLimitTriggered());
@@ -834,6 +842,8 @@ public class NodeStatsTests extends ESTestCase {
                 randomNonNegativeLong(),
                 randomNonNegativeLong(),
                 randomNonNegativeLong(),
+                randomNonNegativeLong(),
+                randomNonNegativeLong(),
                 IntStream.range(0, HandlingTimeTracker.BUCKET_COUNT).mapToLong(i -> randomNonNegativeLong()).toArray(),
                 IntStream.range(0, HandlingTimeTracker.BUCKET_COUNT).mapToLong(i -> randomNonNegativeLong()).toArray()
             )
@@ -884,7 +894,17 @@ public class NodeStatsTests extends ESTestCase {
             for (int i = 0; i < numContents; i++) {
                 String context = randomValueOtherThanMany(contexts::contains, () -> randomAlphaOfLength(12));
                 contexts.add(context);
-                stats.add(new ScriptContextStats(context, randomLongBetween(0, 1024), randomTimeSeries(), randomTimeSeries()));
+                stats.add(
+                    new ScriptContextStats(
+                        context,
+                        randomLongBetween(0, 1024),
+                        randomTimeSeries(),
+                        randomTimeSeries(),
+                        randomLongBetween(0, 1024),
+                        randomLongBetween(0, 1024),
+                        IntStream.range(0, HandlingTimeTracker.BUCKET_COUNT).mapToLong(j -> randomLongBetween(0, 1024)).toArray()
+                    )
+                );
             }
             scriptStats = new ScriptStats(stats);
         }
@@ -911,6 +931,9 @@ public class NodeStatsTests extends ESTestCase {
                             randomNonNegativeLong(),
                             randomNonNegativeLong(),
                             randomNonNegativeLong(),
+                            randomNonNegativeLong(),
+                            randomNonNegativeLong(),
+                            randomNonNegativeLong(),
                             randomNonNegativeLong()
                         )
                     )
@@ -12,10 +12,12 @@ import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.common.xcontent.XContentParserUtils;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.IndexShardSnapshotStatus.FileUploadStats;
 import org.elasticsearch.test.AbstractXContentTestCase;
 import org.elasticsearch.xcontent.XContentParser;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.function.Predicate;
 
 public class SnapshotIndexShardStatusTests extends AbstractXContentTestCase<SnapshotIndexShardStatus> {
@@ -34,7 +36,18 @@ public class SnapshotIndexShardStatusTests extends AbstractXContentTestCase<Snap
         if (rarely()) {
             failure = randomAlphaOfLength(200);
         }
-        return new SnapshotIndexShardStatus(shardId, stage, stats, nodeId, failure);
+        List<FileUploadStats> parallelFileUploads = randomList(
+            0,
+            3,
+            () -> new FileUploadStats(
+                randomAlphaOfLength(10),
+                randomIntBetween(2, 100),
+                randomIntBetween(1, 10),
+                randomNonNegativeLong(),
+                randomNonNegativeLong()
+            )
+        );
+        return new SnapshotIndexShardStatus(shardId, stage, stats, nodeId, failure, parallelFileUploads);
     }
 
     @Override
@@ -10,9 +10,11 @@ package org.elasticsearch.action.search;
 
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.indices.TermsLookup;
 import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.profile.SearchProfileShardResult;
 import org.elasticsearch.search.vectors.KnnSearchBuilder;
 import org.elasticsearch.search.vectors.KnnVectorQueryBuilder;
 import org.elasticsearch.test.ESSingleNodeTestCase;
@@ -22,6 +24,7 @@ import org.elasticsearch.xcontent.XContentFactory;
 import java.io.IOException;
 
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertHitCount;
+import static org.hamcrest.Matchers.greaterThan;
 
 public class KnnSearchSingleNodeTests extends ESSingleNodeTestCase {
     private static final int VECTOR_DIMENSION = 10;
@@ -227,6 +230,45 @@ public class KnnSearchSingleNodeTests extends ESSingleNodeTestCase {
         assertEquals(2, response.getHits().getHits().length);
     }
 
+    public void testKnnSharedTopK() throws IOException {
+        Settings indexSettings = Settings.builder()
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexSettings.INDEX_SEARCH_KNN_SHARED_TOP_K_ENABLED_SETTING.getKey(), true)
+            .put(IndexSettings.INDEX_SEARCH_CONCURRENT_ENABLED_SETTING.getKey(), randomBoolean())
+            .build();
+        XContentBuilder builder = XContentFactory.jsonBuilder()
+            .startObject()
+            .startObject("properties")
+            .startObject("vector")
+            .field("type", "dense_vector")
+            .field("dims", VECTOR_DIMENSION)
+            .field("index", true)
+            .field("similarity", "l2_norm")
+            .endObject()
+            .endObject()
+            .endObject();
+        createIndex("index", indexSettings, builder);
+
+        int numSegments = randomIntBetween(2, 5);
+        for (int segment = 0; segment < numSegments; segment++) {
+            for (int doc = 0; doc < 20; doc++) {
+                client().prepareIndex("index").setSource("vector", randomVector()).get();
+            }
+            client().admin().indices().prepareRefresh("index").get();
+        }
+
+        float[] queryVector = randomVector();
+        KnnSearchBuilder knnSearch = new KnnSearchBuilder("vector", queryVector, 5, 10);
+        SearchResponse response = client().prepareSearch("index").setKnnSearch(knnSearch).setProfile(true).setSize(10).get();
+
+        assertHitCount(response, 5);
+        for (SearchProfileShardResult profile : response.getProfileResults().values()) {
+            Long vectorOperationsCount = profile.getSearchProfileDfsPhaseResult().getQueryProfileShardResult().getVectorOperationsCount();
+            assertNotNull(vectorOperationsCount);
+            assertThat(vectorOperationsCount, greaterThan(0L));
+        }
+    }
+
     private float[] randomVector() {
         float[] vector = new float[VECTOR_DIMENSION];
         for (int i = 0; i < vector.length; i++) {
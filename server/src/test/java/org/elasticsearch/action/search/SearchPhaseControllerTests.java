@@ -75,6 +75,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -640,6 +641,118 @@ public class SearchPhaseControllerTests extends ESTestCase {
         assertNull(reduce.sortedTopDocs().collapseValues());
     }
 
+    public void testConsumerStreamingReduce() throws Exception {
+        int expectedNumResults = randomIntBetween(2, 50);
+        SearchRequest request = randomSearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(new MaxAggregationBuilder("test")).size(0));
+        // large enough to never trigger a batched partial reduce
+        request.setBatchedReduceSize(expectedNumResults + 1);
+        AtomicReference<Exception> onPartialMergeFailure = new AtomicReference<>();
+        QueryPhaseResultConsumer consumer = searchPhaseController.newSearchPhaseResults(
+            fixedExecutor,
+            new NoopCircuitBreaker(CircuitBreaker.REQUEST),
+            () -> false,
+            SearchProgressListener.NOOP,
+            request,
+            expectedNumResults,
+            true,
+            onPartialMergeFailure::set
+        );
+        int max = 0;
+        for (int i = 0; i < expectedNumResults; i++) {
+            int number = randomIntBetween(1, 1000);
+            max = Math.max(max, number);
+            QuerySearchResult result = new QuerySearchResult(
+                new ShardSearchContextId("", i),
+                new SearchShardTarget("node", new ShardId("a", "b", i), null),
+                null
+            );
+            result.topDocs(
+                new TopDocsAndMaxScore(new TopDocs(new TotalHits(1, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]), Float.NaN),
+                new DocValueFormat[0]
+            );
+            InternalAggregations aggs = InternalAggregations.from(
+                Collections.singletonList(new Max("test", (double) number, DocValueFormat.RAW, Collections.emptyMap()))
+            );
+            result.aggregations(aggs);
+            result.setShardIndex(i);
+            CountDownLatch latch = new CountDownLatch(1);
+            consumer.consumeResult(result, latch::countDown);
+            // the result is merged into the partially reduced aggregations before its listener is notified
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            assertNull(onPartialMergeFailure.get());
+            assertEquals(i + 1, consumer.getNumReducePhases());
+        }
+
+        SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
+        assertAggReduction(request);
+        assertEquals(expectedNumResults + 1, reduce.numReducePhases());
+        Max internalMax = (Max) reduce.aggregations().asList().get(0);
+        assertEquals(max, internalMax.value(), 0.0D);
+        assertEquals(expectedNumResults, reduce.totalHits().value);
+    }
+
+    public void testConsumerStreamingReduceConcurrently() throws Exception {
+        int expectedNumResults = randomIntBetween(1, 100);
+        SearchRequest request = randomSearchRequest();
+        request.source(new SearchSourceBuilder().aggregation(new MaxAggregationBuilder("test")).size(1));
+        request.setBatchedReduceSize(randomIntBetween(2, 200));
+        QueryPhaseResultConsumer consumer = searchPhaseController.newSearchPhaseResults(
+            fixedExecutor,
+            new NoopCircuitBreaker(CircuitBreaker.REQUEST),
+            () -> false,
+            SearchProgressListener.NOOP,
+            request,
+            expectedNumResults,
+            true,
+            exc -> {}
+        );
+        AtomicInteger max = new AtomicInteger();
+        Thread[] threads = new Thread[expectedNumResults];
+        CountDownLatch latch = new CountDownLatch(expectedNumResults);
+        for (int i = 0; i < expectedNumResults; i++) {
+            int id = i;
+            threads[i] = new Thread(() -> {
+                int number = randomIntBetween(1, 1000);
+                max.updateAndGet(prev -> Math.max(prev, number));
+                QuerySearchResult result = new QuerySearchResult(
+                    new ShardSearchContextId("", id),
+                    new SearchShardTarget("node", new ShardId("a", "b", id), null),
+                    null
+                );
+                result.topDocs(
+                    new TopDocsAndMaxScore(
+                        new TopDocs(new TotalHits(1, TotalHits.Relation.EQUAL_TO), new ScoreDoc[] { new ScoreDoc(0, number) }),
+                        number
+                    ),
+                    new DocValueFormat[0]
+                );
+                InternalAggregations aggs = InternalAggregations.from(
+                    Collections.singletonList(new Max("test", (double) number, DocValueFormat.RAW, Collections.emptyMap()))
+                );
+                result.aggregations(aggs);
+                result.setShardIndex(id);
+                result.size(1);
+                consumer.consumeResult(result, latch::countDown);
+            });
+            threads[i].start();
+        }
+        for (int i = 0; i < expectedNumResults; i++) {
+            threads[i].join();
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+
+        SearchPhaseController.ReducedQueryPhase reduce = consumer.reduce();
+        assertAggReduction(request);
+        assertThat(reduce.numReducePhases(), greaterThanOrEqualTo(2));
+        Max internalMax = (Max) reduce.aggregations().asList().get(0);
+        assertEquals(max.get(), internalMax.value(), 0.0D);
+        assertEquals(1, reduce.sortedTopDocs().scoreDocs().length);
+        assertEquals(max.get(), reduce.maxScore(), 0.0f);
+        assertEquals(expectedNumResults, reduce.totalHits().value);
+        assertEquals(max.get(), reduce.sortedTopDocs().scoreDocs()[0].score, 0.0f);
+    }
+
     public void testConsumerOnlyAggs() throws Exception {
         int expectedNumResults = randomIntBetween(1, 100);
         int bufferSize = randomIntBetween(2, 200);
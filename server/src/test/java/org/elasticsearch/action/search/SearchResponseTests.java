@@ -40,12 +40,14 @@ import org.junit.Before;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonMap;
 import static org.elasticsearch.test.XContentTestUtils.insertRandomFields;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertToXContentEquivalent;
+import static org.hamcrest.Matchers.greaterThan;
 
 public class SearchResponseTests extends ESTestCase {
 
@@ -305,6 +307,24 @@ public class SearchResponseTests extends ESTestCase {
         }
     }
 
+    public void testToXContentChunked() throws IOException {
+        SearchResponse response = createTestItem();
+        ToXContent.Params params = new ToXContent.MapParams(singletonMap(RestSearchAction.TYPED_KEYS_PARAM, "true"));
+        XContentType xContentType = randomFrom(XContentType.values());
+        BytesReference expected = XContentHelper.toXContent(response, xContentType, params, false);
+
+        XContentBuilder builder = XContentBuilder.builder(xContentType.xContent());
+        Iterator<? extends ToXContent> chunks = response.toXContentChunked(params);
+        int numChunks = 0;
+        while (chunks.hasNext()) {
+            chunks.next().toXContent(builder, params);
+            numChunks++;
+        }
+        assertEquals(expected.toBytesRef(), BytesReference.bytes(builder).toBytesRef());
+        // every hit is serialized as a chunk of its own
+        assertThat(numChunks, greaterThan(response.getHits().getHits().length));
+    }
+
     public void testSerialization() throws IOException {
         SearchResponse searchResponse = createTestItem(false);
         SearchResponse deserialized = copyWriteable(searchResponse, namedWriteableRegistry, SearchResponse::new, Version.CURRENT);
@@ -0,0 +1,90 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.AliasMetadata;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.cluster.routing.IndexRoutingTable;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ClusterStateDeduplicatorTests extends ESTestCase {
+
+    private static final NamedWriteableRegistry REGISTRY = new NamedWriteableRegistry(ClusterModule.getNamedWriteables());
+
+    public void testDeduplicatesIndexMetadata() throws IOException {
+        String phaseDefinition = randomAlphaOfLength(1024);
+        IndexMetadata first = indexMetadata("index-1", phaseDefinition);
+        IndexMetadata second = indexMetadata("index-2", phaseDefinition);
+
+        long deduplicated = ClusterStateDeduplicator.getDeduplicated();
+        long savedBytes = ClusterStateDeduplicator.getSavedBytes();
+        IndexMetadata firstCopy = copyWriteable(first, REGISTRY, IndexMetadata::readFrom);
+        IndexMetadata secondCopy = copyWriteable(second, REGISTRY, IndexMetadata::readFrom);
+
+        assertThat(secondCopy, equalTo(second));
+        assertThat(secondCopy.getAliases().get("alias"), sameInstance(firstCopy.getAliases().get("alias")));
+        String firstPhaseDefinition = firstCopy.getCustomData("ilm").get("phase_definition");
+        assertThat(secondCopy.getCustomData("ilm").get("phase_definition"), sameInstance(firstPhaseDefinition));
+        assertThat(ClusterStateDeduplicator.getDeduplicated(), greaterThan(deduplicated));
+        assertThat(ClusterStateDeduplicator.getSavedBytes(), greaterThan(savedBytes + phaseDefinition.length()));
+    }
+
+    public void testDeduplicatesIndexWithRoutingTable() throws IOException {
+        IndexMetadata indexMetadata = indexMetadata(randomAlphaOfLength(10), randomAlphaOfLength(10));
+        Metadata metadata = Metadata.builder().put(indexMetadata, false).build();
+        RoutingTable routingTable = RoutingTable.builder().addAsNew(indexMetadata).build();
+
+        long lookups = ClusterStateDeduplicator.getLookups();
+        Metadata metadataCopy = copyWriteable(metadata, REGISTRY, Metadata::readFrom);
+        // the alias and the keys and values of the custom metadata are looked up, registering the index is not a lookup
+        assertThat(ClusterStateDeduplicator.getLookups(), equalTo(lookups + 5));
+        RoutingTable routingTableCopy = copyWriteable(routingTable, REGISTRY, RoutingTable::readFrom);
+        assertThat(ClusterStateDeduplicator.getLookups(), equalTo(lookups + 6));
+
+        IndexMetadata indexMetadataCopy = metadataCopy.index(indexMetadata.getIndex());
+        IndexRoutingTable indexRoutingTableCopy = routingTableCopy.index(indexMetadata.getIndex());
+        assertThat(indexRoutingTableCopy.getIndex(), sameInstance(indexMetadataCopy.getIndex()));
+        assertThat(indexRoutingTableCopy.shard(0).shardId().getIndex(), sameInstance(indexMetadataCopy.getIndex()));
+    }
+
+    public void testDeduplicatesDiffs() throws IOException {
+        String phaseDefinition = randomAlphaOfLength(1024);
+        IndexMetadata before = indexMetadata("index", randomAlphaOfLength(10));
+        IndexMetadata after = IndexMetadata.builder(before)
+            .putCustom("ilm", Map.of("phase", "warm", "phase_definition", phaseDefinition))
+            .build();
+        IndexMetadata other = copyWriteable(indexMetadata("other", phaseDefinition), REGISTRY, IndexMetadata::readFrom);
+
+        IndexMetadata applied = copyWriteable(after.diff(before), REGISTRY, IndexMetadata::readDiffFrom).apply(before);
+        assertThat(applied.getCustomData("ilm"), equalTo(after.getCustomData("ilm")));
+        String otherPhaseDefinition = other.getCustomData("ilm").get("phase_definition");
+        assertThat(applied.getCustomData("ilm").get("phase_definition"), sameInstance(otherPhaseDefinition));
+    }
+
+    private static IndexMetadata indexMetadata(String name, String phaseDefinition) {
+        return IndexMetadata.builder(name)
+            .settings(settings(Version.CURRENT))
+            .numberOfShards(1)
+            .numberOfReplicas(0)
+            .putAlias(AliasMetadata.builder("alias").filter("{\"term\":{\"tenant\":\"elastic\"}}").routing("1"))
+            .putCustom("ilm", Map.of("phase", "hot", "phase_definition", phaseDefinition))
+            .build();
+    }
+}
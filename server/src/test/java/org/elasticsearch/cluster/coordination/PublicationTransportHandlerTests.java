@@ -43,9 +43,12 @@ import org.elasticsearch.threadpool.TestThreadPool;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.BytesRefRecycler;
 import org.elasticsearch.transport.BytesTransportRequest;
+import org.elasticsearch.transport.CloseableConnection;
+import org.elasticsearch.transport.Compression;
 import org.elasticsearch.transport.RemoteTransportException;
 import org.elasticsearch.transport.TestTransportChannel;
 import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportResponse;
 import org.elasticsearch.transport.TransportService;
 
@@ -79,7 +82,12 @@ public class PublicationTransportHandlerTests extends ESTestCase {
         final BytesRefRecycler recycler = new BytesRefRecycler(new MockPageCacheRecycler(Settings.EMPTY));
         when(transportService.newNetworkBytesStream()).then(invocation -> new RecyclerBytesStreamOutput(recycler));
 
-        final PublicationTransportHandler handler = new PublicationTransportHandler(transportService, writableRegistry(), pu -> null);
+        final PublicationTransportHandler handler = new PublicationTransportHandler(
+            Settings.EMPTY,
+            transportService,
+            writableRegistry(),
+            pu -> null
+        );
 
         final DiscoveryNode otherNode = new DiscoveryNode("otherNode", buildNewFakeTransportAddress(), Version.CURRENT);
         final ClusterState clusterState = CoordinationStateTests.clusterState(
@@ -213,7 +221,12 @@ public class PublicationTransportHandlerTests extends ESTestCase {
                 new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
                 Collections.emptySet()
             );
-            final PublicationTransportHandler handler = new PublicationTransportHandler(transportService, writableRegistry(), pu -> null);
+            final PublicationTransportHandler handler = new PublicationTransportHandler(
+            Settings.EMPTY,
+            transportService,
+            writableRegistry(),
+            pu -> null
+        );
             transportService.start();
             transportService.acceptIncomingRequests();
 
@@ -338,6 +351,97 @@ public class PublicationTransportHandlerTests extends ESTestCase {
         }
     }
 
+    public void testUsesZstdOnlyIfNegotiatedInHandshake() {
+        final var deterministicTaskQueue = new DeterministicTaskQueue();
+        final var threadPool = deterministicTaskQueue.getThreadPool();
+
+        final var localNode = new DiscoveryNode("localNode", buildNewFakeTransportAddress(), Version.CURRENT);
+        // both nodes are on the same version, only the handshake tells whether they can read zstd
+        final var zstdNode = new DiscoveryNode("zstdNode", buildNewFakeTransportAddress(), Version.CURRENT);
+        final var deflateNode = new DiscoveryNode("deflateNode", buildNewFakeTransportAddress(), Version.CURRENT);
+        final var compressorsByNode = new HashMap<DiscoveryNode, Compressor>();
+
+        final var transport = new MockTransport() {
+            @Override
+            public Connection createConnection(DiscoveryNode node) {
+                final Connection connection = super.createConnection(node);
+                return new CloseableConnection() {
+                    @Override
+                    public DiscoveryNode getNode() {
+                        return node;
+                    }
+
+                    @Override
+                    public void sendRequest(long requestId, String action, TransportRequest request, TransportRequestOptions options)
+                        throws IOException {
+                        connection.sendRequest(requestId, action, request, options);
+                    }
+
+                    @Override
+                    public boolean isZstdSupported() {
+                        return node.equals(zstdNode);
+                    }
+                };
+            }
+
+            @Override
+            protected void onSendRequest(long requestId, String action, TransportRequest request, DiscoveryNode node) {
+                final var bytes = ((BytesTransportRequest) request).bytes();
+                assertNull(compressorsByNode.put(node, CompressorFactory.compressor(bytes)));
+                handleResponse(requestId, new PublishWithJoinResponse(new PublishResponse(1L, 1L), Optional.empty()));
+            }
+        };
+        final var transportService = transport.createTransportService(
+            Settings.EMPTY,
+            threadPool,
+            TransportService.NOOP_TRANSPORT_INTERCEPTOR,
+            ignored -> localNode,
+            null,
+            Set.of()
+        );
+        final var publicationTransportHandler = new PublicationTransportHandler(
+            Settings.builder()
+                .put(PublicationTransportHandler.PUBLISH_COMPRESSION_SCHEME_SETTING.getKey(), Compression.Scheme.ZSTD)
+                .build(),
+            transportService,
+            writableRegistry(),
+            publishRequest -> { throw new AssertionError("unexpected local publication"); }
+        );
+        transportService.start();
+        transportService.acceptIncomingRequests();
+        threadPool.getThreadContext().markAsSystemContext();
+
+        final var previousState = ClusterState.builder(ClusterState.EMPTY_STATE)
+            .nodes(DiscoveryNodes.builder().add(localNode).localNodeId(localNode.getId()).masterNodeId(localNode.getId()))
+            .build();
+        final var newState = ClusterState.builder(previousState)
+            .nodes(DiscoveryNodes.builder(previousState.nodes()).add(zstdNode).add(deflateNode))
+            .incrementVersion()
+            .build();
+        final var context = publicationTransportHandler.newPublicationContext(
+            new ClusterStatePublicationEvent(
+                new BatchSummary("test"),
+                previousState,
+                newState,
+                new Task(randomNonNegativeLong(), "test", "test", "", TaskId.EMPTY_TASK_ID, Map.of()),
+                0L,
+                0L
+            )
+        );
+        final var completed = new CountDownLatch(2);
+        try {
+            for (final var node : List.of(zstdNode, deflateNode)) {
+                context.sendPublishRequest(node, new PublishRequest(newState), ActionListener.wrap(completed::countDown));
+            }
+            deterministicTaskQueue.runAllTasks();
+            assertEquals(0, completed.getCount());
+        } finally {
+            context.decRef();
+        }
+        assertSame(CompressorFactory.ZSTD_COMPRESSOR, compressorsByNode.get(zstdNode));
+        assertSame(CompressorFactory.COMPRESSOR, compressorsByNode.get(deflateNode));
+    }
+
     public void testIncludesLastCommittedFieldsInDiffSerialization() {
         final var deterministicTaskQueue = new DeterministicTaskQueue();
         final var threadPool = deterministicTaskQueue.getThreadPool();
@@ -396,6 +500,12 @@ public class PublicationTransportHandlerTests extends ESTestCase {
             transportServicesByNode.put(discoveryNode, transportService);
 
             final var publicationTransportHandler = new PublicationTransportHandler(
+                Settings.builder()
+                    .put(
+                        PublicationTransportHandler.PUBLISH_COMPRESSION_SCHEME_SETTING.getKey(),
+                        randomFrom(Compression.Scheme.DEFLATE, Compression.Scheme.ZSTD)
+                    )
+                    .build(),
                 transportService,
                 writableRegistry(),
                 publishRequest -> {
@@ -0,0 +1,188 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster.routing.allocation;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ESAllocationTestCase;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
+import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.snapshots.SnapshotShardSizeInfo;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class IndexAllocationDecisionCacheTests extends ESAllocationTestCase {
+
+    public void testReusesDecisionsOfUnchangedIndices() {
+        var decider = new CountingDecider();
+        var cache = new IndexAllocationDecisionCache();
+        var numIndices = randomIntBetween(1, 200);
+        var numNodes = randomIntBetween(1, 10);
+        var state = createState(numIndices, numNodes, Settings.EMPTY);
+
+        cache.refresh(simulation(state, decider), null, 1);
+        assertThat(cache.getComputedDecisions(), equalTo((long) numIndices * numNodes));
+        assertThat(decider.calls.get(), equalTo((long) numIndices * numNodes));
+
+        // nothing changed
+        cache.refresh(simulation(state, decider), null, 1);
+        assertThat(cache.getComputedDecisions(), equalTo((long) numIndices * numNodes));
+
+        // a new index only needs the decisions for this index
+        var metadata = Metadata.builder(state.metadata()).put(indexMetadata("new-index"), false).build();
+        state = ClusterState.builder(state)
+            .metadata(metadata)
+            .routingTable(RoutingTable.builder(state.routingTable()).addAsNew(metadata.index("new-index")).build())
+            .build();
+        cache.refresh(simulation(state, decider), null, 1);
+        assertThat(cache.getComputedDecisions(), equalTo((long) (numIndices + 1) * numNodes));
+
+        // a new node changes the decisions of all indices
+        state = ClusterState.builder(state).nodes(DiscoveryNodes.builder(state.nodes()).add(newNode("new-node"))).build();
+        cache.refresh(simulation(state, decider), null, 1);
+        assertThat(cache.getComputedDecisions(), equalTo((long) (numIndices + 1) * numNodes + (numIndices + 1) * (numNodes + 1)));
+
+        // so do new cluster settings
+        var computedDecisions = cache.getComputedDecisions();
+        state = ClusterState.builder(state)
+            .metadata(Metadata.builder(state.metadata()).persistentSettings(Settings.builder().put("foo", "bar").build()))
+            .build();
+        cache.refresh(simulation(state, decider), null, 1);
+        assertThat(cache.getComputedDecisions(), equalTo(computedDecisions + (numIndices + 1) * (numNodes + 1)));
+        assertThat(decider.calls.get(), equalTo(cache.getComputedDecisions()));
+    }
+
+    public void testSameDecisionsAsDeciders() {
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+        try {
+            var decider = new CountingDecider();
+            var cache = new IndexAllocationDecisionCache();
+            var state = createState(randomIntBetween(1, 500), randomIntBetween(1, 10), Settings.EMPTY);
+            var allocation = simulation(state, decider);
+            cache.refresh(allocation, randomBoolean() ? executor : null, randomIntBetween(1, 8));
+
+            for (IndexMetadata indexMetadata : state.metadata()) {
+                for (RoutingNode node : allocation.routingNodes()) {
+                    assertThat(cache.canAllocate(indexMetadata, node, allocation), equalTo(decider.canAllocate(indexMetadata)));
+                }
+            }
+            assertThat(decider.calls.get(), equalTo(cache.getComputedDecisions() * 2));
+        } finally {
+            terminate(executor);
+        }
+    }
+
+    public void testFallsBackToDecidersForUnknownIndices() {
+        var decider = new CountingDecider();
+        var cache = new IndexAllocationDecisionCache();
+        var state = createState(1, 2, Settings.EMPTY);
+        var allocation = simulation(state, decider);
+        cache.refresh(allocation, null, 1);
+
+        var unknown = indexMetadata("unknown");
+        var node = allocation.routingNodes().iterator().next();
+        assertThat(cache.canAllocate(unknown, node, allocation), equalTo(decider.canAllocate(unknown)));
+        assertThat(decider.calls.get(), equalTo(cache.getComputedDecisions() + 2));
+    }
+
+    public void testAsksUncacheableDecidersOnEveryLookup() {
+        var cacheable = new CountingDecider();
+        var allowed = new AtomicBoolean(true);
+        var uncacheable = new AllocationDecider() {
+            @Override
+            public Decision canAllocate(IndexMetadata indexMetadata, RoutingNode node, RoutingAllocation allocation) {
+                return allowed.get() ? Decision.YES : Decision.NO;
+            }
+        };
+        var cache = new IndexAllocationDecisionCache();
+        var state = createState(randomIntBetween(1, 50), randomIntBetween(1, 5), Settings.EMPTY);
+        var allocation = simulation(state, cacheable, uncacheable);
+        cache.refresh(allocation, null, 1);
+
+        for (boolean allow : new boolean[] { false, true }) {
+            // the decisions of the uncacheable decider change without anything that the cache tracks changing
+            allowed.set(allow);
+            for (IndexMetadata indexMetadata : state.metadata()) {
+                for (RoutingNode node : allocation.routingNodes()) {
+                    assertThat(cache.canAllocate(indexMetadata, node, allocation), equalTo(allow && cacheable.canAllocate(indexMetadata)));
+                }
+            }
+        }
+    }
+
+    private static ClusterState createState(int numIndices, int numNodes, Settings clusterSettings) {
+        var metadata = Metadata.builder().persistentSettings(clusterSettings);
+        var routingTable = RoutingTable.builder();
+        for (int i = 0; i < numIndices; i++) {
+            var indexMetadata = indexMetadata("index-" + i);
+            metadata.put(indexMetadata, false);
+            routingTable.addAsNew(indexMetadata);
+        }
+        var nodes = DiscoveryNodes.builder();
+        for (int i = 0; i < numNodes; i++) {
+            nodes.add(newNode("node-" + i));
+        }
+        return ClusterState.builder(ClusterName.DEFAULT).metadata(metadata).routingTable(routingTable).nodes(nodes).build();
+    }
+
+    private static IndexMetadata indexMetadata(String name) {
+        return IndexMetadata.builder(name)
+            .settings(settings(Version.CURRENT))
+            .numberOfShards(1)
+            .numberOfReplicas(0)
+            .build();
+    }
+
+    private static RoutingAllocation simulation(ClusterState state, AllocationDecider... deciders) {
+        return new RoutingAllocation(
+            new AllocationDeciders(List.of(deciders)),
+            state,
+            ClusterInfo.EMPTY,
+            SnapshotShardSizeInfo.EMPTY,
+            0L
+        ).mutableCloneForSimulation();
+    }
+
+    /**
+     * Only allows the indices whose name hash is even and counts how often it is asked.
+     */
+    private static class CountingDecider extends AllocationDecider {
+        final AtomicLong calls = new AtomicLong();
+
+        @Override
+        public boolean canCacheIndexDecisions() {
+            return true;
+        }
+
+        @Override
+        public Decision canAllocate(IndexMetadata indexMetadata, RoutingNode node, RoutingAllocation allocation) {
+            return canAllocate(indexMetadata) ? Decision.YES : Decision.NO;
+        }
+
+        boolean canAllocate(IndexMetadata indexMetadata) {
+            calls.incrementAndGet();
+            return (indexMetadata.getIndex().getName().hashCode() & 1) == 0;
+        }
+    }
+}
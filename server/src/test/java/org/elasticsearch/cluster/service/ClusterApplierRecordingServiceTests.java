@@ -49,6 +49,28 @@ public class ClusterApplierRecordingServiceTests extends ESTestCase {
         expectThrows(IllegalStateException.class, () -> recorder.record("action2"));
     }
 
+    public void testRecorderPhases() {
+        long[] currentTime = new long[1];
+        var recorder = new Recorder(() -> currentTime[0]);
+        try (var ignored = recorder.recordPhase("ignored")) {
+            currentTime[0] = 1;
+        }
+        try (var r = recorder.record("action1")) {
+            try (var p = recorder.recordPhase("phase1")) {
+                currentTime[0] = 3;
+            }
+            try (var p = recorder.recordPhase("phase2")) {
+                currentTime[0] = 10;
+            }
+        }
+
+        var recordings = recorder.getRecordings();
+        assertThat(
+            recordings,
+            contains(Tuple.tuple("action1#phase1", 2L), Tuple.tuple("action1#phase2", 7L), Tuple.tuple("action1", 9L))
+        );
+    }
+
     public void testRecordingServiceStats() {
         var service = new ClusterApplierRecordingService();
 
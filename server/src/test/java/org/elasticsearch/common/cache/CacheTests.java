@@ -264,6 +264,57 @@ public class CacheTests extends ESTestCase {
         }
     }
 
+    public void testExpireAfterAccessWithDroppedPromotions() throws Exception {
+        AtomicLong now = new AtomicLong();
+        Cache<Integer, String> cache = new Cache<Integer, String>() {
+            @Override
+            protected long now() {
+                return now.get();
+            }
+        };
+        cache.setExpireAfterAccessNanos(10);
+        final CountDownLatch invalidating = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Integer> evictedKeys = new ArrayList<>();
+        cache.setRemovalListener(notification -> {
+            if (notification.getRemovalReason() == RemovalNotification.RemovalReason.INVALIDATED) {
+                invalidating.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            } else {
+                evictedKeys.add(notification.getKey());
+            }
+        });
+        now.set(0);
+        for (int i = 0; i < 4; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+
+        // the invalidation of the last entry holds the LRU lock until it is released
+        Thread invalidator = new Thread(() -> cache.invalidate(3));
+        invalidator.start();
+        assertTrue(invalidating.await(10, TimeUnit.SECONDS));
+        now.set(5);
+        // the promotions of the second entry fill the read buffer of this thread, so the promotion of the first one is dropped
+        for (int i = 0; i < Cache.ReadBuffer.SIZE; i++) {
+            assertEquals("2", cache.get(2));
+        }
+        assertEquals("0", cache.get(0));
+        release.countDown();
+        invalidator.join();
+
+        // the first entry is still at the tail of the LRU list, but it must not keep the expired entry behind it in the cache
+        now.set(12);
+        cache.refresh();
+        assertEquals(List.of(1), evictedKeys);
+        Set<Integer> keys = new HashSet<>();
+        cache.keys().forEach(keys::add);
+        assertEquals(Set.of(0, 2), keys);
+    }
+
     public void testExpirationAfterWrite() {
         AtomicLong now = new AtomicLong();
         Cache<Integer, String> cache = new Cache<Integer, String>() {
@@ -907,4 +958,53 @@ public class CacheTests extends ESTestCase {
             assertEquals(RemovalNotification.RemovalReason.INVALIDATED, removalNotifications.get(i).getRemovalReason());
         }
     }
+
+    public void testReadsDoNotWaitForTheLruLock() throws Exception {
+        final CountDownLatch evicting = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Cache<Integer, String> cache = CacheBuilder.<Integer, String>builder().setMaximumWeight(2).removalListener(notification -> {
+            evicting.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }).build();
+        cache.put(0, "0");
+        cache.put(1, "1");
+
+        // the eviction of the first entry holds the LRU lock until it is released
+        Thread writer = new Thread(() -> cache.put(2, "2"));
+        writer.start();
+        assertTrue(evicting.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 4 * Cache.ReadBuffer.SIZE * Cache.NUMBER_OF_READ_BUFFERS; i++) {
+            assertEquals("1", cache.get(1));
+        }
+        release.countDown();
+        writer.join();
+
+        cache.refresh();
+        assertEquals(2, cache.count());
+        Set<Integer> keys = new HashSet<>();
+        cache.keys().forEach(keys::add);
+        assertEquals(Set.of(1, 2), keys);
+    }
+
+    public void testReadBuffer() {
+        Cache.ReadBuffer<Integer> buffer = new Cache.ReadBuffer<>();
+        List<Integer> drained = new ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            int numElements = randomIntBetween(0, 2 * Cache.ReadBuffer.SIZE);
+            for (int i = 0; i < numElements; i++) {
+                assertEquals(Math.min(i + 1, Cache.ReadBuffer.SIZE), buffer.offer(i));
+            }
+            drained.clear();
+            buffer.drain(drained::add);
+            // elements that didn't fit are dropped
+            assertEquals(Math.min(numElements, Cache.ReadBuffer.SIZE), drained.size());
+            for (int i = 0; i < drained.size(); i++) {
+                assertEquals(i, (int) drained.get(i));
+            }
+        }
+    }
 }
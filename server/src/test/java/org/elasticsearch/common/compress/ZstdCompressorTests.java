@@ -0,0 +1,187 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.common.compress;
+
+import org.apache.lucene.tests.util.LineFileDocs;
+import org.apache.lucene.tests.util.TestUtil;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Locale;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+
+public class ZstdCompressorTests extends ESTestCase {
+
+    private final Compressor compressor = new ZstdCompressor();
+
+    public void testRandom() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            doTest(randomByteArrayOfLength(between(0, 300_000)));
+        }
+    }
+
+    public void testLineDocs() throws IOException {
+        try (LineFileDocs lineFileDocs = new LineFileDocs(random())) {
+            for (int i = 0; i < 10; i++) {
+                int numDocs = TestUtil.nextInt(random(), 1, 500);
+                ByteArrayOutputStream bos = new ByteArrayOutputStream();
+                for (int j = 0; j < numDocs; j++) {
+                    bos.write(lineFileDocs.nextDoc().get("body").getBytes(StandardCharsets.UTF_8));
+                }
+                final byte[] bytes = bos.toByteArray();
+                doTest(bytes);
+                if (bytes.length > 10_000) {
+                    assertThat(compressor.compress(new BytesArray(bytes)).length(), lessThan(bytes.length * 2 / 3));
+                }
+            }
+        }
+    }
+
+    public void testRepetitions() throws IOException {
+        for (int i = 0; i < 10; i++) {
+            int numLongs = between(1, 100_000);
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            long value = randomLong();
+            for (int j = 0; j < numLongs; j++) {
+                if (rarely()) {
+                    value = randomLong();
+                }
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    bos.write((byte) (value >>> shift));
+                }
+            }
+            doTest(bos.toByteArray());
+        }
+    }
+
+    public void testDecodesReferenceFrame() throws IOException {
+        // compressed with the reference implementation at level 19, which uses compressed literals and sequence tables
+        final byte[] frame = HexFormat.of()
+            .parseHex(
+                "28b52ffd601705250600028a1f1970790392350fc63239274a2854f91a9194a98a7989f4fb6002b1e1777ceeefbd7603790429fef8ff581c6e1cd0"
+                    + "0b778730fe830de3f3073ac954ab50a5bc0177b76ff7af0f4e348ec3ac352b356c527455c43aca3241944a9337e8b805c9d2842ee65672a518"
+                    + "c51bf0d3b2ddf116bc85f7fdbc92b309552acdaa26cc051ea01078b6bd6a2c6370b002cb01e6c0249a83534105a60b0527610626d10c4ec20c"
+                    + "4ca2199c449821312739c894474366388f28729215767d9191b297203b7b832f03"
+            );
+        final StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            if (i > 0) {
+                expected.append('\n');
+            }
+            expected.append(
+                String.format(
+                    Locale.ROOT,
+                    "{\"@timestamp\": \"2023-01-%02dT10:00:00Z\", \"host\": {\"name\": \"host-%d\"}, "
+                        + "\"message\": \"GET /index.html HTTP/1.1 200 %d\", \"status\": %d}",
+                    i + 1,
+                    i % 3,
+                    1000 + i * 37,
+                    200 + (i % 2) * 204
+                )
+            );
+        }
+        final byte[] bytes = new byte[ZstdCompressor.HEADER_SIZE + frame.length];
+        System.arraycopy(ZstdCompressor.HEADER, 0, bytes, 0, ZstdCompressor.HEADER_SIZE);
+        System.arraycopy(frame, 0, bytes, ZstdCompressor.HEADER_SIZE, frame.length);
+        assertThat(compressor.uncompress(new BytesArray(bytes)).utf8ToString(), equalTo(expected.toString()));
+    }
+
+    public void testFlushes() throws IOException {
+        final byte[] bytes = randomAlphaOfLength(between(1, 200_000)).getBytes(StandardCharsets.UTF_8);
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (OutputStream out = compressor.threadLocalOutputStream(bos)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                final int length = between(0, bytes.length - offset);
+                out.write(bytes, offset, length);
+                offset += length;
+                if (randomBoolean()) {
+                    out.flush();
+                }
+            }
+        }
+        assertArrayEquals(bytes, BytesReference.toBytes(compressor.uncompress(new BytesArray(bos.toByteArray()))));
+    }
+
+    public void testDictionary() throws IOException {
+        final String template = "{\"@timestamp\":\"2023-01-01T00:00:00Z\",\"host\":{\"name\":\"%s\"},"
+            + "\"event\":{\"dataset\":\"nginx.access\"}}";
+        final byte[] dictionary = String.format(Locale.ROOT, template, "host").getBytes(StandardCharsets.UTF_8);
+        final Compressor dictionaryCompressor = new ZstdCompressor(between(1, Integer.MAX_VALUE), dictionary);
+        final BytesReference bytes = new BytesArray(String.format(Locale.ROOT, template, randomAlphaOfLength(10)));
+
+        final BytesReference compressed = dictionaryCompressor.compress(bytes);
+        assertThat(compressed.length(), lessThan(compressor.compress(bytes).length()));
+        assertThat(dictionaryCompressor.uncompress(compressed), equalTo(bytes));
+        final IOException e = expectThrows(IOException.class, () -> compressor.uncompress(compressed));
+        assertThat(e.getMessage(), startsWith("unknown zstd dictionary"));
+    }
+
+    public void testNestedStreams() throws IOException {
+        final byte[] outer = randomByteArrayOfLength(between(0, 10_000));
+        final byte[] inner = randomByteArrayOfLength(between(0, 10_000));
+        final ByteArrayOutputStream outerBytes = new ByteArrayOutputStream();
+        final ByteArrayOutputStream innerBytes = new ByteArrayOutputStream();
+        try (OutputStream outerStream = compressor.threadLocalOutputStream(outerBytes)) {
+            outerStream.write(outer, 0, outer.length / 2);
+            try (OutputStream innerStream = compressor.threadLocalOutputStream(innerBytes)) {
+                innerStream.write(inner);
+            }
+            outerStream.write(outer, outer.length / 2, outer.length - outer.length / 2);
+        }
+        assertArrayEquals(outer, BytesReference.toBytes(compressor.uncompress(new BytesArray(outerBytes.toByteArray()))));
+        assertArrayEquals(inner, BytesReference.toBytes(compressor.uncompress(new BytesArray(innerBytes.toByteArray()))));
+    }
+
+    public void testCompressorFactoryDetectsZstd() throws IOException {
+        final BytesReference compressed = CompressorFactory.ZSTD_COMPRESSOR.compress(new BytesArray("{\"field\":\"value\"}"));
+        assertThat(CompressorFactory.compressor(compressed), sameInstance(CompressorFactory.ZSTD_COMPRESSOR));
+        assertThat(CompressorFactory.uncompressIfNeeded(compressed).utf8ToString(), equalTo("{\"field\":\"value\"}"));
+    }
+
+    public void testTruncated() throws IOException {
+        final BytesReference compressed = compressor.compress(new BytesArray(randomByteArrayOfLength(between(1, 10_000))));
+        final BytesReference truncated = compressed.slice(0, between(ZstdCompressor.HEADER_SIZE, compressed.length() - 1));
+        expectThrows(IOException.class, () -> compressor.uncompress(truncated));
+    }
+
+    private void doTest(byte[] bytes) throws IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (OutputStream os = compressor.threadLocalOutputStream(bos)) {
+            int offset = 0;
+            while (offset < bytes.length) {
+                final int length = Math.min(bytes.length - offset, randomBoolean() ? 65536 : between(1, 70_000));
+                os.write(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        final ByteArrayOutputStream uncompressed = new ByteArrayOutputStream();
+        try (InputStream in = compressor.threadLocalInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+            final byte[] buffer = new byte[between(1, 70_000)];
+            int len;
+            while ((len = in.read(buffer)) != -1) {
+                uncompressed.write(buffer, 0, len);
+            }
+        }
+        assertArrayEquals(bytes, uncompressed.toByteArray());
+    }
+}
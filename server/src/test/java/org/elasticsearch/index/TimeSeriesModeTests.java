@@ -11,6 +11,7 @@ package org.elasticsearch.index;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.time.DateUtils;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.index.mapper.MapperServiceTestCase;
 import org.elasticsearch.index.mapper.OnScriptError;
 import org.elasticsearch.script.Script;
@@ -106,6 +107,19 @@ public class TimeSeriesModeTests extends MapperServiceTestCase {
         assertThat(indexSettings.getTimestampBounds().endTime(), CoreMatchers.equalTo(DateUtils.MAX_MILLIS_BEFORE_9999));
     }
 
+    public void testRollupInterval() {
+        Settings s = Settings.builder().put(getSettings()).put(IndexSettings.TIME_SERIES_ROLLUP_INTERVAL.getKey(), "1h").build();
+        IndexSettings indexSettings = new IndexSettings(IndexSettingsTests.newIndexMeta("test", s), Settings.EMPTY);
+        assertThat(indexSettings.getTimeSeriesRollupInterval(), equalTo(TimeValue.timeValueHours(1)));
+    }
+
+    public void testRollupIntervalWithoutTimeSeries() {
+        Settings s = Settings.builder().put(IndexSettings.TIME_SERIES_ROLLUP_INTERVAL.getKey(), "1h").build();
+        IndexMetadata metadata = IndexSettingsTests.newIndexMeta("test", s);
+        Exception e = expectThrows(IllegalArgumentException.class, () -> new IndexSettings(metadata, Settings.EMPTY));
+        assertThat(e.getMessage(), equalTo("[index.time_series.rollup_interval] requires [index.mode=time_series]"));
+    }
+
     public void testSetDefaultTimeRangeValue() {
         final Settings settings = Settings.builder()
             .put(IndexSettings.MODE.getKey(), IndexMode.TIME_SERIES)
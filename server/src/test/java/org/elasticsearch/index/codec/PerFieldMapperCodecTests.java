@@ -8,6 +8,7 @@
 
 package org.elasticsearch.index.codec;
 
+import org.apache.lucene.codecs.lucene90.Lucene90DocValuesFormat;
 import org.apache.lucene.codecs.lucene94.Lucene94Codec;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.common.compress.CompressedXContent;
@@ -15,11 +16,13 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.MapperTestUtils;
+import org.elasticsearch.index.codec.tsdb.ES87TimeSeriesRollupDocValuesFormat;
 import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.test.ESTestCase;
 
 import java.io.IOException;
 
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 
 public class PerFieldMapperCodecTests extends ESTestCase {
@@ -49,6 +52,59 @@ public class PerFieldMapperCodecTests extends ESTestCase {
         );
     }
 
+    public void testUseTimeSeriesRollups() throws IOException {
+        PerFieldMapperCodec perFieldMapperCodec = createTimeSeriesCodec(true);
+        assertThat(perFieldMapperCodec.useTimeSeriesRollups("_tsid"), is(true));
+        assertThat(perFieldMapperCodec.useTimeSeriesRollups("@timestamp"), is(true));
+        assertThat(perFieldMapperCodec.useTimeSeriesRollups("gauge"), is(true));
+        assertThat(perFieldMapperCodec.useTimeSeriesRollups("dim"), is(false));
+        assertThat(perFieldMapperCodec.useTimeSeriesRollups("other"), is(false));
+        assertThat(perFieldMapperCodec.getDocValuesFormatForField("gauge"), instanceOf(ES87TimeSeriesRollupDocValuesFormat.class));
+        assertThat(perFieldMapperCodec.getDocValuesFormatForField("other"), instanceOf(Lucene90DocValuesFormat.class));
+    }
+
+    public void testUseTimeSeriesRollupsWithoutInterval() throws IOException {
+        PerFieldMapperCodec perFieldMapperCodec = createTimeSeriesCodec(false);
+        assertThat(perFieldMapperCodec.useTimeSeriesRollups("_tsid"), is(false));
+        assertThat(perFieldMapperCodec.useTimeSeriesRollups("@timestamp"), is(false));
+        assertThat(perFieldMapperCodec.useTimeSeriesRollups("gauge"), is(false));
+    }
+
+    private PerFieldMapperCodec createTimeSeriesCodec(boolean rollups) throws IOException {
+        Settings.Builder settings = Settings.builder()
+            .put(IndexSettings.MODE.getKey(), "time_series")
+            .put(IndexMetadata.INDEX_ROUTING_PATH.getKey(), "dim");
+        if (rollups) {
+            settings.put(IndexSettings.TIME_SERIES_ROLLUP_INTERVAL.getKey(), "1h");
+        }
+        MapperService mapperService = MapperTestUtils.newMapperService(xContentRegistry(), createTempDir(), settings.build(), "test");
+        String mapping = """
+            {
+                "_data_stream_timestamp": {
+                    "enabled": true
+                },
+                "properties": {
+                    "@timestamp": {
+                        "type": "date"
+                    },
+                    "dim": {
+                        "type": "keyword",
+                        "time_series_dimension": true
+                    },
+                    "gauge": {
+                        "type": "double",
+                        "time_series_metric": "gauge"
+                    },
+                    "other": {
+                        "type": "long"
+                    }
+                }
+            }
+            """;
+        mapperService.merge("type", new CompressedXContent(mapping), MapperService.MergeReason.MAPPING_UPDATE);
+        return new PerFieldMapperCodec(Lucene94Codec.Mode.BEST_SPEED, mapperService, BigArrays.NON_RECYCLING_INSTANCE);
+    }
+
     private PerFieldMapperCodec createCodec(boolean timestampField, boolean timeSeries, boolean disableBloomFilter) throws IOException {
         Settings.Builder settings = Settings.builder();
         if (timeSeries) {
@@ -0,0 +1,224 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.codec.tsdb;
+
+import com.carrotsearch.randomizedtesting.annotations.ThreadLeakFilters;
+
+import org.apache.lucene.codecs.Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.tests.index.BaseDocValuesFormatTestCase;
+import org.apache.lucene.tests.util.TestUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData.NumericType;
+import org.elasticsearch.index.mapper.DataStreamTimestampFieldMapper;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
+import org.elasticsearch.test.GraalVMThreadsFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+@ThreadLeakFilters(filters = { GraalVMThreadsFilter.class })
+public class ES87TimeSeriesRollupDocValuesFormatTests extends BaseDocValuesFormatTestCase {
+    private static final long INTERVAL = 10;
+
+    @Override
+    protected Codec getCodec() {
+        return TestUtil.alwaysDocValuesFormat(
+            new ES87TimeSeriesRollupDocValuesFormat(INTERVAL, ES87TimeSeriesRollupDocValuesFormatTests::metricType)
+        );
+    }
+
+    private static NumericType metricType(String field) {
+        return switch (field) {
+            case "long_metric" -> NumericType.LONG;
+            case "double_metric" -> NumericType.DOUBLE;
+            default -> null;
+        };
+    }
+
+    public void testRollups() throws IOException {
+        try (Directory directory = newDirectory()) {
+            IndexWriterConfig config = new IndexWriterConfig().setCodec(getCodec())
+                .setIndexSort(
+                    new Sort(
+                        new SortField(TimeSeriesIdFieldMapper.NAME, SortField.Type.STRING, false),
+                        new SortedNumericSortField(DataStreamTimestampFieldMapper.DEFAULT_PATH, SortField.Type.LONG, true)
+                    )
+                );
+            List<Document> docs = new ArrayList<>();
+            docs.add(doc("a", 1, 5L, 0.5));
+            docs.add(doc("a", 7, 3L, null));
+            docs.add(doc("a", 12, 4L, 2.5));
+            docs.add(doc("b", 3, null, -1.0));
+            docs.add(doc("b", 4, 10L, 1.0));
+            docs.add(doc("b", -3, 2L, null));
+            try (IndexWriter iw = new IndexWriter(directory, config)) {
+                for (Document doc : docs) {
+                    iw.addDocument(doc);
+                }
+                if (random().nextBoolean()) {
+                    // Merge the rollups
+                    iw.commit();
+                    iw.addDocument(doc("a", 8, 6L, 1.5));
+                    iw.forceMerge(1);
+                } else {
+                    iw.addDocument(doc("a", 8, 6L, 1.5));
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                assertThat(reader.leaves().size(), equalTo(1));
+                LeafReader leaf = reader.leaves().get(0).reader();
+                TimeSeriesRollups rollups = TimeSeriesRollups.get(leaf);
+                assertThat(rollups.interval(), equalTo(INTERVAL));
+                assertThat(rollups.metrics().size(), equalTo(2));
+                int longMetric = rollups.metrics().indexOf("long_metric");
+                int doubleMetric = rollups.metrics().indexOf("double_metric");
+                assertThat(rollups.rollupCount(), equalTo(4L));
+
+                // Sorted by _tsid and descending @timestamp
+                TimeSeriesRollups.Cursor cursor = rollups.cursor();
+                assertTrue(cursor.next());
+                assertRollup(rollups, cursor, "a", 10, 1);
+                assertMetric(cursor, longMetric, 1, 4, 4, 4);
+                assertMetric(cursor, doubleMetric, 1, 2.5, 2.5, 2.5);
+
+                assertTrue(cursor.next());
+                assertRollup(rollups, cursor, "a", 0, 3);
+                assertMetric(cursor, longMetric, 3, 14, 3, 6);
+                assertMetric(cursor, doubleMetric, 2, 2.0, 0.5, 1.5);
+
+                assertTrue(cursor.next());
+                assertRollup(rollups, cursor, "b", 0, 2);
+                assertMetric(cursor, longMetric, 1, 10, 10, 10);
+                assertMetric(cursor, doubleMetric, 2, 0, -1.0, 1.0);
+
+                assertTrue(cursor.next());
+                assertRollup(rollups, cursor, "b", -10, 1);
+                assertMetric(cursor, longMetric, 1, 2, 2, 2);
+                assertMetric(cursor, doubleMetric, 0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+                assertFalse(cursor.next());
+            }
+        }
+    }
+
+    public void testRollupsOfFlushedSegments() throws IOException {
+        try (Directory directory = newDirectory()) {
+            IndexWriterConfig config = new IndexWriterConfig().setCodec(getCodec())
+                .setMergePolicy(NoMergePolicy.INSTANCE)
+                .setIndexSort(
+                    new Sort(
+                        new SortField(TimeSeriesIdFieldMapper.NAME, SortField.Type.STRING, false),
+                        new SortedNumericSortField(DataStreamTimestampFieldMapper.DEFAULT_PATH, SortField.Type.LONG, true)
+                    )
+                );
+            try (IndexWriter iw = new IndexWriter(directory, config)) {
+                // Out of order, the segments are sorted when they are flushed
+                iw.addDocument(doc("a", 1, 5L, 0.5));
+                iw.addDocument(doc("b", 4, 10L, 1.0));
+                iw.addDocument(doc("a", 7, 3L, null));
+                iw.flush();
+                iw.addDocument(doc("b", -3, 2L, null));
+                iw.addDocument(doc("a", 12, 4L, 2.5));
+                iw.flush();
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                assertThat(reader.leaves().size(), equalTo(2));
+
+                TimeSeriesRollups rollups = TimeSeriesRollups.get(reader.leaves().get(0).reader());
+                assertThat(rollups.interval(), equalTo(INTERVAL));
+                int longMetric = rollups.metrics().indexOf("long_metric");
+                int doubleMetric = rollups.metrics().indexOf("double_metric");
+                assertThat(rollups.rollupCount(), equalTo(2L));
+                TimeSeriesRollups.Cursor cursor = rollups.cursor();
+                assertTrue(cursor.next());
+                assertRollup(rollups, cursor, "a", 0, 2);
+                assertMetric(cursor, longMetric, 2, 8, 3, 5);
+                assertMetric(cursor, doubleMetric, 1, 0.5, 0.5, 0.5);
+                assertTrue(cursor.next());
+                assertRollup(rollups, cursor, "b", 0, 1);
+                assertMetric(cursor, longMetric, 1, 10, 10, 10);
+                assertMetric(cursor, doubleMetric, 1, 1.0, 1.0, 1.0);
+                assertFalse(cursor.next());
+
+                rollups = TimeSeriesRollups.get(reader.leaves().get(1).reader());
+                longMetric = rollups.metrics().indexOf("long_metric");
+                doubleMetric = rollups.metrics().indexOf("double_metric");
+                assertThat(rollups.rollupCount(), equalTo(2L));
+                cursor = rollups.cursor();
+                assertTrue(cursor.next());
+                assertRollup(rollups, cursor, "a", 10, 1);
+                assertMetric(cursor, longMetric, 1, 4, 4, 4);
+                assertMetric(cursor, doubleMetric, 1, 2.5, 2.5, 2.5);
+                assertTrue(cursor.next());
+                assertRollup(rollups, cursor, "b", -10, 1);
+                assertMetric(cursor, longMetric, 1, 2, 2, 2);
+                assertMetric(cursor, doubleMetric, 0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+                assertFalse(cursor.next());
+            }
+        }
+    }
+
+    public void testNoRollupsWithoutTimestamp() throws IOException {
+        try (Directory directory = newDirectory()) {
+            try (IndexWriter iw = new IndexWriter(directory, new IndexWriterConfig().setCodec(getCodec()))) {
+                iw.addDocument(doc("a", 1, 5L, 0.5));
+                Document doc = new Document();
+                doc.add(new SortedDocValuesField(TimeSeriesIdFieldMapper.NAME, new BytesRef("a")));
+                iw.addDocument(doc);
+                iw.forceMerge(1);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                assertThat(TimeSeriesRollups.get(reader.leaves().get(0).reader()), nullValue());
+            }
+        }
+    }
+
+    private static Document doc(String tsid, long timestamp, Long longMetric, Double doubleMetric) {
+        Document doc = new Document();
+        doc.add(new SortedDocValuesField(TimeSeriesIdFieldMapper.NAME, new BytesRef(tsid)));
+        doc.add(new SortedNumericDocValuesField(DataStreamTimestampFieldMapper.DEFAULT_PATH, timestamp));
+        if (longMetric != null) {
+            doc.add(new SortedNumericDocValuesField("long_metric", longMetric));
+        }
+        if (doubleMetric != null) {
+            doc.add(new SortedNumericDocValuesField("double_metric", NumericUtils.doubleToSortableLong(doubleMetric)));
+        }
+        return doc;
+    }
+
+    private static void assertRollup(TimeSeriesRollups rollups, TimeSeriesRollups.Cursor cursor, String tsid, long key, long docCount) {
+        assertThat(cursor.tsidOrd(), equalTo(tsid.equals("a") ? 0 : 1));
+        assertThat(rollups.key(cursor.keyIndex()), equalTo(key));
+        assertThat(cursor.docCount(), equalTo(docCount));
+    }
+
+    private static void assertMetric(TimeSeriesRollups.Cursor cursor, int metric, long count, double sum, double min, double max) {
+        assertThat(cursor.count(metric), equalTo(count));
+        assertThat(cursor.sum(metric), equalTo(sum));
+        assertThat(cursor.min(metric), equalTo(min));
+        assertThat(cursor.max(metric), equalTo(max));
+    }
+}
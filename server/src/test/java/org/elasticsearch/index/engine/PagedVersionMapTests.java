@@ -0,0 +1,87 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class PagedVersionMapTests extends ESTestCase {
+
+    public void testPutGetRemove() {
+        PagedVersionMap map = new PagedVersionMap(BigArrays.NON_RECYCLING_INSTANCE, randomIntBetween(0, 100));
+        Map<BytesRef, VersionValue> expected = new HashMap<>();
+        int iters = scaledRandomIntBetween(100, 5000);
+        for (int i = 0; i < iters; i++) {
+            BytesRef uid = new BytesRef(Integer.toString(randomIntBetween(0, 500)));
+            if (rarely()) {
+                assertEquals(expected.remove(uid) != null, map.remove(uid));
+            } else {
+                VersionValue value = randomIndexVersionValue();
+                expected.put(uid, value);
+                map.put(uid, value);
+            }
+            assertEquals(expected.get(uid), map.get(uid));
+            assertEquals(expected.size(), map.size());
+            assertEquals(expected.isEmpty(), map.isEmpty());
+        }
+        for (Map.Entry<BytesRef, VersionValue> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        assertNull(map.get(new BytesRef("missing")));
+        assertEquals(expected, map.copyToMap());
+    }
+
+    public void testLookupOfRecentWriteDoesNotAllocate() {
+        PagedVersionMap map = new PagedVersionMap(BigArrays.NON_RECYCLING_INSTANCE, 0);
+        BytesRef uid = new BytesRef("1");
+        VersionValue value = randomIndexVersionValue();
+        map.put(uid, value);
+        assertSame(value, map.get(uid));
+        assertTrue(map.remove(uid));
+        assertNull(map.get(uid));
+        assertFalse(map.remove(uid));
+    }
+
+    public void testOnlyIndexVersions() {
+        PagedVersionMap map = new PagedVersionMap(BigArrays.NON_RECYCLING_INSTANCE, 0);
+        IllegalArgumentException e = expectThrows(
+            IllegalArgumentException.class,
+            () -> map.put(new BytesRef("1"), new DeleteVersionValue(1, 1, 1, 1))
+        );
+        assertTrue(e.getMessage().startsWith("only index versions can be stored in a paged version map"));
+    }
+
+    public void testRamBytesUsed() {
+        PagedVersionMap map = new PagedVersionMap(BigArrays.NON_RECYCLING_INSTANCE, 0);
+        long ramBytesUsed = map.ramBytesUsed();
+        for (int i = 0; i < 10000; i++) {
+            map.put(new BytesRef(Integer.toString(i)), randomIndexVersionValue());
+        }
+        assertTrue(map.ramBytesUsed() > ramBytesUsed);
+        ramBytesUsed = map.ramBytesUsed();
+        for (int i = 0; i < 10000; i++) {
+            map.remove(new BytesRef(Integer.toString(i)));
+        }
+        assertTrue(map.isEmpty());
+        // removed keys are only reclaimed once the map is dropped
+        assertEquals(ramBytesUsed, map.ramBytesUsed());
+    }
+
+    private IndexVersionValue randomIndexVersionValue() {
+        Translog.Location location = randomBoolean()
+            ? null
+            : new Translog.Location(randomNonNegativeLong(), randomNonNegativeLong(), randomInt());
+        return new IndexVersionValue(location, randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong());
+    }
+}
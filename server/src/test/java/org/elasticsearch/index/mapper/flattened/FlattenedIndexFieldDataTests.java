@@ -76,8 +76,10 @@ public class FlattenedIndexFieldDataTests extends ESSingleNodeTestCase {
 
         KeyedFlattenedFieldData fieldData1 = (KeyedFlattenedFieldData) ifd1;
         assertEquals("key", fieldData1.getKey());
+        assertFalse(fieldData1.isGlobalLoaded(reader));
         fieldData1.loadGlobal(reader);
         assertEquals(1, onCacheCalled.get());
+        assertTrue(fieldData1.isGlobalLoaded(reader));
 
         // Load global field data for the subfield 'other_key'.
         MappedFieldType fieldType2 = fieldMapper.fieldType().getChildFieldType("other_key");
@@ -86,6 +88,7 @@ public class FlattenedIndexFieldDataTests extends ESSingleNodeTestCase {
 
         KeyedFlattenedFieldData fieldData2 = (KeyedFlattenedFieldData) ifd2;
         assertEquals("other_key", fieldData2.getKey());
+        assertTrue(fieldData2.isGlobalLoaded(reader));
         fieldData2.loadGlobal(reader);
         assertEquals(1, onCacheCalled.get());
 
@@ -15,9 +15,17 @@ import org.apache.lucene.codecs.KnnVectorsFormat;
 import org.apache.lucene.codecs.lucene94.Lucene94HnswVectorsFormat;
 import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.document.KnnVectorField;
+import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.MultiDocValues;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.VectorSimilarityFunction;
 import org.apache.lucene.search.FieldExistsQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.KnnVectorQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.util.BigArrays;
@@ -33,6 +41,7 @@ import org.elasticsearch.index.mapper.ParsedDocument;
 import org.elasticsearch.index.mapper.vectors.DenseVectorFieldMapper.DenseVectorFieldType;
 import org.elasticsearch.index.mapper.vectors.DenseVectorFieldMapper.ElementType;
 import org.elasticsearch.index.mapper.vectors.DenseVectorFieldMapper.VectorSimilarity;
+import org.elasticsearch.search.vectors.RescoreKnnVectorQuery;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.xcontent.XContentBuilder;
 import org.junit.AssumptionViolatedException;
@@ -702,6 +711,94 @@ public class DenseVectorFieldMapperTests extends MapperTestCase {
         assertEquals(expectedString, knnVectorsFormat.toString());
     }
 
+    public void testInt8HnswIndexOptions() throws Exception {
+        VectorSimilarity similarity = randomFrom(VectorSimilarity.cosine, VectorSimilarity.dot_product);
+        DocumentMapper mapper = createDocumentMapper(fieldMapping(b -> {
+            b.field("type", "dense_vector").field("dims", 3).field("index", true).field("similarity", similarity.name());
+            b.startObject("index_options").field("type", "int8_hnsw").field("m", 16).field("ef_construction", 100).endObject();
+        }));
+
+        float[] vector = { -0.5f, 0.5f, 0.7071f };
+        ParsedDocument doc = mapper.parse(source(b -> b.array("field", vector)));
+
+        IndexableField[] fields = doc.rootDoc().getFields("field");
+        assertEquals(1, fields.length);
+        assertThat(fields[0], instanceOf(KnnVectorField.class));
+        KnnVectorField vectorField = (KnnVectorField) fields[0];
+        assertEquals(new BytesRef(new byte[] { -90, 90, 127 }), vectorField.binaryValue());
+        assertEquals(VectorSimilarityFunction.COSINE, vectorField.fieldType().vectorSimilarityFunction());
+
+        fields = doc.rootDoc().getFields("field" + DenseVectorFieldMapper.RAW_VECTOR_SUFFIX);
+        assertEquals(1, fields.length);
+        assertThat(fields[0], instanceOf(BinaryDocValuesField.class));
+        float[] rawVector = new float[vector.length];
+        VectorEncoderDecoder.decodeDenseVector(fields[0].binaryValue(), rawVector);
+        assertArrayEquals(vector, rawVector, 0f);
+
+        DenseVectorFieldType fieldType = (DenseVectorFieldType) mapper.mappers().getFieldType("field");
+        assertTrue(fieldType.isQuantized());
+        assertThat(fieldType.createKnnQuery(vector, 10, null), instanceOf(KnnVectorQuery.class));
+        assertThat(fieldType.createKnnQuery(vector, 10, null, true), instanceOf(RescoreKnnVectorQuery.class));
+
+        MapperParsingException e = expectThrows(MapperParsingException.class, () -> createDocumentMapper(fieldMapping(b -> {
+            b.field("type", "dense_vector").field("dims", 3).field("index", true).field("similarity", "l2_norm");
+            b.startObject("index_options").field("type", "int8_hnsw").field("m", 16).field("ef_construction", 100).endObject();
+        })));
+        assertThat(e.getMessage(), containsString("[index_options] of type [int8_hnsw] don't support [similarity] [l2_norm]"));
+
+        e = expectThrows(MapperParsingException.class, () -> createDocumentMapper(fieldMapping(b -> {
+            b.field("type", "dense_vector").field("dims", 3).field("index", true).field("similarity", "cosine");
+            b.field("element_type", "byte");
+            b.startObject("index_options").field("type", "int8_hnsw").field("m", 16).field("ef_construction", 100).endObject();
+        })));
+        assertThat(e.getMessage(), containsString("[index_options] of type [int8_hnsw] can only be used with [element_type] [float]"));
+    }
+
+    public void testInt8HnswRescore() throws Exception {
+        int dims = randomIntBetween(2, 16);
+        MapperService mapperService = createMapperService(fieldMapping(b -> {
+            b.field("type", "dense_vector").field("dims", dims).field("index", true).field("similarity", "cosine");
+            b.startObject("index_options").field("type", "int8_hnsw").field("m", 16).field("ef_construction", 100).endObject();
+        }));
+        int numDocs = randomIntBetween(1, 100);
+        float[][] vectors = new float[numDocs][];
+        for (int i = 0; i < numDocs; i++) {
+            vectors[i] = randomNonZeroVector(dims);
+        }
+        float[] queryVector = randomNonZeroVector(dims);
+        int numCands = randomIntBetween(1, numDocs);
+        DenseVectorFieldType fieldType = (DenseVectorFieldType) mapperService.fieldType("field");
+
+        withLuceneIndex(mapperService, iw -> {
+            for (int i = 0; i < numDocs; i++) {
+                float[] vector = vectors[i];
+                LuceneDocument doc = mapperService.documentMapper().parse(source(b -> b.array("field", vector))).rootDoc();
+                doc.add(new NumericDocValuesField("id", i));
+                iw.addDocument(doc);
+            }
+        }, reader -> {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            TopDocs approximate = searcher.search(fieldType.createKnnQuery(queryVector, numCands, null), numCands);
+            TopDocs rescored = searcher.search(fieldType.createKnnQuery(queryVector, numCands, null, true), numCands);
+            assertEquals(approximate.scoreDocs.length, rescored.scoreDocs.length);
+            for (ScoreDoc scoreDoc : rescored.scoreDocs) {
+                NumericDocValues ids = MultiDocValues.getNumericValues(reader, "id");
+                assertTrue(ids.advanceExact(scoreDoc.doc));
+                float[] vector = vectors[(int) ids.longValue()];
+                assertEquals(VectorSimilarityFunction.COSINE.compare(queryVector, vector), scoreDoc.score, 0f);
+            }
+        });
+    }
+
+    private static float[] randomNonZeroVector(int dims) {
+        float[] vector = new float[dims];
+        for (int i = 0; i < dims; i++) {
+            vector[i] = randomFloat();
+        }
+        vector[randomIntBetween(0, dims - 1)] += 1f;
+        return vector;
+    }
+
     @Override
     protected IngestScriptSupport ingestScriptSupport() {
         throw new AssumptionViolatedException("not supported");
@@ -0,0 +1,302 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.store;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.blobstore.BlobContainer;
+import org.elasticsearch.common.blobstore.BlobPath;
+import org.elasticsearch.common.blobstore.fs.FsBlobStore;
+import org.elasticsearch.common.blobstore.support.FilterBlobContainer;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+import org.elasticsearch.repositories.IndexId;
+import org.elasticsearch.snapshots.SnapshotId;
+import org.elasticsearch.test.DummyShardLock;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.IndexSettingsModule;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.elasticsearch.index.store.LazyRestoreDirectory.BLOCK_SIZE_IN_BYTES;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class LazyRestoreDirectoryTests extends ESTestCase {
+
+    private static final ShardId SHARD_ID = new ShardId(new Index("index", "_na_"), 0);
+    private static final LazyRestoreDirectory.Source SOURCE = new LazyRestoreDirectory.Source(
+        "repo",
+        new SnapshotId("snapshot", "_uuid"),
+        new IndexId("index", "_id"),
+        new ShardId(new Index("index", "_snapshot_uuid"), 0)
+    );
+
+    public void testReadsRemoteFilesUntilCopied() throws IOException {
+        final BlobContainer container = newBlobContainer();
+        final Map<String, byte[]> contents = new HashMap<>();
+        final List<FileInfo> files = new ArrayList<>();
+        for (int i = between(1, 5); i > 0; i--) {
+            files.add(uploadFile(container, "_" + i + ".cfs", contents, false));
+        }
+        final Directory inner = new ByteBuffersDirectory();
+        try (Store store = newStore(new LazyRestoreDirectory(inner))) {
+            final LazyRestoreDirectory directory = LazyRestoreDirectory.unwrap(store.directory());
+            assertNotNull(directory);
+            assertFalse(directory.hasRemoteFiles());
+            assertNull(directory.source());
+
+            directory.addRemoteFiles(SOURCE, container, between(1, 1024), files);
+            assertTrue(directory.hasRemoteFiles());
+            assertThat(directory.source(), equalTo(SOURCE));
+            assertThat(directory.remoteSizeInBytes(), equalTo(files.stream().mapToLong(FileInfo::length).sum()));
+            assertThat(directory.listAll(), arrayContaining(contents.keySet().stream().sorted().toArray(String[]::new)));
+            assertThat(inner.listAll(), arrayContaining(LazyRestoreDirectory.stateFileName(1)));
+
+            final List<IndexInput> inputs = new ArrayList<>();
+            try {
+                for (FileInfo file : files) {
+                    assertThat(directory.fileLength(file.physicalName()), equalTo(file.length()));
+                    final IndexInput input = directory.openInput(file.physicalName(), IOContext.DEFAULT);
+                    inputs.add(input);
+                    assertReadsContent(input, contents.get(file.physicalName()));
+                }
+
+                final AtomicLong copiedBytes = new AtomicLong();
+                final AtomicBoolean completed = new AtomicBoolean();
+                directory.addCompletionListener(() -> assertTrue(completed.compareAndSet(false, true)));
+                assertFalse(completed.get());
+                directory.copyRemoteFiles(
+                    store,
+                    EsExecutors.DIRECT_EXECUTOR_SERVICE,
+                    stream -> stream,
+                    (file, bytes) -> copiedBytes.addAndGet(bytes)
+                );
+                assertFalse(directory.hasRemoteFiles());
+                assertNull(directory.source());
+                assertTrue(completed.get());
+                final AtomicBoolean completedLater = new AtomicBoolean();
+                directory.addCompletionListener(() -> completedLater.set(true));
+                assertTrue(completedLater.get());
+                assertThat(copiedBytes.get(), equalTo(files.stream().mapToLong(FileInfo::length).sum()));
+                assertThat(inner.listAll(), arrayContaining(contents.keySet().stream().sorted().toArray(String[]::new)));
+
+                // inputs that were opened before the files were copied read them locally once the blobs are gone
+                container.delete();
+                for (int i = 0; i < files.size(); i++) {
+                    assertReadsContent(inputs.get(i), contents.get(files.get(i).physicalName()));
+                }
+            } finally {
+                for (IndexInput input : inputs) {
+                    input.close();
+                }
+            }
+            for (String file : contents.keySet()) {
+                try (IndexInput input = inner.openInput(file, IOContext.READONCE)) {
+                    CodecUtil.checksumEntireFile(input);
+                }
+            }
+        }
+    }
+
+    public void testRemoteFilesAreResumedAfterReopening() throws IOException {
+        final BlobContainer container = newBlobContainer();
+        final Map<String, byte[]> contents = new HashMap<>();
+        final List<FileInfo> files = List.of(
+            uploadFile(container, "_0.cfs", contents, false),
+            uploadFile(container, "_0.cfe", contents, false)
+        );
+        final Directory inner = new ByteBuffersDirectory();
+        new LazyRestoreDirectory(inner).addRemoteFiles(SOURCE, container, between(1, 1024), files);
+
+        try (Store store = newStore(new LazyRestoreDirectory(inner))) {
+            final LazyRestoreDirectory directory = LazyRestoreDirectory.unwrap(store.directory());
+            assertThat(directory.source(), equalTo(SOURCE));
+            assertThat(directory.listAll(), arrayContaining("_0.cfe", "_0.cfs"));
+            assertThat(directory.fileLength("_0.cfs"), equalTo(files.get(0).length()));
+            expectThrows(IOException.class, () -> directory.openInput("_0.cfs", IOContext.DEFAULT));
+
+            directory.resume(container, between(1, 1024), files);
+            try (IndexInput input = directory.openInput("_0.cfs", IOContext.DEFAULT)) {
+                assertReadsContent(input, contents.get("_0.cfs"));
+            }
+
+            // deleting a remote file only forgets it
+            directory.deleteFile("_0.cfe");
+            assertThat(directory.listAll(), arrayContaining("_0.cfs"));
+            assertThat(new LazyRestoreDirectory(inner).listAll(), arrayContaining("_0.cfs"));
+
+            directory.copyRemoteFiles(store, EsExecutors.DIRECT_EXECUTOR_SERVICE, stream -> stream, (f, b) -> {});
+            assertFalse(directory.hasRemoteFiles());
+            assertThat(inner.listAll(), arrayContaining("_0.cfs"));
+        }
+    }
+
+    public void testCorruptedFileIsNotCopied() throws IOException {
+        final BlobContainer container = newBlobContainer();
+        final Map<String, byte[]> contents = new HashMap<>();
+        final FileInfo file = uploadFile(container, "_0.cfs", contents, true);
+        final Directory inner = new ByteBuffersDirectory();
+        try (Store store = newStore(new LazyRestoreDirectory(inner))) {
+            final LazyRestoreDirectory directory = LazyRestoreDirectory.unwrap(store.directory());
+            directory.addRemoteFiles(SOURCE, container, between(1, 1024), List.of(file));
+            directory.addCompletionListener(() -> fail("copying a corrupted file must not complete"));
+            directory.copyRemoteFiles(store, EsExecutors.DIRECT_EXECUTOR_SERVICE, stream -> stream, (f, b) -> {});
+            assertTrue(directory.hasRemoteFiles());
+            assertThat(inner.listAll(), arrayContaining(LazyRestoreDirectory.stateFileName(1)));
+            expectThrows(FileAlreadyExistsException.class, () -> directory.createOutput("_0.cfs", IOContext.DEFAULT));
+        }
+    }
+
+    public void testRemoteBlocksAreCached() throws IOException {
+        final AtomicInteger rangedReads = new AtomicInteger();
+        final BlobContainer container = new FilterBlobContainer(newBlobContainer()) {
+            @Override
+            protected BlobContainer wrapChild(BlobContainer child) {
+                return child;
+            }
+
+            @Override
+            public InputStream readBlob(String blobName, long position, long length) throws IOException {
+                rangedReads.incrementAndGet();
+                return super.readBlob(blobName, position, length);
+            }
+        };
+        final Map<String, byte[]> contents = new HashMap<>();
+        final FileInfo file = uploadFile(container, "_0.cfs", contents, false);
+        try (LazyRestoreDirectory directory = new LazyRestoreDirectory(new ByteBuffersDirectory())) {
+            // small buffers refill often, but each block is only read once from each part it spans
+            directory.addRemoteFiles(SOURCE, container, between(8, 64), List.of(file));
+            try (IndexInput input = directory.openInput("_0.cfs", IOContext.DEFAULT)) {
+                assertReadsContent(input, contents.get("_0.cfs"));
+                final int reads = rangedReads.get();
+                assertThat(reads, lessThanOrEqualTo(file.numberOfParts() + Math.toIntExact(file.length() / BLOCK_SIZE_IN_BYTES)));
+                try (IndexInput other = directory.openInput("_0.cfs", IOContext.DEFAULT)) {
+                    assertReadsContent(other, contents.get("_0.cfs"));
+                }
+                assertReadsContent(input, contents.get("_0.cfs"));
+                assertThat(rangedReads.get(), equalTo(reads));
+            }
+        }
+    }
+
+    public void testRemoteFilesMustNotExistLocally() throws IOException {
+        final BlobContainer container = newBlobContainer();
+        final FileInfo file = uploadFile(container, "_0.cfs", new HashMap<>(), false);
+        try (LazyRestoreDirectory directory = new LazyRestoreDirectory(new ByteBuffersDirectory())) {
+            try (IndexOutput output = directory.createOutput("_0.cfs", IOContext.DEFAULT)) {
+                CodecUtil.writeFooter(output);
+            }
+            expectThrows(
+                FileAlreadyExistsException.class,
+                () -> directory.addRemoteFiles(SOURCE, container, between(1, 1024), List.of(file))
+            );
+            assertFalse(directory.hasRemoteFiles());
+        }
+    }
+
+    private static Store newStore(Directory directory) {
+        return new Store(
+            SHARD_ID,
+            IndexSettingsModule.newIndexSettings("index", Settings.EMPTY),
+            directory,
+            new DummyShardLock(SHARD_ID)
+        );
+    }
+
+    private BlobContainer newBlobContainer() throws IOException {
+        return new FsBlobStore(randomIntBetween(1, 8) * 1024, createTempDir(), false).blobContainer(BlobPath.EMPTY);
+    }
+
+    /**
+     * Reads the whole input, a random slice and a random clone of it.
+     */
+    private static void assertReadsContent(IndexInput input, byte[] expected) throws IOException {
+        assertThat(input.length(), equalTo((long) expected.length));
+        final byte[] bytes = new byte[expected.length];
+        input.seek(0L);
+        input.readBytes(bytes, 0, bytes.length);
+        assertArrayEquals(expected, bytes);
+
+        final int sliceOffset = between(0, expected.length);
+        final int sliceLength = between(0, expected.length - sliceOffset);
+        try (IndexInput slice = input.slice("slice", sliceOffset, sliceLength)) {
+            final byte[] sliceBytes = new byte[sliceLength];
+            slice.readBytes(sliceBytes, 0, sliceLength);
+            assertArrayEquals(Arrays.copyOfRange(expected, sliceOffset, sliceOffset + sliceLength), sliceBytes);
+        }
+
+        final IndexInput clone = input.clone();
+        final int position = between(0, expected.length - 1);
+        clone.seek(position);
+        assertThat(clone.readByte(), equalTo(expected[position]));
+    }
+
+    /**
+     * Writes a file with a codec footer to the given container, split into several parts, optionally flipping a byte of the uploaded file
+     * after its checksum was computed.
+     */
+    private static FileInfo uploadFile(BlobContainer container, String name, Map<String, byte[]> contents, boolean corrupt)
+        throws IOException {
+        final byte[] bytes;
+        final String checksum;
+        try (Directory directory = new ByteBuffersDirectory()) {
+            try (IndexOutput output = directory.createOutput(name, IOContext.DEFAULT)) {
+                CodecUtil.writeHeader(output, "test", 0);
+                final byte[] content = randomByteArrayOfLength(between(1, 10_000));
+                output.writeBytes(content, content.length);
+                CodecUtil.writeFooter(output);
+            }
+            try (IndexInput input = directory.openInput(name, IOContext.READONCE)) {
+                checksum = Store.digestToString(CodecUtil.retrieveChecksum(input));
+                bytes = new byte[Math.toIntExact(input.length())];
+                input.seek(0L);
+                input.readBytes(bytes, 0, bytes.length);
+            }
+        }
+        contents.put(name, bytes.clone());
+        if (corrupt) {
+            final int position = between(0, bytes.length - CodecUtil.footerLength() - 1);
+            bytes[position] = (byte) (bytes[position] ^ 0xFF);
+        }
+        final StoreFileMetadata metadata = new StoreFileMetadata(name, bytes.length, checksum, Version.CURRENT.luceneVersion.toString());
+        final FileInfo fileInfo = new FileInfo(
+            "__" + randomAlphaOfLength(10),
+            metadata,
+            randomBoolean() ? null : ByteSizeValue.ofBytes(randomLongBetween(Math.max(1L, bytes.length / 20), bytes.length))
+        );
+        for (int part = 0; part < fileInfo.numberOfParts(); part++) {
+            final int start = part == 0 ? 0 : Math.toIntExact(part * fileInfo.partSize().getBytes());
+            final int length = Math.toIntExact(fileInfo.partBytes(part));
+            container.writeBlob(fileInfo.partName(part), new BytesArray(bytes, start, length), true);
+        }
+        return fileInfo;
+    }
+}
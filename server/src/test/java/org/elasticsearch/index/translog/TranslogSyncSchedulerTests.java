@@ -0,0 +1,298 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.network.HandlingTimeTracker;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class TranslogSyncSchedulerTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool(getTestName());
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        terminate(threadPool);
+        super.tearDown();
+    }
+
+    private TranslogSyncScheduler newScheduler(String window) {
+        return newScheduler(window, threadPool.executor(ThreadPool.Names.FLUSH));
+    }
+
+    private static TranslogSyncScheduler newScheduler(String window, Executor executor) {
+        final Settings settings = Settings.builder().put(TranslogSyncScheduler.GROUP_COMMIT_WINDOW_SETTING.getKey(), window).build();
+        return new TranslogSyncScheduler(
+            settings,
+            new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+            new ThreadContext(Settings.EMPTY),
+            executor
+        );
+    }
+
+    public void testGroupCommitDisabledByDefault() {
+        final TranslogSyncScheduler scheduler = new TranslogSyncScheduler(
+            Settings.EMPTY,
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
+            new ThreadContext(Settings.EMPTY),
+            EsExecutors.DIRECT_EXECUTOR_SERVICE
+        );
+        assertFalse(scheduler.isGroupCommitEnabled());
+        assertTrue(newScheduler("1ms").isGroupCommitEnabled());
+    }
+
+    public void testDynamicUpdate() {
+        final ClusterSettings clusterSettings = new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        final TranslogSyncScheduler scheduler = new TranslogSyncScheduler(
+            Settings.EMPTY,
+            clusterSettings,
+            new ThreadContext(Settings.EMPTY),
+            EsExecutors.DIRECT_EXECUTOR_SERVICE
+        );
+        assertFalse(scheduler.isGroupCommitEnabled());
+        clusterSettings.applySettings(
+            Settings.builder().put(TranslogSyncScheduler.GROUP_COMMIT_WINDOW_SETTING.getKey(), "500micros").build()
+        );
+        assertTrue(scheduler.isGroupCommitEnabled());
+        clusterSettings.applySettings(Settings.EMPTY);
+        assertFalse(scheduler.isGroupCommitEnabled());
+    }
+
+    public void testCoalescesSyncsOfTheSameShard() throws Exception {
+        final TranslogSyncScheduler scheduler = newScheduler("5ms");
+        final Path dataPath = createTempDir();
+        final int numShards = randomIntBetween(1, 5);
+        final AtomicInteger[] syncCalls = new AtomicInteger[numShards];
+        final AtomicInteger[] syncedLocations = new AtomicInteger[numShards];
+        final List<CheckedConsumer<List<Translog.Location>, IOException>> syncers = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < numShards; i++) {
+            final AtomicInteger calls = syncCalls[i] = new AtomicInteger();
+            final AtomicInteger locations = syncedLocations[i] = new AtomicInteger();
+            syncers.add(l -> {
+                calls.incrementAndGet();
+                locations.addAndGet(l.size());
+            });
+        }
+
+        final int numThreads = randomIntBetween(2, 8);
+        final int syncsPerThread = scaledRandomIntBetween(10, 200);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(numThreads * syncsPerThread);
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Thread[] threads = new Thread[numThreads];
+        for (int t = 0; t < numThreads; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                for (int i = 0; i < syncsPerThread; i++) {
+                    final int shard = randomIntBetween(0, numShards - 1);
+                    scheduler.sync(dataPath, syncers.get(shard), new Translog.Location(1, i, 1), e -> {
+                        if (e != null) {
+                            failure.set(e);
+                        }
+                        done.countDown();
+                    });
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(failure.get(), nullValue());
+
+        long totalCalls = 0;
+        long totalLocations = 0;
+        for (int i = 0; i < numShards; i++) {
+            totalCalls += syncCalls[i].get();
+            totalLocations += syncedLocations[i].get();
+        }
+        assertThat(totalLocations, equalTo((long) numThreads * syncsPerThread));
+
+        final TranslogSyncStats stats = scheduler.stats(dataPath);
+        assertThat(stats.getOperations(), equalTo((long) numThreads * syncsPerThread));
+        assertThat(stats.getSyncs(), equalTo(totalCalls));
+        // each batch syncs every shard at most once
+        assertThat(stats.getSyncs(), lessThanOrEqualTo(stats.getBatches() * numShards));
+        assertThat(stats.getBatches(), greaterThan(0L));
+        assertThat(sum(stats.getBatchSizeBucketFrequencies()), equalTo(stats.getBatches()));
+        assertThat(sum(stats.getLatencyBucketFrequencies()), equalTo(stats.getBatches()));
+    }
+
+    public void testFailuresAreOnlyPropagatedToTheFailingShard() throws Exception {
+        final TranslogSyncScheduler scheduler = newScheduler("1ms");
+        final Path dataPath = createTempDir();
+        final IOException exception = new IOException("simulated");
+        final CheckedConsumer<List<Translog.Location>, IOException> failing = l -> { throw exception; };
+        final CheckedConsumer<List<Translog.Location>, IOException> succeeding = l -> {};
+
+        final AtomicReference<Exception> failingResult = new AtomicReference<>();
+        final AtomicReference<Exception> succeedingResult = new AtomicReference<>();
+        final CountDownLatch latch = new CountDownLatch(2);
+        final Thread thread = new Thread(() -> scheduler.sync(dataPath, failing, new Translog.Location(1, 0, 1), e -> {
+            failingResult.set(e);
+            latch.countDown();
+        }));
+        thread.start();
+        scheduler.sync(dataPath, succeeding, new Translog.Location(1, 0, 1), e -> {
+            succeedingResult.set(e);
+            latch.countDown();
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        thread.join();
+        assertThat(failingResult.get(), sameInstance(exception));
+        assertThat(succeedingResult.get(), nullValue());
+    }
+
+    public void testSyncsTheShardsOfABatchInParallel() throws Exception {
+        final TranslogSyncScheduler scheduler = newScheduler("100ms");
+        final Path dataPath = createTempDir();
+        // each shard only completes its sync once the other one is syncing too
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final CheckedConsumer<List<Translog.Location>, IOException> syncer = l -> {
+            try {
+                barrier.await(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IOException("shards weren't synced in parallel", e);
+            }
+        };
+        final CheckedConsumer<List<Translog.Location>, IOException> otherSyncer = syncer::accept;
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final CountDownLatch latch = new CountDownLatch(2);
+        final Thread[] threads = new Thread[2];
+        for (int i = 0; i < threads.length; i++) {
+            final CheckedConsumer<List<Translog.Location>, IOException> shardSyncer = i == 0 ? syncer : otherSyncer;
+            threads[i] = new Thread(() -> scheduler.sync(dataPath, shardSyncer, new Translog.Location(1, 0, 1), e -> {
+                if (e != null) {
+                    failure.set(e);
+                }
+                latch.countDown();
+            }));
+            threads[i].start();
+        }
+        assertTrue(latch.await(30, TimeUnit.SECONDS));
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(failure.get(), nullValue());
+        final TranslogSyncStats stats = scheduler.stats(dataPath);
+        assertThat(stats.getBatches(), equalTo(1L));
+        assertThat(stats.getSyncs(), equalTo(2L));
+    }
+
+    public void testLeaderHandsOverAfterMaxBatches() {
+        final List<Runnable> handedOver = new ArrayList<>();
+        final TranslogSyncScheduler scheduler = newScheduler("1ms", handedOver::add);
+        final Path dataPath = createTempDir();
+        final int totalSyncs = TranslogSyncScheduler.MAX_BATCHES_PER_LEADER * 2 + randomIntBetween(1, 5);
+        final AtomicInteger syncs = new AtomicInteger();
+        final AtomicInteger notified = new AtomicInteger();
+        final CheckedConsumer<List<Translog.Location>, IOException> syncer = new CheckedConsumer<>() {
+            @Override
+            public void accept(List<Translog.Location> locations) {
+                // a new sync keeps arriving while the previous batch is being synced
+                if (syncs.incrementAndGet() < totalSyncs) {
+                    scheduler.sync(dataPath, this, new Translog.Location(1, syncs.get(), 1), e -> notified.incrementAndGet());
+                }
+            }
+        };
+        scheduler.sync(dataPath, syncer, new Translog.Location(1, 0, 1), e -> notified.incrementAndGet());
+        assertThat(syncs.get(), equalTo(TranslogSyncScheduler.MAX_BATCHES_PER_LEADER));
+        assertThat(handedOver.size(), equalTo(1));
+        while (handedOver.isEmpty() == false) {
+            handedOver.remove(0).run();
+        }
+        assertThat(syncs.get(), equalTo(totalSyncs));
+        assertThat(notified.get(), equalTo(totalSyncs));
+    }
+
+    public void testErrorDoesNotStallTheDataPath() {
+        final TranslogSyncScheduler scheduler = newScheduler("1ms", EsExecutors.DIRECT_EXECUTOR_SERVICE);
+        final Path dataPath = createTempDir();
+        final AssertionError error = new AssertionError("simulated");
+        final AtomicBoolean notified = new AtomicBoolean();
+        assertThat(
+            expectThrows(
+                AssertionError.class,
+                () -> scheduler.sync(dataPath, l -> { throw error; }, new Translog.Location(1, 0, 1), e -> fail())
+            ),
+            sameInstance(error)
+        );
+        scheduler.sync(dataPath, l -> {}, new Translog.Location(1, 0, 1), e -> notified.set(e == null));
+        assertTrue(notified.get());
+    }
+
+    public void testStatsOfUncoalescedSyncs() throws IOException {
+        final TranslogSyncScheduler scheduler = newScheduler("0s");
+        final Path dataPath = createTempDir();
+        assertThat(scheduler.stats(dataPath), nullValue());
+        scheduler.onSynced(dataPath, 3, TimeUnit.MICROSECONDS.toNanos(10));
+        scheduler.onSynced(dataPath, 1, TimeUnit.MICROSECONDS.toNanos(1000));
+        final TranslogSyncStats stats = scheduler.stats(dataPath);
+        assertThat(stats.getBatches(), equalTo(2L));
+        assertThat(stats.getSyncs(), equalTo(2L));
+        assertThat(stats.getOperations(), equalTo(4L));
+        assertThat(stats.getBatchSizeBucketFrequencies().length, equalTo(HandlingTimeTracker.BUCKET_COUNT));
+        assertThat(sum(stats.getLatencyBucketFrequencies()), equalTo(2L));
+        assertThat(scheduler.stats(createTempDir()), nullValue());
+
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            stats.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                assertThat(new TranslogSyncStats(in), equalTo(stats));
+            }
+        }
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+}
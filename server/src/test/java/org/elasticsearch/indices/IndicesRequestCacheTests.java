@@ -39,6 +39,7 @@ import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.xcontent.XContentType;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -396,6 +397,83 @@ public class IndicesRequestCacheTests extends ESTestCase {
 
     }
 
+    public void testDiskTier() throws Exception {
+        Path diskTierPath = createTempDir();
+        Settings settings = Settings.builder()
+            .put(IndicesRequestCache.INDICES_CACHE_QUERY_SIZE.getKey(), "1b")
+            .put(IndicesRequestCache.INDICES_CACHE_DISK_SIZE.getKey(), "1mb")
+            .build();
+        ShardRequestCache requestCacheStats = new ShardRequestCache();
+        AtomicBoolean indexShard = new AtomicBoolean(true);
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        writer.addDocument(newDoc(0, "foo"));
+        writer.commit();
+        MappingLookup.CacheKey mappingKey = MappingLookup.EMPTY.cacheKey();
+        TermQueryBuilder termQuery = new TermQueryBuilder("id", "0");
+        BytesReference termBytes = XContentHelper.toXContent(termQuery, XContentType.JSON, false);
+        TestEntity entity = new TestEntity(requestCacheStats, indexShard, "shard");
+
+        IndicesRequestCache cache = new IndicesRequestCache(settings, diskTierPath);
+        DirectoryReader reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(dir), new ShardId("foo", "bar", 1));
+
+        // the heap is too small to hold the entry, so it is spilled to disk right away
+        Loader loader = new Loader(reader, 0);
+        BytesReference value = cache.getOrCompute(entity, loader, mappingKey, reader, termBytes);
+        assertEquals("foo", value.streamInput().readString());
+        assertFalse(loader.loadedFromCache);
+        assertEquals(0, cache.count());
+        assertEquals(1, cache.diskCount());
+        assertEquals(1, requestCacheStats.stats().getMissCount());
+        assertEquals(1, requestCacheStats.stats().getDiskMissCount());
+        assertEquals(1, requestCacheStats.stats().getEvictions());
+        assertEquals(1, requestCacheStats.stats().getSpillCount());
+
+        // the heap miss is served by the disk tier
+        loader = new Loader(reader, 0);
+        value = cache.getOrCompute(entity, loader, mappingKey, reader, termBytes);
+        assertEquals("foo", value.streamInput().readString());
+        assertTrue(loader.loadedFromCache);
+        assertEquals(1, requestCacheStats.stats().getDiskHitCount());
+        assertEquals(1, requestCacheStats.stats().getSpillCount());
+        IOUtils.close(reader, cache);
+
+        // the disk tier is reloaded and serves readers that open the same segments
+        cache = new IndicesRequestCache(settings, diskTierPath);
+        assertEquals(1, cache.diskCount());
+        reader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(dir), new ShardId("foo", "bar", 1));
+        loader = new Loader(reader, 0);
+        value = cache.getOrCompute(entity, loader, mappingKey, reader, termBytes);
+        assertEquals("foo", value.streamInput().readString());
+        assertTrue(loader.loadedFromCache);
+        assertEquals(2, requestCacheStats.stats().getDiskHitCount());
+
+        // but not readers of a different point in time
+        writer.updateDocument(new Term("id", "0"), newDoc(0, "bar"));
+        writer.commit();
+        DirectoryReader secondReader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(dir), new ShardId("foo", "bar", 1));
+        loader = new Loader(secondReader, 0);
+        value = cache.getOrCompute(entity, loader, mappingKey, secondReader, termBytes);
+        assertEquals("bar", value.streamInput().readString());
+        assertFalse(loader.loadedFromCache);
+        assertEquals(2, requestCacheStats.stats().getDiskMissCount());
+        assertEquals(2, cache.diskCount());
+
+        // entities without a persistent identity are not spilled
+        TestEntity transientEntity = new TestEntity(requestCacheStats, new AtomicBoolean(true));
+        loader = new Loader(secondReader, 0);
+        value = cache.getOrCompute(transientEntity, loader, mappingKey, secondReader, termBytes);
+        assertEquals("bar", value.streamInput().readString());
+        assertFalse(loader.loadedFromCache);
+        assertEquals(2, cache.diskCount());
+
+        // clearing the cache of the entity clears its entries on disk as well
+        cache.clear(entity);
+        assertEquals(0, cache.diskCount());
+
+        IOUtils.close(reader, secondReader, writer, dir, cache);
+    }
+
     public Iterable<Field> newDoc(int id, String value) {
         return Arrays.asList(
             newField("id", Integer.toString(id), StringField.TYPE_STORED),
@@ -616,10 +694,16 @@ public class IndicesRequestCacheTests extends ESTestCase {
     private static class TestEntity extends AbstractIndexShardCacheEntity {
         private final AtomicBoolean standInForIndexShard;
         private final ShardRequestCache shardRequestCache;
+        private final String persistentIdentity;
 
         private TestEntity(ShardRequestCache shardRequestCache, AtomicBoolean standInForIndexShard) {
+            this(shardRequestCache, standInForIndexShard, null);
+        }
+
+        private TestEntity(ShardRequestCache shardRequestCache, AtomicBoolean standInForIndexShard, String persistentIdentity) {
             this.standInForIndexShard = standInForIndexShard;
             this.shardRequestCache = shardRequestCache;
+            this.persistentIdentity = persistentIdentity;
         }
 
         @Override
@@ -637,6 +721,11 @@ public class IndicesRequestCacheTests extends ESTestCase {
             return standInForIndexShard;
         }
 
+        @Override
+        public String getPersistentIdentity() {
+            return persistentIdentity;
+        }
+
         @Override
         public long ramBytesUsed() {
             return 42;
@@ -318,6 +318,15 @@ public class IndicesServiceCloseTests extends ESTestCase {
 
             @Override
             public void onRemoval(RemovalNotification<Key, BytesReference> notification) {}
+
+            @Override
+            public void onDiskHit() {}
+
+            @Override
+            public void onDiskMiss() {}
+
+            @Override
+            public void onSpilled() {}
         };
         MappingLookup.CacheKey mappingCacheKey = indexService.mapperService().mappingLookup().cacheKey();
         cache.getOrCompute(cacheEntity, () -> new BytesArray("bar"), mappingCacheKey, searcher.getDirectoryReader(), new BytesArray("foo"));
@@ -0,0 +1,166 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.test.ESTestCase;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class RequestCacheDiskTierTests extends ESTestCase {
+
+    private static RequestCacheDiskTier.DiskKey key(int i) {
+        return new RequestCacheDiskTier.DiskKey("shard", "mapping", "reader", new BytesArray("request-" + i));
+    }
+
+    private static BytesReference value(int i) {
+        return new BytesArray(randomAlphaOfLength(100) + i);
+    }
+
+    public void testPutGetInvalidate() throws Exception {
+        try (RequestCacheDiskTier tier = new RequestCacheDiskTier(createTempDir(), 1 << 20)) {
+            final BytesReference value = value(0);
+            assertTrue(tier.put(key(0), value));
+            assertFalse(tier.put(key(0), value(0)));
+            assertThat(tier.get(key(0)), equalTo(value));
+            assertThat(tier.get(key(1)), nullValue());
+            assertThat(tier.get(new RequestCacheDiskTier.DiskKey("other", "mapping", "reader", new BytesArray("request-0"))), nullValue());
+            assertThat(tier.count(), equalTo(1));
+
+            tier.invalidate(key(0));
+            assertThat(tier.get(key(0)), nullValue());
+            assertThat(tier.count(), equalTo(0));
+
+            // entries larger than a generation are not stored
+            assertFalse(tier.put(key(1), new BytesArray(new byte[1 << 20])));
+        }
+    }
+
+    public void testInvalidateAll() throws Exception {
+        try (RequestCacheDiskTier tier = new RequestCacheDiskTier(createTempDir(), 1 << 20)) {
+            final int numEntries = randomIntBetween(1, 20);
+            for (int i = 0; i < numEntries; i++) {
+                assertTrue(tier.put(key(i), value(i)));
+            }
+            final RequestCacheDiskTier.DiskKey otherShard = new RequestCacheDiskTier.DiskKey(
+                "other",
+                "mapping",
+                "reader",
+                new BytesArray("request-0")
+            );
+            assertTrue(tier.put(otherShard, value(0)));
+            tier.invalidateAll("shard");
+            assertThat(tier.count(), equalTo(1));
+            assertThat(tier.get(key(0)), nullValue());
+            assertNotNull(tier.get(otherShard));
+        }
+    }
+
+    public void testEvictsOldestGenerations() throws Exception {
+        final long maxSizeInBytes = 8 << 10;
+        try (RequestCacheDiskTier tier = new RequestCacheDiskTier(createTempDir(), maxSizeInBytes)) {
+            final int numEntries = 500;
+            for (int i = 0; i < numEntries; i++) {
+                assertTrue(tier.put(key(i), value(i)));
+                assertThat(tier.sizeInBytes(), lessThanOrEqualTo(maxSizeInBytes));
+            }
+            assertThat(tier.count(), greaterThan(0));
+            assertThat(tier.count(), lessThan(numEntries));
+            assertThat(tier.get(key(0)), nullValue());
+            assertNotNull(tier.get(key(numEntries - 1)));
+        }
+    }
+
+    public void testConcurrentReadsAndWrites() throws Exception {
+        final long maxSizeInBytes = 16 << 10;
+        final int numEntries = 200;
+        final List<BytesReference> values = new ArrayList<>();
+        for (int i = 0; i < numEntries; i++) {
+            values.add(value(i));
+        }
+        try (RequestCacheDiskTier tier = new RequestCacheDiskTier(createTempDir(), maxSizeInBytes)) {
+            final Thread[] threads = new Thread[randomIntBetween(2, 4)];
+            final CyclicBarrier barrier = new CyclicBarrier(threads.length);
+            final AtomicReference<Throwable> failure = new AtomicReference<>();
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    try {
+                        barrier.await();
+                        for (int iter = 0; iter < 1000; iter++) {
+                            final int i = randomIntBetween(0, numEntries - 1);
+                            if (randomBoolean()) {
+                                tier.put(key(i), values.get(i));
+                            } else {
+                                // entries may be evicted at any time, but never return the value of another entry
+                                final BytesReference value = tier.get(key(i));
+                                if (value != null) {
+                                    assertThat(value, equalTo(values.get(i)));
+                                }
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertNull(failure.get());
+            assertThat(tier.sizeInBytes(), lessThanOrEqualTo(maxSizeInBytes));
+            assertThat(tier.count(), greaterThan(0));
+        }
+    }
+
+    public void testReloadTruncatesPartialRecords() throws Exception {
+        final Path path = createTempDir();
+        final int numEntries = randomIntBetween(1, 50);
+        final List<BytesReference> values = new ArrayList<>();
+        try (RequestCacheDiskTier tier = new RequestCacheDiskTier(path, 1 << 20)) {
+            for (int i = 0; i < numEntries; i++) {
+                values.add(value(i));
+                assertTrue(tier.put(key(i), values.get(i)));
+            }
+        }
+
+        // simulate a node that stopped in the middle of writing a record
+        final List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path, RequestCacheDiskTier.FILE_PREFIX + "*")) {
+            stream.forEach(files::add);
+        }
+        Files.write(randomFrom(files), randomByteArrayOfLength(randomIntBetween(1, 64)), StandardOpenOption.APPEND);
+
+        try (RequestCacheDiskTier tier = new RequestCacheDiskTier(path, 1 << 20)) {
+            assertThat(tier.count(), equalTo(numEntries));
+            for (int i = 0; i < numEntries; i++) {
+                assertThat(tier.get(key(i)), equalTo(values.get(i)));
+            }
+            // new entries go to a new generation
+            assertTrue(tier.put(key(numEntries), value(numEntries)));
+        }
+        try (RequestCacheDiskTier tier = new RequestCacheDiskTier(path, 1 << 20)) {
+            assertThat(tier.count(), equalTo(numEntries + 1));
+        }
+    }
+}
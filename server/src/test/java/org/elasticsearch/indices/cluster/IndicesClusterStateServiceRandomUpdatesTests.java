@@ -33,9 +33,11 @@ import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.allocation.FailedShard;
+import org.elasticsearch.cluster.service.ClusterApplierService;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.seqno.RetentionLeaseSyncer;
@@ -60,7 +62,6 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
@@ -511,9 +512,14 @@ public class IndicesClusterStateServiceRandomUpdatesTests extends AbstractIndice
         final Supplier<MockIndicesService> indicesServiceSupplier
     ) {
         final ThreadPool threadPool = mock(ThreadPool.class);
-        when(threadPool.generic()).thenReturn(mock(ExecutorService.class));
+        // a real executor, so that several indices are created and updated concurrently
+        when(threadPool.generic()).thenReturn(this.threadPool.generic());
         final MockIndicesService indicesService = indicesServiceSupplier.get();
-        final Settings settings = Settings.builder().put("node.name", discoveryNode.getName()).build();
+        final Settings settings = Settings.builder()
+            .put("node.name", discoveryNode.getName())
+            .put(IndicesClusterStateService.CONCURRENT_INDEX_OPERATIONS_SETTING.getKey(), between(1, 4))
+            .build();
+        when(threadPool.getThreadContext()).thenReturn(new ThreadContext(settings));
         final TransportService transportService = new TransportService(
             settings,
             mock(Transport.class),
@@ -524,6 +530,7 @@ public class IndicesClusterStateServiceRandomUpdatesTests extends AbstractIndice
             Collections.emptySet()
         );
         final ClusterService clusterService = mock(ClusterService.class);
+        when(clusterService.getClusterApplierService()).thenReturn(mock(ClusterApplierService.class));
         final RepositoriesService repositoriesService = new RepositoriesService(
             settings,
             clusterService,
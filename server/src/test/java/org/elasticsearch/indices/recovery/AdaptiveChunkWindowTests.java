@@ -0,0 +1,191 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class AdaptiveChunkWindowTests extends ESTestCase {
+
+    private static final int CHUNK_SIZE = 512 * 1024;
+    private static final long RTT = TimeValue.timeValueMillis(2).nanos();
+
+    private final AtomicLong time = new AtomicLong(randomLongBetween(0, Long.MAX_VALUE / 2));
+
+    /**
+     * Acknowledges a full window of chunks that each took {@code rtt} nanos.
+     */
+    private void acknowledgeWindow(AdaptiveChunkWindow window, long rtt) {
+        final int inFlight = window.window();
+        final int chunkSize = window.chunkSizeInBytes();
+        final long sentAt = time.get();
+        time.addAndGet(rtt);
+        for (int i = 0; i < inFlight; i++) {
+            window.onChunkAcknowledged(chunkSize, sentAt, time.get());
+        }
+    }
+
+    public void testSlowStartGrowsToMaxWindow() {
+        final int maxWindow = between(2, 8);
+        final AdaptiveChunkWindow window = new AdaptiveChunkWindow(maxWindow, CHUNK_SIZE, time::get);
+        assertThat(window.window(), equalTo(1));
+        assertThat(window.chunkSizeInBytes(), equalTo(CHUNK_SIZE));
+        for (int i = 0; i < 10 && window.window() < maxWindow; i++) {
+            acknowledgeWindow(window, RTT);
+        }
+        assertThat(window.window(), equalTo(maxWindow));
+        acknowledgeWindow(window, RTT);
+        assertThat(window.window(), equalTo(maxWindow));
+        assertThat(window.chunkSizeInBytes(), equalTo(CHUNK_SIZE));
+    }
+
+    public void testGrowsPastConfiguredValuesWhenNotThrottled() {
+        final int configuredWindow = between(1, 8);
+        final AdaptiveChunkWindow window = new AdaptiveChunkWindow(configuredWindow, CHUNK_SIZE, 16, 4 * CHUNK_SIZE, () -> 0L, time::get);
+        for (int i = 0; i < 100; i++) {
+            acknowledgeWindow(window, RTT);
+            assertThat(window.window(), lessThanOrEqualTo(16));
+            assertThat(window.chunkSizeInBytes(), lessThanOrEqualTo(4 * CHUNK_SIZE));
+        }
+        assertThat(window.window(), equalTo(16));
+        assertThat(window.chunkSizeInBytes(), equalTo(4 * CHUNK_SIZE));
+
+        // congestion still halves the window, which grows past the configured values again
+        acknowledgeWindow(window, 10 * RTT);
+        assertThat(window.window(), equalTo(8));
+        assertThat(window.chunkSizeInBytes(), equalTo(2 * CHUNK_SIZE));
+        for (int i = 0; i < 100; i++) {
+            acknowledgeWindow(window, 10 * RTT);
+        }
+        assertThat(window.window(), equalTo(16));
+        assertThat(window.chunkSizeInBytes(), equalTo(4 * CHUNK_SIZE));
+    }
+
+    public void testRateLimiterBoundsGrowthPastConfiguredValues() {
+        final int configuredWindow = between(1, 4);
+        final int chunksPerRoundTrip = between(configuredWindow + 1, 12);
+        // the rate limiter lets exactly chunksPerRoundTrip chunks through during a round-trip
+        final long maxBytesPerSec = chunksPerRoundTrip * (long) CHUNK_SIZE * TimeValue.timeValueSeconds(1).nanos() / RTT;
+        final AdaptiveChunkWindow window = new AdaptiveChunkWindow(
+            configuredWindow,
+            CHUNK_SIZE,
+            16,
+            4 * CHUNK_SIZE,
+            () -> maxBytesPerSec,
+            time::get
+        );
+        for (int i = 0; i < 100; i++) {
+            acknowledgeWindow(window, RTT);
+        }
+        assertThat(window.window(), equalTo(chunksPerRoundTrip));
+        assertThat(window.chunkSizeInBytes(), equalTo(CHUNK_SIZE));
+    }
+
+    public void testCongestionHalvesWindowAndChunkSize() {
+        final AdaptiveChunkWindow window = new AdaptiveChunkWindow(8, CHUNK_SIZE, time::get);
+        while (window.window() < 8) {
+            acknowledgeWindow(window, RTT);
+        }
+        acknowledgeWindow(window, 3 * RTT);
+        assertThat(window.window(), equalTo(4));
+        assertThat(window.chunkSizeInBytes(), equalTo(CHUNK_SIZE / 2));
+
+        // the round-trip time after the reduction is the new baseline, and the window grows by a single chunk per window
+        acknowledgeWindow(window, 3 * RTT);
+        assertThat(window.window(), equalTo(5));
+        acknowledgeWindow(window, 3 * RTT);
+        assertThat(window.window(), equalTo(6));
+
+        acknowledgeWindow(window, 7 * RTT);
+        assertThat(window.window(), equalTo(3));
+        assertThat(window.chunkSizeInBytes(), equalTo(CHUNK_SIZE / 4));
+    }
+
+    public void testChunkSizeNeverBelowMinimumOrAboveMaximum() {
+        final int maxChunkSize = between(1, 4 * AdaptiveChunkWindow.MIN_CHUNK_SIZE_IN_BYTES);
+        final AdaptiveChunkWindow window = new AdaptiveChunkWindow(between(2, 8), maxChunkSize, time::get);
+        for (int i = 0; i < 20; i++) {
+            acknowledgeWindow(window, RTT);
+            acknowledgeWindow(window, 3 * RTT);
+        }
+        assertThat(window.window(), equalTo(1));
+        assertThat(window.chunkSizeInBytes(), equalTo(Math.min(maxChunkSize, AdaptiveChunkWindow.MIN_CHUNK_SIZE_IN_BYTES)));
+
+        for (int i = 0; i < 20; i++) {
+            acknowledgeWindow(window, RTT);
+        }
+        assertThat(window.chunkSizeInBytes(), equalTo(maxChunkSize));
+    }
+
+    public void testLargerChunksMayTakeLonger() {
+        final AdaptiveChunkWindow window = new AdaptiveChunkWindow(1, 4 * AdaptiveChunkWindow.MIN_CHUNK_SIZE_IN_BYTES, time::get);
+        acknowledgeWindow(window, RTT);
+        acknowledgeWindow(window, 3 * RTT);
+        assertThat(window.chunkSizeInBytes(), equalTo(2 * AdaptiveChunkWindow.MIN_CHUNK_SIZE_IN_BYTES));
+        acknowledgeWindow(window, RTT);
+        assertThat(window.chunkSizeInBytes(), equalTo(4 * AdaptiveChunkWindow.MIN_CHUNK_SIZE_IN_BYTES));
+        // twice the chunk size in less than four times the round-trip time is not a congestion
+        acknowledgeWindow(window, 3 * RTT);
+        assertThat(window.chunkSizeInBytes(), equalTo(4 * AdaptiveChunkWindow.MIN_CHUNK_SIZE_IN_BYTES));
+        acknowledgeWindow(window, 7 * RTT);
+        assertThat(window.chunkSizeInBytes(), equalTo(2 * AdaptiveChunkWindow.MIN_CHUNK_SIZE_IN_BYTES));
+    }
+
+    public void testSmallChunksDoNotSignalCongestion() {
+        final AdaptiveChunkWindow window = new AdaptiveChunkWindow(4, CHUNK_SIZE, time::get);
+        while (window.window() < 4) {
+            acknowledgeWindow(window, RTT);
+        }
+        final long sentAt = time.get();
+        time.addAndGet(10 * RTT);
+        window.onChunkAcknowledged(between(1, CHUNK_SIZE - 1), sentAt, time.get());
+        assertThat(window.window(), equalTo(4));
+        assertThat(window.chunkSizeInBytes(), equalTo(CHUNK_SIZE));
+    }
+
+    public void testResponsesReceivedBeforeSendDoNotSignalCongestion() {
+        final AdaptiveChunkWindow window = new AdaptiveChunkWindow(4, CHUNK_SIZE, time::get);
+        acknowledgeWindow(window, RTT);
+        // a response may be received before the sender considers the chunk sent, e.g. if it is sent synchronously
+        final long receivedAt = time.get();
+        time.addAndGet(10 * RTT);
+        window.onChunkAcknowledged(CHUNK_SIZE, time.get(), receivedAt);
+        assertThat(window.window(), equalTo(3));
+        assertThat(window.chunkSizeInBytes(), equalTo(CHUNK_SIZE));
+    }
+
+    public void testThroughput() {
+        final AdaptiveChunkWindow window = new AdaptiveChunkWindow(1, CHUNK_SIZE, time::get);
+        assertThat(window.throughputInBytesPerSecond(), equalTo(0L));
+        final long step = AdaptiveChunkWindow.THROUGHPUT_SAMPLE_INTERVAL_IN_NANOS / 4;
+        for (int i = 0; i < 3; i++) {
+            final long sentAt = time.get();
+            time.addAndGet(step);
+            window.onChunkAcknowledged(CHUNK_SIZE, sentAt, time.get());
+            assertThat(window.throughputInBytesPerSecond(), equalTo(0L));
+        }
+        final long sentAt = time.get();
+        time.addAndGet(step);
+        window.onChunkAcknowledged(CHUNK_SIZE, sentAt, time.get());
+        assertThat(window.throughputInBytesPerSecond(), equalTo(4L * CHUNK_SIZE));
+    }
+
+    public void testInvalidBounds() {
+        expectThrows(IllegalArgumentException.class, () -> new AdaptiveChunkWindow(0, CHUNK_SIZE, time::get));
+        expectThrows(IllegalArgumentException.class, () -> new AdaptiveChunkWindow(1, 0, time::get));
+        assertThat(new AdaptiveChunkWindow(1, 1, time::get).chunkSizeInBytes(), equalTo(1));
+        expectThrows(IllegalArgumentException.class, () -> new AdaptiveChunkWindow(2, CHUNK_SIZE, 1, CHUNK_SIZE, () -> 0L, time::get));
+        expectThrows(IllegalArgumentException.class, () -> new AdaptiveChunkWindow(1, CHUNK_SIZE, 1, CHUNK_SIZE - 1, () -> 0L, time::get));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class MultiChunkTransferTests extends ESTestCase {
+
+    private static final int CHUNK_SIZE = 4 * AdaptiveChunkWindow.MIN_CHUNK_SIZE_IN_BYTES;
+    private static final long RTT = TimeValue.timeValueMillis(1).nanos();
+
+    private record Chunk(boolean lastChunk, long sizeInBytes) implements MultiChunkTransfer.ChunkRequest {}
+
+    public void testThrottlingDoesNotSignalCongestion() {
+        final AtomicLong time = new AtomicLong();
+        final AdaptiveChunkWindow chunkWindow = new AdaptiveChunkWindow(1, CHUNK_SIZE, time::get);
+        final Deque<ActionListener<Void>> pendingResponses = new ArrayDeque<>();
+        final AtomicLong sentChunks = new AtomicLong();
+        final PlainActionFuture<Void> future = PlainActionFuture.newFuture();
+        final List<Integer> files = IntStream.range(0, between(2, 5)).boxed().toList();
+        final int chunksPerFile = between(2, 5);
+
+        final MultiChunkTransfer<Integer, Chunk> transfer = new MultiChunkTransfer<>(
+            logger,
+            new ThreadContext(Settings.EMPTY),
+            future,
+            1,
+            chunkWindow,
+            files
+        ) {
+            int chunksOfFile;
+
+            @Override
+            protected void onNewResource(Integer file) {
+                chunksOfFile = 0;
+            }
+
+            @Override
+            protected Chunk nextChunkRequest(Integer file) {
+                return new Chunk(++chunksOfFile == chunksPerFile, chunkWindow.chunkSizeInBytes());
+            }
+
+            @Override
+            protected void executeChunkRequest(Chunk request, ActionListener<Void> listener) {
+                // every other chunk is held back by the rate limiter for much longer than a round-trip before being sent
+                if (sentChunks.getAndIncrement() % 2 == 1) {
+                    time.addAndGet(100 * RTT);
+                }
+                pendingResponses.add(listener);
+            }
+
+            @Override
+            protected void handleError(Integer file, Exception e) {}
+
+            @Override
+            public void close() {}
+        };
+
+        transfer.start();
+        while (pendingResponses.isEmpty() == false) {
+            time.addAndGet(RTT);
+            pendingResponses.poll().onResponse(null);
+        }
+        future.actionGet();
+
+        assertThat(sentChunks.get(), equalTo((long) files.size() * chunksPerFile));
+        assertThat(chunkWindow.chunkSizeInBytes(), equalTo(CHUNK_SIZE));
+    }
+}
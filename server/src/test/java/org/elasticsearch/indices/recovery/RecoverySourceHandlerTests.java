@@ -119,6 +119,7 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
@@ -886,6 +887,74 @@ public class RecoverySourceHandlerTests extends MapperServiceTestCase {
         store.close();
     }
 
+    public void testSendFileChunksWithAdaptiveWindow() throws Exception {
+        final IndexShard shard = mock(IndexShard.class);
+        when(shard.state()).thenReturn(IndexShardState.STARTED);
+        final List<ActionListener<Void>> unrepliedChunks = new CopyOnWriteArrayList<>();
+        final List<RecoveryState.FileChunkWindow> reportedWindows = new CopyOnWriteArrayList<>();
+        final AtomicLong sentBytes = new AtomicLong();
+        final TestRecoveryTargetHandler recoveryTarget = new TestRecoveryTargetHandler() {
+            @Override
+            public void onFileChunkWindow(RecoveryState.FileChunkWindow fileChunkWindow) {
+                reportedWindows.add(fileChunkWindow);
+            }
+
+            @Override
+            public void writeFileChunk(
+                StoreFileMetadata md,
+                long position,
+                ReleasableBytesReference content,
+                boolean lastChunk,
+                int totalTranslogOps,
+                ActionListener<Void> listener
+            ) {
+                sentBytes.addAndGet(content.length());
+                unrepliedChunks.add(listener);
+            }
+        };
+        final int maxConcurrentChunks = between(1, 8);
+        final int chunkSize = between(1, 32);
+        final RecoverySourceHandler handler = new RecoverySourceHandler(
+            shard,
+            recoveryTarget,
+            threadPool,
+            getStartRecoveryRequest(),
+            chunkSize,
+            maxConcurrentChunks,
+            true,
+            () -> 0L,
+            between(1, 10),
+            between(1, 5),
+            false,
+            recoveryPlannerService
+        );
+        Store store = newStore(createTempDir(), false);
+        List<StoreFileMetadata> files = generateFiles(store, between(1, 10), () -> between(1, chunkSize * 20));
+        long totalBytes = files.stream().mapToLong(StoreFileMetadata::length).sum();
+        PlainActionFuture<Void> sendFilesFuture = new PlainActionFuture<>();
+        handler.sendFiles(store, files.toArray(new StoreFileMetadata[0]), () -> 0, sendFilesFuture);
+        // the window starts with a single chunk in flight
+        assertBusy(() -> assertThat(unrepliedChunks, hasSize(1)));
+        assertThat(reportedWindows.get(0).window(), equalTo(1));
+
+        while (sendFilesFuture.isDone() == false) {
+            List<ActionListener<Void>> chunksToAck = List.copyOf(unrepliedChunks);
+            unrepliedChunks.removeAll(chunksToAck);
+            chunksToAck.forEach(listener -> listener.onResponse(null));
+            assertBusy(() -> assertTrue(sendFilesFuture.isDone() || unrepliedChunks.isEmpty() == false));
+            assertThat(unrepliedChunks.size(), lessThanOrEqualTo(AdaptiveChunkWindow.MAX_WINDOW));
+        }
+        sendFilesFuture.actionGet();
+        assertThat(sentBytes.get(), equalTo(totalBytes));
+        // the window may grow past the configured values as recoveries aren't throttled, but not past the size of the largest file
+        final long largestFile = files.stream().mapToLong(StoreFileMetadata::length).max().getAsLong();
+        for (RecoveryState.FileChunkWindow window : reportedWindows) {
+            assertThat(window.window(), lessThanOrEqualTo(AdaptiveChunkWindow.MAX_WINDOW));
+            assertThat((long) window.chunkSizeInBytes(), lessThanOrEqualTo(Math.max(chunkSize, largestFile)));
+        }
+        store.close();
+    }
+
     public void testSendFileChunksStopOnError() throws Exception {
         final List<FileChunkResponse> unrepliedChunks = new CopyOnWriteArrayList<>();
         final AtomicInteger sentChunks = new AtomicInteger();
@@ -13,6 +13,7 @@ import org.elasticsearch.cluster.routing.RecoverySource;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.TestShardRouting;
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -24,12 +25,16 @@ import org.elasticsearch.indices.recovery.RecoveryState.Timer;
 import org.elasticsearch.indices.recovery.RecoveryState.Translog;
 import org.elasticsearch.indices.recovery.RecoveryState.VerifyIndex;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xcontent.ToXContent;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.json.JsonXContent;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -38,13 +43,16 @@ import static java.util.Collections.emptySet;
 import static org.elasticsearch.test.VersionUtils.randomVersion;
 import static org.hamcrest.Matchers.arrayContainingInAnyOrder;
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.either;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.startsWith;
 
 public class RecoveryTargetTests extends ESTestCase {
@@ -573,6 +581,37 @@ public class RecoveryTargetTests extends ESTestCase {
         assertThat(readWriteIndex.error.get(), equalTo(null));
     }
 
+    public void testIndexFileChunkWindow() throws IOException {
+        final Index index = new Index();
+        index.start();
+        assertNull(index.fileChunkWindow());
+        assertThat(Strings.toString(index), not(containsString("file_chunk_window")));
+
+        final RecoveryState.FileChunkWindow first = new RecoveryState.FileChunkWindow(1, 512 * 1024, 0L);
+        final RecoveryState.FileChunkWindow second = new RecoveryState.FileChunkWindow(2, 512 * 1024, 0L);
+        index.recordFileChunkWindow(first);
+        index.recordFileChunkWindow(second);
+        assertThat(index.fileChunkWindow(), equalTo(second));
+        // unless a second passed between both reports the second one replaces the first one
+        assertThat(index.fileChunkWindowHistory().size(), either(equalTo(1)).or(equalTo(2)));
+
+        final Index copy = copyWriteable(index, writableRegistry(), Index::new, Version.CURRENT);
+        assertThat(copy.fileChunkWindowHistory(), equalTo(index.fileChunkWindowHistory()));
+        final Index bwcCopy = copyWriteable(index, writableRegistry(), Index::new, Version.V_8_6_0);
+        assertNull(bwcCopy.fileChunkWindow());
+
+        final XContentBuilder builder = JsonXContent.contentBuilder().startObject();
+        index.toXContent(builder, new ToXContent.MapParams(Map.of("detailed", "true")));
+        final String json = Strings.toString(builder.endObject());
+        assertThat(json, containsString("\"file_chunk_window\":{\"window\":2,\"chunk_size_in_bytes\":524288"));
+        assertThat(json, containsString("\"history\":[{\"time_in_millis\":"));
+        assertThat(Strings.toString(index), not(containsString("history")));
+
+        index.reset();
+        assertNull(index.fileChunkWindow());
+        assertThat(index.fileChunkWindowHistory(), empty());
+    }
+
     public void testFileHashCodeAndEquals() {
         FileDetail f = new FileDetail("foo", randomIntBetween(0, 100), randomBoolean());
         FileDetail anotherFile = new FileDetail(f.name(), f.length(), f.reused());
@@ -1683,6 +1683,56 @@ public class IngestServiceTests extends ESTestCase {
         assertThat(reference.get(), is(instanceOf(byte[].class)));
     }
 
+    public void testBinarySource() throws Exception {
+        Consumer<IngestDocument> executor = doc -> doc.setFieldValue("processed", true);
+        final IngestService ingestService = createWithProcessors(
+            Map.of("foo", (factories, tag, description, config) -> new FakeProcessor("foo", tag, description, executor))
+        );
+
+        ClusterState clusterState = ClusterState.builder(new ClusterName("_name")).build();
+        ClusterState previousClusterState = clusterState;
+        PutPipelineRequest putRequest = new PutPipelineRequest(
+            "_id",
+            new BytesArray("{\"processors\": [{\"foo\" : {}}]}"),
+            XContentType.JSON
+        );
+        clusterState = executePut(putRequest, clusterState);
+        Metadata metadata = Metadata.builder(clusterState.metadata())
+            .put(
+                IndexMetadata.builder("binary")
+                    .settings(settings(Version.CURRENT).put(IndexSettings.INGEST_BINARY_SOURCE_SETTING.getKey(), true))
+                    .numberOfShards(1)
+                    .numberOfReplicas(0)
+                    .putAlias(AliasMetadata.builder("binary-alias").writeIndex(true))
+            )
+            .put(IndexMetadata.builder("text").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0))
+            .build();
+        clusterState = ClusterState.builder(clusterState).metadata(metadata).build();
+        ingestService.applyClusterState(new ClusterChangedEvent("", clusterState, previousClusterState));
+
+        IndexRequest binaryRequest = new IndexRequest(randomFrom("binary", "binary-alias")).id("1")
+            .source(Map.of("field", "value"), XContentType.JSON)
+            .setPipeline("_id")
+            .setFinalPipeline("_none");
+        IndexRequest textRequest = new IndexRequest("text").id("2")
+            .source(Map.of("field", "value"), XContentType.JSON)
+            .setPipeline("_id")
+            .setFinalPipeline("_none");
+        ingestService.executeBulkRequest(
+            2,
+            List.of(binaryRequest, textRequest),
+            indexReq -> {},
+            (slot, e) -> fail("unexpected failure: " + e),
+            (thread, e) -> assertNull(e),
+            Names.WRITE
+        );
+
+        assertThat(binaryRequest.getContentType(), equalTo(XContentType.SMILE));
+        assertThat(binaryRequest.sourceAsMap(), equalTo(Map.of("field", "value", "processed", true)));
+        assertThat(textRequest.getContentType(), equalTo(XContentType.JSON));
+        assertThat(textRequest.sourceAsMap(), equalTo(Map.of("field", "value", "processed", true)));
+    }
+
     public void testPostIngest() {
         IngestService ingestService = createWithProcessors(
             Map.of("mock", (factories, tag, description, config) -> mockCompoundProcessor())
@@ -21,6 +21,7 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.MockBigArrays;
 import org.elasticsearch.core.IOUtils;
 import org.elasticsearch.env.Environment;
@@ -32,8 +33,10 @@ import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.index.shard.IndexShardTestCase;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.snapshots.IndexShardSnapshotFailedException;
+import org.elasticsearch.index.store.LazyRestoreDirectory;
 import org.elasticsearch.index.store.Store;
 import org.elasticsearch.index.store.StoreFileMetadata;
+import org.elasticsearch.index.store.StoreStats;
 import org.elasticsearch.indices.recovery.RecoverySettings;
 import org.elasticsearch.repositories.FinalizeSnapshotContext;
 import org.elasticsearch.repositories.IndexId;
@@ -54,6 +57,8 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 /**
  * This class tests the behavior of {@link BlobStoreRepository} when it
@@ -144,6 +149,84 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
         }
     }
 
+    /**
+     * A lazy restore must start the shard with the files that are not in the store read from the repository, and copy these files to the
+     * store in the background.
+     */
+    public void testLazyRestore() throws Exception {
+        final IndexId indexId = new IndexId(randomAlphaOfLength(10), UUIDs.randomBase64UUID());
+        final ShardId shardId = new ShardId(indexId.getName(), indexId.getId(), 0);
+
+        IndexShard shard = newShard(shardId, true);
+        try {
+            final int numDocs = scaledRandomIntBetween(1, 500);
+            recoverShardFromStore(shard);
+            for (int i = 0; i < numDocs; i++) {
+                indexDoc(shard, "_doc", Integer.toString(i));
+                if (rarely()) {
+                    flushShard(shard, false);
+                }
+            }
+            flushShard(shard, true);
+
+            final Repository repository = createRepository();
+            final Snapshot snapshot = new Snapshot(repository.getMetadata().name(), new SnapshotId(randomAlphaOfLength(10), "_uuid"));
+            snapshotShard(shard, snapshot, repository);
+            final Store.MetadataSnapshot storeFiles = shard.snapshotStoreMetadata();
+            closeShards(shard);
+
+            // delete some or all files, the deleted files are restored lazily
+            final List<String> deletedFiles = randomSubsetOf(between(1, storeFiles.size()), storeFiles.fileMetadataMap().keySet());
+            for (String deletedFile : deletedFiles) {
+                Files.delete(shard.shardPath().resolveIndex().resolve(deletedFile));
+            }
+
+            final ShardRouting shardRouting = ShardRoutingHelper.initWithSameId(
+                shard.routingEntry(),
+                RecoverySource.ExistingStoreRecoverySource.INSTANCE
+            );
+            final Path indexPath = shard.shardPath().resolveIndex();
+            shard = newShard(
+                shardRouting,
+                shard.shardPath(),
+                shard.indexSettings().getIndexMetadata(),
+                indexSettings -> createStore(shardId, indexSettings, new LazyRestoreDirectory(newFSDirectory(indexPath))),
+                null,
+                new InternalEngineFactory(),
+                () -> {},
+                RetentionLeaseSyncer.EMPTY,
+                EMPTY_EVENT_LISTENER
+            );
+
+            recoverShardFromSnapshot(shard, snapshot, repository);
+            final LazyRestoreDirectory lazyRestoreDirectory = LazyRestoreDirectory.unwrap(shard.store().directory());
+            assertNotNull(lazyRestoreDirectory);
+            final Directory directory = shard.store().directory();
+            for (StoreFileMetadata storeFile : storeFiles) {
+                assertEquals(storeFile.length(), directory.fileLength(storeFile.name()));
+            }
+            TestUtil.checkIndex(directory);
+
+            final StoreStats storeStats = shard.storeStats();
+            assertThat(storeStats.sizeInBytes(), lessThanOrEqualTo(storeStats.totalDataSetSizeInBytes()));
+
+            assertBusy(() -> assertFalse(lazyRestoreDirectory.hasRemoteFiles()));
+            assertThat(shard.storeStats().sizeInBytes(), equalTo(shard.storeStats().totalDataSetSizeInBytes()));
+            for (StoreFileMetadata storeFile : storeFiles) {
+                assertTrue(Files.exists(indexPath.resolve(storeFile.name())));
+            }
+            TestUtil.checkIndex(directory);
+        } finally {
+            if (shard != null && shard.state() != IndexShardState.CLOSED) {
+                try {
+                    shard.close("test", false);
+                } finally {
+                    IOUtils.close(shard.store());
+                }
+            }
+        }
+    }
+
     public void testSnapshotWithConflictingName() throws Exception {
         final IndexId indexId = new IndexId(randomAlphaOfLength(10), UUIDs.randomBase64UUID());
         final ShardId shardId = new ShardId(indexId.getName(), indexId.getId(), 0);
@@ -215,7 +298,14 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
 
     /** Create a {@link Repository} with a random name **/
     private Repository createRepository() {
-        Settings settings = Settings.builder().put("location", randomAlphaOfLength(10)).build();
+        Settings.Builder settingsBuilder = Settings.builder().put("location", randomAlphaOfLength(10));
+        if (randomBoolean()) {
+            settingsBuilder.put(
+                BlobStoreRepository.PARALLEL_UPLOAD_PART_SIZE_SETTING.getKey(),
+                ByteSizeValue.ofBytes(randomLongBetween(100, 10_000))
+            );
+        }
+        Settings settings = settingsBuilder.build();
         RepositoryMetadata repositoryMetadata = new RepositoryMetadata(randomAlphaOfLength(10), FsRepository.TYPE, settings);
         final ClusterService clusterService = BlobStoreTestUtil.mockClusterService(repositoryMetadata);
         final FsRepository repository = new FsRepository(
@@ -0,0 +1,149 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.repositories.blobstore;
+
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.index.CorruptIndexException;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.store.IndexOutput;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.snapshots.blobstore.BlobStoreIndexShardSnapshot.FileInfo;
+import org.elasticsearch.index.store.Store;
+import org.elasticsearch.index.store.StoreFileMetadata;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.CRC32;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class ParallelFileUploadTests extends ESTestCase {
+
+    public void testCombineCrc32() {
+        final byte[] bytes = randomByteArrayOfLength(between(0, 10_000));
+        final int split = between(0, bytes.length);
+        final CRC32 first = new CRC32();
+        first.update(bytes, 0, split);
+        final CRC32 second = new CRC32();
+        second.update(bytes, split, bytes.length - split);
+        final CRC32 whole = new CRC32();
+        whole.update(bytes);
+        assertThat(ParallelFileUpload.combineCrc32(first.getValue(), second.getValue(), bytes.length - split), equalTo(whole.getValue()));
+    }
+
+    public void testUploadParts() throws Exception {
+        try (Directory directory = new ByteBuffersDirectory()) {
+            final FileInfo fileInfo = writeFile(directory, "_0.cfs", false);
+            final AtomicReferenceArray<byte[]> uploaded = new AtomicReferenceArray<>(fileInfo.numberOfParts());
+            final ParallelFileUpload upload = new ParallelFileUpload(
+                fileInfo,
+                () -> directory.openInput(fileInfo.physicalName(), IOContext.READONCE),
+                (part, inputStream) -> {
+                    final byte[] bytes = inputStream.readAllBytes();
+                    assertThat((long) bytes.length, equalTo(fileInfo.partBytes(part)));
+                    assertNull(uploaded.getAndSet(part, bytes));
+                }
+            );
+            final int helpers = between(0, 4);
+            final List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < helpers; i++) {
+                final Thread thread = new Thread(upload::uploadParts);
+                thread.start();
+                threads.add(thread);
+            }
+            final int maxConcurrentParts = upload.run();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertThat(maxConcurrentParts, greaterThanOrEqualTo(1));
+            assertThat(maxConcurrentParts, lessThanOrEqualTo(helpers + 1));
+
+            final ByteArrayOutputStream uploadedFile = new ByteArrayOutputStream();
+            for (int part = 0; part < fileInfo.numberOfParts(); part++) {
+                uploadedFile.write(uploaded.get(part));
+            }
+            assertArrayEquals(readFile(directory, fileInfo.physicalName()), uploadedFile.toByteArray());
+        }
+    }
+
+    public void testCorruptedPartFailsVerification() throws Exception {
+        try (Directory directory = new ByteBuffersDirectory()) {
+            final FileInfo fileInfo = writeFile(directory, "_0.cfs", true);
+            final ParallelFileUpload upload = new ParallelFileUpload(
+                fileInfo,
+                () -> directory.openInput(fileInfo.physicalName(), IOContext.READONCE),
+                (part, inputStream) -> inputStream.readAllBytes()
+            );
+            expectThrows(CorruptIndexException.class, upload::run);
+        }
+    }
+
+    public void testFailedPartFailsUpload() throws Exception {
+        try (Directory directory = new ByteBuffersDirectory()) {
+            final FileInfo fileInfo = writeFile(directory, "_0.cfs", false);
+            final int failingPart = between(0, fileInfo.numberOfParts() - 1);
+            final ParallelFileUpload upload = new ParallelFileUpload(
+                fileInfo,
+                () -> directory.openInput(fileInfo.physicalName(), IOContext.READONCE),
+                (part, inputStream) -> {
+                    if (part == failingPart) {
+                        throw new IOException("simulated");
+                    }
+                    inputStream.readAllBytes();
+                }
+            );
+            assertThat(expectThrows(IOException.class, upload::run).getMessage(), equalTo("simulated"));
+        }
+    }
+
+    /**
+     * Writes a file with a codec footer and returns a {@link FileInfo} that splits it into several parts, optionally flipping a byte of
+     * the file after its checksum was written.
+     */
+    private static FileInfo writeFile(Directory directory, String name, boolean corrupt) throws IOException {
+        final String checksum;
+        try (IndexOutput output = directory.createOutput(name, IOContext.DEFAULT)) {
+            CodecUtil.writeHeader(output, "test", 0);
+            final byte[] bytes = randomByteArrayOfLength(between(1, 10_000));
+            output.writeBytes(bytes, bytes.length);
+            CodecUtil.writeFooter(output);
+            checksum = Store.digestToString(output.getChecksum());
+        }
+        if (corrupt) {
+            final byte[] bytes = readFile(directory, name);
+            final int position = between(0, bytes.length - CodecUtil.footerLength() - 1);
+            bytes[position] = (byte) (bytes[position] ^ 0xFF);
+            directory.deleteFile(name);
+            try (IndexOutput output = directory.createOutput(name, IOContext.DEFAULT)) {
+                output.writeBytes(bytes, bytes.length);
+            }
+        }
+        final long length = directory.fileLength(name);
+        final StoreFileMetadata metadata = new StoreFileMetadata(name, length, checksum, Version.CURRENT.luceneVersion.toString());
+        return new FileInfo(name, metadata, ByteSizeValue.ofBytes(randomLongBetween(Math.max(1L, length / 50), length - 1)));
+    }
+
+    private static byte[] readFile(Directory directory, String name) throws IOException {
+        try (IndexInput input = directory.openInput(name, IOContext.READONCE)) {
+            final byte[] bytes = new byte[Math.toIntExact(input.length())];
+            input.readBytes(bytes, 0, bytes.length);
+            return bytes;
+        }
+    }
+}
@@ -196,5 +196,22 @@ public class ShardSnapshotTaskRunnerTests extends ESTestCase {
             ),
             lessThan(0)
         );
+        // File part snapshot task has a higher priority over file snapshot within the same snapshot, so that files in progress finish first
+        assertThat(
+            workers.new ShardSnapshotTask(s1Context).compareTo(workers.new FilePartSnapshotTask(s1Context, () -> {}, listener)),
+            lessThan(0)
+        );
+        assertThat(
+            workers.new FilePartSnapshotTask(s1Context, () -> {}, listener).compareTo(
+                workers.new FileSnapshotTask(s1Context, ShardSnapshotTaskRunnerTests::dummyFileInfo, listener)
+            ),
+            lessThan(0)
+        );
+        assertThat(
+            workers.new FileSnapshotTask(s1Context, ShardSnapshotTaskRunnerTests::dummyFileInfo, listener).compareTo(
+                workers.new FilePartSnapshotTask(s2Context, () -> {}, listener)
+            ),
+            lessThan(0)
+        );
     }
 }
@@ -13,8 +13,13 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.test.ESTestCase;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.LongSupplier;
 
+import static org.hamcrest.Matchers.instanceOf;
+
 public class ScriptCacheTests extends ESTestCase {
     private static final LongSupplier time = () -> 1L;
 
@@ -129,4 +134,102 @@ public class ScriptCacheTests extends ESTestCase {
             assertEquals(initialState.availableTokens, currentState.availableTokens, 0.0); // delta of 0.0 because it should never change
         }
     }
+
+    public void testCompiledScriptsSkipCompilationLimit() {
+        final Set<String> precompiled = Set.of("a", "b", "c");
+        ScriptEngine engine = new ScriptEngine() {
+            @Override
+            public String getType() {
+                return "test";
+            }
+
+            @Override
+            public <FactoryType> FactoryType compile(
+                String name,
+                String code,
+                ScriptContext<FactoryType> context,
+                Map<String, String> params
+            ) {
+                return context.factoryClazz.cast((TemplateScript.Factory) p -> null);
+            }
+
+            @Override
+            public <FactoryType> FactoryType loadCompiled(
+                String name,
+                String code,
+                ScriptContext<FactoryType> context,
+                Map<String, String> params
+            ) {
+                return precompiled.contains(code) ? compile(name, code, context, params) : null;
+            }
+
+            @Override
+            public boolean isCompiledCacheEnabled() {
+                return true;
+            }
+
+            @Override
+            public Set<ScriptContext<?>> getSupportedContexts() {
+                return Set.of(TemplateScript.CONTEXT);
+            }
+        };
+        String settingName = ScriptService.SCRIPT_GENERAL_MAX_COMPILATIONS_RATE_SETTING.getKey();
+        ScriptCache cache = new ScriptCache(
+            100,
+            TimeValue.ZERO,
+            new ScriptCache.CompilationRate(1, TimeValue.timeValueMinutes(1)),
+            settingName,
+            time
+        );
+        // loading compiled scripts doesn't take a token
+        for (String code : precompiled) {
+            assertNotNull(cache.compile(TemplateScript.CONTEXT, engine, null, code, ScriptType.INLINE, Map.of()));
+        }
+        assertNotNull(cache.compile(TemplateScript.CONTEXT, engine, null, "d", ScriptType.INLINE, Map.of()));
+        GeneralScriptException e = expectThrows(
+            GeneralScriptException.class,
+            () -> cache.compile(TemplateScript.CONTEXT, engine, null, "e", ScriptType.INLINE, Map.of())
+        );
+        assertThat(e.getCause(), instanceOf(CircuitBreakingException.class));
+
+        ScriptStats stats = cache.stats();
+        assertEquals(3, stats.getCompiledCacheHits());
+        assertEquals(2, stats.getCompiledCacheMisses());
+        assertEquals(1, stats.getCompilations());
+        assertEquals(1, stats.getCompilationLimitTriggered());
+        assertEquals(1, Arrays.stream(stats.getCompilationTimeHistogram()).sum());
+    }
+
+    public void testNoCompiledCacheMissesWithoutCompiledCache() {
+        ScriptEngine engine = new ScriptEngine() {
+            @Override
+            public String getType() {
+                return "test";
+            }
+
+            @Override
+            public <FactoryType> FactoryType compile(
+                String name,
+                String code,
+                ScriptContext<FactoryType> context,
+                Map<String, String> params
+            ) {
+                return context.factoryClazz.cast((TemplateScript.Factory) p -> null);
+            }
+
+            @Override
+            public Set<ScriptContext<?>> getSupportedContexts() {
+                return Set.of(TemplateScript.CONTEXT);
+            }
+        };
+        String settingName = ScriptService.SCRIPT_GENERAL_MAX_COMPILATIONS_RATE_SETTING.getKey();
+        ScriptCache cache = new ScriptCache(100, TimeValue.ZERO, ScriptCache.UNLIMITED_COMPILATION_RATE, settingName, () -> 1L);
+        assertNotNull(cache.compile(TemplateScript.CONTEXT, engine, null, "a", ScriptType.INLINE, Map.of()));
+        assertNotNull(cache.compile(TemplateScript.CONTEXT, engine, null, "b", ScriptType.INLINE, Map.of()));
+
+        ScriptStats stats = cache.stats();
+        assertEquals(0, stats.getCompiledCacheHits());
+        assertEquals(0, stats.getCompiledCacheMisses());
+        assertEquals(2, stats.getCompilations());
+    }
 }
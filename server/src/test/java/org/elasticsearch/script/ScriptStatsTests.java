@@ -12,6 +12,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.network.HandlingTimeTracker;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.xcontent.ToXContent;
 import org.elasticsearch.xcontent.XContentBuilder;
@@ -22,6 +23,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.function.Function;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 
 public class ScriptStatsTests extends ESTestCase {
@@ -42,12 +44,16 @@ public class ScriptStatsTests extends ESTestCase {
                 "compilations" : 1100,
                 "cache_evictions" : 2211,
                 "compilation_limit_triggered" : 3322,
+                "compiled_cache_hits" : 0,
+                "compiled_cache_misses" : 0,
                 "contexts" : [
                   {
                     "context" : "contextA",
                     "compilations" : 1000,
                     "cache_evictions" : 2010,
-                    "compilation_limit_triggered" : 3020
+                    "compilation_limit_triggered" : 3020,
+                    "compiled_cache_hits" : 0,
+                    "compiled_cache_misses" : 0
                   },
                   {
                     "context" : "contextB",
@@ -63,7 +69,9 @@ public class ScriptStatsTests extends ESTestCase {
                       "15m" : 2001,
                       "24h" : 2002
                     },
-                    "compilation_limit_triggered" : 302
+                    "compilation_limit_triggered" : 302,
+                    "compiled_cache_hits" : 0,
+                    "compiled_cache_misses" : 0
                   }
                 ]
               }
@@ -82,7 +90,9 @@ public class ScriptStatsTests extends ESTestCase {
               "context" : "c",
               "compilations" : 1111,
               "cache_evictions" : 2222,
-              "compilation_limit_triggered" : 3333
+              "compilation_limit_triggered" : 3333,
+              "compiled_cache_hits" : 0,
+              "compiled_cache_misses" : 0
             }""";
 
         assertThat(Strings.toString(builder), equalTo(expected));
@@ -102,7 +112,9 @@ public class ScriptStatsTests extends ESTestCase {
                 "15m" : %s,
                 "24h" : %s
               },
-              "compilation_limit_triggered" : 3333
+              "compilation_limit_triggered" : 3333,
+              "compiled_cache_hits" : 0,
+              "compiled_cache_misses" : 0
             }""";
 
         XContentBuilder builder = XContentFactory.jsonBuilder().prettyPrint();
@@ -165,6 +177,54 @@ public class ScriptStatsTests extends ESTestCase {
         assertEquals(stats.getCacheEvictionsHistory(), deserStats.getCacheEvictionsHistory());
     }
 
+    public void testCompiledCacheXContent() throws IOException {
+        long[] histogram = new long[HandlingTimeTracker.BUCKET_COUNT];
+        histogram[2] = 7;
+        ScriptContextStats stats = new ScriptContextStats("c", 3333, new TimeSeries(1111), new TimeSeries(2222), 44, 55, histogram);
+
+        XContentBuilder builder = XContentFactory.jsonBuilder();
+        stats.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        String json = Strings.toString(builder);
+        assertThat(json, containsString("\"compiled_cache_hits\":44,\"compiled_cache_misses\":55,\"compilation_time_histogram\":["));
+        assertThat(json, containsString("{\"lt_millis\":1,\"count\":0},{\"ge_millis\":1,\"lt_millis\":2,\"count\":0}"));
+        assertThat(json, containsString("{\"ge_millis\":2,\"lt_millis\":4,\"count\":7}"));
+
+        builder = XContentFactory.jsonBuilder();
+        builder.startObject();
+        new ScriptStats(List.of(stats, stats)).toXContent(builder, ToXContent.EMPTY_PARAMS);
+        builder.endObject();
+        assertThat(Strings.toString(builder), containsString("\"compiled_cache_hits\":88,\"compiled_cache_misses\":110"));
+        assertThat(Strings.toString(builder), containsString("{\"ge_millis\":2,\"lt_millis\":4,\"count\":14}"));
+    }
+
+    public void testCompiledCacheSerialization() throws IOException {
+        long[] histogram = new long[HandlingTimeTracker.BUCKET_COUNT];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = randomLongBetween(0, 1024);
+        }
+        ScriptContextStats stats = new ScriptContextStats(
+            randomAlphaOfLength(15),
+            randomLongBetween(0, 1024),
+            new TimeSeries(randomLongBetween(0, 1024)),
+            new TimeSeries(randomLongBetween(0, 1024)),
+            randomLongBetween(0, 1024),
+            randomLongBetween(0, 1024),
+            histogram
+        );
+
+        ScriptContextStats deserStats = serDeser(Version.V_8_7_0, Version.V_8_7_0, stats);
+        assertEquals(stats.getCompilations(), deserStats.getCompilations());
+        assertEquals(stats.getCompiledCacheHits(), deserStats.getCompiledCacheHits());
+        assertEquals(stats.getCompiledCacheMisses(), deserStats.getCompiledCacheMisses());
+        assertArrayEquals(stats.getCompilationTimeHistogram(), deserStats.getCompilationTimeHistogram());
+
+        deserStats = serDeser(Version.V_8_6_0, Version.V_8_6_0, stats);
+        assertEquals(stats.getCompilations(), deserStats.getCompilations());
+        assertEquals(0, deserStats.getCompiledCacheHits());
+        assertEquals(0, deserStats.getCompiledCacheMisses());
+        assertEquals(0, deserStats.getCompilationTimeHistogram().length);
+    }
+
     public ScriptContextStats serDeser(Version outVersion, Version inVersion, ScriptContextStats stats) throws IOException {
         try (BytesStreamOutput out = new BytesStreamOutput()) {
             out.setVersion(outVersion);
@@ -0,0 +1,49 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.index.mapper.LongScriptFieldType;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+
+import java.io.IOException;
+import java.util.List;
+
+public class AggregationPhaseTests extends AggregatorTestCase {
+
+    public void testRuntimeFieldsAreNotReadConcurrently() throws IOException {
+        MappedFieldType docValuesField = new NumberFieldMapper.NumberFieldType("doc_values", NumberFieldMapper.NumberType.LONG);
+        MappedFieldType runtimeField = LongScriptFieldType.sourceOnly("runtime").asMappedFieldTypes().findFirst().orElseThrow();
+        withIndex(iw -> {}, searcher -> {
+            AggregationContext context = createAggregationContext(searcher, new MatchAllDocsQuery(), docValuesField, runtimeField);
+            try {
+                assertTrue(AggregationPhase.readsOnlyDocValues(List.of(sum("doc_values")), context));
+                assertTrue(AggregationPhase.readsOnlyDocValues(List.of(sum("unmapped")), context));
+                assertFalse(AggregationPhase.readsOnlyDocValues(List.of(sum("doc_values"), sum("runtime")), context));
+                assertFalse(
+                    AggregationPhase.readsOnlyDocValues(
+                        List.of(new TermsAggregationBuilder("terms").field("doc_values").subAggregation(sum("runtime"))),
+                        context
+                    )
+                );
+            } finally {
+                Releasables.close(context);
+            }
+        });
+    }
+
+    private static SumAggregationBuilder sum(String field) {
+        return new SumAggregationBuilder(field + "_sum").field(field);
+    }
+}
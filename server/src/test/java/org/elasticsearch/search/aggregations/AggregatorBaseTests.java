@@ -24,12 +24,16 @@ import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
 
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -56,6 +60,39 @@ public class AggregatorBaseTests extends MapperServiceTestCase {
         }
     }
 
+    /**
+     * An aggregator whose collector supports blocks and records the docs it collects, one list of docs per call.
+     */
+    class BlockAggregator extends BogusAggregator {
+        final List<List<Integer>> collected = new ArrayList<>();
+
+        BlockAggregator(AggregationContext context, Aggregator parent) throws IOException {
+            super(context, parent);
+        }
+
+        @Override
+        protected LeafBucketCollector getLeafCollector(AggregationExecutionContext aggCtx, LeafBucketCollector sub) {
+            return new LeafBucketCollector() {
+                @Override
+                public void collect(int doc, long owningBucketOrd) {
+                    assertThat(owningBucketOrd, equalTo(0L));
+                    collected.add(List.of(doc));
+                }
+
+                @Override
+                public void collect(int[] docs, int count, long owningBucketOrd) {
+                    assertThat(owningBucketOrd, equalTo(0L));
+                    collected.add(Arrays.stream(docs, 0, count).boxed().toList());
+                }
+
+                @Override
+                public boolean supportsBlocks() {
+                    return true;
+                }
+            };
+        }
+    }
+
     private AggregationContext context(Query query) {
         AggregationContext context = mock(AggregationContext.class);
         when(context.query()).thenReturn(query);
@@ -160,4 +197,44 @@ public class AggregatorBaseTests extends MapperServiceTestCase {
             );
         });
     }
+
+    public void testTopLevelAggregatorCollectsBlocks() throws IOException {
+        final BlockAggregator aggregator = new BlockAggregator(context(null), null);
+        aggregator.preCollection();
+        final AggregationExecutionContext aggCtx = new AggregationExecutionContext(null, null, null, null);
+
+        final int numDocs = between(0, 3 * LeafBucketCollector.BLOCK_SIZE);
+        LeafBucketCollector leafCollector = aggregator.getLeafCollector(aggCtx);
+        for (int doc = 0; doc < numDocs; doc++) {
+            leafCollector.collect(doc);
+        }
+        assertThat(aggregator.collected.size(), equalTo(numDocs / LeafBucketCollector.BLOCK_SIZE));
+        // the collector of the next segment flushes the docs that are left
+        leafCollector = aggregator.getLeafCollector(aggCtx);
+        assertThat(aggregator.collected.size(), equalTo((numDocs + LeafBucketCollector.BLOCK_SIZE - 1) / LeafBucketCollector.BLOCK_SIZE));
+        final int moreDocs = between(1, LeafBucketCollector.BLOCK_SIZE - 1);
+        for (int doc = 0; doc < moreDocs; doc++) {
+            leafCollector.collect(doc);
+        }
+        aggregator.postCollection();
+
+        final List<Integer> expected = new ArrayList<>();
+        IntStream.range(0, numDocs).forEach(expected::add);
+        IntStream.range(0, moreDocs).forEach(expected::add);
+        assertThat(aggregator.collected.stream().flatMap(List::stream).toList(), equalTo(expected));
+        for (List<Integer> block : aggregator.collected) {
+            assertThat(block.size(), lessThanOrEqualTo(LeafBucketCollector.BLOCK_SIZE));
+        }
+    }
+
+    public void testSubAggregatorCollectsOneDocAtATime() throws IOException {
+        final BlockAggregator aggregator = new BlockAggregator(context(null), mockAggregator());
+        aggregator.preCollection();
+        final LeafBucketCollector leafCollector = aggregator.getLeafCollector(new AggregationExecutionContext(null, null, null, null));
+        final int numDocs = between(1, 100);
+        for (int doc = 0; doc < numDocs; doc++) {
+            leafCollector.collect(doc);
+            assertThat(aggregator.collected.size(), equalTo(doc + 1));
+        }
+    }
 }
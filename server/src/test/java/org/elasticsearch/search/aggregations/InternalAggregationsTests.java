@@ -9,15 +9,18 @@ package org.elasticsearch.search.aggregations;
 
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.DelayableWriteable;
 import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.index.query.TermQueryBuilder;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchModule;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregator.KeyedFilter;
 import org.elasticsearch.search.aggregations.bucket.filter.InternalFilters;
@@ -27,8 +30,11 @@ import org.elasticsearch.search.aggregations.bucket.terms.StringTermsTests;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.search.aggregations.pipeline.InternalSimpleValueTests;
 import org.elasticsearch.search.aggregations.pipeline.MaxBucketPipelineAggregationBuilder;
+import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.InternalAggregationTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -257,6 +263,89 @@ public class InternalAggregationsTests extends ESTestCase {
         );
     }
 
+    public void testParallelReduce() {
+        int siblings = between(2, 20);
+        AggregatorFactories.Builder builders = new AggregatorFactories.Builder();
+        for (int i = 0; i < siblings; i++) {
+            builders.addAggregator(new TermsAggregationBuilder("t" + i));
+        }
+        List<InternalAggregations> shards = new ArrayList<>();
+        int shardCount = between(2, 10);
+        for (int shard = 0; shard < shardCount; shard++) {
+            List<InternalAggregation> aggs = new ArrayList<>();
+            for (int i = 0; i < siblings; i++) {
+                aggs.add(terms("t" + i, between(0, 5)));
+            }
+            shards.add(InternalAggregations.from(aggs));
+        }
+        MultiBucketConsumer sequentialBuckets = new MultiBucketConsumer(Integer.MAX_VALUE, new NoopCircuitBreaker("test"));
+        InternalAggregations sequential = InternalAggregations.topLevelReduce(
+            shards,
+            new AggregationReduceContext.ForFinal(BigArrays.NON_RECYCLING_INSTANCE, null, () -> false, builders, sequentialBuckets)
+        );
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            MultiBucketConsumer parallelBuckets = new MultiBucketConsumer(Integer.MAX_VALUE, new NoopCircuitBreaker("test"));
+            InternalAggregations parallel = InternalAggregations.topLevelReduce(
+                shards,
+                new AggregationReduceContext.ForFinal(
+                    BigArrays.NON_RECYCLING_INSTANCE,
+                    null,
+                    () -> false,
+                    builders,
+                    parallelBuckets,
+                    threadPool.executor(ThreadPool.Names.SEARCH_COORDINATION)
+                )
+            );
+            assertThat(parallel.asList(), equalTo(sequential.asList()));
+            assertThat(parallelBuckets.getCount(), equalTo(sequentialBuckets.getCount()));
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    public void testParallelReduceCancelled() {
+        AggregatorFactories.Builder builders = new AggregatorFactories.Builder().addAggregator(new TermsAggregationBuilder("t0"))
+            .addAggregator(new TermsAggregationBuilder("t1"));
+        InternalAggregations shard = InternalAggregations.from(List.of(terms("t0", 2), terms("t1", 2)));
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            AggregationReduceContext context = new AggregationReduceContext.ForPartial(
+                BigArrays.NON_RECYCLING_INSTANCE,
+                null,
+                () -> true,
+                builders,
+                threadPool.executor(ThreadPool.Names.SEARCH_COORDINATION)
+            );
+            expectThrows(TaskCancelledException.class, () -> InternalAggregations.topLevelReduce(List.of(shard, shard), context));
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    private static StringTerms terms(String name, int buckets) {
+        List<StringTerms.Bucket> termsBuckets = new ArrayList<>();
+        for (int b = 0; b < buckets; b++) {
+            termsBuckets.add(
+                new StringTerms.Bucket(new BytesRef("k" + b), between(1, 100), InternalAggregations.EMPTY, false, 0, DocValueFormat.RAW)
+            );
+        }
+        return new StringTerms(
+            name,
+            BucketOrder.key(true),
+            BucketOrder.key(true),
+            10,
+            1,
+            Collections.emptyMap(),
+            DocValueFormat.RAW,
+            25,
+            false,
+            0,
+            termsBuckets,
+            0L
+        );
+    }
+
     public static InternalAggregations createTestInstance() throws Exception {
         List<InternalAggregation> aggsList = new ArrayList<>();
         if (randomBoolean()) {
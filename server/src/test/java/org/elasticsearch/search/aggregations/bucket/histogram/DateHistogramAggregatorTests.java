@@ -11,25 +11,48 @@ package org.elasticsearch.search.aggregations.bucket.histogram;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MatchNoDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.tests.index.RandomIndexWriter;
+import org.apache.lucene.tests.util.TestUtil;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.time.DateFormatter;
 import org.elasticsearch.common.time.DateFormatters;
 import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.IndexMode;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.codec.tsdb.ES87TimeSeriesRollupDocValuesFormat;
+import org.elasticsearch.index.fielddata.IndexNumericFieldData.NumericType;
 import org.elasticsearch.index.mapper.BooleanFieldMapper;
 import org.elasticsearch.index.mapper.CustomTermFreqField;
+import org.elasticsearch.index.mapper.DataStreamTimestampFieldMapper;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.DocCountFieldMapper;
 import org.elasticsearch.index.mapper.FieldNamesFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregationReduceContext;
 import org.elasticsearch.search.aggregations.Aggregator;
@@ -38,6 +61,13 @@ import org.elasticsearch.search.aggregations.bucket.DateHistogramAggregatorTestC
 import org.elasticsearch.search.aggregations.bucket.range.RangeAggregator;
 import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.AvgAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MinAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.StatsAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.ValueCount;
+import org.elasticsearch.search.aggregations.metrics.ValueCountAggregationBuilder;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.PipelineTree;
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.hamcrest.Matcher;
@@ -48,6 +78,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
@@ -81,6 +112,34 @@ public class DateHistogramAggregatorTests extends DateHistogramAggregatorTestCas
         "2017-12-12T22:55:46"
     );
 
+    /**
+     * The interval of the rollups of the time series index that the
+     * aggregations run against or {@code null} to not use rollups.
+     */
+    private TimeValue timeSeriesRollupInterval;
+
+    @Override
+    protected IndexSettings createIndexSettings() {
+        if (timeSeriesRollupInterval == null) {
+            return super.createIndexSettings();
+        }
+        return new IndexSettings(
+            IndexMetadata.builder("_index")
+                .settings(
+                    Settings.builder()
+                        .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                        .put(IndexSettings.MODE.getKey(), IndexMode.TIME_SERIES)
+                        .put(IndexMetadata.INDEX_ROUTING_PATH.getKey(), "dim")
+                        .put(IndexSettings.TIME_SERIES_ROLLUP_INTERVAL.getKey(), timeSeriesRollupInterval)
+                )
+                .numberOfShards(1)
+                .numberOfReplicas(0)
+                .creationDate(System.currentTimeMillis())
+                .build(),
+            Settings.EMPTY
+        );
+    }
+
     public void testBooleanFieldDeprecated() throws IOException {
         final String fieldName = "bogusBoolean";
         testCase(iw -> {
@@ -1132,6 +1191,141 @@ public class DateHistogramAggregatorTests extends DateHistogramAggregatorTestCas
         );
     }
 
+    public void testTimeSeriesRollups() throws IOException {
+        timeSeriesRollupsTestCase(
+            new DateHistogramAggregationBuilder("h").field("@timestamp").calendarInterval(DateHistogramInterval.DAY),
+            new MatchAllDocsQuery(),
+            DateHistogramAggregator.class,
+            (result, debug) -> {
+                assertThat(result.getBuckets(), hasSize(3));
+                for (Histogram.Bucket bucket : result.getBuckets()) {
+                    assertThat(bucket.getDocCount(), equalTo(144L));
+                    assertThat(((ValueCount) bucket.getAggregations().get("count")).getValue(), equalTo(96L));
+                }
+                assertMap(debug, matchesMap().entry("total_buckets", 3L).entry("segments_with_rollups", 3));
+            }
+        );
+    }
+
+    public void testTimeSeriesRollupsWithQueryOnPartOfTheSegments() throws IOException {
+        long start = asLong("2022-01-01T00:00:00");
+        timeSeriesRollupsTestCase(
+            new DateHistogramAggregationBuilder("h").field("@timestamp").fixedInterval(new DateHistogramInterval("6h")),
+            LongPoint.newRangeQuery("@timestamp", start, start + TimeValue.timeValueHours(36).millis() - 1),
+            DateHistogramAggregator.class,
+            (result, debug) -> {
+                assertThat(result.getBuckets(), hasSize(6));
+                // Only the first day matches the whole segment
+                assertMap(debug, matchesMap().entry("total_buckets", 6L).entry("segments_with_rollups", 1));
+            }
+        );
+    }
+
+    public void testTimeSeriesRollupsStraddlingBuckets() throws IOException {
+        timeSeriesRollupsTestCase(
+            new DateHistogramAggregationBuilder("h").field("@timestamp").fixedInterval(new DateHistogramInterval("90m")),
+            new MatchAllDocsQuery(),
+            DateHistogramAggregator.class,
+            (result, debug) -> {
+                assertThat(result.getBuckets(), hasSize(48));
+                assertMap(debug, matchesMap().entry("total_buckets", 48L).entry("segments_with_rollups", 0));
+            }
+        );
+    }
+
+    public void testTimeSeriesRollupsWithUnsupportedSubAggregation() throws IOException {
+        timeSeriesRollupsTestCase(
+            new DateHistogramAggregationBuilder("h").field("@timestamp")
+                .calendarInterval(DateHistogramInterval.DAY)
+                .subAggregation(new MinAggregationBuilder("min_with_missing").field("v").missing(0)),
+            new MatchAllDocsQuery(),
+            // the rollups are useless so the aggregation runs as a range like on any other index
+            DateHistogramAggregator.FromDateRange.class,
+            (result, debug) -> assertThat(result.getBuckets(), hasSize(3))
+        );
+    }
+
+    /**
+     * Runs the {@code date_histogram} against a time series index with three
+     * time series and one segment per day, once without rollups and once with
+     * hourly rollups, and checks that both runs return the same results.
+     */
+    private void timeSeriesRollupsTestCase(
+        DateHistogramAggregationBuilder builder,
+        Query query,
+        Class<? extends Aggregator> expectedImpl,
+        BiConsumer<InternalDateHistogram, Map<String, Object>> verify
+    ) throws IOException {
+        builder.subAggregation(new SumAggregationBuilder("sum").field("v"))
+            .subAggregation(new MinAggregationBuilder("min").field("v"))
+            .subAggregation(new MaxAggregationBuilder("max").field("v"))
+            .subAggregation(new AvgAggregationBuilder("avg").field("v"))
+            .subAggregation(new ValueCountAggregationBuilder("count").field("v"))
+            .subAggregation(new StatsAggregationBuilder("stats").field("v"));
+        MappedFieldType[] fieldTypes = new MappedFieldType[] {
+            new DateFieldMapper.DateFieldType("@timestamp"),
+            new NumberFieldMapper.NumberFieldType("v", NumberFieldMapper.NumberType.DOUBLE) };
+        long rollupInterval = TimeValue.timeValueHours(1).millis();
+        try (Directory directory = newDirectory()) {
+            IndexWriterConfig config = new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE)
+                .setCodec(TestUtil.alwaysDocValuesFormat(new ES87TimeSeriesRollupDocValuesFormat(rollupInterval, field -> {
+                    return field.equals("v") ? NumericType.DOUBLE : null;
+                })))
+                .setIndexSort(
+                    new Sort(
+                        new SortField(TimeSeriesIdFieldMapper.NAME, SortField.Type.STRING, false),
+                        new SortedNumericSortField(DataStreamTimestampFieldMapper.DEFAULT_PATH, SortField.Type.LONG, true)
+                    )
+                );
+            try (IndexWriter iw = new IndexWriter(directory, config)) {
+                long start = asLong("2022-01-01T00:00:00");
+                for (int day = 0; day < 3; day++) {
+                    for (int minute = 0; minute < 24 * 60; minute += 30) {
+                        long timestamp = start + TimeValue.timeValueDays(day).millis() + TimeValue.timeValueMinutes(minute + 10).millis();
+                        for (int tsid = 0; tsid < 3; tsid++) {
+                            List<IndexableField> doc = new ArrayList<>();
+                            doc.add(new SortedDocValuesField(TimeSeriesIdFieldMapper.NAME, new BytesRef("tsid" + tsid)));
+                            doc.add(new LongPoint("@timestamp", timestamp));
+                            doc.add(new SortedNumericDocValuesField("@timestamp", timestamp));
+                            if (tsid != 2) {
+                                // One time series doesn't have the metric
+                                double value = randomIntBetween(-1000, 1000);
+                                doc.add(new SortedNumericDocValuesField("v", NumericUtils.doubleToSortableLong(value)));
+                            }
+                            iw.addDocument(doc);
+                        }
+                    }
+                    iw.flush();
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                IndexSearcher searcher = newIndexSearcher(reader);
+                InternalDateHistogram[] withoutRollups = new InternalDateHistogram[1];
+                debugTestCase(
+                    builder,
+                    query,
+                    searcher,
+                    (InternalDateHistogram result, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                        withoutRollups[0] = result;
+                    },
+                    fieldTypes
+                );
+                timeSeriesRollupInterval = TimeValue.timeValueMillis(rollupInterval);
+                debugTestCase(
+                    builder,
+                    query,
+                    searcher,
+                    (InternalDateHistogram result, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                        assertThat(impl, equalTo(expectedImpl));
+                        assertThat(result, equalTo(withoutRollups[0]));
+                        verify.accept(result, debug.get("h"));
+                    },
+                    fieldTypes
+                );
+            }
+        }
+    }
+
     private void testSearchCase(
         Query query,
         List<String> dataset,
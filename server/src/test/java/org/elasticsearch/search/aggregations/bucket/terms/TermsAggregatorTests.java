@@ -20,7 +20,10 @@ import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
@@ -28,6 +31,8 @@ import org.apache.lucene.search.FieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.search.TotalHits;
 import org.apache.lucene.store.Directory;
@@ -35,6 +40,7 @@ import org.apache.lucene.tests.index.RandomIndexWriter;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.NumericUtils;
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.DataStream;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.geo.GeoPoint;
 import org.elasticsearch.common.lucene.search.Queries;
@@ -44,6 +50,7 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.MockBigArrays;
 import org.elasticsearch.common.util.MockPageCacheRecycler;
 import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.Strings;
 import org.elasticsearch.index.mapper.DateFieldMapper.DateFieldType;
 import org.elasticsearch.index.mapper.DocCountFieldMapper;
@@ -66,6 +73,7 @@ import org.elasticsearch.index.mapper.ProvidedIdFieldMapper;
 import org.elasticsearch.index.mapper.RangeFieldMapper;
 import org.elasticsearch.index.mapper.RangeType;
 import org.elasticsearch.index.mapper.SeqNoFieldMapper;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
 import org.elasticsearch.index.mapper.Uid;
 import org.elasticsearch.index.query.MatchAllQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
@@ -77,6 +85,7 @@ import org.elasticsearch.script.ScriptModule;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.script.ScriptType;
 import org.elasticsearch.script.StringFieldScript;
+import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
@@ -84,9 +93,11 @@ import org.elasticsearch.search.aggregations.AggregationExecutionException;
 import org.elasticsearch.search.aggregations.AggregationReduceContext;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.BucketCollector;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.MultiBucketCollector;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService.TooManyBucketsException;
 import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
@@ -111,6 +122,7 @@ import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator.Pipelin
 import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
+import org.elasticsearch.search.aggregations.support.TimeSeriesIndexSearcher;
 import org.elasticsearch.search.aggregations.support.ValueType;
 import org.elasticsearch.search.aggregations.support.ValuesSourceType;
 import org.elasticsearch.search.lookup.SearchLookup;
@@ -132,6 +144,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
@@ -143,6 +156,7 @@ import static java.util.stream.Collectors.toList;
 import static org.elasticsearch.index.mapper.SeqNoFieldMapper.PRIMARY_TERM_NAME;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
 import static org.elasticsearch.search.aggregations.PipelineAggregatorBuilders.bucketScript;
+import static org.elasticsearch.test.InternalAggregationTestCase.DEFAULT_MAX_BUCKETS;
 import static org.elasticsearch.test.MapMatcher.assertMap;
 import static org.elasticsearch.test.MapMatcher.matchesMap;
 import static org.hamcrest.Matchers.closeTo;
@@ -153,10 +167,16 @@ import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
 
 public class TermsAggregatorTests extends AggregatorTestCase {
 
     private boolean randomizeAggregatorImpl = true;
+    /**
+     * Most tests index several segments without loading their global ordinals
+     * so they'd collect segment ordinals unless we tell them not to.
+     */
+    private Boolean skipGlobalOrds = false;
 
     // Constants for a script that returns a string
     private static final String STRING_SCRIPT_NAME = "string_script";
@@ -188,10 +208,12 @@ public class TermsAggregatorTests extends AggregatorTestCase {
                 TermsAggregatorFactory.COLLECT_SEGMENT_ORDS = randomBoolean();
                 TermsAggregatorFactory.REMAP_GLOBAL_ORDS = randomBoolean();
             }
+            TermsAggregatorFactory.SKIP_GLOBAL_ORDS = skipGlobalOrds;
             return super.createAggregator(aggregationBuilder, context);
         } finally {
             TermsAggregatorFactory.COLLECT_SEGMENT_ORDS = null;
             TermsAggregatorFactory.REMAP_GLOBAL_ORDS = null;
+            TermsAggregatorFactory.SKIP_GLOBAL_ORDS = null;
         }
     }
 
@@ -1601,6 +1623,175 @@ public class TermsAggregatorTests extends AggregatorTestCase {
         );
     }
 
+    public void testSegmentOrdinals() throws IOException {
+        randomizeAggregatorImpl = false;
+        skipGlobalOrds = true;
+        boolean hasDocCountField = randomBoolean();
+        IncludeExclude includeExclude = randomBoolean() ? null : new IncludeExclude(null, "v1.*", null, null);
+        Map<String, Long> expected = new TreeMap<>();
+        KeywordFieldType ft = new KeywordFieldType("k", false, true, Collections.emptyMap());
+        CheckedConsumer<RandomIndexWriter, IOException> buildIndex = iw -> {
+            int docs = between(100, 1000);
+            for (int d = 0; d < docs; d++) {
+                int count = hasDocCountField ? between(1, 10) : 1;
+                List<IndexableField> doc = new ArrayList<>();
+                for (String value : randomSubsetOf(between(1, 3), List.of("v0", "v1", "v2", "v10", "v11", "v20"))) {
+                    doc.add(new SortedSetDocValuesField("k", new BytesRef(value)));
+                    if (includeExclude == null || includeExclude.convertToStringFilter(DocValueFormat.RAW).accept(new BytesRef(value))) {
+                        expected.merge(value, (long) count, Long::sum);
+                    }
+                }
+                if (hasDocCountField) {
+                    doc.add(DocCountFieldMapper.field(count));
+                }
+                iw.addDocument(doc);
+                if (rarely()) {
+                    iw.commit();
+                }
+            }
+        };
+        debugTestCase(
+            new TermsAggregationBuilder("k").field("k").includeExclude(includeExclude).order(BucketOrder.key(true)),
+            new MatchAllDocsQuery(),
+            buildIndex,
+            (StringTerms result, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                assertThat(impl, equalTo(MapStringTermsAggregator.SegmentOrdinals.class));
+                Map<String, Long> actual = new TreeMap<>();
+                for (StringTerms.Bucket bucket : result.getBuckets()) {
+                    actual.put(bucket.getKeyAsString(), bucket.getDocCount());
+                }
+                assertThat(actual, equalTo(expected));
+                assertMap(
+                    debug,
+                    matchesMap().entry(
+                        "k",
+                        matchesMap().extraOk()
+                            .entry("result_strategy", "terms")
+                            .entry("total_buckets", (long) expected.size())
+                            .entry("segments_with_multi_valued_ords", greaterThan(0))
+                    )
+                );
+            },
+            ft
+        );
+    }
+
+    public void testSegmentOrdinalsWhenGlobalOrdinalsAreNotLoaded() throws IOException {
+        randomizeAggregatorImpl = false;
+        skipGlobalOrds = null;
+        KeywordFieldType ft = new KeywordFieldType("k", false, true, Collections.emptyMap());
+        CheckedConsumer<RandomIndexWriter, IOException> buildIndex = iw -> {
+            for (int i = 0; i < TermsAggregatorFactory.MIN_SEGMENT_ORDS_TO_SKIP_GLOBAL_ORDS; i++) {
+                iw.addDocument(List.of(new SortedDocValuesField("k", new BytesRef(Strings.format("v%04d", i)))));
+                if (i == 0) {
+                    iw.commit(); // Force two segments
+                }
+            }
+        };
+        Query query = SortedDocValuesField.newSlowRangeQuery("k", new BytesRef("v0000"), new BytesRef("v0099"), true, true);
+        withNonMergingIndex(buildIndex, searcher -> {
+            debugTestCase(
+                new TermsAggregationBuilder("k").field("k").order(BucketOrder.key(true)),
+                query,
+                searcher,
+                (StringTerms result, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                    assertThat(impl, equalTo(MapStringTermsAggregator.SegmentOrdinals.class));
+                    assertThat(result.getBuckets(), hasSize(10));
+                    assertThat(result.getBuckets().get(0).getKeyAsString(), equalTo("v0000"));
+                },
+                ft
+            );
+            // Collecting all documents is faster with global ordinals
+            debugTestCase(
+                new TermsAggregationBuilder("k").field("k"),
+                new MatchAllDocsQuery(),
+                searcher,
+                (StringTerms result, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                    assertThat(impl, equalTo(GlobalOrdinalsStringTermsAggregator.class));
+                },
+                ft
+            );
+            // Sub-aggregations need the global ordinals
+            debugTestCase(
+                new TermsAggregationBuilder("k").field("k").subAggregation(AggregationBuilders.cardinality("c").field("k")),
+                query,
+                searcher,
+                (StringTerms result, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                    assertThat(impl, equalTo(GlobalOrdinalsStringTermsAggregator.class));
+                },
+                ft
+            );
+        });
+    }
+
+    public void testNoSegmentOrdinalsInTimeSeriesOrder() throws IOException {
+        randomizeAggregatorImpl = false;
+        skipGlobalOrds = true;
+        final Map<String, Long> expected = new TreeMap<>();
+        final KeywordFieldType ft = new KeywordFieldType("k", false, true, Collections.emptyMap());
+        try (Directory directory = newDirectory()) {
+            final IndexWriterConfig config = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE)
+                .setIndexSort(
+                    new Sort(
+                        new SortField(TimeSeriesIdFieldMapper.NAME, SortField.Type.STRING),
+                        new SortField(DataStream.TimestampField.FIXED_TIMESTAMP_FIELD, SortField.Type.LONG, true)
+                    )
+                );
+            final int numSegments = between(2, 10);
+            try (IndexWriter iw = new IndexWriter(directory, config)) {
+                for (int segment = 0; segment < numSegments; segment++) {
+                    for (int i = between(1, 100); i > 0; i--) {
+                        final String value = "v" + between(0, 20);
+                        expected.merge(value, 1L, Long::sum);
+                        iw.addDocument(
+                            List.of(
+                                new SortedDocValuesField(TimeSeriesIdFieldMapper.NAME, new BytesRef("tsid" + between(0, 5))),
+                                new NumericDocValuesField(DataStream.TimestampField.FIXED_TIMESTAMP_FIELD, randomLongBetween(0, 1000)),
+                                new SortedSetDocValuesField("k", new BytesRef(value))
+                            )
+                        );
+                    }
+                    iw.flush();
+                }
+            }
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                assertEquals(numSegments, reader.leaves().size());
+                final IndexSearcher searcher = new IndexSearcher(reader);
+                // a sibling of a time_series aggregation, which requires collecting in time series order
+                final AggregationContext context = createAggregationContext(
+                    searcher,
+                    createIndexSettings(),
+                    new MatchAllDocsQuery(),
+                    new NoneCircuitBreakerService(),
+                    AggregationBuilder.DEFAULT_PREALLOCATION * 5,
+                    DEFAULT_MAX_BUCKETS,
+                    true,
+                    ft
+                );
+                try {
+                    final Aggregator terms = createAggregator(
+                        new TermsAggregationBuilder("k").field("k").size(expected.size()).order(BucketOrder.key(true)),
+                        context
+                    );
+                    // both aggregate segment ordinals until the next segment starts
+                    assertThat(terms, not(instanceOf(MapStringTermsAggregator.SegmentOrdinals.class)));
+                    assertThat(terms, not(instanceOf(GlobalOrdinalsStringTermsAggregator.LowCardinality.class)));
+                    final BucketCollector collector = MultiBucketCollector.wrap(true, List.of(terms));
+                    collector.preCollection();
+                    new TimeSeriesIndexSearcher(searcher, List.of()).search(new MatchAllDocsQuery(), collector);
+                    collector.postCollection();
+                    final Map<String, Long> actual = new TreeMap<>();
+                    for (StringTerms.Bucket bucket : ((StringTerms) terms.buildTopLevel()).getBuckets()) {
+                        actual.put(bucket.getKeyAsString(), bucket.getDocCount());
+                    }
+                    assertThat(actual, equalTo(expected));
+                } finally {
+                    Releasables.close(context);
+                }
+            }
+        }
+    }
+
     public void testNumberToStringValueScript() throws IOException {
         MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType("number", NumberFieldMapper.NumberType.INTEGER);
 
@@ -14,16 +14,27 @@ import org.apache.lucene.document.NumericDocValuesField;
 import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.FieldExistsQuery;
+import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Weight;
 import org.apache.lucene.tests.index.RandomIndexWriter;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.common.geo.GeoPoint;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.core.Releasables;
+import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.LongScriptFieldType;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.index.mapper.RangeFieldMapper;
@@ -36,15 +47,24 @@ import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.script.ScriptType;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.AggregationReduceContext;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorCollectorManager;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
 import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.bucket.global.Global;
 import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
 import org.elasticsearch.search.aggregations.support.ValuesSourceType;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -53,11 +73,16 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.singleton;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
 
 public class CardinalityAggregatorTests extends AggregatorTestCase {
 
@@ -78,6 +103,34 @@ public class CardinalityAggregatorTests extends AggregatorTestCase {
 
     public static final int HASHER_DEFAULT_SEED = 17;
 
+    /**
+     * The cache of the sketches of the {@code number} and {@code str_values}
+     * fields or {@code null} to not cache them.
+     */
+    private CardinalitySketchCache sketchCache;
+
+    @Override
+    protected CardinalitySketchCache getCardinalitySketchCache() {
+        return sketchCache;
+    }
+
+    @Override
+    protected IndexSettings createIndexSettings() {
+        return new IndexSettings(
+            IndexMetadata.builder("_index")
+                .settings(
+                    Settings.builder()
+                        .put(IndexMetadata.SETTING_VERSION_CREATED, Version.CURRENT)
+                        .putList(IndexSettings.CARDINALITY_CACHED_FIELDS.getKey(), "number", "str_values")
+                )
+                .numberOfShards(1)
+                .numberOfReplicas(0)
+                .creationDate(System.currentTimeMillis())
+                .build(),
+            Settings.EMPTY
+        );
+    }
+
     @Override
     protected ScriptService getMockScriptService() {
         final Map<String, Function<Map<String, Object>, Object>> scripts = new HashMap<>();
@@ -593,6 +646,219 @@ public class CardinalityAggregatorTests extends AggregatorTestCase {
         }, new AggTestConfig(aggregationBuilder, mappedFieldTypes));
     }
 
+    public void testCachedSketches() throws IOException {
+        sketchCache = new CardinalitySketchCache(Settings.EMPTY);
+        MappedFieldType[] fieldTypes = {
+            new NumberFieldMapper.NumberFieldType("number", NumberFieldMapper.NumberType.LONG),
+            new KeywordFieldMapper.KeywordFieldType("str_values") };
+        withNonMergingIndex(this::buildCachedSketchesIndex, searcher -> {
+            int segments = searcher.getIndexReader().leaves().size();
+            for (String field : List.of("number", "str_values")) {
+                for (int run = 0; run < 2; run++) {
+                    debugTestCase(
+                        new CardinalityAggregationBuilder("c").field(field),
+                        new MatchAllDocsQuery(),
+                        searcher,
+                        (InternalCardinality card, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                            assertThat(impl, equalTo(CardinalityAggregator.class));
+                            assertEquals(field.equals("number") ? 200 : 50, card.getValue());
+                            assertThat(debug.get("c").get("cached_sketches_used"), equalTo(segments));
+                        },
+                        fieldTypes
+                    );
+                    // The second run reuses the sketches of the first one
+                    assertThat(sketchCache.count(), equalTo(field.equals("number") ? segments : 2 * segments));
+                }
+            }
+        });
+        // Closing the segments drops their sketches
+        assertThat(sketchCache.count(), equalTo(0));
+    }
+
+    public void testCachedSketchesWithQueryOnPartOfTheSegments() throws IOException {
+        sketchCache = new CardinalitySketchCache(Settings.EMPTY);
+        MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType("number", NumberFieldMapper.NumberType.LONG);
+        Query query = IntPoint.newRangeQuery("point", 0, 149);
+        withNonMergingIndex(this::buildCachedSketchesIndex, searcher -> {
+            Weight weight = searcher.createWeight(searcher.rewrite(query), ScoreMode.COMPLETE_NO_SCORES, 1f);
+            int segmentsMatchingAllDocs = 0;
+            for (LeafReaderContext ctx : searcher.getIndexReader().leaves()) {
+                if (weight.count(ctx) == ctx.reader().maxDoc()) {
+                    segmentsMatchingAllDocs++;
+                }
+            }
+            assertThat(segmentsMatchingAllDocs, greaterThan(0));
+            int expectedCachedSketchesUsed = segmentsMatchingAllDocs;
+            debugTestCase(
+                new CardinalityAggregationBuilder("c").field("number"),
+                query,
+                searcher,
+                (InternalCardinality card, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                    assertEquals(150, card.getValue());
+                    assertThat(debug.get("c").get("cached_sketches_used"), equalTo(expectedCachedSketchesUsed));
+                },
+                fieldType
+            );
+        });
+    }
+
+    public void testRebuildingEvictedSketchesDoesNotAddClosedListeners() throws IOException {
+        // a cache that is too small for any sketch evicts every sketch as soon as it is built
+        sketchCache = new CardinalitySketchCache(Settings.builder().put(CardinalitySketchCache.SIZE_SETTING.getKey(), "1b").build());
+        withNonMergingIndex(iw -> iw.addDocument(singleton(new SortedNumericDocValuesField("number", 1))), searcher -> {
+            IndexReader.CacheHelper cacheHelper = searcher.getIndexReader().leaves().get(0).reader().getCoreCacheHelper();
+            AtomicInteger closedListeners = new AtomicInteger();
+            IndexReader.CacheHelper countingCacheHelper = new IndexReader.CacheHelper() {
+                @Override
+                public IndexReader.CacheKey getKey() {
+                    return cacheHelper.getKey();
+                }
+
+                @Override
+                public void addClosedListener(IndexReader.ClosedListener listener) {
+                    closedListeners.incrementAndGet();
+                    cacheHelper.addClosedListener(listener);
+                }
+            };
+            int builds = between(2, 10);
+            for (int i = 0; i < builds; i++) {
+                for (String field : List.of("number", "str_values")) {
+                    sketchCache.getOrBuild(countingCacheHelper, field, HyperLogLogPlusPlus.DEFAULT_PRECISION, bigArrays -> {
+                        HyperLogLogPlusPlus sketch = new HyperLogLogPlusPlus(HyperLogLogPlusPlus.DEFAULT_PRECISION, bigArrays, 1);
+                        sketch.collect(0, randomLong());
+                        return sketch;
+                    });
+                }
+                assertThat(sketchCache.count(), equalTo(0));
+            }
+            assertThat(closedListeners.get(), equalTo(1));
+        });
+    }
+
+    public void testNoCachedSketchesForOtherFields() throws IOException {
+        sketchCache = new CardinalitySketchCache(Settings.EMPTY);
+        MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType("other", NumberFieldMapper.NumberType.LONG);
+        debugTestCase(
+            new CardinalityAggregationBuilder("c").field("other"),
+            new MatchAllDocsQuery(),
+            iw -> {
+                for (int i = 0; i < 10; i++) {
+                    iw.addDocument(singleton(new SortedNumericDocValuesField("other", i)));
+                }
+            },
+            (InternalCardinality card, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                assertEquals(10, card.getValue());
+                assertThat(debug.get("c"), not(hasKey("cached_sketches_used")));
+            },
+            fieldType
+        );
+        assertThat(sketchCache.count(), equalTo(0));
+    }
+
+    public void testNoCachedSketchesForRuntimeFields() throws IOException {
+        sketchCache = new CardinalitySketchCache(Settings.EMPTY);
+        MappedFieldType indexedField = new NumberFieldMapper.NumberFieldType("number", NumberFieldMapper.NumberType.LONG);
+        // a runtime field that shadows the indexed field, which has no values as the docs have no _source
+        MappedFieldType runtimeField = LongScriptFieldType.sourceOnly("number").asMappedFieldTypes().findFirst().orElseThrow();
+        withNonMergingIndex(iw -> {
+            for (int i = 0; i < 10; i++) {
+                iw.addDocument(singleton(new SortedNumericDocValuesField("number", i)));
+            }
+        }, searcher -> {
+            debugTestCase(
+                new CardinalityAggregationBuilder("c").field("number"),
+                new MatchAllDocsQuery(),
+                searcher,
+                (InternalCardinality card, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                    assertEquals(10, card.getValue());
+                    assertThat(debug.get("c").get("cached_sketches_used"), equalTo(searcher.getIndexReader().leaves().size()));
+                },
+                indexedField
+            );
+            int cachedSketches = sketchCache.count();
+            debugTestCase(
+                new CardinalityAggregationBuilder("c").field("number"),
+                new MatchAllDocsQuery(),
+                searcher,
+                (InternalCardinality card, Class<? extends Aggregator> impl, Map<String, Map<String, Object>> debug) -> {
+                    assertEquals(0, card.getValue());
+                    assertThat(debug.get("c"), not(hasKey("cached_sketches_used")));
+                },
+                runtimeField
+            );
+            assertThat(sketchCache.count(), equalTo(cachedSketches));
+        });
+    }
+
+    public void testConcurrentSlices() throws IOException {
+        MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType("number", NumberFieldMapper.NumberType.LONG);
+        CardinalityAggregationBuilder builder = new CardinalityAggregationBuilder("c").field("number");
+        assertTrue(builder.supportsParallelCollection());
+        assertFalse(
+            new CardinalityAggregationBuilder("c").script(new Script(ScriptType.INLINE, MockScriptEngine.NAME, "_value", emptyMap()))
+                .supportsParallelCollection()
+        );
+        ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            withNonMergingIndex(iw -> {
+                for (int i = 0; i < 1000; i++) {
+                    iw.addDocument(singleton(new SortedNumericDocValuesField("number", i % 600)));
+                    if (i % 50 == 49) {
+                        iw.commit();
+                    }
+                }
+            }, searcher -> {
+                ContextIndexSearcher concurrentSearcher = new ContextIndexSearcher(
+                    searcher.getIndexReader(),
+                    IndexSearcher.getDefaultSimilarity(),
+                    IndexSearcher.getDefaultQueryCache(),
+                    IndexSearcher.getDefaultQueryCachingPolicy(),
+                    false,
+                    threadPool.executor(ThreadPool.Names.SEARCH_WORKER)
+                );
+                assertThat(concurrentSearcher.getSlices().length, greaterThan(1));
+                AggregationContext context = createAggregationContext(concurrentSearcher, new MatchAllDocsQuery(), fieldType);
+                try {
+                    AggregatorFactories.Builder builders = new AggregatorFactories.Builder().addAggregator(builder);
+                    InternalAggregations result = concurrentSearcher.search(
+                        new MatchAllDocsQuery(),
+                        new AggregatorCollectorManager(
+                            builders.build(context, null),
+                            () -> new AggregationReduceContext.ForPartial(BigArrays.NON_RECYCLING_INSTANCE, null, () -> false, builders)
+                        )
+                    );
+                    // every slice counts its own sketch and the partial reduce merges them
+                    InternalCardinality card = result.get("c");
+                    assertEquals(600, card.getValue());
+                } finally {
+                    Releasables.close(context);
+                }
+            });
+        } finally {
+            terminate(threadPool);
+        }
+    }
+
+    /**
+     * Index {@code 200} docs in a few segments. Every doc has its own
+     * {@code number} and one of {@code 50} {@code str_values}.
+     */
+    private void buildCachedSketchesIndex(RandomIndexWriter iw) throws IOException {
+        for (int i = 0; i < 200; i++) {
+            iw.addDocument(
+                List.of(
+                    new IntPoint("point", i),
+                    new SortedNumericDocValuesField("number", i),
+                    new SortedSetDocValuesField("str_values", new BytesRef("s" + i % 50)),
+                    new SortedSetDocValuesField("str_values", new BytesRef("s" + (i + 1) % 50))
+                )
+            );
+            if (i % 50 == 49) {
+                iw.commit();
+            }
+        }
+    }
+
     private void testAggregation(
         Query query,
         CheckedConsumer<RandomIndexWriter, IOException> buildIndex,
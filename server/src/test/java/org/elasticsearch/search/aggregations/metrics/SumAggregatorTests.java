@@ -14,24 +14,32 @@ import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.FieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.tests.index.RandomIndexWriter;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.cluster.metadata.DataStream;
 import org.elasticsearch.common.TriConsumer;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.index.mapper.NumberFieldMapper.NumberType;
+import org.elasticsearch.index.mapper.TimeSeriesIdFieldMapper;
 import org.elasticsearch.script.MockScriptEngine;
 import org.elasticsearch.script.Script;
 import org.elasticsearch.script.ScriptEngine;
@@ -39,9 +47,15 @@ import org.elasticsearch.script.ScriptModule;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.script.ScriptType;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.BucketCollector;
+import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.search.aggregations.MultiBucketCollector;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.aggregations.support.AggregationInspectionHelper;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
+import org.elasticsearch.search.aggregations.support.TimeSeriesIndexSearcher;
 import org.elasticsearch.search.aggregations.support.ValuesSourceType;
 import org.elasticsearch.search.lookup.LeafDocLookup;
 
@@ -59,6 +73,7 @@ import static java.util.Collections.emptyMap;
 import static java.util.Collections.singleton;
 import static java.util.Collections.singletonMap;
 import static java.util.stream.Collectors.toList;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.max;
 import static org.elasticsearch.search.aggregations.AggregationBuilders.sum;
 
 public class SumAggregatorTests extends AggregatorTestCase {
@@ -335,6 +350,58 @@ public class SumAggregatorTests extends AggregatorTestCase {
         });
     }
 
+    /**
+     * The {@link TimeSeriesIndexSearcher} creates the collectors of all segments before it collects any doc, so the docs that sibling
+     * top level aggregators buffer for each segment must all be collected.
+     */
+    public void testSiblingsOfTimeSeriesAggregation() throws IOException {
+        final long[] expected = { 0L, Long.MIN_VALUE };
+        try (Directory directory = newDirectory()) {
+            final IndexWriterConfig config = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE)
+                .setIndexSort(
+                    new Sort(
+                        new SortField(TimeSeriesIdFieldMapper.NAME, SortField.Type.STRING),
+                        new SortField(DataStream.TimestampField.FIXED_TIMESTAMP_FIELD, SortField.Type.LONG, true)
+                    )
+                );
+            final int numSegments = between(2, 10);
+            try (IndexWriter iw = new IndexWriter(directory, config)) {
+                for (int segment = 0; segment < numSegments; segment++) {
+                    for (int i = between(1, 2 * LeafBucketCollector.BLOCK_SIZE); i > 0; i--) {
+                        final long value = randomLongBetween(-1000, 1000);
+                        expected[0] += value;
+                        expected[1] = Math.max(expected[1], value);
+                        iw.addDocument(
+                            List.of(
+                                new SortedDocValuesField(TimeSeriesIdFieldMapper.NAME, new BytesRef("tsid" + between(0, 5))),
+                                new NumericDocValuesField(DataStream.TimestampField.FIXED_TIMESTAMP_FIELD, randomLongBetween(0, 1000)),
+                                new NumericDocValuesField(FIELD_NAME, value)
+                            )
+                        );
+                    }
+                    iw.flush();
+                }
+            }
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                assertEquals(numSegments, reader.leaves().size());
+                final IndexSearcher searcher = new IndexSearcher(reader);
+                final AggregationContext context = createAggregationContext(searcher, new MatchAllDocsQuery(), defaultFieldType());
+                try {
+                    final Aggregator sum = createAggregator(sum("sum").field(FIELD_NAME), context);
+                    final Aggregator max = createAggregator(max("max").field(FIELD_NAME), context);
+                    final BucketCollector collector = MultiBucketCollector.wrap(true, List.of(sum, max));
+                    collector.preCollection();
+                    new TimeSeriesIndexSearcher(searcher, List.of()).search(new MatchAllDocsQuery(), collector);
+                    collector.postCollection();
+                    assertEquals(expected[0], ((Sum) sum.buildTopLevel()).value(), 0d);
+                    assertEquals(expected[1], ((Max) max.buildTopLevel()).value(), 0d);
+                } finally {
+                    Releasables.close(context);
+                }
+            }
+        }
+    }
+
     private void sumRandomDocsTestCase(
         int valuesPerField,
         SumAggregationBuilder builder,
@@ -52,12 +52,15 @@ import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.common.lucene.index.ElasticsearchDirectoryReader;
 import org.elasticsearch.common.lucene.index.SequentialStoredFieldsLeafReader;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.core.IOUtils;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.cache.bitset.BitsetFilterCache;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.lucene.util.CombinedBitSet;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
+import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.IndexSettingsModule;
 
@@ -66,12 +69,14 @@ import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import static org.elasticsearch.search.internal.ContextIndexSearcher.intersectScorerAndBitSet;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitableLeafReader;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitablePointValues;
 import static org.elasticsearch.search.internal.ExitableDirectoryReader.ExitableTerms;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 
 public class ContextIndexSearcherTests extends ESTestCase {
@@ -271,6 +276,69 @@ public class ContextIndexSearcherTests extends ESTestCase {
         IOUtils.close(reader, w, dir);
     }
 
+    public void testConcurrentSearch() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriter w = new IndexWriter(dir, newIndexWriterConfig(null).setMergePolicy(NoMergePolicy.INSTANCE));
+        int numSegments = randomIntBetween(6, 20);
+        for (int i = 0; i < numSegments; i++) {
+            int numDocs = randomIntBetween(1, 50);
+            for (int j = 0; j < numDocs; j++) {
+                Document doc = new Document();
+                doc.add(new StringField("foo", randomBoolean() ? "bar" : "baz", Field.Store.NO));
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        DirectoryReader reader = DirectoryReader.open(w);
+        ThreadContext threadContext = new ThreadContext(Settings.EMPTY);
+        ExecutorService executor = EsExecutors.newFixed(
+            "testConcurrentSearch",
+            randomIntBetween(1, 4),
+            -1,
+            EsExecutors.daemonThreadFactory("search_worker"),
+            threadContext,
+            false
+        );
+        try {
+            ContextIndexSearcher sequential = new ContextIndexSearcher(
+                reader,
+                IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(),
+                IndexSearcher.getDefaultQueryCachingPolicy(),
+                true
+            );
+            ContextIndexSearcher concurrent = new ContextIndexSearcher(
+                reader,
+                IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(),
+                IndexSearcher.getDefaultQueryCachingPolicy(),
+                true,
+                executor
+            );
+            assertFalse(sequential.isConcurrentSearchEnabled());
+            assertTrue(concurrent.isConcurrentSearchEnabled());
+            assertThat(concurrent.getSlices().length, greaterThan(1));
+
+            Query query = new TermQuery(new Term("foo", "bar"));
+            assertEquals(sequential.count(query), concurrent.count(query));
+            TopDocs expected = sequential.search(query, 10);
+            TopDocs actual = concurrent.search(query, 10);
+            assertEquals(expected.totalHits, actual.totalHits);
+            assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+            for (int i = 0; i < expected.scoreDocs.length; i++) {
+                assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+                assertEquals(expected.scoreDocs[i].score, actual.scoreDocs[i].score, 0f);
+            }
+
+            // cancellation exceptions that are thrown by the slices are not wrapped
+            concurrent.addQueryCancellation(() -> { throw new TaskCancelledException("cancelled"); });
+            expectThrows(TaskCancelledException.class, () -> concurrent.search(query, 10));
+        } finally {
+            terminate(executor);
+            IOUtils.close(reader, w, dir);
+        }
+    }
+
     private SparseFixedBitSet query(LeafReaderContext leaf, String field, String value) throws IOException {
         SparseFixedBitSet sparseFixedBitSet = new SparseFixedBitSet(leaf.reader().maxDoc());
         TermsEnum tenum = leaf.reader().terms(field).iterator();
@@ -58,6 +58,9 @@ import org.apache.lucene.tests.index.RandomIndexWriter;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.FixedBitSet;
 import org.elasticsearch.action.search.SearchShardTask;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.NumberFieldMapper;
@@ -81,6 +84,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.function.IntUnaryOperator;
 
 import static org.elasticsearch.search.query.TopDocsCollectorContext.hasInfMaxScore;
@@ -185,6 +189,80 @@ public class QueryPhaseTests extends IndexShardTestCase {
         countTestCase(true);
     }
 
+    public void testConcurrentSearch() throws Exception {
+        Directory dir = newDirectory();
+        IndexWriterConfig iwc = newIndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+        IndexWriter w = new IndexWriter(dir, iwc);
+        final int numSegments = randomIntBetween(6, 12);
+        for (int i = 0; i < numSegments; i++) {
+            final int numDocs = randomIntBetween(10, 50);
+            for (int j = 0; j < numDocs; j++) {
+                Document doc = new Document();
+                doc.add(new StringField("foo", randomBoolean() ? "bar" : "baz", Store.NO));
+                doc.add(new NumericDocValuesField("rank", randomIntBetween(0, 100)));
+                w.addDocument(doc);
+            }
+            w.commit();
+        }
+        w.close();
+
+        ExecutorService executor = EsExecutors.newFixed(
+            "test",
+            randomIntBetween(2, 4),
+            -1,
+            EsExecutors.daemonThreadFactory("test"),
+            new ThreadContext(Settings.EMPTY),
+            false
+        );
+        try (IndexReader reader = DirectoryReader.open(dir)) {
+            ContextIndexSearcher concurrentSearcher = new ContextIndexSearcher(
+                reader,
+                IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(),
+                IndexSearcher.getDefaultQueryCachingPolicy(),
+                true,
+                executor
+            );
+            assertTrue(concurrentSearcher.isConcurrentSearchEnabled());
+            Query query = new TermQuery(new Term("foo", "bar"));
+            Sort sort = new Sort(new SortField("rank", SortField.Type.INT), SortField.FIELD_DOC);
+            int[] trackTotalHits = new int[] { SearchContext.TRACK_TOTAL_HITS_ACCURATE, 5, SearchContext.DEFAULT_TRACK_TOTAL_HITS_UP_TO };
+            for (int trackTotalHitsUpTo : trackTotalHits) {
+                for (int size : new int[] { 0, 10 }) {
+                    for (boolean sorted : new boolean[] { false, true }) {
+                        TestSearchContext sequential = new TestSearchContext(null, indexShard, newContextSearcher(reader));
+                        TestSearchContext concurrent = new TestSearchContext(null, indexShard, concurrentSearcher);
+                        for (TestSearchContext context : List.of(sequential, concurrent)) {
+                            context.setTask(new SearchShardTask(123L, "", "", "", null, Collections.emptyMap()));
+                            context.parsedQuery(new ParsedQuery(query));
+                            context.setSize(size);
+                            context.trackTotalHitsUpTo(trackTotalHitsUpTo);
+                            if (sorted) {
+                                context.sort(new SortAndFormats(sort, new DocValueFormat[] { DocValueFormat.RAW, DocValueFormat.RAW }));
+                            }
+                            assertFalse(QueryPhase.executeInternal(context));
+                        }
+                        assertTrue(QueryPhase.canCollectConcurrently(concurrent));
+                        TopDocs expected = sequential.queryResult().topDocs().topDocs;
+                        TopDocs actual = concurrent.queryResult().topDocs().topDocs;
+                        if (expected.totalHits.relation == TotalHits.Relation.EQUAL_TO) {
+                            assertEquals(expected.totalHits, actual.totalHits);
+                        } else {
+                            assertThat(actual.totalHits.value, greaterThanOrEqualTo((long) trackTotalHitsUpTo));
+                        }
+                        assertEquals(expected.scoreDocs.length, actual.scoreDocs.length);
+                        for (int i = 0; i < expected.scoreDocs.length; i++) {
+                            assertEquals(expected.scoreDocs[i].doc, actual.scoreDocs[i].doc);
+                        }
+                    }
+                }
+            }
+        } finally {
+            terminate(executor);
+            dir.close();
+        }
+    }
+
     public void testPostFilterDisablesCountOptimization() throws Exception {
         Directory dir = newDirectory();
         final Sort sort = new Sort(new SortField("rank", SortField.Type.INT));
@@ -43,6 +43,9 @@ public class KnnSearchBuilderTests extends AbstractXContentSerializingTestCase<K
         if (randomBoolean()) {
             builder.boost(randomFloat());
         }
+        if (randomBoolean()) {
+            builder.rescore(randomBoolean());
+        }
 
         int numFilters = randomIntBetween(0, 3);
         for (int i = 0; i < numFilters; i++) {
@@ -86,7 +89,7 @@ public class KnnSearchBuilderTests extends AbstractXContentSerializingTestCase<K
 
     @Override
     protected KnnSearchBuilder mutateInstance(KnnSearchBuilder instance) throws IOException {
-        switch (random().nextInt(6)) {
+        switch (random().nextInt(7)) {
 
             case 0:
                 String newField = randomValueOtherThan(instance.field, () -> randomAlphaOfLength(5));
@@ -107,6 +110,10 @@ public class KnnSearchBuilderTests extends AbstractXContentSerializingTestCase<K
                 return new KnnSearchBuilder(instance.field, instance.queryVector, instance.k, instance.numCands).addFilterQueries(
                     instance.filterQueries
                 ).boost(newBoost);
+            case 6:
+                return new KnnSearchBuilder(instance.field, instance.queryVector, instance.k, instance.numCands).addFilterQueries(
+                    instance.filterQueries
+                ).boost(instance.boost).rescore(instance.rescore == false);
             default:
                 throw new IllegalStateException();
         }
@@ -124,6 +131,8 @@ public class KnnSearchBuilderTests extends AbstractXContentSerializingTestCase<K
             boost = randomFloat();
             builder.boost(boost);
         }
+        boolean rescore = randomBoolean();
+        builder.rescore(rescore);
 
         int numFilters = random().nextInt(3);
         List<QueryBuilder> filterQueries = new ArrayList<>();
@@ -133,7 +142,9 @@ public class KnnSearchBuilderTests extends AbstractXContentSerializingTestCase<K
             builder.addFilterQuery(filter);
         }
 
-        QueryBuilder expected = new KnnVectorQueryBuilder(field, vector, numCands).addFilterQueries(filterQueries).boost(boost);
+        QueryBuilder expected = new KnnVectorQueryBuilder(field, vector, numCands).addFilterQueries(filterQueries)
+            .rescore(rescore)
+            .boost(boost);
         assertEquals(expected, builder.toQueryBuilder());
     }
 
@@ -10,7 +10,6 @@ package org.elasticsearch.search.vectors;
 
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
-import org.apache.lucene.search.KnnVectorQuery;
 import org.apache.lucene.search.Query;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.Strings;
@@ -76,6 +75,10 @@ public class KnnVectorQueryBuilderTests extends AbstractQueryTestCase<KnnVectorQ
         int numCands = randomIntBetween(1, 1000);
 
         KnnVectorQueryBuilder queryBuilder = new KnnVectorQueryBuilder(fieldName, vector, numCands);
+        if (randomBoolean()) {
+            // has no effect on the lucene query since the field doesn't index quantized vectors
+            queryBuilder.rescore(randomBoolean());
+        }
 
         if (randomBoolean()) {
             List<QueryBuilder> filters = new ArrayList<>();
@@ -91,8 +94,8 @@ public class KnnVectorQueryBuilderTests extends AbstractQueryTestCase<KnnVectorQ
 
     @Override
     protected void doAssertLuceneQuery(KnnVectorQueryBuilder queryBuilder, Query query, SearchExecutionContext context) throws IOException {
-        assertTrue(query instanceof KnnVectorQuery);
-        KnnVectorQuery knnVectorQuery = (KnnVectorQuery) query;
+        assertTrue(query instanceof MultiSegmentKnnVectorQuery);
+        MultiSegmentKnnVectorQuery knnVectorQuery = (MultiSegmentKnnVectorQuery) query;
 
         BooleanQuery.Builder builder = new BooleanQuery.Builder();
         for (QueryBuilder qb : queryBuilder.filterQueries()) {
@@ -101,7 +104,13 @@ public class KnnVectorQueryBuilderTests extends AbstractQueryTestCase<KnnVectorQ
         BooleanQuery booleanQuery = builder.build();
         Query filterQuery = booleanQuery.clauses().isEmpty() ? null : booleanQuery;
         // The field should always be resolved to the concrete field
-        Query knnVectorQueryBuilt = new KnnVectorQuery(VECTOR_FIELD, queryBuilder.queryVector(), queryBuilder.numCands(), filterQuery);
+        Query knnVectorQueryBuilt = new MultiSegmentKnnVectorQuery(
+            VECTOR_FIELD,
+            queryBuilder.queryVector(),
+            queryBuilder.numCands(),
+            filterQuery,
+            null
+        );
         assertEquals(knnVectorQuery, knnVectorQueryBuilt);
     }
 
@@ -170,6 +179,10 @@ public class KnnVectorQueryBuilderTests extends AbstractQueryTestCase<KnnVectorQ
 
         Version newVersion = VersionUtils.randomVersionBetween(random(), Version.V_8_2_0, Version.CURRENT);
         Version oldVersion = VersionUtils.randomVersionBetween(random(), Version.V_8_0_0, Version.V_8_1_0);
+        if (newVersion.before(Version.V_8_7_0)) {
+            // rescore is only serialized from 8.7.0
+            query.rescore(false);
+        }
 
         assertSerialization(query, newVersion);
         assertSerialization(queryWithNoFilters, oldVersion);
@@ -0,0 +1,206 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.search.vectors;
+
+import org.apache.lucene.codecs.lucene94.Lucene94Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.KnnVectorField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.KnnVectorQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.core.CheckedConsumer;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class MultiSegmentKnnVectorQueryTests extends ESTestCase {
+
+    private static final String FIELD = "vector";
+    private static final int DIMS = 8;
+
+    public void testSameResultsAsKnnVectorQuery() throws IOException {
+        withIndex(reader -> {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            for (int i = 0; i < 10; i++) {
+                float[] target = randomVector();
+                int k = randomIntBetween(1, 20);
+                Query filter = randomBoolean() ? null : new TermQuery(new Term("tag", randomFrom("a", "b", "c")));
+
+                MultiSegmentKnnVectorQuery query = new MultiSegmentKnnVectorQuery(FIELD, target, k, filter, null);
+                TopDocs expected = searcher.search(new KnnVectorQuery(FIELD, target, k, filter), k);
+                TopDocs actual = searcher.search(query, k);
+                assertThat(actual.scoreDocs.length, equalTo(expected.scoreDocs.length));
+                for (int j = 0; j < expected.scoreDocs.length; j++) {
+                    assertThat(actual.scoreDocs[j].doc, equalTo(expected.scoreDocs[j].doc));
+                    assertThat(actual.scoreDocs[j].score, equalTo(expected.scoreDocs[j].score));
+                }
+                assertThat(MultiSegmentKnnVectorQuery.vectorOperationsCount(searcher.rewrite(query)), greaterThan(0L));
+            }
+        });
+    }
+
+    public void testSharedTopK() throws IOException {
+        withIndex(reader -> {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            for (int i = 0; i < 10; i++) {
+                float[] target = randomVector();
+                int k = randomIntBetween(1, 20);
+
+                MultiSegmentKnnVectorQuery independent = new MultiSegmentKnnVectorQuery(FIELD, target, k, null, null);
+                MultiSegmentKnnVectorQuery shared = new MultiSegmentKnnVectorQuery(
+                    FIELD,
+                    target,
+                    k,
+                    null,
+                    new MultiSegmentKnnVectorQuery.SharedTopK(null, () -> {})
+                );
+                assertNotEquals(independent, shared);
+                Query independentRewritten = searcher.rewrite(independent);
+                Query sharedRewritten = searcher.rewrite(shared);
+                assertThat(sharedRewritten, instanceOf(KnnScoreDocQuery.class));
+                // segments that are searched after the first one stop exploring their graph earlier
+                long sharedCount = MultiSegmentKnnVectorQuery.vectorOperationsCount(sharedRewritten);
+                assertThat(sharedCount, greaterThan(0L));
+                assertThat(sharedCount, lessThanOrEqualTo(MultiSegmentKnnVectorQuery.vectorOperationsCount(independentRewritten)));
+                assertExactScores(searcher, shared, target, k);
+            }
+        });
+    }
+
+    public void testSharedTopKConcurrently() throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(randomIntBetween(1, 4));
+        try {
+            withIndex(reader -> {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                for (int i = 0; i < 10; i++) {
+                    float[] target = randomVector();
+                    int k = randomIntBetween(1, 20);
+                    Query filter = randomBoolean() ? null : new TermQuery(new Term("tag", randomFrom("a", "b", "c")));
+                    MultiSegmentKnnVectorQuery query = new MultiSegmentKnnVectorQuery(
+                        FIELD,
+                        target,
+                        k,
+                        filter,
+                        new MultiSegmentKnnVectorQuery.SharedTopK(executor, () -> {})
+                    );
+                    assertExactScores(searcher, query, target, k);
+                    assertThat(MultiSegmentKnnVectorQuery.vectorOperationsCount(searcher.rewrite(query)), greaterThan(0L));
+                }
+            });
+        } finally {
+            terminate(executor);
+        }
+    }
+
+    public void testVectorOperationsCountOfRescoredQuery() throws IOException {
+        withIndex(reader -> {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            float[] target = randomVector();
+            int k = randomIntBetween(1, 20);
+            MultiSegmentKnnVectorQuery query = new MultiSegmentKnnVectorQuery(FIELD, target, k, null, null);
+            long expected = MultiSegmentKnnVectorQuery.vectorOperationsCount(searcher.rewrite(query));
+            assertThat(expected, greaterThan(0L));
+            // the count is the same for every search, and the rescored query keeps it visible once it is rewritten
+            Query rescored = new RescoreKnnVectorQuery(query, "raw_binary", target, VectorSimilarityFunction.EUCLIDEAN);
+            assertThat(MultiSegmentKnnVectorQuery.vectorOperationsCount(rescored), equalTo(0L));
+            assertThat(MultiSegmentKnnVectorQuery.vectorOperationsCount(searcher.rewrite(rescored)), equalTo(expected));
+        });
+    }
+
+    public void testCancellation() throws IOException {
+        withIndex(reader -> {
+            IndexSearcher searcher = new IndexSearcher(reader);
+            MultiSegmentKnnVectorQuery query = new MultiSegmentKnnVectorQuery(
+                FIELD,
+                randomVector(),
+                reader.maxDoc(),
+                null,
+                new MultiSegmentKnnVectorQuery.SharedTopK(null, () -> { throw new IllegalStateException("cancelled"); })
+            );
+            IllegalStateException e = expectThrows(IllegalStateException.class, () -> searcher.rewrite(query));
+            assertThat(e.getMessage(), equalTo("cancelled"));
+        });
+    }
+
+    private static void assertExactScores(IndexSearcher searcher, Query query, float[] target, int k) throws IOException {
+        TopDocs topDocs = searcher.search(query, k);
+        assertThat(topDocs.scoreDocs.length, greaterThan(0));
+        assertThat(topDocs.scoreDocs.length, lessThanOrEqualTo(k));
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            float[] vector = vector(searcher.getIndexReader(), scoreDoc.doc);
+            assertThat(scoreDoc.score, equalTo(VectorSimilarityFunction.EUCLIDEAN.compare(target, vector)));
+        }
+    }
+
+    private static float[] vector(IndexReader reader, int doc) throws IOException {
+        String[] values = reader.document(doc).get("raw").split(",");
+        float[] vector = new float[values.length];
+        for (int i = 0; i < values.length; i++) {
+            vector[i] = Float.parseFloat(values[i]);
+        }
+        return vector;
+    }
+
+    private static float[] randomVector() {
+        float[] vector = new float[DIMS];
+        for (int i = 0; i < DIMS; i++) {
+            vector[i] = randomFloat();
+        }
+        return vector;
+    }
+
+    /**
+     * Runs the consumer with a reader over several segments of the default codec, where every document has a vector.
+     */
+    private static void withIndex(CheckedConsumer<IndexReader, IOException> consumer) throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig().setCodec(new Lucene94Codec()).setMergePolicy(NoMergePolicy.INSTANCE);
+        try (Directory directory = newDirectory(); IndexWriter writer = new IndexWriter(directory, config)) {
+            int numSegments = randomIntBetween(2, 5);
+            for (int s = 0; s < numSegments; s++) {
+                int numDocs = randomIntBetween(100, 400);
+                for (int i = 0; i < numDocs; i++) {
+                    float[] vector = randomVector();
+                    StringBuilder raw = new StringBuilder();
+                    for (float value : vector) {
+                        raw.append(raw.length() == 0 ? "" : ",").append(value);
+                    }
+                    Document document = new Document();
+                    document.add(new KnnVectorField(FIELD, vector, VectorSimilarityFunction.EUCLIDEAN));
+                    document.add(new StringField("tag", randomFrom("a", "b", "c"), StringField.Store.NO));
+                    document.add(new StringField("raw", raw.toString(), StringField.Store.YES));
+                    writer.addDocument(document);
+                }
+                writer.commit();
+            }
+            try (IndexReader reader = DirectoryReader.open(writer)) {
+                assertThat(reader.leaves().size(), equalTo(numSegments));
+                consumer.accept(reader);
+            }
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.store.LazyRestoreDirectory;
 import org.elasticsearch.repositories.IndexId;
 import org.elasticsearch.repositories.RepositoryShardId;
 import org.elasticsearch.repositories.ShardGeneration;
@@ -37,13 +38,16 @@ import org.elasticsearch.test.ESTestCase;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.util.Collections.singleton;
 import static org.elasticsearch.cluster.metadata.IndexMetadata.SETTING_VERSION_CREATED;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 
 public class SnapshotsServiceTests extends ESTestCase {
@@ -417,6 +421,62 @@ public class SnapshotsServiceTests extends ESTestCase {
         );
     }
 
+    public void testLazilyRestoredIndexBlocksSnapshotDeletionUntilAllShardsCompleted() {
+        final String repoName = "test-repo";
+        final Snapshot snapshot = snapshot(repoName, "snapshot");
+        final Snapshot otherSnapshot = snapshot(repoName, "other-snapshot");
+        final int numberOfShards = between(1, 5);
+        final IndexMetadata indexMetadata = IndexMetadata.builder("index")
+            .settings(
+                Settings.builder()
+                    .put(SETTING_VERSION_CREATED, Version.CURRENT.id)
+                    .put(LazyRestoreDirectory.INDEX_LAZY_RESTORE_SETTING.getKey(), true)
+                    .put(LazyRestoreDirectory.INDEX_LAZY_RESTORE_REPOSITORY_NAME_SETTING.getKey(), repoName)
+                    .put(LazyRestoreDirectory.INDEX_LAZY_RESTORE_SNAPSHOT_UUID_SETTING.getKey(), snapshot.getSnapshotId().getUUID())
+            )
+            .numberOfShards(numberOfShards)
+            .numberOfReplicas(0)
+            .build();
+        ClusterState state = ClusterState.builder(ClusterState.EMPTY_STATE)
+            .metadata(Metadata.builder(Metadata.EMPTY_METADATA).put(indexMetadata, false))
+            .build();
+        final Index index = indexMetadata.getIndex();
+
+        SnapshotsService.ensureNotUsedByLazyRestores(state.metadata(), repoName, List.of(otherSnapshot.getSnapshotId()));
+        SnapshotsService.ensureNotUsedByLazyRestores(state.metadata(), "other-repo", List.of(snapshot.getSnapshotId()));
+        final List<SnapshotId> snapshotIds = List.of(otherSnapshot.getSnapshotId(), snapshot.getSnapshotId());
+
+        // reports of other snapshots or indices are ignored
+        final String snapshotUuid = snapshot.getSnapshotId().getUUID();
+        assertSame(state, SnapshotsService.markLazyRestoreCompleted(state, new ShardId(index, 0), otherSnapshot.getSnapshotId().getUUID()));
+        assertSame(state, SnapshotsService.markLazyRestoreCompleted(state, new ShardId("other", uuid(), 0), snapshotUuid));
+
+        final List<Integer> shards = randomSubsetOf(numberOfShards, IntStream.range(0, numberOfShards).boxed().toList());
+        for (int shard : shards) {
+            final Metadata metadata = state.metadata();
+            expectThrows(
+                ConcurrentSnapshotExecutionException.class,
+                () -> SnapshotsService.ensureNotUsedByLazyRestores(metadata, repoName, snapshotIds)
+            );
+            final ShardId shardId = new ShardId(index, shard);
+            final ClusterState updated = SnapshotsService.markLazyRestoreCompleted(state, shardId, snapshotUuid);
+            assertNotSame(state, updated);
+            assertSame(updated, SnapshotsService.markLazyRestoreCompleted(updated, shardId, snapshotUuid));
+            assertThat(
+                updated.metadata().index(index).getSettingsVersion(),
+                equalTo(state.metadata().index(index).getSettingsVersion() + 1)
+            );
+            state = updated;
+        }
+        SnapshotsService.ensureNotUsedByLazyRestores(state.metadata(), repoName, snapshotIds);
+        final Settings settings = state.metadata().index(index).getSettings();
+        assertTrue(LazyRestoreDirectory.INDEX_LAZY_RESTORE_SETTING.get(settings));
+        assertThat(
+            settings.keySet().stream().filter(k -> k.startsWith(LazyRestoreDirectory.INDEX_LAZY_RESTORE_SOURCE_PREFIX)).toList(),
+            empty()
+        );
+    }
+
     private static DiscoveryNodes discoveryNodes(String localNodeId) {
         return DiscoveryNodes.builder()
             .add(
@@ -36,7 +36,7 @@ public class ConnectionProfileTests extends ESTestCase {
             Compression.Enabled.FALSE,
             Compression.Enabled.INDEXING_DATA
         );
-        Compression.Scheme compressionScheme = randomFrom(Compression.Scheme.DEFLATE, Compression.Scheme.LZ4);
+        Compression.Scheme compressionScheme = randomFrom(Compression.Scheme.values());
         final boolean setConnectTimeout = randomBoolean();
         if (setConnectTimeout) {
             builder.setConnectTimeout(connectTimeout);
@@ -204,7 +204,7 @@ public class ConnectionProfileTests extends ESTestCase {
         }
         final boolean connectionCompressionScheme = randomBoolean();
         if (connectionCompressionScheme) {
-            Compression.Scheme compressionScheme = randomFrom(Compression.Scheme.DEFLATE, Compression.Scheme.LZ4);
+            Compression.Scheme compressionScheme = randomFrom(Compression.Scheme.values());
             builder.setCompressionScheme(compressionScheme);
         }
 
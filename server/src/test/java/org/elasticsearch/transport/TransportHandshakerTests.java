@@ -62,7 +62,7 @@ public class TransportHandshakerTests extends ESTestCase {
     }
 
     public void testHandshakeRequestAndResponse() throws IOException {
-        PlainActionFuture<Version> versionFuture = PlainActionFuture.newFuture();
+        PlainActionFuture<TcpTransport.HandshakeResult> versionFuture = PlainActionFuture.newFuture();
         long reqId = randomLongBetween(1, 10);
         handshaker.sendHandshake(reqId, node, channel, new TimeValue(30, TimeUnit.SECONDS), versionFuture);
 
@@ -70,7 +70,7 @@ public class TransportHandshakerTests extends ESTestCase {
 
         assertFalse(versionFuture.isDone());
 
-        TransportHandshaker.HandshakeRequest handshakeRequest = new TransportHandshaker.HandshakeRequest(Version.CURRENT);
+        TransportHandshaker.HandshakeRequest handshakeRequest = new TransportHandshaker.HandshakeRequest(Version.CURRENT, true);
         BytesStreamOutput bytesStreamOutput = new BytesStreamOutput();
         handshakeRequest.writeTo(bytesStreamOutput);
         StreamInput input = bytesStreamOutput.bytes().streamInput();
@@ -82,7 +82,36 @@ public class TransportHandshakerTests extends ESTestCase {
         handler.handleResponse((TransportHandshaker.HandshakeResponse) responseFuture.actionGet());
 
         assertTrue(versionFuture.isDone());
-        assertEquals(Version.CURRENT, versionFuture.actionGet());
+        assertEquals(new TcpTransport.HandshakeResult(Version.CURRENT, true), versionFuture.actionGet());
+    }
+
+    public void testHandshakeWithNodeWithoutZstdSupport() throws IOException {
+        // a request of a node that does not know about zstd only contains its version
+        BytesStreamOutput legacyRequest = new BytesStreamOutput();
+        TaskId.EMPTY_TASK_ID.writeTo(legacyRequest);
+        try (BytesStreamOutput internalMessage = new BytesStreamOutput()) {
+            Version.writeVersion(Version.CURRENT, internalMessage);
+            legacyRequest.writeBytesReference(internalMessage.bytes());
+        }
+        final PlainActionFuture<TransportResponse> responseFuture = PlainActionFuture.newFuture();
+        handshaker.handleHandshake(new TestTransportChannel(responseFuture), randomNonNegativeLong(), legacyRequest.bytes().streamInput());
+
+        // so the response must only contain the version as well
+        TransportHandshaker.HandshakeResponse response = (TransportHandshaker.HandshakeResponse) responseFuture.actionGet();
+        assertFalse(response.isZstdSupported());
+        BytesStreamOutput responseBytes = new BytesStreamOutput();
+        response.writeTo(responseBytes);
+        BytesStreamOutput legacyResponseBytes = new BytesStreamOutput();
+        Version.writeVersion(Version.CURRENT, legacyResponseBytes);
+        assertEquals(legacyResponseBytes.bytes(), responseBytes.bytes());
+
+        // and a response of a node that does not know about zstd disables it on the connection
+        PlainActionFuture<TcpTransport.HandshakeResult> versionFuture = PlainActionFuture.newFuture();
+        long reqId = randomLongBetween(1, 10);
+        handshaker.sendHandshake(reqId, node, channel, new TimeValue(30, TimeUnit.SECONDS), versionFuture);
+        TransportResponseHandler<TransportHandshaker.HandshakeResponse> handler = handshaker.removeHandlerForHandshake(reqId);
+        handler.handleResponse(handler.read(legacyResponseBytes.bytes().streamInput()));
+        assertEquals(new TcpTransport.HandshakeResult(Version.CURRENT, false), versionFuture.actionGet());
     }
 
     public void testHandshakeRequestFutureVersionsCompatibility() throws IOException {
@@ -91,7 +120,7 @@ public class TransportHandshakerTests extends ESTestCase {
 
         verify(requestSender).sendRequest(node, channel, reqId, Version.CURRENT.minimumCompatibilityVersion());
 
-        TransportHandshaker.HandshakeRequest handshakeRequest = new TransportHandshaker.HandshakeRequest(Version.CURRENT);
+        TransportHandshaker.HandshakeRequest handshakeRequest = new TransportHandshaker.HandshakeRequest(Version.CURRENT, true);
         BytesStreamOutput currentHandshakeBytes = new BytesStreamOutput();
         handshakeRequest.writeTo(currentHandshakeBytes);
 
@@ -101,6 +130,7 @@ public class TransportHandshakerTests extends ESTestCase {
         TaskId.EMPTY_TASK_ID.writeTo(futureHandshake);
         try (BytesStreamOutput internalMessage = new BytesStreamOutput()) {
             Version.writeVersion(Version.CURRENT, internalMessage);
+            internalMessage.writeBoolean(true);
             lengthCheckingHandshake.writeBytesReference(internalMessage.bytes());
             internalMessage.write(new byte[1024]);
             futureHandshake.writeBytesReference(internalMessage.bytes());
@@ -109,7 +139,7 @@ public class TransportHandshakerTests extends ESTestCase {
         // We check that the handshake we serialize for this test equals the actual request.
         // Otherwise, we need to update the test.
         assertEquals(currentHandshakeBytes.bytes().length(), lengthCheckingHandshake.bytes().length());
-        assertEquals(1031, futureHandshakeStream.available());
+        assertEquals(1032, futureHandshakeStream.available());
         final PlainActionFuture<TransportResponse> responseFuture = PlainActionFuture.newFuture();
         final TestTransportChannel channel = new TestTransportChannel(responseFuture);
         handshaker.handleHandshake(channel, reqId, futureHandshakeStream);
@@ -118,10 +148,11 @@ public class TransportHandshakerTests extends ESTestCase {
         TransportHandshaker.HandshakeResponse response = (TransportHandshaker.HandshakeResponse) responseFuture.actionGet();
 
         assertEquals(Version.CURRENT, response.getResponseVersion());
+        assertTrue(response.isZstdSupported());
     }
 
     public void testHandshakeError() throws IOException {
-        PlainActionFuture<Version> versionFuture = PlainActionFuture.newFuture();
+        PlainActionFuture<TcpTransport.HandshakeResult> versionFuture = PlainActionFuture.newFuture();
         long reqId = randomLongBetween(1, 10);
         handshaker.sendHandshake(reqId, node, channel, new TimeValue(30, TimeUnit.SECONDS), versionFuture);
 
@@ -138,7 +169,7 @@ public class TransportHandshakerTests extends ESTestCase {
     }
 
     public void testSendRequestThrowsException() throws IOException {
-        PlainActionFuture<Version> versionFuture = PlainActionFuture.newFuture();
+        PlainActionFuture<TcpTransport.HandshakeResult> versionFuture = PlainActionFuture.newFuture();
         long reqId = randomLongBetween(1, 10);
         Version compatibilityVersion = Version.CURRENT.minimumCompatibilityVersion();
         doThrow(new IOException("boom")).when(requestSender).sendRequest(node, channel, reqId, compatibilityVersion);
@@ -152,7 +183,7 @@ public class TransportHandshakerTests extends ESTestCase {
     }
 
     public void testHandshakeTimeout() throws IOException {
-        PlainActionFuture<Version> versionFuture = PlainActionFuture.newFuture();
+        PlainActionFuture<TcpTransport.HandshakeResult> versionFuture = PlainActionFuture.newFuture();
         long reqId = randomLongBetween(1, 10);
         handshaker.sendHandshake(reqId, node, channel, new TimeValue(100, TimeUnit.MILLISECONDS), versionFuture);
 
@@ -0,0 +1,72 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.index.engine;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.core.Releasable;
+import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.translog.Translog;
+
+import java.io.IOException;
+
+/**
+ * Drives a {@link LiveVersionMap} from outside of its package, for benchmarks. Every document is indexed and deleted with
+ * version {@code 1} and primary term {@code 1}.
+ */
+public final class TestLiveVersionMap {
+
+    private final LiveVersionMap map;
+
+    /**
+     * @param paged whether to keep the versions in paged arrays, see {@link EngineConfig#INDEX_VERSION_MAP_PAGED_SETTING}
+     */
+    public TestLiveVersionMap(boolean paged) {
+        this.map = new LiveVersionMap(paged);
+    }
+
+    /**
+     * Updates are only tracked once the map is in safe access mode.
+     */
+    public void enforceSafeAccess() {
+        map.enforceSafeAccess();
+    }
+
+    public Releasable acquireLock(BytesRef uid) {
+        return map.acquireLock(uid);
+    }
+
+    /**
+     * The seq# of the live version of the uid or {@link SequenceNumbers#UNASSIGNED_SEQ_NO} if it has none.
+     */
+    public long getSeqNoUnderLock(BytesRef uid) {
+        VersionValue value = map.getUnderLock(uid);
+        return value == null ? SequenceNumbers.UNASSIGNED_SEQ_NO : value.seqNo;
+    }
+
+    public void putIndexUnderLock(BytesRef uid, long seqNo, Translog.Location location) {
+        map.putIndexUnderLock(uid, new IndexVersionValue(location, 1, seqNo, 1));
+    }
+
+    public void putDeleteUnderLock(BytesRef uid, long seqNo, long time) {
+        map.putDeleteUnderLock(uid, new DeleteVersionValue(1, seqNo, 1, time));
+    }
+
+    public void refresh() throws IOException {
+        map.beforeRefresh();
+        map.afterRefresh(true);
+    }
+
+    public void pruneTombstones(long maxTimestampToPrune, long maxSeqNoToPrune) {
+        map.pruneTombstones(maxTimestampToPrune, maxSeqNoToPrune);
+    }
+
+    public long ramBytesUsed() {
+        return map.ramBytesUsed();
+    }
+}
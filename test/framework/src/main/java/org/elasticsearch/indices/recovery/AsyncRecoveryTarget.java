@@ -124,6 +124,11 @@ public class AsyncRecoveryTarget implements RecoveryTargetHandler {
         }
     }
 
+    @Override
+    public void onFileChunkWindow(RecoveryState.FileChunkWindow fileChunkWindow) {
+        target.onFileChunkWindow(fileChunkWindow);
+    }
+
     @Override
     public void restoreFileFromSnapshot(
         String repository,
@@ -118,6 +118,7 @@ import org.elasticsearch.search.SearchModule;
 import org.elasticsearch.search.aggregations.AggregatorFactories.Builder;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 import org.elasticsearch.search.aggregations.bucket.nested.NestedAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.CardinalitySketchCache;
 import org.elasticsearch.search.aggregations.metrics.MetricsAggregator;
 import org.elasticsearch.search.aggregations.metrics.MultiValueAggregation;
 import org.elasticsearch.search.aggregations.metrics.NumericMetricsAggregation;
@@ -357,6 +358,7 @@ public abstract class AggregatorTestCase extends ESTestCase {
             consumer,
             () -> buildSubSearchContext(indexSettings, searchExecutionContext, bitsetFilterCache),
             bitsetFilterCache,
+            getCardinalitySketchCache(),
             randomInt(),
             () -> 0L,
             () -> false,
@@ -439,6 +441,13 @@ public abstract class AggregatorTestCase extends ESTestCase {
         );
     }
 
+    /**
+     * Sub-tests that cache {@code cardinality} sketches can override this method to provide the cache
+     */
+    protected CardinalitySketchCache getCardinalitySketchCache() {
+        return null;
+    }
+
     /**
      * Sub-tests that need scripting can override this method to provide a script service and pre-baked scripts
      */
@@ -150,6 +150,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
@@ -579,6 +580,26 @@ public abstract class InternalAggregationTestCase<T extends InternalAggregation>
         });
     }
 
+    /**
+     * Test that serializing an aggregation in chunks, as the REST layer does when it writes a search response, produces the same
+     * output as serializing it at once.
+     */
+    public final void testToXContentChunked() throws IOException {
+        T testInstance = createTestInstanceForXContent();
+        ToXContent.Params params = new ToXContent.MapParams(singletonMap(RestSearchAction.TYPED_KEYS_PARAM, "true"));
+        XContentType xContentType = randomFrom(XContentType.values());
+        BytesReference expected = toXContent(testInstance, xContentType, params, false);
+
+        XContentBuilder builder = XContentBuilder.builder(xContentType.xContent());
+        builder.startObject();
+        Iterator<ToXContent> chunks = testInstance.toXContentChunked(params);
+        while (chunks.hasNext()) {
+            chunks.next().toXContent(builder, params);
+        }
+        builder.endObject();
+        assertEquals(expected.toBytesRef(), BytesReference.bytes(builder).toBytesRef());
+    }
+
     @SuppressWarnings("unchecked")
     protected <P extends ParsedAggregation> P parseAndAssert(
         final InternalAggregation aggregation,
@@ -263,6 +263,11 @@ public class StubbableTransport implements Transport {
             return connection.getVersion();
         }
 
+        @Override
+        public boolean isZstdSupported() {
+            return connection.isZstdSupported();
+        }
+
         @Override
         public Object getCacheKey() {
             return connection.getCacheKey();
@@ -44,6 +44,11 @@ public final class DataTierAllocationDecider extends AllocationDecider {
         return shouldFilter(allocation.metadata().getIndexSafe(shardRouting.index()), node.node(), allocation);
     }
 
+    @Override
+    public boolean canCacheIndexDecisions() {
+        return true;
+    }
+
     @Override
     public Decision canAllocate(IndexMetadata indexMetadata, RoutingNode node, RoutingAllocation allocation) {
         return shouldFilter(indexMetadata, node.node(), allocation);
@@ -52,6 +52,11 @@ public class DedicatedFrozenNodeAllocationDecider extends AllocationDecider {
         return canAllocateToNode(indexMetadata, node.node());
     }
 
+    @Override
+    public boolean canCacheIndexDecisions() {
+        return true;
+    }
+
     @Override
     public Decision canAllocate(IndexMetadata indexMetadata, RoutingNode node, RoutingAllocation allocation) {
         return canAllocateToNode(indexMetadata, node.node());
@@ -103,12 +103,12 @@ public class SimpleSecurityNetty4ServerTransportTests extends AbstractSimpleTran
                 DiscoveryNode node,
                 TcpChannel channel,
                 ConnectionProfile profile,
-                ActionListener<Version> listener
+                ActionListener<TcpTransport.HandshakeResult> listener
             ) {
                 if (doHandshake) {
                     super.executeHandshake(node, channel, profile, listener);
                 } else {
-                    listener.onResponse(version.minimumCompatibilityVersion());
+                    listener.onResponse(new TcpTransport.HandshakeResult(version.minimumCompatibilityVersion(), false));
                 }
             }
         };